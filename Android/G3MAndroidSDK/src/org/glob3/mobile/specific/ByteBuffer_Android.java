@@ -2,6 +2,8 @@
 
 package org.glob3.mobile.specific;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 
 import org.glob3.mobile.generated.IByteBuffer;
@@ -11,23 +13,28 @@ public final class ByteBuffer_Android
    extends
       IByteBuffer {
 
-   private byte[] _buffer;
-   private int    _timestamp = 0;
+   private byte[]     _buffer;
+   // little endian view of _buffer for the bulk reads, sharing its content
+   private ByteBuffer _littleEndianBuffer;
+   private int        _timestamp = 0;
 
 
    ByteBuffer_Android(final byte[] data) {
       _buffer = data;
+      _littleEndianBuffer = ByteBuffer.wrap(_buffer).order(ByteOrder.LITTLE_ENDIAN);
    }
 
 
    public ByteBuffer_Android(final int size) {
       _buffer = new byte[size];
+      _littleEndianBuffer = ByteBuffer.wrap(_buffer).order(ByteOrder.LITTLE_ENDIAN);
    }
 
 
    @Override
    public void dispose() {
       _buffer = null;
+      _littleEndianBuffer = null;
       super.dispose();
    }
 
@@ -86,4 +93,92 @@ public final class ByteBuffer_Android
    }
 
 
+   @Override
+   public String getAsString(final int i,
+                             final int length) {
+      return new String(_buffer, i, length, UTF_8);
+   }
+
+
+   @Override
+   public short getInt16(final int i) {
+      return _littleEndianBuffer.getShort(i);
+   }
+
+
+   @Override
+   public int getInt32(final int i) {
+      return _littleEndianBuffer.getInt(i);
+   }
+
+
+   @Override
+   public long getInt64(final int i) {
+      return _littleEndianBuffer.getLong(i);
+   }
+
+
+   @Override
+   public float getFloat(final int i) {
+      return _littleEndianBuffer.getFloat(i);
+   }
+
+
+   @Override
+   public double getDouble(final int i) {
+      return _littleEndianBuffer.getDouble(i);
+   }
+
+
+   @Override
+   public void getUInt8s(final int i,
+                         final int count,
+                         final byte[] dst) {
+      System.arraycopy(_buffer, i, dst, 0, count);
+   }
+
+
+   private ByteBuffer littleEndianBufferAt(final int i) {
+      final ByteBuffer result = _littleEndianBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      result.position(i);
+      return result;
+   }
+
+
+   @Override
+   public void getInt16s(final int i,
+                         final int count,
+                         final short[] dst) {
+      littleEndianBufferAt(i).asShortBuffer().get(dst, 0, count);
+   }
+
+
+   @Override
+   public void getInt32s(final int i,
+                         final int count,
+                         final int[] dst) {
+      littleEndianBufferAt(i).asIntBuffer().get(dst, 0, count);
+   }
+
+
+   @Override
+   public void getFloats(final int i,
+                         final int count,
+                         final float[] dst) {
+      littleEndianBufferAt(i).asFloatBuffer().get(dst, 0, count);
+   }
+
+
+   @Override
+   public int indexOf(final int i,
+                      final byte value) {
+      for (int j = i; j < _buffer.length; j++) {
+         if (_buffer[j] == value) {
+            return j;
+         }
+      }
+      return -1;
+   }
+
+
 }
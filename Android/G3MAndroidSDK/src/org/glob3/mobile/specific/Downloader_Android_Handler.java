@@ -382,7 +382,7 @@ public final class Downloader_Android_Handler {
             }
 
             for (final Downloader_Android_ListenerEntry entry : _listeners) {
-               entry.onError(_g3mURL);
+               entry.onError(_g3mURL, _statusCode);
             }
          }
          // }
@@ -74,16 +74,17 @@ public final class Downloader_Android_ListenerEntry {
    }
 
 
-   void onError(final URL url) {
+   void onError(final URL url,
+                final int statusCode) {
       if (_bufferListener != null) {
-         _bufferListener.onError(url);
+         _bufferListener.onErrorWithStatusCode(url, statusCode);
          if (_deleteListener) {
             _bufferListener.dispose();
          }
       }
 
       if (_imageListener != null) {
-         _imageListener.onError(url);
+         _imageListener.onErrorWithStatusCode(url, statusCode);
          if (_deleteListener) {
             _imageListener.dispose();
          }
@@ -222,6 +222,14 @@ public final class Image_Android
    }
 
 
+   @Override
+   public void getPixels(final int[] argb) {
+      final Bitmap bitmap = _bitmapHolder._bitmap;
+      final int width = bitmap.getWidth();
+      bitmap.getPixels(argb, 0, width, 0, 0, width, bitmap.getHeight());
+   }
+
+
    //   @Override
    //   protected void finalize() throws Throwable {
    //      if (DEBUG) {
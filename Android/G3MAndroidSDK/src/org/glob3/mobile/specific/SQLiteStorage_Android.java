@@ -162,6 +162,7 @@ public final class SQLiteStorage_Android
                                        final boolean readExpired) {
       ByteBuffer_Android buffer = null;
       boolean expired = false;
+      long timeToExpire = -1;
       final String name = url._path;
 
       final Cursor cursor = _readDB.query( //
@@ -177,14 +178,15 @@ public final class SQLiteStorage_Android
          final String expirationS = cursor.getString(1);
          final long expirationInterval = Long.parseLong(expirationS);
 
-         expired = (expirationInterval <= System.currentTimeMillis());
+         timeToExpire = Math.max(expirationInterval - System.currentTimeMillis(), 0);
+         expired = (timeToExpire == 0);
          if (!expired || readExpired) {
             buffer = new ByteBuffer_Android(data);
          }
       }
       cursor.close();
 
-      return new IByteBufferResult(buffer, expired);
+      return new IByteBufferResult(buffer, expired, timeToExpire);
    }
 
 
@@ -231,6 +233,7 @@ public final class SQLiteStorage_Android
                                  final boolean readExpired) {
       IImage image = null;
       boolean expired = false;
+      long timeToExpire = -1;
       final String name = url._path;
 
       final Cursor cursor = _readDB.query( //
@@ -246,7 +249,8 @@ public final class SQLiteStorage_Android
          final String expirationS = cursor.getString(1);
          final long expirationInterval = Long.parseLong(expirationS);
 
-         expired = (expirationInterval <= System.currentTimeMillis());
+         timeToExpire = Math.max(expirationInterval - System.currentTimeMillis(), 0);
+         expired = (timeToExpire == 0);
          if (!expired || readExpired) {
             final Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, data.length, _bitmapFactoryOptions);
 
@@ -260,7 +264,7 @@ public final class SQLiteStorage_Android
       }
       cursor.close();
 
-      return new IImageResult(image, expired);
+      return new IImageResult(image, expired, timeToExpire);
    }
 
 
@@ -35,7 +35,7 @@ public class BSONParser
 
   }
 
-  private static JSONBaseObject parseValue(byte type, ByteBufferIterator iterator, boolean nullAsObject)
+  public static JSONBaseObject parseValue(byte type, ByteBufferIterator iterator, boolean nullAsObject)
   {
     switch (type)
     {
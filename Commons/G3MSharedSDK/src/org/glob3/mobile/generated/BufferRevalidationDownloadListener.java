@@ -0,0 +1,69 @@
+package org.glob3.mobile.generated;
+public class BufferRevalidationDownloadListener extends IBufferDownloadListener
+{
+  private CachedDownloader _downloader;
+
+  private IStorage _storage;
+
+  private final TimeInterval _timeToCache;
+
+  public BufferRevalidationDownloadListener(CachedDownloader downloader, IStorage storage, TimeInterval timeToCache)
+  {
+     _downloader = downloader;
+     _storage = storage;
+     _timeToCache = timeToCache;
+
+  }
+
+  public final void onDownload(URL url, IByteBuffer data, boolean expired)
+  {
+    onDownloadWithValidators(url, data, expired, "", "");
+  }
+
+  public final void onDownloadWithValidators(URL url, IByteBuffer data, boolean expired, String eTag, String lastModified)
+  {
+    if (_storage.isAvailable())
+    {
+      _downloader.countSave();
+
+      _storage.saveBufferWithValidators(url, data, _timeToCache, _downloader.saveInBackground(), eTag, lastModified);
+    }
+    _downloader.onBufferDownloaded(url, data, _timeToCache);
+    _downloader.onRevalidationFinished(url);
+
+    if (data != null)
+       data.dispose();
+  }
+
+  public final void onNotModified(URL url)
+  {
+    if (_storage.isAvailable())
+    {
+      _storage.refreshBuffer(url, _timeToCache, _downloader.saveInBackground());
+    }
+    _downloader.onNotModified(url);
+    _downloader.onRevalidationFinished(url);
+  }
+
+  public final void onError(URL url)
+  {
+    onErrorWithStatusCode(url, 0);
+  }
+
+  public final void onErrorWithStatusCode(URL url, int statusCode)
+  {
+    _downloader.onDownloadError(url, statusCode);
+    _downloader.onRevalidationFinished(url);
+  }
+
+  public final void onCanceledDownload(URL url, IByteBuffer buffer, boolean expired)
+  {
+    // do nothing, onCancel() follows
+  }
+
+  public final void onCancel(URL url)
+  {
+    _downloader.onRevalidationFinished(url);
+  }
+
+}
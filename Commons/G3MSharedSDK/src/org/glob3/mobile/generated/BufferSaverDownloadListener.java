@@ -42,7 +42,7 @@ public class BufferSaverDownloadListener extends IBufferDownloadListener
     }
   }
 
-  public final void saveBuffer(URL url, IByteBuffer buffer)
+  public final void saveBuffer(URL url, IByteBuffer buffer, String eTag, String lastModified)
   {
     if (!url.isFileProtocol())
     {
@@ -52,7 +52,7 @@ public class BufferSaverDownloadListener extends IBufferDownloadListener
         {
           _downloader.countSave();
 
-          _storage.saveBuffer(url, buffer, _timeToCache, _downloader.saveInBackground());
+          _storage.saveBufferWithValidators(url, buffer, _timeToCache, _downloader.saveInBackground(), eTag, lastModified);
         }
         else
         {
@@ -63,10 +63,16 @@ public class BufferSaverDownloadListener extends IBufferDownloadListener
   }
 
   public final void onDownload(URL url, IByteBuffer data, boolean expired)
+  {
+    onDownloadWithValidators(url, data, expired, "", "");
+  }
+
+  public final void onDownloadWithValidators(URL url, IByteBuffer data, boolean expired, String eTag, String lastModified)
   {
     if (!expired)
     {
-      saveBuffer(url, data);
+      saveBuffer(url, data, eTag, lastModified);
+      _downloader.onBufferDownloaded(url, data, _timeToCache);
     }
 
     _listener.onDownload(url, data, expired);
@@ -74,8 +80,45 @@ public class BufferSaverDownloadListener extends IBufferDownloadListener
     deleteListener();
   }
 
+  public final void onNotModified(URL url)
+  {
+    _downloader.onNotModified(url);
+
+    // the server still has the expired buffer, so it's fresh again
+    IByteBuffer buffer = _expiredBuffer;
+    _expiredBuffer = null;
+    if (_storage.isAvailable())
+    {
+      _storage.refreshBuffer(url, _timeToCache, _downloader.saveInBackground());
+      if (buffer == null)
+      {
+        // requested without readExpired, the expired buffer wasn't read
+        buffer = _storage.readBuffer(url, true).getBuffer();
+      }
+    }
+
+    if (buffer == null)
+    {
+      _listener.onError(url);
+    }
+    else
+    {
+      _downloader.onBufferDownloaded(url, buffer, _timeToCache);
+      _listener.onDownload(url, buffer, false);
+    }
+
+    deleteListener();
+  }
+
   public final void onError(URL url)
   {
+    onErrorWithStatusCode(url, 0);
+  }
+
+  public final void onErrorWithStatusCode(URL url, int statusCode)
+  {
+    _downloader.onDownloadError(url, statusCode);
+
     if (_expiredBuffer == null)
     {
       _listener.onError(url);
@@ -93,7 +136,8 @@ public class BufferSaverDownloadListener extends IBufferDownloadListener
   {
     if (!expired)
     {
-      saveBuffer(url, buffer);
+      saveBuffer(url, buffer, "", "");
+      _downloader.onBufferDownloaded(url, buffer, _timeToCache);
     }
 
     _listener.onCanceledDownload(url, buffer, expired);
@@ -29,6 +29,21 @@ public class ByteBufferIterator
 //C++ TO JAVA CONVERTER TODO TASK: The implementation of the following method could not be found:
 //  ByteBufferIterator(ByteBufferIterator that);
 
+  // checks the buffer once for a read of bytesCount bytes
+  private void checkNext(int bytesCount)
+  {
+    if (_bufferTimestamp != _buffer.timestamp())
+    {
+      throw new RuntimeException("The buffer was changed after the iteration started");
+      //_bufferSize = _buffer->size();
+    }
+  
+    if (_cursor + bytesCount > _bufferSize)
+    {
+      throw new RuntimeException("Iteration overflow");
+    }
+  }
+
   public ByteBufferIterator(IByteBuffer buffer)
   {
      _buffer = buffer;
@@ -50,108 +65,111 @@ public class ByteBufferIterator
 
   public final byte nextUInt8()
   {
-    if (_bufferTimestamp != _buffer.timestamp())
-    {
-      throw new RuntimeException("The buffer was changed after the iteration started");
-      //_bufferSize = _buffer->size();
-    }
-  
-    if (_cursor >= _bufferSize)
-    {
-      throw new RuntimeException("Iteration overflow");
-      // return 0;
-    }
-  
+    checkNext(1);
     return _buffer.get(_cursor++);
   }
   public final short nextInt16()
   {
     // LittleEndian
-    final short b1 = (short) (nextUInt8() & 0xFF);
-    final short b2 = (short) (nextUInt8() & 0xFF);
-  
-    final int iResult = (((int) b1) | ((int)(b2 << 8)));
-    return (short) iResult;
+    checkNext(2);
+    final short result = _buffer.getInt16(_cursor);
+    _cursor += 2;
+    return result;
   }
   public final int nextInt32()
   {
     // LittleEndian
-    final int b1 = nextUInt8() & 0xFF;
-    final int b2 = nextUInt8() & 0xFF;
-    final int b3 = nextUInt8() & 0xFF;
-    final int b4 = nextUInt8() & 0xFF;
-  
-    return (((int) b1) | ((int) b2 << 8) | ((int) b3 << 16) | ((int) b4 << 24));
+    checkNext(4);
+    final int result = _buffer.getInt32(_cursor);
+    _cursor += 4;
+    return result;
   }
   public final long nextInt64()
   {
     // LittleEndian
-    final int b1 = nextUInt8() & 0xFF;
-    final int b2 = nextUInt8() & 0xFF;
-    final int b3 = nextUInt8() & 0xFF;
-    final int b4 = nextUInt8() & 0xFF;
-    final int b5 = nextUInt8() & 0xFF;
-    final int b6 = nextUInt8() & 0xFF;
-    final int b7 = nextUInt8() & 0xFF;
-    final int b8 = nextUInt8() & 0xFF;
-  
-    return (((long) b1) | ((long) b2 << 8) | ((long) b3 << 16) | ((long) b4 << 24) | ((long) b5 << 32) | ((long) b6 << 40) | ((long) b7 << 48) | ((long) b8 << 56));
+    checkNext(8);
+    final long result = _buffer.getInt64(_cursor);
+    _cursor += 8;
+    return result;
   }
 
   public final IByteBuffer nextBufferUpTo(byte sentinel)
   {
-    ByteBufferBuilder builder = new ByteBufferBuilder();
+    checkNext(0);
   
-    byte c;
-  
-    while ((c = nextUInt8()) != sentinel)
+    final int sentinelIndex = _buffer.indexOf(_cursor, sentinel);
+    if (sentinelIndex < 0)
     {
-      builder.add(c);
+      throw new RuntimeException("Iteration overflow");
     }
   
-    return builder.create();
+    final int length = sentinelIndex - _cursor;
+    byte[] data = new byte[length];
+    _buffer.getUInt8s(_cursor, length, data);
+    _cursor = sentinelIndex + 1;
+  
+    return IFactory.instance().createByteBuffer(data, length);
   }
 
   public final String nextZeroTerminatedString()
   {
-    IByteBuffer buffer = nextBufferUpTo((byte) 0);
-    final String result = buffer.getAsString();
-    if (buffer != null)
-       buffer.dispose();
+    checkNext(0);
+  
+    final int zeroIndex = _buffer.indexOf(_cursor, (byte) 0);
+    if (zeroIndex < 0)
+    {
+      throw new RuntimeException("Iteration overflow");
+    }
+  
+    final String result = _buffer.getAsString(_cursor, zeroIndex - _cursor);
+    _cursor = zeroIndex + 1;
     return result;
   }
 
   public final double nextDouble()
   {
-    final long l = nextInt64();
-    return IMathUtils.instance().rawLongBitsToDouble(l);
+    checkNext(8);
+    final double result = _buffer.getDouble(_cursor);
+    _cursor += 8;
+    return result;
   }
   public final float nextFloat()
   {
-    final int i = nextInt32();
-    return IMathUtils.instance().rawIntBitsToFloat(i);
+    checkNext(4);
+    final float result = _buffer.getFloat(_cursor);
+    _cursor += 4;
+    return result;
   }
 
   public final void nextUInt8(int count, byte[] dst)
   {
-    for (int i = 0; i < count; i++)
-    {
-      dst[i] = nextUInt8();
-    }
+    checkNext(count);
+    _buffer.getUInt8s(_cursor, count, dst);
+    _cursor += count;
   }
   public final void nextInt16(int count, short[] dst)
   {
-    for (int i = 0; i < count; i++)
-    {
-      dst[i] = nextInt16();
-    }
+    checkNext(count * 2);
+    _buffer.getInt16s(_cursor, count, dst);
+    _cursor += count * 2;
   }
   public final void nextInt32(int count, int[] dst)
   {
-    for (int i = 0; i < count; i++)
-    {
-      dst[i] = nextInt32();
-    }
+    checkNext(count * 4);
+    _buffer.getInt32s(_cursor, count, dst);
+    _cursor += count * 4;
+  }
+  public final void nextFloat(int count, float[] dst)
+  {
+    checkNext(count * 4);
+    _buffer.getFloats(_cursor, count, dst);
+    _cursor += count * 4;
+  }
+
+  public final void skip(int count)
+  {
+    checkNext(count);
+    _cursor += count;
   }
 
 }
@@ -18,8 +18,11 @@ package org.glob3.mobile.generated;
 
 
 
+
 //class IStorage;
-//class IImageResult;
+//class IImage;
+//class IByteBuffer;
+//class ITimer;
 
 
 public class CachedDownloader extends IDownloader
@@ -33,81 +36,279 @@ public class CachedDownloader extends IDownloader
 
   private final boolean _saveInBackground;
 
-  private IImageResult getCachedImageResult(URL url, TimeInterval timeToCache, boolean readExpired)
+  private static class MemoryCacheEntry
   {
-    if ((_lastImageResult != null) && (_lastImageURL != null))
+    public final String _key;
+    public IImage _image; // image or
+    public IByteBuffer _buffer; // buffer, never both
+    public final long _weight;
+    public final long _expiration;
+
+    // links in the LRU list of the memory cache
+    public MemoryCacheEntry _previous;
+    public MemoryCacheEntry _next;
+
+    public MemoryCacheEntry(String key, IImage image, IByteBuffer buffer, long weight, long expiration)
     {
-      if (_lastImageURL.isEquals(url))
-      {
-        // ILogger::instance()->logInfo("Used chached image for %s", url.description().c_str());
-        return new IImageResult(_lastImageResult._image.shallowCopy(), _lastImageResult._expired);
-      }
+       _key = key;
+       _image = image;
+       _buffer = buffer;
+       _weight = weight;
+       _expiration = expiration;
+       _previous = null;
+       _next = null;
+    }
+
+    public void dispose()
+    {
+      if (_image != null)
+         _image.dispose();
+      if (_buffer != null)
+         _buffer.dispose();
+    }
+  }
+
+  private final java.util.HashMap<String, MemoryCacheEntry> _memoryCache = new java.util.HashMap<String, MemoryCacheEntry>();
+
+  // the decoded images and buffers are kept (from the least to the most recently used) until the budget is exceeded
+  private MemoryCacheEntry _memoryCacheHead;
+  private MemoryCacheEntry _memoryCacheTail;
+
+  private long _memoryCacheBudget;
+  private long _memoryCacheWeight;
+
+  private long _memoryCacheHitsCounter;
+
+  private void addMemoryCacheEntry(MemoryCacheEntry entry)
+  {
+    entry._previous = _memoryCacheTail;
+    entry._next = null;
+    if (_memoryCacheTail == null)
+    {
+      _memoryCacheHead = entry;
+    }
+    else
+    {
+      _memoryCacheTail._next = entry;
+    }
+    _memoryCacheTail = entry;
+  }
+  private void removeMemoryCacheEntry(MemoryCacheEntry entry)
+  {
+    if (entry._previous == null)
+    {
+      _memoryCacheHead = entry._next;
+    }
+    else
+    {
+      entry._previous._next = entry._next;
+    }
+    if (entry._next == null)
+    {
+      _memoryCacheTail = entry._previous;
+    }
+    else
+    {
+      entry._next._previous = entry._previous;
+    }
+    entry._previous = null;
+    entry._next = null;
+  }
+  private void deleteMemoryCacheEntry(MemoryCacheEntry entry)
+  {
+    removeMemoryCacheEntry(entry);
+    _memoryCache.remove(entry._key);
+    _memoryCacheWeight -= entry._weight;
+    if (entry != null)
+       entry.dispose();
+  }
+  private void evictMemoryCacheEntries()
+  {
+    while ((_memoryCacheWeight > _memoryCacheBudget) && (_memoryCacheHead != null))
+    {
+      deleteMemoryCacheEntry(_memoryCacheHead);
+    }
+  }
+
+  private MemoryCacheEntry getMemoryCacheEntry(String key)
+  {
+    final MemoryCacheEntry entry = _memoryCache.get(key);
+    if (entry == null)
+    {
+      return null;
     }
   
-    if (!_storage.isAvailable() || url.isFileProtocol() || timeToCache.isZero())
+    if (entry._expiration <= nowInMilliseconds())
     {
-      return new IImageResult(null, false);
+      deleteMemoryCacheEntry(entry);
+      return null;
     }
   
-    IImageResult cachedImageResult = _storage.readImage(url, readExpired);
-    IImage cachedImage = cachedImageResult._image;
+    // move hit entry to the most recently used end of the cache (LRU rules)
+    removeMemoryCacheEntry(entry);
+    addMemoryCacheEntry(entry);
   
-    if (cachedImage != null)
+    return entry;
+  }
+  private void putMemoryCacheEntry(String key, IImage image, IByteBuffer buffer, long weight, TimeInterval timeToCache)
+  {
+    if (weight > _memoryCacheBudget)
     {
-      if (_lastImageResult != null)
-      {
-        if (_lastImageResult._image != null)
-           _lastImageResult._image.dispose();
-        if (_lastImageResult != null)
-           _lastImageResult.dispose();
-      }
-      _lastImageResult = new IImageResult(cachedImage.shallowCopy(), cachedImageResult._expired);
+      // would evict the whole cache and still not fit
+      if (image != null)
+         image.dispose();
+      if (buffer != null)
+         buffer.dispose();
+      return;
+    }
   
-      if (_lastImageURL != null)
-         _lastImageURL.dispose();
-      _lastImageURL = url;
+    final MemoryCacheEntry previousEntry = _memoryCache.get(key);
+    if (previousEntry != null)
+    {
+      deleteMemoryCacheEntry(previousEntry);
     }
   
-    return new IImageResult(cachedImage, cachedImageResult._expired);
+    // saturated, TimeInterval::forever() would overflow the sum
+    final long now = nowInMilliseconds();
+    final long maxInt64 = IMathUtils.instance().maxInt64();
+    final long timeToCacheInMS = timeToCache.milliseconds();
+    final long expiration = (timeToCacheInMS >= maxInt64 - now) ? maxInt64 : now + timeToCacheInMS;
+  
+    MemoryCacheEntry entry = new MemoryCacheEntry(key, image, buffer, weight, expiration);
+    _memoryCache.put(key, entry);
+    addMemoryCacheEntry(entry);
+    _memoryCacheWeight += weight;
+  
+    evictMemoryCacheEntries();
   }
 
-  private IImageResult _lastImageResult;
-  private URL _lastImageURL;
-
-  public CachedDownloader(IDownloader downloader, IStorage storage, boolean saveInBackground)
+  private IImage getMemoryCachedImage(URL url)
   {
-     _downloader = downloader;
-     _storage = storage;
-     _requestsCounter = 0;
-     _cacheHitsCounter = 0;
-     _savesCounter = 0;
-     _saveInBackground = saveInBackground;
-     _lastImageResult = null;
-     _lastImageURL = null;
+    final MemoryCacheEntry entry = getMemoryCacheEntry("I" + url._path);
+    return (entry == null) ? null : entry._image.shallowCopy();
+  }
+  private IByteBuffer getMemoryCachedBuffer(URL url)
+  {
+    final MemoryCacheEntry entry = getMemoryCacheEntry("B" + url._path);
+    if (entry == null)
+    {
+      return null;
+    }
+  
+    // the listener owns the buffer it gets, so every hit gets its own copy
+    final IByteBuffer buffer = entry._buffer;
+    final int size = buffer.size();
+    byte[] data = new byte[size];
+    buffer.getUInt8s(0, size, data);
+    return IFactory.instance().createByteBuffer(data, size);
+  }
 
+  private TimeInterval getStorageHitTimeToCache(TimeInterval timeToCache, long timeToExpire)
+  {
+    // a storage hit can't outlive, in memory, the expiration it has in the storage
+    final long maxTimeToCache = (timeToExpire < 0) ? STORAGE_HIT_MAX_MEMORY_TIME_TO_CACHE : timeToExpire;
+    if (timeToCache.milliseconds() <= maxTimeToCache)
+    {
+      return timeToCache;
+    }
+    return TimeInterval.fromMilliseconds(maxTimeToCache);
   }
 
-  public final boolean saveInBackground()
+  private static class NegativeCacheEntry
   {
-    return _saveInBackground;
+    public int _failures;
+    public long _retryTime;
+
+    public NegativeCacheEntry()
+    {
+       _failures = 0;
+       _retryTime = 0;
+    }
   }
 
-  public final void start()
+  // the URLs whose download failed, they aren't requested again until their retry time
+  private final java.util.HashMap<String, NegativeCacheEntry> _negativeCache = new java.util.HashMap<String, NegativeCacheEntry>();
+
+  private long _negativeCacheHitsCounter;
+  private long _downloadErrorsCounter;
+
+  private boolean isNegativeCached(URL url)
   {
-    _downloader.start();
+    final NegativeCacheEntry entry = _negativeCache.get(url._path);
+    if (entry == null)
+    {
+      return false;
+    }
+    // once the retry time is reached the entry stays, so a new failure keeps doubling the back-off
+    return (entry._retryTime > nowInMilliseconds());
+  }
+  private void removeNegativeCacheEntry(URL url)
+  {
+    _negativeCache.remove(url._path);
+  }
+  private void pruneNegativeCache(long now)
+  {
+    final java.util.Iterator<NegativeCacheEntry> iterator = _negativeCache.values().iterator();
+    while (iterator.hasNext())
+    {
+      if (iterator.next()._retryTime <= now)
+      {
+        iterator.remove();
+      }
+    }
   }
 
-  public final void stop()
+  // the paths with a revalidation in flight, to request each one once
+  private final java.util.HashMap<String, Boolean> _revalidations = new java.util.HashMap<String, Boolean>();
+
+  private long _staleHitsCounter;
+  private long _revalidationsCounter;
+  private long _conditionalRevalidationsCounter;
+  private long _notModifiedCounter;
+
+  private boolean startRevalidation(URL url)
   {
-    _downloader.stop();
+    if (isNegativeCached(url))
+    {
+      return false;
+    }
+    if (_revalidations.containsKey(url._path))
+    {
+      return false;
+    }
+    _revalidations.put(url._path, true);
+    _revalidationsCounter++;
+    return true;
   }
 
-  public final long requestBuffer(URL url, long priority, TimeInterval timeToCache, boolean readExpired, IBufferDownloadListener listener, boolean deleteListener, String tag)
+  private long cachedRequestBuffer(URL url, long priority, TimeInterval timeToCache, boolean readExpired, boolean staleWhileRevalidate, IBufferDownloadListener listener, boolean deleteListener, String tag)
   {
+    final boolean useCache = _storage.isAvailable() && !url.isFileProtocol() && !timeToCache.isZero();
   
+    _lock.lock();
     _requestsCounter++;
+    IByteBuffer memoryCachedBuffer = useCache ? getMemoryCachedBuffer(url) : null;
+    if (memoryCachedBuffer != null)
+    {
+      _cacheHitsCounter++;
+      _memoryCacheHitsCounter++;
+    }
+    _lock.unlock();
+  
+    if (memoryCachedBuffer != null)
+    {
+      // memory cache hit
+      listener.onDownload(url, memoryCachedBuffer, false);
+  
+      if (deleteListener)
+      {
+        if (listener != null)
+           listener.dispose();
+      }
+  
+      return -1;
+    }
   
-    final boolean useCache = _storage.isAvailable() && !url.isFileProtocol() && !timeToCache.isZero();
     IByteBufferResult cached = useCache ? _storage.readBuffer(url, readExpired) : new IByteBufferResult(null, false);
   
     IByteBuffer cachedBuffer = cached.getBuffer();
@@ -115,7 +316,11 @@ public class CachedDownloader extends IDownloader
     if (cachedBuffer != null && !cached.isExpired())
     {
       // cache hit
+      _lock.lock();
       _cacheHitsCounter++;
+      _lock.unlock();
+  
+      onBufferDownloaded(url, cachedBuffer, getStorageHitTimeToCache(timeToCache, cached.getTimeToExpire()));
   
       listener.onDownload(url, cachedBuffer, false);
   
@@ -128,26 +333,135 @@ public class CachedDownloader extends IDownloader
       return -1;
     }
   
-    // cache miss
+    if (cachedBuffer != null && staleWhileRevalidate)
+    {
+      // stale hit, serve the expired buffer and refresh it in background
+      // with the validators saved with the buffer the server can answer 304 Not Modified, without sending it again
+      final String eTag = cached.getETag();
+      final String lastModified = cached.getLastModified();
+      final boolean conditional = !eTag.isEmpty() || !lastModified.isEmpty();
+  
+      _lock.lock();
+      _staleHitsCounter++;
+      final boolean revalidate = startRevalidation(url);
+      if (revalidate && conditional)
+      {
+        _conditionalRevalidationsCounter++;
+      }
+      _lock.unlock();
+  
+      if (revalidate)
+      {
+        if (conditional)
+        {
+          _downloader.requestConditionalBuffer(url, DownloadPriority.LOWEST, eTag, lastModified, new BufferRevalidationDownloadListener(this, _storage, timeToCache), true, "");
+        }
+        else
+        {
+          _downloader.requestBuffer(url, DownloadPriority.LOWEST, TimeInterval.zero(), false, new BufferRevalidationDownloadListener(this, _storage, timeToCache), true);
+        }
+      }
+  
+      listener.onDownload(url, cachedBuffer, true);
+  
+      if (deleteListener)
+      {
+        if (listener != null)
+           listener.dispose();
+      }
+  
+      return -1;
+    }
+  
+    // cache miss, or an expired entry
     if (useCache)
     {
+      _lock.lock();
+      final boolean negativeCached = isNegativeCached(url);
+      if (negativeCached)
+      {
+        _negativeCacheHitsCounter++;
+      }
+      _lock.unlock();
+  
+      if (negativeCached)
+      {
+        // the last download failed not so long ago, don't retry yet
+        if (cachedBuffer == null)
+        {
+          listener.onError(url);
+        }
+        else
+        {
+          listener.onDownload(url, cachedBuffer, true);
+        }
+  
+        if (deleteListener)
+        {
+          if (listener != null)
+             listener.dispose();
+        }
+  
+        return -1;
+      }
+  
+      // with the validators saved with the expired buffer the server can answer 304 Not Modified, without sending it again
+      final String eTag = cached.getETag();
+      final String lastModified = cached.getLastModified();
+      if (!eTag.isEmpty() || !lastModified.isEmpty())
+      {
+        _lock.lock();
+        _conditionalRevalidationsCounter++;
+        _lock.unlock();
+  
+        return _downloader.requestConditionalBuffer(url, priority, eTag, lastModified, new BufferSaverDownloadListener(this, cachedBuffer, listener, deleteListener, _storage, timeToCache), true, tag);
+      }
+  
       return _downloader.requestBuffer(url, priority, TimeInterval.zero(), false, new BufferSaverDownloadListener(this, cachedBuffer, listener, deleteListener, _storage, timeToCache), true, tag);
     }
   
     return _downloader.requestBuffer(url, priority, TimeInterval.zero(), false, listener, deleteListener, tag);
   }
 
-  public final long requestImage(URL url, long priority, TimeInterval timeToCache, boolean readExpired, IImageDownloadListener listener, boolean deleteListener, String tag)
+  private long cachedRequestImage(URL url, long priority, TimeInterval timeToCache, boolean readExpired, boolean staleWhileRevalidate, IImageDownloadListener listener, boolean deleteListener, String tag)
   {
+    final boolean useCache = _storage.isAvailable() && !url.isFileProtocol() && !timeToCache.isZero();
+  
+    _lock.lock();
     _requestsCounter++;
+    IImage memoryCachedImage = useCache ? getMemoryCachedImage(url) : null;
+    if (memoryCachedImage != null)
+    {
+      _cacheHitsCounter++;
+      _memoryCacheHitsCounter++;
+    }
+    _lock.unlock();
+  
+    if (memoryCachedImage != null)
+    {
+      // memory cache hit
+      listener.onDownload(url, memoryCachedImage, false);
+  
+      if (deleteListener)
+      {
+        if (listener != null)
+           listener.dispose();
+      }
   
-    IImageResult cached = getCachedImageResult(url, timeToCache, readExpired);
+      return -1;
+    }
+  
+    IImageResult cached = useCache ? _storage.readImage(url, readExpired) : new IImageResult(null, false);
     IImage cachedImage = cached._image;
   
     if (cachedImage != null && !cached._expired)
     {
       // cache hit
+      _lock.lock();
       _cacheHitsCounter++;
+      final long weight = (long) cachedImage.getWidth() * cachedImage.getHeight() * 4;
+      putMemoryCacheEntry("I" + url._path, cachedImage.shallowCopy(), null, weight, getStorageHitTimeToCache(timeToCache, cached._timeToExpire));
+      _lock.unlock();
   
       listener.onDownload(url, cachedImage, false);
   
@@ -160,15 +474,182 @@ public class CachedDownloader extends IDownloader
       return -1;
     }
   
-    // cache miss
-    final boolean useCache = _storage.isAvailable() && !url.isFileProtocol() && !timeToCache.isZero();
+    if (cachedImage != null && staleWhileRevalidate)
+    {
+      // stale hit, serve the expired image and refresh it in background
+      // with the validators saved with the image the server can answer 304 Not Modified, without sending it again
+      final boolean conditional = !cached._eTag.isEmpty() || !cached._lastModified.isEmpty();
+  
+      _lock.lock();
+      _staleHitsCounter++;
+      final boolean revalidate = startRevalidation(url);
+      if (revalidate && conditional)
+      {
+        _conditionalRevalidationsCounter++;
+      }
+      _lock.unlock();
+  
+      if (revalidate)
+      {
+        if (conditional)
+        {
+          _downloader.requestConditionalImage(url, DownloadPriority.LOWEST, cached._eTag, cached._lastModified, new ImageRevalidationDownloadListener(this, _storage, timeToCache), true, "");
+        }
+        else
+        {
+          _downloader.requestImage(url, DownloadPriority.LOWEST, TimeInterval.zero(), false, new ImageRevalidationDownloadListener(this, _storage, timeToCache), true);
+        }
+      }
+  
+      listener.onDownload(url, cachedImage, true);
+  
+      if (deleteListener)
+      {
+        if (listener != null)
+           listener.dispose();
+      }
+  
+      return -1;
+    }
+  
+    // cache miss, or an expired entry
     if (useCache)
     {
+      _lock.lock();
+      final boolean negativeCached = isNegativeCached(url);
+      if (negativeCached)
+      {
+        _negativeCacheHitsCounter++;
+      }
+      _lock.unlock();
+  
+      if (negativeCached)
+      {
+        // the last download failed not so long ago, don't retry yet
+        if (cachedImage == null)
+        {
+          listener.onError(url);
+        }
+        else
+        {
+          listener.onDownload(url, cachedImage, true);
+        }
+  
+        if (deleteListener)
+        {
+          if (listener != null)
+             listener.dispose();
+        }
+  
+        return -1;
+      }
+  
+      // with the validators saved with the expired image the server can answer 304 Not Modified, without sending it again
+      if (!cached._eTag.isEmpty() || !cached._lastModified.isEmpty())
+      {
+        _lock.lock();
+        _conditionalRevalidationsCounter++;
+        _lock.unlock();
+  
+        return _downloader.requestConditionalImage(url, priority, cached._eTag, cached._lastModified, new ImageSaverDownloadListener(this, cachedImage, listener, deleteListener, _storage, timeToCache), true, tag);
+      }
+  
       return _downloader.requestImage(url, priority, TimeInterval.zero(), false, new ImageSaverDownloadListener(this, cachedImage, listener, deleteListener, _storage, timeToCache), true, tag);
     }
     return _downloader.requestImage(url, priority, TimeInterval.zero(), false, listener, deleteListener, tag);
   }
 
+  private ITimer _timer;
+  private long nowInMilliseconds()
+  {
+    if (_timer == null)
+    {
+      _timer = IFactory.instance().createTimer();
+    }
+    return _timer.nowInMilliseconds();
+  }
+
+  // guards the memory cache, the negative cache, the revalidations and the counters. The private
+  // methods above expect it to be held, and it's never held while calling a listener, the storage
+  // or the wrapped downloader.
+  private final java.util.concurrent.locks.ReentrantLock _lock = new java.util.concurrent.locks.ReentrantLock();
+
+  public static final long DEFAULT_MEMORY_CACHE_BUDGET = 16 * 1024 * 1024;
+
+  public static final long NEGATIVE_CACHE_INITIAL_BACKOFF = 2 * 1000;
+  public static final long NEGATIVE_CACHE_MAX_BACKOFF = 5 * 60 * 1000;
+
+  // the longest a storage hit is kept in the memory cache when the storage doesn't know its expiration
+  public static final long STORAGE_HIT_MAX_MEMORY_TIME_TO_CACHE = 5 * 60 * 1000;
+
+  public CachedDownloader(IDownloader downloader, IStorage storage, boolean saveInBackground)
+  {
+     _downloader = downloader;
+     _storage = storage;
+     _requestsCounter = 0;
+     _cacheHitsCounter = 0;
+     _savesCounter = 0;
+     _saveInBackground = saveInBackground;
+     _memoryCacheHead = null;
+     _memoryCacheTail = null;
+     _memoryCacheBudget = DEFAULT_MEMORY_CACHE_BUDGET;
+     _memoryCacheWeight = 0;
+     _memoryCacheHitsCounter = 0;
+     _negativeCacheHitsCounter = 0;
+     _downloadErrorsCounter = 0;
+     _staleHitsCounter = 0;
+     _revalidationsCounter = 0;
+     _conditionalRevalidationsCounter = 0;
+     _notModifiedCounter = 0;
+     _timer = null;
+
+  }
+
+  public final boolean saveInBackground()
+  {
+    return _saveInBackground;
+  }
+
+  public final void start()
+  {
+    _downloader.start();
+  }
+
+  public final void stop()
+  {
+    _downloader.stop();
+  }
+
+  public final long requestBuffer(URL url, long priority, TimeInterval timeToCache, boolean readExpired, IBufferDownloadListener listener, boolean deleteListener, String tag)
+  {
+    return cachedRequestBuffer(url, priority, timeToCache, readExpired, false, listener, deleteListener, tag);
+  }
+
+  public final long requestImage(URL url, long priority, TimeInterval timeToCache, boolean readExpired, IImageDownloadListener listener, boolean deleteListener, String tag)
+  {
+    return cachedRequestImage(url, priority, timeToCache, readExpired, false, listener, deleteListener, tag);
+  }
+
+  public final long requestStaleWhileRevalidateBuffer(URL url, long priority, TimeInterval timeToCache, IBufferDownloadListener listener, boolean deleteListener, String tag)
+  {
+    return cachedRequestBuffer(url, priority, timeToCache, true, true, listener, deleteListener, tag);
+  }
+
+  public final long requestStaleWhileRevalidateImage(URL url, long priority, TimeInterval timeToCache, IImageDownloadListener listener, boolean deleteListener, String tag)
+  {
+    return cachedRequestImage(url, priority, timeToCache, true, true, listener, deleteListener, tag);
+  }
+
+  public final long requestConditionalBuffer(URL url, long priority, String eTag, String lastModified, IBufferDownloadListener listener, boolean deleteListener, String tag)
+  {
+    return _downloader.requestConditionalBuffer(url, priority, eTag, lastModified, listener, deleteListener, tag);
+  }
+
+  public final long requestConditionalImage(URL url, long priority, String eTag, String lastModified, IImageDownloadListener listener, boolean deleteListener, String tag)
+  {
+    return _downloader.requestConditionalImage(url, priority, eTag, lastModified, listener, deleteListener, tag);
+  }
+
   public final boolean cancelRequest(long requestID)
   {
     return _downloader.cancelRequest(requestID);
@@ -184,15 +665,22 @@ public class CachedDownloader extends IDownloader
     if (_downloader != null)
        _downloader.dispose();
   
-    if (_lastImageResult != null)
+    MemoryCacheEntry entry = _memoryCacheHead;
+    while (entry != null)
     {
-      if (_lastImageResult._image != null)
-         _lastImageResult._image.dispose();
-      if (_lastImageResult != null)
-         _lastImageResult.dispose();
+      MemoryCacheEntry next = entry._next;
+      if (entry != null)
+         entry.dispose();
+      entry = next;
     }
-    if (_lastImageURL != null)
-       _lastImageURL.dispose();
+    _memoryCacheHead = null;
+    _memoryCacheTail = null;
+    _memoryCache.clear();
+  
+    _negativeCache.clear();
+  
+    if (_timer != null)
+       _timer.dispose();
   
     super.dispose();
   
@@ -200,24 +688,158 @@ public class CachedDownloader extends IDownloader
 
   public final String statistics()
   {
+    final String downloaderStatistics = _downloader.statistics();
+  
+    _lock.lock();
     IStringBuilder isb = IStringBuilder.newStringBuilder();
     isb.addString("CachedDownloader(cache hits=");
     isb.addLong(_cacheHitsCounter);
     isb.addString("/");
     isb.addLong(_requestsCounter);
+    isb.addString(", memory hits=");
+    isb.addLong(_memoryCacheHitsCounter);
+    isb.addString(", memory cache=");
+    isb.addLong(_memoryCache.size());
+    isb.addString(" entries, ");
+    isb.addLong(_memoryCacheWeight);
+    isb.addString("/");
+    isb.addLong(_memoryCacheBudget);
+    isb.addString(" bytes, negative hits=");
+    isb.addLong(_negativeCacheHitsCounter);
+    isb.addString(", download errors=");
+    isb.addLong(_downloadErrorsCounter);
+    isb.addString(", stale hits=");
+    isb.addLong(_staleHitsCounter);
+    isb.addString(", revalidations=");
+    isb.addLong(_revalidationsCounter);
+    isb.addString(", conditional revalidations=");
+    isb.addLong(_conditionalRevalidationsCounter);
+    isb.addString(", not modified=");
+    isb.addLong(_notModifiedCounter);
     isb.addString(", saves=");
     isb.addLong(_savesCounter);
     isb.addString(", downloader=");
-    isb.addString(_downloader.statistics());
+    isb.addString(downloaderStatistics);
     final String s = isb.getString();
     if (isb != null)
        isb.dispose();
+    _lock.unlock();
     return s;
   }
 
   public final void countSave()
   {
+    _lock.lock();
     _savesCounter++;
+    _lock.unlock();
+  }
+
+  /**
+   Sets the budget, in bytes, of the in-memory cache of decoded images and buffers placed in front
+   of the storage. Images weight 4 bytes per pixel. Zero disables the in-memory cache.
+   */
+  public final void setMemoryCacheBudget(long memoryCacheBudget)
+  {
+    _lock.lock();
+    _memoryCacheBudget = memoryCacheBudget;
+    evictMemoryCacheEntries();
+    _lock.unlock();
+  }
+
+  public final long getMemoryCacheBudget()
+  {
+    _lock.lock();
+    final long memoryCacheBudget = _memoryCacheBudget;
+    _lock.unlock();
+    return memoryCacheBudget;
+  }
+
+  public final void onImageDownloaded(URL url, IImage image, TimeInterval timeToCache)
+  {
+    _lock.lock();
+    removeNegativeCacheEntry(url);
+  
+    if (image != null)
+    {
+      final long weight = (long) image.getWidth() * image.getHeight() * 4;
+      putMemoryCacheEntry("I" + url._path, image.shallowCopy(), null, weight, timeToCache);
+    }
+    _lock.unlock();
+  }
+
+  public final void onBufferDownloaded(URL url, IByteBuffer buffer, TimeInterval timeToCache)
+  {
+    _lock.lock();
+    removeNegativeCacheEntry(url);
+  
+    if ((buffer != null) && (buffer.size() <= _memoryCacheBudget))
+    {
+      final int size = buffer.size();
+      byte[] data = new byte[size];
+      buffer.getUInt8s(0, size, data);
+      putMemoryCacheEntry("B" + url._path, null, IFactory.instance().createByteBuffer(data, size), size, timeToCache);
+    }
+    _lock.unlock();
+  }
+
+  /**
+   Counts a failed download. If the server answered with an HTTP error (4xx or 5xx) the URL isn't
+   requested again until its back-off expires, the back-off doubles on every consecutive error. A
+   download that got no answer (statusCode 0) can be retried right away.
+   */
+  public final void onDownloadError(URL url, int statusCode)
+  {
+    _lock.lock();
+    _downloadErrorsCounter++;
+  
+    if ((statusCode < 400) || (statusCode > 599))
+    {
+      // no answer from the server (or not an HTTP error), the next request can try again
+      _lock.unlock();
+      return;
+    }
+  
+    final long now = nowInMilliseconds();
+  
+    NegativeCacheEntry entry = _negativeCache.get(url._path);
+    if (entry == null)
+    {
+      if (_negativeCache.size() >= 1024)
+      {
+        pruneNegativeCache(now);
+      }
+      entry = new NegativeCacheEntry();
+      _negativeCache.put(url._path, entry);
+    }
+  
+    // the back-off doubles on every consecutive failure
+    entry._failures++;
+    long backoff = NEGATIVE_CACHE_INITIAL_BACKOFF;
+    for (int i = 1; (i < entry._failures) && (backoff < NEGATIVE_CACHE_MAX_BACKOFF); i++)
+    {
+      backoff *= 2;
+    }
+    if (backoff > NEGATIVE_CACHE_MAX_BACKOFF)
+    {
+      backoff = NEGATIVE_CACHE_MAX_BACKOFF;
+    }
+    entry._retryTime = now + backoff;
+    _lock.unlock();
+  }
+
+  public final void onNotModified(URL url)
+  {
+    _lock.lock();
+    _notModifiedCounter++;
+    removeNegativeCacheEntry(url);
+    _lock.unlock();
+  }
+
+  public final void onRevalidationFinished(URL url)
+  {
+    _lock.lock();
+    _revalidations.remove(url._path);
+    _lock.unlock();
   }
 
   public final void onResume(G3MContext context)
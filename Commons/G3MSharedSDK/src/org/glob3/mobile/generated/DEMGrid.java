@@ -59,4 +59,20 @@ public abstract class DEMGrid extends RCObject
 
   public abstract double getElevation(int x, int y);
 
+  /**
+   Fills result with all the elevations of the grid in one pass, result[(y * extent._x) + x] is
+   getElevation(x, y).
+   */
+  public void getElevations(double[] result)
+  {
+    int index = 0;
+    for (int y = 0; y < _extent._y; y++)
+    {
+      for (int x = 0; x < _extent._x; x++)
+      {
+        result[index++] = getElevation(x, y);
+      }
+    }
+  }
+
 }
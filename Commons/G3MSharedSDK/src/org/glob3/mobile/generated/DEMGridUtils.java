@@ -42,11 +42,14 @@ public class DEMGridUtils
     final int width = grid.getExtent()._x;
     final int height = grid.getExtent()._y;
   
+    double[] elevations = new double[width * height];
+    grid.getElevations(elevations);
+  
     for (int x = 0; x < width; x++)
     {
       for (int y = 0; y < height; y++)
       {
-        final double elevation = grid.getElevation(x, y);
+        final double elevation = elevations[(y * width) + x];
         if (!(elevation != elevation))
         {
           if (elevation < minElevation)
@@ -62,6 +65,8 @@ public class DEMGridUtils
       }
     }
   
+    elevations = null;
+  
     return new Vector3D(minElevation, maxElevation, sumElevation / (width * height));
   }
 
@@ -85,6 +90,9 @@ public class DEMGridUtils
     final Vector2I extent = grid.getExtent();
     final Sector sector = grid.getSector();
   
+    double[] elevations = new double[extent._x * extent._y];
+    grid.getElevations(elevations);
+  
     for (int x = 0; x < extent._x; x++)
     {
       final double u = (double) x / (extent._x - 1);
@@ -92,7 +100,7 @@ public class DEMGridUtils
   
       for (int y = 0; y < extent._y; y++)
       {
-        final double elevation = grid.getElevation(x, y);
+        final double elevation = elevations[(y * extent._x) + x];
         if (!(elevation != elevation))
         {
           final double v = 1.0 - ((double) y / (extent._y - 1));
@@ -108,6 +116,8 @@ public class DEMGridUtils
       }
     }
   
+    elevations = null;
+  
     Mesh result = new DirectMesh(GLPrimitive.points(), true, vertices.getCenter(), vertices.create(), 1, pointSize, null, colors.create(), true); // depthTest -  flatColor -  lineWidth
   
     if (vertices != null)
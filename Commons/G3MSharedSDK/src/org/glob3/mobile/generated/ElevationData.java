@@ -35,6 +35,88 @@ public abstract class ElevationData
     return _interpolator;
   }
 
+  private double getInterpolatedElevationAt(int x, int y, double alphaX, double alphaY)
+  {
+    // alpha is zero only when the coordinate is exactly on the grid
+    final int nextX = x + 1;
+    final int nextY = y + 1;
+  
+    double result;
+    if (alphaX == 0)
+    {
+      if (alphaY == 0)
+      {
+        // exact on grid point
+        result = getElevationAt(x, y);
+      }
+      else
+      {
+        // linear on Y
+        final double heightY = getElevationAt(x, y);
+        if ((heightY != heightY))
+        {
+          return Double.NaN;
+        }
+  
+        final double heightNextY = getElevationAt(x, nextY);
+        if ((heightNextY != heightNextY))
+        {
+          return Double.NaN;
+        }
+  
+        //result = IMathUtils::instance()->linearInterpolation(heightNextY, heightY, alphaY);
+        result = IMathUtils.instance().linearInterpolation(heightY, heightNextY, alphaY);
+      }
+    }
+    else
+    {
+      if (alphaY == 0)
+      {
+        // linear on X
+        final double heightX = getElevationAt(x, y);
+        if ((heightX != heightX))
+        {
+          return Double.NaN;
+        }
+        final double heightNextX = getElevationAt(nextX, y);
+        if ((heightNextX != heightNextX))
+        {
+          return Double.NaN;
+        }
+  
+        result = IMathUtils.instance().linearInterpolation(heightX, heightNextX, alphaX);
+      }
+      else
+      {
+        // bilinear
+        final double valueNW = getElevationAt(x, y);
+        if ((valueNW != valueNW))
+        {
+          return Double.NaN;
+        }
+        final double valueNE = getElevationAt(nextX, y);
+        if ((valueNE != valueNE))
+        {
+          return Double.NaN;
+        }
+        final double valueSE = getElevationAt(nextX, nextY);
+        if ((valueSE != valueSE))
+        {
+          return Double.NaN;
+        }
+        final double valueSW = getElevationAt(x, nextY);
+        if ((valueSW != valueSW))
+        {
+          return Double.NaN;
+        }
+  
+        result = getInterpolator().interpolation(valueSW, valueSE, valueNE, valueNW, alphaX, alphaY);
+      }
+    }
+  
+    return result;
+  }
+
   protected final Sector _sector ;
   protected final int _width;
   protected final int _height;
@@ -221,90 +303,73 @@ public abstract class ElevationData
   
     final int x = (int) dX;
     final int y = (int) dY;
-    final int nextX = x + 1;
-    final int nextY = y + 1;
     final double alphaY = dY - y;
     final double alphaX = dX - x;
   
-    double result;
-    if (x == dX)
+    return getInterpolatedElevationAt(x, y, alphaX, alphaY);
+  }
+
+  public final double getElevationAt(Geodetic2D position)
+  {
+    return getElevationAt(position._latitude, position._longitude);
+  }
+
+  /**
+   Fills result (row-major, rows x columns) with the elevations of a regular grid given the
+   latitude of every row and the longitude of every column.
+
+   The values are the same returned by getElevationAt(latitude, longitude), but the cell and the
+   weights of the bilinear interpolation are computed once per row and once per column.
+   */
+  public final void getElevationsAt(double[] rowsLatitudesInRadians, int rows, double[] columnsLongitudesInRadians, int columns, double[] result)
+  {
+    // same u/v computations of Sector::getUVCoordinates() and getElevationAt(latitude, longitude),
+    // x or y is -1 when the column or the row is outside the sector
+    int[] xs = new int[columns];
+    double[] alphaXs = new double[columns];
+    for (int column = 0; column < columns; column++)
     {
-      if (y == dY)
+      final double u = ((columnsLongitudesInRadians[column] - _sector._lower._longitude._radians) / _sector._deltaLongitude._radians);
+      if (u < 0 || u > 1)
       {
-        // exact on grid point
-        result = getElevationAt(x, y);
+        xs[column] = -1;
+        alphaXs[column] = 0;
       }
       else
       {
-        // linear on Y
-        final double heightY = getElevationAt(x, y);
-        if ((heightY != heightY))
-        {
-          return Double.NaN;
-        }
-  
-        final double heightNextY = getElevationAt(x, nextY);
-        if ((heightNextY != heightNextY))
-        {
-          return Double.NaN;
-        }
-  
-        //result = IMathUtils::instance()->linearInterpolation(heightNextY, heightY, alphaY);
-        result = IMathUtils.instance().linearInterpolation(heightY, heightNextY, alphaY);
+        final double dX = u * (_width - 1);
+        final int x = (int) dX;
+        xs[column] = x;
+        alphaXs[column] = dX - x;
       }
     }
-    else
+  
+    int index = 0;
+    for (int row = 0; row < rows; row++)
     {
-      if (y == dY)
+      final double v = ((_sector._upper._latitude._radians - rowsLatitudesInRadians[row]) / _sector._deltaLatitude._radians);
+      if (v < 0 || v > 1)
       {
-        // linear on X
-        final double heightX = getElevationAt(x, y);
-        if ((heightX != heightX))
+        for (int column = 0; column < columns; column++)
         {
-          return Double.NaN;
+          result[index++] = Double.NaN;
         }
-        final double heightNextX = getElevationAt(nextX, y);
-        if ((heightNextX != heightNextX))
-        {
-          return Double.NaN;
-        }
-  
-        result = IMathUtils.instance().linearInterpolation(heightX, heightNextX, alphaX);
+        continue;
       }
-      else
-      {
-        // bilinear
-        final double valueNW = getElevationAt(x, y);
-        if ((valueNW != valueNW))
-        {
-          return Double.NaN;
-        }
-        final double valueNE = getElevationAt(nextX, y);
-        if ((valueNE != valueNE))
-        {
-          return Double.NaN;
-        }
-        final double valueSE = getElevationAt(nextX, nextY);
-        if ((valueSE != valueSE))
-        {
-          return Double.NaN;
-        }
-        final double valueSW = getElevationAt(x, nextY);
-        if ((valueSW != valueSW))
-        {
-          return Double.NaN;
-        }
   
-        result = getInterpolator().interpolation(valueSW, valueSE, valueNE, valueNW, alphaX, alphaY);
+      final double dY = (1.0 - v) * (_height - 1);
+      final int y = (int) dY;
+      final double alphaY = dY - y;
+  
+      for (int column = 0; column < columns; column++)
+      {
+        final int x = xs[column];
+        result[index++] = (x < 0) ? Double.NaN : getInterpolatedElevationAt(x, y, alphaXs[column], alphaY);
       }
     }
   
-    return result;
-  }
-
-  public final double getElevationAt(Geodetic2D position)
-  {
-    return getElevationAt(position._latitude, position._longitude);
+    xs = null;
+    alphaXs = null;
   }
 
 }
@@ -158,6 +158,51 @@ public class FlatPlanet extends Planet
     toCartesian(geodetic._latitude, geodetic._longitude, height, result);
   }
 
+  public final void toCartesian(double[] latitudesInRadians, double[] longitudesInRadians, double[] heights, int count, double centerX, double centerY, double centerZ, float[] result, int resultIndex)
+  {
+    int index = resultIndex;
+    for (int i = 0; i < count; i++)
+    {
+      final double x = ((longitudesInRadians[i]) * (180.0 / 3.14159265358979323846264338327950288)) * _size._x / 360.0;
+      final double y = ((latitudesInRadians[i]) * (180.0 / 3.14159265358979323846264338327950288)) * _size._y / 180.0;
+      final double z = (heights == null) ? 0 : heights[i];
+  
+      result[index] = (float)(x - centerX);
+      result[index + 1] = (float)(y - centerY);
+      result[index + 2] = (float)(z - centerZ);
+      index += 3;
+    }
+  }
+
+  public final void toCartesianGrid(double[] rowsLatitudesInRadians, int rows, double[] columnsLongitudesInRadians, int columns, double[] heights, double centerX, double centerY, double centerZ, float[] result, int resultIndex)
+  {
+    double[] xs = new double[columns];
+    for (int column = 0; column < columns; column++)
+    {
+      xs[column] = ((columnsLongitudesInRadians[column]) * (180.0 / 3.14159265358979323846264338327950288)) * _size._x / 360.0;
+    }
+  
+    int index = resultIndex;
+    int heightIndex = 0;
+    for (int row = 0; row < rows; row++)
+    {
+      final double y = ((rowsLatitudesInRadians[row]) * (180.0 / 3.14159265358979323846264338327950288)) * _size._y / 180.0;
+  
+      for (int column = 0; column < columns; column++)
+      {
+        final double z = (heights == null) ? 0 : heights[heightIndex];
+  
+        result[index] = (float)(xs[column] - centerX);
+        result[index + 1] = (float)(y - centerY);
+        result[index + 2] = (float)(z - centerZ);
+        heightIndex++;
+        index += 3;
+      }
+    }
+  
+    xs = null;
+  }
+
   public final Geodetic2D toGeodetic2D(Vector3D position)
   {
     final double longitude = position._x * 360.0 / _size._x;
@@ -57,6 +57,20 @@ public class FloatBufferBuilder
       _array[_size++] = element;
     }
 
+    // like std::vector::resize(), the added elements are zero
+    public void resize(final int size) {
+      ensureCapacity(size);
+      if (size > _size) {
+        java.util.Arrays.fill(_array, _size, size, 0);
+      }
+      _size = size;
+    }
+
+    // like std::vector::data(), the returned array is valid until the next resize
+    public float[] data() {
+      return _array;
+    }
+
     private void ensureCapacity(final int mincap) {
       if (mincap > _array.length) {
         final int newcap = ((_array.length * 3) >> 1) + 1;
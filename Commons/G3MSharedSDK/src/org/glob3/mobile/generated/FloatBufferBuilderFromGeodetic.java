@@ -36,6 +36,17 @@ public class FloatBufferBuilderFromGeodetic extends FloatBufferBuilder
     _cz = (float) center._z;
   }
 
+  private void setFirstVertexAsCenter(double latitudeInRadians, double longitudeInRadians, double height)
+  {
+    if (_centerStrategy == CenterStrategy.FIRST_VERTEX)
+    {
+      if (_values.size() == 0)
+      {
+        setCenter(_planet.toCartesian(Angle.fromRadians(latitudeInRadians), Angle.fromRadians(longitudeInRadians), height));
+      }
+    }
+  }
+
   private final Planet _planet;
 
   private FloatBufferBuilderFromGeodetic(CenterStrategy centerStrategy, Planet planet, Vector3D center)
@@ -126,6 +137,47 @@ public class FloatBufferBuilderFromGeodetic extends FloatBufferBuilder
     add(position._latitude, position._longitude, height);
   }
 
+  /**
+   Adds count positions (heights can be NULL for zero heights) converting them with a single
+   call to the planet bulk toCartesian().
+   */
+  public final void add(double[] latitudesInRadians, double[] longitudesInRadians, double[] heights, int count)
+  {
+    if (count <= 0)
+    {
+      return;
+    }
+  
+    setFirstVertexAsCenter(latitudesInRadians[0], longitudesInRadians[0], (heights == null) ? 0 : heights[0]);
+  
+    final int index = _values.size();
+    _values.resize(index + (count * 3));
+    final float[] values = _values.data();
+  
+    // with NO_CENTER the center is zero, and (x - 0) == x
+    _planet.toCartesian(latitudesInRadians, longitudesInRadians, heights, count, _cx, _cy, _cz, values, index);
+  }
+
+  /**
+   Adds the rows x columns positions of a regular grid, row by row, converting them with
+   Planet::toCartesianGrid().
+   */
+  public final void addGrid(double[] rowsLatitudesInRadians, int rows, double[] columnsLongitudesInRadians, int columns, double[] heights)
+  {
+    if ((rows <= 0) || (columns <= 0))
+    {
+      return;
+    }
+  
+    setFirstVertexAsCenter(rowsLatitudesInRadians[0], columnsLongitudesInRadians[0], (heights == null) ? 0 : heights[0]);
+  
+    final int index = _values.size();
+    _values.resize(index + (rows * columns * 3));
+    final float[] values = _values.data();
+  
+    _planet.toCartesianGrid(rowsLatitudesInRadians, rows, columnsLongitudesInRadians, columns, heights, _cx, _cy, _cz, values, index);
+  }
+
   public final Vector3D getCenter()
   {
     return new Vector3D(_cx, _cy, _cz);
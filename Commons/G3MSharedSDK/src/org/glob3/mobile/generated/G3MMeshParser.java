@@ -30,6 +30,8 @@ package org.glob3.mobile.generated;
 //class IFloatBuffer;
 //class IShortBuffer;
 //class Vector3D;
+//class IByteBuffer;
+//class ByteBufferIterator;
 
 
 public class G3MMeshParser
@@ -218,6 +220,195 @@ public class G3MMeshParser
     }
   }
 
+  private static Mesh createMesh(G3MMeshMaterial material, int primitive, float pointSize, float lineWidth, boolean depthTest, Vector3D center, IFloatBuffer vertices, IFloatBuffer normals, IFloatBuffer colors, IShortBuffer indices)
+  {
+    final Color flatColor = (material == null) ? null : new Color(material._color);
+  
+    Mesh mesh;
+    if (indices == null)
+    {
+      mesh = new DirectMesh(primitive, true, center, vertices, lineWidth, pointSize, flatColor, colors, depthTest, normals); // owner
+    }
+    else
+    {
+      mesh = new IndexedMesh(primitive, center, vertices, true, indices, true, lineWidth, pointSize, flatColor, colors, depthTest, normals);
+    }
+    return mesh;
+  }
+
+  private static int binaryToGLPrimitive(byte primitive)
+  {
+    // same order of G3Mesh.Primitive in the extruder
+    switch (primitive)
+    {
+      case 0:
+        return GLPrimitive.triangles();
+      case 1:
+        return GLPrimitive.triangleStrip();
+      case 2:
+        return GLPrimitive.triangleFan();
+      case 3:
+        return GLPrimitive.lines();
+      case 4:
+        return GLPrimitive.lineStrip();
+      case 5:
+        return GLPrimitive.lineLoop();
+      case 6:
+        return GLPrimitive.points();
+      default:
+      {
+        ILogger.instance().logError("Invalid primitive code %d", primitive);
+        return GLPrimitive.triangles();
+      }
+    }
+  }
+
+  private static IFloatBuffer readFloatBuffer(ByteBufferIterator iterator)
+  {
+    final int size = iterator.nextInt32();
+    IFloatBuffer result = IFactory.instance().createFloatBuffer(size);
+    for (int i = 0; i < size; i++)
+    {
+      result.rawPut(i, iterator.nextFloat());
+    }
+    return result;
+  }
+  private static IShortBuffer readShortBuffer(ByteBufferIterator iterator)
+  {
+    final int size = iterator.nextInt32();
+    IShortBuffer result = IFactory.instance().createShortBuffer(size);
+    for (int i = 0; i < size; i++)
+    {
+      result.rawPut(i, iterator.nextInt16());
+    }
+    return result;
+  }
+
+  private static void geodeticToCartesian(IFloatBuffer vertices, Geodetic3D geodeticCenter, Vector3D center, Planet planet)
+  {
+    final int size = vertices.size();
+    for (int i = 0; i < size; i += 3)
+    {
+      final double longitudeInDegrees = vertices.get(i) + geodeticCenter._longitude._degrees;
+      final double latitudeInDegrees = vertices.get(i+1) + geodeticCenter._latitude._degrees;
+      final double height = vertices.get(i+2) + geodeticCenter._height;
+  
+      final Vector3D cartesian = planet.toCartesian(Angle.fromDegrees(latitudeInDegrees), Angle.fromDegrees(longitudeInDegrees), height);
+  
+      vertices.rawPut(i, (float)(cartesian._x - center._x));
+      vertices.rawPut(i+1, (float)(cartesian._y - center._y));
+      vertices.rawPut(i+2, (float)(cartesian._z - center._z));
+    }
+  }
+
+  private static G3MMeshMaterial readMaterial(ByteBufferIterator iterator)
+  {
+    final String id = iterator.nextZeroTerminatedString();
+    final byte flags = iterator.nextUInt8();
+  
+    Color color = null;
+    if ((flags & MATERIAL_FLAG_COLOR) != 0)
+    {
+      final float r = iterator.nextFloat();
+      final float g = iterator.nextFloat();
+      final float b = iterator.nextFloat();
+      final float a = iterator.nextFloat();
+      color = Color.newFromRGBA(r, g, b, a);
+    }
+  
+    URL textureURL = null;
+    if ((flags & MATERIAL_FLAG_TEXTURE_URL) != 0)
+    {
+      textureURL = new URL(iterator.nextZeroTerminatedString());
+    }
+  
+    return new G3MMeshMaterial(id, color, textureURL);
+  }
+
+  private static Mesh readMesh(java.util.HashMap<String, G3MMeshMaterial> materials, ByteBufferIterator iterator, Planet planet)
+  {
+    final String materialID = iterator.nextZeroTerminatedString();
+    G3MMeshMaterial material = null;
+    if (materialID.length() > 0)
+    {
+      material = materials.get(materialID);
+      if (material == null)
+      {
+        ILogger.instance().logError("Can't find material \"%s\"", materialID);
+      }
+    }
+  
+    final int primitive = binaryToGLPrimitive(iterator.nextUInt8());
+    final float pointSize = iterator.nextFloat();
+    final float lineWidth = iterator.nextFloat();
+    final byte flags = iterator.nextUInt8();
+  
+    final boolean depthTest = ((flags & MESH_FLAG_DEPTH_TEST) != 0);
+    final boolean isGeodetic = ((flags & MESH_FLAG_GEODETIC) != 0);
+  
+    final double centerX = iterator.nextDouble();
+    final double centerY = iterator.nextDouble();
+    final double centerZ = iterator.nextDouble();
+  
+    IFloatBuffer vertices = readFloatBuffer(iterator);
+  
+    IFloatBuffer normals = ((flags & MESH_FLAG_NORMALS) != 0) ? readFloatBuffer(iterator) : null;
+    IFloatBuffer colors = ((flags & MESH_FLAG_COLORS) != 0) ? readFloatBuffer(iterator) : null;
+    final boolean hasTexCoords = ((flags & MESH_FLAG_TEX_COORDS) != 0);
+    if (hasTexCoords)
+    {
+      // the record is read anyway, to keep the iterator on the next one
+      IFloatBuffer texCoords = readFloatBuffer(iterator);
+      if (texCoords != null)
+         texCoords.dispose();
+    }
+    IShortBuffer indices = ((flags & MESH_FLAG_INDICES) != 0) ? readShortBuffer(iterator) : null;
+  
+    if (hasTexCoords)
+    {
+      ILogger.instance().logError("Textured meshes are not supported, mesh ignored");
+      if (vertices != null)
+         vertices.dispose();
+      if (normals != null)
+         normals.dispose();
+      if (colors != null)
+         colors.dispose();
+      if (indices != null)
+         indices.dispose();
+      return null;
+    }
+  
+    if (isGeodetic)
+    {
+      // center is [longitude, latitude, height] in degrees, the same as in the JSON format
+      final Geodetic3D geodeticCenter = Geodetic3D.fromDegrees(centerY, centerX, centerZ);
+      final Vector3D center = planet.toCartesian(geodeticCenter);
+  
+      geodeticToCartesian(vertices, geodeticCenter, center, planet);
+  
+      return createMesh(material, primitive, pointSize, lineWidth, depthTest, center, vertices, normals, colors, indices);
+    }
+  
+    return createMesh(material, primitive, pointSize, lineWidth, depthTest, new Vector3D(centerX, centerY, centerZ), vertices, normals, colors, indices);
+  }
+
+  // record types and flags of the binary format, shared with the extruder's G3MeshCollectionBinaryWriter
+  public static final int BINARY_VERSION = 1;
+
+  public static final int RECORD_END = 0x00;
+  public static final int RECORD_MATERIAL = 0x01;
+  public static final int RECORD_MESH = 0x02;
+
+  public static final int MATERIAL_FLAG_COLOR = 0x01;
+  public static final int MATERIAL_FLAG_TEXTURE_URL = 0x02;
+
+  public static final int MESH_FLAG_DEPTH_TEST = 0x01;
+  public static final int MESH_FLAG_GEODETIC = 0x02;
+  public static final int MESH_FLAG_NORMALS = 0x04;
+  public static final int MESH_FLAG_COLORS = 0x08;
+  public static final int MESH_FLAG_TEX_COORDS = 0x10;
+  public static final int MESH_FLAG_INDICES = 0x20;
+
   public static java.util.ArrayList<Mesh> parse(JSONObject jsonObject, Planet planet)
   {
     if (jsonObject == null)
@@ -290,18 +481,7 @@ public class G3MMeshParser
   
     IShortBuffer indices = parseShortBuffer(jsonMesh.getAsArray("indices"));
   
-    final Color flatColor = (material == null) ? null : new Color(material._color);
-  
-    Mesh mesh;
-    if (indices == null)
-    {
-      mesh = new DirectMesh(primitive, true, new Vector3D(centerX, centerY, centerZ), vertices, lineWidth, pointSize, flatColor, colors, depthTest, normals); // owner
-    }
-    else
-    {
-      mesh = new IndexedMesh(primitive, new Vector3D(centerX, centerY, centerZ), vertices, true, indices, true, lineWidth, pointSize, flatColor, colors, depthTest, normals);
-    }
-    return mesh;
+    return createMesh(material, primitive, pointSize, lineWidth, depthTest, new Vector3D(centerX, centerY, centerZ), vertices, normals, colors, indices);
   }
 
   public static Mesh parseMesh(JSONObject jsonMesh, Planet planet)
@@ -310,4 +490,76 @@ public class G3MMeshParser
     return parseMesh(materials, jsonMesh, planet);
   }
 
+  /*
+   Parses the binary format written by the extruder's G3MeshCollectionBinaryWriter (little endian):
+
+     header:   "G3MB" version:uint8
+     material: 0x01 id:string flags:uint8 [color:4*float32] [textureURL:string]
+     mesh:     0x02 materialID:string primitive:uint8 pointSize:float32 lineWidth:float32 flags:uint8
+               center:3*float64 vertices:floats [normals:floats] [colors:floats] [texCoords:floats] [indices:shorts]
+     end:      0x00
+
+   strings are zero terminated, floats/shorts are an int32 count followed by the values.
+   The materials are written before the first mesh using them, so the meshes can be created while reading.
+   Textured meshes are not supported yet, the meshes with texCoords are skipped with an error.
+   */
+  public static java.util.ArrayList<Mesh> parseBinary(IByteBuffer buffer, Planet planet)
+  {
+    java.util.ArrayList<Mesh> meshes = new java.util.ArrayList<Mesh>();
+    if (buffer == null)
+    {
+      return meshes;
+    }
+  
+    ByteBufferIterator iterator = new ByteBufferIterator(buffer);
+  
+    if ((buffer.size() < 5) || (iterator.nextUInt8() != 'G') || (iterator.nextUInt8() != '3') || (iterator.nextUInt8() != 'M') || (iterator.nextUInt8() != 'B'))
+    {
+      ILogger.instance().logError("Invalid binary mesh format");
+      return meshes;
+    }
+    final byte version = iterator.nextUInt8();
+    if (version != BINARY_VERSION)
+    {
+      ILogger.instance().logError("Unsupported binary mesh format version %d", version);
+      return meshes;
+    }
+  
+    java.util.HashMap<String, G3MMeshMaterial> materials = new java.util.HashMap<String, G3MMeshMaterial>();
+  
+    while (iterator.hasNext())
+    {
+      final byte type = iterator.nextUInt8();
+      if (type == RECORD_END)
+      {
+        break;
+      }
+      else if (type == RECORD_MATERIAL)
+      {
+        // every material is written only once, before the first mesh using it
+        G3MMeshMaterial material = readMaterial(iterator);
+        materials.put(material._id, material);
+      }
+      else if (type == RECORD_MESH)
+      {
+        Mesh mesh = readMesh(materials, iterator, planet);
+        if (mesh != null)
+        {
+          meshes.add(mesh);
+        }
+      }
+      else
+      {
+        ILogger.instance().logError("Invalid binary mesh record type %d", type);
+        break;
+      }
+    }
+  
+    for (final G3MMeshMaterial material : materials.values()) {
+      material.dispose();
+    }
+  
+    return meshes;
+  }
+
 }
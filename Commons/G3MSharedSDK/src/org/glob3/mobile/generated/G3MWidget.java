@@ -156,6 +156,8 @@ public class G3MWidget implements ChangedRendererInfoListener, FrustumPolicyHand
     _timer.start();
     _renderCounter++;
   
+    _texturesHandler.startFrame();
+  
   
   
     if (_initializationTask != null)
@@ -53,4 +53,9 @@ public class GEO2DLineStringGeometry extends GEO2DGeometry
     return _coordinatesData;
   }
 
+  public final long getCoordinatesCount()
+  {
+    return (_coordinatesData == null) ? 0 : _coordinatesData.size();
+  }
+
 }
@@ -54,4 +54,19 @@ public class GEO2DMultiLineStringGeometry extends GEO2DGeometry
     return _coordinatesArrayData;
   }
 
+  public final long getCoordinatesCount()
+  {
+    if (_coordinatesArrayData == null)
+    {
+      return 0;
+    }
+    long result = 0;
+    final int coordinatesArrayDataSize = _coordinatesArrayData.size();
+    for (int i = 0; i < coordinatesArrayDataSize; i++)
+    {
+      result += _coordinatesArrayData.get(i).size();
+    }
+    return result;
+  }
+
 }
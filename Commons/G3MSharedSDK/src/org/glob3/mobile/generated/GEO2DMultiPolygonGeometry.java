@@ -82,4 +82,21 @@ public class GEO2DMultiPolygonGeometry extends GEO2DGeometry
   
     return false;
   }
+
+  public final long getCoordinatesCount()
+  {
+    if (_polygonsData == null)
+    {
+      return 0;
+    }
+    long result = 0;
+    final int polygonsDataSize = _polygonsData.size();
+    for (int i = 0; i < polygonsDataSize; i++)
+    {
+      final GEO2DPolygonData polygonData = _polygonsData.get(i);
+      result += polygonData.getCoordinatesCount();
+    }
+    return result;
+  }
+
 }
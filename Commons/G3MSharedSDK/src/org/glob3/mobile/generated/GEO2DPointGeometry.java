@@ -49,4 +49,9 @@ public class GEO2DPointGeometry extends GEO2DGeometry
     return vectorSet.symbolizeGeometry(node, this);
   }
 
+  public final long getCoordinatesCount()
+  {
+    return 1;
+  }
+
 }
@@ -111,4 +111,21 @@ public class GEO2DPolygonData extends GEO2DCoordinatesData
     return false;
   }
 
+  /**
+   Returns the count of the coordinates of the outer ring plus the coordinates of the holes.
+   */
+  public final long getCoordinatesCount()
+  {
+    long result = size();
+    if (_holesCoordinatesArray != null)
+    {
+      final int holesCoordinatesArraySize = _holesCoordinatesArray.size();
+      for (int j = 0; j < holesCoordinatesArraySize; j++)
+      {
+        result += _holesCoordinatesArray.get(j).size();
+      }
+    }
+    return result;
+  }
+
 }
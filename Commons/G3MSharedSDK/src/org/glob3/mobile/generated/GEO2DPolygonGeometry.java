@@ -72,4 +72,9 @@ public class GEO2DPolygonGeometry extends GEO2DGeometry
     return false;
   }
 
+  public final long getCoordinatesCount()
+  {
+    return (_polygonData == null) ? 0 : _polygonData.getCoordinatesCount();
+  }
+
 }
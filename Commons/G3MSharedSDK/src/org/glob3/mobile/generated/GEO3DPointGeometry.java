@@ -47,4 +47,9 @@ public class GEO3DPointGeometry extends GEO3DGeometry
     return vectorSet.symbolizeGeometry(node, this);
   }
 
+  public final long getCoordinatesCount()
+  {
+    return 1;
+  }
+
 }
@@ -109,4 +109,21 @@ public class GEO3DPolygonData extends GEO3DCoordinatesData
     return false;
   }
 
+  /**
+   Returns the count of the coordinates of the outer ring plus the coordinates of the holes.
+   */
+  public final long getCoordinatesCount()
+  {
+    long result = size();
+    if (_holesCoordinatesArray != null)
+    {
+      final int holesCoordinatesArraySize = _holesCoordinatesArray.size();
+      for (int j = 0; j < holesCoordinatesArraySize; j++)
+      {
+        result += _holesCoordinatesArray.get(j).size();
+      }
+    }
+    return result;
+  }
+
 }
@@ -70,4 +70,9 @@ public class GEO3DPolygonGeometry extends GEO3DGeometry
     return false;
   }
 
+  public final long getCoordinatesCount()
+  {
+    return (_polygonData == null) ? 0 : _polygonData.getCoordinatesCount();
+  }
+
 }
@@ -85,4 +85,9 @@ public class GEOFeature extends GEOObject
     return (_geometry == null) ? 0 : _geometry.symbolize(vectorSet, node);
   }
 
+  public final long getCoordinatesCount()
+  {
+    return (_geometry == null) ? 0 : _geometry.getCoordinatesCount();
+  }
+
 }
@@ -95,4 +95,19 @@ public class GEOFeatureCollection extends GEOObject
     return result;
   }
 
+  public final long getCoordinatesCount()
+  {
+    long result = 0;
+    final int featuresCount = _features.size();
+    for (int i = 0; i < featuresCount; i++)
+    {
+      GEOFeature feature = _features.get(i);
+      if (feature != null)
+      {
+        result += feature.getCoordinatesCount();
+      }
+    }
+    return result;
+  }
+
 }
@@ -0,0 +1,24 @@
+package org.glob3.mobile.generated;
+//
+//  GEOJSONParser.hpp
+//  G3MiOSSDK
+//
+//  Created by Diego Gomez Deck on 11/29/12.
+//
+//
+
+
+
+public abstract class GEOFeatureVisitor
+{
+  public void dispose()
+  {
+  }
+
+  /**
+   Called for each feature as soon as it's parsed, in the order of the document.
+   The visitor takes the ownership of the feature.
+   */
+  public abstract void visitFeature(GEOFeature feature);
+
+}
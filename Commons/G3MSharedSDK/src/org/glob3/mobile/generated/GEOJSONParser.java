@@ -28,12 +28,112 @@ package org.glob3.mobile.generated;
 //class Geodetic3D;
 //class GEO2DPolygonData;
 //class GEO3DPolygonData;
+//class JSONBaseObject;
+//class ByteBufferIterator;
 
 
 public class GEOJSONParser
 {
   private final String _json;
   private final IByteBuffer _bson;
+  private GEOFeatureVisitor _visitor;
+
+  private static final class DoubleArrayList {
+    private double[] _array = new double[64];
+    private int      _size  = 0;
+
+    public int size() {
+      return _size;
+    }
+
+    public double get(final int index) {
+      return _array[index];
+    }
+
+    public void push_back(final double element) {
+      if (_size == _array.length) {
+        _array = java.util.Arrays.copyOf(_array, ((_array.length * 3) >> 1) + 1);
+      }
+      _array[_size++] = element;
+    }
+  }
+
+  // the "coordinates" of a geometry, kept until the "type" of the geometry is known
+  private static class Coordinates
+  {
+    // a position, when the array holds numbers
+    public int _dimensions;
+    public double _longitude;
+    public double _latitude;
+    public double _height;
+
+    // when the array holds positions, of the dimensions of the first one: their latitudes and
+    // longitudes in degrees, and their heights unless the dimensions are 2, one after the other
+    public DoubleArrayList _positions;
+
+    // when the array holds arrays of positions (or deeper)
+    public java.util.ArrayList<Coordinates> _children;
+
+    public Coordinates()
+    {
+       _dimensions = 0;
+       _longitude = 0;
+       _latitude = 0;
+       _height = 0;
+       _positions = null;
+       _children = null;
+    }
+
+    public void dispose()
+    {
+      if (_children != null)
+      {
+        final int childrenSize = _children.size();
+        for (int i = 0; i < childrenSize; i++)
+        {
+          if (_children.get(i) != null)
+             _children.get(i).dispose();
+        }
+        _children = null;
+      }
+    }
+
+    public final boolean isEmpty()
+    {
+      return ((_dimensions == 0) && (_positions == null) && (_children == null));
+    }
+
+    public final int positionStride()
+    {
+      return (_dimensions == 2) ? 2 : 3;
+    }
+
+    public final int childrenCount()
+    {
+      return (_children == null) ? 0 : _children.size();
+    }
+
+    public final Coordinates getChild(int i)
+    {
+      return _children.get(i);
+    }
+  }
+
+  // streaming state
+  private final char[] _jsonChars;
+  private final int _jsonLength;
+  private int _jsonCursor;
+  private ByteBufferIterator _bsonIterator;
+  private boolean _parseError;
+
+  // the last position parsed by jsonParseCoordinates() or bsonParseCoordinates()
+  private int _positionDimensions;
+  private double _positionLongitude;
+  private double _positionLatitude;
+  private double _positionHeight;
+
+  // exact powers of ten, see jsonParseNumber()
+  private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
 
   // statistics
   private int _points2DCount;
@@ -51,10 +151,20 @@ public class GEOJSONParser
   private int _holesLineStringsInPolygon3DCount;
   private int _multiPolygon2DCount;
 
-  private GEOJSONParser(String json, IByteBuffer bson)
+  private GEOJSONParser(String json, IByteBuffer bson, GEOFeatureVisitor visitor)
   {
      _json = json;
      _bson = bson;
+     _visitor = visitor;
+     _jsonChars = _json.toCharArray();
+     _jsonLength = _json.length();
+     _jsonCursor = 0;
+     _bsonIterator = null;
+     _parseError = false;
+     _positionDimensions = 0;
+     _positionLongitude = 0;
+     _positionLatitude = 0;
+     _positionHeight = 0;
      _points2DCount = 0;
      _points3DCount = 0;
      _coordinates2DCount = 0;
@@ -74,29 +184,12 @@ public class GEOJSONParser
 
   private GEOObject pvtParse(boolean showStatistics)
   {
-    GEOObject result = null;
-  
-    final JSONBaseObject jsonBaseObject = (_bson == null) ? IJSONParser.instance().parse(_json) : BSONParser.parse(_bson);
+    // single pass, straight from the document to the GEOObjects without a JSONObject tree
+    GEOObject result = (_bson == null) ? jsonParseRoot() : bsonParseRoot();
   
-    if (jsonBaseObject != null)
+    if (showStatistics && !_parseError)
     {
-      final JSONObject jsonObject = jsonBaseObject.asObject();
-      if (jsonObject != null)
-      {
-        result = toGEO(jsonObject);
-      }
-      else
-      {
-        ILogger.instance().logError("Root object for GEOJSON has to be a JSONObject");
-      }
-  
-      if (jsonBaseObject != null)
-         jsonBaseObject.dispose();
-  
-      if (showStatistics)
-      {
-        showStatisticsToLogger();
-      }
+      showStatisticsToLogger();
     }
   
     return result;
@@ -598,138 +691,1536 @@ public class GEOJSONParser
     return coordinates;
   }
 
-  private void showStatisticsToLogger()
+  // builders of the streaming parsers
+  private void addFeature(java.util.ArrayList<GEOFeature> features, GEOFeature feature)
   {
-    IStringBuilder sb = IStringBuilder.newStringBuilder();
+    if (_visitor == null)
+    {
+      features.add(feature);
+    }
+    else
+    {
+      _visitor.visitFeature(feature);
+    }
+  }
+  private GEOObject createRoot(String type, java.util.ArrayList<GEOFeature> features, JSONBaseObject id, GEOGeometry geometry, JSONBaseObject properties)
+  {
+    if (!_parseError)
+    {
+      if (type.compareTo("FeatureCollection") == 0)
+      {
+        if (id != null)
+           id.dispose();
+        if (geometry != null)
+           geometry.dispose();
+        if (properties != null)
+           properties.dispose();
+        _featuresCollectionCount++;
+        // with a visitor the features were already given away
+        return (_visitor == null) ? new GEOFeatureCollection(features) : null;
+      }
+      else if (type.compareTo("Feature") == 0)
+      {
+        GEOFeature feature = createFeature(id, geometry, properties);
+        if (_visitor == null)
+        {
+          return feature;
+        }
+        _visitor.visitFeature(feature);
+        return null;
+      }
   
-    sb.addString("GEOJSONParser Statistics:");
+      ILogger.instance().logError("GEOJSON: Unkown type \"%s\"", type);
+      _parseError = true;
+    }
   
-    if (_featuresCollectionCount > 0)
+    if (id != null)
+       id.dispose();
+    if (geometry != null)
+       geometry.dispose();
+    if (properties != null)
+       properties.dispose();
+    return null;
+  }
+  private GEOFeature createFeature(JSONBaseObject id, GEOGeometry geometry, JSONBaseObject properties)
+  {
+    JSONObject jsProperties = null;
+    if (properties != null)
     {
-      sb.addString(" FeaturesCollection=");
-      sb.addLong(_featuresCollectionCount);
+      jsProperties = properties.asObject();
+      if (jsProperties == null)
+      {
+        properties.dispose();
+      }
     }
   
-    if (_featuresCount > 0)
+    _featuresCount++;
+    return new GEOFeature(id, geometry, jsProperties);
+  }
+
+  private GEOGeometry createGeometry(String type, Coordinates coordinates)
+  {
+    if (type.compareTo("Point") == 0)
     {
-      sb.addString(" Features=");
-      sb.addLong(_featuresCount);
+      return createPointGeometry(coordinates);
     }
-  
-    if (_coordinates2DCount > 0)
+    else if (type.compareTo("LineString") == 0)
     {
-      sb.addString(" Coordinates2=");
-      sb.addLong(_coordinates2DCount);
+      return createLineStringGeometry(coordinates);
     }
-  
-    if (_coordinates3DCount > 0)
+    else if (type.compareTo("MultiLineString") == 0)
     {
-      sb.addString(" Coordinates3=");
-      sb.addLong(_coordinates3DCount);
+      return createMultiLineStringGeometry(coordinates);
     }
-  
-    if (_points2DCount > 0)
+    else if (type.compareTo("Polygon") == 0)
     {
-      sb.addString(" Points2=");
-      sb.addLong(_points2DCount);
+      return createPolygonGeometry(coordinates);
+    }
+    else if (type.compareTo("MultiPolygon") == 0)
+    {
+      return createMultiPolygonGeometry(coordinates);
     }
   
-    if (_points3DCount > 0)
+    ILogger.instance().logError("Unknown geometry type \"%s\"", type);
+    return null;
+  }
+  private GEOGeometry createPointGeometry(Coordinates coordinates)
+  {
+    if (coordinates == null)
     {
-      sb.addString(" Points3=");
-      sb.addLong(_points3DCount);
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is not present");
+      return null;
     }
   
-    if (_lineStrings2DCount > 0)
+    final int dimensions = coordinates._dimensions;
+    if ((coordinates._positions != null) || (coordinates._children != null))
     {
-      sb.addString(" LineStrings=");
-      sb.addLong(_lineStrings2DCount);
+      ILogger.instance().logError("Invalid format for \"coordinates\" of Point");
+    }
+    else if (dimensions == 2)
+    {
+      _points2DCount++;
+      return new GEO2DPointGeometry(Geodetic2D.fromDegrees(coordinates._latitude, coordinates._longitude));
+    }
+    else if (dimensions == 3)
+    {
+      _points3DCount++;
+      return new GEO3DPointGeometry(Geodetic3D.fromDegrees(coordinates._latitude, coordinates._longitude, coordinates._height));
+    }
+    else
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" dimensions not supported %d", dimensions);
+    }
+    return null;
+  }
+  private GEOGeometry createLineStringGeometry(Coordinates coordinates)
+  {
+    if (coordinates == null)
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is not present");
+      return null;
+    }
+    if (coordinates.isEmpty())
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is empty");
+      return null;
     }
   
-    if (_multiLineStrings2DCount > 0)
+    final int dimensions = coordinates._dimensions;
+    if (dimensions == 2)
     {
-      sb.addString(" MultiLineStrings=");
-      sb.addLong(_multiLineStrings2DCount);
-      if (_lineStringsInMultiLineString2DCount > 0)
+      java.util.ArrayList<Geodetic2D> lineCoordinates = create2DCoordinates(coordinates);
+      if (lineCoordinates != null)
       {
-        sb.addString(" (LineStrings=");
-        sb.addLong(_lineStringsInMultiLineString2DCount);
-        sb.addString(")");
+        _lineStrings2DCount++;
+        return new GEO2DLineStringGeometry(lineCoordinates);
       }
     }
+    else
+    {
+      ILogger.instance().logError("Invalid coordinates dimensions=%d", dimensions);
+    }
+    return null;
+  }
+  private GEOGeometry createMultiLineStringGeometry(Coordinates coordinates)
+  {
+    if (coordinates == null)
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is not present");
+      return null;
+    }
   
-    if (_polygon2DCount > 0)
+    final int linesCount = coordinates.childrenCount();
+    if (linesCount == 0)
     {
-      sb.addString(" Polygons2=");
-      sb.addLong(_polygon2DCount);
-      if (_holesLineStringsInPolygon2DCount > 0)
-      {
-        sb.addString(" (Holes=");
-        sb.addLong(_holesLineStringsInPolygon2DCount);
-        sb.addString(")");
-      }
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is empty");
+      return null;
     }
   
-    if (_polygon3DCount > 0)
+    Coordinates firstLine = coordinates.getChild(0);
+    if (firstLine.isEmpty())
     {
-      sb.addString(" Polygons3=");
-      sb.addLong(_polygon3DCount);
-      if (_holesLineStringsInPolygon3DCount > 0)
+      ILogger.instance().logError("Invalid format for first \"coordinates\" element");
+      return null;
+    }
+  
+    final int dimensions = firstLine._dimensions;
+    if (dimensions == 2)
+    {
+      java.util.ArrayList<java.util.ArrayList<Geodetic2D>> coordinatesArray = new java.util.ArrayList<java.util.ArrayList<Geodetic2D>>();
+      for (int i = 0; i < linesCount; i++)
       {
-        sb.addString(" (Holes=");
-        sb.addLong(_holesLineStringsInPolygon3DCount);
-        sb.addString(")");
+        java.util.ArrayList<Geodetic2D> lineCoordinates = create2DCoordinates(coordinates.getChild(i));
+        if (lineCoordinates != null)
+        {
+          coordinatesArray.add(lineCoordinates);
+          _lineStringsInMultiLineString2DCount++;
+        }
       }
+  
+      _multiLineStrings2DCount++;
+      return new GEO2DMultiLineStringGeometry(coordinatesArray);
     }
   
-    if (_multiPolygon2DCount > 0)
+    ILogger.instance().logError("Invalid coordinates dimensions=%d", dimensions);
+    return null;
+  }
+  private GEOGeometry createPolygonGeometry(Coordinates coordinates)
+  {
+    if ((coordinates == null) || (coordinates.childrenCount() == 0))
     {
-      sb.addString(" MultiPolygons=");
-      sb.addLong(_multiPolygon2DCount);
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is not present");
+      return null;
     }
   
-    ILogger.instance().logInfo(sb.getString());
+    Coordinates outerRing = coordinates.getChild(0);
+    if (outerRing.isEmpty())
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" first ring is not present");
+      return null;
+    }
   
-    if (sb != null)
-       sb.dispose();
-  }
-
-
-  public static GEOObject parseJSON(String json)
-  {
-     return parseJSON(json, true);
-  }
-  public static GEOObject parseJSON(String json, boolean showStatistics)
-  {
-    GEOJSONParser parser = new GEOJSONParser(json, null);
-    return parser.pvtParse(showStatistics);
-  }
-  public static GEOObject parseJSON(IByteBuffer json)
-  {
-     return parseJSON(json, true);
-  }
-  public static GEOObject parseJSON(IByteBuffer json, boolean showStatistics)
-  {
-    return parseJSON(json.getAsString(), showStatistics);
-  }
-
-  public static GEOObject parseBSON(IByteBuffer bson)
-  {
-     return parseBSON(bson, true);
+    final int dimensions = outerRing._dimensions;
+    if (dimensions == 2)
+    {
+      GEO2DPolygonData polygonData = createPolygon2DData(coordinates);
+      return (polygonData == null) ? null : new GEO2DPolygonGeometry(polygonData);
+    }
+    else if (dimensions == 3)
+    {
+      GEO3DPolygonData polygonData = createPolygon3DData(coordinates);
+      return (polygonData == null) ? null : new GEO3DPolygonGeometry(polygonData);
+    }
+  
+    ILogger.instance().logError("Invalid coordinates dimensions=%d", dimensions);
+    return null;
   }
-  public static GEOObject parseBSON(IByteBuffer bson, boolean showStatistics)
+  private GEOGeometry createMultiPolygonGeometry(Coordinates coordinates)
   {
-    GEOJSONParser parser = new GEOJSONParser("", bson);
-    return parser.pvtParse(showStatistics);
+    if (coordinates == null)
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is not present");
+      return null;
+    }
+  
+    final int polygonsCount = coordinates.childrenCount();
+    if (polygonsCount == 0)
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is empty");
+      return null;
+    }
+  
+    java.util.ArrayList<GEO2DPolygonData> polygonsData = new java.util.ArrayList<GEO2DPolygonData>();
+    for (int i = 0; i < polygonsCount; i++)
+    {
+      polygonsData.add(createPolygon2DData(coordinates.getChild(i)));
+    }
+  
+    _multiPolygon2DCount++;
+  
+    return new GEO2DMultiPolygonGeometry(polygonsData);
   }
 
-  public static GEOObject parse(JSONObject jsonObject)
+  private GEO2DPolygonData createPolygon2DData(Coordinates coordinates)
   {
-     return parse(jsonObject, true);
+    final int ringsCount = coordinates.childrenCount();
+    if (ringsCount == 0)
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is empty");
+      return null;
+    }
+  
+    Coordinates outerRing = coordinates.getChild(0);
+    if (outerRing.isEmpty())
+    {
+      ILogger.instance().logError("Invalid format for first \"coordinates\" element");
+      return null;
+    }
+  
+    final int dimensions = outerRing._dimensions;
+    if (dimensions == 2)
+    {
+      java.util.ArrayList<Geodetic2D> ringCoordinates = create2DCoordinates(outerRing);
+  
+      java.util.ArrayList<java.util.ArrayList<Geodetic2D>> holesCoordinatesArray = new java.util.ArrayList<java.util.ArrayList<Geodetic2D>>();
+      for (int i = 1; i < ringsCount; i++)
+      {
+        java.util.ArrayList<Geodetic2D> holeCoordinates = create2DCoordinates(coordinates.getChild(i));
+        if (holeCoordinates != null)
+        {
+          holesCoordinatesArray.add(holeCoordinates);
+          _holesLineStringsInPolygon2DCount++;
+        }
+      }
+  
+      if (holesCoordinatesArray.size() == 0)
+      {
+        holesCoordinatesArray = null;
+        holesCoordinatesArray = null;
+      }
+  
+      _polygon2DCount++;
+      return new GEO2DPolygonData(ringCoordinates, holesCoordinatesArray);
+    }
+  
+    ILogger.instance().logError("Invalid coordinates dimensions=%d", dimensions);
+    return null;
+  }
+  private GEO3DPolygonData createPolygon3DData(Coordinates coordinates)
+  {
+    final int ringsCount = coordinates.childrenCount();
+    if (ringsCount == 0)
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is empty");
+      return null;
+    }
+  
+    Coordinates outerRing = coordinates.getChild(0);
+    if (outerRing.isEmpty())
+    {
+      ILogger.instance().logError("Invalid format for first \"coordinates\" element");
+      return null;
+    }
+  
+    final int dimensions = outerRing._dimensions;
+    if (dimensions == 3)
+    {
+      java.util.ArrayList<Geodetic3D> ringCoordinates = create3DCoordinates(outerRing);
+  
+      java.util.ArrayList<java.util.ArrayList<Geodetic3D>> holesCoordinatesArray = new java.util.ArrayList<java.util.ArrayList<Geodetic3D>>();
+      for (int i = 1; i < ringsCount; i++)
+      {
+        java.util.ArrayList<Geodetic3D> holeCoordinates = create3DCoordinates(coordinates.getChild(i));
+        if (holeCoordinates != null)
+        {
+          holesCoordinatesArray.add(holeCoordinates);
+          _holesLineStringsInPolygon3DCount++;
+        }
+      }
+  
+      if (holesCoordinatesArray.size() == 0)
+      {
+        holesCoordinatesArray = null;
+        holesCoordinatesArray = null;
+      }
+  
+      _polygon3DCount++;
+      return new GEO3DPolygonData(ringCoordinates, holesCoordinatesArray);
+    }
+  
+    ILogger.instance().logError("Invalid coordinates dimensions=%d", dimensions);
+    return null;
+  }
+
+  private java.util.ArrayList<Geodetic2D> create2DCoordinates(Coordinates coordinates)
+  {
+    if (coordinates == null)
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is not present");
+      return null;
+    }
+    if (coordinates._positions == null)
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is empty");
+      return null;
+    }
+  
+    final int stride = coordinates.positionStride();
+    final int valuesCount = coordinates._positions.size();
+    java.util.ArrayList<Geodetic2D> result = new java.util.ArrayList<Geodetic2D>();
+    for (int i = 0; i < valuesCount; i += stride)
+    {
+      result.add(new Geodetic2D(Angle.fromDegrees(coordinates._positions.get(i)), Angle.fromDegrees(coordinates._positions.get(i + 1))));
+    }
+  
+    _coordinates2DCount += result.size();
+    return result;
+  }
+  private java.util.ArrayList<Geodetic3D> create3DCoordinates(Coordinates coordinates)
+  {
+    if (coordinates == null)
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is not present");
+      return null;
+    }
+    if (coordinates._positions == null)
+    {
+      ILogger.instance().logError("Mandatory \"coordinates\" attribute is empty");
+      return null;
+    }
+  
+    final int stride = coordinates.positionStride();
+    final int valuesCount = coordinates._positions.size();
+    java.util.ArrayList<Geodetic3D> result = new java.util.ArrayList<Geodetic3D>();
+    for (int i = 0; i < valuesCount; i += stride)
+    {
+      final double height = (stride == 3) ? coordinates._positions.get(i + 2) : 0;
+      result.add(new Geodetic3D(Angle.fromDegrees(coordinates._positions.get(i)), Angle.fromDegrees(coordinates._positions.get(i + 1)), height));
+    }
+  
+    _coordinates3DCount += result.size();
+    return result;
+  }
+  private void addPosition(Coordinates coordinates)
+  {
+    if (coordinates._dimensions == 0)
+    {
+      // the first position decides the dimensions of the array
+      coordinates._dimensions = _positionDimensions;
+      coordinates._positions = new DoubleArrayList();
+    }
+  
+    // primitive values, the Geodetic2D/Geodetic3D are created once the geometry is known
+    coordinates._positions.push_back(_positionLatitude);
+    coordinates._positions.push_back(_positionLongitude);
+    if (coordinates.positionStride() == 3)
+    {
+      coordinates._positions.push_back(_positionHeight);
+    }
+  }
+  private void parseError(String message)
+  {
+    if (!_parseError)
+    {
+      _parseError = true;
+      if (_bson == null)
+      {
+        ILogger.instance().logError("GEOJSON: %s at position %d", message, _jsonCursor);
+      }
+      else
+      {
+        ILogger.instance().logError("GEOJSON: %s", message);
+      }
+    }
+  }
+
+  // JSON text streaming parser
+  private GEOObject jsonParseRoot()
+  {
+    if (!jsonConsume('{'))
+    {
+      ILogger.instance().logError("Root object for GEOJSON has to be a JSONObject");
+      _parseError = true;
+      return null;
+    }
+  
+    String type = "";
+    java.util.ArrayList<GEOFeature> features = new java.util.ArrayList<GEOFeature>();
+    JSONBaseObject id = null;
+    GEOGeometry geometry = null;
+    JSONBaseObject properties = null;
+  
+    if (!jsonConsume('}'))
+    {
+      while (!_parseError)
+      {
+        final String key = jsonParseKey();
+        if ((key.compareTo("type") == 0) && (jsonPeek() == '"'))
+        {
+          type = jsonParseString();
+        }
+        else if (key.compareTo("features") == 0)
+        {
+          jsonParseFeatures(features);
+        }
+        else if (key.compareTo("geometry") == 0)
+        {
+          if (geometry != null)
+             geometry.dispose();
+          geometry = jsonParseGeometry();
+        }
+        else if (key.compareTo("properties") == 0)
+        {
+          if (properties != null)
+             properties.dispose();
+          properties = jsonParseValue();
+        }
+        else if (key.compareTo("id") == 0)
+        {
+          if (id != null)
+             id.dispose();
+          id = jsonParseValue();
+        }
+        else
+        {
+          final JSONBaseObject skipped = jsonParseValue();
+          if (skipped != null)
+             skipped.dispose();
+        }
+        if (!jsonConsume(','))
+        {
+          jsonExpect('}');
+          break;
+        }
+      }
+    }
+  
+    return createRoot(type, features, id, geometry, properties);
+  }
+  private void jsonParseFeatures(java.util.ArrayList<GEOFeature> features)
+  {
+    if (!jsonConsume('['))
+    {
+      final JSONBaseObject skipped = jsonParseValue();
+      if (skipped != null)
+         skipped.dispose();
+      return;
+    }
+    if (jsonConsume(']'))
+    {
+      return;
+    }
+    while (!_parseError)
+    {
+      if (jsonPeek() == '{')
+      {
+        GEOFeature feature = jsonParseFeature();
+        if (feature != null)
+        {
+          addFeature(features, feature);
+        }
+      }
+      else
+      {
+        final JSONBaseObject skipped = jsonParseValue();
+        if (skipped != null)
+           skipped.dispose();
+      }
+      if (!jsonConsume(','))
+      {
+        jsonExpect(']');
+        break;
+      }
+    }
+  }
+  private GEOFeature jsonParseFeature()
+  {
+    _jsonCursor++; // consumes the '{'
+  
+    JSONBaseObject id = null;
+    GEOGeometry geometry = null;
+    JSONBaseObject properties = null;
+  
+    if (!jsonConsume('}'))
+    {
+      while (!_parseError)
+      {
+        final String key = jsonParseKey();
+        if (key.compareTo("geometry") == 0)
+        {
+          if (geometry != null)
+             geometry.dispose();
+          geometry = jsonParseGeometry();
+        }
+        else if (key.compareTo("properties") == 0)
+        {
+          if (properties != null)
+             properties.dispose();
+          properties = jsonParseValue();
+        }
+        else if (key.compareTo("id") == 0)
+        {
+          if (id != null)
+             id.dispose();
+          id = jsonParseValue();
+        }
+        else
+        {
+          final JSONBaseObject skipped = jsonParseValue();
+          if (skipped != null)
+             skipped.dispose();
+        }
+        if (!jsonConsume(','))
+        {
+          jsonExpect('}');
+          break;
+        }
+      }
+    }
+  
+    if (_parseError)
+    {
+      if (id != null)
+         id.dispose();
+      if (geometry != null)
+         geometry.dispose();
+      if (properties != null)
+         properties.dispose();
+      return null;
+    }
+    return createFeature(id, geometry, properties);
+  }
+  private GEOGeometry jsonParseGeometry()
+  {
+    if (jsonPeek() != '{')
+    {
+      // null, or not a geometry
+      final JSONBaseObject skipped = jsonParseValue();
+      if (skipped != null)
+         skipped.dispose();
+      return null;
+    }
+    _jsonCursor++;
+  
+    String type = "";
+    Coordinates coordinates = null;
+  
+    if (!jsonConsume('}'))
+    {
+      while (!_parseError)
+      {
+        final String key = jsonParseKey();
+        if ((key.compareTo("type") == 0) && (jsonPeek() == '"'))
+        {
+          type = jsonParseString();
+        }
+        else if ((key.compareTo("coordinates") == 0) && (jsonPeek() == '['))
+        {
+          if (coordinates != null)
+             coordinates.dispose();
+          coordinates = jsonParseCoordinates();
+          if ((coordinates == null) && !_parseError)
+          {
+            // the coordinates of a Point
+            coordinates = new Coordinates();
+            coordinates._dimensions = _positionDimensions;
+            coordinates._longitude = _positionLongitude;
+            coordinates._latitude = _positionLatitude;
+            coordinates._height = _positionHeight;
+          }
+        }
+        else
+        {
+          final JSONBaseObject skipped = jsonParseValue();
+          if (skipped != null)
+             skipped.dispose();
+        }
+        if (!jsonConsume(','))
+        {
+          jsonExpect('}');
+          break;
+        }
+      }
+    }
+  
+    GEOGeometry geometry = _parseError ? null : createGeometry(type, coordinates);
+    if (coordinates != null)
+       coordinates.dispose();
+    return geometry;
+  }
+  private Coordinates jsonParseCoordinates()
+  {
+    if (!jsonConsume('['))
+    {
+      parseError("Expected array of coordinates");
+      return null;
+    }
+  
+    final char first = jsonPeek();
+    if ((first == '-') || ((first >= '0') && (first <= '9')))
+    {
+      // a position, parsed into _position* to save the allocation of a Coordinates for each one
+      _positionDimensions = 0;
+      _positionHeight = 0;
+      while (!_parseError)
+      {
+        final double value = jsonParseNumber();
+        if (_positionDimensions == 0)
+        {
+          _positionLongitude = value;
+        }
+        else if (_positionDimensions == 1)
+        {
+          _positionLatitude = value;
+        }
+        else if (_positionDimensions == 2)
+        {
+          _positionHeight = value;
+        }
+        _positionDimensions++;
+        if (!jsonConsume(','))
+        {
+          jsonExpect(']');
+          break;
+        }
+      }
+      if (_positionDimensions < 2)
+      {
+        parseError("Invalid position");
+      }
+      return null;
+    }
+  
+    Coordinates result = new Coordinates();
+    if (!jsonConsume(']'))
+    {
+      while (!_parseError)
+      {
+        Coordinates child = jsonParseCoordinates();
+        if (_parseError)
+        {
+          if (child != null)
+             child.dispose();
+          break;
+        }
+        if (child == null)
+        {
+          if (result._children != null)
+          {
+            parseError("Invalid coordinates, positions and arrays mixed");
+            break;
+          }
+          addPosition(result);
+        }
+        else
+        {
+          if (result._dimensions != 0)
+          {
+            if (child != null)
+               child.dispose();
+            parseError("Invalid coordinates, positions and arrays mixed");
+            break;
+          }
+          if (result._children == null)
+          {
+            result._children = new java.util.ArrayList<Coordinates>();
+          }
+          result._children.add(child);
+        }
+        if (!jsonConsume(','))
+        {
+          jsonExpect(']');
+          break;
+        }
+      }
+    }
+    return result;
+  }
+  private JSONBaseObject jsonParseValue()
+  {
+    final char c = jsonPeek();
+    if (c == '{')
+    {
+      _jsonCursor++;
+      JSONObject object = new JSONObject();
+      if (!jsonConsume('}'))
+      {
+        while (!_parseError)
+        {
+          final String key = jsonParseKey();
+          // null values are kept, as the platform JSON parsers do
+          object.put(key, jsonParseValue());
+          if (!jsonConsume(','))
+          {
+            jsonExpect('}');
+            break;
+          }
+        }
+      }
+      return object;
+    }
+    else if (c == '[')
+    {
+      _jsonCursor++;
+      JSONArray array = new JSONArray();
+      if (!jsonConsume(']'))
+      {
+        while (!_parseError)
+        {
+          array.add(jsonParseValue());
+          if (!jsonConsume(','))
+          {
+            jsonExpect(']');
+            break;
+          }
+        }
+      }
+      return array;
+    }
+    else if (c == '"')
+    {
+      return new JSONString(jsonParseString());
+    }
+    else if (c == 't')
+    {
+      jsonParseLiteral("true");
+      return new JSONBoolean(true);
+    }
+    else if (c == 'f')
+    {
+      jsonParseLiteral("false");
+      return new JSONBoolean(false);
+    }
+    else if (c == 'n')
+    {
+      jsonParseLiteral("null");
+      return null;
+    }
+    else if ((c == '-') || ((c >= '0') && (c <= '9')))
+    {
+      // the same types the platform JSON parsers create
+      final double doubleValue = jsonParseNumber();
+      final long longValue = (long) doubleValue;
+      if (doubleValue == longValue)
+      {
+        final int intValue = (int) longValue;
+        if (intValue == longValue)
+        {
+          return new JSONInteger(intValue);
+        }
+        return new JSONLong(longValue);
+      }
+      final float floatValue = (float) doubleValue;
+      if (floatValue == doubleValue)
+      {
+        return new JSONFloat(floatValue);
+      }
+      return new JSONDouble(doubleValue);
+    }
+  
+    parseError("Unexpected character");
+    return null;
+  }
+  private String jsonParseString()
+  {
+    if (!jsonConsume('"'))
+    {
+      parseError("Expected string");
+      return "";
+    }
+  
+    final int start = _jsonCursor;
+    while (_jsonCursor < _jsonLength)
+    {
+      final char c = _jsonChars[_jsonCursor];
+      if (c == '"')
+      {
+        final String result = _json.substring(start, _jsonCursor);
+        _jsonCursor++;
+        return result;
+      }
+      if (c == '\\')
+      {
+        break;
+      }
+      _jsonCursor++;
+    }
+  
+    // slow path, the string has escapes
+    final StringBuilder result = new StringBuilder(_json.substring(start, _jsonCursor));
+    while (_jsonCursor < _jsonLength)
+    {
+      final char c = _jsonChars[_jsonCursor++];
+      if (c == '"')
+      {
+        return result.toString();
+      }
+      if (c != '\\')
+      {
+        result.append(c);
+        continue;
+      }
+      if (_jsonCursor >= _jsonLength)
+      {
+        break;
+      }
+  
+      final char escaped = _jsonChars[_jsonCursor++];
+      switch (escaped)
+      {
+        case 'b':
+        {
+          result.append('\b');
+          break;
+        }
+        case 'f':
+        {
+          result.append('\f');
+          break;
+        }
+        case 'n':
+        {
+          result.append('\n');
+          break;
+        }
+        case 'r':
+        {
+          result.append('\r');
+          break;
+        }
+        case 't':
+        {
+          result.append('\t');
+          break;
+        }
+        case 'u':
+        {
+          if (_jsonCursor + 4 > _jsonLength)
+          {
+            parseError("Invalid unicode escape");
+            return "";
+          }
+          int code = 0;
+          for (int i = 0; i < 4; i++)
+          {
+            final char h = _jsonChars[_jsonCursor++];
+            int digit;
+            if ((h >= '0') && (h <= '9'))
+            {
+              digit = h - '0';
+            }
+            else if ((h >= 'a') && (h <= 'f'))
+            {
+              digit = h - 'a' + 10;
+            }
+            else if ((h >= 'A') && (h <= 'F'))
+            {
+              digit = h - 'A' + 10;
+            }
+            else
+            {
+              parseError("Invalid unicode escape");
+              return "";
+            }
+            code = (code * 16) + digit;
+          }
+          result.append((char) code);
+          break;
+        }
+        default:
+        {
+          // '"', '\\' and '/'
+          result.append(escaped);
+          break;
+        }
+      }
+    }
+  
+    parseError("Unterminated string");
+    return "";
+  }
+  private double jsonParseNumber()
+  {
+    jsonPeek();
+    final int start = _jsonCursor;
+  
+    boolean negative = false;
+    if ((_jsonCursor < _jsonLength) && (_jsonChars[_jsonCursor] == '-'))
+    {
+      negative = true;
+      _jsonCursor++;
+    }
+  
+    // accumulates up to 15 significant digits, that fit exactly in the 53 bits of a double mantissa
+    long mantissa = 0;
+    int significantDigits = 0;
+    int exponent = 0;
+    boolean exact = true;
+    int digits = 0;
+  
+    while ((_jsonCursor < _jsonLength) && (_jsonChars[_jsonCursor] >= '0') && (_jsonChars[_jsonCursor] <= '9'))
+    {
+      final int digit = _jsonChars[_jsonCursor++] - '0';
+      digits++;
+      if (significantDigits < 15)
+      {
+        mantissa = (mantissa * 10) + digit;
+        if (mantissa != 0)
+        {
+          significantDigits++;
+        }
+      }
+      else
+      {
+        exact = false;
+      }
+    }
+    if ((_jsonCursor < _jsonLength) && (_jsonChars[_jsonCursor] == '.'))
+    {
+      _jsonCursor++;
+      while ((_jsonCursor < _jsonLength) && (_jsonChars[_jsonCursor] >= '0') && (_jsonChars[_jsonCursor] <= '9'))
+      {
+        final int digit = _jsonChars[_jsonCursor++] - '0';
+        digits++;
+        if (significantDigits < 15)
+        {
+          mantissa = (mantissa * 10) + digit;
+          if (mantissa != 0)
+          {
+            significantDigits++;
+          }
+          exponent--;
+        }
+        else
+        {
+          exact = false;
+        }
+      }
+    }
+    if (digits == 0)
+    {
+      parseError("Invalid number");
+      return 0;
+    }
+    if ((_jsonCursor < _jsonLength) && ((_jsonChars[_jsonCursor] == 'e') || (_jsonChars[_jsonCursor] == 'E')))
+    {
+      _jsonCursor++;
+      boolean negativeExponent = false;
+      if ((_jsonCursor < _jsonLength) && ((_jsonChars[_jsonCursor] == '-') || (_jsonChars[_jsonCursor] == '+')))
+      {
+        negativeExponent = (_jsonChars[_jsonCursor] == '-');
+        _jsonCursor++;
+      }
+      int explicitExponent = 0;
+      while ((_jsonCursor < _jsonLength) && (_jsonChars[_jsonCursor] >= '0') && (_jsonChars[_jsonCursor] <= '9'))
+      {
+        if (explicitExponent < 10000)
+        {
+          explicitExponent = (explicitExponent * 10) + (_jsonChars[_jsonCursor] - '0');
+        }
+        _jsonCursor++;
+      }
+      exponent += negativeExponent ? -explicitExponent : explicitExponent;
+    }
+  
+    // An exact mantissa scaled by an exact power of ten is correctly rounded, the same double
+    // that the full conversion gives. Any other case is handed to the platform conversion.
+    if (exact && (exponent >= -22) && (exponent <= 22))
+    {
+      final double value = (exponent < 0) ? (mantissa / POWERS_OF_TEN[-exponent]) : (mantissa * POWERS_OF_TEN[exponent]);
+      return negative ? -value : value;
+    }
+  
+    return IStringUtils.instance().parseDouble(_json.substring(start, _jsonCursor));
+  }
+  private void jsonParseLiteral(String literal)
+  {
+    jsonPeek();
+    final int literalLength = literal.length();
+    if (_jsonCursor + literalLength > _jsonLength)
+    {
+      parseError("Invalid literal");
+      return;
+    }
+    for (int i = 0; i < literalLength; i++)
+    {
+      if (_jsonChars[_jsonCursor + i] != literal.charAt(i))
+      {
+        parseError("Invalid literal");
+        return;
+      }
+    }
+    _jsonCursor += literalLength;
+  }
+  private String jsonParseKey()
+  {
+    final String key = jsonParseString();
+    jsonExpect(':');
+    return key;
+  }
+  private char jsonPeek()
+  {
+    while (_jsonCursor < _jsonLength)
+    {
+      final char c = _jsonChars[_jsonCursor];
+      if ((c != ' ') && (c != '\n') && (c != '\r') && (c != '\t'))
+      {
+        return c;
+      }
+      _jsonCursor++;
+    }
+    return 0;
+  }
+  private boolean jsonConsume(char c)
+  {
+    if (jsonPeek() == c)
+    {
+      _jsonCursor++;
+      return true;
+    }
+    return false;
+  }
+  private void jsonExpect(char c)
+  {
+    if (!jsonConsume(c))
+    {
+      parseError("Expected '" + c + "'");
+    }
+  }
+
+  // BSON streaming parser
+  private GEOObject bsonParseRoot()
+  {
+    _bsonIterator = new ByteBufferIterator(_bson);
+  
+    final int bufferSize = _bsonIterator.nextInt32();
+    if (_bson.size() != bufferSize)
+    {
+      ILogger.instance().logError("Invalid bufferSize, expected %d but got %d", bufferSize, _bson.size());
+    }
+  
+    String type = "";
+    java.util.ArrayList<GEOFeature> features = new java.util.ArrayList<GEOFeature>();
+    JSONBaseObject id = null;
+    GEOGeometry geometry = null;
+    JSONBaseObject properties = null;
+  
+    while (!_parseError && _bsonIterator.hasNext())
+    {
+      final byte valueType = _bsonIterator.nextUInt8();
+      if (valueType == 0)
+      {
+        break;
+      }
+      final String key = _bsonIterator.nextZeroTerminatedString();
+      if ((key.compareTo("type") == 0) && (valueType == 0x02))
+      {
+        type = bsonParseString();
+      }
+      else if ((key.compareTo("features") == 0) && ((valueType == 0x04) || (valueType == 0x44)))
+      {
+        bsonParseFeatures(valueType, features);
+      }
+      else if ((key.compareTo("geometry") == 0) && (valueType == 0x03))
+      {
+        if (geometry != null)
+           geometry.dispose();
+        geometry = bsonParseGeometry();
+      }
+      else if (key.compareTo("properties") == 0)
+      {
+        if (properties != null)
+           properties.dispose();
+        properties = BSONParser.parseValue(valueType, _bsonIterator, false);
+      }
+      else if (key.compareTo("id") == 0)
+      {
+        if (id != null)
+           id.dispose();
+        id = BSONParser.parseValue(valueType, _bsonIterator, false);
+      }
+      else
+      {
+        final JSONBaseObject skipped = BSONParser.parseValue(valueType, _bsonIterator, false);
+        if (skipped != null)
+           skipped.dispose();
+      }
+    }
+  
+    _bsonIterator = null;
+  
+    return createRoot(type, features, id, geometry, properties);
+  }
+  private void bsonParseFeatures(byte arrayType, java.util.ArrayList<GEOFeature> features)
+  {
+    _bsonIterator.nextInt32(); // consumes the size
+  
+    while (!_parseError && _bsonIterator.hasNext())
+    {
+      final byte type = _bsonIterator.nextUInt8();
+      if (type == 0)
+      {
+        break;
+      }
+      if (arrayType == 0x04)
+      {
+        _bsonIterator.nextZeroTerminatedString(); // consumes the key
+      }
+      if (type == 0x03)
+      {
+        GEOFeature feature = bsonParseFeature();
+        if (feature != null)
+        {
+          addFeature(features, feature);
+        }
+      }
+      else
+      {
+        final JSONBaseObject skipped = BSONParser.parseValue(type, _bsonIterator, false);
+        if (skipped != null)
+           skipped.dispose();
+      }
+    }
+  }
+  private GEOFeature bsonParseFeature()
+  {
+    _bsonIterator.nextInt32(); // consumes the size
+  
+    JSONBaseObject id = null;
+    GEOGeometry geometry = null;
+    JSONBaseObject properties = null;
+  
+    while (!_parseError && _bsonIterator.hasNext())
+    {
+      final byte valueType = _bsonIterator.nextUInt8();
+      if (valueType == 0)
+      {
+        break;
+      }
+      final String key = _bsonIterator.nextZeroTerminatedString();
+      if ((key.compareTo("geometry") == 0) && (valueType == 0x03))
+      {
+        if (geometry != null)
+           geometry.dispose();
+        geometry = bsonParseGeometry();
+      }
+      else if (key.compareTo("properties") == 0)
+      {
+        if (properties != null)
+           properties.dispose();
+        properties = BSONParser.parseValue(valueType, _bsonIterator, false);
+      }
+      else if (key.compareTo("id") == 0)
+      {
+        if (id != null)
+           id.dispose();
+        id = BSONParser.parseValue(valueType, _bsonIterator, false);
+      }
+      else
+      {
+        final JSONBaseObject skipped = BSONParser.parseValue(valueType, _bsonIterator, false);
+        if (skipped != null)
+           skipped.dispose();
+      }
+    }
+  
+    if (_parseError)
+    {
+      if (id != null)
+         id.dispose();
+      if (geometry != null)
+         geometry.dispose();
+      if (properties != null)
+         properties.dispose();
+      return null;
+    }
+    return createFeature(id, geometry, properties);
+  }
+  private GEOGeometry bsonParseGeometry()
+  {
+    _bsonIterator.nextInt32(); // consumes the size
+  
+    String type = "";
+    Coordinates coordinates = null;
+  
+    while (!_parseError && _bsonIterator.hasNext())
+    {
+      final byte valueType = _bsonIterator.nextUInt8();
+      if (valueType == 0)
+      {
+        break;
+      }
+      final String key = _bsonIterator.nextZeroTerminatedString();
+      if ((key.compareTo("type") == 0) && (valueType == 0x02))
+      {
+        type = bsonParseString();
+      }
+      else if ((key.compareTo("coordinates") == 0) && ((valueType == 0x04) || (valueType == 0x44)))
+      {
+        if (coordinates != null)
+           coordinates.dispose();
+        coordinates = bsonParseCoordinates(valueType);
+        if ((coordinates == null) && !_parseError)
+        {
+          // the coordinates of a Point
+          coordinates = new Coordinates();
+          coordinates._dimensions = _positionDimensions;
+          coordinates._longitude = _positionLongitude;
+          coordinates._latitude = _positionLatitude;
+          coordinates._height = _positionHeight;
+        }
+      }
+      else
+      {
+        final JSONBaseObject skipped = BSONParser.parseValue(valueType, _bsonIterator, false);
+        if (skipped != null)
+           skipped.dispose();
+      }
+    }
+  
+    GEOGeometry geometry = _parseError ? null : createGeometry(type, coordinates);
+    if (coordinates != null)
+       coordinates.dispose();
+    return geometry;
+  }
+  private Coordinates bsonParseCoordinates(byte arrayType)
+  {
+    _bsonIterator.nextInt32(); // consumes the size
+  
+    Coordinates result = null;
+    boolean isPosition = false;
+    while (!_parseError && _bsonIterator.hasNext())
+    {
+      final byte type = _bsonIterator.nextUInt8();
+      if (type == 0)
+      {
+        break;
+      }
+      if (arrayType == 0x04)
+      {
+        _bsonIterator.nextZeroTerminatedString(); // consumes the key
+      }
+  
+      if ((type == 0x01) || (type == 0x10) || (type == 0x12))
+      {
+        if (result != null)
+        {
+          parseError("Invalid coordinates, positions and arrays mixed");
+          break;
+        }
+        if (!isPosition)
+        {
+          // a position, parsed into _position* to save the allocation of a Coordinates for each one
+          isPosition = true;
+          _positionDimensions = 0;
+          _positionHeight = 0;
+        }
+        double value;
+        if (type == 0x01)
+        {
+          value = _bsonIterator.nextDouble();
+        }
+        else if (type == 0x10)
+        {
+          value = _bsonIterator.nextInt32();
+        }
+        else
+        {
+          value = (double) _bsonIterator.nextInt64();
+        }
+        if (_positionDimensions == 0)
+        {
+          _positionLongitude = value;
+        }
+        else if (_positionDimensions == 1)
+        {
+          _positionLatitude = value;
+        }
+        else if (_positionDimensions == 2)
+        {
+          _positionHeight = value;
+        }
+        _positionDimensions++;
+      }
+      else if ((type == 0x04) || (type == 0x44))
+      {
+        if (isPosition)
+        {
+          parseError("Invalid coordinates, positions and arrays mixed");
+          break;
+        }
+        if (result == null)
+        {
+          result = new Coordinates();
+        }
+        Coordinates child = bsonParseCoordinates(type);
+        if (_parseError)
+        {
+          if (child != null)
+             child.dispose();
+          break;
+        }
+        if (child == null)
+        {
+          if (result._children != null)
+          {
+            parseError("Invalid coordinates, positions and arrays mixed");
+            break;
+          }
+          addPosition(result);
+        }
+        else
+        {
+          if (result._dimensions != 0)
+          {
+            if (child != null)
+               child.dispose();
+            parseError("Invalid coordinates, positions and arrays mixed");
+            break;
+          }
+          if (result._children == null)
+          {
+            result._children = new java.util.ArrayList<Coordinates>();
+          }
+          result._children.add(child);
+        }
+      }
+      else
+      {
+        parseError("Invalid type in coordinates");
+        break;
+      }
+    }
+  
+    if (isPosition)
+    {
+      if (_positionDimensions < 2)
+      {
+        parseError("Invalid position");
+      }
+      return null;
+    }
+    // an empty array
+    return (result == null) ? new Coordinates() : result;
+  }
+  private String bsonParseString()
+  {
+    _bsonIterator.nextInt32(); // consumes the size
+    return _bsonIterator.nextZeroTerminatedString();
+  }
+
+  private void showStatisticsToLogger()
+  {
+    IStringBuilder sb = IStringBuilder.newStringBuilder();
+  
+    sb.addString("GEOJSONParser Statistics:");
+  
+    if (_featuresCollectionCount > 0)
+    {
+      sb.addString(" FeaturesCollection=");
+      sb.addLong(_featuresCollectionCount);
+    }
+  
+    if (_featuresCount > 0)
+    {
+      sb.addString(" Features=");
+      sb.addLong(_featuresCount);
+    }
+  
+    if (_coordinates2DCount > 0)
+    {
+      sb.addString(" Coordinates2=");
+      sb.addLong(_coordinates2DCount);
+    }
+  
+    if (_coordinates3DCount > 0)
+    {
+      sb.addString(" Coordinates3=");
+      sb.addLong(_coordinates3DCount);
+    }
+  
+    if (_points2DCount > 0)
+    {
+      sb.addString(" Points2=");
+      sb.addLong(_points2DCount);
+    }
+  
+    if (_points3DCount > 0)
+    {
+      sb.addString(" Points3=");
+      sb.addLong(_points3DCount);
+    }
+  
+    if (_lineStrings2DCount > 0)
+    {
+      sb.addString(" LineStrings=");
+      sb.addLong(_lineStrings2DCount);
+    }
+  
+    if (_multiLineStrings2DCount > 0)
+    {
+      sb.addString(" MultiLineStrings=");
+      sb.addLong(_multiLineStrings2DCount);
+      if (_lineStringsInMultiLineString2DCount > 0)
+      {
+        sb.addString(" (LineStrings=");
+        sb.addLong(_lineStringsInMultiLineString2DCount);
+        sb.addString(")");
+      }
+    }
+  
+    if (_polygon2DCount > 0)
+    {
+      sb.addString(" Polygons2=");
+      sb.addLong(_polygon2DCount);
+      if (_holesLineStringsInPolygon2DCount > 0)
+      {
+        sb.addString(" (Holes=");
+        sb.addLong(_holesLineStringsInPolygon2DCount);
+        sb.addString(")");
+      }
+    }
+  
+    if (_polygon3DCount > 0)
+    {
+      sb.addString(" Polygons3=");
+      sb.addLong(_polygon3DCount);
+      if (_holesLineStringsInPolygon3DCount > 0)
+      {
+        sb.addString(" (Holes=");
+        sb.addLong(_holesLineStringsInPolygon3DCount);
+        sb.addString(")");
+      }
+    }
+  
+    if (_multiPolygon2DCount > 0)
+    {
+      sb.addString(" MultiPolygons=");
+      sb.addLong(_multiPolygon2DCount);
+    }
+  
+    ILogger.instance().logInfo(sb.getString());
+  
+    if (sb != null)
+       sb.dispose();
+  }
+
+
+  public static GEOObject parseJSON(String json)
+  {
+     return parseJSON(json, true);
+  }
+  public static GEOObject parseJSON(String json, boolean showStatistics)
+  {
+    GEOJSONParser parser = new GEOJSONParser(json, null, null);
+    return parser.pvtParse(showStatistics);
+  }
+  public static GEOObject parseJSON(IByteBuffer json)
+  {
+     return parseJSON(json, true);
+  }
+  public static GEOObject parseJSON(IByteBuffer json, boolean showStatistics)
+  {
+    return parseJSON(json.getAsString(), showStatistics);
+  }
+
+  public static GEOObject parseBSON(IByteBuffer bson)
+  {
+     return parseBSON(bson, true);
+  }
+  public static GEOObject parseBSON(IByteBuffer bson, boolean showStatistics)
+  {
+    GEOJSONParser parser = new GEOJSONParser("", bson, null);
+    return parser.pvtParse(showStatistics);
+  }
+
+  public static GEOObject parse(JSONObject jsonObject)
+  {
+     return parse(jsonObject, true);
   }
   public static GEOObject parse(JSONObject jsonObject, boolean showStatistics)
   {
-    GEOJSONParser parser = new GEOJSONParser("", null);
+    GEOJSONParser parser = new GEOJSONParser("", null, null);
     GEOObject result = parser.toGEO(jsonObject);
     if (showStatistics)
     {
@@ -738,4 +2229,39 @@ public class GEOJSONParser
     return result;
   }
 
+  /**
+   Parses the GEOJSON without building the GEOFeatureCollection, the features are given to the
+   visitor one by one as soon as they are parsed.
+   Returns false if the document can't be parsed.
+   */
+  public static boolean parseJSON(String json, GEOFeatureVisitor visitor)
+  {
+     return parseJSON(json, visitor, true);
+  }
+  public static boolean parseJSON(String json, GEOFeatureVisitor visitor, boolean showStatistics)
+  {
+    GEOJSONParser parser = new GEOJSONParser(json, null, visitor);
+    parser.pvtParse(showStatistics);
+    return !parser._parseError;
+  }
+  public static boolean parseJSON(IByteBuffer json, GEOFeatureVisitor visitor)
+  {
+     return parseJSON(json, visitor, true);
+  }
+  public static boolean parseJSON(IByteBuffer json, GEOFeatureVisitor visitor, boolean showStatistics)
+  {
+    return parseJSON(json.getAsString(), visitor, showStatistics);
+  }
+
+  public static boolean parseBSON(IByteBuffer bson, GEOFeatureVisitor visitor)
+  {
+     return parseBSON(bson, visitor, true);
+  }
+  public static boolean parseBSON(IByteBuffer bson, GEOFeatureVisitor visitor, boolean showStatistics)
+  {
+    GEOJSONParser parser = new GEOJSONParser("", bson, visitor);
+    parser.pvtParse(showStatistics);
+    return !parser._parseError;
+  }
+
 }
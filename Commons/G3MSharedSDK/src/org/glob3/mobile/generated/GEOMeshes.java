@@ -54,4 +54,15 @@ public class GEOMeshes extends GEOObject
     return result;
   }
 
+  public final long getCoordinatesCount()
+  {
+    long result = 0;
+    final int meshesSize = _meshes.size();
+    for (int i = 0; i < meshesSize; i++)
+    {
+      result += _meshes.get(i).getVertexCount();
+    }
+    return result;
+  }
+
 }
@@ -43,4 +43,10 @@ public abstract class GEOObject
 
   public abstract int symbolize(VectorStreamingRenderer.VectorSet vectorSet, VectorStreamingRenderer.Node node);
 
+  /**
+   Returns the number of coordinates (points and vertices of lines and rings) of the object,
+   a measure of its memory footprint.
+   */
+  public abstract long getCoordinatesCount();
+
 }
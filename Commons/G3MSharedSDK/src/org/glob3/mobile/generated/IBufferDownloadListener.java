@@ -20,11 +20,38 @@ public abstract class IBufferDownloadListener
    */
   public abstract void onDownload(URL url, IByteBuffer buffer, boolean expired);
 
+  /**
+   Callback method invoked on a successful download by the downloaders that read the validators of
+   the response (the ETag and Last-Modified headers, empty if missing). By default it calls onDownload()
+   */
+  public void onDownloadWithValidators(URL url, IByteBuffer buffer, boolean expired, String eTag, String lastModified)
+  {
+    onDownload(url, buffer, expired);
+  }
+
+  /**
+   Callback method invoked when the server answers a conditional request (see
+   IDownloader::requestConditionalBuffer()) with 304 Not Modified. By default it calls onError()
+   */
+  public void onNotModified(URL url)
+  {
+    onError(url);
+  }
+
   /**
    Callback method invoke after an error trying to download url
    */
   public abstract void onError(URL url);
 
+  /**
+   Callback method invoked after an error trying to download url, with the HTTP status code of the
+   response (0 if there was no response). By default it calls onError()
+   */
+  public void onErrorWithStatusCode(URL url, int statusCode)
+  {
+    onError(url);
+  }
+
   /**
    Callback method invoke after canceled request
    */
@@ -34,4 +34,29 @@ public abstract class IByteBuffer
 
   public abstract String getAsString();
 
+  /**
+   Bulk reads of little endian values starting at the byte i.
+   The bounds are checked once for the whole read, not once per byte.
+   */
+  public abstract short getInt16(int i);
+  public abstract int getInt32(int i);
+  public abstract long getInt64(int i);
+  public abstract float getFloat(int i);
+  public abstract double getDouble(int i);
+
+  public abstract void getUInt8s(int i, int count, byte[] dst);
+  public abstract void getInt16s(int i, int count, short[] dst);
+  public abstract void getInt32s(int i, int count, int[] dst);
+  public abstract void getFloats(int i, int count, float[] dst);
+
+  /**
+   Answer the index of the first byte equals to value at or after the byte i, or -1 if there is none.
+   */
+  public abstract int indexOf(int i, byte value);
+
+  /**
+   Answer the length bytes starting at the byte i as a string.
+   */
+  public abstract String getAsString(int i, int length);
+
 }
@@ -3,11 +3,35 @@ public class IByteBufferResult
 {
   private IByteBuffer _buffer;
   private final boolean _expired;
+  private final long _timeToExpire;
+  private final String _eTag;
+  private final String _lastModified;
 
   public IByteBufferResult(IByteBuffer buffer, boolean expired)
   {
      _buffer = buffer;
      _expired = expired;
+     _timeToExpire = -1;
+     _eTag = "";
+     _lastModified = "";
+  }
+
+  public IByteBufferResult(IByteBuffer buffer, boolean expired, long timeToExpire)
+  {
+     _buffer = buffer;
+     _expired = expired;
+     _timeToExpire = timeToExpire;
+     _eTag = "";
+     _lastModified = "";
+  }
+
+  public IByteBufferResult(IByteBuffer buffer, boolean expired, long timeToExpire, String eTag, String lastModified)
+  {
+     _buffer = buffer;
+     _expired = expired;
+     _timeToExpire = timeToExpire;
+     _eTag = eTag;
+     _lastModified = lastModified;
   }
 
   public void dispose()
@@ -23,4 +47,25 @@ public class IByteBufferResult
   {
     return _expired;
   }
+
+  /**
+   Milliseconds until the stored buffer expires, or -1 if the storage doesn't know it.
+   */
+  public final long getTimeToExpire()
+  {
+    return _timeToExpire;
+  }
+
+  /**
+   The validators saved with the buffer, empty if the storage doesn't keep them.
+   */
+  public final String getETag()
+  {
+    return _eTag;
+  }
+
+  public final String getLastModified()
+  {
+    return _lastModified;
+  }
 }
@@ -11,7 +11,6 @@ package org.glob3.mobile.generated;
 //class G3MContext;
 //class IBufferDownloadListener;
 //class IImageDownloadListener;
-//class TimeInterval;
 //class FrameTasksExecutor;
 
 
@@ -47,6 +46,37 @@ public abstract class IDownloader
     return requestImage(url, priority, timeToCache, readExpired, listener, deleteListener, ""); // default tag
   }
 
+  /**
+   Requests the URL serving stale content while revalidating it: if the cache has an expired copy,
+   the listener gets it at once (as expired) and the URL is downloaded again in background to
+   refresh the cache. Otherwise it works as a request with readExpired. The downloaders without a
+   cache just make that request.
+   */
+  public long requestStaleWhileRevalidateBuffer(URL url, long priority, TimeInterval timeToCache, IBufferDownloadListener listener, boolean deleteListener, String tag)
+  {
+    return requestBuffer(url, priority, timeToCache, true, listener, deleteListener, tag);
+  }
+
+  public long requestStaleWhileRevalidateImage(URL url, long priority, TimeInterval timeToCache, IImageDownloadListener listener, boolean deleteListener, String tag)
+  {
+    return requestImage(url, priority, timeToCache, true, listener, deleteListener, tag);
+  }
+
+  /**
+   Requests the URL only if it changed since the response with the given validators (the ETag and
+   Last-Modified headers, the empty ones aren't sent). If it didn't, the listener gets
+   onNotModified(). The downloaders that can't make conditional requests make a plain one.
+   */
+  public long requestConditionalBuffer(URL url, long priority, String eTag, String lastModified, IBufferDownloadListener listener, boolean deleteListener, String tag)
+  {
+    return requestBuffer(url, priority, TimeInterval.zero(), false, listener, deleteListener, tag);
+  }
+
+  public long requestConditionalImage(URL url, long priority, String eTag, String lastModified, IImageDownloadListener listener, boolean deleteListener, String tag)
+  {
+    return requestImage(url, priority, TimeInterval.zero(), false, listener, deleteListener, tag);
+  }
+
 
   public abstract boolean cancelRequest(long requestID);
 
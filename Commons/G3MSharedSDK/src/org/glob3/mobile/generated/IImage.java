@@ -32,4 +32,10 @@ public abstract class IImage
   public abstract IImage shallowCopy();
 
   public abstract void getPixel(int x, int y, MutableColor255 pixel);
+
+  /**
+   Fills argb (getWidth() * getHeight() values) with all the pixels of the image in one pass,
+   packed as 0xAARRGGBB. argb[(y * getWidth()) + x] is the same pixel that getPixel(x, y) returns.
+   */
+  public abstract void getPixels(int[] argb);
 }
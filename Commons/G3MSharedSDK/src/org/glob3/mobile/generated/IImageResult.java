@@ -27,12 +27,38 @@ public class IImageResult
 {
   public IImage _image;
   public final boolean _expired;
+  // milliseconds until the stored image expires, or -1 if the storage doesn't know it
+  public final long _timeToExpire;
+  // the validators saved with the image, empty if the storage doesn't keep them
+  public final String _eTag;
+  public final String _lastModified;
 
 
   public IImageResult(IImage image, boolean expired)
   {
      _image = image;
      _expired = expired;
+     _timeToExpire = -1;
+     _eTag = "";
+     _lastModified = "";
+  }
+
+  public IImageResult(IImage image, boolean expired, long timeToExpire)
+  {
+     _image = image;
+     _expired = expired;
+     _timeToExpire = timeToExpire;
+     _eTag = "";
+     _lastModified = "";
+  }
+
+  public IImageResult(IImage image, boolean expired, long timeToExpire, String eTag, String lastModified)
+  {
+     _image = image;
+     _expired = expired;
+     _timeToExpire = timeToExpire;
+     _eTag = eTag;
+     _lastModified = lastModified;
   }
 
   public void dispose()
@@ -26,6 +26,33 @@ public abstract class IStorage
 
   public abstract void saveImage(URL url, IImage image, TimeInterval timeToExpires, boolean saveInBackground);
 
+  /**
+   Saves the buffer with the validators of its response (the ETag and Last-Modified headers, empty
+   if missing), readBuffer() gives them back to revalidate the buffer once expired, even when it
+   doesn't read the expired buffer. The storages that don't keep the validators just save the buffer.
+   */
+  public void saveBufferWithValidators(URL url, IByteBuffer buffer, TimeInterval timeToExpires, boolean saveInBackground, String eTag, String lastModified)
+  {
+    saveBuffer(url, buffer, timeToExpires, saveInBackground);
+  }
+
+  public void saveImageWithValidators(URL url, IImage image, TimeInterval timeToExpires, boolean saveInBackground, String eTag, String lastModified)
+  {
+    saveImage(url, image, timeToExpires, saveInBackground);
+  }
+
+  /**
+   Sets a new expiration to the stored buffer, kept with its validators, once the server answered
+   that it wasn't modified. The storages that don't keep the validators do nothing.
+   */
+  public void refreshBuffer(URL url, TimeInterval timeToExpires, boolean saveInBackground)
+  {
+  }
+
+  public void refreshImage(URL url, TimeInterval timeToExpires, boolean saveInBackground)
+  {
+  }
+
 
   public abstract void onResume(G3MContext context);
 
@@ -0,0 +1,69 @@
+package org.glob3.mobile.generated;
+public class ImageRevalidationDownloadListener extends IImageDownloadListener
+{
+  private CachedDownloader _downloader;
+
+  private IStorage _storage;
+
+  private final TimeInterval _timeToCache;
+
+  public ImageRevalidationDownloadListener(CachedDownloader downloader, IStorage storage, TimeInterval timeToCache)
+  {
+     _downloader = downloader;
+     _storage = storage;
+     _timeToCache = timeToCache;
+
+  }
+
+  public final void onDownload(URL url, IImage image, boolean expired)
+  {
+    onDownloadWithValidators(url, image, expired, "", "");
+  }
+
+  public final void onDownloadWithValidators(URL url, IImage image, boolean expired, String eTag, String lastModified)
+  {
+    if (_storage.isAvailable())
+    {
+      _downloader.countSave();
+
+      _storage.saveImageWithValidators(url, image, _timeToCache, _downloader.saveInBackground(), eTag, lastModified);
+    }
+    _downloader.onImageDownloaded(url, image, _timeToCache);
+    _downloader.onRevalidationFinished(url);
+
+    if (image != null)
+       image.dispose();
+  }
+
+  public final void onNotModified(URL url)
+  {
+    if (_storage.isAvailable())
+    {
+      _storage.refreshImage(url, _timeToCache, _downloader.saveInBackground());
+    }
+    _downloader.onNotModified(url);
+    _downloader.onRevalidationFinished(url);
+  }
+
+  public final void onError(URL url)
+  {
+    onErrorWithStatusCode(url, 0);
+  }
+
+  public final void onErrorWithStatusCode(URL url, int statusCode)
+  {
+    _downloader.onDownloadError(url, statusCode);
+    _downloader.onRevalidationFinished(url);
+  }
+
+  public final void onCanceledDownload(URL url, IImage image, boolean expired)
+  {
+    // do nothing, onCancel() follows
+  }
+
+  public final void onCancel(URL url)
+  {
+    _downloader.onRevalidationFinished(url);
+  }
+
+}
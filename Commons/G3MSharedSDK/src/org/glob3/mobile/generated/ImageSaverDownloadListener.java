@@ -42,7 +42,7 @@ public class ImageSaverDownloadListener extends IImageDownloadListener
 
   }
 
-  public final void saveImage(URL url, IImage image)
+  public final void saveImage(URL url, IImage image, String eTag, String lastModified)
   {
     if (!url.isFileProtocol())
     {
@@ -52,7 +52,7 @@ public class ImageSaverDownloadListener extends IImageDownloadListener
         {
           _downloader.countSave();
 
-          _storage.saveImage(url, image, _timeToCache, _downloader.saveInBackground());
+          _storage.saveImageWithValidators(url, image, _timeToCache, _downloader.saveInBackground(), eTag, lastModified);
         }
         else
         {
@@ -63,10 +63,16 @@ public class ImageSaverDownloadListener extends IImageDownloadListener
   }
 
   public final void onDownload(URL url, IImage image, boolean expired)
+  {
+    onDownloadWithValidators(url, image, expired, "", "");
+  }
+
+  public final void onDownloadWithValidators(URL url, IImage image, boolean expired, String eTag, String lastModified)
   {
     if (!expired)
     {
-      saveImage(url, image);
+      saveImage(url, image, eTag, lastModified);
+      _downloader.onImageDownloaded(url, image, _timeToCache);
     }
 
     _listener.onDownload(url, image, expired);
@@ -74,8 +80,45 @@ public class ImageSaverDownloadListener extends IImageDownloadListener
     deleteListener();
   }
 
+  public final void onNotModified(URL url)
+  {
+    _downloader.onNotModified(url);
+
+    // the server still has the expired image, so it's fresh again
+    IImage image = _expiredImage;
+    _expiredImage = null;
+    if (_storage.isAvailable())
+    {
+      _storage.refreshImage(url, _timeToCache, _downloader.saveInBackground());
+      if (image == null)
+      {
+        // requested without readExpired, the expired image wasn't read
+        image = _storage.readImage(url, true)._image;
+      }
+    }
+
+    if (image == null)
+    {
+      _listener.onError(url);
+    }
+    else
+    {
+      _downloader.onImageDownloaded(url, image, _timeToCache);
+      _listener.onDownload(url, image, false);
+    }
+
+    deleteListener();
+  }
+
   public final void onError(URL url)
   {
+    onErrorWithStatusCode(url, 0);
+  }
+
+  public final void onErrorWithStatusCode(URL url, int statusCode)
+  {
+    _downloader.onDownloadError(url, statusCode);
+
     if (_expiredImage == null)
     {
       _listener.onError(url);
@@ -93,7 +136,8 @@ public class ImageSaverDownloadListener extends IImageDownloadListener
   {
     if (!expired)
     {
-      saveImage(url, image);
+      saveImage(url, image, "", "");
+      _downloader.onImageDownloaded(url, image, _timeToCache);
     }
 
     _listener.onCanceledDownload(url, image, expired);
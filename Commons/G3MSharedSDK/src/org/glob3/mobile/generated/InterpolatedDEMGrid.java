@@ -103,6 +103,72 @@ public class InterpolatedDEMGrid extends DecoratorDEMGrid
     return getElevationAt(_grid, u, v);
   }
 
+  public final void getElevations(double[] result)
+  {
+    // the same values of getElevation(x, y), with the cell and the weights of the interpolation
+    // computed once per column and once per row
+    final Vector2I gridExtent = _grid.getExtent();
+  
+    int[] xs = new int[_extent._x];
+    double[] alphaXs = new double[_extent._x];
+    for (int x = 0; x < _extent._x; x++)
+    {
+      final double u = (double) x / _extent._x;
+      final double dX = u * (gridExtent._x - 1);
+      xs[x] = (int) dX;
+      alphaXs[x] = dX - xs[x];
+    }
+  
+    int index = 0;
+    for (int y = 0; y < _extent._y; y++)
+    {
+      final double v = (double) y / _extent._y;
+      final double dY = v * (gridExtent._y - 1);
+      final int gridY = (int) dY;
+      final int nextGridY = gridY + 1;
+      final double alphaY = dY - gridY;
+  
+      for (int x = 0; x < _extent._x; x++)
+      {
+        final int gridX = xs[x];
+        final double alphaX = alphaXs[x];
+  
+        double elevation;
+        if (alphaX == 0)
+        {
+          if (alphaY == 0)
+          {
+            // exact on grid point
+            elevation = _grid.getElevation(gridX, gridY);
+          }
+          else
+          {
+            // linear on Y
+            elevation = linearInterpolation(_grid.getElevation(gridX, gridY), _grid.getElevation(gridX, nextGridY), alphaY);
+          }
+        }
+        else
+        {
+          final int nextGridX = gridX + 1;
+          if (alphaY == 0)
+          {
+            // linear on X
+            elevation = linearInterpolation(_grid.getElevation(gridX, gridY), _grid.getElevation(nextGridX, gridY), alphaX);
+          }
+          else
+          {
+            // bilinear
+            elevation = bilinearInterpolation(_grid.getElevation(gridX, nextGridY), _grid.getElevation(nextGridX, nextGridY), _grid.getElevation(nextGridX, gridY), _grid.getElevation(gridX, gridY), alphaX, alphaY); // NW -  NE -  SE -  SW
+          }
+        }
+        result[index++] = elevation;
+      }
+    }
+  
+    xs = null;
+    alphaXs = null;
+  }
+
   public final double getElevation(Angle latitude, Angle longitude)
   {
     // const Vector2D uv = _sector.getUVCoordinates(latitude, longitude);
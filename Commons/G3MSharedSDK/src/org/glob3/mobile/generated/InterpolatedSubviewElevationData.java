@@ -42,33 +42,43 @@ public class InterpolatedSubviewElevationData extends SubviewElevationData
     else
     {
   
+      // the buffer rows go from north (y = _height-1) to south (y = 0)
+      double[] rowsLatitudesInRadians = new double[_height];
+      for (int y = 0; y < _height; y++)
+      {
+        final double v = 1.0 - ((double) y / (_height - 1));
+        rowsLatitudesInRadians[_height-1-y] = _sector.getInnerPointLatitude(v)._radians;
+      }
+  
+      double[] columnsLongitudesInRadians = new double[_width];
       for (int x = 0; x < _width; x++)
       {
         final double u = (double) x / (_width - 1);
+        columnsLongitudesInRadians[x] = _sector.getInnerPointLongitude(u)._radians;
+      }
   
-        final Angle longitude = _sector.getInnerPointLongitude(u);
-  
-        for (int y = 0; y < _height; y++)
-        {
-          final double v = 1.0 - ((double) y / (_height - 1));
-  
-          final Angle latitude = _sector.getInnerPointLatitude(v);
-  
-          final int index = ((_height-1-y) * _width) + x;
+      final int size = _width * _height;
+      double[] heights = new double[size];
+      elevationData.getElevationsAt(rowsLatitudesInRadians, _height, columnsLongitudesInRadians, _width, heights);
   
-          final double height = elevationData.getElevationAt(latitude, longitude);
+      for (int index = 0; index < size; index++)
+      {
+        final double height = heights[index];
   
-          _buffer[index] = (float) height;
+        _buffer[index] = (float) height;
   
-          if (!_hasNoData)
+        if (!_hasNoData)
+        {
+          if ((height != height))
           {
-            if ((height != height))
-            {
-              _hasNoData = true;
-            }
+            _hasNoData = true;
           }
         }
       }
+  
+      rowsLatitudesInRadians = null;
+      columnsLongitudesInRadians = null;
+      heights = null;
     }
   }
 
@@ -90,28 +90,35 @@ public class MapzenTerrariumParser
 
   public static FloatBufferDEMGrid parse(IImage image, Sector sector, double deltaHeight)
   {
-    MutableColor255 pixel = new MutableColor255((byte) 0, (byte) 0, (byte) 0, (byte) 0);
-  
     final int width = image.getWidth();
     final int height = image.getHeight();
   
     final int bufferSize = width * height;
   
+    int[] pixels = new int[bufferSize];
+    image.getPixels(pixels);
+  
+    if (image != null)
+       image.dispose();
+  
     float[] buffer = new float[bufferSize];
   
-    for (int x = 0; x < width; x++)
+    // the image rows go from north to south, the grid rows from south to north
+    for (int y = 0; y < height; y++)
     {
-      for (int y = 0; y < height; y++)
+      final int pixelsOffset = y * width;
+      final int bufferOffset = (height-1-y) * width;
+      for (int x = 0; x < width; x++)
       {
-        image.getPixel(x, y, pixel);
-        final float elevation = ((pixel._red * 256.0f) + pixel._green + (pixel._blue / 256.0f)) - 32768.0f;
-        final int index = ((height-1-y) * width) + x;
-        buffer[index] = elevation;
+        final int argb = pixels[pixelsOffset + x];
+        final int red = (argb >> 16) & 0xFF;
+        final int green = (argb >> 8) & 0xFF;
+        final int blue = argb & 0xFF;
+        buffer[bufferOffset + x] = ((red * 256.0f) + green + (blue / 256.0f)) - 32768.0f;
       }
     }
   
-    if (image != null)
-       image.dispose();
+    pixels = null;
   
     return new FloatBufferDEMGrid(WebMercatorProjection.instance(), sector, new Vector2I(width, height), buffer, bufferSize, deltaHeight);
   }
@@ -173,6 +173,10 @@ public class Mark implements SurfaceElevationListener
     return _effectTarget;
   }
 
+  // the renderer holding the mark, notified when the mark moves to keep its index updated
+  private MarksRenderer _marksRenderer;
+  private long _orderInMarksRenderer;
+
 
 
 
@@ -291,6 +295,8 @@ public class Mark implements SurfaceElevationListener
      _effectsScheduler = null;
      _firstRender = true;
      _effectTarget = null;
+     _marksRenderer = null;
+     _orderInMarksRenderer = -1;
      _zoomOutDisappears = false;
      _deleteMarkOnDisappears = false;
      _zoomOutDisappearsStarted = false;
@@ -376,6 +382,8 @@ public class Mark implements SurfaceElevationListener
      _effectsScheduler = null;
      _firstRender = true;
      _effectTarget = null;
+     _marksRenderer = null;
+     _orderInMarksRenderer = -1;
      _zoomOutDisappears = false;
      _deleteMarkOnDisappears = false;
      _zoomOutDisappearsStarted = false;
@@ -449,6 +457,8 @@ public class Mark implements SurfaceElevationListener
      _effectsScheduler = null;
      _firstRender = true;
      _effectTarget = null;
+     _marksRenderer = null;
+     _orderInMarksRenderer = -1;
      _zoomOutDisappears = false;
      _deleteMarkOnDisappears = false;
      _zoomOutDisappearsStarted = false;
@@ -521,6 +531,8 @@ public class Mark implements SurfaceElevationListener
      _effectsScheduler = null;
      _firstRender = true;
      _effectTarget = null;
+     _marksRenderer = null;
+     _orderInMarksRenderer = -1;
      _zoomOutDisappears = false;
      _deleteMarkOnDisappears = false;
      _zoomOutDisappearsStarted = false;
@@ -593,6 +605,8 @@ public class Mark implements SurfaceElevationListener
      _effectsScheduler = null;
      _firstRender = true;
      _effectTarget = null;
+     _marksRenderer = null;
+     _orderInMarksRenderer = -1;
      _zoomOutDisappears = false;
      _deleteMarkOnDisappears = false;
      _zoomOutDisappearsStarted = false;
@@ -725,6 +739,11 @@ public class Mark implements SurfaceElevationListener
     return _renderedMark;
   }
 
+  public final void resetRendered()
+  {
+    _renderedMark = false;
+  }
+
   public final void onTextureDownloadError()
   {
     _textureSolved = true;
@@ -758,6 +777,11 @@ public class Mark implements SurfaceElevationListener
         _textureWidth *= _textureWidthProportion;
         _textureHeight *= _textureHeightProportion;
       }
+  
+      if (_marksRenderer != null)
+      {
+        _marksRenderer.onMarkOnScreenExtentChanged(this);
+      }
     }
   
   }
@@ -787,6 +811,11 @@ public class Mark implements SurfaceElevationListener
         _textureWidth *= _textureWidthProportion;
         _textureHeight *= _textureHeightProportion;
       }
+  
+      if (_marksRenderer != null)
+      {
+        _marksRenderer.onMarkOnScreenExtentChanged(this);
+      }
     }
   }
 
@@ -1001,6 +1030,11 @@ public class Mark implements SurfaceElevationListener
     _cartesianPosition = null;
   
     clearGLState();
+  
+    if (_marksRenderer != null)
+    {
+      _marksRenderer.onMarkElevationChanged(this);
+    }
   }
 
   public final void elevationChanged(Sector position, ElevationData rawElevationData, double verticalExaggeration) //Without considering vertical exaggeration
@@ -1014,6 +1048,8 @@ public class Mark implements SurfaceElevationListener
       throw new RuntimeException("Position change with (_altitudeMode == RELATIVE_TO_GROUND) not supported");
     }
   
+    final Geodetic2D previousPosition = _position.asGeodetic2D();
+  
     if (_position != null)
        _position.dispose();
     _position = position;
@@ -1023,6 +1059,11 @@ public class Mark implements SurfaceElevationListener
     _cartesianPosition = null;
   
     clearGLState();
+  
+    if (_marksRenderer != null)
+    {
+      _marksRenderer.onMarkPositionChanged(this, previousPosition);
+    }
   }
 
   public final void setOnScreenSizeOnPixels(int width, int height)
@@ -1032,6 +1073,11 @@ public class Mark implements SurfaceElevationListener
     _textureHeight = height;
     _textureSizeSetExternally = true;
   
+    if (_marksRenderer != null)
+    {
+      _marksRenderer.onMarkOnScreenExtentChanged(this);
+    }
+  
     if (_glState != null)
     {
       BillboardGLFeature b = (BillboardGLFeature) _glState.getGLFeature(GLFeatureID.GLF_BILLBOARD);
@@ -1126,4 +1172,25 @@ public class Mark implements SurfaceElevationListener
     _deleteMarkOnDisappears = deleteMark;
   }
 
+  public final boolean isAnimatedRemoveStarted()
+  {
+    return _zoomOutDisappearsStarted;
+  }
+
+  public final void setMarksRenderer(MarksRenderer marksRenderer, long orderInMarksRenderer)
+  {
+    _marksRenderer = marksRenderer;
+    _orderInMarksRenderer = orderInMarksRenderer;
+  }
+
+  public final MarksRenderer getMarksRenderer()
+  {
+    return _marksRenderer;
+  }
+
+  public final long getOrderInMarksRenderer()
+  {
+    return _orderInMarksRenderer;
+  }
+
 }
@@ -170,6 +170,15 @@ public class MarkWidget
     result.set(_x, _y);
   }
 
+  public final float getScreenX()
+  {
+     return _x;
+  }
+  public final float getScreenY()
+  {
+     return _y;
+  }
+
   public final void resetPosition()
   {
     if (_geo2Dfeature != null)
@@ -0,0 +1,340 @@
+package org.glob3.mobile.generated;
+/*
+ Geodetic quadtree of the marks of a MarksRenderer.
+
+ Every node keeps the cartesian bounds of its marks (computed lazily, and invalidated when a mark of the node is added,
+ removed or changes its elevation), so the nodes out of the frustum can be skipped without visiting their marks.
+ */
+public class MarksQuadTree
+{
+  private static final int MAX_MARKS_PER_NODE = 64;
+  private static final int MAX_DEPTH = 20;
+
+  private final Sector _sector;
+  private final int _depth;
+  private java.util.ArrayList<Mark> _marks = new java.util.ArrayList<Mark>();
+  private MarksQuadTree[] _children;
+  private int _marksCount;
+  private Box _bounds;
+
+  private MarksQuadTree(Sector sector, int depth)
+  {
+     _sector = new Sector(sector);
+     _depth = depth;
+     _children = null;
+     _marksCount = 0;
+     _bounds = null;
+  }
+
+  private int getChildIndex(Geodetic2D position)
+  {
+    // the split angles are the lower angles of the upper children
+    int index = 0;
+    if (position._latitude._radians >= _children[2]._sector._lower._latitude._radians)
+    {
+      index += 2;
+    }
+    if (position._longitude._radians >= _children[1]._sector._lower._longitude._radians)
+    {
+      index += 1;
+    }
+    return index;
+  }
+
+  private void split()
+  {
+    final Geodetic2D lower = _sector._lower;
+    final Geodetic2D upper = _sector._upper;
+  
+    final Angle splitLongitude = Angle.midAngle(lower._longitude, upper._longitude);
+    final Angle splitLatitude = Angle.midAngle(lower._latitude, upper._latitude);
+  
+    final Sector sector0 = new Sector(lower, new Geodetic2D(splitLatitude, splitLongitude));
+  
+    final Sector sector1 = new Sector(new Geodetic2D(lower._latitude, splitLongitude), new Geodetic2D(splitLatitude, upper._longitude));
+  
+    final Sector sector2 = new Sector(new Geodetic2D(splitLatitude, lower._longitude), new Geodetic2D(upper._latitude, splitLongitude));
+  
+    final Sector sector3 = new Sector(new Geodetic2D(splitLatitude, splitLongitude), upper);
+  
+    _children = new MarksQuadTree[4];
+    _children[0] = new MarksQuadTree(sector0, _depth + 1);
+    _children[1] = new MarksQuadTree(sector1, _depth + 1);
+    _children[2] = new MarksQuadTree(sector2, _depth + 1);
+    _children[3] = new MarksQuadTree(sector3, _depth + 1);
+  
+    final int marksSize = _marks.size();
+    for (int i = 0; i < marksSize; i++)
+    {
+      Mark mark = _marks.get(i);
+      final Geodetic2D position = mark.getPosition().asGeodetic2D();
+      _children[getChildIndex(position)].add(mark, position);
+    }
+    _marks.clear();
+  }
+
+  private void invalidateBounds()
+  {
+    if (_bounds != null)
+       _bounds.dispose();
+    _bounds = null;
+  }
+
+  private Box getBounds(Planet planet)
+  {
+    if (_bounds == null)
+    {
+      final IMathUtils mu = IMathUtils.instance();
+  
+      double minX = mu.maxDouble();
+      double minY = mu.maxDouble();
+      double minZ = mu.maxDouble();
+  
+      double maxX = mu.minDouble();
+      double maxY = mu.minDouble();
+      double maxZ = mu.minDouble();
+  
+      if (_children == null)
+      {
+        final int marksSize = _marks.size();
+        for (int i = 0; i < marksSize; i++)
+        {
+          final Vector3D position = _marks.get(i).getCartesianPosition(planet);
+  
+          if (position._x < minX)
+          {
+             minX = position._x;
+          }
+          if (position._y < minY)
+          {
+             minY = position._y;
+          }
+          if (position._z < minZ)
+          {
+             minZ = position._z;
+          }
+  
+          if (position._x > maxX)
+          {
+             maxX = position._x;
+          }
+          if (position._y > maxY)
+          {
+             maxY = position._y;
+          }
+          if (position._z > maxZ)
+          {
+             maxZ = position._z;
+          }
+        }
+      }
+      else
+      {
+        for (int i = 0; i < 4; i++)
+        {
+          MarksQuadTree child = _children[i];
+          if (child._marksCount > 0)
+          {
+            final Box childBounds = child.getBounds(planet);
+            final Vector3D lower = childBounds._lower;
+            final Vector3D upper = childBounds._upper;
+  
+            if (lower._x < minX)
+            {
+               minX = lower._x;
+            }
+            if (lower._y < minY)
+            {
+               minY = lower._y;
+            }
+            if (lower._z < minZ)
+            {
+               minZ = lower._z;
+            }
+  
+            if (upper._x > maxX)
+            {
+               maxX = upper._x;
+            }
+            if (upper._y > maxY)
+            {
+               maxY = upper._y;
+            }
+            if (upper._z > maxZ)
+            {
+               maxZ = upper._z;
+            }
+          }
+        }
+      }
+  
+      _bounds = new Box(new Vector3D(minX, minY, minZ), new Vector3D(maxX, maxY, maxZ));
+    }
+    return _bounds;
+  }
+
+  public MarksQuadTree()
+  {
+     _sector = new Sector(Sector.fullSphere());
+     _depth = 0;
+     _children = null;
+     _marksCount = 0;
+     _bounds = null;
+  }
+
+  public void dispose()
+  {
+    if (_children != null)
+    {
+      for (int i = 0; i < 4; i++)
+      {
+        if (_children[i] != null)
+           _children[i].dispose();
+      }
+      _children = null;
+    }
+  
+    if (_bounds != null)
+       _bounds.dispose();
+  }
+
+  public final int size()
+  {
+    return _marksCount;
+  }
+
+  public final void add(Mark mark, Geodetic2D position)
+  {
+    invalidateBounds();
+    _marksCount++;
+  
+    if (_children == null)
+    {
+      _marks.add(mark);
+      if ((_marks.size() > MAX_MARKS_PER_NODE) && (_depth < MAX_DEPTH))
+      {
+        split();
+      }
+    }
+    else
+    {
+      _children[getChildIndex(position)].add(mark, position);
+    }
+  }
+
+  public final boolean remove(Mark mark, Geodetic2D position)
+  {
+    boolean removed = false;
+    if (_children == null)
+    {
+      final int marksSize = _marks.size();
+      for (int i = 0; i < marksSize; i++)
+      {
+        if (_marks.get(i) == mark)
+        {
+          _marks.remove(i);
+          removed = true;
+          break;
+        }
+      }
+    }
+    else
+    {
+      removed = _children[getChildIndex(position)].remove(mark, position);
+    }
+  
+    if (removed)
+    {
+      invalidateBounds();
+      _marksCount--;
+      if ((_marksCount == 0) && (_children != null))
+      {
+        for (int i = 0; i < 4; i++)
+        {
+          if (_children[i] != null)
+             _children[i].dispose();
+        }
+        _children = null;
+        _children = null;
+      }
+    }
+    return removed;
+  }
+
+  public final void elevationChanged(Geodetic2D position)
+  {
+    invalidateBounds();
+    if (_children != null)
+    {
+      _children[getChildIndex(position)].elevationChanged(position);
+    }
+  }
+
+  public final void clear()
+  {
+    if (_children != null)
+    {
+      for (int i = 0; i < 4; i++)
+      {
+        if (_children[i] != null)
+           _children[i].dispose();
+      }
+      _children = null;
+      _children = null;
+    }
+    _marks.clear();
+    _marksCount = 0;
+    invalidateBounds();
+  }
+
+  /*
+   The billboards are drawn around the marks positions, so the bounds of the nodes are grown by the margin a billboard
+   can take at the node distance (marginPerDistance is the margin at a distance of one, zero to test the bare bounds).
+   */
+  public final void selectVisibleMarks(Planet planet, Frustum frustum, Vector3D cameraPosition, double marginPerDistance, java.util.ArrayList<Mark> visibleMarks)
+  {
+    if (_marksCount == 0)
+    {
+      return;
+    }
+  
+    final Box bounds = getBounds(planet);
+    if (marginPerDistance > 0)
+    {
+      final Vector3D lower = bounds._lower;
+      final Vector3D upper = bounds._upper;
+  
+      // the farthest point of the bounds takes the widest margin
+      final Vector3D center = new Vector3D((lower._x + upper._x) / 2, (lower._y + upper._y) / 2, (lower._z + upper._z) / 2);
+      final double distance = center.distanceTo(cameraPosition) + (lower.distanceTo(upper) / 2);
+      final double margin = distance * marginPerDistance;
+  
+      final Box grownBounds = new Box(new Vector3D(lower._x - margin, lower._y - margin, lower._z - margin), new Vector3D(upper._x + margin, upper._y + margin, upper._z + margin));
+      if (!grownBounds.touchesFrustum(frustum))
+      {
+        return;
+      }
+    }
+    else if (!bounds.touchesFrustum(frustum))
+    {
+      return;
+    }
+  
+    if (_children == null)
+    {
+      final int marksSize = _marks.size();
+      for (int i = 0; i < marksSize; i++)
+      {
+        visibleMarks.add(_marks.get(i));
+      }
+    }
+    else
+    {
+      for (int i = 0; i < 4; i++)
+      {
+        _children[i].selectVisibleMarks(planet, frustum, cameraPosition, marginPerDistance, visibleMarks);
+      }
+    }
+  }
+
+}
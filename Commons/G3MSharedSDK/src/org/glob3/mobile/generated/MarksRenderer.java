@@ -21,6 +21,8 @@ package org.glob3.mobile.generated;
 //class IFloatBuffer;
 //class ITimer;
 //class MarkFilter;
+//class Box;
+//class Frustum;
 
 
 public class MarksRenderer extends DefaultRenderer
@@ -28,6 +30,62 @@ public class MarksRenderer extends DefaultRenderer
   private final boolean _readyWhenMarksReady;
   private java.util.ArrayList<Mark> _marks = new java.util.ArrayList<Mark>();
 
+  private MarksQuadTree _marksQuadTree;
+  private long _nextMarkOrder;
+  private float _maxMarkOnScreenExtent; // the largest billboard diagonal in pixels, it never shrinks
+  private java.util.ArrayList<Mark> _marksToInitialize = new java.util.ArrayList<Mark>();
+  private java.util.ArrayList<Mark> _visibleMarks = new java.util.ArrayList<Mark>(); // the marks inside the frustum on the last render, sorted by order
+
+  // the marks are sorted by their order in the renderer
+  private static int findMark(java.util.ArrayList<Mark> marks, Mark mark)
+  {
+    final long order = mark.getOrderInMarksRenderer();
+    final int marksSize = marks.size();
+  
+    int low = 0;
+    int high = marksSize;
+    while (low < high)
+    {
+      final int middle = (low + high) / 2;
+      if (marks.get(middle).getOrderInMarksRenderer() < order)
+      {
+        low = middle + 1;
+      }
+      else
+      {
+        high = middle;
+      }
+    }
+  
+    if ((low < marksSize) && (marks.get(low) == mark))
+    {
+      return low;
+    }
+    return marksSize;
+  }
+  private static boolean eraseMark(java.util.ArrayList<Mark> marks, Mark mark)
+  {
+    final int i = findMark(marks, mark);
+    if (i == marks.size())
+    {
+      return false;
+    }
+    marks.remove(i);
+    return true;
+  }
+
+  private void sortVisibleMarks()
+  {
+    java.util.Collections.sort(_visibleMarks,
+                               new java.util.Comparator<Mark>() {
+                                 @Override
+                                 public int compare(final Mark i,
+                                                    final Mark j) {
+                                   return Long.compare(i.getOrderInMarksRenderer(), j.getOrderInMarksRenderer());
+                                 }
+                               });
+  }
+
   private Camera     _lastCamera;
 
   private MarkTouchListener _markTouchListener;
@@ -88,6 +146,9 @@ public class MarksRenderer extends DefaultRenderer
   public MarksRenderer(boolean readyWhenMarksReady, boolean renderInReverse, boolean progressiveInitialization)
   {
      _readyWhenMarksReady = readyWhenMarksReady;
+     _marksQuadTree = new MarksQuadTree();
+     _nextMarkOrder = 0;
+     _maxMarkOnScreenExtent = 0F;
      _renderInReverse = renderInReverse;
      _progressiveInitialization = progressiveInitialization;
      _lastCamera = null;
@@ -134,6 +195,9 @@ public class MarksRenderer extends DefaultRenderer
          _marks.get(i).dispose();
     }
   
+    if (_marksQuadTree != null)
+       _marksQuadTree.dispose();
+  
     if (_autoDeleteMarkTouchListener)
     {
       if (_markTouchListener != null)
@@ -157,6 +221,7 @@ public class MarksRenderer extends DefaultRenderer
       Mark mark = _marks.get(i);
       mark.initialize(_context, _downloadPriority);
     }
+    _marksToInitialize.clear();
   }
 
   public void render(G3MRenderContext rc, GLState glState)
@@ -180,7 +245,7 @@ public class MarksRenderer extends DefaultRenderer
   
       IFloatBuffer billboardTexCoord = getBillboardTexCoords();
   
-      if (_progressiveInitialization)
+      if (_progressiveInitialization && !_marksToInitialize.isEmpty())
       {
         if (_initializationTimer == null)
         {
@@ -191,26 +256,55 @@ public class MarksRenderer extends DefaultRenderer
           _initializationTimer.start();
         }
   
-        for (int i = 0; i < marksSize; i++)
+        if (_renderInReverse)
         {
-          if (_initializationTimer.elapsedTimeInMilliseconds() > 5)
+          // the older marks are rendered on top, initialize them first
+          final int marksToInitializeSize = _marksToInitialize.size();
+          int processed = 0;
+          while ((processed < marksToInitializeSize) && (_initializationTimer.elapsedTimeInMilliseconds() <= 5))
           {
-            break;
+            Mark mark = _marksToInitialize.get(processed++);
+            if (!mark.isInitialized())
+            {
+              mark.initialize(_context, _downloadPriority);
+            }
           }
-  
-          final int ii = _renderInReverse ? i : (marksSize-1-i);
-          Mark mark = _marks.get(ii);
-          if (!mark.isInitialized())
+          _marksToInitialize.subList(0, processed).clear();
+        }
+        else
+        {
+          while (!_marksToInitialize.isEmpty() && (_initializationTimer.elapsedTimeInMilliseconds() <= 5))
           {
-            mark.initialize(_context, _downloadPriority);
+            Mark mark = _marksToInitialize.get(_marksToInitialize.size() - 1);
+            _marksToInitialize.remove(_marksToInitialize.size() - 1);
+            if (!mark.isInitialized())
+            {
+              mark.initialize(_context, _downloadPriority);
+            }
           }
         }
       }
   
-      for (int i = 0; i < marksSize; i++)
+      // the marks culled in this render are not rendered anymore
+      final int previousVisibleMarksSize = _visibleMarks.size();
+      for (int i = 0; i < previousVisibleMarksSize; i++)
       {
-        final int ii = _renderInReverse ? (marksSize-1-i) : i;
-        Mark mark = _marks.get(ii);
+        _visibleMarks.get(i).resetRendered();
+      }
+      _visibleMarks.clear();
+  
+      // a billboard of _maxMarkOnScreenExtent pixels, converted to world units at a distance of one
+      final double tanHalfVerticalFOV = IMathUtils.instance().tan(camera.getVerticalFOV()._radians / 2);
+      final double marginPerDistance = _maxMarkOnScreenExtent * 2 * tanHalfVerticalFOV / camera.getViewPortHeight();
+  
+      _marksQuadTree.selectVisibleMarks(planet, camera.getFrustumInModelCoordinates(), cameraPosition.asVector3D(), marginPerDistance, _visibleMarks);
+      sortVisibleMarks();
+  
+      final int visibleMarksSize = _visibleMarks.size();
+      for (int i = 0; i < visibleMarksSize; i++)
+      {
+        final int ii = _renderInReverse ? (visibleMarksSize-1-i) : i;
+        Mark mark = _visibleMarks.get(ii);
         if (mark.isReady())
         {
           mark.render(rc, this, cameraPosition, cameraHeight, _glState, planet, gl, billboardTexCoord);
@@ -226,8 +320,15 @@ public class MarksRenderer extends DefaultRenderer
 
   public final void addMark(Mark mark)
   {
+    mark.setMarksRenderer(this, _nextMarkOrder++);
     _marks.add(mark);
-    if ((_context != null) && !_progressiveInitialization)
+    _marksQuadTree.add(mark, mark.getPosition().asGeodetic2D());
+    onMarkOnScreenExtentChanged(mark);
+    if (_progressiveInitialization)
+    {
+      _marksToInitialize.add(mark);
+    }
+    else if (_context != null)
     {
       mark.initialize(_context, _downloadPriority);
     }
@@ -235,14 +336,17 @@ public class MarksRenderer extends DefaultRenderer
 
   public final void removeMark(Mark mark)
   {
-    final int marksSize = _marks.size();
-    for (int i = 0; i < marksSize; i++)
+    if (mark.getMarksRenderer() != this)
     {
-      if (_marks.get(i) == mark)
-      {
-        _marks.remove(i);
-        break;
-      }
+      return;
+    }
+  
+    if (eraseMark(_marks, mark))
+    {
+      _marksQuadTree.remove(mark, mark.getPosition().asGeodetic2D());
+      eraseMark(_marksToInitialize, mark);
+      eraseMark(_visibleMarks, mark);
+      mark.setMarksRenderer(null, -1);
     }
   }
 
@@ -252,16 +356,24 @@ public class MarksRenderer extends DefaultRenderer
   }
   public final void removeAllMarks(boolean deleteMarks)
   {
-    if (deleteMarks)
+    final int marksSize = _marks.size();
+    for (int i = 0; i < marksSize; i++)
     {
-      final int marksSize = _marks.size();
-      for (int i = 0; i < marksSize; i++)
+      Mark mark = _marks.get(i);
+      if (deleteMarks)
+      {
+        if (mark != null)
+           mark.dispose();
+      }
+      else
       {
-        if (_marks.get(i) != null)
-           _marks.get(i).dispose();
+        mark.setMarksRenderer(null, -1);
       }
     }
     _marks.clear();
+    _marksQuadTree.clear();
+    _marksToInitialize.clear();
+    _visibleMarks.clear();
   }
 
   public final boolean onTouchEvent(G3MEventContext ec, TouchEvent touchEvent)
@@ -278,10 +390,11 @@ public class MarksRenderer extends DefaultRenderer
         double minSqDistance = IMathUtils.instance().maxDouble();
         Mark nearestMark = null;
   
-        final int marksSize = _marks.size();
-        for (int i = 0; i < marksSize; i++)
+        // only the marks inside the frustum on the last render can be touched
+        final int visibleMarksSize = _visibleMarks.size();
+        for (int i = 0; i < visibleMarksSize; i++)
         {
-          Mark mark = _marks.get(i);
+          Mark mark = _visibleMarks.get(i);
   
           if (!mark.isReady())
           {
@@ -307,9 +420,10 @@ public class MarksRenderer extends DefaultRenderer
           final Vector3D cartesianMarkPosition = mark.getCartesianPosition(planet);
           final Vector2F markPixel = _lastCamera.point2Pixel(cartesianMarkPosition);
   
-          final RectangleF markPixelBounds = new RectangleF(markPixel._x - (markWidth / 2), markPixel._y - (markHeight / 2), markWidth, markHeight);
+          final float halfMarkWidth = markWidth / 2;
+          final float halfMarkHeight = markHeight / 2;
   
-          if (markPixelBounds.contains(touchedPixel._x, touchedPixel._y))
+          if ((touchedPixel._x >= (markPixel._x - halfMarkWidth)) && (touchedPixel._x <= (markPixel._x + halfMarkWidth)) && (touchedPixel._y >= (markPixel._y - halfMarkHeight)) && (touchedPixel._y <= (markPixel._y + halfMarkHeight)))
           {
             final double sqDistance = markPixel.squaredDistanceTo(touchedPixel);
             if (sqDistance < minSqDistance)
@@ -400,44 +514,71 @@ public class MarksRenderer extends DefaultRenderer
 
   public final int removeAllMarks(MarkFilter filter, boolean animated, boolean deleteMarks)
   {
-    int removed = 0;
-    final int marksSize = _marks.size();
+    java.util.ArrayList<Mark> removedMarks = new java.util.ArrayList<Mark>();
+    java.util.ArrayList<Mark> survivingMarks = new java.util.ArrayList<Mark>();
   
-    if (animated)
+    final int marksSize = _marks.size();
+    for (int i = 0; i < marksSize; i++)
     {
-      for (int i = 0; i < marksSize; i++)
+      Mark mark = _marks.get(i);
+      if (filter.test(mark))
       {
-        Mark mark = _marks.get(i);
-        if (filter.test(mark))
+        if (animated && (mark.isRendered() || mark.isAnimatedRemoveStarted()))
         {
+          // the effect removes the mark when it finishes
           mark.animatedRemove(deleteMarks);
+          survivingMarks.add(mark);
+        }
+        else
+        {
+          // a not rendered mark would never start its effect, remove it now
+          _marksQuadTree.remove(mark, mark.getPosition().asGeodetic2D());
+          mark.setMarksRenderer(null, -1);
+          removedMarks.add(mark);
         }
       }
+      else
+      {
+        survivingMarks.add(mark);
+      }
     }
-    else
+  
+    final int removed = removedMarks.size();
+    if (removed > 0)
     {
-      java.util.ArrayList<Mark> survivingMarks = new java.util.ArrayList<Mark>();
-      for (int i = 0; i < marksSize; i++)
+      _marks = survivingMarks;
+  
+      java.util.ArrayList<Mark> survivingMarksToInitialize = new java.util.ArrayList<Mark>();
+      final int marksToInitializeSize = _marksToInitialize.size();
+      for (int i = 0; i < marksToInitializeSize; i++)
       {
-        Mark mark = _marks.get(i);
-        if (filter.test(mark))
+        Mark mark = _marksToInitialize.get(i);
+        if (mark.getMarksRenderer() == this)
         {
-          if (deleteMarks)
-          {
-            if (mark != null)
-               mark.dispose();
-          }
-          removed++;
+          survivingMarksToInitialize.add(mark);
         }
-        else
+      }
+      _marksToInitialize = survivingMarksToInitialize;
+  
+      java.util.ArrayList<Mark> survivingVisibleMarks = new java.util.ArrayList<Mark>();
+      final int visibleMarksSize = _visibleMarks.size();
+      for (int i = 0; i < visibleMarksSize; i++)
+      {
+        Mark mark = _visibleMarks.get(i);
+        if (mark.getMarksRenderer() == this)
         {
-          survivingMarks.add(mark);
+          survivingVisibleMarks.add(mark);
         }
       }
+      _visibleMarks = survivingVisibleMarks;
   
-      if (removed > 0)
+      if (deleteMarks)
       {
-        _marks = survivingMarks;
+        for (int i = 0; i < removed; i++)
+        {
+          if (removedMarks.get(i) != null)
+             removedMarks.get(i).dispose();
+        }
       }
     }
     return removed;
@@ -460,4 +601,28 @@ public class MarksRenderer extends DefaultRenderer
     return result;
   }
 
+  public final void onMarkPositionChanged(Mark mark, Geodetic2D previousPosition)
+  {
+    if (_marksQuadTree.remove(mark, previousPosition))
+    {
+      _marksQuadTree.add(mark, mark.getPosition().asGeodetic2D());
+    }
+  }
+
+  public final void onMarkElevationChanged(Mark mark)
+  {
+    _marksQuadTree.elevationChanged(mark.getPosition().asGeodetic2D());
+  }
+
+  public final void onMarkOnScreenExtentChanged(Mark mark)
+  {
+    final float width = mark.getTextureWidth();
+    final float height = mark.getTextureHeight();
+    final float extent = IMathUtils.instance().sqrt((width * width) + (height * height));
+    if (extent > _maxMarkOnScreenExtent)
+    {
+      _maxMarkOnScreenExtent = extent;
+    }
+  }
+
 }
@@ -145,6 +145,32 @@ public class NonOverlappingMark
      return _anchorWidget.getScreenPos();
   }
 
+  public final float getScreenX()
+  {
+     return _widget.getScreenX();
+  }
+  public final float getScreenY()
+  {
+     return _widget.getScreenY();
+  }
+  public final float getAnchorScreenX()
+  {
+     return _anchorWidget.getScreenX();
+  }
+  public final float getAnchorScreenY()
+  {
+     return _anchorWidget.getScreenY();
+  }
+
+  public final float getElectricCharge()
+  {
+     return _electricCharge;
+  }
+  public final float getAnchorElectricCharge()
+  {
+     return _anchorElectricCharge;
+  }
+
   public final void renderWidget(G3MRenderContext rc, GLState glState)
   {
     if (_widget.isReady())
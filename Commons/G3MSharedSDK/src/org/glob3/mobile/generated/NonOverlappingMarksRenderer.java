@@ -4,6 +4,10 @@ public class NonOverlappingMarksRenderer extends DefaultRenderer
   private final int _maxVisibleMarks;
   private final float _viewportMargin;
 
+  private float _forcesApproximationThreshold;
+  private ScreenChargesQuadTree _marksCharges;
+  private ScreenChargesQuadTree _anchorsCharges;
+
   private java.util.ArrayList<NonOverlappingMark> _marks = new java.util.ArrayList<NonOverlappingMark>();
 
   private java.util.ArrayList<NonOverlappingMark> _visibleMarks = new java.util.ArrayList<NonOverlappingMark>();
@@ -65,6 +69,18 @@ public class NonOverlappingMarksRenderer extends DefaultRenderer
     }
   
     //Compute Mark Forces
+    if (_forcesApproximationThreshold > 0)
+    {
+      computeApproximatedForces();
+    }
+    else
+    {
+      computeExactForces();
+    }
+  }
+  private void computeExactForces()
+  {
+    final int visibleMarksSize = _visibleMarks.size();
     for (int i = 0; i < visibleMarksSize; i++)
     {
       NonOverlappingMark mark = _visibleMarks.get(i);
@@ -84,6 +100,43 @@ public class NonOverlappingMarksRenderer extends DefaultRenderer
       }
     }
   }
+  private void computeApproximatedForces()
+  {
+    if (_marksCharges == null)
+    {
+      _marksCharges = new ScreenChargesQuadTree();
+      _anchorsCharges = new ScreenChargesQuadTree();
+    }
+  
+    final int visibleMarksSize = _visibleMarks.size();
+    _marksCharges.reset(visibleMarksSize);
+    _anchorsCharges.reset(visibleMarksSize);
+    for (int i = 0; i < visibleMarksSize; i++)
+    {
+      final NonOverlappingMark mark = _visibleMarks.get(i);
+      _marksCharges.setCharge(i, mark.getScreenX(), mark.getScreenY(), mark.getElectricCharge());
+      _anchorsCharges.setCharge(i, mark.getAnchorScreenX(), mark.getAnchorScreenY(), mark.getAnchorElectricCharge());
+    }
+    _marksCharges.build();
+    _anchorsCharges.build();
+  
+    // same forces of applyCoulombsLaw() and applyCoulombsLawFromAnchor(), without the mark's own charge and anchor
+    for (int i = 0; i < visibleMarksSize; i++)
+    {
+      NonOverlappingMark mark = _visibleMarks.get(i);
+      mark.applyHookesLaw();
+  
+      final float x = mark.getScreenX();
+      final float y = mark.getScreenY();
+      final float charge = mark.getElectricCharge();
+  
+      _marksCharges.computeForce(x, y, i, _forcesApproximationThreshold);
+      mark.applyForce(_marksCharges.getForceX() * charge, _marksCharges.getForceY() * charge);
+  
+      _anchorsCharges.computeForce(x, y, i, _forcesApproximationThreshold);
+      mark.applyForce(_anchorsCharges.getForceX() * charge, _anchorsCharges.getForceY() * charge);
+    }
+  }
   private void renderMarks(G3MRenderContext rc, GLState glState)
   {
     final int visibleMarksSize = _visibleMarks.size();
@@ -137,14 +190,26 @@ public class NonOverlappingMarksRenderer extends DefaultRenderer
     _lastPositionsUpdatedTime = now;
   }
 
+
+  /*
+   forcesApproximationThreshold is the Barnes-Hut threshold (node size / distance) for the repulsion forces between
+   marks, bigger values are faster and less accurate. 0 computes the exact forces between all the pairs of marks.
+   */
+  public NonOverlappingMarksRenderer(int maxVisibleMarks, float viewportMargin)
+  {
+     this(maxVisibleMarks, viewportMargin, 0.5f);
+  }
   public NonOverlappingMarksRenderer(int maxVisibleMarks)
   {
-     this(maxVisibleMarks, 5);
+     this(maxVisibleMarks, 5, 0.5f);
   }
-  public NonOverlappingMarksRenderer(int maxVisibleMarks, float viewportMargin)
+  public NonOverlappingMarksRenderer(int maxVisibleMarks, float viewportMargin, float forcesApproximationThreshold)
   {
      _maxVisibleMarks = maxVisibleMarks;
      _viewportMargin = viewportMargin;
+     _forcesApproximationThreshold = forcesApproximationThreshold;
+     _marksCharges = null;
+     _anchorsCharges = null;
      _lastPositionsUpdatedTime = 0;
      _visibleMarksIDsBuilder = IStringBuilder.newStringBuilder();
      _visibleMarksIDs = "";
@@ -169,6 +234,11 @@ public class NonOverlappingMarksRenderer extends DefaultRenderer
   
     if (_visibleMarksIDsBuilder != null)
        _visibleMarksIDsBuilder.dispose();
+  
+    if (_marksCharges != null)
+       _marksCharges.dispose();
+    if (_anchorsCharges != null)
+       _anchorsCharges.dispose();
   }
 
   public final void addMark(NonOverlappingMark mark)
@@ -303,4 +373,9 @@ public class NonOverlappingMarksRenderer extends DefaultRenderer
     _touchListener = touchListener;
   }
 
+  public final void setForcesApproximationThreshold(float forcesApproximationThreshold)
+  {
+    _forcesApproximationThreshold = forcesApproximationThreshold;
+  }
+
 }
@@ -70,6 +70,23 @@ public abstract class Planet
   public abstract void toCartesian(Geodetic2D geodetic, MutableVector3D result);
   public abstract void toCartesian(Geodetic2D geodetic, double height, MutableVector3D result);
 
+  /**
+   Converts count positions (latitudes and longitudes in radians, heights can be NULL for
+   zero heights) to cartesian, relative to the given center.
+
+   The (x, y, z) floats of every position are stored in result, starting at resultIndex.
+   */
+  public abstract void toCartesian(double[] latitudesInRadians, double[] longitudesInRadians, double[] heights, int count, double centerX, double centerY, double centerZ, float[] result, int resultIndex);
+
+  /**
+   Like the bulk toCartesian(), for a regular grid of rows x columns positions given the latitude
+   of every row and the longitude of every column.  The heights (if not NULL) and the result are
+   in row-major order.
+
+   The sines and cosines are computed once per row and once per column, not once per position.
+   */
+  public abstract void toCartesianGrid(double[] rowsLatitudesInRadians, int rows, double[] columnsLongitudesInRadians, int columns, double[] heights, double centerX, double centerY, double centerZ, float[] result, int resultIndex);
+
 
   public abstract Geodetic2D toGeodetic2D(Vector3D positionOnEllipsoid);
 
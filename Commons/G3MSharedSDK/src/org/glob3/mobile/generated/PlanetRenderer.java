@@ -321,6 +321,9 @@ public class PlanetRenderer extends DefaultRenderer implements ChangedListener,
   private java.util.ArrayList<Tile> _toVisit = new java.util.ArrayList<Tile>();
   private java.util.ArrayList<Tile> _toVisitInNextIteration = new java.util.ArrayList<Tile>();
 
+  private int _maxTessellationsInFlight;
+  private int _tessellationsInFlight;
+
   public PlanetRenderer(TileTessellator tessellator, ElevationDataProvider elevationDataProvider, boolean ownsElevationDataProvider, DEMProvider demProvider, float verticalExaggeration, TileTexturizer texturizer, LayerSet layerSet, TilesRenderParameters tilesRenderParameters, boolean showStatistics, long tileTextureDownloadPriority, Sector renderedSector, boolean renderTileMeshes, boolean logTilesPetitions, ChangedRendererInfoListener changedInfoListener, TouchEventType touchEventTypeOfTerrainTouchListener, TileLODTester tileLODTester, TileVisibilityTester tileVisibilityTester)
   {
      _tessellator = tessellator;
@@ -349,6 +352,8 @@ public class PlanetRenderer extends DefaultRenderer implements ChangedListener,
      _touchEventTypeOfTerrainTouchListener = touchEventTypeOfTerrainTouchListener;
      _tileLODTester = tileLODTester;
      _tileVisibilityTester = tileVisibilityTester;
+     _maxTessellationsInFlight = 0;
+     _tessellationsInFlight = 0;
     _context = null;
     _changedInfoListener = changedInfoListener;
   
@@ -1023,6 +1028,42 @@ public class PlanetRenderer extends DefaultRenderer implements ChangedListener,
     return _renderTileMeshes;
   }
 
+  /**
+   Set the maximum number of tiles meshes created at the same time in background threads.
+  
+   While the mesh of a tile is being created, its parent tile is rendered in its place.
+   Zero (the default) creates the meshes synchronously in the renderer thread.
+   */
+  public final void setMaxTessellationsInFlight(int maxTessellationsInFlight)
+  {
+    _maxTessellationsInFlight = maxTessellationsInFlight;
+  }
+
+  public final int getMaxTessellationsInFlight()
+  {
+    return _maxTessellationsInFlight;
+  }
+
+  public final boolean isAsynchronousTessellation()
+  {
+    return (_maxTessellationsInFlight > 0);
+  }
+
+  public final boolean canStartTessellation()
+  {
+    return (_tessellationsInFlight < _maxTessellationsInFlight);
+  }
+
+  public final void onTessellationStarted()
+  {
+    _tessellationsInFlight++;
+  }
+
+  public final void onTessellationFinished()
+  {
+    _tessellationsInFlight--;
+  }
+
   public final void changedInfo(java.util.ArrayList<Info> info)
   {
     if (_changedInfoListener != null)
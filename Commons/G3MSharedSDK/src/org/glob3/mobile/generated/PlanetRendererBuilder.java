@@ -237,6 +237,12 @@ public class PlanetRendererBuilder
     return _renderTileMeshes;
   }
 
+  private int _maxTessellationsInFlight;
+  private int getMaxTessellationsInFlight()
+  {
+    return _maxTessellationsInFlight;
+  }
+
   private boolean getLogTilesPetitions()
   {
     return _logTilesPetitions;
@@ -302,6 +308,7 @@ public class PlanetRendererBuilder
      _verticalExaggeration = 0F;
      _renderedSector = null;
      _renderTileMeshes = true;
+     _maxTessellationsInFlight = 0;
      _logTilesPetitions = false;
      _changedInfoListener = null;
      _touchEventTypeOfTerrainTouchListener = TouchEventType.LongPress;
@@ -351,6 +358,8 @@ public class PlanetRendererBuilder
   
     PlanetRenderer planetRenderer = new PlanetRenderer(getTileTessellator(), getElevationDataProvider(), true, getDEMProvider(), getVerticalExaggeration(), getTexturizer(), layerSet, getParameters(), getShowStatistics(), getTileTextureDownloadPriority(), getRenderedSector(), getRenderTileMeshes(), getLogTilesPetitions(), getChangedRendererInfoListener(), getTouchEventTypeOfTerrainTouchListener(), getTileLODTester(), getTileVisibilityTester());
   
+    planetRenderer.setMaxTessellationsInFlight(getMaxTessellationsInFlight());
+  
     for (int i = 0; i < getVisibleSectorListeners().size(); i++)
     {
       planetRenderer.addVisibleSectorListener(getVisibleSectorListeners().get(i), TimeInterval.fromMilliseconds(getStabilizationMilliSeconds().get(i)));
@@ -495,6 +504,11 @@ public class PlanetRendererBuilder
     _renderTileMeshes = renderTileMeshes;
   }
 
+  public final void setMaxTessellationsInFlight(int maxTessellationsInFlight)
+  {
+    _maxTessellationsInFlight = maxTessellationsInFlight;
+  }
+
   public final void setLogTilesPetitions(boolean logTilesPetitions)
   {
     _logTilesPetitions = logTilesPetitions;
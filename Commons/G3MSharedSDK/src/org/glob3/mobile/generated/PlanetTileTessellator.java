@@ -74,8 +74,32 @@ public class PlanetTileTessellator extends TileTessellator
     return tile._sector.intersection(_renderedSector);
   }
 
+  private static double skirtDepthForSector(Planet planet, Sector sector)
+  {
+    final Vector3D se = planet.toCartesian(sector.getSE());
+    final Vector3D nw = planet.toCartesian(sector.getNW());
+    final double diagonalLength = nw.sub(se).length();
+    final double sideLength = diagonalLength * 0.70710678118;
+    //0.707 = 1 / SQRT(2) -> diagonalLength => estimated side length
+    return sideLength / 20.0;
+  }
+
+
+  public PlanetTileTessellator(boolean skirted, Sector sector)
+  {
+     _skirted = skirted;
+     _renderedSector = sector.isEquals(Sector.FULL_SPHERE)? null : new Sector(sector);
+  }
+
+  public void dispose()
+  {
+    _renderedSector = null;
+    super.dispose();
+  
+  }
 
-  private double createSurfaceVertices(Vector2S meshResolution, Sector meshSector, ElevationData elevationData, float verticalExaggeration, FloatBufferBuilderFromGeodetic vertices, TileTessellatorMeshData tileTessellatorMeshData)
+  // the surface and skirts builders only access their arguments, so they can run in a background thread
+  public static double createSurfaceVertices(Vector2S meshResolution, Sector meshSector, ElevationData elevationData, float verticalExaggeration, FloatBufferBuilderFromGeodetic vertices, TileTessellatorMeshData tileTessellatorMeshData)
   {
   
     final IMathUtils mu = IMathUtils.instance();
@@ -83,39 +107,58 @@ public class PlanetTileTessellator extends TileTessellator
     double maxElevation = mu.minDouble();
     double sumElevation = 0;
   
-    for (int j = 0; j < meshResolution._y; j++)
+    final int rows = meshResolution._y;
+    final int columns = meshResolution._x;
+  
+    double[] rowsLatitudesInRadians = new double[rows];
+    for (int j = 0; j < rows; j++)
     {
-      final double v = (double) j / (meshResolution._y - 1);
+      final double v = (double) j / (rows - 1);
+      rowsLatitudesInRadians[j] = meshSector.getInnerPointLatitude(v)._radians;
+    }
   
-      for (int i = 0; i < meshResolution._x; i++)
-      {
-        final double u = (double) i / (meshResolution._x - 1);
-        final Geodetic2D position = meshSector.getInnerPoint(u, v);
-        double elevation = 0;
+    double[] columnsLongitudesInRadians = new double[columns];
+    for (int i = 0; i < columns; i++)
+    {
+      final double u = (double) i / (columns - 1);
+      columnsLongitudesInRadians[i] = meshSector.getInnerPointLongitude(u)._radians;
+    }
   
-        if (elevationData != null)
-        {
-          final double rawElevation = elevationData.getElevationAt(position);
+    double[] heights = null;
+    if (elevationData != null)
+    {
+      final int size = rows * columns;
+      heights = new double[size];
+      elevationData.getElevationsAt(rowsLatitudesInRadians, rows, columnsLongitudesInRadians, columns, heights);
   
-          elevation = (rawElevation != rawElevation)? 0 : rawElevation * verticalExaggeration;
+      for (int k = 0; k < size; k++)
+      {
+        final double rawElevation = heights[k];
   
-          if (elevation < minElevation)
-          {
-            minElevation = elevation;
-          }
+        final double elevation = (rawElevation != rawElevation)? 0 : rawElevation * verticalExaggeration;
   
-          if (elevation > maxElevation)
-          {
-            maxElevation = elevation;
-          }
+        if (elevation < minElevation)
+        {
+          minElevation = elevation;
+        }
   
-          sumElevation += elevation;
+        if (elevation > maxElevation)
+        {
+          maxElevation = elevation;
         }
   
-        vertices.add(position, elevation);
+        sumElevation += elevation;
+  
+        heights[k] = elevation;
       }
     }
   
+    vertices.addGrid(rowsLatitudesInRadians, rows, columnsLongitudesInRadians, columns, heights);
+  
+    rowsLatitudesInRadians = null;
+    columnsLongitudesInRadians = null;
+    heights = null;
+  
     if (minElevation == mu.maxDouble())
     {
       minElevation = 0;
@@ -132,7 +175,7 @@ public class PlanetTileTessellator extends TileTessellator
     return minElevation;
   }
 
-  private double createSurface(Sector tileSector, Sector meshSector, Vector2S meshResolution, ElevationData elevationData, float verticalExaggeration, boolean mercator, FloatBufferBuilderFromGeodetic vertices, ShortBufferBuilder indices, FloatBufferBuilderFromCartesian2D textCoords, TileTessellatorMeshData tileTessellatorMeshData)
+  public static double createSurface(Sector tileSector, Sector meshSector, Vector2S meshResolution, ElevationData elevationData, float verticalExaggeration, boolean mercator, FloatBufferBuilderFromGeodetic vertices, ShortBufferBuilder indices, FloatBufferBuilderFromCartesian2D textCoords, TileTessellatorMeshData tileTessellatorMeshData)
   {
   
     //VERTICES
@@ -201,7 +244,7 @@ public class PlanetTileTessellator extends TileTessellator
     return minElevation;
   }
 
-  private void createEastSkirt(Planet planet, Sector tileSector, Sector meshSector, Vector2S meshResolution, double skirtHeight, FloatBufferBuilderFromGeodetic vertices, ShortBufferBuilder indices, FloatBufferBuilderFromCartesian2D textCoords)
+  public static void createEastSkirt(Planet planet, Sector tileSector, Sector meshSector, Vector2S meshResolution, double skirtHeight, FloatBufferBuilderFromGeodetic vertices, ShortBufferBuilder indices, FloatBufferBuilderFromCartesian2D textCoords)
   {
   
     //VERTICES
@@ -237,7 +280,7 @@ public class PlanetTileTessellator extends TileTessellator
     indices.add((short)(surfaceIndex + meshResolution._x));
   }
 
-  private void createNorthSkirt(Planet planet, Sector tileSector, Sector meshSector, Vector2S meshResolution, double skirtHeight, FloatBufferBuilderFromGeodetic vertices, ShortBufferBuilder indices, FloatBufferBuilderFromCartesian2D textCoords)
+  public static void createNorthSkirt(Planet planet, Sector tileSector, Sector meshSector, Vector2S meshResolution, double skirtHeight, FloatBufferBuilderFromGeodetic vertices, ShortBufferBuilder indices, FloatBufferBuilderFromCartesian2D textCoords)
   {
   
     //VERTICES
@@ -272,7 +315,7 @@ public class PlanetTileTessellator extends TileTessellator
     indices.add((short)(surfaceIndex + 1));
   }
 
-  private void createWestSkirt(Planet planet, Sector tileSector, Sector meshSector, Vector2S meshResolution, double skirtHeight, FloatBufferBuilderFromGeodetic vertices, ShortBufferBuilder indices, FloatBufferBuilderFromCartesian2D textCoords)
+  public static void createWestSkirt(Planet planet, Sector tileSector, Sector meshSector, Vector2S meshResolution, double skirtHeight, FloatBufferBuilderFromGeodetic vertices, ShortBufferBuilder indices, FloatBufferBuilderFromCartesian2D textCoords)
   {
   
     //VERTICES
@@ -308,7 +351,7 @@ public class PlanetTileTessellator extends TileTessellator
     indices.add((short)(surfaceIndex - meshResolution._x));
   }
 
-  private void createSouthSkirt(Planet planet, Sector tileSector, Sector meshSector, Vector2S meshResolution, double skirtHeight, FloatBufferBuilderFromGeodetic vertices, ShortBufferBuilder indices, FloatBufferBuilderFromCartesian2D textCoords)
+  public static void createSouthSkirt(Planet planet, Sector tileSector, Sector meshSector, Vector2S meshResolution, double skirtHeight, FloatBufferBuilderFromGeodetic vertices, ShortBufferBuilder indices, FloatBufferBuilderFromCartesian2D textCoords)
   {
   
     //VERTICES
@@ -342,30 +385,6 @@ public class PlanetTileTessellator extends TileTessellator
     indices.add((short)(surfaceIndex - 1));
   }
 
-  private static double skirtDepthForSector(Planet planet, Sector sector)
-  {
-    final Vector3D se = planet.toCartesian(sector.getSE());
-    final Vector3D nw = planet.toCartesian(sector.getNW());
-    final double diagonalLength = nw.sub(se).length();
-    final double sideLength = diagonalLength * 0.70710678118;
-    //0.707 = 1 / SQRT(2) -> diagonalLength => estimated side length
-    return sideLength / 20.0;
-  }
-
-
-  public PlanetTileTessellator(boolean skirted, Sector sector)
-  {
-     _skirted = skirted;
-     _renderedSector = sector.isEquals(Sector.FULL_SPHERE)? null : new Sector(sector);
-  }
-
-  public void dispose()
-  {
-    _renderedSector = null;
-    super.dispose();
-  
-  }
-
   public final Vector2S getTileMeshResolution(G3MRenderContext rc, PlanetRenderContext prc, Tile tile)
   {
     Sector sector = getRenderedSectorForTile(tile);
@@ -386,52 +405,42 @@ public class PlanetTileTessellator extends TileTessellator
       return DEMGridUtils.createDebugMesh(grid, rc.getPlanet(), prc._verticalExaggeration, Geodetic3D.zero(), -11000, 9000, 15); // pointSize -  maxElevation -  minElevation -  offset
     }
   
+    TileTessellatorMeshBuilder builder = createTileMeshBuilder(rc, prc, tile, elevationData, grid);
+    builder.build();
+    Mesh result = builder.publish(tile, tileTessellatorMeshData);
+    if (builder != null)
+       builder.dispose();
+  
+    return result;
+  }
+
+  public final TileTessellatorMeshBuilder createTileMeshBuilder(G3MRenderContext rc, PlanetRenderContext prc, Tile tile, ElevationData elevationData, DEMGrid grid)
+  {
+    if (grid != null)
+    {
+      // the DEMGrid debug mesh is created in the renderer thread
+      return null;
+    }
+  
     final Sector tileSector = tile._sector;
     final Sector meshSector = getRenderedSectorForTile(tile);
     final Vector2S meshResolution = calculateResolution(prc, tile, meshSector);
   
     final Planet planet = rc.getPlanet();
   
-    FloatBufferBuilderFromGeodetic vertices = FloatBufferBuilderFromGeodetic.builderWithGivenCenter(planet, meshSector._center);
-    ShortBufferBuilder indices = new ShortBufferBuilder();
-    FloatBufferBuilderFromCartesian2D textCoords = new FloatBufferBuilderFromCartesian2D();
-  
-    final double minElevation = createSurface(tileSector, meshSector, meshResolution, elevationData, prc._verticalExaggeration, tile._mercator, vertices, indices, textCoords, tileTessellatorMeshData);
-  
+    double skirtDepth = 0;
+    double absoluteSkirtHeight = 0;
     if (_skirted)
     {
-      final double relativeSkirtHeight = minElevation - skirtDepthForSector(planet, tileSector);
+      skirtDepth = skirtDepthForSector(planet, tileSector);
   
-      double absoluteSkirtHeight = 0;
       if (_renderedSector != null)
       {
         absoluteSkirtHeight = -skirtDepthForSector(planet, _renderedSector);
       }
-  
-      createEastSkirt(planet, tileSector, meshSector, meshResolution, needsEastSkirt(tileSector) ? relativeSkirtHeight : absoluteSkirtHeight, vertices, indices, textCoords);
-  
-      createNorthSkirt(planet, tileSector, meshSector, meshResolution, needsNorthSkirt(tileSector) ? relativeSkirtHeight : absoluteSkirtHeight, vertices, indices, textCoords);
-  
-      createWestSkirt(planet, tileSector, meshSector, meshResolution, needsWestSkirt(tileSector) ? relativeSkirtHeight : absoluteSkirtHeight, vertices, indices, textCoords);
-  
-      createSouthSkirt(planet, tileSector, meshSector, meshResolution, needsSouthSkirt(tileSector) ? relativeSkirtHeight : absoluteSkirtHeight, vertices, indices, textCoords);
     }
   
-    //Storing textCoords in Tile
-    tile.setPlanetTileTessellatorData(new PlanetTileTessellatorData(textCoords));
-  
-    IFloatBuffer verticesB = vertices.create();
-    IShortBuffer indicesB = indices.create();
-    IFloatBuffer normals = null;
-    ///#warning Testing_Terrain_Normals;
-    //  IFloatBuffer* normals = NormalsUtils::createTriangleStripSmoothNormals(verticesB, indicesB);
-  
-    Mesh result = new IndexedGeometryMesh(GLPrimitive.triangleStrip(), vertices.getCenter(), verticesB, true, normals, true, indicesB, true);
-  
-    if (vertices != null)
-       vertices.dispose();
-  
-    return result;
+    return new PlanetTileTessellatorMeshBuilder(planet, tileSector, meshSector, meshResolution, elevationData, prc._verticalExaggeration, tile._mercator, _skirted, needsEastSkirt(tileSector), needsNorthSkirt(tileSector), needsWestSkirt(tileSector), needsSouthSkirt(tileSector), skirtDepth, absoluteSkirtHeight);
   }
 
   public final Mesh createTileDebugMesh(G3MRenderContext rc, PlanetRenderContext prc, Tile tile)
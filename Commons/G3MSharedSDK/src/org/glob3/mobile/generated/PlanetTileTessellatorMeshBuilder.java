@@ -0,0 +1,105 @@
+package org.glob3.mobile.generated;
+public class PlanetTileTessellatorMeshBuilder implements TileTessellatorMeshBuilder
+{
+  private final Planet _planet;
+  private final Sector _tileSector ;
+  private final Sector _meshSector ;
+  private final Vector2S _meshResolution;
+  private final ElevationData _elevationData;
+  private final float _verticalExaggeration;
+  private final boolean _mercator;
+  private final boolean _skirted;
+  private final boolean _needsEastSkirt;
+  private final boolean _needsNorthSkirt;
+  private final boolean _needsWestSkirt;
+  private final boolean _needsSouthSkirt;
+  private final double _skirtDepth;
+  private final double _absoluteSkirtHeight;
+
+  private TileTessellatorMeshData _tileTessellatorMeshData = new TileTessellatorMeshData();
+  private FloatBufferBuilderFromGeodetic _vertices;
+  private FloatBufferBuilderFromCartesian2D _textCoords;
+  private IFloatBuffer _verticesBuffer;
+  private IShortBuffer _indicesBuffer;
+
+  public PlanetTileTessellatorMeshBuilder(Planet planet, Sector tileSector, Sector meshSector, Vector2S meshResolution, ElevationData elevationData, float verticalExaggeration, boolean mercator, boolean skirted, boolean needsEastSkirt, boolean needsNorthSkirt, boolean needsWestSkirt, boolean needsSouthSkirt, double skirtDepth, double absoluteSkirtHeight)
+  {
+     _planet = planet;
+     _tileSector = new Sector(tileSector);
+     _meshSector = new Sector(meshSector);
+     _meshResolution = meshResolution;
+     _elevationData = elevationData;
+     _verticalExaggeration = verticalExaggeration;
+     _mercator = mercator;
+     _skirted = skirted;
+     _needsEastSkirt = needsEastSkirt;
+     _needsNorthSkirt = needsNorthSkirt;
+     _needsWestSkirt = needsWestSkirt;
+     _needsSouthSkirt = needsSouthSkirt;
+     _skirtDepth = skirtDepth;
+     _absoluteSkirtHeight = absoluteSkirtHeight;
+     _vertices = null;
+     _textCoords = null;
+     _verticesBuffer = null;
+     _indicesBuffer = null;
+  }
+
+  public void dispose()
+  {
+    if (_vertices != null)
+       _vertices.dispose();
+    if (_textCoords != null)
+       _textCoords.dispose();
+    if (_verticesBuffer != null)
+       _verticesBuffer.dispose();
+    if (_indicesBuffer != null)
+       _indicesBuffer.dispose();
+  }
+
+  public final void build()
+  {
+    _vertices = FloatBufferBuilderFromGeodetic.builderWithGivenCenter(_planet, _meshSector._center);
+    ShortBufferBuilder indices = new ShortBufferBuilder();
+    _textCoords = new FloatBufferBuilderFromCartesian2D();
+  
+    final double minElevation = PlanetTileTessellator.createSurface(_tileSector, _meshSector, _meshResolution, _elevationData, _verticalExaggeration, _mercator, _vertices, indices, _textCoords, _tileTessellatorMeshData);
+  
+    if (_skirted)
+    {
+      final double relativeSkirtHeight = minElevation - _skirtDepth;
+  
+      PlanetTileTessellator.createEastSkirt(_planet, _tileSector, _meshSector, _meshResolution, _needsEastSkirt ? relativeSkirtHeight : _absoluteSkirtHeight, _vertices, indices, _textCoords);
+  
+      PlanetTileTessellator.createNorthSkirt(_planet, _tileSector, _meshSector, _meshResolution, _needsNorthSkirt ? relativeSkirtHeight : _absoluteSkirtHeight, _vertices, indices, _textCoords);
+  
+      PlanetTileTessellator.createWestSkirt(_planet, _tileSector, _meshSector, _meshResolution, _needsWestSkirt ? relativeSkirtHeight : _absoluteSkirtHeight, _vertices, indices, _textCoords);
+  
+      PlanetTileTessellator.createSouthSkirt(_planet, _tileSector, _meshSector, _meshResolution, _needsSouthSkirt ? relativeSkirtHeight : _absoluteSkirtHeight, _vertices, indices, _textCoords);
+    }
+  
+    _verticesBuffer = _vertices.create();
+    _indicesBuffer = indices.create();
+  }
+
+  public final Mesh publish(Tile tile, TileTessellatorMeshData tileTessellatorMeshData)
+  {
+    tileTessellatorMeshData._minHeight = _tileTessellatorMeshData._minHeight;
+    tileTessellatorMeshData._maxHeight = _tileTessellatorMeshData._maxHeight;
+    tileTessellatorMeshData._averageHeight = _tileTessellatorMeshData._averageHeight;
+  
+    //Storing textCoords in Tile
+    tile.setPlanetTileTessellatorData(new PlanetTileTessellatorData(_textCoords));
+    _textCoords = null; // moved ownership to tile
+  
+    IFloatBuffer normals = null;
+    ///#warning Testing_Terrain_Normals;
+    //  IFloatBuffer* normals = NormalsUtils::createTriangleStripSmoothNormals(_verticesBuffer, _indicesBuffer);
+  
+    Mesh result = new IndexedGeometryMesh(GLPrimitive.triangleStrip(), _vertices.getCenter(), _verticesBuffer, true, normals, true, _indicesBuffer, true);
+    _verticesBuffer = null; // moved ownership to result
+    _indicesBuffer = null;
+  
+    return result;
+  }
+
+}
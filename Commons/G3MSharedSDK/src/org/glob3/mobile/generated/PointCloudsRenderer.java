@@ -414,6 +414,23 @@ public class PointCloudsRenderer extends DefaultRenderer
     private IFloatBuffer _verticesBuffer;
     private IFloatBuffer _heightsBuffer;
 
+    private static int nextZigZagVarInt(ByteBufferIterator it)
+    {
+      int value = 0;
+      int shift = 0;
+      while (true)
+      {
+        final int b = it.nextUInt8() & 0xFF;
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0)
+        {
+          break;
+        }
+        shift += 7;
+      }
+      return ((value >> 1) & 0x7FFFFFFF) ^ -(value & 1);
+    }
+
     public PointCloudLeafNodeLevelParserTask(PointCloudLeafNode leafNode, int level, IByteBuffer buffer)
     {
        _leafNode = leafNode;
@@ -438,20 +455,34 @@ public class PointCloudsRenderer extends DefaultRenderer
 
     public final void runInBackground(G3MContext context)
     {
+      // quantized format, see the server's QuantizedUtils
       ByteBufferIterator it = new ByteBufferIterator(_buffer);
     
       final int pointsCount = it.nextInt32();
     
+      final float minX = it.nextFloat();
+      final float minY = it.nextFloat();
+      final float minZ = it.nextFloat();
+      final float scaleX = it.nextFloat();
+      final float scaleY = it.nextFloat();
+      final float scaleZ = it.nextFloat();
+    
       _verticesBuffer = IFactory.instance().createFloatBuffer(pointsCount * 3);
-      for (int i = 0; i < pointsCount * 3; i++)
+      for (int i = 0; i < pointsCount; i++)
       {
-        _verticesBuffer.rawPut(i, it.nextFloat());
+        final int i3 = i * 3;
+        _verticesBuffer.rawPut(i3, minX + ((it.nextInt16() & 0xFFFF) * scaleX));
+        _verticesBuffer.rawPut(i3 + 1, minY + ((it.nextInt16() & 0xFFFF) * scaleY));
+        _verticesBuffer.rawPut(i3 + 2, minZ + ((it.nextInt16() & 0xFFFF) * scaleZ));
       }
     
+      final float heightsQuantum = it.nextFloat();
       _heightsBuffer = IFactory.instance().createFloatBuffer(pointsCount);
+      int quantizedHeight = 0;
       for (int i = 0; i < pointsCount; i++)
       {
-        _heightsBuffer.rawPut(i, it.nextFloat());
+        quantizedHeight += nextZigZagVarInt(it);
+        _heightsBuffer.rawPut(i, quantizedHeight * heightsQuantum);
       }
     
       if (it.hasNext())
@@ -518,6 +549,135 @@ public class PointCloudsRenderer extends DefaultRenderer
   }
 
 
+  private static class PointCloudLeafNodesLevelsBatchListener extends IBufferDownloadListener
+  {
+    private java.util.ArrayList<PointCloudLeafNode> _leafNodes = new java.util.ArrayList<PointCloudLeafNode>();
+    private java.util.ArrayList<Integer> _levels = new java.util.ArrayList<Integer>();
+    private java.util.ArrayList<Boolean> _canceled = new java.util.ArrayList<Boolean>();
+    private int _canceledCount;
+
+    private final IThreadUtils _threadUtils;
+
+    public PointCloudLeafNodesLevelsBatchListener(IThreadUtils threadUtils)
+    {
+       _threadUtils = threadUtils;
+       _canceledCount = 0;
+    }
+
+    public void dispose()
+    {
+      final int size = _leafNodes.size();
+      for (int i = 0; i < size; i++)
+      {
+        PointCloudLeafNode leafNode = _leafNodes.get(i);
+        if (leafNode.isLoadingLevelBatch(this))
+        {
+          leafNode.setLoadingLevelBatch(null);
+        }
+        leafNode._release();
+      }
+    }
+
+    public final void add(PointCloudLeafNode leafNode, int level)
+    {
+      leafNode._retain();
+      _leafNodes.add(leafNode);
+      _levels.add(level);
+      _canceled.add(false);
+    }
+
+    // the download is shared by all the nodes of the batch, it's canceled only when every node has canceled its level
+    public final void cancel(PointCloudLeafNode leafNode, IDownloader downloader, long requestID)
+    {
+      final int size = _leafNodes.size();
+      for (int i = 0; i < size; i++)
+      {
+        if ((_leafNodes.get(i) == leafNode) && !_canceled.get(i))
+        {
+          _canceled.set(i, true);
+          _canceledCount++;
+          if ((_canceledCount == size) && (requestID >= 0))
+          {
+            downloader.cancelRequest(requestID);
+          }
+          return;
+        }
+      }
+    }
+
+    public final void onDownload(URL url, IByteBuffer buffer, boolean expired)
+    {
+      // every level comes framed by its size in bytes, -1 for the levels not found by the server
+      ByteBufferIterator it = new ByteBufferIterator(buffer);
+    
+      final int size = _leafNodes.size();
+      for (int i = 0; i < size; i++)
+      {
+        PointCloudLeafNode leafNode = _leafNodes.get(i);
+        final int level = _levels.get(i);
+    
+        // a node that canceled its level doesn't belong to the batch anymore, and can be loading a newer request
+        final boolean loading = leafNode.isLoadingLevelBatch(this);
+    
+        final int levelBufferSize = it.hasNext() ? it.nextInt32() : -1;
+        if (levelBufferSize < 0)
+        {
+          if (loading)
+          {
+            leafNode.onLevelBufferError(level);
+          }
+        }
+        else if (_canceled.get(i) || !loading)
+        {
+          it.skip(levelBufferSize);
+        }
+        else
+        {
+          byte[] data = new byte[levelBufferSize];
+          it.nextUInt8(levelBufferSize, data);
+          leafNode.setLoadingLevelBatch(null);
+          _threadUtils.invokeAsyncTask(new PointCloudLeafNodeLevelParserTask(leafNode, level, IFactory.instance().createByteBuffer(data, levelBufferSize)), true);
+        }
+      }
+    
+      if (buffer != null)
+         buffer.dispose();
+    }
+
+    public final void onError(URL url)
+    {
+      final int size = _leafNodes.size();
+      for (int i = 0; i < size; i++)
+      {
+        PointCloudLeafNode leafNode = _leafNodes.get(i);
+        if (leafNode.isLoadingLevelBatch(this))
+        {
+          leafNode.onLevelBufferError(_levels.get(i));
+        }
+      }
+    }
+
+    public final void onCancel(URL url)
+    {
+      final int size = _leafNodes.size();
+      for (int i = 0; i < size; i++)
+      {
+        PointCloudLeafNode leafNode = _leafNodes.get(i);
+        if (leafNode.isLoadingLevelBatch(this))
+        {
+          leafNode.onLevelBufferCancel(_levels.get(i));
+        }
+      }
+    }
+
+    public final void onCanceledDownload(URL url, IByteBuffer buffer, boolean expired)
+    {
+      // do nothing
+    }
+
+  }
+
+
   private static class PointCloudLeafNode extends PointCloudNode
   {
     private final int _levelsCount;
@@ -554,6 +714,23 @@ public class PointCloudsRenderer extends DefaultRenderer
     }
 
     private long _loadingLevelRequestID;
+    private PointCloudLeafNodesLevelsBatchListener _loadingLevelBatch;
+
+    private void cancelLoadingLevel(IDownloader downloader)
+    {
+      if (_loadingLevelBatch == null)
+      {
+        downloader.cancelRequest(_loadingLevelRequestID);
+      }
+      else
+      {
+        _loadingLevelBatch.cancel(this, downloader, _loadingLevelRequestID);
+        _loadingLevelBatch = null;
+        // the batch doesn't report to the nodes that left it
+        _loadingLevel = -1;
+      }
+      _loadingLevelRequestID = -1;
+    }
 
     private IFloatBuffer[] _levelsVerticesBuffers;
     private IFloatBuffer[] _levelsHeightsBuffers;
@@ -706,8 +883,7 @@ public class PointCloudsRenderer extends DefaultRenderer
     
       if ((_loadingLevel >= 0) && (_neededLevel < _loadingLevel) && (_loadingLevelRequestID >= 0))
       {
-        rc.getDownloader().cancelRequest(_loadingLevelRequestID);
-        _loadingLevelRequestID = -1;
+        cancelLoadingLevel(rc.getDownloader());
       }
       else
       {
@@ -717,7 +893,7 @@ public class PointCloudsRenderer extends DefaultRenderer
           {
             _loadingLevel = _currentLoadedLevel + 1;
     
-            _loadingLevelRequestID = pointCloud.requestBufferForLevel(rc, _id, _loadingLevel, new PointCloudLeafNodeLevelListener(this, _loadingLevel, rc.getThreadUtils()), true);
+            pointCloud.requestBufferForLevel(this, _loadingLevel);
           }
         }
         if ((_neededLevel < _currentLoadedLevel) && (_neededLevel > _preloadedLevel))
@@ -794,6 +970,7 @@ public class PointCloudsRenderer extends DefaultRenderer
       _firstPointsColorsBuffer = null;
       _loadingLevel = -1;
       _loadingLevelRequestID = -1;
+      _loadingLevelBatch = null;
       _currentLoadedLevel = calculateCurrentLoadedLevel();
       _preloadedLevel = _currentLoadedLevel;
       _levelsVerticesBuffers = new IFloatBuffer[_levelsCount];
@@ -833,8 +1010,7 @@ public class PointCloudsRenderer extends DefaultRenderer
       if (_loadingLevelRequestID >= 0)
       {
     //    ILogger::instance()->logInfo("Canceling level request");
-        rc.getDownloader().cancelRequest(_loadingLevelRequestID);
-        _loadingLevelRequestID = -1;
+        cancelLoadingLevel(rc.getDownloader());
       }
     
       if (_mesh != null)
@@ -850,8 +1026,7 @@ public class PointCloudsRenderer extends DefaultRenderer
         _loadingLevel = -1;
         if (_loadingLevelRequestID >= 0)
         {
-          rc.getDownloader().cancelRequest(_loadingLevelRequestID);
-          _loadingLevelRequestID = -1;
+          cancelLoadingLevel(rc.getDownloader());
         }
     
         for (int i = 0; i < _levelsCount; i++)
@@ -926,11 +1101,28 @@ public class PointCloudsRenderer extends DefaultRenderer
     {
       _loadingLevel = -1;
       _loadingLevelRequestID = -1;
+      _loadingLevelBatch = null;
     }
     public final void onLevelBufferCancel(int level)
     {
       _loadingLevel = -1;
       _loadingLevelRequestID = -1;
+      _loadingLevelBatch = null;
+    }
+
+    public final void setLoadingLevelRequestID(long requestID)
+    {
+      _loadingLevelRequestID = requestID;
+    }
+
+    public final void setLoadingLevelBatch(PointCloudLeafNodesLevelsBatchListener batch)
+    {
+      _loadingLevelBatch = batch;
+    }
+
+    public final boolean isLoadingLevelBatch(PointCloudLeafNodesLevelsBatchListener batch)
+    {
+      return (_loadingLevelBatch == batch);
     }
 
   }
@@ -1176,6 +1368,87 @@ public class PointCloudsRenderer extends DefaultRenderer
 
     private long _lastRenderedCount;
 
+    // level requests issued while rendering a frame, sent together by flushLevelRequests()
+    private java.util.ArrayList<PointCloudLeafNode> _pendingLevelRequestsNodes = new java.util.ArrayList<PointCloudLeafNode>();
+    private java.util.ArrayList<Integer> _pendingLevelRequestsLevels = new java.util.ArrayList<Integer>();
+
+    private void flushLevelRequests(G3MRenderContext rc)
+    {
+      final int pendingCount = _pendingLevelRequestsNodes.size();
+      if (pendingCount == 0)
+      {
+        return;
+      }
+    
+      IDownloader downloader = rc.getDownloader();
+    
+      final String planetType = rc.getPlanet().getType();
+      final String parameters = ("?planet=" + planetType + "&verticalExaggeration=" + IStringUtils.instance().toString(_verticalExaggeration) + "&deltaHeight=" + IStringUtils.instance().toString(_deltaHeight) + "&format=quantized");
+    
+      if (pendingCount == 1)
+      {
+        // a lonely level is requested by its own url, so the downloader can cache it
+        PointCloudLeafNode leafNode = _pendingLevelRequestsNodes.get(0);
+        final int level = _pendingLevelRequestsLevels.get(0);
+    
+        final URL url = new URL(_serverURL, _cloudName + "/" + leafNode._id + "/" + IStringUtils.instance().toString(level) + parameters);
+    
+        final long requestID = downloader.requestBuffer(url, _downloadPriority - level, _timeToCache, _readExpired, new PointCloudLeafNodeLevelListener(leafNode, level, rc.getThreadUtils()), true);
+        leafNode.setLoadingLevelRequestID(requestID);
+      }
+      else
+      {
+        final int maxBatchSize = 32;
+        for (int from = 0; from < pendingCount; from += maxBatchSize)
+        {
+          final int to = (from + maxBatchSize < pendingCount) ? (from + maxBatchSize) : pendingCount;
+    
+          PointCloudLeafNodesLevelsBatchListener listener = new PointCloudLeafNodesLevelsBatchListener(rc.getThreadUtils());
+    
+          IStringBuilder isb = IStringBuilder.newStringBuilder();
+          int minLevel = _pendingLevelRequestsLevels.get(from);
+          for (int i = from; i < to; i++)
+          {
+            PointCloudLeafNode leafNode = _pendingLevelRequestsNodes.get(i);
+            final int level = _pendingLevelRequestsLevels.get(i);
+            if (i > from)
+            {
+              isb.addString(",");
+            }
+            isb.addString(leafNode._id);
+            isb.addString(":");
+            isb.addInt(level);
+            if (level < minLevel)
+            {
+              minLevel = level;
+            }
+            listener.add(leafNode, level);
+            leafNode.setLoadingLevelBatch(listener);
+          }
+          final String levels = isb.getString();
+          if (isb != null)
+             isb.dispose();
+    
+          final URL url = new URL(_serverURL, _cloudName + "/_batch" + parameters + "&levels=" + levels);
+    
+          // a batch url is a one-off combination of levels, caching it would only fill the storage
+          final long requestID = downloader.requestBuffer(url, _downloadPriority - minLevel, TimeInterval.zero(), false, listener, true);
+    
+          for (int i = from; i < to; i++)
+          {
+            _pendingLevelRequestsNodes.get(i).setLoadingLevelRequestID(requestID);
+          }
+        }
+      }
+    
+      for (int i = 0; i < pendingCount; i++)
+      {
+        _pendingLevelRequestsNodes.get(i)._release();
+      }
+      _pendingLevelRequestsNodes.clear();
+      _pendingLevelRequestsLevels.clear();
+    }
+
     public PointCloud(URL serverURL, String cloudName, float verticalExaggeration, double deltaHeight, ColorPolicy colorPolicy, float pointSize, long downloadPriority, TimeInterval timeToCache, boolean readExpired, PointCloudMetadataListener metadataListener, boolean deleteListener, boolean verbose)
     {
        _serverURL = serverURL;
@@ -1211,6 +1484,12 @@ public class PointCloudsRenderer extends DefaultRenderer
       }
       if (_sector != null)
          _sector.dispose();
+    
+      final int pendingCount = _pendingLevelRequestsNodes.size();
+      for (int i = 0; i < pendingCount; i++)
+      {
+        _pendingLevelRequestsNodes.get(i)._release();
+      }
     }
 
     public final String getCloudName()
@@ -1302,19 +1581,16 @@ public class PointCloudsRenderer extends DefaultRenderer
           }
           _lastRenderedCount = renderedCount;
         }
+    
+        flushLevelRequests(rc);
       }
     }
 
-    public final long requestBufferForLevel(G3MRenderContext rc, String nodeID, int level, IBufferDownloadListener listener, boolean deleteListener)
+    public final void requestBufferForLevel(PointCloudLeafNode leafNode, int level)
     {
-    
-      final String planetType = rc.getPlanet().getType();
-    
-      final URL url = new URL(_serverURL, _cloudName + "/" + nodeID + "/" + IStringUtils.instance().toString(level) + "?planet=" + planetType + "&verticalExaggeration=" + IStringUtils.instance().toString(_verticalExaggeration) + "&deltaHeight=" + IStringUtils.instance().toString(_deltaHeight) + "&format=binary");
-    
-      //  ILogger::instance()->logInfo("Downloading metadata for \"%s\"", _cloudName.c_str());
-    
-      return rc.getDownloader().requestBuffer(url, _downloadPriority - level, _timeToCache, _readExpired, listener, deleteListener);
+      leafNode._retain();
+      _pendingLevelRequestsNodes.add(leafNode);
+      _pendingLevelRequestsLevels.add(level);
     }
 
   }
@@ -25,6 +25,8 @@ public abstract class RasterLayer extends Layer
 {
   private RasterLayerTileImageProvider _tileImageProvider;
 
+  private boolean _staleWhileRevalidate;
+
   protected LayerTilesRenderParameters _parameters;
 
   protected final TimeInterval _timeToCache;
@@ -37,6 +39,7 @@ public abstract class RasterLayer extends Layer
      _readExpired = readExpired;
      _parameters = parameters;
      _tileImageProvider = null;
+     _staleWhileRevalidate = false;
   }
 
   protected final TimeInterval getTimeToCache()
@@ -119,7 +122,7 @@ public abstract class RasterLayer extends Layer
   
     RasterLayer rasterThat = (RasterLayer) that;
   
-    return ((_timeToCache.milliseconds() == rasterThat._timeToCache.milliseconds()) && (_readExpired == rasterThat._readExpired));
+    return ((_timeToCache.milliseconds() == rasterThat._timeToCache.milliseconds()) && (_readExpired == rasterThat._readExpired) && (_staleWhileRevalidate == rasterThat._staleWhileRevalidate));
   }
 
   public final TileImageProvider createTileImageProvider(G3MRenderContext rc, LayerTilesRenderParameters layerTilesRenderParameters)
@@ -150,9 +153,27 @@ public abstract class RasterLayer extends Layer
     {
       ILogger.instance().logInfo("Downloading %s", url._path);
     }
+    if (_staleWhileRevalidate)
+    {
+      return downloader.requestStaleWhileRevalidateImage(url, tileTextureDownloadPriority, _timeToCache, listener, deleteListener, ""); // default tag
+    }
     return downloader.requestImage(url, tileTextureDownloadPriority, _timeToCache, _readExpired, listener, deleteListener);
   }
 
+  /**
+   When enabled, the expired images in the cache are shown at once while they are downloaded again
+   in background (see IDownloader::requestStaleWhileRevalidateImage), instead of honoring readExpired.
+   */
+  public final void setStaleWhileRevalidate(boolean staleWhileRevalidate)
+  {
+    _staleWhileRevalidate = staleWhileRevalidate;
+  }
+
+  public final boolean isStaleWhileRevalidate()
+  {
+    return _staleWhileRevalidate;
+  }
+
   public final java.util.ArrayList<URL> getDownloadURLs(Tile tile)
   {
     java.util.ArrayList<URL> result = new java.util.ArrayList<URL>();
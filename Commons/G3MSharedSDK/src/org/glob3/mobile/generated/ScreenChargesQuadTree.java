@@ -0,0 +1,314 @@
+package org.glob3.mobile.generated;
+/*
+ Barnes-Hut quadtree of electric charges in screen coordinates (primitive arrays, reused between frames).
+
+ The charges of a node far enough from the given position (node size / distance < threshold) are replaced by the
+ total charge of the node placed at its center of charge, so the forces over n charges cost O(n log n) instead of
+ O(n^2). A threshold of 0 visits every charge.
+ */
+public class ScreenChargesQuadTree
+{
+  private static final int LEAF_CAPACITY = 4;
+  private static final int MAX_DEPTH = 16;
+
+  private int _chargesCount;
+  private int _chargesCapacity;
+  private float[] _xs;
+  private float[] _ys;
+  private float[] _charges;
+  private int[] _indices; // charges indices, grouped by node
+  private int[] _positions; // position of every charge in _indices
+
+  private int _nodesCount;
+  private int _nodesCapacity;
+  private float[] _nodesFloats; // 4 per node: center of charge x & y, total charge, size
+  private int[] _nodesInts; // 3 per node: first child (-1 for leaves), from & to (in _indices)
+
+  private float _forceX;
+  private float _forceY;
+
+  private int addNodes(int count)
+  {
+    final int first = _nodesCount;
+    _nodesCount += count;
+    if (_nodesCount > _nodesCapacity)
+    {
+      final int newCapacity = _nodesCount * 2;
+  
+      float[] newNodesFloats = new float[newCapacity * 4];
+      int[] newNodesInts = new int[newCapacity * 3];
+      for (int i = 0; i < first * 4; i++)
+      {
+        newNodesFloats[i] = _nodesFloats[i];
+      }
+      for (int i = 0; i < first * 3; i++)
+      {
+        newNodesInts[i] = _nodesInts[i];
+      }
+      _nodesFloats = null;
+      _nodesInts = null;
+  
+      _nodesFloats = newNodesFloats;
+      _nodesInts = newNodesInts;
+      _nodesCapacity = newCapacity;
+    }
+    return first;
+  }
+
+  private int partition(int from, int to, boolean byX, float value)
+  {
+    // moves the charges with coordinate < value to the start of the range, answer the first index of the rest
+    final float[] coordinates = byX ? _xs : _ys;
+    int i = from;
+    int j = to - 1;
+    while (i <= j)
+    {
+      if (coordinates[_indices[i]] < value)
+      {
+        i++;
+      }
+      else
+      {
+        final int swap = _indices[i];
+        _indices[i] = _indices[j];
+        _indices[j] = swap;
+        j--;
+      }
+    }
+    return i;
+  }
+
+  private void buildNode(int node, int from, int to, float minX, float minY, float size, int depth)
+  {
+    float totalCharge = 0F;
+    float sumX = 0F;
+    float sumY = 0F;
+    for (int i = from; i < to; i++)
+    {
+      final int index = _indices[i];
+      final float charge = _charges[index];
+      totalCharge += charge;
+      sumX += _xs[index] * charge;
+      sumY += _ys[index] * charge;
+    }
+  
+    final int floatsCursor = node * 4;
+    if (totalCharge != 0)
+    {
+      _nodesFloats[floatsCursor] = sumX / totalCharge;
+      _nodesFloats[floatsCursor + 1] = sumY / totalCharge;
+    }
+    else
+    {
+      _nodesFloats[floatsCursor] = minX + (size / 2);
+      _nodesFloats[floatsCursor + 1] = minY + (size / 2);
+    }
+    _nodesFloats[floatsCursor + 2] = totalCharge;
+    _nodesFloats[floatsCursor + 3] = size;
+  
+    final int intsCursor = node * 3;
+    _nodesInts[intsCursor + 1] = from;
+    _nodesInts[intsCursor + 2] = to;
+  
+    if (((to - from) <= LEAF_CAPACITY) || (depth >= MAX_DEPTH))
+    {
+      _nodesInts[intsCursor] = -1;
+      return;
+    }
+  
+    final int firstChild = addNodes(4);
+    _nodesInts[intsCursor] = firstChild;
+  
+    final float halfSize = size / 2;
+    final float midX = minX + halfSize;
+    final float midY = minY + halfSize;
+  
+    final int splitY = partition(from, to, false, midY);
+    final int splitX1 = partition(from, splitY, true, midX);
+    final int splitX2 = partition(splitY, to, true, midX);
+  
+    buildNode(firstChild, from, splitX1, minX, minY, halfSize, depth + 1);
+    buildNode(firstChild + 1, splitX1, splitY, midX, minY, halfSize, depth + 1);
+    buildNode(firstChild + 2, splitY, splitX2, minX, midY, halfSize, depth + 1);
+    buildNode(firstChild + 3, splitX2, to, midX, midY, halfSize, depth + 1);
+  }
+
+  private void accumulateForce(int node, float x, float y, int excludedPosition, float squaredThreshold)
+  {
+    final int intsCursor = node * 3;
+    final int firstChild = _nodesInts[intsCursor];
+    final int from = _nodesInts[intsCursor + 1];
+    final int to = _nodesInts[intsCursor + 2];
+    if (from == to)
+    {
+      return;
+    }
+  
+    if (firstChild < 0)
+    {
+      for (int i = from; i < to; i++)
+      {
+        if (i != excludedPosition)
+        {
+          final int index = _indices[i];
+          final float dx = x - _xs[index];
+          final float dy = y - _ys[index];
+          final float distance = IMathUtils.instance().sqrt(dx *dx + dy *dy) + 0.001f;
+          final float strength = _charges[index] / (distance * distance * distance);
+          _forceX += dx * strength;
+          _forceY += dy * strength;
+        }
+      }
+      return;
+    }
+  
+    // the excluded charge is part of the node total charge, so the nodes containing it are always opened
+    if ((excludedPosition < from) || (excludedPosition >= to))
+    {
+      final int floatsCursor = node * 4;
+      final float dx = x - _nodesFloats[floatsCursor];
+      final float dy = y - _nodesFloats[floatsCursor + 1];
+      final float squaredDistance = dx *dx + dy *dy;
+      final float size = _nodesFloats[floatsCursor + 3];
+      if ((size * size) < (squaredThreshold * squaredDistance))
+      {
+        final float distance = IMathUtils.instance().sqrt(squaredDistance) + 0.001f;
+        final float strength = _nodesFloats[floatsCursor + 2] / (distance * distance * distance);
+        _forceX += dx * strength;
+        _forceY += dy * strength;
+        return;
+      }
+    }
+  
+    for (int i = 0; i < 4; i++)
+    {
+      accumulateForce(firstChild + i, x, y, excludedPosition, squaredThreshold);
+    }
+  }
+
+  public ScreenChargesQuadTree()
+  {
+     _chargesCount = 0;
+     _chargesCapacity = 0;
+     _xs = null;
+     _ys = null;
+     _charges = null;
+     _indices = null;
+     _positions = null;
+     _nodesCount = 0;
+     _nodesCapacity = 0;
+     _nodesFloats = null;
+     _nodesInts = null;
+     _forceX = 0F;
+     _forceY = 0F;
+  }
+
+  public void dispose()
+  {
+    _xs = null;
+    _ys = null;
+    _charges = null;
+    _indices = null;
+    _positions = null;
+  
+    _nodesFloats = null;
+    _nodesInts = null;
+  }
+
+  public final void reset(int chargesCount)
+  {
+    if (chargesCount > _chargesCapacity)
+    {
+      _xs = null;
+      _ys = null;
+      _charges = null;
+      _indices = null;
+      _positions = null;
+  
+      _chargesCapacity = chargesCount * 2;
+      _xs = new float[_chargesCapacity];
+      _ys = new float[_chargesCapacity];
+      _charges = new float[_chargesCapacity];
+      _indices = new int[_chargesCapacity];
+      _positions = new int[_chargesCapacity];
+    }
+    _chargesCount = chargesCount;
+    _nodesCount = 0;
+  }
+
+  public final void setCharge(int index, float x, float y, float charge)
+  {
+    _xs[index] = x;
+    _ys[index] = y;
+    _charges[index] = charge;
+  }
+
+  public final void build()
+  {
+    _nodesCount = 0;
+    if (_chargesCount == 0)
+    {
+      return;
+    }
+  
+    float minX = _xs[0];
+    float minY = _ys[0];
+    float maxX = minX;
+    float maxY = minY;
+    for (int i = 0; i < _chargesCount; i++)
+    {
+      final float x = _xs[i];
+      final float y = _ys[i];
+      if (x < minX)
+      {
+         minX = x;
+      }
+      if (y < minY)
+      {
+         minY = y;
+      }
+      if (x > maxX)
+      {
+         maxX = x;
+      }
+      if (y > maxY)
+      {
+         maxY = y;
+      }
+      _indices[i] = i;
+    }
+  
+    final float width = maxX - minX;
+    final float height = maxY - minY;
+    final float size = (width > height) ? width : height;
+  
+    buildNode(addNodes(1), 0, _chargesCount, minX, minY, size, 0);
+  
+    for (int i = 0; i < _chargesCount; i++)
+    {
+      _positions[_indices[i]] = i;
+    }
+  }
+
+  // the force (for an unit charge) at the given position, ignoring the charge excludedIndex (-1 for none)
+  public final void computeForce(float x, float y, int excludedIndex, float threshold)
+  {
+    _forceX = 0F;
+    _forceY = 0F;
+    if (_nodesCount > 0)
+    {
+      final int excludedPosition = (excludedIndex < 0) ? -1 : _positions[excludedIndex];
+      accumulateForce(0, x, y, excludedPosition, threshold * threshold);
+    }
+  }
+
+  public final float getForceX()
+  {
+     return _forceX;
+  }
+  public final float getForceY()
+  {
+     return _forceY;
+  }
+
+}
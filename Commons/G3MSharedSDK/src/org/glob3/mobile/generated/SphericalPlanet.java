@@ -35,6 +35,14 @@ public class SphericalPlanet extends Planet
   private double _angleBetweenInitialPoints;
   private boolean _validSingleDrag;
 
+  private void putCartesian(double nX, double nY, double nZ, double height, double centerX, double centerY, double centerZ, float[] result, int index)
+  {
+    final double K = _sphere._radius + height;
+    result[index] = (float)((nX * K) - centerX);
+    result[index + 1] = (float)((nY * K) - centerY);
+    result[index + 2] = (float)((nZ * K) - centerZ);
+  }
+
 
   public static Planet createEarth()
   {
@@ -186,6 +194,51 @@ public class SphericalPlanet extends Planet
     toCartesian(geodetic._latitude, geodetic._longitude, height, result);
   }
 
+  public final void toCartesian(double[] latitudesInRadians, double[] longitudesInRadians, double[] heights, int count, double centerX, double centerY, double centerZ, float[] result, int resultIndex)
+  {
+    int index = resultIndex;
+    for (int i = 0; i < count; i++)
+    {
+      final double latitude = latitudesInRadians[i];
+      final double longitude = longitudesInRadians[i];
+      final double cosLatitude = Math.cos(latitude);
+  
+      putCartesian(cosLatitude * Math.cos(longitude), cosLatitude * Math.sin(longitude), Math.sin(latitude), (heights == null) ? 0 : heights[i], centerX, centerY, centerZ, result, index);
+      index += 3;
+    }
+  }
+
+  public final void toCartesianGrid(double[] rowsLatitudesInRadians, int rows, double[] columnsLongitudesInRadians, int columns, double[] heights, double centerX, double centerY, double centerZ, float[] result, int resultIndex)
+  {
+    double[] cosLongitudes = new double[columns];
+    double[] sinLongitudes = new double[columns];
+    for (int column = 0; column < columns; column++)
+    {
+      final double longitude = columnsLongitudesInRadians[column];
+      cosLongitudes[column] = Math.cos(longitude);
+      sinLongitudes[column] = Math.sin(longitude);
+    }
+  
+    int index = resultIndex;
+    int heightIndex = 0;
+    for (int row = 0; row < rows; row++)
+    {
+      final double latitude = rowsLatitudesInRadians[row];
+      final double cosLatitude = Math.cos(latitude);
+      final double sinLatitude = Math.sin(latitude);
+  
+      for (int column = 0; column < columns; column++)
+      {
+        putCartesian(cosLatitude * cosLongitudes[column], cosLatitude * sinLongitudes[column], sinLatitude, (heights == null) ? 0 : heights[heightIndex], centerX, centerY, centerZ, result, index);
+        heightIndex++;
+        index += 3;
+      }
+    }
+  
+    cosLongitudes = null;
+    sinLongitudes = null;
+  }
+
   public final Geodetic2D toGeodetic2D(Vector3D position)
   {
     final Vector3D n = geodeticSurfaceNormal(position);
@@ -6,11 +6,20 @@ public class TextureHolder
 
   public int _referenceCounter;
 
+  public final long _sizeInBytes;
+
+  // links in the list of released textures of the TexturesHandler
+  public TextureHolder _previousUnused;
+  public TextureHolder _nextUnused;
+
   public TextureHolder(TextureSpec textureSpec)
   {
      _referenceCounter = 1;
      _textureSpec = textureSpec;
      _glTextureID = null;
+     _sizeInBytes = textureSpec.getSizeInBytes();
+     _previousUnused = null;
+     _nextUnused = null;
 
   }
 
@@ -66,23 +66,42 @@ public class TextureSpec
     return ((_id.equals(that._id)) && (_width == that._width) && (_height == that._height) && (_generateMipmap == that._generateMipmap) && (_wrapS == that._wrapS) && (_wrapT == that._wrapT));
   }
 
-  //  bool lowerThan(const TextureSpec& that) const {
-  //    if (_id < that._id) {
-  //      return true;
-  //    }
-  //    else if (_id > that._id) {
-  //      return false;
-  //    }
-  //
-  //    if (_width < that._width) {
-  //      return true;
-  //    }
-  //    else if (_width > that._width) {
-  //      return false;
-  //    }
-  //
-  //    return (_height < that._height);
-  //  }
+  public final boolean lowerThan(TextureSpec that)
+  {
+    if (_id.compareTo(that._id) < 0)
+    {
+      return true;
+    }
+    else if (_id.compareTo(that._id) > 0)
+    {
+      return false;
+    }
+
+    if (_width != that._width)
+    {
+      return (_width < that._width);
+    }
+    if (_height != that._height)
+    {
+      return (_height < that._height);
+    }
+    if (_generateMipmap != that._generateMipmap)
+    {
+      return !_generateMipmap;
+    }
+    if (_wrapS != that._wrapS)
+    {
+      return (_wrapS < that._wrapS);
+    }
+    return (_wrapT < that._wrapT);
+  }
+
+  // estimated GPU memory, 4 bytes per texel plus a third for the mipmaps
+  public final long getSizeInBytes()
+  {
+    final long size = (long) _width * _height * 4;
+    return _generateMipmap ? (size * 4 / 3) : size;
+  }
 
   public final String description()
   {
@@ -104,12 +123,6 @@ public class TextureSpec
     return description();
   }
 
-  ///#ifdef C_CODE
-  //  bool operator<(const TextureSpec& that) const {
-  //    return lowerThan(that);
-  //  }
-  ///#endif
-
   @Override
   public int hashCode() {
     final int prime = 31;
@@ -1,43 +1,201 @@
 package org.glob3.mobile.generated;
 public class TexturesHandler
 {
-  private java.util.ArrayList<TextureHolder> _textureHolders = new java.util.ArrayList<TextureHolder>();
+  private java.util.HashMap<TextureSpec, TextureHolder> _holdersBySpec = new java.util.HashMap<TextureSpec, TextureHolder>();
+  private java.util.HashMap<IGLTextureID, TextureHolder> _holdersByID = new java.util.HashMap<IGLTextureID, TextureHolder>();
+
+  // the released textures are kept (from the least to the most recently released) until the budget is exceeded
+  private TextureHolder _unusedHead;
+  private TextureHolder _unusedTail;
+
+  private long _texturesMemoryBudget;
+  private long _texturesSizeInBytes;
+
+  private int _hits;
+  private int _uploads;
+  private int _evictions;
+  private int _lastFrameHits;
+  private int _lastFrameUploads;
+  private int _lastFrameEvictions;
 
   private final GL _gl;
   private final boolean _verbose;
 
   private IGLTextureID getGLTextureIDIfAvailable(TextureSpec textureSpec)
   {
-    final int _textureHoldersSize = _textureHolders.size();
-    for (int i = 0; i < _textureHoldersSize; i++)
+    final TextureHolder holder = _holdersBySpec.get(textureSpec);
+    if (holder == null) {
+      return null;
+    }
+  
+    if (!holder.isRetained())
     {
-      TextureHolder holder = _textureHolders.get(i);
-      if (holder.hasSpec(textureSpec))
-      {
-        holder.retain();
+      removeUnused(holder);
+    }
+    holder.retain();
+    _hits++;
   
-        return holder._glTextureID;
-      }
+    return holder._glTextureID;
+  }
+
+  private void addUnused(TextureHolder holder)
+  {
+    holder._previousUnused = _unusedTail;
+    holder._nextUnused = null;
+    if (_unusedTail == null)
+    {
+      _unusedHead = holder;
+    }
+    else
+    {
+      _unusedTail._nextUnused = holder;
+    }
+    _unusedTail = holder;
+  }
+  private void removeUnused(TextureHolder holder)
+  {
+    if (holder._previousUnused == null)
+    {
+      _unusedHead = holder._nextUnused;
+    }
+    else
+    {
+      holder._previousUnused._nextUnused = holder._nextUnused;
+    }
+    if (holder._nextUnused == null)
+    {
+      _unusedTail = holder._previousUnused;
+    }
+    else
+    {
+      holder._nextUnused._previousUnused = holder._previousUnused;
     }
+    holder._previousUnused = null;
+    holder._nextUnused = null;
+  }
+  private void deleteHolder(TextureHolder holder)
+  {
+    _holdersBySpec.remove(holder._textureSpec);
+    _holdersByID.remove(holder._glTextureID);
+    _texturesSizeInBytes -= holder._sizeInBytes;
+  
+    _gl.deleteTexture(holder._glTextureID);
   
-    return null;
+    if (holder != null)
+       holder.dispose();
+  }
+  private void evictUnused()
+  {
+    while ((_texturesSizeInBytes > _texturesMemoryBudget) && (_unusedHead != null))
+    {
+      TextureHolder holder = _unusedHead;
+      removeUnused(holder);
+  
+      if (_verbose)
+      {
+        ILogger.instance().logInfo("Deleted texture \"%s\" from GPU, texID=%s", holder._textureSpec.description(), holder._glTextureID.description());
+      }
+  
+      deleteHolder(holder);
+      _evictions++;
+    }
   }
 
+  public static final long DEFAULT_TEXTURES_MEMORY_BUDGET = 64 * 1024 * 1024;
 
   public TexturesHandler(GL gl, boolean verbose)
   {
+     this(gl, verbose, DEFAULT_TEXTURES_MEMORY_BUDGET);
+  }
+  public TexturesHandler(GL gl, boolean verbose, long texturesMemoryBudget)
+  {
+     _unusedHead = null;
+     _unusedTail = null;
+     _texturesMemoryBudget = texturesMemoryBudget;
+     _texturesSizeInBytes = 0;
+     _hits = 0;
+     _uploads = 0;
+     _evictions = 0;
+     _lastFrameHits = 0;
+     _lastFrameUploads = 0;
+     _lastFrameEvictions = 0;
      _gl = gl;
      _verbose = verbose;
   }
 
   public void dispose()
   {
-    if (_textureHolders.size() > 0)
+    // the GL was already deleted, the released textures die with the GL context
+    boolean retainedTextures = false;
+    for (final TextureHolder holder : _holdersBySpec.values()) {
+      if (holder.isRetained()) {
+        retainedTextures = true;
+      }
+      holder.dispose();
+    }
+    _holdersBySpec.clear();
+    _holdersByID.clear();
+  
+    if (retainedTextures)
     {
       ILogger.instance().logWarning("WARNING: The TexturesHandler is destroyed, but the inner textures were not released.\n");
     }
   }
 
+  /**
+   Change the GPU memory (in bytes) the textures can use before the released textures are deleted.
+   The retained textures are never deleted, a budget of zero deletes the textures as soon as they are released.
+
+   Default value is 64MB
+   */
+  public final void setTexturesMemoryBudget(long texturesMemoryBudget)
+  {
+    _texturesMemoryBudget = texturesMemoryBudget;
+    evictUnused();
+  }
+
+  public final long getTexturesMemoryBudget()
+  {
+    return _texturesMemoryBudget;
+  }
+
+  public final long getTexturesSizeInBytes()
+  {
+    return _texturesSizeInBytes;
+  }
+
+  // called by G3MWidget at the beginning of every frame, the counters of the frame just finished are kept
+  public final void startFrame()
+  {
+    if (_verbose && ((_hits > 0) || (_uploads > 0) || (_evictions > 0)))
+    {
+      ILogger.instance().logInfo("Textures: hits=%d, uploads=%d, evictions=%d, size=%dKB", _hits, _uploads, _evictions, (int)(_texturesSizeInBytes / 1024));
+    }
+  
+    _lastFrameHits = _hits;
+    _lastFrameUploads = _uploads;
+    _lastFrameEvictions = _evictions;
+  
+    _hits = 0;
+    _uploads = 0;
+    _evictions = 0;
+  }
+
+  public final int getLastFrameHits()
+  {
+    return _lastFrameHits;
+  }
+
+  public final int getLastFrameUploads()
+  {
+    return _lastFrameUploads;
+  }
+
+  public final int getLastFrameEvictions()
+  {
+    return _lastFrameEvictions;
+  }
+
   public final TextureIDReference getTextureIDReference(IImage image, int format, String name, boolean generateMipmap, int wrapS, int wrapT)
   {
   
@@ -57,7 +215,13 @@ public class TexturesHandler
       ILogger.instance().logInfo("Uploaded texture \"%s\" to GPU with texID=%s", textureSpec.description(), holder._glTextureID.description());
     }
   
-    _textureHolders.add(holder);
+    _holdersBySpec.put(textureSpec, holder);
+    _holdersByID.put(holder._glTextureID, holder);
+    _texturesSizeInBytes += holder._sizeInBytes;
+    _uploads++;
+  
+    // the new texture can exceed the budget
+    evictUnused();
   
     return new TextureIDReference(holder._glTextureID, image.isPremultiplied(), this);
   }
@@ -71,26 +235,17 @@ public class TexturesHandler
       return;
     }
   
-    for (int i = 0; i < _textureHolders.size(); i++)
-    {
-      TextureHolder holder = _textureHolders.get(i);
-  
-      if (holder._glTextureID.isEquals(glTextureID))
-      {
-        holder.release();
-  
-        if (!holder.isRetained())
-        {
-          _gl.deleteTexture(holder._glTextureID);
-  
-          _textureHolders.remove(i);
+    final TextureHolder holder = _holdersByID.get(glTextureID);
+    if (holder == null) {
+      return;
+    }
   
-          if (holder != null)
-             holder.dispose();
-        }
+    holder.release();
   
-        return;
-      }
+    if (!holder.isRetained())
+    {
+      addUnused(holder);
+      evictUnused();
     }
   }
   public final void retainGLTextureID(IGLTextureID glTextureID)
@@ -100,18 +255,16 @@ public class TexturesHandler
       return;
     }
   
-    for (int i = 0; i < _textureHolders.size(); i++)
-    {
-      TextureHolder holder = _textureHolders.get(i);
-  
-      if (holder._glTextureID.isEquals(glTextureID))
-      {
-        holder.retain();
-  
-        return;
-      }
+    final TextureHolder holder = _holdersByID.get(glTextureID);
+    if (holder == null) {
+      ILogger.instance().logInfo("break (point) on me 6\n");
+      return;
     }
   
-    ILogger.instance().logInfo("break (point) on me 6\n");
+    if (!holder.isRetained())
+    {
+      removeUnused(holder);
+    }
+    holder.retain();
   }
 }
@@ -225,6 +225,191 @@ public class Tile
   }
 
 
+  private static class TessellatorTask extends GAsyncTask
+  {
+    private Tile _tile;
+    private TileTessellatorMeshBuilder _builder;
+
+    // the elevation data used by the builder, owned by the task if the tile discards it while the task is running
+    private ElevationData _elevationData;
+    private boolean _ownsElevationData;
+
+    // the task counts as in flight (even if cancelled) until it finishes or is deleted
+    private final PlanetRenderer _planetRenderer;
+    private boolean _finished;
+
+    private void finish()
+    {
+      if (!_finished)
+      {
+        _finished = true;
+        _planetRenderer.onTessellationFinished();
+      }
+    }
+
+    public TessellatorTask(Tile tile, TileTessellatorMeshBuilder builder, ElevationData elevationData, PlanetRenderer planetRenderer)
+    {
+       _tile = tile;
+       _builder = builder;
+       _elevationData = elevationData;
+       _ownsElevationData = false;
+       _planetRenderer = planetRenderer;
+       _finished = false;
+    }
+
+    public void dispose()
+    {
+      finish();
+      if (_builder != null)
+         _builder.dispose();
+      if (_ownsElevationData)
+      {
+        if (_elevationData != null)
+           _elevationData.dispose();
+      }
+      super.dispose();
+    }
+
+    public final void cancel()
+    {
+      _tile = null;
+    }
+
+    public final boolean takeElevationData(ElevationData elevationData)
+    {
+      if ((elevationData == null) || (elevationData != _elevationData))
+      {
+        return false;
+      }
+      _ownsElevationData = true;
+      return true;
+    }
+
+    public final void runInBackground(G3MContext context)
+    {
+      _builder.build();
+    }
+
+    public final void onPostExecute(G3MContext context)
+    {
+      finish();
+      if (_tile != null)
+      {
+        _tile.onTessellationFinished(_builder, _elevationData);
+      }
+    }
+
+  }
+
+  private TessellatorTask _tessellatorTask;
+
+  private boolean startAsynchronousTessellation(G3MRenderContext rc, PlanetRenderContext prc)
+  {
+    if (_tessellatorTask != null)
+    {
+      // if the elevation data changed meanwhile, a new tessellation will start when the current one finishes
+      return true;
+    }
+  
+    if (!_planetRenderer.isAsynchronousTessellation())
+    {
+      return false;
+    }
+  
+    if (!_planetRenderer.canStartTessellation())
+    {
+      // retry in the next frames
+      return true;
+    }
+  
+    TileTessellatorMeshBuilder builder = prc._tessellator.createTileMeshBuilder(rc, prc, this, _elevationData, _grid);
+    if (builder == null)
+    {
+      return false;
+    }
+  
+    _mustActualizeMeshDueToNewElevationData = false;
+  
+    _tessellatorTask = new TessellatorTask(this, builder, _elevationData, _planetRenderer);
+    _planetRenderer.onTessellationStarted();
+    rc.getThreadUtils().invokeAsyncTask(_tessellatorTask, true);
+  
+    return true;
+  }
+
+  private void onTessellationFinished(TileTessellatorMeshBuilder builder, ElevationData elevationData)
+  {
+    _tessellatorTask = null;
+  
+    _planetRenderer.onTileHasChangedMesh(this);
+  
+    if (_debugMesh != null)
+    {
+      if (_debugMesh != null)
+         _debugMesh.dispose();
+      _debugMesh = null;
+    }
+  
+    setTessellatorMesh(builder.publish(this, _tileTessellatorMeshData));
+  
+    //Notifying when the tile is first created and every time the elevation data changes.
+    //The elevation data of the mesh, the tile can have a newer one that will be tessellated next
+    _planetRenderer.sectorElevationChanged(elevationData);
+  }
+
+  private void cancelTessellation()
+  {
+    if (_tessellatorTask != null)
+    {
+      // the task keeps counting as in flight until it finishes, it will be deleted by the IThreadUtils
+      _tessellatorTask.cancel();
+      _tessellatorTask = null;
+    }
+  }
+
+  private void setTessellatorMesh(Mesh tessellatorMesh)
+  {
+    MeshHolder meshHolder = (MeshHolder) _tessellatorMesh;
+    if (meshHolder == null)
+    {
+      meshHolder = new MeshHolder(tessellatorMesh);
+      _tessellatorMesh = meshHolder;
+    }
+    else
+    {
+      meshHolder.setMesh(tessellatorMesh);
+    }
+  }
+
+  private void discardElevationData(ElevationData elevationData)
+  {
+    // the elevation data can be in use by a tessellation running in background
+    if ((_tessellatorTask == null) || !_tessellatorTask.takeElevationData(elevationData))
+    {
+      if (elevationData != null)
+         elevationData.dispose();
+    }
+  }
+
+  private boolean areSubtilesTessellatorMeshesReady(G3MRenderContext rc, PlanetRenderContext prc)
+  {
+    java.util.ArrayList<Tile> subTiles = getSubTiles();
+  
+    boolean ready = true;
+    final int subTilesSize = subTiles.size();
+    for (int i = 0; i < subTilesSize; i++)
+    {
+      Tile subTile = subTiles.get(i);
+      // getTessellatorMesh() starts the tessellation of the subtile (if needed)
+      if (subTile.getTessellatorMesh(rc, prc) == null)
+      {
+        ready = false;
+      }
+    }
+    return ready;
+  }
+
+
   public final Sector _sector ;
   public final boolean _mercator;
   public final int _level;
@@ -263,6 +448,7 @@ public class Tile
      _id = createTileID(level, row, column);
      _data = null;
      _dataSize = 0;
+     _tessellatorTask = null;
   }
 
   public void dispose()
@@ -281,8 +467,9 @@ public class Tile
     if (_texturizedMesh != null)
        _texturizedMesh.dispose();
   
-    if (_elevationData != null)
-       _elevationData.dispose();
+    discardElevationData(_elevationData);
+  
+    cancelTessellation();
   
     if (_grid != null)
     {
@@ -366,6 +553,13 @@ public class Tile
   
       rendered = ((toVisitInNextIteration == null) || prc._tileLODTester.meetsRenderCriteria(rc, prc, this) || (prc._tilesRenderParameters._incrementalTileQuality && !_textureSolved));
   
+      // while the subtiles meshes are being created in background, this tile is rendered in their place
+      final boolean waitingForSubtilesMeshes = (!rendered && _planetRenderer.isAsynchronousTessellation() && !areSubtilesTessellatorMeshesReady(rc, prc));
+      if (waitingForSubtilesMeshes)
+      {
+        rendered = true;
+      }
+  
       if (rendered)
       {
         if (prc._renderTileMeshes)
@@ -377,7 +571,10 @@ public class Tile
           debugRender(rc, prc, parentState);
         }
   
-        prune(prc._texturizer, prc._elevationDataProvider);
+        if (!waitingForSubtilesMeshes)
+        {
+          prune(prc._texturizer, prc._elevationDataProvider);
+        }
         //TODO: AVISAR CAMBIO DE TERRENO
       }
       else
@@ -668,8 +865,7 @@ public class Tile
   
       if (_elevationData != null)
       {
-        if (_elevationData != null)
-           _elevationData.dispose();
+        discardElevationData(_elevationData);
       }
   
       _elevationData = ed;
@@ -868,7 +1064,7 @@ public class Tile
       }
     }
   
-    if ((_tessellatorMesh == null) || _mustActualizeMeshDueToNewElevationData)
+    if (((_tessellatorMesh == null) || _mustActualizeMeshDueToNewElevationData) && !startAsynchronousTessellation(rc, prc))
     {
       _mustActualizeMeshDueToNewElevationData = false;
   
@@ -892,16 +1088,7 @@ public class Tile
   //    else {
       Mesh tessellatorMesh = prc._tessellator.createTileMesh(rc, prc, this, _elevationData, _grid, _tileTessellatorMeshData);
   
-      MeshHolder meshHolder = (MeshHolder) _tessellatorMesh;
-      if (meshHolder == null)
-      {
-        meshHolder = new MeshHolder(tessellatorMesh);
-        _tessellatorMesh = meshHolder;
-      }
-      else
-      {
-        meshHolder.setMesh(tessellatorMesh);
-      }
+      setTessellatorMesh(tessellatorMesh);
   //    }
   
       //Notifying when the tile is first created and every time the elevation data changes
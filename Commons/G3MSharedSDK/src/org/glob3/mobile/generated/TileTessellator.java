@@ -7,6 +7,17 @@ public abstract class TileTessellator
 
   public abstract Mesh createTileMesh(G3MRenderContext rc, PlanetRenderContext prc, Tile tile, ElevationData elevationData, DEMGrid grid, TileTessellatorMeshData tileTessellatorMeshData);
 
+  /**
+   Answer a builder to create the mesh of the tile in a background thread, or NULL if the mesh
+   has to be created (with createTileMesh) in the renderer thread.
+
+   The elevationData has to be kept alive until the builder is deleted.
+   */
+  public TileTessellatorMeshBuilder createTileMeshBuilder(G3MRenderContext rc, PlanetRenderContext prc, Tile tile, ElevationData elevationData, DEMGrid grid)
+  {
+    return null;
+  }
+
   public abstract Vector2S getTileMeshResolution(G3MRenderContext rc, PlanetRenderContext prc, Tile tile);
 
   public abstract Mesh createTileDebugMesh(G3MRenderContext rc, PlanetRenderContext prc, Tile tile);
@@ -0,0 +1,12 @@
+package org.glob3.mobile.generated;
+public interface TileTessellatorMeshBuilder
+{
+  void dispose();
+
+  // invoked in a background thread, can't access the tile nor the tessellator
+  void build();
+
+  // invoked in the renderer thread after build(), the caller owns the returned mesh
+  Mesh publish(Tile tile, TileTessellatorMeshData tileTessellatorMeshData);
+
+}
@@ -32,12 +32,14 @@ public class TiledVectorLayer extends VectorLayer
   private final Sector _dataSector ;
   private final TimeInterval _timeToCache;
   private final boolean _readExpired;
+  private long _geoObjectsCacheBudget;
+  private boolean _staleWhileRevalidate;
 
   private IMathUtils   _mu;
   private IStringUtils _su;
   private TiledVectorLayerTileImageProvider _tileImageProvider;
 
-  private TiledVectorLayer(GEORasterSymbolizer symbolizer, String urlTemplate, Sector dataSector, java.util.ArrayList<LayerTilesRenderParameters> parametersVector, TimeInterval timeToCache, boolean readExpired, float transparency, LayerCondition condition, java.util.ArrayList<Info> layerInfo)
+  private TiledVectorLayer(GEORasterSymbolizer symbolizer, String urlTemplate, Sector dataSector, java.util.ArrayList<LayerTilesRenderParameters> parametersVector, TimeInterval timeToCache, boolean readExpired, float transparency, LayerCondition condition, java.util.ArrayList<Info> layerInfo, long geoObjectsCacheBudget)
   {
      super(parametersVector, transparency, condition, layerInfo);
      _symbolizer = symbolizer;
@@ -45,6 +47,8 @@ public class TiledVectorLayer extends VectorLayer
      _dataSector = new Sector(dataSector);
      _timeToCache = timeToCache;
      _readExpired = readExpired;
+     _geoObjectsCacheBudget = geoObjectsCacheBudget;
+     _staleWhileRevalidate = false;
      _tileImageProvider = null;
      _su = null;
      _mu = null;
@@ -118,6 +122,9 @@ public class TiledVectorLayer extends VectorLayer
 
 
 
+  // measured in coordinates of the cached GEOObjects
+  public static final long DEFAULT_GEO_OBJECTS_CACHE_BUDGET = 256 * 1024;
+
   public static TiledVectorLayer newMercator(GEORasterSymbolizer symbolizer, String urlTemplate, Sector dataSector, int firstLevel, int maxLevel, TimeInterval timeToCache, boolean readExpired, float transparency, LayerCondition condition)
   {
      return newMercator(symbolizer, urlTemplate, dataSector, firstLevel, maxLevel, timeToCache, readExpired, transparency, condition, new java.util.ArrayList<Info>());
@@ -142,7 +149,7 @@ public class TiledVectorLayer extends VectorLayer
   {
     final java.util.ArrayList<LayerTilesRenderParameters> parametersVector = new java.util.ArrayList<LayerTilesRenderParameters>();
     parametersVector.add(LayerTilesRenderParameters.createDefaultMercator(firstLevel, maxLevel));
-    return new TiledVectorLayer(symbolizer, urlTemplate, dataSector, parametersVector, timeToCache, readExpired, transparency, condition, layerInfo);
+    return new TiledVectorLayer(symbolizer, urlTemplate, dataSector, parametersVector, timeToCache, readExpired, transparency, condition, layerInfo, DEFAULT_GEO_OBJECTS_CACHE_BUDGET);
   }
 
   public void dispose()
@@ -174,7 +181,7 @@ public class TiledVectorLayer extends VectorLayer
   public final TiledVectorLayer copy()
   {
   
-    return new TiledVectorLayer(_symbolizer.copy(), _urlTemplate, _dataSector, createParametersVectorCopy(), _timeToCache, _readExpired, _transparency, (_condition == null) ? null : _condition.copy(), _layerInfo);
+    return new TiledVectorLayer(_symbolizer.copy(), _urlTemplate, _dataSector, createParametersVectorCopy(), _timeToCache, _readExpired, _transparency, (_condition == null) ? null : _condition.copy(), _layerInfo, _geoObjectsCacheBudget);
   }
 
   public final TileImageContribution contribution(Tile tile)
@@ -190,7 +197,7 @@ public class TiledVectorLayer extends VectorLayer
   {
     if (_tileImageProvider == null)
     {
-      _tileImageProvider = new TiledVectorLayerTileImageProvider(this, rc.getDownloader(), rc.getThreadUtils());
+      _tileImageProvider = new TiledVectorLayerTileImageProvider(this, rc.getDownloader(), rc.getThreadUtils(), _geoObjectsCacheBudget);
     }
     _tileImageProvider._retain();
     return _tileImageProvider;
@@ -201,12 +208,14 @@ public class TiledVectorLayer extends VectorLayer
     public final URL _url;
     public final TimeInterval _timeToCache;
     public final boolean _readExpired;
+    public final boolean _staleWhileRevalidate;
 
-    public RequestGEOJSONBufferData(URL url, TimeInterval timeToCache, boolean readExpired)
+    public RequestGEOJSONBufferData(URL url, TimeInterval timeToCache, boolean readExpired, boolean staleWhileRevalidate)
     {
        _url = url;
        _timeToCache = timeToCache;
        _readExpired = readExpired;
+       _staleWhileRevalidate = staleWhileRevalidate;
     }
   }
 
@@ -223,7 +232,7 @@ public class TiledVectorLayer extends VectorLayer
       }
     }
   
-    return new RequestGEOJSONBufferData(createURL(tile), _timeToCache, _readExpired);
+    return new RequestGEOJSONBufferData(createURL(tile), _timeToCache, _readExpired, _staleWhileRevalidate);
   }
 
   public final GEORasterSymbolizer symbolizerCopy()
@@ -256,4 +265,42 @@ public class TiledVectorLayer extends VectorLayer
     return result;
   }
 
+  /**
+   Sets the budget, measured in coordinates, of the cache of parsed GEOObjects shared by the
+   tiles of the layer. The least recently used GEOObjects are evicted when it is exceeded.
+   */
+  public final void setGEOObjectsCacheBudget(long geoObjectsCacheBudget)
+  {
+    _geoObjectsCacheBudget = geoObjectsCacheBudget;
+    if (_tileImageProvider != null)
+    {
+      _tileImageProvider.setGEOObjectsCacheBudget(geoObjectsCacheBudget);
+    }
+  }
+
+  public final long getGEOObjectsCacheBudget()
+  {
+    return _geoObjectsCacheBudget;
+  }
+
+  /**
+   When enabled, the expired tiles in the cache are rasterized at once while they are downloaded
+   again in background (see IDownloader::requestStaleWhileRevalidateBuffer), instead of honoring
+   readExpired.
+   */
+  public final void setStaleWhileRevalidate(boolean staleWhileRevalidate)
+  {
+    _staleWhileRevalidate = staleWhileRevalidate;
+  }
+
+  public final boolean isStaleWhileRevalidate()
+  {
+    return _staleWhileRevalidate;
+  }
+
+  public final String geoObjectsCacheStatistics()
+  {
+    return (_tileImageProvider == null) ? "" : _tileImageProvider.statistics();
+  }
+
 }
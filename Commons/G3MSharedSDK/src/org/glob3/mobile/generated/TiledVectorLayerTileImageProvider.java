@@ -54,6 +54,7 @@ public class TiledVectorLayerTileImageProvider extends TileImageProvider
     private IByteBuffer _buffer;
     private final GEOObjectHolder _geoObjectHolder;
     private GEOObject _geoObject;
+    private long _geoObjectCoordinatesCount;
     private final boolean _geoObjectFromCache;
     private ICanvas _canvas;
     private final int _imageWidth;
@@ -89,6 +90,7 @@ public class TiledVectorLayerTileImageProvider extends TileImageProvider
        _tileLevel = tileLevel;
        _canvas = null;
        _geoObject = null;
+       _geoObjectCoordinatesCount = 0;
     }
 
     public void dispose()
@@ -132,6 +134,8 @@ public class TiledVectorLayerTileImageProvider extends TileImageProvider
             _geoObject = (isBSON ? GEOJSONParser.parseBSON(_buffer, showStatistics) : GEOJSONParser.parseJSON(_buffer, showStatistics));
             if (_geoObject != null)
             {
+              // counted here to keep the walk over the coordinates out of the rendering thread
+              _geoObjectCoordinatesCount = _geoObject.getCoordinatesCount();
               rasterizeGEOObject(_geoObject);
             }
           }
@@ -199,7 +203,7 @@ public class TiledVectorLayerTileImageProvider extends TileImageProvider
           _geoObject = null; // moves ownership of _geoObject to _imageAssembler
         }
     
-        _imageAssembler.rasterizedGEOObject(_url, transferedGEOObject, canvas);
+        _imageAssembler.rasterizedGEOObject(_url, transferedGEOObject, _geoObjectCoordinatesCount, canvas);
       }
     }
 
@@ -349,7 +353,14 @@ public class TiledVectorLayerTileImageProvider extends TileImageProvider
         {
           ILogger.instance().logInfo("Downloading %s", requestData._url._path);
         }
-        _downloadRequestID = _downloader.requestBuffer(requestData._url, tileTextureDownloadPriority, requestData._timeToCache, requestData._readExpired, _downloadListener, true); // deleteListener
+        if (requestData._staleWhileRevalidate)
+        {
+          _downloadRequestID = _downloader.requestStaleWhileRevalidateBuffer(requestData._url, tileTextureDownloadPriority, requestData._timeToCache, _downloadListener, true, ""); // default tag -  deleteListener
+        }
+        else
+        {
+          _downloadRequestID = _downloader.requestBuffer(requestData._url, tileTextureDownloadPriority, requestData._timeToCache, requestData._readExpired, _downloadListener, true); // deleteListener
+        }
       }
       else
       {
@@ -412,12 +423,12 @@ public class TiledVectorLayerTileImageProvider extends TileImageProvider
       _downloadRequestID = -1;
     }
 
-    public final void rasterizedGEOObject(URL url, GEOObject geoObject, ICanvas canvas)
+    public final void rasterizedGEOObject(URL url, GEOObject geoObject, long geoObjectCoordinatesCount, ICanvas canvas)
     {
     
       if (geoObject != null)
       {
-        _tileImageProvider.takeGEOObjectFor(url, geoObject);
+        _tileImageProvider.takeGEOObjectFor(url, geoObject, geoObjectCoordinatesCount);
       }
     
       if (canvas == null)
@@ -481,11 +492,19 @@ public class TiledVectorLayerTileImageProvider extends TileImageProvider
   {
     public final String _path;
     public final GEOObjectHolder _geoObjectHolder;
+    public final long _weight;
+
+    // links in the LRU list of the cache
+    public CacheEntry _previous;
+    public CacheEntry _next;
 
-    public CacheEntry(String path, GEOObject geoObject)
+    public CacheEntry(String path, GEOObject geoObject, long weight)
     {
        _path = path;
        _geoObjectHolder = new GEOObjectHolder(geoObject);
+       _weight = weight;
+       _previous = null;
+       _next = null;
     }
 
     public void dispose()
@@ -494,27 +513,102 @@ public class TiledVectorLayerTileImageProvider extends TileImageProvider
     }
   }
 
-  private java.util.LinkedList<CacheEntry> _geoObjectsCache = new java.util.LinkedList<CacheEntry>();
+  private final java.util.HashMap<String, CacheEntry> _geoObjectsCache = new java.util.HashMap<String, CacheEntry>();
+
+  // the cached GEOObjects are kept (from the least to the most recently used) until the budget is exceeded
+  private CacheEntry _geoObjectsCacheHead;
+  private CacheEntry _geoObjectsCacheTail;
+
+  private long _geoObjectsCacheBudget;
+  private long _geoObjectsCacheWeight;
+
+  private long _geoObjectsCacheHits;
+  private long _geoObjectsCacheMisses;
+  private long _geoObjectsCacheEvictions;
+
+  private void addCacheEntry(CacheEntry entry)
+  {
+    entry._previous = _geoObjectsCacheTail;
+    entry._next = null;
+    if (_geoObjectsCacheTail == null)
+    {
+      _geoObjectsCacheHead = entry;
+    }
+    else
+    {
+      _geoObjectsCacheTail._next = entry;
+    }
+    _geoObjectsCacheTail = entry;
+  }
+  private void removeCacheEntry(CacheEntry entry)
+  {
+    if (entry._previous == null)
+    {
+      _geoObjectsCacheHead = entry._next;
+    }
+    else
+    {
+      entry._previous._next = entry._next;
+    }
+    if (entry._next == null)
+    {
+      _geoObjectsCacheTail = entry._previous;
+    }
+    else
+    {
+      entry._next._previous = entry._previous;
+    }
+    entry._previous = null;
+    entry._next = null;
+  }
+  private void deleteCacheEntry(CacheEntry entry)
+  {
+    removeCacheEntry(entry);
+    _geoObjectsCache.remove(entry._path);
+    _geoObjectsCacheWeight -= entry._weight;
+    // the GEOObject is deleted when the rasterizers using it release the holder
+    if (entry != null)
+       entry.dispose();
+  }
+  private void evictCacheEntries()
+  {
+    while ((_geoObjectsCacheWeight > _geoObjectsCacheBudget) && (_geoObjectsCacheHead != null))
+    {
+      deleteCacheEntry(_geoObjectsCacheHead);
+      _geoObjectsCacheEvictions++;
+    }
+  }
 
   public void dispose()
   {
-  
-    for (java.util.Iterator<CacheEntry> it = _geoObjectsCache.iterator(); it.hasNext();)
+    CacheEntry entry = _geoObjectsCacheHead;
+    while (entry != null)
     {
-      CacheEntry entry = it.next();
+      CacheEntry next = entry._next;
       if (entry != null)
          entry.dispose();
+      entry = next;
     }
+    _geoObjectsCacheHead = null;
+    _geoObjectsCacheTail = null;
+    _geoObjectsCache.clear();
   
     super.dispose();
   }
 
 
-  public TiledVectorLayerTileImageProvider(TiledVectorLayer layer, IDownloader downloader, IThreadUtils threadUtils)
+  public TiledVectorLayerTileImageProvider(TiledVectorLayer layer, IDownloader downloader, IThreadUtils threadUtils, long geoObjectsCacheBudget)
   {
      _layer = layer;
      _downloader = downloader;
      _threadUtils = threadUtils;
+     _geoObjectsCacheHead = null;
+     _geoObjectsCacheTail = null;
+     _geoObjectsCacheBudget = geoObjectsCacheBudget;
+     _geoObjectsCacheWeight = 0;
+     _geoObjectsCacheHits = 0;
+     _geoObjectsCacheMisses = 0;
+     _geoObjectsCacheEvictions = 0;
   }
 
   public final void layerDeleted(TiledVectorLayer layer)
@@ -559,36 +653,82 @@ public class TiledVectorLayerTileImageProvider extends TileImageProvider
 
   public final TiledVectorLayerTileImageProvider.GEOObjectHolder getGEOObjectFor(URL url)
   {
-  //  _geoObjectsCacheRequests++;
-    final String path = url._path;
-    for (java.util.Iterator<CacheEntry> it = _geoObjectsCache.iterator(); it.hasNext();)
-    {
-      CacheEntry entry = it.next();
-      if (entry._path.equals(path))
-      {
-  //      _geoObjectsCacheHits++;
+    final CacheEntry entry = _geoObjectsCache.get(url._path);
+    if (entry == null) {
+      _geoObjectsCacheMisses++;
+      return null;
+    }
+    _geoObjectsCacheHits++;
   
-        // move hit entry to the top of the cache (LRU rules)
-        it.remove();
-        _geoObjectsCache.addFirst(entry);
+    // move hit entry to the most recently used end of the cache (LRU rules)
+    removeCacheEntry(entry);
+    addCacheEntry(entry);
   
-        final GEOObjectHolder geoObjectHolder = entry._geoObjectHolder;
-        geoObjectHolder._retain();
-        return geoObjectHolder;
-      }
-    }
-    return null;
+    final GEOObjectHolder geoObjectHolder = entry._geoObjectHolder;
+    geoObjectHolder._retain();
+    return geoObjectHolder;
   }
-  public final void takeGEOObjectFor(URL url, GEOObject geoObject)
+  public final void takeGEOObjectFor(URL url, GEOObject geoObject, long geoObjectCoordinatesCount)
   {
-    if (_geoObjectsCache.size() > 48)
+    // an empty GEOObject still takes some memory
+    final long weight = (geoObjectCoordinatesCount < 1) ? 1 : geoObjectCoordinatesCount;
+    if (weight > _geoObjectsCacheBudget)
     {
-      CacheEntry lastEntry = _geoObjectsCache.getLast();
-      _geoObjectsCache.removeLast();
-      if (lastEntry != null)
-         lastEntry.dispose();
+      // would evict the whole cache and still not fit
+      if (geoObject != null)
+         geoObject.dispose();
+      return;
     }
-    _geoObjectsCache.addFirst(new CacheEntry(url._path, geoObject));
+  
+    final String path = url._path;
+    final CacheEntry previousEntry = _geoObjectsCache.get(path);
+    if (previousEntry != null) {
+      deleteCacheEntry(previousEntry);
+    }
+  
+    CacheEntry entry = new CacheEntry(path, geoObject, weight);
+    _geoObjectsCache.put(path, entry);
+    addCacheEntry(entry);
+    _geoObjectsCacheWeight += weight;
+  
+    evictCacheEntries();
+  }
+
+  /**
+   Sets the budget of the GEOObjects cache, measured in coordinates. The least recently used
+   GEOObjects are evicted until the coordinates of the cached GEOObjects fit the budget.
+   */
+  public final void setGEOObjectsCacheBudget(long geoObjectsCacheBudget)
+  {
+    _geoObjectsCacheBudget = geoObjectsCacheBudget;
+    evictCacheEntries();
+  }
+
+  public final long getGEOObjectsCacheBudget()
+  {
+    return _geoObjectsCacheBudget;
+  }
+
+  public final String statistics()
+  {
+    IStringBuilder isb = IStringBuilder.newStringBuilder();
+    isb.addString("TiledVectorLayerTileImageProvider(GEOObjects cache hits=");
+    isb.addLong(_geoObjectsCacheHits);
+    isb.addString(", misses=");
+    isb.addLong(_geoObjectsCacheMisses);
+    isb.addString(", evictions=");
+    isb.addLong(_geoObjectsCacheEvictions);
+    isb.addString(", entries=");
+    isb.addLong(_geoObjectsCache.size());
+    isb.addString(", coordinates=");
+    isb.addLong(_geoObjectsCacheWeight);
+    isb.addString("/");
+    isb.addLong(_geoObjectsCacheBudget);
+    isb.addString(")");
+    final String s = isb.getString();
+    if (isb != null)
+       isb.dispose();
+    return s;
   }
 
 }
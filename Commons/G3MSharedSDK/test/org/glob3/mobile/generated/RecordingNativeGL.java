@@ -0,0 +1,696 @@
+package org.glob3.mobile.generated;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/*
+ * An INativeGL without a GL context, it records the textures calls (and the textures alive in the "GPU") so the tests
+ * can check what the classes above the GL asked for. The other calls do nothing, and every constant gets a different
+ * value.
+ */
+public class RecordingNativeGL
+   extends
+      INativeGL {
+
+   public static final class TextureID
+      implements
+         IGLTextureID {
+
+      private final int _id;
+
+
+      private TextureID(final int id) {
+         _id = id;
+      }
+
+
+      @Override
+      public boolean isEquals(final IGLTextureID that) {
+         return this == that;
+      }
+
+
+      @Override
+      public String description() {
+         return "#" + _id;
+      }
+
+
+      @Override
+      public void dispose() {
+      }
+
+
+      @Override
+      public String toString() {
+         return description();
+      }
+   }
+
+
+   private int                      _nextTextureID    = 1;
+   private IGLTextureID             _boundTexture     = null;
+
+   private final List<String>       _calls            = new ArrayList<>();
+   private final List<IGLTextureID> _uploadedTextures = new ArrayList<>();
+   private final List<IGLTextureID> _deletedTextures  = new ArrayList<>();
+   private final Set<IGLTextureID>  _texturesInGPU    = new HashSet<>();
+   private int                      _generatedMipmaps = 0;
+
+
+   // every recorded call, in order
+   public List<String> getCalls() {
+      return _calls;
+   }
+
+
+   // the textures that got a texImage2D(), in order
+   public List<IGLTextureID> getUploadedTextures() {
+      return _uploadedTextures;
+   }
+
+
+   public List<IGLTextureID> getDeletedTextures() {
+      return _deletedTextures;
+   }
+
+
+   // the textures uploaded and not deleted
+   public int getTexturesInGPUCount() {
+      return _texturesInGPU.size();
+   }
+
+
+   public int getGeneratedMipmapsCount() {
+      return _generatedMipmaps;
+   }
+
+
+   @Override
+   public ArrayList<IGLTextureID> genTextures(final int n) {
+      _calls.add("genTextures(" + n + ")");
+      final ArrayList<IGLTextureID> result = new ArrayList<>(n);
+      for (int i = 0; i < n; i++) {
+         result.add(new TextureID(_nextTextureID++));
+      }
+      return result;
+   }
+
+
+   @Override
+   public void bindTexture(final int target,
+                           final IGLTextureID texture) {
+      _calls.add("bindTexture(" + texture + ")");
+      _boundTexture = texture;
+   }
+
+
+   @Override
+   public void texParameteri(final int target,
+                             final int par,
+                             final int v) {
+      _calls.add("texParameteri(" + par + ", " + v + ")");
+   }
+
+
+   @Override
+   public void texImage2D(final IImage image,
+                          final int format) {
+      _calls.add("texImage2D(" + _boundTexture + ", " + image.getWidth() + "x" + image.getHeight() + ")");
+      if (_boundTexture == null) {
+         throw new RuntimeException("texImage2D() without a bound texture");
+      }
+      _uploadedTextures.add(_boundTexture);
+      _texturesInGPU.add(_boundTexture);
+   }
+
+
+   @Override
+   public void generateMipmap(final int target) {
+      _calls.add("generateMipmap(" + _boundTexture + ")");
+      _generatedMipmaps++;
+   }
+
+
+   // the ids are given back to the GL bag, like the real implementations
+   @Override
+   public boolean deleteTexture(final IGLTextureID texture) {
+      _calls.add("deleteTexture(" + texture + ")");
+      if (!_texturesInGPU.remove(texture)) {
+         throw new RuntimeException("Deleting the texture " + texture + " that is not in the GPU");
+      }
+      _deletedTextures.add(texture);
+      if (_boundTexture == texture) {
+         _boundTexture = null;
+      }
+      return true;
+   }
+
+
+   @Override
+   public void useProgram(final GPUProgram program) {
+   }
+
+
+   @Override
+   public void uniform2f(final IGLUniformID loc,
+                         final float x,
+                         final float y) {
+   }
+
+
+   @Override
+   public void uniform1f(final IGLUniformID loc,
+                         final float x) {
+   }
+
+
+   @Override
+   public void uniform1i(final IGLUniformID loc,
+                         final int v) {
+   }
+
+
+   @Override
+   public void uniformMatrix4fv(final IGLUniformID location,
+                                final boolean transpose,
+                                final Matrix44D matrix) {
+   }
+
+
+   @Override
+   public void clearColor(final float red,
+                          final float green,
+                          final float blue,
+                          final float alpha) {
+   }
+
+
+   @Override
+   public void clear(final int buffers) {
+   }
+
+
+   @Override
+   public void uniform4f(final IGLUniformID location,
+                         final float v0,
+                         final float v1,
+                         final float v2,
+                         final float v3) {
+   }
+
+
+   @Override
+   public void uniform3f(final IGLUniformID location,
+                         final float v0,
+                         final float v1,
+                         final float v2) {
+   }
+
+
+   @Override
+   public void enable(final int feature) {
+   }
+
+
+   @Override
+   public void disable(final int feature) {
+   }
+
+
+   @Override
+   public void polygonOffset(final float factor,
+                             final float units) {
+   }
+
+
+   @Override
+   public void vertexAttribPointer(final int index,
+                                   final int size,
+                                   final boolean normalized,
+                                   final int stride,
+                                   final IFloatBuffer buffer) {
+   }
+
+
+   @Override
+   public void drawElements(final int mode,
+                            final int count,
+                            final IShortBuffer indices) {
+   }
+
+
+   @Override
+   public void lineWidth(final float width) {
+   }
+
+
+   @Override
+   public int getError() {
+      return 1;
+   }
+
+
+   @Override
+   public void blendFunc(final int sfactor,
+                         final int dfactor) {
+   }
+
+
+   @Override
+   public void enableVertexAttribArray(final int location) {
+   }
+
+
+   @Override
+   public void disableVertexAttribArray(final int location) {
+   }
+
+
+   @Override
+   public void pixelStorei(final int pname,
+                           final int param) {
+   }
+
+
+   @Override
+   public void drawArrays(final int mode,
+                          final int first,
+                          final int count) {
+   }
+
+
+   @Override
+   public void cullFace(final int c) {
+   }
+
+
+   @Override
+   public void getIntegerv(final int v,
+                           final int[] i) {
+   }
+
+
+   @Override
+   public int CullFace_Front() {
+      return 1;
+   }
+
+
+   @Override
+   public int CullFace_Back() {
+      return 2;
+   }
+
+
+   @Override
+   public int CullFace_FrontAndBack() {
+      return 3;
+   }
+
+
+   @Override
+   public int BufferType_ColorBuffer() {
+      return 4;
+   }
+
+
+   @Override
+   public int BufferType_DepthBuffer() {
+      return 5;
+   }
+
+
+   @Override
+   public int Feature_PolygonOffsetFill() {
+      return 6;
+   }
+
+
+   @Override
+   public int Feature_DepthTest() {
+      return 7;
+   }
+
+
+   @Override
+   public int Feature_Blend() {
+      return 8;
+   }
+
+
+   @Override
+   public int Feature_CullFace() {
+      return 9;
+   }
+
+
+   @Override
+   public int Type_Float() {
+      return 10;
+   }
+
+
+   @Override
+   public int Type_UnsignedByte() {
+      return 11;
+   }
+
+
+   @Override
+   public int Type_UnsignedInt() {
+      return 12;
+   }
+
+
+   @Override
+   public int Type_Int() {
+      return 13;
+   }
+
+
+   @Override
+   public int Type_Vec2Float() {
+      return 14;
+   }
+
+
+   @Override
+   public int Type_Vec3Float() {
+      return 15;
+   }
+
+
+   @Override
+   public int Type_Vec4Float() {
+      return 16;
+   }
+
+
+   @Override
+   public int Type_Bool() {
+      return 17;
+   }
+
+
+   @Override
+   public int Type_Matrix4Float() {
+      return 18;
+   }
+
+
+   @Override
+   public int Primitive_Triangles() {
+      return 19;
+   }
+
+
+   @Override
+   public int Primitive_TriangleStrip() {
+      return 20;
+   }
+
+
+   @Override
+   public int Primitive_TriangleFan() {
+      return 21;
+   }
+
+
+   @Override
+   public int Primitive_Lines() {
+      return 22;
+   }
+
+
+   @Override
+   public int Primitive_LineStrip() {
+      return 23;
+   }
+
+
+   @Override
+   public int Primitive_LineLoop() {
+      return 24;
+   }
+
+
+   @Override
+   public int Primitive_Points() {
+      return 25;
+   }
+
+
+   @Override
+   public int BlendFactor_One() {
+      return 26;
+   }
+
+
+   @Override
+   public int BlendFactor_Zero() {
+      return 27;
+   }
+
+
+   @Override
+   public int BlendFactor_SrcAlpha() {
+      return 28;
+   }
+
+
+   @Override
+   public int BlendFactor_OneMinusSrcAlpha() {
+      return 29;
+   }
+
+
+   @Override
+   public int TextureType_Texture2D() {
+      return 30;
+   }
+
+
+   @Override
+   public int TextureParameter_MinFilter() {
+      return 31;
+   }
+
+
+   @Override
+   public int TextureParameter_MagFilter() {
+      return 32;
+   }
+
+
+   @Override
+   public int TextureParameter_WrapS() {
+      return 33;
+   }
+
+
+   @Override
+   public int TextureParameter_WrapT() {
+      return 34;
+   }
+
+
+   @Override
+   public int TextureParameterValue_Nearest() {
+      return 35;
+   }
+
+
+   @Override
+   public int TextureParameterValue_Linear() {
+      return 36;
+   }
+
+
+   @Override
+   public int TextureParameterValue_NearestMipmapNearest() {
+      return 37;
+   }
+
+
+   @Override
+   public int TextureParameterValue_NearestMipmapLinear() {
+      return 38;
+   }
+
+
+   @Override
+   public int TextureParameterValue_LinearMipmapNearest() {
+      return 39;
+   }
+
+
+   @Override
+   public int TextureParameterValue_LinearMipmapLinear() {
+      return 40;
+   }
+
+
+   @Override
+   public int TextureParameterValue_Repeat() {
+      return 41;
+   }
+
+
+   @Override
+   public int TextureParameterValue_ClampToEdge() {
+      return 42;
+   }
+
+
+   @Override
+   public int TextureParameterValue_MirroredRepeat() {
+      return 43;
+   }
+
+
+   @Override
+   public int Alignment_Pack() {
+      return 44;
+   }
+
+
+   @Override
+   public int Alignment_Unpack() {
+      return 45;
+   }
+
+
+   @Override
+   public int Format_RGBA() {
+      return 46;
+   }
+
+
+   @Override
+   public int Variable_Viewport() {
+      return 47;
+   }
+
+
+   @Override
+   public int Variable_ActiveAttributes() {
+      return 48;
+   }
+
+
+   @Override
+   public int Variable_ActiveUniforms() {
+      return 49;
+   }
+
+
+   @Override
+   public int Error_NoError() {
+      return 0;
+   }
+
+
+   @Override
+   public int createProgram() {
+      return 1;
+   }
+
+
+   @Override
+   public boolean deleteProgram(final int program) {
+      return true;
+   }
+
+
+   @Override
+   public void attachShader(final int program,
+                            final int shader) {
+   }
+
+
+   @Override
+   public int createShader(final ShaderType type) {
+      return 1;
+   }
+
+
+   @Override
+   public boolean compileShader(final int shader,
+                                final String source) {
+      return true;
+   }
+
+
+   @Override
+   public boolean deleteShader(final int shader) {
+      return true;
+   }
+
+
+   @Override
+   public void printShaderInfoLog(final int shader) {
+   }
+
+
+   @Override
+   public boolean linkProgram(final int program) {
+      return true;
+   }
+
+
+   @Override
+   public void printProgramInfoLog(final int program) {
+   }
+
+
+   @Override
+   public void bindAttribLocation(final GPUProgram program,
+                                  final int loc,
+                                  final String name) {
+   }
+
+
+   @Override
+   public int getProgramiv(final GPUProgram program,
+                           final int param) {
+      return 1;
+   }
+
+
+   @Override
+   public GPUUniform getActiveUniform(final GPUProgram program,
+                                      final int i) {
+      return null;
+   }
+
+
+   @Override
+   public GPUAttribute getActiveAttribute(final GPUProgram program,
+                                          final int i) {
+      return null;
+   }
+
+
+   @Override
+   public void depthMask(final boolean v) {
+   }
+
+
+   @Override
+   public void setActiveTexture(final int i) {
+   }
+
+
+   @Override
+   public void viewport(final int x,
+                        final int y,
+                        final int width,
+                        final int height) {
+   }
+
+
+}
@@ -0,0 +1,306 @@
+package org.glob3.mobile.generated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/*
+ * Checks the textures pool of TexturesHandler against a RecordingNativeGL, run it as a program (it throws on the first
+ * failed check).
+ */
+public class TexturesHandlerTest {
+
+   private static final class TestImage
+      extends
+         IImage {
+
+      private final int _width;
+      private final int _height;
+
+
+      private TestImage(final int width,
+                        final int height) {
+         _width = width;
+         _height = height;
+      }
+
+
+      @Override
+      public int getWidth() {
+         return _width;
+      }
+
+
+      @Override
+      public int getHeight() {
+         return _height;
+      }
+
+
+      @Override
+      public Vector2I getExtent() {
+         return new Vector2I(_width, _height);
+      }
+
+
+      @Override
+      public String description() {
+         return "TestImage " + _width + "x" + _height;
+      }
+
+
+      @Override
+      public boolean isPremultiplied() {
+         return true;
+      }
+
+
+      @Override
+      public IImage shallowCopy() {
+         return new TestImage(_width, _height);
+      }
+
+
+      @Override
+      public void getPixel(final int x,
+                           final int y,
+                           final MutableColor255 pixel) {
+      }
+
+
+      @Override
+      public void getPixels(final int[] argb) {
+      }
+   }
+
+
+   private static final class RecordingLogger
+      extends
+         ILogger {
+
+      private final List<String> _errors = new ArrayList<>();
+
+
+      private RecordingLogger() {
+         super(LogLevel.ErrorLevel);
+      }
+
+
+      @Override
+      public void logInfo(final String x,
+                          final Object... LegacyParamArray) {
+      }
+
+
+      @Override
+      public void logWarning(final String x,
+                             final Object... LegacyParamArray) {
+         _errors.add(String.format(x, LegacyParamArray));
+      }
+
+
+      @Override
+      public void logError(final String x,
+                           final Object... LegacyParamArray) {
+         _errors.add(String.format(x, LegacyParamArray));
+      }
+   }
+
+
+   // 64x64 RGBA texels
+   private static final int       TEXTURE_SIZE = 64 * 64 * 4;
+
+   private static RecordingLogger _logger;
+
+   private RecordingNativeGL      _nativeGL;
+   private GL                     _gl;
+   private TexturesHandler        _texturesHandler;
+
+
+   private static void check(final boolean condition,
+                             final String message) {
+      if (!condition) {
+         throw new RuntimeException("Check failed: " + message);
+      }
+   }
+
+
+   private static void checkEquals(final long expected,
+                                   final long actual,
+                                   final String message) {
+      if (expected != actual) {
+         throw new RuntimeException("Check failed: " + message + ", expected " + expected + " but was " + actual);
+      }
+   }
+
+
+   private void setUp(final long texturesMemoryBudget) {
+      _logger._errors.clear();
+      _nativeGL = new RecordingNativeGL();
+      _gl = new GL(_nativeGL);
+      _texturesHandler = new TexturesHandler(_gl, false, texturesMemoryBudget);
+   }
+
+
+   private void tearDown() {
+      check(_logger._errors.isEmpty(), "no errors logged " + _logger._errors);
+   }
+
+
+   private TextureIDReference get(final String name,
+                                  final boolean generateMipmap,
+                                  final int wrap) {
+      return _texturesHandler.getTextureIDReference(new TestImage(64, 64), GLFormat.rgba(), name, generateMipmap, wrap, wrap);
+   }
+
+
+   private TextureIDReference get(final String name) {
+      return get(name, false, GLTextureParameterValue.clampToEdge());
+   }
+
+
+   private void testSameSpecIsUploadedOnce() {
+      setUp(TexturesHandler.DEFAULT_TEXTURES_MEMORY_BUDGET);
+
+      final TextureIDReference first = get("a");
+      final TextureIDReference second = get("a");
+
+      checkEquals(1, _nativeGL.getUploadedTextures().size(), "uploads");
+      check(first.getID() == second.getID(), "the same texture id");
+      checkEquals(TEXTURE_SIZE, _texturesHandler.getTexturesSizeInBytes(), "textures size");
+
+      _texturesHandler.startFrame();
+      checkEquals(1, _texturesHandler.getLastFrameHits(), "hits");
+      checkEquals(1, _texturesHandler.getLastFrameUploads(), "uploads counter");
+
+      first.dispose();
+      second.dispose();
+      tearDown();
+   }
+
+
+   private void testSpecIncludesWrapAndMipmap() {
+      setUp(TexturesHandler.DEFAULT_TEXTURES_MEMORY_BUDGET);
+
+      get("a", false, GLTextureParameterValue.clampToEdge());
+      get("a", false, GLTextureParameterValue.repeat());
+      get("a", true, GLTextureParameterValue.clampToEdge());
+
+      checkEquals(3, _nativeGL.getUploadedTextures().size(), "uploads");
+      checkEquals(1, _nativeGL.getGeneratedMipmapsCount(), "generated mipmaps");
+      checkEquals((2 * TEXTURE_SIZE) + ((TEXTURE_SIZE * 4) / 3), _texturesHandler.getTexturesSizeInBytes(), "textures size");
+
+      final TextureSpec spec = new TextureSpec("a", 64, 64, true, 1, 2);
+      final TextureSpec sameSpec = new TextureSpec("a", 64, 64, true, 1, 2);
+      check(spec.equals(sameSpec) && (spec.hashCode() == sameSpec.hashCode()), "equal specs have the same hash");
+      check(!spec.equals(new TextureSpec("a", 64, 64, true, 2, 1)), "the wraps are part of the spec");
+      tearDown();
+   }
+
+
+   private void testReleasedTextureIsReusedWithinBudget() {
+      setUp(TexturesHandler.DEFAULT_TEXTURES_MEMORY_BUDGET);
+
+      final TextureIDReference first = get("a");
+      final IGLTextureID id = first.getID();
+      first.dispose();
+      check(_nativeGL.getDeletedTextures().isEmpty(), "a released texture under the budget is kept");
+
+      final TextureIDReference second = get("a");
+      check(second.getID() == id, "the released texture is reused");
+      checkEquals(1, _nativeGL.getUploadedTextures().size(), "uploads");
+
+      second.dispose();
+      tearDown();
+   }
+
+
+   private void testEvictsTheLeastRecentlyReleased() {
+      setUp(2 * TEXTURE_SIZE);
+
+      final TextureIDReference a = get("a");
+      final TextureIDReference b = get("b");
+      final IGLTextureID aID = a.getID();
+      final IGLTextureID bID = b.getID();
+
+      a.dispose();
+      b.dispose();
+      check(_nativeGL.getDeletedTextures().isEmpty(), "two textures fit the budget");
+
+      // a reused texture is the most recently used one again
+      get("a").dispose();
+
+      final TextureIDReference c = get("c");
+      checkEquals(1, _nativeGL.getDeletedTextures().size(), "evictions");
+      check(_nativeGL.getDeletedTextures().get(0) == bID, "b was the least recently released");
+      checkEquals(2 * TEXTURE_SIZE, _texturesHandler.getTexturesSizeInBytes(), "textures size");
+      checkEquals(2, _nativeGL.getTexturesInGPUCount(), "textures in GPU");
+
+      _texturesHandler.startFrame();
+      checkEquals(1, _texturesHandler.getLastFrameEvictions(), "evictions counter");
+
+      final TextureIDReference aAgain = get("a");
+      check(aAgain.getID() == aID, "a survived the eviction");
+      checkEquals(3, _nativeGL.getUploadedTextures().size(), "uploads");
+
+      aAgain.dispose();
+      c.dispose();
+      tearDown();
+   }
+
+
+   private void testRetainedTexturesAreNeverEvicted() {
+      setUp(0);
+
+      final TextureIDReference a = get("a");
+      final TextureIDReference b = get("b");
+      final TextureIDReference aCopy = a.createCopy();
+      check(_nativeGL.getDeletedTextures().isEmpty(), "retained textures are kept over the budget");
+
+      a.dispose();
+      check(_nativeGL.getDeletedTextures().isEmpty(), "a is still retained by its copy");
+
+      aCopy.dispose();
+      checkEquals(1, _nativeGL.getDeletedTextures().size(), "a released texture over the budget is deleted");
+      checkEquals(TEXTURE_SIZE, _texturesHandler.getTexturesSizeInBytes(), "textures size");
+
+      b.dispose();
+      checkEquals(0, _nativeGL.getTexturesInGPUCount(), "textures in GPU");
+      checkEquals(0, _texturesHandler.getTexturesSizeInBytes(), "textures size");
+      tearDown();
+   }
+
+
+   private void testLoweringTheBudgetEvicts() {
+      setUp(TexturesHandler.DEFAULT_TEXTURES_MEMORY_BUDGET);
+
+      get("a").dispose();
+      get("b").dispose();
+      final TextureIDReference c = get("c");
+
+      _texturesHandler.setTexturesMemoryBudget(TEXTURE_SIZE);
+      checkEquals(2, _nativeGL.getDeletedTextures().size(), "evictions");
+      checkEquals(1, _nativeGL.getTexturesInGPUCount(), "textures in GPU");
+      check(_nativeGL.getCalls().get(_nativeGL.getCalls().size() - 1).startsWith("deleteTexture"), "the last call");
+
+      c.dispose();
+      tearDown();
+   }
+
+
+   public static void main(final String[] args) {
+      _logger = new RecordingLogger();
+      ILogger.setInstance(_logger);
+
+      final TexturesHandlerTest test = new TexturesHandlerTest();
+      test.testSameSpecIsUploadedOnce();
+      test.testSpecIncludesWrapAndMipmap();
+      test.testReleasedTextureIsReusedWithinBudget();
+      test.testEvictsTheLeastRecentlyReleased();
+      test.testRetainedTexturesAreNeverEvicted();
+      test.testLoweringTheBudgetEvicts();
+
+      System.out.println("TexturesHandlerTest: OK");
+   }
+
+}
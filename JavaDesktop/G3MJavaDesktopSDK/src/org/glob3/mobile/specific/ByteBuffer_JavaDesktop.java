@@ -3,6 +3,8 @@
 package org.glob3.mobile.specific;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
 
 import org.glob3.mobile.generated.IByteBuffer;
 
@@ -12,11 +14,14 @@ public class ByteBuffer_JavaDesktop
       IByteBuffer {
 
   private final ByteBuffer _buffer;
+  // little endian view of _buffer for the bulk reads, sharing its content
+  private final ByteBuffer _littleEndianBuffer;
   private int _timestamp = 0;
 
 
   public ByteBuffer_JavaDesktop(final byte[] data) {
     _buffer = ByteBuffer.wrap(data);
+    _littleEndianBuffer = _buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
 
     // _buffer = ByteBuffer.allocateDirect(data.length);
     // _buffer.put(data);
@@ -27,6 +32,7 @@ public class ByteBuffer_JavaDesktop
   public ByteBuffer_JavaDesktop(final int size) {
     // _buffer = ByteBuffer.allocate(size);
     _buffer = ByteBuffer.wrap(new byte[size]);
+    _littleEndianBuffer = _buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
   }
 
 
@@ -82,4 +88,96 @@ public class ByteBuffer_JavaDesktop
     return new String(bytes);
   }
 
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+
+  @Override
+  public String getAsString(final int i,
+                            final int length) {
+    return new String(_buffer.array(), i, length, UTF_8);
+  }
+
+
+  @Override
+  public short getInt16(final int i) {
+    return _littleEndianBuffer.getShort(i);
+  }
+
+
+  @Override
+  public int getInt32(final int i) {
+    return _littleEndianBuffer.getInt(i);
+  }
+
+
+  @Override
+  public long getInt64(final int i) {
+    return _littleEndianBuffer.getLong(i);
+  }
+
+
+  @Override
+  public float getFloat(final int i) {
+    return _littleEndianBuffer.getFloat(i);
+  }
+
+
+  @Override
+  public double getDouble(final int i) {
+    return _littleEndianBuffer.getDouble(i);
+  }
+
+
+  @Override
+  public void getUInt8s(final int i,
+                        final int count,
+                        final byte[] dst) {
+    System.arraycopy(_buffer.array(), i, dst, 0, count);
+  }
+
+
+  private ByteBuffer littleEndianBufferAt(final int i) {
+    final ByteBuffer result = _littleEndianBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    result.position(i);
+    return result;
+  }
+
+
+  @Override
+  public void getInt16s(final int i,
+                        final int count,
+                        final short[] dst) {
+    littleEndianBufferAt(i).asShortBuffer().get(dst, 0, count);
+  }
+
+
+  @Override
+  public void getInt32s(final int i,
+                        final int count,
+                        final int[] dst) {
+    littleEndianBufferAt(i).asIntBuffer().get(dst, 0, count);
+  }
+
+
+  @Override
+  public void getFloats(final int i,
+                        final int count,
+                        final float[] dst) {
+    littleEndianBufferAt(i).asFloatBuffer().get(dst, 0, count);
+  }
+
+
+  @Override
+  public int indexOf(final int i,
+                     final byte value) {
+    final byte[] bytes = _buffer.array();
+    for (int j = i; j < bytes.length; j++) {
+      if (bytes[j] == value) {
+        return j;
+      }
+    }
+    return -1;
+  }
+
 }
@@ -0,0 +1,609 @@
+package org.glob3.mobile.specific;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import org.glob3.mobile.generated.GFont;
+import org.glob3.mobile.generated.ICanvas;
+import org.glob3.mobile.generated.IImage;
+import org.glob3.mobile.generated.IImageListener;
+import org.glob3.mobile.generated.StrokeCap;
+import org.glob3.mobile.generated.StrokeJoin;
+import org.glob3.mobile.generated.Vector2F;
+
+
+/**
+ * ICanvas on a Java2D BufferedImage, it doesn't need a display so the rasterization of tiles (and
+ * the rest of the ICanvas clients) can run on a headless JVM.
+ */
+public final class Canvas_JavaDesktop
+   extends
+      ICanvas {
+
+   // the same rendering hints are used to measure the text, so the extents match the rendering
+   private static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext(null, true, true);
+
+   private BufferedImage                _image            = null;
+   private Graphics2D                   _graphics         = null;
+
+   private Font                         _font             = null;
+
+   private java.awt.Color               _fillColor;
+   private java.awt.Color               _lineColor;
+
+   private float                        _lineWidth;
+   private int                          _lineCap;
+   private int                          _lineJoin;
+   private float                        _lineMiterLimit;
+   private float[]                      _lineDash;
+   private float                        _lineDashPhase;
+   private BasicStroke                  _stroke           = null;                           // created on demand after any line setting change
+
+   private java.awt.Color               _shadowColor;
+   private float                        _shadowOffsetX;
+   private float                        _shadowOffsetY;
+
+   private Path2D.Float                 _path             = null;
+
+   private final Rectangle2D.Float      _rectangle        = new Rectangle2D.Float();        // instances for reuse (and avoid garbage)
+   private final RoundRectangle2D.Float _roundedRectangle = new RoundRectangle2D.Float();
+   private final Ellipse2D.Float        _ellipse          = new Ellipse2D.Float();
+
+
+   Canvas_JavaDesktop(final boolean retina) {
+      super(retina);
+
+      _fillColor = java.awt.Color.BLACK;
+      _lineColor = java.awt.Color.BLACK;
+
+      _lineWidth = 1;
+      _lineCap = BasicStroke.CAP_BUTT;
+      _lineJoin = BasicStroke.JOIN_MITER;
+      _lineMiterLimit = 10;
+      _lineDash = null;
+      _lineDashPhase = 0;
+
+      _shadowColor = null;
+   }
+
+
+   @Override
+   protected void _initialize(final int width,
+                              final int height) {
+      // there is no screen, so no device pixel ratio to apply on retina canvases
+      _image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+      _graphics = _image.createGraphics();
+      _graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      _graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      _graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+      _graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      _graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+      _graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+      if (_font != null) {
+         _graphics.setFont(_font);
+      }
+   }
+
+
+   @Override
+   public void dispose() {
+      if (_graphics != null) {
+         _graphics.dispose();
+         _graphics = null;
+      }
+      _image = null;
+      super.dispose();
+   }
+
+
+   @Override
+   protected void _setFont(final GFont font) {
+      _font = createFont(font);
+      if (_graphics != null) {
+         _graphics.setFont(_font);
+      }
+   }
+
+
+   private static Font createFont(final GFont font) {
+      final String fontFamily;
+      if (font.isSansSerif()) {
+         fontFamily = Font.SANS_SERIF;
+      }
+      else if (font.isSerif()) {
+         fontFamily = Font.SERIF;
+      }
+      else if (font.isMonospaced()) {
+         fontFamily = Font.MONOSPACED;
+      }
+      else {
+         throw new RuntimeException("Unsupported Font type");
+      }
+
+      int style = Font.PLAIN;
+      if (font.isBold()) {
+         style |= Font.BOLD;
+      }
+      if (font.isItalic()) {
+         style |= Font.ITALIC;
+      }
+
+      return new Font(fontFamily, style, 1).deriveFont(font.getSize());
+   }
+
+
+   @Override
+   protected void _createImage(final IImageListener listener,
+                               final boolean autodelete) {
+      // a copy, the canvas can be drawn after creating the image
+      final BufferedImage copy = new BufferedImage(_image.getColorModel(), _image.copyData(null), _image.isAlphaPremultiplied(), null);
+      final Image_JavaDesktop result = new Image_JavaDesktop(copy, null);
+      listener.imageCreated(result);
+      if (autodelete) {
+         listener.dispose();
+      }
+   }
+
+
+   private Rectangle2D getTextBounds(final String text) {
+      return _font.createGlyphVector(FONT_RENDER_CONTEXT, text).getVisualBounds();
+   }
+
+
+   @Override
+   protected Vector2F _textExtent(final String text) {
+      final Rectangle2D textBounds = getTextBounds(text);
+      return new Vector2F((float) textBounds.getWidth(), (float) textBounds.getHeight());
+   }
+
+
+   private static float clamp(final float value) {
+      return Math.max(0, Math.min(1, value));
+   }
+
+
+   private static java.awt.Color toAWTColor(final org.glob3.mobile.generated.Color g3mColor) {
+      return new java.awt.Color(clamp(g3mColor._red), clamp(g3mColor._green), clamp(g3mColor._blue), clamp(g3mColor._alpha));
+   }
+
+
+   @Override
+   protected void _setFillColor(final org.glob3.mobile.generated.Color color) {
+      _fillColor = toAWTColor(color);
+   }
+
+
+   @Override
+   protected void _setLineColor(final org.glob3.mobile.generated.Color color) {
+      _lineColor = toAWTColor(color);
+   }
+
+
+   @Override
+   protected void _setLineWidth(final float width) {
+      _lineWidth = width;
+      _stroke = null;
+   }
+
+
+   @Override
+   protected void _setLineCap(final StrokeCap cap) {
+      switch (cap) {
+         case CAP_BUTT:
+            _lineCap = BasicStroke.CAP_BUTT;
+            break;
+         case CAP_ROUND:
+            _lineCap = BasicStroke.CAP_ROUND;
+            break;
+         case CAP_SQUARE:
+            _lineCap = BasicStroke.CAP_SQUARE;
+            break;
+      }
+      _stroke = null;
+   }
+
+
+   @Override
+   protected void _setLineJoin(final StrokeJoin join) {
+      switch (join) {
+         case JOIN_MITER:
+            _lineJoin = BasicStroke.JOIN_MITER;
+            break;
+         case JOIN_ROUND:
+            _lineJoin = BasicStroke.JOIN_ROUND;
+            break;
+         case JOIN_BEVEL:
+            _lineJoin = BasicStroke.JOIN_BEVEL;
+            break;
+      }
+      _stroke = null;
+   }
+
+
+   @Override
+   protected void _setLineMiterLimit(final float limit) {
+      // BasicStroke rejects limits under 1
+      _lineMiterLimit = Math.max(limit, 1);
+      _stroke = null;
+   }
+
+
+   @Override
+   protected void _setLineDash(final float[] lengths,
+                               final int count,
+                               final float phase) {
+      _lineDash = null;
+      if ((count > 0) && (lengths.length > 0)) {
+         final float[] dash = Arrays.copyOf(lengths, Math.min(count, lengths.length));
+         // BasicStroke rejects dashes without any positive length
+         for (final float length : dash) {
+            if (length > 0) {
+               _lineDash = dash;
+               break;
+            }
+         }
+      }
+      _lineDashPhase = phase;
+      _stroke = null;
+   }
+
+
+   private BasicStroke getStroke() {
+      if (_stroke == null) {
+         _stroke = new BasicStroke(_lineWidth, _lineCap, _lineJoin, _lineMiterLimit, _lineDash, _lineDashPhase);
+      }
+      return _stroke;
+   }
+
+
+   /**
+    * Java2D has no shadows, they are drawn as a copy of the shape, offset and in the shadow color.
+    * The blur is ignored.
+    */
+   @Override
+   protected void _setShadow(final org.glob3.mobile.generated.Color color,
+                             final float blur,
+                             final float offsetX,
+                             final float offsetY) {
+      _shadowColor = toAWTColor(color);
+      _shadowOffsetX = offsetX;
+      _shadowOffsetY = offsetY;
+   }
+
+
+   @Override
+   protected void _removeShadow() {
+      _shadowColor = null;
+   }
+
+
+   private void fillShape(final Shape shape) {
+      if (_shadowColor != null) {
+         _graphics.translate(_shadowOffsetX, _shadowOffsetY);
+         _graphics.setColor(_shadowColor);
+         _graphics.fill(shape);
+         _graphics.translate(-_shadowOffsetX, -_shadowOffsetY);
+      }
+      _graphics.setColor(_fillColor);
+      _graphics.fill(shape);
+   }
+
+
+   private void strokeShape(final Shape shape) {
+      _graphics.setStroke(getStroke());
+      if (_shadowColor != null) {
+         _graphics.translate(_shadowOffsetX, _shadowOffsetY);
+         _graphics.setColor(_shadowColor);
+         _graphics.draw(shape);
+         _graphics.translate(-_shadowOffsetX, -_shadowOffsetY);
+      }
+      _graphics.setColor(_lineColor);
+      _graphics.draw(shape);
+   }
+
+
+   @Override
+   protected void _clearRect(final float left,
+                             final float top,
+                             final float width,
+                             final float height) {
+      final Composite composite = _graphics.getComposite();
+      _graphics.setComposite(AlphaComposite.Clear);
+      _rectangle.setRect(left, top, width, height);
+      _graphics.fill(_rectangle);
+      _graphics.setComposite(composite);
+   }
+
+
+   @Override
+   protected void _fillRectangle(final float left,
+                                 final float top,
+                                 final float width,
+                                 final float height) {
+      _rectangle.setRect(left, top, width, height);
+      fillShape(_rectangle);
+   }
+
+
+   @Override
+   protected void _strokeRectangle(final float left,
+                                   final float top,
+                                   final float width,
+                                   final float height) {
+      _rectangle.setRect(left, top, width, height);
+      strokeShape(_rectangle);
+   }
+
+
+   @Override
+   protected void _fillAndStrokeRectangle(final float left,
+                                          final float top,
+                                          final float width,
+                                          final float height) {
+      _fillRectangle(left, top, width, height);
+      _strokeRectangle(left, top, width, height);
+   }
+
+
+   @Override
+   protected void _fillEllipse(final float left,
+                               final float top,
+                               final float width,
+                               final float height) {
+      _ellipse.setFrame(left, top, width, height);
+      fillShape(_ellipse);
+   }
+
+
+   @Override
+   protected void _strokeEllipse(final float left,
+                                 final float top,
+                                 final float width,
+                                 final float height) {
+      _ellipse.setFrame(left, top, width, height);
+      strokeShape(_ellipse);
+   }
+
+
+   @Override
+   protected void _fillAndStrokeEllipse(final float left,
+                                        final float top,
+                                        final float width,
+                                        final float height) {
+      _fillEllipse(left, top, width, height);
+      _strokeEllipse(left, top, width, height);
+   }
+
+
+   @Override
+   protected void _fillRoundedRectangle(final float left,
+                                        final float top,
+                                        final float width,
+                                        final float height,
+                                        final float radius) {
+      _roundedRectangle.setRoundRect(left, top, width, height, radius * 2, radius * 2);
+      fillShape(_roundedRectangle);
+   }
+
+
+   @Override
+   protected void _strokeRoundedRectangle(final float left,
+                                          final float top,
+                                          final float width,
+                                          final float height,
+                                          final float radius) {
+      _roundedRectangle.setRoundRect(left, top, width, height, radius * 2, radius * 2);
+      strokeShape(_roundedRectangle);
+   }
+
+
+   @Override
+   protected void _fillAndStrokeRoundedRectangle(final float left,
+                                                 final float top,
+                                                 final float width,
+                                                 final float height,
+                                                 final float radius) {
+      _fillRoundedRectangle(left, top, width, height, radius);
+      _strokeRoundedRectangle(left, top, width, height, radius);
+   }
+
+
+   @Override
+   protected void _fillText(final String text,
+                            final float left,
+                            final float top) {
+      // top is the top of the text, not the baseline
+      final Rectangle2D textBounds = getTextBounds(text);
+      final float y = top - (float) textBounds.getY();
+      if (_shadowColor != null) {
+         _graphics.setColor(_shadowColor);
+         _graphics.drawString(text, left + _shadowOffsetX, y + _shadowOffsetY);
+      }
+      _graphics.setColor(_fillColor);
+      _graphics.drawString(text, left, y);
+   }
+
+
+   private void drawImageRegion(final IImage image,
+                                final float srcLeft,
+                                final float srcTop,
+                                final float srcWidth,
+                                final float srcHeight,
+                                final float destLeft,
+                                final float destTop,
+                                final float destWidth,
+                                final float destHeight,
+                                final float transparency) {
+      final BufferedImage bufferedImage = ((Image_JavaDesktop) image).getBufferedImage();
+
+      final int requestedLeft = Math.round(srcLeft);
+      final int requestedTop = Math.round(srcTop);
+      final int requestedWidth = Math.round(srcLeft + srcWidth) - requestedLeft;
+      final int requestedHeight = Math.round(srcTop + srcHeight) - requestedTop;
+      if ((requestedWidth <= 0) || (requestedHeight <= 0)) {
+         return;
+      }
+
+      // the requested region is mapped to the destination, the part of it outside the image isn't drawn
+      final int left = Math.max(requestedLeft, 0);
+      final int top = Math.max(requestedTop, 0);
+      final int width = Math.min(requestedLeft + requestedWidth, bufferedImage.getWidth()) - left;
+      final int height = Math.min(requestedTop + requestedHeight, bufferedImage.getHeight()) - top;
+      if ((width <= 0) || (height <= 0)) {
+         return;
+      }
+
+      final boolean fullImage = (left == 0) && (top == 0) && (width == bufferedImage.getWidth()) && (height == bufferedImage.getHeight());
+      final BufferedImage source = fullImage ? bufferedImage : bufferedImage.getSubimage(left, top, width, height);
+
+      final float scaleX = destWidth / requestedWidth;
+      final float scaleY = destHeight / requestedHeight;
+      final AffineTransform transform = AffineTransform.getTranslateInstance( //
+               destLeft + ((left - requestedLeft) * scaleX), //
+               destTop + ((top - requestedTop) * scaleY));
+      transform.scale(scaleX, scaleY);
+
+      if (transparency < 1) {
+         final Composite composite = _graphics.getComposite();
+         _graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, transparency));
+         _graphics.drawImage(source, transform, null);
+         _graphics.setComposite(composite);
+      }
+      else {
+         _graphics.drawImage(source, transform, null);
+      }
+   }
+
+
+   @Override
+   protected void _drawImage(final IImage image,
+                             final float destLeft,
+                             final float destTop) {
+      _drawImage(image, destLeft, destTop, image.getWidth(), image.getHeight());
+   }
+
+
+   @Override
+   protected void _drawImage(final IImage image,
+                             final float destLeft,
+                             final float destTop,
+                             final float transparency) {
+      _drawImage(image, destLeft, destTop, image.getWidth(), image.getHeight(), transparency);
+   }
+
+
+   @Override
+   protected void _drawImage(final IImage image,
+                             final float left,
+                             final float top,
+                             final float width,
+                             final float height) {
+      drawImageRegion(image, 0, 0, image.getWidth(), image.getHeight(), left, top, width, height, 1);
+   }
+
+
+   @Override
+   protected void _drawImage(final IImage image,
+                             final float left,
+                             final float top,
+                             final float width,
+                             final float height,
+                             final float transparency) {
+      drawImageRegion(image, 0, 0, image.getWidth(), image.getHeight(), left, top, width, height, transparency);
+   }
+
+
+   @Override
+   protected void _drawImage(final IImage image,
+                             final float srcLeft,
+                             final float srcTop,
+                             final float srcWidth,
+                             final float srcHeight,
+                             final float destLeft,
+                             final float destTop,
+                             final float destWidth,
+                             final float destHeight) {
+      drawImageRegion(image, srcLeft, srcTop, srcWidth, srcHeight, destLeft, destTop, destWidth, destHeight, 1);
+   }
+
+
+   @Override
+   protected void _drawImage(final IImage image,
+                             final float srcLeft,
+                             final float srcTop,
+                             final float srcWidth,
+                             final float srcHeight,
+                             final float destLeft,
+                             final float destTop,
+                             final float destWidth,
+                             final float destHeight,
+                             final float transparency) {
+      drawImageRegion(image, srcLeft, srcTop, srcWidth, srcHeight, destLeft, destTop, destWidth, destHeight, transparency);
+   }
+
+
+   @Override
+   protected void _beginPath() {
+      if (_path == null) {
+         _path = new Path2D.Float(Path2D.WIND_EVEN_ODD);
+      }
+      else {
+         _path.reset();
+      }
+   }
+
+
+   @Override
+   protected void _closePath() {
+      _path.closePath();
+   }
+
+
+   @Override
+   protected void _stroke() {
+      strokeShape(_path);
+   }
+
+
+   @Override
+   protected void _fill() {
+      fillShape(_path);
+   }
+
+
+   @Override
+   protected void _fillAndStroke() {
+      fillShape(_path);
+      strokeShape(_path);
+   }
+
+
+   @Override
+   protected void _moveTo(final float x,
+                          final float y) {
+      _path.moveTo(x, y);
+   }
+
+
+   @Override
+   protected void _lineTo(final float x,
+                          final float y) {
+      _path.lineTo(x, y);
+   }
+
+
+}
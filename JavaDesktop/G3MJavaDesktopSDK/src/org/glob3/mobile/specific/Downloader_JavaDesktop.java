@@ -0,0 +1,443 @@
+package org.glob3.mobile.specific;
+
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.glob3.mobile.generated.FrameTasksExecutor;
+import org.glob3.mobile.generated.G3MContext;
+import org.glob3.mobile.generated.GTask;
+import org.glob3.mobile.generated.IBufferDownloadListener;
+import org.glob3.mobile.generated.IDownloader;
+import org.glob3.mobile.generated.IImageDownloadListener;
+import org.glob3.mobile.generated.ILogger;
+import org.glob3.mobile.generated.IStringBuilder;
+import org.glob3.mobile.generated.IThreadUtils;
+import org.glob3.mobile.generated.TimeInterval;
+import org.glob3.mobile.generated.URL;
+
+
+/**
+ * Downloader for the JavaDesktop platform, usable headless (without initialize() being called).
+ * <p>
+ * A fixed pool of worker threads takes the requests from a heap ordered by priority (highest
+ * first, FIFO for equal priorities). Requests for a URL that is already queued or downloading are
+ * coalesced into the same download.
+ * <p>
+ * The conditional requests send the validators of the stored copy (If-None-Match and
+ * If-Modified-Since), and a 304 Not Modified answer calls onNotModified() on their listeners. The
+ * validators of the successful downloads (the ETag and Last-Modified headers) are given to the
+ * listeners with onDownloadWithValidators(), and the errors with onErrorWithStatusCode().
+ * <p>
+ * When the downloader was initialized with a G3MContext that has IThreadUtils the listeners are
+ * invoked in the renderer thread, as in the other platforms. Otherwise they are invoked in the
+ * worker threads, one at a time.
+ * <p>
+ * The HTTP connections are pooled by HttpURLConnection's keep-alive cache, which keeps up to
+ * "http.maxConnections" idle connections per host. If that property isn't set it's set to the
+ * number of workers.
+ */
+public final class Downloader_JavaDesktop
+         extends
+            IDownloader {
+
+   private static final class QueueEntry
+            implements
+               Comparable<QueueEntry> {
+      private final Downloader_JavaDesktop_Handler _handler;
+      private final long                           _priority;
+      private final long                           _order;
+
+
+      private QueueEntry(final Downloader_JavaDesktop_Handler handler,
+                         final long order) {
+         _handler = handler;
+         _priority = handler.getPriority();
+         _order = order;
+      }
+
+
+      @Override
+      public int compareTo(final QueueEntry that) {
+         if (_priority != that._priority) {
+            return (_priority > that._priority) ? -1 : 1;
+         }
+         return (_order < that._order) ? -1 : ((_order == that._order) ? 0 : 1);
+      }
+   }
+
+
+   private final int                                         _maxConcurrentOperationCount;
+   private final TimeInterval                                _connectTimeout;
+   private final TimeInterval                                _readTimeout;
+
+   private final List<Downloader_JavaDesktop_WorkerThread>   _workers;
+
+   // the heap can hold stale entries (canceled handlers or handlers whose priority was raised later),
+   // they are skipped when polled
+   private final PriorityQueue<QueueEntry>                   _queue               = new PriorityQueue<QueueEntry>();
+   private long                                              _queueOrderCounter   = 0;
+   private final Map<String, Downloader_JavaDesktop_Handler> _queuedHandlers      = new HashMap<String, Downloader_JavaDesktop_Handler>();
+   private final Map<String, Downloader_JavaDesktop_Handler> _downloadingHandlers = new HashMap<String, Downloader_JavaDesktop_Handler>();
+   private final Map<Long, Downloader_JavaDesktop_Handler>   _handlersByRequestID = new HashMap<Long, Downloader_JavaDesktop_Handler>();
+
+   private long                                              _requestIDCounter    = 1;
+   private long                                              _requestsCounter     = 0;
+   private long                                              _coalescedCounter    = 0;
+   private long                                              _cancelsCounter      = 0;
+   private long                                              _downloadsCounter    = 0;
+   private long                                              _errorsCounter       = 0;
+   private long                                              _notModifiedCounter  = 0;
+   private long                                              _downloadedBytes     = 0;
+
+   private boolean                                           _started             = false;
+
+   private G3MContext                                        _context;
+   private final Object                                      _processResponseMutex = new Object();
+
+
+   public Downloader_JavaDesktop(final int maxConcurrentOperationCount,
+                                 final TimeInterval connectTimeout,
+                                 final TimeInterval readTimeout) {
+      _maxConcurrentOperationCount = maxConcurrentOperationCount;
+      _connectTimeout = connectTimeout;
+      _readTimeout = readTimeout;
+      _workers = new ArrayList<Downloader_JavaDesktop_WorkerThread>(maxConcurrentOperationCount);
+
+      if (System.getProperty("http.maxConnections") == null) {
+         System.setProperty("http.maxConnections", Integer.toString(maxConcurrentOperationCount));
+      }
+   }
+
+
+   @Override
+   public synchronized void initialize(final G3MContext context,
+                                       final FrameTasksExecutor frameTasksExecutor) {
+      _context = context;
+   }
+
+
+   @Override
+   public synchronized void start() {
+      if (!_started) {
+         for (int i = 0; i < _maxConcurrentOperationCount; i++) {
+            final Downloader_JavaDesktop_WorkerThread worker = new Downloader_JavaDesktop_WorkerThread(this, i);
+            _workers.add(worker);
+            worker.start();
+         }
+         _started = true;
+      }
+   }
+
+
+   @Override
+   public synchronized void stop() {
+      if (_started) {
+         // the workers finish the download in progress (if any) and exit
+         for (final Downloader_JavaDesktop_WorkerThread worker : _workers) {
+            worker.stopWorkerThread();
+         }
+         _workers.clear();
+         _started = false;
+         notifyAll();
+      }
+   }
+
+
+   private long request(final URL url,
+                        final long priority,
+                        final String eTag,
+                        final String lastModified,
+                        final IBufferDownloadListener bufferListener,
+                        final IImageDownloadListener imageListener,
+                        final boolean deleteListener,
+                        final String tag) {
+      final long requestID;
+
+      synchronized (this) {
+         _requestsCounter++;
+         requestID = _requestIDCounter++;
+
+         final Downloader_JavaDesktop_ListenerEntry entry = new Downloader_JavaDesktop_ListenerEntry(bufferListener,
+                  imageListener, deleteListener, requestID, tag);
+
+         final String key = Downloader_JavaDesktop_Handler.key(url, eTag, lastModified);
+         Downloader_JavaDesktop_Handler handler = _downloadingHandlers.get(key);
+         if (handler != null) {
+            // the URL is being downloaded, just add the new listener
+            _coalescedCounter++;
+            handler.addListener(entry, priority);
+         }
+         else {
+            handler = _queuedHandlers.get(key);
+            if (handler != null) {
+               // the URL is queued for future download, add the new listener and requeue it if its priority was raised
+               _coalescedCounter++;
+               if (handler.addListener(entry, priority)) {
+                  _queue.add(new QueueEntry(handler, _queueOrderCounter++));
+               }
+            }
+            else {
+               try {
+                  handler = new Downloader_JavaDesktop_Handler(url, priority, eTag, lastModified, _connectTimeout, _readTimeout);
+               }
+               catch (final MalformedURLException e) {
+                  ILogger.instance().logError("Downloader_JavaDesktop: MalformedURLException url=\"" + url._path + "\"");
+                  _errorsCounter++;
+                  entry.onError(url, 0);
+                  return requestID;
+               }
+               handler.addListener(entry, priority);
+               _queuedHandlers.put(key, handler);
+               _queue.add(new QueueEntry(handler, _queueOrderCounter++));
+               notify();
+            }
+         }
+
+         _handlersByRequestID.put(requestID, handler);
+      }
+
+      return requestID;
+   }
+
+
+   @Override
+   public long requestBuffer(final URL url,
+                             final long priority,
+                             final TimeInterval timeToCache,
+                             final boolean readExpired,
+                             final IBufferDownloadListener listener,
+                             final boolean deleteListener,
+                             final String tag) {
+      return request(url, priority, "", "", listener, null, deleteListener, tag);
+   }
+
+
+   @Override
+   public long requestImage(final URL url,
+                            final long priority,
+                            final TimeInterval timeToCache,
+                            final boolean readExpired,
+                            final IImageDownloadListener listener,
+                            final boolean deleteListener,
+                            final String tag) {
+      return request(url, priority, "", "", null, listener, deleteListener, tag);
+   }
+
+
+   @Override
+   public long requestConditionalBuffer(final URL url,
+                                        final long priority,
+                                        final String eTag,
+                                        final String lastModified,
+                                        final IBufferDownloadListener listener,
+                                        final boolean deleteListener,
+                                        final String tag) {
+      return request(url, priority, eTag, lastModified, listener, null, deleteListener, tag);
+   }
+
+
+   @Override
+   public long requestConditionalImage(final URL url,
+                                       final long priority,
+                                       final String eTag,
+                                       final String lastModified,
+                                       final IImageDownloadListener listener,
+                                       final boolean deleteListener,
+                                       final String tag) {
+      return request(url, priority, eTag, lastModified, null, listener, deleteListener, tag);
+   }
+
+
+   private boolean isQueued(final Downloader_JavaDesktop_Handler handler) {
+      return _queuedHandlers.get(handler.getKey()) == handler;
+   }
+
+
+   private void removeQueuedHandler(final Downloader_JavaDesktop_Handler handler) {
+      _queuedHandlers.remove(handler.getKey());
+
+      // drop the stale entries once they are the majority of the heap
+      if (_queue.size() > (2 * _queuedHandlers.size()) + 64) {
+         for (final Iterator<QueueEntry> iterator = _queue.iterator(); iterator.hasNext();) {
+            if (!isQueued(iterator.next()._handler)) {
+               iterator.remove();
+            }
+         }
+      }
+   }
+
+
+   @Override
+   public boolean cancelRequest(final long requestID) {
+      if (requestID < 0) {
+         return false;
+      }
+
+      synchronized (this) {
+         final Downloader_JavaDesktop_Handler handler = _handlersByRequestID.remove(requestID);
+         if (handler == null) {
+            return false;
+         }
+
+         _cancelsCounter++;
+
+         if (isQueued(handler)) {
+            handler.removeListenerForRequestId(requestID);
+            if (!handler.hasListener()) {
+               removeQueuedHandler(handler);
+            }
+         }
+         else {
+            handler.cancelListenerForRequestId(requestID);
+         }
+      }
+
+      return true;
+   }
+
+
+   @Override
+   public void cancelRequestsTagged(final String tag) {
+      if (tag.isEmpty()) {
+         return;
+      }
+
+      synchronized (this) {
+         _cancelsCounter++;
+
+         final List<Downloader_JavaDesktop_Handler> emptyHandlers = new ArrayList<Downloader_JavaDesktop_Handler>();
+         for (final Downloader_JavaDesktop_Handler handler : _queuedHandlers.values()) {
+            for (final Downloader_JavaDesktop_ListenerEntry entry : handler.removeListenersTagged(tag)) {
+               _handlersByRequestID.remove(entry._requestID);
+            }
+            if (!handler.hasListener()) {
+               emptyHandlers.add(handler);
+            }
+         }
+         for (final Downloader_JavaDesktop_Handler handler : emptyHandlers) {
+            removeQueuedHandler(handler);
+         }
+
+         for (final Downloader_JavaDesktop_Handler handler : _downloadingHandlers.values()) {
+            handler.cancelListenersTagged(tag);
+         }
+      }
+   }
+
+
+   /**
+    * Blocks until there is a handler to run or the given worker is stopped (then returns null).
+    */
+   synchronized Downloader_JavaDesktop_Handler takeHandlerToRun(final Downloader_JavaDesktop_WorkerThread worker) throws InterruptedException {
+      while (!worker.isStopping()) {
+         final QueueEntry entry = _queue.poll();
+         if (entry == null) {
+            wait();
+         }
+         else {
+            final Downloader_JavaDesktop_Handler handler = entry._handler;
+            if (isQueued(handler) && (entry._priority == handler.getPriority())) {
+               // move the selected handler to _downloadingHandlers collection
+               final String key = handler.getKey();
+               _queuedHandlers.remove(key);
+               _downloadingHandlers.put(key, handler);
+               return handler;
+            }
+         }
+      }
+      return null;
+   }
+
+
+   synchronized void removeDownloadingHandler(final Downloader_JavaDesktop_Handler handler,
+                                              final int statusCode,
+                                              final int downloadedBytes) {
+      _downloadingHandlers.remove(handler.getKey());
+      for (final Downloader_JavaDesktop_ListenerEntry entry : handler.getListeners()) {
+         _handlersByRequestID.remove(entry._requestID);
+      }
+
+      if (statusCode == 304) {
+         _notModifiedCounter++;
+      }
+      else if (downloadedBytes < 0) {
+         _errorsCounter++;
+      }
+      else {
+         _downloadsCounter++;
+         _downloadedBytes += downloadedBytes;
+      }
+   }
+
+
+   void processResponse(final GTask task) {
+      final G3MContext context;
+      synchronized (this) {
+         context = _context;
+      }
+
+      final IThreadUtils threadUtils = (context == null) ? null : context.getThreadUtils();
+      if (threadUtils == null) {
+         synchronized (_processResponseMutex) {
+            task.run(context);
+         }
+         task.dispose();
+      }
+      else {
+         threadUtils.invokeInRendererThread(task, true);
+      }
+   }
+
+
+   @Override
+   public synchronized String statistics() {
+      final StringBuilder_JavaDesktop sb = new StringBuilder_JavaDesktop(IStringBuilder.DEFAULT_FLOAT_PRECISION);
+
+      sb.addString("Downloader_JavaDesktop(downloading=");
+      sb.addInt(_downloadingHandlers.size());
+      sb.addString(", queued=");
+      sb.addInt(_queuedHandlers.size());
+      sb.addString(", totalRequests=");
+      sb.addLong(_requestsCounter);
+      sb.addString(", coalesced=");
+      sb.addLong(_coalescedCounter);
+      sb.addString(", totalCancels=");
+      sb.addLong(_cancelsCounter);
+      sb.addString(", downloads=");
+      sb.addLong(_downloadsCounter);
+      sb.addString(", notModified=");
+      sb.addLong(_notModifiedCounter);
+      sb.addString(", errors=");
+      sb.addLong(_errorsCounter);
+      sb.addString(", downloadedBytes=");
+      sb.addLong(_downloadedBytes);
+      sb.addString(")");
+
+      return sb.getString();
+   }
+
+
+   @Override
+   public void onResume(final G3MContext context) {
+      start();
+   }
+
+
+   @Override
+   public void onPause(final G3MContext context) {
+      stop();
+   }
+
+
+   @Override
+   public void onDestroy(final G3MContext context) {
+      stop();
+   }
+
+
+}
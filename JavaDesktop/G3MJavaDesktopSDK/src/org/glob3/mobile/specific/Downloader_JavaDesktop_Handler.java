@@ -0,0 +1,349 @@
+package org.glob3.mobile.specific;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.glob3.mobile.generated.G3MContext;
+import org.glob3.mobile.generated.GTask;
+import org.glob3.mobile.generated.IImage;
+import org.glob3.mobile.generated.ILogger;
+import org.glob3.mobile.generated.TimeInterval;
+import org.glob3.mobile.generated.URL;
+
+
+/**
+ * All the requests for one URL. Until the download finishes the handler is only touched with the
+ * Downloader_JavaDesktop lock held, after that it's owned by the thread delivering the response.
+ */
+public final class Downloader_JavaDesktop_Handler {
+
+   private static final int DEFAULT_BUFFER_SIZE = 32 * 1024;
+
+   private long                                             _priority;
+   private final URL                                        _g3mURL;
+   private final java.net.URL                               _javaURL;
+   // the validators of a conditional request, empty for a plain one
+   private final String                                     _eTag;
+   private final String                                     _lastModified;
+   private final String                                     _key;
+   private final List<Downloader_JavaDesktop_ListenerEntry> _listeners = new ArrayList<Downloader_JavaDesktop_ListenerEntry>();
+
+   private final TimeInterval _connectTimeout;
+   private final TimeInterval _readTimeout;
+
+
+   Downloader_JavaDesktop_Handler(final URL url,
+                                  final long priority,
+                                  final String eTag,
+                                  final String lastModified,
+                                  final TimeInterval connectTimeout,
+                                  final TimeInterval readTimeout) throws MalformedURLException {
+      _g3mURL = url;
+      _priority = priority;
+      _eTag = eTag;
+      _lastModified = lastModified;
+      _key = key(url, eTag, lastModified);
+      _connectTimeout = connectTimeout;
+      _readTimeout = readTimeout;
+      _javaURL = url.isFileProtocol() ? null : new java.net.URL(url._path);
+   }
+
+
+   /**
+    * The requests with the same key are coalesced. A conditional request only shares the download with
+    * the ones with the same validators, a 304 answer is useless for any other request.
+    */
+   static String key(final URL url,
+                     final String eTag,
+                     final String lastModified) {
+      if (eTag.isEmpty() && lastModified.isEmpty()) {
+         return url._path;
+      }
+      // the header values can't hold line breaks
+      return url._path + "\n" + eTag + "\n" + lastModified;
+   }
+
+
+   URL getURL() {
+      return _g3mURL;
+   }
+
+
+   String getKey() {
+      return _key;
+   }
+
+
+   long getPriority() {
+      return _priority;
+   }
+
+
+   List<Downloader_JavaDesktop_ListenerEntry> getListeners() {
+      return _listeners;
+   }
+
+
+   /**
+    * Returns true if the priority of the handler was raised by the new listener.
+    */
+   boolean addListener(final Downloader_JavaDesktop_ListenerEntry entry,
+                       final long priority) {
+      _listeners.add(entry);
+
+      if (priority > _priority) {
+         _priority = priority;
+         return true;
+      }
+      return false;
+   }
+
+
+   boolean cancelListenerForRequestId(final long requestID) {
+      for (final Downloader_JavaDesktop_ListenerEntry entry : _listeners) {
+         if (entry._requestID == requestID) {
+            entry.cancel();
+            return true;
+         }
+      }
+      return false;
+   }
+
+
+   void cancelListenersTagged(final String tag) {
+      for (final Downloader_JavaDesktop_ListenerEntry entry : _listeners) {
+         if (entry._tag.equals(tag) && !entry.isCanceled()) {
+            entry.cancel();
+         }
+      }
+   }
+
+
+   boolean removeListenerForRequestId(final long requestID) {
+      for (final Iterator<Downloader_JavaDesktop_ListenerEntry> iterator = _listeners.iterator(); iterator.hasNext();) {
+         final Downloader_JavaDesktop_ListenerEntry entry = iterator.next();
+         if (entry._requestID == requestID) {
+            iterator.remove();
+            entry.onCancel(_g3mURL);
+            return true;
+         }
+      }
+      return false;
+   }
+
+
+   List<Downloader_JavaDesktop_ListenerEntry> removeListenersTagged(final String tag) {
+      final List<Downloader_JavaDesktop_ListenerEntry> removed = new ArrayList<Downloader_JavaDesktop_ListenerEntry>();
+
+      for (final Iterator<Downloader_JavaDesktop_ListenerEntry> iterator = _listeners.iterator(); iterator.hasNext();) {
+         final Downloader_JavaDesktop_ListenerEntry entry = iterator.next();
+         if (entry._tag.equals(tag)) {
+            iterator.remove();
+            entry.onCancel(_g3mURL);
+            removed.add(entry);
+         }
+      }
+
+      return removed;
+   }
+
+
+   boolean hasListener() {
+      return !_listeners.isEmpty();
+   }
+
+
+   private boolean hasImageListeners() {
+      for (final Downloader_JavaDesktop_ListenerEntry entry : _listeners) {
+         if (entry.isImageListener()) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+
+   /**
+    * HTTP connections are never disconnected and both the response and the error bodies are read up
+    * to the end, that way HttpURLConnection gives the socket back to its keep-alive cache and the
+    * next request to the same host reuses it.
+    */
+   void runWithDownloader(final Downloader_JavaDesktop downloader) {
+      int statusCode = 0;
+      byte[] data = null;
+      String eTag = "";
+      String lastModified = "";
+      HttpURLConnection connection = null;
+
+      try {
+         if (_g3mURL.isFileProtocol()) {
+            final File file = new File(_g3mURL._path.replaceFirst(URL.FILE_PROTOCOL, ""));
+            if (file.exists()) {
+               data = getData(new FileInputStream(file), (int) file.length());
+               statusCode = 200;
+            }
+            else {
+               statusCode = 404;
+            }
+         }
+         else {
+            connection = (HttpURLConnection) _javaURL.openConnection();
+            connection.setConnectTimeout((int) _connectTimeout.milliseconds());
+            connection.setReadTimeout((int) _readTimeout.milliseconds());
+            connection.setUseCaches(false);
+            if (!_eTag.isEmpty()) {
+               connection.setRequestProperty("If-None-Match", _eTag);
+            }
+            if (!_lastModified.isEmpty()) {
+               connection.setRequestProperty("If-Modified-Since", _lastModified);
+            }
+            statusCode = connection.getResponseCode();
+
+            if (statusCode == 200) {
+               data = getData(connection.getInputStream(), connection.getContentLength());
+               eTag = getHeader(connection, "ETag");
+               lastModified = getHeader(connection, "Last-Modified");
+            }
+            else {
+               final InputStream errorStream = connection.getErrorStream();
+               if (errorStream != null) {
+                  getData(errorStream, -1);
+               }
+            }
+         }
+      }
+      catch (final IOException e) {
+         ILogger.instance().logError("Downloader_JavaDesktop: " + e + ", url=" + _g3mURL._path);
+         data = null;
+         if (connection != null) {
+            // the socket is in an unknown state, don't let it go back to the keep-alive cache
+            connection.disconnect();
+         }
+      }
+
+      // from here on no other thread can reach the handler, so the listeners can't change
+      downloader.removeDownloadingHandler(this, statusCode, (data == null) ? -1 : data.length);
+
+      downloader.processResponse(new ProcessResponseGTask(statusCode, data, eTag, lastModified));
+   }
+
+
+   private static String getHeader(final HttpURLConnection connection,
+                                   final String name) {
+      final String value = connection.getHeaderField(name);
+      return (value == null) ? "" : value;
+   }
+
+
+   private static byte[] getData(final InputStream is,
+                                 final int contentLength) throws IOException {
+      try {
+         if (contentLength >= 0) {
+            final byte[] data = new byte[contentLength];
+            int offset = 0;
+            while (offset < contentLength) {
+               final int length = is.read(data, offset, contentLength - offset);
+               if (length < 0) {
+                  throw new IOException("Premature end of stream (" + offset + " of " + contentLength + " bytes)");
+               }
+               offset += length;
+            }
+            return data;
+         }
+
+         final ByteArrayOutputStream baos = new ByteArrayOutputStream(DEFAULT_BUFFER_SIZE);
+         final byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+         int length;
+         while ((length = is.read(buffer)) >= 0) {
+            baos.write(buffer, 0, length);
+         }
+         return baos.toByteArray();
+      }
+      finally {
+         is.close();
+      }
+   }
+
+
+   private static IImage decodeImage(final byte[] data) {
+      // null (the listeners get onError()) if the data is not an image
+      return Image_JavaDesktop.createFromData(data);
+   }
+
+
+   private final class ProcessResponseGTask
+            extends
+               GTask {
+
+      private final int    _statusCode;
+      private final byte[] _data;
+      private final String _eTag;
+      private final String _lastModified;
+
+
+      private ProcessResponseGTask(final int statusCode,
+                                   final byte[] data,
+                                   final String eTag,
+                                   final String lastModified) {
+         _statusCode = statusCode;
+         _data = data;
+         _eTag = eTag;
+         _lastModified = lastModified;
+      }
+
+
+      @Override
+      public void run(final G3MContext context) {
+         final boolean dataIsValid = (_data != null) && (_statusCode == 200);
+
+         if (_statusCode == 304) {
+            for (final Downloader_JavaDesktop_ListenerEntry entry : _listeners) {
+               if (entry.isCanceled()) {
+                  entry.onCancel(_g3mURL);
+               }
+               else {
+                  entry.onNotModified(_g3mURL);
+               }
+            }
+         }
+         else if (dataIsValid) {
+            final IImage image = hasImageListeners() ? decodeImage(_data) : null;
+
+            for (final Downloader_JavaDesktop_ListenerEntry entry : _listeners) {
+               final IImage imageCopy = (image == null) ? null : image.shallowCopy();
+               if (entry.isCanceled()) {
+                  entry.onCanceledDownload(_g3mURL, _data, imageCopy);
+
+                  entry.onCancel(_g3mURL);
+               }
+               else {
+                  entry.onDownload(_g3mURL, _data, imageCopy, _eTag, _lastModified);
+               }
+            }
+
+            if (image != null) {
+               image.dispose();
+            }
+         }
+         else {
+            ILogger.instance().logError("Downloader_JavaDesktop: Error runWithDownloader: statusCode=" + _statusCode + ", url="
+                                        + _g3mURL._path);
+
+            for (final Downloader_JavaDesktop_ListenerEntry entry : _listeners) {
+               entry.onError(_g3mURL, _statusCode);
+            }
+         }
+      }
+
+   }
+
+
+}
@@ -0,0 +1,153 @@
+package org.glob3.mobile.specific;
+
+import org.glob3.mobile.generated.IBufferDownloadListener;
+import org.glob3.mobile.generated.IByteBuffer;
+import org.glob3.mobile.generated.IImage;
+import org.glob3.mobile.generated.IImageDownloadListener;
+import org.glob3.mobile.generated.ILogger;
+import org.glob3.mobile.generated.URL;
+
+
+public final class Downloader_JavaDesktop_ListenerEntry {
+
+   private final IBufferDownloadListener _bufferListener;
+   private final IImageDownloadListener  _imageListener;
+   private final boolean                 _deleteListener;
+   final long                            _requestID;
+   final String                          _tag;
+   private boolean                       _canceled;
+
+
+   Downloader_JavaDesktop_ListenerEntry(final IBufferDownloadListener bufferListener,
+                                        final IImageDownloadListener imageListener,
+                                        final boolean deleteListener,
+                                        final long requestID,
+                                        final String tag) {
+      _bufferListener = bufferListener;
+      _imageListener = imageListener;
+      _deleteListener = deleteListener;
+      _requestID = requestID;
+      _tag = tag;
+      _canceled = false;
+   }
+
+
+   boolean isImageListener() {
+      return _imageListener != null;
+   }
+
+
+   void cancel() {
+      if (_canceled) {
+         ILogger.instance().logError("Downloader_JavaDesktop: Listener for requestID=" + _requestID + " already canceled");
+      }
+      _canceled = true;
+   }
+
+
+   boolean isCanceled() {
+      return _canceled;
+   }
+
+
+   void onCancel(final URL url) {
+      if (_bufferListener != null) {
+         _bufferListener.onCancel(url);
+         if (_deleteListener) {
+            _bufferListener.dispose();
+         }
+      }
+
+      if (_imageListener != null) {
+         _imageListener.onCancel(url);
+         if (_deleteListener) {
+            _imageListener.dispose();
+         }
+      }
+   }
+
+
+   /**
+    * The statusCode is 0 if there was no HTTP response.
+    */
+   void onError(final URL url,
+                final int statusCode) {
+      if (_bufferListener != null) {
+         _bufferListener.onErrorWithStatusCode(url, statusCode);
+         if (_deleteListener) {
+            _bufferListener.dispose();
+         }
+      }
+
+      if (_imageListener != null) {
+         _imageListener.onErrorWithStatusCode(url, statusCode);
+         if (_deleteListener) {
+            _imageListener.dispose();
+         }
+      }
+   }
+
+
+   void onNotModified(final URL url) {
+      if (_bufferListener != null) {
+         _bufferListener.onNotModified(url);
+         if (_deleteListener) {
+            _bufferListener.dispose();
+         }
+      }
+
+      if (_imageListener != null) {
+         _imageListener.onNotModified(url);
+         if (_deleteListener) {
+            _imageListener.dispose();
+         }
+      }
+   }
+
+
+   void onDownload(final URL url,
+                   final byte[] data,
+                   final IImage image,
+                   final String eTag,
+                   final String lastModified) {
+      if (_bufferListener != null) {
+         final IByteBuffer buffer = new ByteBuffer_JavaDesktop(data);
+         _bufferListener.onDownloadWithValidators(url, buffer, false, eTag, lastModified);
+         if (_deleteListener) {
+            _bufferListener.dispose();
+         }
+      }
+
+      if (_imageListener != null) {
+         if (image == null) {
+            ILogger.instance().logError("Downloader_JavaDesktop: Can't create image from data (URL=" + url._path + ")");
+            _imageListener.onError(url);
+         }
+         else {
+            _imageListener.onDownloadWithValidators(url, image, false, eTag, lastModified);
+         }
+         if (_deleteListener) {
+            _imageListener.dispose();
+         }
+      }
+   }
+
+
+   void onCanceledDownload(final URL url,
+                           final byte[] data,
+                           final IImage image) {
+      if (_bufferListener != null) {
+         final IByteBuffer buffer = new ByteBuffer_JavaDesktop(data);
+         _bufferListener.onCanceledDownload(url, buffer, false);
+      }
+
+      if (_imageListener != null) {
+         if (image != null) {
+            _imageListener.onCanceledDownload(url, image, false);
+            image.dispose();
+         }
+      }
+   }
+
+
+}
@@ -0,0 +1,62 @@
+package org.glob3.mobile.specific;
+
+import org.glob3.mobile.generated.ILogger;
+
+
+public final class Downloader_JavaDesktop_WorkerThread
+         extends
+            Thread {
+
+
+   private final Downloader_JavaDesktop _downloader;
+   private volatile boolean             _stopping;
+   private final int                    _id;
+
+
+   Downloader_JavaDesktop_WorkerThread(final Downloader_JavaDesktop downloader,
+                                       final int id) {
+      _downloader = downloader;
+      _stopping = false;
+      _id = id;
+
+      setName("Downloader_JavaDesktop_WorkerThread #" + _id);
+      setDaemon(true);
+      setPriority(Thread.NORM_PRIORITY - 1);
+   }
+
+
+   void stopWorkerThread() {
+      _stopping = true;
+   }
+
+
+   boolean isStopping() {
+      return _stopping;
+   }
+
+
+   @Override
+   public void run() {
+      while (!isStopping()) {
+         final Downloader_JavaDesktop_Handler handler;
+         try {
+            handler = _downloader.takeHandlerToRun(this);
+         }
+         catch (final InterruptedException e) {
+            break;
+         }
+
+         if (handler != null) {
+            try {
+               handler.runWithDownloader(_downloader);
+            }
+            catch (final RuntimeException e) {
+               // a failing listener must not kill the worker
+               ILogger.instance().logError("Downloader_JavaDesktop: " + getName() + " " + e);
+            }
+         }
+      }
+   }
+
+
+}
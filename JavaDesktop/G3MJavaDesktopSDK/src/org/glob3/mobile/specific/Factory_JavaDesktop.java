@@ -22,7 +22,7 @@ public class Factory_JavaDesktop
 
    @Override
    public ITimer createTimer() {
-      throw new RuntimeException("Not yet implemented");
+      return new Timer_JavaDesktop();
    }
 
 
@@ -80,7 +80,7 @@ public class Factory_JavaDesktop
 
    @Override
    public ICanvas createCanvas(final boolean retina) {
-      throw new RuntimeException("Not yet implemented");
+      return new Canvas_JavaDesktop(retina);
    }
 
 
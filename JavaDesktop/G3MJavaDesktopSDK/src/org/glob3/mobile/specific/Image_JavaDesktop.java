@@ -0,0 +1,205 @@
+package org.glob3.mobile.specific;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.glob3.mobile.generated.IImage;
+import org.glob3.mobile.generated.MutableColor255;
+import org.glob3.mobile.generated.Vector2I;
+
+
+public final class Image_JavaDesktop
+   extends
+      IImage {
+
+   private final BufferedImage _image;
+   private byte[]              _source;
+
+
+   public Image_JavaDesktop(final BufferedImage image,
+                            final byte[] source) {
+      if (image == null) {
+         throw new RuntimeException("Can't create an Image_JavaDesktop with a null image");
+      }
+
+      _image = image;
+      _source = source;
+   }
+
+
+   /**
+    * Returns null if the data is not an image format ImageIO can read.
+    */
+   static Image_JavaDesktop createFromData(final byte[] data) {
+      try {
+         final BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+         return (image == null) ? null : new Image_JavaDesktop(image, data);
+      }
+      catch (final IOException e) {
+         return null;
+      }
+   }
+
+
+   /**
+    * The source data if there is one, or the image encoded as PNG.
+    */
+   byte[] getEncodedData() {
+      if (_source != null) {
+         return _source;
+      }
+      try {
+         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+         ImageIO.write(_image, "png", baos);
+         return baos.toByteArray();
+      }
+      catch (final IOException e) {
+         return null;
+      }
+   }
+
+
+   public BufferedImage getBufferedImage() {
+      return _image;
+   }
+
+
+   @Override
+   public int getWidth() {
+      return _image.getWidth();
+   }
+
+
+   @Override
+   public int getHeight() {
+      return _image.getHeight();
+   }
+
+
+   @Override
+   public Vector2I getExtent() {
+      return new Vector2I(getWidth(), getHeight());
+   }
+
+
+   @Override
+   public String description() {
+      return "Image_JavaDesktop " + getWidth() + " x " + getHeight() + ", _image=(" + _image + ")";
+   }
+
+
+   @Override
+   public boolean isPremultiplied() {
+      return _image.isAlphaPremultiplied();
+   }
+
+
+   public byte[] getSourceBuffer() {
+      return _source;
+   }
+
+
+   public void releaseSourceBuffer() {
+      _source = null;
+   }
+
+
+   @Override
+   public Image_JavaDesktop shallowCopy() {
+      // the BufferedImage is never modified, so the copies can share it
+      return new Image_JavaDesktop(_image, _source);
+   }
+
+
+   @Override
+   public void getPixel(final int x,
+                        final int y,
+                        final MutableColor255 pixel) {
+      final int argb = _image.getRGB(x, y);
+      pixel._red = (byte) (argb >> 16);
+      pixel._green = (byte) (argb >> 8);
+      pixel._blue = (byte) argb;
+      pixel._alpha = (byte) (argb >>> 24);
+   }
+
+
+   /**
+    * The usual layouts (ImageIO gives TYPE_3BYTE_BGR or TYPE_4BYTE_ABGR for most PNGs and JPEGs) are
+    * read straight from the raster, BufferedImage.getRGB() goes through the ColorModel for every
+    * pixel and is used only for the other ones.
+    */
+   @Override
+   public void getPixels(final int[] argb) {
+      final int width = _image.getWidth();
+      final int height = _image.getHeight();
+      final int size = width * height;
+
+      final WritableRaster raster = _image.getRaster();
+      final DataBuffer dataBuffer = raster.getDataBuffer();
+      final boolean plainRaster = (raster.getParent() == null) && (dataBuffer.getNumBanks() == 1) && (dataBuffer.getOffset() == 0);
+
+      if (plainRaster) {
+         switch (_image.getType()) {
+            case BufferedImage.TYPE_INT_ARGB: {
+               final int[] data = ((DataBufferInt) dataBuffer).getData();
+               if (data.length == size) {
+                  System.arraycopy(data, 0, argb, 0, size);
+                  return;
+               }
+               break;
+            }
+            case BufferedImage.TYPE_INT_RGB: {
+               final int[] data = ((DataBufferInt) dataBuffer).getData();
+               if (data.length == size) {
+                  for (int i = 0; i < size; i++) {
+                     argb[i] = 0xFF000000 | data[i];
+                  }
+                  return;
+               }
+               break;
+            }
+            case BufferedImage.TYPE_3BYTE_BGR: {
+               final byte[] data = ((DataBufferByte) dataBuffer).getData();
+               if (data.length == (size * 3)) {
+                  int i = 0;
+                  for (int index = 0; index < size; index++) {
+                     final int blue = data[i++] & 0xFF;
+                     final int green = data[i++] & 0xFF;
+                     final int red = data[i++] & 0xFF;
+                     argb[index] = 0xFF000000 | (red << 16) | (green << 8) | blue;
+                  }
+                  return;
+               }
+               break;
+            }
+            case BufferedImage.TYPE_4BYTE_ABGR: {
+               final byte[] data = ((DataBufferByte) dataBuffer).getData();
+               if (data.length == (size * 4)) {
+                  int i = 0;
+                  for (int index = 0; index < size; index++) {
+                     final int alpha = data[i++] & 0xFF;
+                     final int blue = data[i++] & 0xFF;
+                     final int green = data[i++] & 0xFF;
+                     final int red = data[i++] & 0xFF;
+                     argb[index] = (alpha << 24) | (red << 16) | (green << 8) | blue;
+                  }
+                  return;
+               }
+               break;
+            }
+         }
+      }
+
+      _image.getRGB(0, 0, width, height, argb, 0, width);
+   }
+
+
+}
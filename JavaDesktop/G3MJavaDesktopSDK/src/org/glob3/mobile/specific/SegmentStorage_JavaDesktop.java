@@ -0,0 +1,883 @@
+package org.glob3.mobile.specific;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.glob3.mobile.generated.G3MContext;
+import org.glob3.mobile.generated.IByteBuffer;
+import org.glob3.mobile.generated.IByteBufferResult;
+import org.glob3.mobile.generated.IImage;
+import org.glob3.mobile.generated.IImageResult;
+import org.glob3.mobile.generated.ILogger;
+import org.glob3.mobile.generated.IStorage;
+import org.glob3.mobile.generated.TimeInterval;
+import org.glob3.mobile.generated.URL;
+
+
+/**
+ * Disk storage for the JavaDesktop platform.
+ * <p>
+ * The contents are appended to segment files in a directory, and an in-memory index (rebuilt by
+ * scanning the segments when the storage is opened) maps every URL to the position of its last
+ * saved contents. The index is kept in LRU order, and when the size of the live contents exceeds
+ * maxSize the least recently used entries are dropped from it.
+ * <p>
+ * The space of overwritten and dropped entries is reclaimed when a segment is sealed: every
+ * sealed segment that is less than half alive has its live entries copied to the active segment
+ * and is deleted. Dropping an entry appends a tombstone record for its name, so reopening the
+ * storage can't bring back any of its saved contents. Compaction keeps copying a tombstone while
+ * there is an older segment that could hold contents for its name.
+ * <p>
+ * The validators of an entry (the ETag and Last-Modified of its response) are saved in its record,
+ * before the contents. Refreshing an entry (after a 304 Not Modified) appends it again with the new
+ * expiration.
+ * <p>
+ * Saves with saveInBackground are done, in order, in a storage-owned thread.
+ */
+public final class SegmentStorage_JavaDesktop
+   extends
+      IStorage {
+
+   private static final Charset UTF_8             = Charset.forName("UTF-8");
+   private static final String  SEGMENT_EXTENSION = ".segment";
+
+   private static final byte    BUFFER_TABLE      = 0;
+   private static final byte    IMAGE_TABLE       = 1;
+   // or-ed to the table of a tombstone record, that has no contents
+   private static final byte    TOMBSTONE_FLAG    = (byte) 0x80;
+   // or-ed to the table of a record whose contents start with the validators of the entry: their
+   // length(4) and the ETag and Last-Modified, separated by a line break
+   private static final byte    VALIDATORS_FLAG   = (byte) 0x40;
+
+   // table(1) + nameLength(4) + contentsLength(4) + expiration(8) + crc of the header and the name(4)
+   private static final int     HEADER_SIZE       = 21;
+
+
+   private static final class Segment {
+      private final long        _id;
+      private final File        _file;
+      private final FileChannel _channel;
+      private long              _size;
+      private long              _liveBytes;
+
+
+      private Segment(final long id,
+                      final File file) throws IOException {
+         _id = id;
+         _file = file;
+         _channel = new RandomAccessFile(file, "rw").getChannel();
+         _size = 0;
+         _liveBytes = 0;
+      }
+
+
+      private void read(final ByteBuffer buffer,
+                        final long position) throws IOException {
+         long offset = position;
+         while (buffer.hasRemaining()) {
+            final int length = _channel.read(buffer, offset);
+            if (length < 0) {
+               throw new IOException("Premature end of segment " + _file);
+            }
+            offset += length;
+         }
+         buffer.flip();
+      }
+
+
+      private void close() {
+         try {
+            _channel.close();
+         }
+         catch (final IOException e) {
+            ILogger.instance().logError("SegmentStorage_JavaDesktop: Can't close " + _file + ": " + e);
+         }
+      }
+   }
+
+
+   private static final class Entry {
+      private final byte   _table;
+      private final String _name;
+      private Segment      _segment;
+      private long         _contentsPosition;
+      private final int    _contentsLength;
+      private final long   _expiration;
+      private final int    _recordSize;
+      private final String _eTag;
+      private final String _lastModified;
+
+
+      private Entry(final byte table,
+                    final String name,
+                    final Segment segment,
+                    final long contentsPosition,
+                    final int contentsLength,
+                    final long expiration,
+                    final int recordSize,
+                    final String eTag,
+                    final String lastModified) {
+         _table = table;
+         _name = name;
+         _segment = segment;
+         _contentsPosition = contentsPosition;
+         _contentsLength = contentsLength;
+         _expiration = expiration;
+         _recordSize = recordSize;
+         _eTag = eTag;
+         _lastModified = lastModified;
+      }
+   }
+
+
+   private static final class Tombstone {
+      private final byte   _table;
+      private final String _name;
+      private Segment      _segment;
+
+
+      private Tombstone(final byte table,
+                        final String name,
+                        final Segment segment) {
+         _table = table;
+         _name = name;
+         _segment = segment;
+      }
+   }
+
+
+   private final File                     _directory;
+   private final long                     _maxSize;
+   private final long                     _maxSegmentSize;
+
+   // accessOrder=true, iteration goes from the least to the most recently used entry
+   private final LinkedHashMap<String, Entry> _index = new LinkedHashMap<String, Entry>(1024, 0.75f, true);
+   // the tombstones of the dropped entries, while their names aren't saved again
+   private final HashMap<String, Tombstone> _tombstones = new HashMap<String, Tombstone>();
+   private final List<Segment>            _segments = new ArrayList<Segment>();
+   private Segment                        _activeSegment;
+   private long                           _liveBytes;
+
+   private boolean                        _open;
+   private ExecutorService                _backgroundExecutor;
+
+
+   public SegmentStorage_JavaDesktop(final String directoryPath,
+                                     final long maxSize) {
+      this(directoryPath, maxSize, 64 * 1024 * 1024);
+   }
+
+
+   public SegmentStorage_JavaDesktop(final String directoryPath,
+                                     final long maxSize,
+                                     final long maxSegmentSize) {
+      _directory = new File(directoryPath);
+      _maxSize = maxSize;
+      _maxSegmentSize = maxSegmentSize;
+      open();
+   }
+
+
+   private static String key(final byte table,
+                             final String name) {
+      return (table == BUFFER_TABLE) ? "B" + name : "I" + name;
+   }
+
+
+   private synchronized void open() {
+      if (_open) {
+         return;
+      }
+
+      if (!_directory.isDirectory() && !_directory.mkdirs()) {
+         ILogger.instance().logError("SegmentStorage_JavaDesktop: Can't create directory " + _directory);
+         return;
+      }
+
+      final File[] files = _directory.listFiles(new FilenameFilter() {
+         @Override
+         public boolean accept(final File dir,
+                               final String name) {
+            return name.endsWith(SEGMENT_EXTENSION);
+         }
+      });
+      // the file names are zero-padded ids, sorting them sorts the segments from the oldest to the newest
+      Arrays.sort(files);
+
+      try {
+         for (final File file : files) {
+            final String fileName = file.getName();
+            final long id = Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_EXTENSION.length()));
+            final Segment segment = new Segment(id, file);
+            _segments.add(segment);
+            scan(segment);
+         }
+      }
+      catch (final IOException e) {
+         ILogger.instance().logError("SegmentStorage_JavaDesktop: Can't open " + _directory + ": " + e);
+         closeSegments();
+         return;
+      }
+
+      _activeSegment = _segments.isEmpty() ? null : _segments.get(_segments.size() - 1);
+      _backgroundExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+         @Override
+         public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "SegmentStorage_JavaDesktop " + _directory.getName());
+            thread.setDaemon(true);
+            return thread;
+         }
+      });
+      _open = true;
+
+      evict();
+   }
+
+
+   /**
+    * Adds the records of the segment to the index. A record that can't be fully read (a save
+    * interrupted by a crash) ends the segment, the file is truncated there.
+    */
+   private void scan(final Segment segment) throws IOException {
+      final long fileSize = segment._channel.size();
+      final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      final CRC32 crc = new CRC32();
+
+      long position = 0;
+      while ((position + HEADER_SIZE) <= fileSize) {
+         header.clear();
+         segment.read(header, position);
+         final byte table = header.get();
+         final int nameLength = header.getInt();
+         final int contentsLength = header.getInt();
+         final long expiration = header.getLong();
+         final int recordCRC = header.getInt();
+
+         if ((nameLength < 0) || (contentsLength < 0) || ((position + HEADER_SIZE + nameLength + contentsLength) > fileSize)) {
+            break;
+         }
+
+         final ByteBuffer nameBuffer = ByteBuffer.allocate(nameLength);
+         segment.read(nameBuffer, position + HEADER_SIZE);
+
+         crc.reset();
+         crc.update(header.array(), 0, HEADER_SIZE - 4);
+         crc.update(nameBuffer.array(), 0, nameLength);
+         if ((int) crc.getValue() != recordCRC) {
+            break;
+         }
+
+         final int recordSize = HEADER_SIZE + nameLength + contentsLength;
+         final String name = new String(nameBuffer.array(), UTF_8);
+         if ((table & TOMBSTONE_FLAG) != 0) {
+            final byte droppedTable = (byte) (table & ~TOMBSTONE_FLAG);
+            final Entry dropped = _index.remove(key(droppedTable, name));
+            if (dropped != null) {
+               removeLiveBytes(dropped);
+            }
+            _tombstones.put(key(droppedTable, name), new Tombstone(droppedTable, name, segment));
+         }
+         else if ((table & VALIDATORS_FLAG) != 0) {
+            final long validatorsPosition = position + HEADER_SIZE + nameLength;
+            final ByteBuffer validatorsLength = ByteBuffer.allocate(4);
+            segment.read(validatorsLength, validatorsPosition);
+            final int length = validatorsLength.getInt();
+            if ((length < 0) || ((4 + length) > contentsLength)) {
+               break;
+            }
+
+            final ByteBuffer validators = ByteBuffer.allocate(length);
+            segment.read(validators, validatorsPosition + 4);
+            final String[] eTagAndLastModified = decodeValidators(validators.array());
+
+            addToIndex(new Entry((byte) (table & ~VALIDATORS_FLAG), name, segment, validatorsPosition + 4 + length,
+                     contentsLength - 4 - length, expiration, recordSize, eTagAndLastModified[0], eTagAndLastModified[1]));
+         }
+         else {
+            addToIndex(new Entry(table, name, segment, position + HEADER_SIZE + nameLength, contentsLength, expiration, recordSize,
+                     "", ""));
+         }
+
+         position += recordSize;
+      }
+
+      if (position < fileSize) {
+         ILogger.instance().logWarning("SegmentStorage_JavaDesktop: Truncating " + segment._file + " at " + position + " of "
+                                       + fileSize + " bytes");
+         segment._channel.truncate(position);
+      }
+      segment._size = position;
+   }
+
+
+   private void addToIndex(final Entry entry) {
+      final String key = key(entry._table, entry._name);
+      final Entry previous = _index.put(key, entry);
+      if (previous != null) {
+         removeLiveBytes(previous);
+      }
+      // the entry shadows any older contents, the tombstone isn't needed anymore
+      _tombstones.remove(key);
+      entry._segment._liveBytes += entry._recordSize;
+      _liveBytes += entry._recordSize;
+   }
+
+
+   private void removeLiveBytes(final Entry entry) {
+      entry._segment._liveBytes -= entry._recordSize;
+      _liveBytes -= entry._recordSize;
+   }
+
+
+   private void evict() {
+      final Iterator<Entry> iterator = _index.values().iterator();
+      while ((_liveBytes > _maxSize) && iterator.hasNext()) {
+         final Entry entry = iterator.next();
+         iterator.remove();
+         removeLiveBytes(entry);
+         writeTombstone(entry._table, entry._name);
+      }
+   }
+
+
+   private void writeTombstone(final byte table,
+                               final String name) {
+      try {
+         final Segment segment = getActiveSegment();
+         append(segment, (byte) (table | TOMBSTONE_FLAG), name.getBytes(UTF_8), null, new byte[0], 0);
+         _tombstones.put(key(table, name), new Tombstone(table, name, segment));
+      }
+      catch (final IOException e) {
+         ILogger.instance().logError("SegmentStorage_JavaDesktop: Can't drop \"%s\": %s", name, e.toString());
+      }
+   }
+
+
+   private Segment getActiveSegment() throws IOException {
+      if ((_activeSegment == null) || (_activeSegment._size >= _maxSegmentSize)) {
+         final Segment sealedSegment = _activeSegment;
+
+         final long id = (_activeSegment == null) ? 1 : _activeSegment._id + 1;
+         _activeSegment = new Segment(id, new File(_directory, String.format("%016d", id) + SEGMENT_EXTENSION));
+         _segments.add(_activeSegment);
+
+         if (sealedSegment != null) {
+            compact();
+         }
+      }
+      return _activeSegment;
+   }
+
+
+   private void compact() throws IOException {
+      // the segments go from the oldest to the newest
+      boolean olderSegments = false;
+      for (final Iterator<Segment> iterator = _segments.iterator(); iterator.hasNext();) {
+         final Segment segment = iterator.next();
+         if ((segment != _activeSegment) && ((segment._liveBytes * 2) < segment._size)) {
+            for (final Entry entry : _index.values()) {
+               if (entry._segment == segment) {
+                  final ByteBuffer contents = ByteBuffer.allocate(entry._contentsLength);
+                  segment.read(contents, entry._contentsPosition);
+
+                  // moved in place, without changing its LRU position
+                  segment._liveBytes -= entry._recordSize;
+                  entry._segment = _activeSegment;
+                  entry._contentsPosition = append(_activeSegment, entry._table, entry._name.getBytes(UTF_8),
+                           encodeValidators(entry._eTag, entry._lastModified), contents.array(), entry._expiration);
+                  _activeSegment._liveBytes += entry._recordSize;
+               }
+            }
+            for (final Iterator<Tombstone> tombstones = _tombstones.values().iterator(); tombstones.hasNext();) {
+               final Tombstone tombstone = tombstones.next();
+               if (tombstone._segment == segment) {
+                  if (olderSegments) {
+                     tombstone._segment = _activeSegment;
+                     append(_activeSegment, (byte) (tombstone._table | TOMBSTONE_FLAG), tombstone._name.getBytes(UTF_8),
+                              null, new byte[0], 0);
+                  }
+                  else {
+                     // there are no older contents left to shadow
+                     tombstones.remove();
+                  }
+               }
+            }
+            iterator.remove();
+            segment.close();
+            if (!segment._file.delete()) {
+               ILogger.instance().logError("SegmentStorage_JavaDesktop: Can't delete " + segment._file);
+            }
+         }
+         else {
+            olderSegments = true;
+         }
+      }
+   }
+
+
+   /**
+    * Returns null if there are no validators.
+    */
+   private static byte[] encodeValidators(final String eTag,
+                                          final String lastModified) {
+      if (eTag.isEmpty() && lastModified.isEmpty()) {
+         return null;
+      }
+      // the header values can't hold line breaks
+      return (eTag + "\n" + lastModified).getBytes(UTF_8);
+   }
+
+
+   private static String[] decodeValidators(final byte[] validators) {
+      final String eTagAndLastModified = new String(validators, UTF_8);
+      final int separator = eTagAndLastModified.indexOf('\n');
+      if (separator < 0) {
+         return new String[] { eTagAndLastModified, "" };
+      }
+      return new String[] { eTagAndLastModified.substring(0, separator), eTagAndLastModified.substring(separator + 1) };
+   }
+
+
+   private static int recordSize(final byte[] nameBytes,
+                                 final byte[] validators,
+                                 final byte[] contents) {
+      return HEADER_SIZE + nameBytes.length + ((validators == null) ? 0 : 4 + validators.length) + contents.length;
+   }
+
+
+   /**
+    * Appends a record to the segment, returns the position of the contents.
+    */
+   private static long append(final Segment segment,
+                              final byte table,
+                              final byte[] nameBytes,
+                              final byte[] validators,
+                              final byte[] contents,
+                              final long expiration) throws IOException {
+      final int recordSize = recordSize(nameBytes, validators, contents);
+      final ByteBuffer record = ByteBuffer.allocate(recordSize);
+      record.put((validators == null) ? table : (byte) (table | VALIDATORS_FLAG));
+      record.putInt(nameBytes.length);
+      record.putInt(recordSize - HEADER_SIZE - nameBytes.length);
+      record.putLong(expiration);
+
+      final CRC32 crc = new CRC32();
+      crc.update(record.array(), 0, HEADER_SIZE - 4);
+      crc.update(nameBytes, 0, nameBytes.length);
+      record.putInt((int) crc.getValue());
+
+      record.put(nameBytes);
+      if (validators != null) {
+         record.putInt(validators.length);
+         record.put(validators);
+      }
+      record.put(contents);
+      record.flip();
+
+      final long position = segment._size;
+      long offset = position;
+      while (record.hasRemaining()) {
+         offset += segment._channel.write(record, offset);
+      }
+      segment._size = offset;
+
+      return position + recordSize - contents.length;
+   }
+
+
+   private synchronized void rawSave(final byte table,
+                                     final String name,
+                                     final byte[] contents,
+                                     final long expiration,
+                                     final String eTag,
+                                     final String lastModified) {
+      if (!_open) {
+         ILogger.instance().logError("SegmentStorage_JavaDesktop: Can't save \"%s\", the storage is closed", name);
+         return;
+      }
+
+      try {
+         final byte[] nameBytes = name.getBytes(UTF_8);
+         final byte[] validators = encodeValidators(eTag, lastModified);
+         final Segment segment = getActiveSegment();
+         final long contentsPosition = append(segment, table, nameBytes, validators, contents, expiration);
+         final int recordSize = recordSize(nameBytes, validators, contents);
+         addToIndex(new Entry(table, name, segment, contentsPosition, contents.length, expiration, recordSize, eTag,
+                  lastModified));
+         evict();
+      }
+      catch (final IOException e) {
+         ILogger.instance().logError("SegmentStorage_JavaDesktop: Can't save \"%s\": %s", name, e.toString());
+      }
+   }
+
+
+   /**
+    * Appends the entry again with the new expiration, if it's still in the index.
+    */
+   private synchronized void rawRefresh(final byte table,
+                                        final String name,
+                                        final long expiration) {
+      if (!_open) {
+         return;
+      }
+
+      final Entry entry = _index.get(key(table, name));
+      if ((entry == null) || (entry._expiration >= expiration)) {
+         return;
+      }
+
+      try {
+         final ByteBuffer contents = ByteBuffer.allocate(entry._contentsLength);
+         entry._segment.read(contents, entry._contentsPosition);
+         rawSave(table, name, contents.array(), expiration, entry._eTag, entry._lastModified);
+      }
+      catch (final IOException e) {
+         ILogger.instance().logError("SegmentStorage_JavaDesktop: Can't refresh \"%s\": %s", name, e.toString());
+      }
+   }
+
+
+   private void execute(final Runnable task,
+                        final boolean inBackground) {
+      final ExecutorService backgroundExecutor;
+      synchronized (this) {
+         backgroundExecutor = _backgroundExecutor;
+      }
+
+      if (inBackground && (backgroundExecutor != null)) {
+         backgroundExecutor.execute(task);
+      }
+      else {
+         task.run();
+      }
+   }
+
+
+   // saturated, TimeInterval.forever() would overflow the sum
+   private static long expiration(final TimeInterval timeToExpires) {
+      final long now = System.currentTimeMillis();
+      final long timeToExpiresInMS = timeToExpires.milliseconds();
+      return (timeToExpiresInMS >= (Long.MAX_VALUE - now)) ? Long.MAX_VALUE : (now + timeToExpiresInMS);
+   }
+
+
+   private void save(final byte table,
+                     final String name,
+                     final byte[] contents,
+                     final TimeInterval timeToExpires,
+                     final boolean saveInBackground,
+                     final String eTag,
+                     final String lastModified) {
+      final long expiration = expiration(timeToExpires);
+
+      execute(new Runnable() {
+         @Override
+         public void run() {
+            rawSave(table, name, contents, expiration, eTag, lastModified);
+         }
+      }, saveInBackground);
+   }
+
+
+   private void refresh(final byte table,
+                        final String name,
+                        final TimeInterval timeToExpires,
+                        final boolean saveInBackground) {
+      final long expiration = expiration(timeToExpires);
+
+      execute(new Runnable() {
+         @Override
+         public void run() {
+            rawRefresh(table, name, expiration);
+         }
+      }, saveInBackground);
+   }
+
+
+   /**
+    * Returns the contents, the expiration and the validators of the entry, or null if there is no
+    * entry (or it is expired and readExpired is false).
+    */
+   private synchronized byte[] rawRead(final byte table,
+                                       final String name,
+                                       final boolean readExpired,
+                                       final long now,
+                                       final long[] expiration,
+                                       final String[] validators) {
+      if (!_open) {
+         return null;
+      }
+
+      final Entry entry = _index.get(key(table, name));
+      if (entry == null) {
+         return null;
+      }
+
+      expiration[0] = entry._expiration;
+      validators[0] = entry._eTag;
+      validators[1] = entry._lastModified;
+      if ((entry._expiration <= now) && !readExpired) {
+         return null;
+      }
+
+      try {
+         final ByteBuffer contents = ByteBuffer.allocate(entry._contentsLength);
+         entry._segment.read(contents, entry._contentsPosition);
+         return contents.array();
+      }
+      catch (final IOException e) {
+         ILogger.instance().logError("SegmentStorage_JavaDesktop: Can't read \"%s\": %s", name, e.toString());
+         return null;
+      }
+   }
+
+
+   @Override
+   public IByteBufferResult readBuffer(final URL url,
+                                       final boolean readExpired) {
+      final long now = System.currentTimeMillis();
+      final long[] expiration = new long[] { Long.MAX_VALUE };
+      final String[] validators = new String[] { "", "" };
+      final byte[] data = rawRead(BUFFER_TABLE, url._path, readExpired, now, expiration, validators);
+
+      final long timeToExpire = expiration[0] - now;
+      return new IByteBufferResult((data == null) ? null : new ByteBuffer_JavaDesktop(data), timeToExpire <= 0,
+               Math.max(timeToExpire, 0), validators[0], validators[1]);
+   }
+
+
+   @Override
+   public IImageResult readImage(final URL url,
+                                 final boolean readExpired) {
+      final long now = System.currentTimeMillis();
+      final long[] expiration = new long[] { Long.MAX_VALUE };
+      final String[] validators = new String[] { "", "" };
+      final byte[] data = rawRead(IMAGE_TABLE, url._path, readExpired, now, expiration, validators);
+
+      final long timeToExpire = expiration[0] - now;
+      return new IImageResult((data == null) ? null : createImage(data), timeToExpire <= 0, Math.max(timeToExpire, 0),
+               validators[0], validators[1]);
+   }
+
+
+   @Override
+   public void saveBuffer(final URL url,
+                          final IByteBuffer buffer,
+                          final TimeInterval timeToExpires,
+                          final boolean saveInBackground) {
+      saveBufferWithValidators(url, buffer, timeToExpires, saveInBackground, "", "");
+   }
+
+
+   @Override
+   public void saveImage(final URL url,
+                         final IImage image,
+                         final TimeInterval timeToExpires,
+                         final boolean saveInBackground) {
+      saveImageWithValidators(url, image, timeToExpires, saveInBackground, "", "");
+   }
+
+
+   @Override
+   public void saveBufferWithValidators(final URL url,
+                                        final IByteBuffer buffer,
+                                        final TimeInterval timeToExpires,
+                                        final boolean saveInBackground,
+                                        final String eTag,
+                                        final String lastModified) {
+      final byte[] contents = ((ByteBuffer_JavaDesktop) buffer).getBuffer().array();
+
+      save(BUFFER_TABLE, url._path, contents, timeToExpires, saveInBackground, eTag, lastModified);
+   }
+
+
+   @Override
+   public void saveImageWithValidators(final URL url,
+                                       final IImage image,
+                                       final TimeInterval timeToExpires,
+                                       final boolean saveInBackground,
+                                       final String eTag,
+                                       final String lastModified) {
+      final byte[] contents = getImageContents(image);
+      if (contents == null) {
+         return;
+      }
+
+      save(IMAGE_TABLE, url._path, contents, timeToExpires, saveInBackground, eTag, lastModified);
+   }
+
+
+   @Override
+   public void refreshBuffer(final URL url,
+                             final TimeInterval timeToExpires,
+                             final boolean saveInBackground) {
+      refresh(BUFFER_TABLE, url._path, timeToExpires, saveInBackground);
+   }
+
+
+   @Override
+   public void refreshImage(final URL url,
+                            final TimeInterval timeToExpires,
+                            final boolean saveInBackground) {
+      refresh(IMAGE_TABLE, url._path, timeToExpires, saveInBackground);
+   }
+
+
+   private static byte[] getImageContents(final IImage image) {
+      final byte[] contents = ((Image_JavaDesktop) image).getEncodedData();
+      if (contents == null) {
+         ILogger.instance().logError("SegmentStorage_JavaDesktop: Can't encode image " + image.description());
+      }
+      return contents;
+   }
+
+
+   private static IImage createImage(final byte[] data) {
+      final IImage image = Image_JavaDesktop.createFromData(data);
+      if (image == null) {
+         ILogger.instance().logError("SegmentStorage_JavaDesktop: Can't create image from content of storage");
+      }
+      return image;
+   }
+
+
+   private void closeSegments() {
+      for (final Segment segment : _segments) {
+         segment.close();
+      }
+      _segments.clear();
+      _index.clear();
+      _tombstones.clear();
+      _activeSegment = null;
+      _liveBytes = 0;
+   }
+
+
+   /**
+    * Waits for the pending background saves and closes the segments.
+    */
+   public void close() {
+      final ExecutorService backgroundExecutor;
+      synchronized (this) {
+         backgroundExecutor = _backgroundExecutor;
+         _backgroundExecutor = null;
+      }
+
+      if (backgroundExecutor != null) {
+         backgroundExecutor.shutdown();
+         try {
+            backgroundExecutor.awaitTermination(1, TimeUnit.MINUTES);
+         }
+         catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      }
+
+      synchronized (this) {
+         if (_open) {
+            try {
+               if (_activeSegment != null) {
+                  _activeSegment._channel.force(false);
+               }
+            }
+            catch (final IOException e) {
+               ILogger.instance().logError("SegmentStorage_JavaDesktop: Can't flush " + _activeSegment._file + ": " + e);
+            }
+            closeSegments();
+            _open = false;
+         }
+      }
+   }
+
+
+   @Override
+   public void onResume(final G3MContext context) {
+      open();
+   }
+
+
+   @Override
+   public void onPause(final G3MContext context) {
+      close();
+   }
+
+
+   @Override
+   public void onDestroy(final G3MContext context) {
+      close();
+   }
+
+
+   @Override
+   public synchronized boolean isAvailable() {
+      return _open;
+   }
+
+
+   /**
+    * Copies the entries of the storage at databasePath (another SegmentStorage_JavaDesktop
+    * directory), keeping for every name the latest expiration.
+    */
+   @Override
+   public void merge(final String databasePath) {
+      if (!new File(databasePath).isDirectory()) {
+         return;
+      }
+
+      final SegmentStorage_JavaDesktop from = new SegmentStorage_JavaDesktop(databasePath, Long.MAX_VALUE, _maxSegmentSize);
+      try {
+         final List<Entry> entries;
+         synchronized (from) {
+            entries = new ArrayList<Entry>(from._index.values());
+         }
+
+         for (final Entry entry : entries) {
+            final long[] expiration = new long[] { entry._expiration };
+            final String[] validators = new String[] { "", "" };
+            final byte[] contents = from.rawRead(entry._table, entry._name, true, System.currentTimeMillis(), expiration,
+                     validators);
+            if (contents != null) {
+               synchronized (this) {
+                  final Entry current = _index.get(key(entry._table, entry._name));
+                  if (current != null) {
+                     expiration[0] = Math.max(expiration[0], current._expiration);
+                  }
+               }
+               rawSave(entry._table, entry._name, contents, expiration[0], validators[0], validators[1]);
+            }
+         }
+      }
+      finally {
+         from.close();
+      }
+   }
+
+
+   public synchronized long getLiveBytes() {
+      return _liveBytes;
+   }
+
+
+   public synchronized int getEntriesCount() {
+      return _index.size();
+   }
+
+
+}
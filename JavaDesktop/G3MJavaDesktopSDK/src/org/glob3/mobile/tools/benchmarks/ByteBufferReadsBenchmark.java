@@ -0,0 +1,249 @@
+
+
+package org.glob3.mobile.tools.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.glob3.mobile.generated.BSONGenerator;
+import org.glob3.mobile.generated.BSONParser;
+import org.glob3.mobile.generated.ByteBufferIterator;
+import org.glob3.mobile.generated.GEOJSONParser;
+import org.glob3.mobile.generated.GEOObject;
+import org.glob3.mobile.generated.IByteBuffer;
+import org.glob3.mobile.generated.IFactory;
+import org.glob3.mobile.generated.IJSONParser;
+import org.glob3.mobile.generated.ILogger;
+import org.glob3.mobile.generated.IMathUtils;
+import org.glob3.mobile.generated.IStringBuilder;
+import org.glob3.mobile.generated.IStringUtils;
+import org.glob3.mobile.generated.JSONBaseObject;
+import org.glob3.mobile.generated.LogLevel;
+import org.glob3.mobile.specific.ByteBuffer_JavaDesktop;
+import org.glob3.mobile.specific.Factory_JavaDesktop;
+import org.glob3.mobile.specific.JSONParser_JavaDesktop;
+import org.glob3.mobile.specific.Logger_JavaDesktop;
+import org.glob3.mobile.specific.MathUtils_JavaDesktop;
+import org.glob3.mobile.specific.StringBuilder_JavaDesktop;
+import org.glob3.mobile.specific.StringUtils_JavaDesktop;
+
+
+/*
+ * Measures the reads through ByteBufferIterator: one value at a time against the bulk reads into arrays, and the
+ * parsing of a BSON document with BSONParser and GEOJSONParser.
+ *
+ * The BSON document is generated from a GeoJSON file, given as the first argument (the roads of the Monaco demo by
+ * default). Reports the median throughput of several runs (after some warm-up runs).
+ */
+public class ByteBufferReadsBenchmark {
+
+   // enough runs for the JIT to settle on a single core
+   private static final int    WARMUP_RUNS      = 10;
+   private static final int    MEASURED_RUNS    = 9;
+   private static final int    PRIMITIVES_BYTES = 4 * 1024 * 1024;
+   // every run reads the buffer as many times as needed to read at least this
+   private static final int    RUN_BYTES        = 32 * 1024 * 1024;
+   private static final String DEFAULT_GEOJSON  = "Android/G3MAndroidDemo/assets/roads_monaco.geojson";
+
+   // the bulk reads go to arrays allocated once, as a parser reusing its buffers would do
+   private static final short[] _shorts = new short[PRIMITIVES_BYTES / 2];
+   private static final int[]   _ints   = new int[PRIMITIVES_BYTES / 4];
+   private static final float[] _floats = new float[PRIMITIVES_BYTES / 4];
+
+
+   private interface Reader {
+      // returns a checksum of what was read, so the JIT can't drop the reads
+      long read(IByteBuffer buffer);
+   }
+
+
+   private static final Reader INT16_PER_VALUE = new Reader() {
+      @Override
+      public long read(final IByteBuffer buffer) {
+         final ByteBufferIterator iterator = new ByteBufferIterator(buffer);
+         final int count = buffer.size() / 2;
+         long checksum = 0;
+         for (int i = 0; i < count; i++) {
+            checksum = (checksum * 31) + iterator.nextInt16();
+         }
+         return checksum;
+      }
+   };
+
+   private static final Reader INT16_BULK      = new Reader() {
+      @Override
+      public long read(final IByteBuffer buffer) {
+         final ByteBufferIterator iterator = new ByteBufferIterator(buffer);
+         final int count = buffer.size() / 2;
+         final short[] values = _shorts;
+         iterator.nextInt16(count, values);
+         long checksum = 0;
+         for (int i = 0; i < count; i++) {
+            checksum = (checksum * 31) + values[i];
+         }
+         return checksum;
+      }
+   };
+
+   private static final Reader INT32_PER_VALUE = new Reader() {
+      @Override
+      public long read(final IByteBuffer buffer) {
+         final ByteBufferIterator iterator = new ByteBufferIterator(buffer);
+         final int count = buffer.size() / 4;
+         long checksum = 0;
+         for (int i = 0; i < count; i++) {
+            checksum = (checksum * 31) + iterator.nextInt32();
+         }
+         return checksum;
+      }
+   };
+
+   private static final Reader INT32_BULK      = new Reader() {
+      @Override
+      public long read(final IByteBuffer buffer) {
+         final ByteBufferIterator iterator = new ByteBufferIterator(buffer);
+         final int count = buffer.size() / 4;
+         final int[] values = _ints;
+         iterator.nextInt32(count, values);
+         long checksum = 0;
+         for (int i = 0; i < count; i++) {
+            checksum = (checksum * 31) + values[i];
+         }
+         return checksum;
+      }
+   };
+
+   private static final Reader FLOAT_PER_VALUE = new Reader() {
+      @Override
+      public long read(final IByteBuffer buffer) {
+         final ByteBufferIterator iterator = new ByteBufferIterator(buffer);
+         final int count = buffer.size() / 4;
+         long checksum = 0;
+         for (int i = 0; i < count; i++) {
+            checksum = (checksum * 31) + Float.floatToRawIntBits(iterator.nextFloat());
+         }
+         return checksum;
+      }
+   };
+
+   private static final Reader FLOAT_BULK      = new Reader() {
+      @Override
+      public long read(final IByteBuffer buffer) {
+         final ByteBufferIterator iterator = new ByteBufferIterator(buffer);
+         final int count = buffer.size() / 4;
+         final float[] values = _floats;
+         iterator.nextFloat(count, values);
+         long checksum = 0;
+         for (int i = 0; i < count; i++) {
+            checksum = (checksum * 31) + Float.floatToRawIntBits(values[i]);
+         }
+         return checksum;
+      }
+   };
+
+   private static final Reader BSON            = new Reader() {
+      @Override
+      public long read(final IByteBuffer buffer) {
+         final JSONBaseObject object = BSONParser.parse(buffer);
+         final long checksum = (object == null) ? 0 : 1;
+         if (object != null) {
+            object.dispose();
+         }
+         return checksum;
+      }
+   };
+
+   private static final Reader GEOJSON_BSON    = new Reader() {
+      @Override
+      public long read(final IByteBuffer buffer) {
+         final GEOObject object = GEOJSONParser.parseBSON(buffer, false);
+         final long checksum = (object == null) ? 0 : 1;
+         if (object != null) {
+            object.dispose();
+         }
+         return checksum;
+      }
+   };
+
+
+   private static long run(final String name,
+                           final Reader reader,
+                           final IByteBuffer buffer) {
+      final int readsPerRun = (RUN_BYTES + buffer.size() - 1) / buffer.size();
+
+      long checksum = 0;
+      for (int i = 0; i < WARMUP_RUNS; i++) {
+         for (int j = 0; j < readsPerRun; j++) {
+            checksum = reader.read(buffer);
+         }
+      }
+
+      final long[] times = new long[MEASURED_RUNS];
+      for (int i = 0; i < MEASURED_RUNS; i++) {
+         final long started = System.nanoTime();
+         for (int j = 0; j < readsPerRun; j++) {
+            checksum = reader.read(buffer);
+         }
+         times[i] = System.nanoTime() - started;
+      }
+      Arrays.sort(times);
+      final double medianNsPerRead = (double) times[MEASURED_RUNS / 2] / readsPerRun;
+      final double mbPerSecond = (buffer.size() / (1024.0 * 1024.0)) / (medianNsPerRead / 1e9);
+
+      System.out.println(String.format("  %-24s time=%9.2fms  throughput=%8.1fMB/s", name, medianNsPerRead / 1e6,
+               mbPerSecond));
+      return checksum;
+   }
+
+
+   private static void compare(final String name,
+                               final Reader perValue,
+                               final Reader bulk,
+                               final IByteBuffer buffer) {
+      final long perValueChecksum = run(name + " per value", perValue, buffer);
+      final long bulkChecksum = run(name + " bulk", bulk, buffer);
+      if (perValueChecksum != bulkChecksum) {
+         throw new RuntimeException("The bulk " + name + " reads don't match the per value ones");
+      }
+   }
+
+
+   public static void main(final String[] args) throws IOException {
+      System.out.println("ByteBufferReadsBenchmark 0.1");
+      System.out.println("----------------------------\n");
+
+      IStringBuilder.setInstance(new StringBuilder_JavaDesktop(IStringBuilder.DEFAULT_FLOAT_PRECISION));
+      ILogger.setInstance(new Logger_JavaDesktop(LogLevel.ErrorLevel));
+      IMathUtils.setInstance(new MathUtils_JavaDesktop());
+      IFactory.setInstance(new Factory_JavaDesktop());
+      IJSONParser.setInstance(new JSONParser_JavaDesktop());
+      IStringUtils.setInstance(new StringUtils_JavaDesktop());
+
+      final byte[] bytes = new byte[PRIMITIVES_BYTES];
+      new Random(PRIMITIVES_BYTES).nextBytes(bytes);
+      final IByteBuffer primitives = new ByteBuffer_JavaDesktop(bytes);
+
+      System.out.println("Primitives of " + (PRIMITIVES_BYTES / 1024) + " KB:");
+      compare("nextInt16", INT16_PER_VALUE, INT16_BULK, primitives);
+      compare("nextInt32", INT32_PER_VALUE, INT32_BULK, primitives);
+      compare("nextFloat", FLOAT_PER_VALUE, FLOAT_BULK, primitives);
+      System.out.println();
+
+      final String geoJSONPath = (args.length > 0) ? args[0] : DEFAULT_GEOJSON;
+      final String geoJSON = new String(Files.readAllBytes(Paths.get(geoJSONPath)), StandardCharsets.UTF_8);
+      final JSONBaseObject json = IJSONParser.instance().parse(geoJSON);
+      final IByteBuffer bson = BSONGenerator.generate(json);
+      json.dispose();
+
+      System.out.println("BSON of " + geoJSONPath + " (" + (bson.size() / 1024) + " KB):");
+      run("BSONParser.parse", BSON, bson);
+      run("GEOJSONParser.parseBSON", GEOJSON_BSON, bson);
+      System.out.println();
+   }
+
+
+}
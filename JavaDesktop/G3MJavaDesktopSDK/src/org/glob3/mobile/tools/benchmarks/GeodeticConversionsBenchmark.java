@@ -0,0 +1,200 @@
+
+
+package org.glob3.mobile.tools.benchmarks;
+
+import java.util.Arrays;
+
+import org.glob3.mobile.generated.EllipsoidalPlanet;
+import org.glob3.mobile.generated.FlatPlanet;
+import org.glob3.mobile.generated.FloatBufferBuilderFromGeodetic;
+import org.glob3.mobile.generated.Geodetic3D;
+import org.glob3.mobile.generated.ILogger;
+import org.glob3.mobile.generated.IMathUtils;
+import org.glob3.mobile.generated.LogLevel;
+import org.glob3.mobile.generated.Planet;
+import org.glob3.mobile.generated.Sector;
+import org.glob3.mobile.generated.SphericalPlanet;
+import org.glob3.mobile.generated.Vector3D;
+import org.glob3.mobile.specific.Logger_JavaDesktop;
+import org.glob3.mobile.specific.MathUtils_JavaDesktop;
+
+
+/*
+ * Compares the ways of filling a FloatBufferBuilderFromGeodetic with the vertices of a tile grid: one add() per vertex
+ * (what PlanetTileTessellator did before addGrid()), the bulk add() of primitive arrays and addGrid().
+ *
+ * Reports the median time per grid of several runs (after some warm-up runs), and checks that the three paths build
+ * bit-identical buffers.
+ */
+public class GeodeticConversionsBenchmark {
+
+   // enough runs for the JIT to settle on a single core
+   private static final int WARMUP_RUNS   = 10;
+   private static final int MEASURED_RUNS = 9;
+   private static final int GRIDS_PER_RUN = 2000;
+
+   // keeps the JIT from dropping the builders
+   private static long _sink;
+
+
+   private interface Filler {
+      FloatBufferBuilderFromGeodetic fill(Grid grid);
+   }
+
+
+   private static class Grid {
+      private final Planet     _planet;
+      private final Sector     _sector;
+      private final Geodetic3D _center;
+      private final int        _size;
+      private final double[]   _rowsLatitudes;
+      private final double[]   _columnsLongitudes;
+      private final double[]   _latitudes;
+      private final double[]   _longitudes;
+      private final double[]   _heights;
+
+
+      private Grid(final Planet planet,
+                   final Sector sector,
+                   final int size) {
+         _planet = planet;
+         _sector = sector;
+         _center = new Geodetic3D(sector._center, 0);
+         _size = size;
+
+         _rowsLatitudes = new double[size];
+         _columnsLongitudes = new double[size];
+         for (int i = 0; i < size; i++) {
+            _rowsLatitudes[i] = sector.getInnerPointLatitude((double) i / (size - 1))._radians;
+            _columnsLongitudes[i] = sector.getInnerPointLongitude((double) i / (size - 1))._radians;
+         }
+
+         final int count = size * size;
+         _latitudes = new double[count];
+         _longitudes = new double[count];
+         _heights = new double[count];
+         for (int j = 0; j < size; j++) {
+            for (int i = 0; i < size; i++) {
+               final int k = (j * size) + i;
+               _latitudes[k] = _rowsLatitudes[j];
+               _longitudes[k] = _columnsLongitudes[i];
+               _heights[k] = 100 + (25 * Math.sin(i * 0.3)) + (15 * Math.cos(j * 0.2));
+            }
+         }
+      }
+
+
+      private FloatBufferBuilderFromGeodetic createBuilder() {
+         return FloatBufferBuilderFromGeodetic.builderWithGivenCenter(_planet, _center);
+      }
+   }
+
+
+   private static final Filler PER_VERTEX = new Filler() {
+      @Override
+      public FloatBufferBuilderFromGeodetic fill(final Grid grid) {
+         final FloatBufferBuilderFromGeodetic builder = grid.createBuilder();
+         final int size = grid._size;
+         for (int j = 0; j < size; j++) {
+            final double v = (double) j / (size - 1);
+            for (int i = 0; i < size; i++) {
+               final double u = (double) i / (size - 1);
+               builder.add(grid._sector.getInnerPoint(u, v), grid._heights[(j * size) + i]);
+            }
+         }
+         return builder;
+      }
+   };
+
+   private static final Filler BULK       = new Filler() {
+      @Override
+      public FloatBufferBuilderFromGeodetic fill(final Grid grid) {
+         final FloatBufferBuilderFromGeodetic builder = grid.createBuilder();
+         builder.add(grid._latitudes, grid._longitudes, grid._heights, grid._heights.length);
+         return builder;
+      }
+   };
+
+   private static final Filler GRID       = new Filler() {
+      @Override
+      public FloatBufferBuilderFromGeodetic fill(final Grid grid) {
+         final FloatBufferBuilderFromGeodetic builder = grid.createBuilder();
+         builder.addGrid(grid._rowsLatitudes, grid._size, grid._columnsLongitudes, grid._size, grid._heights);
+         return builder;
+      }
+   };
+
+
+   private static boolean sameVertices(final FloatBufferBuilderFromGeodetic a,
+                                       final FloatBufferBuilderFromGeodetic b) {
+      if (a.size() != b.size()) {
+         return false;
+      }
+      final int verticesCount = a.size() / 3;
+      for (int i = 0; i < verticesCount; i++) {
+         final Vector3D va = a.getVector3D(i);
+         final Vector3D vb = b.getVector3D(i);
+         if ((Float.floatToIntBits((float) va._x) != Float.floatToIntBits((float) vb._x))
+             || (Float.floatToIntBits((float) va._y) != Float.floatToIntBits((float) vb._y))
+             || (Float.floatToIntBits((float) va._z) != Float.floatToIntBits((float) vb._z))) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+
+   private static double run(final String name,
+                             final Filler filler,
+                             final Grid grid) {
+      for (int i = 0; i < WARMUP_RUNS; i++) {
+         for (int j = 0; j < GRIDS_PER_RUN; j++) {
+            _sink += filler.fill(grid).size();
+         }
+      }
+
+      final long[] times = new long[MEASURED_RUNS];
+      for (int i = 0; i < MEASURED_RUNS; i++) {
+         final long started = System.nanoTime();
+         for (int j = 0; j < GRIDS_PER_RUN; j++) {
+            _sink += filler.fill(grid).size();
+         }
+         times[i] = System.nanoTime() - started;
+      }
+      Arrays.sort(times);
+      final double medianUs = times[MEASURED_RUNS / 2] / 1e3 / GRIDS_PER_RUN;
+
+      final boolean same = sameVertices(PER_VERTEX.fill(grid), filler.fill(grid));
+      System.out.println(String.format("  %-12s time=%9.2fus/grid  sameAsPerVertex=%b", name, medianUs, same));
+      return medianUs;
+   }
+
+
+   public static void main(final String[] args) {
+      System.out.println("GeodeticConversionsBenchmark 0.1");
+      System.out.println("--------------------------------\n");
+
+      IMathUtils.setInstance(new MathUtils_JavaDesktop());
+      ILogger.setInstance(new Logger_JavaDesktop(LogLevel.ErrorLevel));
+
+      final Planet[] planets = { EllipsoidalPlanet.createEarth(), SphericalPlanet.createEarth(), FlatPlanet.createEarth() };
+      final Sector sector = Sector.fromDegrees(10, 20, 12, 23);
+
+      // 17x17 is the default tile mesh resolution
+      final int[] gridSizes = { 17, 33, 65 };
+      for (final Planet planet : planets) {
+         for (final int gridSize : gridSizes) {
+            final Grid grid = new Grid(planet, sector, gridSize);
+
+            System.out.println(planet.getType() + " grid of " + gridSize + "x" + gridSize + " vertices:");
+            final double perVertexUs = run("PerVertex", PER_VERTEX, grid);
+            final double bulkUs = run("Bulk", BULK, grid);
+            final double gridUs = run("Grid", GRID, grid);
+            System.out.println(String.format("  speedup bulk=%.1fx grid=%.1fx", perVertexUs / bulkUs, perVertexUs / gridUs));
+            System.out.println();
+         }
+      }
+   }
+
+
+}
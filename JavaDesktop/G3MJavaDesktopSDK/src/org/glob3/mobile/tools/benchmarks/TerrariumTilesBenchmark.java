@@ -0,0 +1,214 @@
+
+
+package org.glob3.mobile.tools.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+import org.glob3.mobile.generated.FloatBufferDEMGrid;
+import org.glob3.mobile.generated.IFactory;
+import org.glob3.mobile.generated.IImage;
+import org.glob3.mobile.generated.ILogger;
+import org.glob3.mobile.generated.IMathUtils;
+import org.glob3.mobile.generated.IStringBuilder;
+import org.glob3.mobile.generated.IStringUtils;
+import org.glob3.mobile.generated.LogLevel;
+import org.glob3.mobile.generated.MapzenTerrariumParser;
+import org.glob3.mobile.generated.MutableColor255;
+import org.glob3.mobile.generated.Sector;
+import org.glob3.mobile.specific.Factory_JavaDesktop;
+import org.glob3.mobile.specific.Image_JavaDesktop;
+import org.glob3.mobile.specific.Logger_JavaDesktop;
+import org.glob3.mobile.specific.MathUtils_JavaDesktop;
+import org.glob3.mobile.specific.StringBuilder_JavaDesktop;
+import org.glob3.mobile.specific.StringUtils_JavaDesktop;
+
+
+/*
+ * Measures how many Mapzen Terrarium DEM tiles per second can be decoded from synthetic tiles encoded as PNG:
+ *
+ * - getPixel: one IImage.getPixel() call per pixel, column by column (how MapzenTerrariumParser decoded before
+ * IImage.getPixels() existed).
+ * - parse: MapzenTerrariumParser.parse(), that fetches all the pixels at once and decodes them row by row.
+ * - decode+parse: the PNG decoding (as Downloader_JavaDesktop does it) plus parse().
+ *
+ * Reports the median of several runs (after some warm-up runs), and checks the parsed elevations against the
+ * synthetic ones.
+ */
+public class TerrariumTilesBenchmark {
+
+   // enough runs for the JIT to settle on a single core
+   private static final int    WARMUP_RUNS   = 10;
+   private static final int    MEASURED_RUNS = 9;
+   private static final int    TILES_PER_RUN = 20;
+   private static final double MAX_ERROR     = 1.0 / 256;
+
+   // keeps the JIT from dropping the decoded tiles
+   private static double _sink;
+
+
+   private interface Decoder {
+      void decode(Tile tile);
+   }
+
+
+   private static class Tile {
+      private final int               _size;
+      private final double[]          _elevations;
+      private final byte[]            _png;
+      private final Image_JavaDesktop _image;
+      private final Sector            _sector;
+
+
+      private Tile(final int size) throws IOException {
+         _size = size;
+         _elevations = new double[size * size];
+
+         final BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+         for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+               // from the Dead Sea to the Everest, in 1/256 meter steps
+               final double elevation = -430 + (((x * 37) + (y * 101)) % 9000) + (((x + y) % 256) / 256.0);
+               // in the order of DEMGrid.getElevations(), that is the image order
+               _elevations[(y * size) + x] = elevation;
+
+               final int encoded = (int) Math.round((elevation + 32768) * 256);
+               image.setRGB(x, y, encoded & 0xFFFFFF);
+            }
+         }
+
+         final ByteArrayOutputStream png = new ByteArrayOutputStream();
+         ImageIO.write(image, "png", png);
+         _png = png.toByteArray();
+         _image = decodePNG(_png);
+         _sector = Sector.fromDegrees(40, 2, 41, 3);
+      }
+
+
+      private static Image_JavaDesktop decodePNG(final byte[] png) {
+         try {
+            return new Image_JavaDesktop(ImageIO.read(new ByteArrayInputStream(png)), png);
+         }
+         catch (final IOException e) {
+            throw new RuntimeException(e);
+         }
+      }
+   }
+
+
+   private static float[] decodeWithGetPixel(final IImage image) {
+      final int width = image.getWidth();
+      final int height = image.getHeight();
+      final float[] buffer = new float[width * height];
+
+      final MutableColor255 pixel = new MutableColor255((byte) 0, (byte) 0, (byte) 0, (byte) 0);
+      for (int x = 0; x < width; x++) {
+         for (int y = 0; y < height; y++) {
+            image.getPixel(x, y, pixel);
+            final int red = pixel._red & 0xFF;
+            final int green = pixel._green & 0xFF;
+            final int blue = pixel._blue & 0xFF;
+            buffer[((height - 1 - y) * width) + x] = ((red * 256.0f) + green + (blue / 256.0f)) - 32768.0f;
+         }
+      }
+      return buffer;
+   }
+
+
+   private static final Decoder GET_PIXEL    = new Decoder() {
+      @Override
+      public void decode(final Tile tile) {
+         _sink += decodeWithGetPixel(tile._image)[0];
+      }
+   };
+
+   private static final Decoder PARSE        = new Decoder() {
+      @Override
+      public void decode(final Tile tile) {
+         final FloatBufferDEMGrid grid = MapzenTerrariumParser.parse(tile._image.shallowCopy(), tile._sector, 0);
+         _sink += grid.getElevation(0, 0);
+         grid._release();
+      }
+   };
+
+   private static final Decoder DECODE_PARSE = new Decoder() {
+      @Override
+      public void decode(final Tile tile) {
+         final FloatBufferDEMGrid grid = MapzenTerrariumParser.parse(Tile.decodePNG(tile._png), tile._sector, 0);
+         _sink += grid.getElevation(0, 0);
+         grid._release();
+      }
+   };
+
+
+   private static double run(final String name,
+                             final Decoder decoder,
+                             final Tile tile) {
+      for (int i = 0; i < WARMUP_RUNS; i++) {
+         for (int j = 0; j < TILES_PER_RUN; j++) {
+            decoder.decode(tile);
+         }
+      }
+
+      final long[] times = new long[MEASURED_RUNS];
+      for (int i = 0; i < MEASURED_RUNS; i++) {
+         final long started = System.nanoTime();
+         for (int j = 0; j < TILES_PER_RUN; j++) {
+            decoder.decode(tile);
+         }
+         times[i] = System.nanoTime() - started;
+      }
+      Arrays.sort(times);
+      final double tilesPerSecond = TILES_PER_RUN / (times[MEASURED_RUNS / 2] / 1e9);
+
+      System.out.println(String.format("  %-14s %9.1f tiles/s", name, tilesPerSecond));
+      return tilesPerSecond;
+   }
+
+
+   private static void checkElevations(final Tile tile) {
+      final FloatBufferDEMGrid grid = MapzenTerrariumParser.parse(tile._image.shallowCopy(), tile._sector, 0);
+      final double[] elevations = new double[tile._size * tile._size];
+      grid.getElevations(elevations);
+      grid._release();
+
+      for (int i = 0; i < elevations.length; i++) {
+         if (Math.abs(elevations[i] - tile._elevations[i]) > MAX_ERROR) {
+            throw new RuntimeException("Wrong elevation at " + i + ": " + elevations[i] + ", expected " + tile._elevations[i]);
+         }
+      }
+   }
+
+
+   public static void main(final String[] args) throws IOException {
+      System.out.println("TerrariumTilesBenchmark 0.1");
+      System.out.println("---------------------------\n");
+
+      IStringBuilder.setInstance(new StringBuilder_JavaDesktop(IStringBuilder.DEFAULT_FLOAT_PRECISION));
+      ILogger.setInstance(new Logger_JavaDesktop(LogLevel.ErrorLevel));
+      IStringUtils.setInstance(new StringUtils_JavaDesktop());
+      IFactory.setInstance(new Factory_JavaDesktop());
+      IMathUtils.setInstance(new MathUtils_JavaDesktop());
+
+      // 256x256 is the size of the Terrarium tiles, 512x512 the size of their retina version
+      final int[] tilesSizes = { 256, 512 };
+      for (final int tileSize : tilesSizes) {
+         final Tile tile = new Tile(tileSize);
+         checkElevations(tile);
+
+         System.out.println("Tile of " + tileSize + "x" + tileSize + " pixels (" + (tile._png.length / 1024) + " KB of PNG):");
+         final double getPixelRate = run("getPixel", GET_PIXEL, tile);
+         final double parseRate = run("parse", PARSE, tile);
+         run("decode+parse", DECODE_PARSE, tile);
+         System.out.println(String.format("  speedup parse=%.1fx", parseRate / getPixelRate));
+         System.out.println();
+      }
+   }
+
+
+}
@@ -0,0 +1,318 @@
+package org.glob3.mobile.specific;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.glob3.mobile.generated.CachedDownloader;
+import org.glob3.mobile.generated.IBufferDownloadListener;
+import org.glob3.mobile.generated.IByteBuffer;
+import org.glob3.mobile.generated.IByteBufferResult;
+import org.glob3.mobile.generated.IFactory;
+import org.glob3.mobile.generated.ILogger;
+import org.glob3.mobile.generated.IMathUtils;
+import org.glob3.mobile.generated.IStringBuilder;
+import org.glob3.mobile.generated.IStringUtils;
+import org.glob3.mobile.generated.LogLevel;
+import org.glob3.mobile.generated.TimeInterval;
+import org.glob3.mobile.generated.URL;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+
+/*
+ * Checks the revalidation and the negative cache of CachedDownloader, with Downloader_JavaDesktop and
+ * SegmentStorage_JavaDesktop against a local HTTP server. Run it as a program (it throws on the first failed check).
+ * The server answers 304 to the requests with the ETag it gives, and 404 to the paths starting with "/missing".
+ */
+public class CachedDownloaderTest {
+
+   private static final class Result
+      extends
+         IBufferDownloadListener {
+
+      private final CountDownLatch _latch = new CountDownLatch(1);
+      private IByteBuffer          _buffer;
+      private boolean              _expired;
+      private boolean              _error;
+
+
+      @Override
+      public void onDownload(final URL url,
+                             final IByteBuffer buffer,
+                             final boolean expired) {
+         _buffer = buffer;
+         _expired = expired;
+         _latch.countDown();
+      }
+
+
+      @Override
+      public void onError(final URL url) {
+         _error = true;
+         _latch.countDown();
+      }
+
+
+      @Override
+      public void onCancel(final URL url) {
+         _latch.countDown();
+      }
+
+
+      @Override
+      public void onCanceledDownload(final URL url,
+                                     final IByteBuffer buffer,
+                                     final boolean expired) {
+      }
+
+
+      private void await() throws InterruptedException {
+         check(_latch.await(10, TimeUnit.SECONDS), "the listener was called in time");
+      }
+   }
+
+
+   private static final String              ETAG                 = "\"v1\"";
+   private static final String              LAST_MODIFIED        = "Wed, 21 Oct 2015 07:28:00 GMT";
+   private static final byte[]              CONTENTS             = "hello".getBytes();
+
+   private HttpServer                       _server;
+   private String                           _baseURL;
+   // the 200 and the 304 answers, by path
+   private final Map<String, AtomicInteger> _okCounters          = new ConcurrentHashMap<String, AtomicInteger>();
+   private final Map<String, AtomicInteger> _notModifiedCounters = new ConcurrentHashMap<String, AtomicInteger>();
+   private final AtomicInteger              _missingCounter      = new AtomicInteger();
+
+   private File                             _directory;
+   private SegmentStorage_JavaDesktop       _storage;
+   private Downloader_JavaDesktop           _downloader;
+   private CachedDownloader                 _cachedDownloader;
+
+
+   private static void check(final boolean condition,
+                             final String message) {
+      if (!condition) {
+         throw new RuntimeException("Check failed: " + message);
+      }
+   }
+
+
+   private static void checkEquals(final long expected,
+                                   final long actual,
+                                   final String message) {
+      if (expected != actual) {
+         throw new RuntimeException("Check failed: " + message + ", expected " + expected + " but was " + actual);
+      }
+   }
+
+
+   private static int count(final Map<String, AtomicInteger> counters,
+                            final String path) {
+      final AtomicInteger counter = counters.get(path);
+      return (counter == null) ? 0 : counter.get();
+   }
+
+
+   private static void increment(final Map<String, AtomicInteger> counters,
+                                 final String path) {
+      AtomicInteger counter = counters.get(path);
+      if (counter == null) {
+         counters.putIfAbsent(path, new AtomicInteger());
+         counter = counters.get(path);
+      }
+      counter.incrementAndGet();
+   }
+
+
+   private void startServer() throws IOException {
+      _server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+      _server.createContext("/", new HttpHandler() {
+         @Override
+         public void handle(final HttpExchange exchange) throws IOException {
+            final String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/missing")) {
+               _missingCounter.incrementAndGet();
+               exchange.sendResponseHeaders(404, -1);
+            }
+            else if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+               increment(_notModifiedCounters, path);
+               exchange.sendResponseHeaders(304, -1);
+            }
+            else {
+               increment(_okCounters, path);
+               exchange.getResponseHeaders().add("ETag", ETAG);
+               exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+               exchange.sendResponseHeaders(200, CONTENTS.length);
+               exchange.getResponseBody().write(CONTENTS);
+            }
+            exchange.close();
+         }
+      });
+      _server.start();
+      _baseURL = "http://127.0.0.1:" + _server.getAddress().getPort();
+   }
+
+
+   private void setUp() throws IOException {
+      _directory = Files.createTempDirectory("CachedDownloaderTest").toFile();
+      _storage = new SegmentStorage_JavaDesktop(_directory.getPath(), 1024 * 1024);
+      _downloader = new Downloader_JavaDesktop(2, TimeInterval.fromSeconds(5), TimeInterval.fromSeconds(5));
+      _cachedDownloader = new CachedDownloader(_downloader, _storage, false);
+      _cachedDownloader.start();
+   }
+
+
+   private void tearDown() {
+      _cachedDownloader.stop();
+      _storage.close();
+      for (final File file : _directory.listFiles()) {
+         check(file.delete(), "delete " + file);
+      }
+      check(_directory.delete(), "delete " + _directory);
+   }
+
+
+   private Result request(final String url,
+                          final TimeInterval timeToCache,
+                          final boolean readExpired) throws InterruptedException {
+      final Result result = new Result();
+      _cachedDownloader.requestBuffer(new URL(url), 1, timeToCache, readExpired, result, false, "");
+      result.await();
+      return result;
+   }
+
+
+   private Result requestStaleWhileRevalidate(final String url,
+                                              final TimeInterval timeToCache) throws InterruptedException {
+      final Result result = new Result();
+      _cachedDownloader.requestStaleWhileRevalidateBuffer(new URL(url), 1, timeToCache, result, false, "");
+      result.await();
+      return result;
+   }
+
+
+   private static void waitFor(final String what,
+                               final String statistics,
+                               final CachedDownloader cachedDownloader) throws InterruptedException {
+      for (int i = 0; (i < 200) && !cachedDownloader.statistics().contains(statistics); i++) {
+         Thread.sleep(10);
+      }
+      check(cachedDownloader.statistics().contains(statistics), what + ", " + cachedDownloader.statistics());
+   }
+
+
+   private void testExpiredEntriesAreRevalidated(final boolean readExpired) throws IOException, InterruptedException {
+      setUp();
+      final String path = "/revalidated/" + readExpired;
+      final String url = _baseURL + path;
+      checkEquals(CONTENTS.length, request(url, TimeInterval.fromMilliseconds(200), readExpired)._buffer.size(), "downloaded");
+      Thread.sleep(400);
+
+      // the entry is expired, its validators make the request conditional
+      final Result result = request(url, TimeInterval.fromDays(1), readExpired);
+      check((result._buffer != null) && (result._buffer.size() == CONTENTS.length), "the stored contents are delivered");
+      check(!result._expired, "as fresh");
+      checkEquals(1, count(_okCounters, path), "the contents are sent once");
+      checkEquals(1, count(_notModifiedCounters, path), "304 answers");
+      check(!_storage.readBuffer(new URL(url), false).isExpired(), "the storage is refreshed");
+      tearDown();
+   }
+
+
+   private void testStaleWhileRevalidate() throws IOException, InterruptedException {
+      setUp();
+      final String path = "/stale";
+      final String url = _baseURL + path;
+      checkEquals(CONTENTS.length, request(url, TimeInterval.fromMilliseconds(200), true)._buffer.size(), "downloaded");
+      check(ETAG.equals(_storage.readBuffer(new URL(url), true).getETag()), "the ETag is saved");
+      Thread.sleep(400);
+
+      final Result result = requestStaleWhileRevalidate(url, TimeInterval.fromDays(1));
+      check((result._buffer != null) && result._expired, "the expired contents are served at once");
+      waitFor("revalidated in background", "not modified=1,", _cachedDownloader);
+      checkEquals(1, count(_okCounters, path), "the contents are sent once");
+      checkEquals(1, count(_notModifiedCounters, path), "304 answers");
+
+      // the refreshed expiration and the validators survive reopening the storage
+      for (int i = 0; (i < 200) && _storage.readBuffer(new URL(url), false).isExpired(); i++) {
+         Thread.sleep(10);
+      }
+      _storage.close();
+      _storage.onResume(null);
+      final IByteBufferResult stored = _storage.readBuffer(new URL(url), false);
+      check((stored.getBuffer() != null) && !stored.isExpired(), "the storage is refreshed");
+      check(ETAG.equals(stored.getETag()) && LAST_MODIFIED.equals(stored.getLastModified()), "the validators are kept");
+      tearDown();
+   }
+
+
+   private void testNotFoundBacksOff() throws IOException, InterruptedException {
+      setUp();
+      final String url = _baseURL + "/missing";
+      _missingCounter.set(0);
+      check(request(url, TimeInterval.fromDays(1), true)._error, "a 404 is an error");
+      check(request(url, TimeInterval.fromDays(1), true)._error, "an error again");
+      checkEquals(1, _missingCounter.get(), "the second request doesn't reach the server");
+      check(_cachedDownloader.statistics().contains("negative hits=1,"), _cachedDownloader.statistics());
+      tearDown();
+   }
+
+
+   private void testConnectionErrorsDontBackOff() throws IOException, InterruptedException {
+      setUp();
+      // nothing listens on port 1
+      final String url = "http://127.0.0.1:1/refused";
+      check(request(url, TimeInterval.fromDays(1), true)._error, "a refused connection is an error");
+      check(request(url, TimeInterval.fromDays(1), true)._error, "an error again");
+      final String statistics = _cachedDownloader.statistics();
+      check(statistics.contains("negative hits=0,") && statistics.contains("download errors=2,"), statistics);
+      tearDown();
+   }
+
+
+   private void testCachedForever() throws IOException, InterruptedException {
+      setUp();
+      final String path = "/forever";
+      request(_baseURL + path, TimeInterval.forever(), false);
+      final Result result = request(_baseURL + path, TimeInterval.forever(), false);
+      check((result._buffer != null) && !result._expired, "an entry cached forever doesn't expire");
+      check(_cachedDownloader.statistics().contains("memory hits=1,"), _cachedDownloader.statistics());
+      checkEquals(1, count(_okCounters, path), "downloads");
+      tearDown();
+   }
+
+
+   public static void main(final String[] args) throws Exception {
+      ILogger.setInstance(new Logger_JavaDesktop(LogLevel.SilenceLevel));
+      IStringBuilder.setInstance(new StringBuilder_JavaDesktop(IStringBuilder.DEFAULT_FLOAT_PRECISION));
+      IFactory.setInstance(new Factory_JavaDesktop());
+      IStringUtils.setInstance(new StringUtils_JavaDesktop());
+      IMathUtils.setInstance(new MathUtils_JavaDesktop());
+
+      final CachedDownloaderTest test = new CachedDownloaderTest();
+      test.startServer();
+      try {
+         test.testExpiredEntriesAreRevalidated(false);
+         test.testExpiredEntriesAreRevalidated(true);
+         test.testStaleWhileRevalidate();
+         test.testNotFoundBacksOff();
+         test.testConnectionErrorsDontBackOff();
+         test.testCachedForever();
+      }
+      finally {
+         test._server.stop(0);
+      }
+
+      System.out.println("CachedDownloaderTest: OK");
+   }
+
+}
@@ -0,0 +1,321 @@
+package org.glob3.mobile.specific;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.glob3.mobile.generated.IBufferDownloadListener;
+import org.glob3.mobile.generated.IByteBuffer;
+import org.glob3.mobile.generated.IFactory;
+import org.glob3.mobile.generated.ILogger;
+import org.glob3.mobile.generated.IStringBuilder;
+import org.glob3.mobile.generated.IStringUtils;
+import org.glob3.mobile.generated.LogLevel;
+import org.glob3.mobile.generated.TimeInterval;
+import org.glob3.mobile.generated.URL;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+
+/*
+ * Checks Downloader_JavaDesktop against a local HTTP server, run it as a program (it throws on the first failed check).
+ * The paths starting with "/slow" are answered after 200ms, and the ones starting with "/missing" with a 404.
+ */
+public class Downloader_JavaDesktopTest {
+
+   private static final class RecordingListener
+      extends
+         IBufferDownloadListener {
+
+      private final String         _name;
+      private final List<String>   _events;
+      private final CountDownLatch _latch;
+
+
+      private RecordingListener(final String name,
+                                final List<String> events,
+                                final CountDownLatch latch) {
+         _name = name;
+         _events = events;
+         _latch = latch;
+      }
+
+
+      @Override
+      public void onDownload(final URL url,
+                             final IByteBuffer buffer,
+                             final boolean expired) {
+         _events.add("download " + _name + " " + buffer.size());
+         _latch.countDown();
+      }
+
+
+      @Override
+      public void onError(final URL url) {
+         _events.add("error " + _name);
+         _latch.countDown();
+      }
+
+
+      @Override
+      public void onCancel(final URL url) {
+         _events.add("cancel " + _name);
+         _latch.countDown();
+      }
+
+
+      @Override
+      public void onCanceledDownload(final URL url,
+                                     final IByteBuffer buffer,
+                                     final boolean expired) {
+         _events.add("canceledDownload " + _name);
+      }
+   }
+
+
+   private static final TimeInterval TIMEOUT = TimeInterval.fromSeconds(5);
+
+   private HttpServer                _server;
+   private ExecutorService           _serverExecutor;
+   private String                    _baseURL;
+
+   // the paths served and the client ports they came from, in arrival order
+   private final List<String>        _servedPaths = Collections.synchronizedList(new ArrayList<String>());
+   private final Set<Integer>        _clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+   private final List<String>        _events      = Collections.synchronizedList(new ArrayList<String>());
+
+   private Downloader_JavaDesktop    _downloader;
+
+
+   private static void check(final boolean condition,
+                             final String message) {
+      if (!condition) {
+         throw new RuntimeException("Check failed: " + message);
+      }
+   }
+
+
+   private static void checkEquals(final Object expected,
+                                   final Object actual,
+                                   final String message) {
+      if (!expected.equals(actual)) {
+         throw new RuntimeException("Check failed: " + message + ", expected " + expected + " but was " + actual);
+      }
+   }
+
+
+   private void startServer() throws IOException {
+      _server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+      _server.createContext("/", new HttpHandler() {
+         @Override
+         public void handle(final HttpExchange exchange) throws IOException {
+            final String path = exchange.getRequestURI().getPath();
+            _servedPaths.add(path);
+            _clientPorts.add(exchange.getRemoteAddress().getPort());
+            if (path.startsWith("/slow")) {
+               try {
+                  Thread.sleep(200);
+               }
+               catch (final InterruptedException e) {
+                  Thread.currentThread().interrupt();
+               }
+            }
+            final boolean missing = path.startsWith("/missing");
+            final byte[] body = new byte[missing ? 3 : path.length()];
+            exchange.sendResponseHeaders(missing ? 404 : 200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+         }
+      });
+      _serverExecutor = Executors.newFixedThreadPool(8);
+      _server.setExecutor(_serverExecutor);
+      _server.start();
+      _baseURL = "http://127.0.0.1:" + _server.getAddress().getPort();
+   }
+
+
+   private void stopServer() {
+      _server.stop(0);
+      _serverExecutor.shutdown();
+   }
+
+
+   private void setUp(final int workers) {
+      _servedPaths.clear();
+      _clientPorts.clear();
+      _events.clear();
+      _downloader = new Downloader_JavaDesktop(workers, TIMEOUT, TIMEOUT);
+   }
+
+
+   private void tearDown() {
+      _downloader.stop();
+      _downloader = null;
+   }
+
+
+   private long request(final String path,
+                        final long priority,
+                        final String tag,
+                        final CountDownLatch latch) {
+      return request(path, path, priority, tag, latch);
+   }
+
+
+   private long request(final String name,
+                        final String path,
+                        final long priority,
+                        final String tag,
+                        final CountDownLatch latch) {
+      return _downloader.requestBuffer(new URL(_baseURL + path), priority, TIMEOUT, false,
+               new RecordingListener(name, _events, latch), true, tag);
+   }
+
+
+   private static void await(final CountDownLatch latch) throws InterruptedException {
+      check(latch.await(10, TimeUnit.SECONDS), "the listeners were called in time");
+   }
+
+
+   private void testPriorityOrder() throws InterruptedException {
+      // one worker, and the requests are queued before it starts
+      setUp(1);
+      final CountDownLatch latch = new CountDownLatch(4);
+      request("/p1", 1, "", latch);
+      request("/p5", 5, "", latch);
+      request("/p3", 3, "", latch);
+      request("/p3b", 3, "", latch);
+      _downloader.start();
+      await(latch);
+
+      checkEquals(List.of("/p5", "/p3", "/p3b", "/p1"), _servedPaths, "highest priority first, FIFO for equal priorities");
+      tearDown();
+   }
+
+
+   private void testCoalescing() throws InterruptedException {
+      setUp(1);
+      final CountDownLatch latch = new CountDownLatch(3);
+      request("first", "/p1", 1, "", latch);
+      request("/p5", 5, "", latch);
+      // the same URL again, it raises the priority of the queued download
+      request("second", "/p1", 9, "", latch);
+      _downloader.start();
+      await(latch);
+
+      checkEquals(List.of("/p1", "/p5"), _servedPaths, "one download per URL, with the raised priority");
+      check(_events.contains("download first 3") && _events.contains("download second 3"), "both listeners got the buffer");
+      check(_downloader.statistics().contains("coalesced=1"), "statistics " + _downloader.statistics());
+      tearDown();
+   }
+
+
+   private void testCancelByID() throws InterruptedException {
+      setUp(1);
+      final CountDownLatch latch = new CountDownLatch(3);
+      request("/kept", 1, "", latch);
+      final long requestID = request("/canceled", 5, "", latch);
+      // a coalesced listener keeps the download alive
+      final long coalescedID = request("canceledCoalesced", "/kept", 1, "", latch);
+      check(_downloader.cancelRequest(requestID), "the queued request is canceled");
+      check(!_downloader.cancelRequest(requestID), "a request is canceled once");
+      check(_downloader.cancelRequest(coalescedID), "the coalesced request is canceled");
+      _downloader.start();
+      await(latch);
+
+      checkEquals(List.of("/kept"), _servedPaths, "the canceled URL isn't downloaded");
+      check(_events.contains("cancel /canceled") && _events.contains("cancel canceledCoalesced"), "events " + _events);
+      check(_events.contains("download /kept 5"), "the other listener got the buffer");
+      tearDown();
+   }
+
+
+   private void testCancelByTag() throws InterruptedException {
+      setUp(1);
+      _downloader.start();
+      final CountDownLatch latch = new CountDownLatch(3);
+      request("slowTagged", "/slow", 1, "T", latch);
+      request("slowUntagged", "/slow", 1, "", latch);
+      Thread.sleep(50);
+      // one request in flight and other one queued behind it
+      request("/queued", 1, "T", latch);
+      _downloader.cancelRequestsTagged("T");
+      await(latch);
+      // give the worker time to pick (or skip) the queued request
+      Thread.sleep(300);
+
+      checkEquals(List.of("/slow"), _servedPaths, "only the untagged URL is downloaded");
+      check(_events.contains("cancel slowTagged") && _events.contains("canceledDownload slowTagged"), "events " + _events);
+      check(_events.contains("download slowUntagged 5"), "the untagged listener of the same URL got the buffer");
+      check(_events.contains("cancel /queued"), "events " + _events);
+      tearDown();
+   }
+
+
+   private void testNotFound() throws InterruptedException {
+      setUp(1);
+      _downloader.start();
+      final CountDownLatch latch = new CountDownLatch(1);
+      request("/missing", 1, "", latch);
+      await(latch);
+
+      checkEquals(List.of("error /missing"), _events, "a 404 is an error");
+      check(_downloader.statistics().contains("errors=1"), "statistics " + _downloader.statistics());
+      tearDown();
+   }
+
+
+   private void testSocketReuse() throws InterruptedException {
+      final int workers = 4;
+      final int requests = 200;
+      setUp(workers);
+      _downloader.start();
+      final CountDownLatch latch = new CountDownLatch(requests);
+      for (int i = 0; i < requests; i++) {
+         request("/tile/" + i, i % 10, "", latch);
+      }
+      await(latch);
+
+      checkEquals(requests, _servedPaths.size(), "served");
+      check(_clientPorts.size() <= (2 * workers), "the connections are kept alive, " + _clientPorts.size() + " sockets");
+      tearDown();
+   }
+
+
+   public static void main(final String[] args) throws Exception {
+      ILogger.setInstance(new Logger_JavaDesktop(LogLevel.SilenceLevel));
+      IStringBuilder.setInstance(new StringBuilder_JavaDesktop(IStringBuilder.DEFAULT_FLOAT_PRECISION));
+      IFactory.setInstance(new Factory_JavaDesktop());
+      IStringUtils.setInstance(new StringUtils_JavaDesktop());
+
+      // HttpURLConnection reads it once, otherwise the first downloader (with one worker) would set it
+      System.setProperty("http.maxConnections", "4");
+
+      final Downloader_JavaDesktopTest test = new Downloader_JavaDesktopTest();
+      test.startServer();
+      try {
+         test.testPriorityOrder();
+         test.testCoalescing();
+         test.testCancelByID();
+         test.testCancelByTag();
+         test.testNotFound();
+         test.testSocketReuse();
+      }
+      finally {
+         test.stopServer();
+      }
+
+      System.out.println("Downloader_JavaDesktopTest: OK");
+   }
+
+}
@@ -0,0 +1,254 @@
+package org.glob3.mobile.specific;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.glob3.mobile.generated.IByteBufferResult;
+import org.glob3.mobile.generated.IFactory;
+import org.glob3.mobile.generated.ILogger;
+import org.glob3.mobile.generated.IMathUtils;
+import org.glob3.mobile.generated.IStringBuilder;
+import org.glob3.mobile.generated.LogLevel;
+import org.glob3.mobile.generated.TimeInterval;
+import org.glob3.mobile.generated.URL;
+
+
+/*
+ * Checks SegmentStorage_JavaDesktop in a temporary directory, run it as a program (it throws on the first failed check).
+ */
+public class SegmentStorage_JavaDesktopTest {
+
+   private static final int           NAMES            = 20;
+   private static final long          MAX_SIZE         = 4000;
+   private static final long          MAX_SEGMENT_SIZE = 1500;
+
+   private File                       _directory;
+   private SegmentStorage_JavaDesktop _storage;
+
+
+   private static void check(final boolean condition,
+                             final String message) {
+      if (!condition) {
+         throw new RuntimeException("Check failed: " + message);
+      }
+   }
+
+
+   private static void checkEquals(final long expected,
+                                   final long actual,
+                                   final String message) {
+      if (expected != actual) {
+         throw new RuntimeException("Check failed: " + message + ", expected " + expected + " but was " + actual);
+      }
+   }
+
+
+   private void setUp(final long maxSize,
+                      final long maxSegmentSize) throws IOException {
+      _directory = Files.createTempDirectory("SegmentStorage_JavaDesktopTest").toFile();
+      _storage = new SegmentStorage_JavaDesktop(_directory.getPath(), maxSize, maxSegmentSize);
+   }
+
+
+   private void tearDown() {
+      _storage.close();
+      for (final File file : _directory.listFiles()) {
+         check(file.delete(), "delete " + file);
+      }
+      check(_directory.delete(), "delete " + _directory);
+   }
+
+
+   private void reopen() {
+      _storage.close();
+      _storage.onResume(null);
+      check(_storage.isAvailable(), "the storage is open");
+   }
+
+
+   private void save(final String name,
+                     final byte[] contents,
+                     final TimeInterval timeToExpires) {
+      _storage.saveBuffer(new URL(name), new ByteBuffer_JavaDesktop(contents), timeToExpires, false);
+   }
+
+
+   private byte[] read(final String name) {
+      final IByteBufferResult result = _storage.readBuffer(new URL(name), true);
+      return (result.getBuffer() == null) ? null : ((ByteBuffer_JavaDesktop) result.getBuffer()).getBuffer().array();
+   }
+
+
+   private Map<String, byte[]> readAll() {
+      final Map<String, byte[]> result = new HashMap<String, byte[]>();
+      for (int i = 0; i < NAMES; i++) {
+         final byte[] contents = read("k" + i);
+         if (contents != null) {
+            result.put("k" + i, contents);
+         }
+      }
+      return result;
+   }
+
+
+   private long directorySize() {
+      long size = 0;
+      for (final File file : _directory.listFiles()) {
+         size += file.length();
+      }
+      return size;
+   }
+
+
+   private void testStressWithReopens() throws IOException {
+      for (int seed = 0; seed < 50; seed++) {
+         setUp(MAX_SIZE, MAX_SEGMENT_SIZE);
+         final Random random = new Random(seed);
+         // the last contents saved for every name
+         final Map<String, byte[]> lastSaved = new HashMap<String, byte[]>();
+
+         for (int operation = 0; operation < 300; operation++) {
+            final String name = "k" + random.nextInt(NAMES);
+            final byte[] contents = new byte[50 + random.nextInt(300)];
+            random.nextBytes(contents);
+            save(name, contents, TimeInterval.fromDays(1));
+            lastSaved.put(name, contents);
+
+            check(_storage.getLiveBytes() <= MAX_SIZE, "live bytes " + _storage.getLiveBytes());
+            // the sealed segments are at least half alive, the tombstones and the active segment are on top of that
+            check(directorySize() <= ((3 * MAX_SIZE) + (2 * MAX_SEGMENT_SIZE)), "compacted, " + directorySize() + " bytes");
+
+            if (random.nextInt(5) == 0) {
+               final Map<String, byte[]> before = readAll();
+               reopen();
+               final Map<String, byte[]> after = readAll();
+               checkEquals(before.size(), after.size(), "entries after reopen (seed " + seed + ")");
+               for (final Map.Entry<String, byte[]> entry : before.entrySet()) {
+                  check(Arrays.equals(entry.getValue(), after.get(entry.getKey())), entry.getKey() + " after reopen (seed " + seed
+                                                                                    + ")");
+               }
+            }
+         }
+
+         // nothing older than the last save comes back, neither contents of a dropped entry
+         for (final Map.Entry<String, byte[]> entry : readAll().entrySet()) {
+            check(Arrays.equals(lastSaved.get(entry.getKey()), entry.getValue()), entry.getKey() + " is the last saved (seed "
+                                                                                  + seed + ")");
+         }
+         tearDown();
+      }
+   }
+
+
+   private void testDroppedEntriesStayDropped() throws IOException {
+      setUp(1000, MAX_SEGMENT_SIZE);
+      save("dropped", new byte[300], TimeInterval.fromDays(1));
+      for (int i = 0; i < 10; i++) {
+         save("k" + i, new byte[300], TimeInterval.fromDays(1));
+      }
+      check(read("dropped") == null, "the least recently used entry is dropped");
+
+      reopen();
+      check(read("dropped") == null, "a tombstone keeps it dropped after reopen");
+
+      // enough saves to compact the segment that holds the dropped contents
+      for (int i = 0; i < 30; i++) {
+         save("k" + (i % 10), new byte[300], TimeInterval.fromDays(1));
+      }
+      check(!new File(_directory, String.format("%016d", 1) + ".segment").exists(), "the first segment is compacted");
+      reopen();
+      check(read("dropped") == null, "the tombstone survives the compactions");
+
+      save("dropped", new byte[] { 1, 2, 3 }, TimeInterval.fromDays(1));
+      reopen();
+      check(Arrays.equals(new byte[] { 1, 2, 3 }, read("dropped")), "saved again");
+      tearDown();
+   }
+
+
+   private void testTornTailIsTruncated() throws IOException {
+      setUp(MAX_SIZE, MAX_SEGMENT_SIZE);
+      save("k0", new byte[] { 0 }, TimeInterval.fromDays(1));
+      save("k1", new byte[] { 1 }, TimeInterval.fromDays(1));
+      save("k2", new byte[] { 2, 2, 2, 2, 2, 2, 2, 2 }, TimeInterval.fromDays(1));
+      _storage.close();
+
+      // a crash in the middle of the last save
+      final File[] segments = _directory.listFiles();
+      checkEquals(1, segments.length, "segments");
+      final RandomAccessFile file = new RandomAccessFile(segments[0], "rw");
+      try {
+         file.setLength(file.length() - 5);
+      }
+      finally {
+         file.close();
+      }
+
+      _storage.onResume(null);
+      check(Arrays.equals(new byte[] { 0 }, read("k0")) && Arrays.equals(new byte[] { 1 }, read("k1")), "the whole records");
+      check(read("k2") == null, "the torn record is dropped");
+
+      save("k3", new byte[] { 3 }, TimeInterval.fromDays(1));
+      reopen();
+      check(Arrays.equals(new byte[] { 3 }, read("k3")), "saved after the truncated tail");
+      checkEquals(3, _storage.getEntriesCount(), "entries");
+      tearDown();
+   }
+
+
+   private void testSavedForever() throws IOException {
+      setUp(MAX_SIZE, MAX_SEGMENT_SIZE);
+      save("forever", new byte[] { 1 }, TimeInterval.forever());
+      IByteBufferResult result = _storage.readBuffer(new URL("forever"), false);
+      check((result.getBuffer() != null) && !result.isExpired(), "an entry saved forever doesn't expire");
+
+      reopen();
+      result = _storage.readBuffer(new URL("forever"), false);
+      check((result.getBuffer() != null) && !result.isExpired(), "neither after reopen");
+      tearDown();
+   }
+
+
+   private void testRefreshKeepsTheValidators() throws IOException {
+      setUp(MAX_SIZE, MAX_SEGMENT_SIZE);
+      final URL url = new URL("validated");
+      _storage.saveBufferWithValidators(url, new ByteBuffer_JavaDesktop(new byte[] { 1 }), TimeInterval.zero(), false, "\"v1\"",
+               "Wed, 21 Oct 2015 07:28:00 GMT");
+
+      IByteBufferResult result = _storage.readBuffer(url, false);
+      check(result.getBuffer() == null, "an expired entry isn't read without readExpired");
+      check("\"v1\"".equals(result.getETag()), "the validators are given back anyway");
+
+      _storage.refreshBuffer(url, TimeInterval.fromDays(1), false);
+      reopen();
+      result = _storage.readBuffer(url, false);
+      check((result.getBuffer() != null) && !result.isExpired(), "refreshed");
+      check("\"v1\"".equals(result.getETag()) && "Wed, 21 Oct 2015 07:28:00 GMT".equals(result.getLastModified()),
+               "the refresh keeps the validators");
+      tearDown();
+   }
+
+
+   public static void main(final String[] args) throws Exception {
+      ILogger.setInstance(new Logger_JavaDesktop(LogLevel.SilenceLevel));
+      IStringBuilder.setInstance(new StringBuilder_JavaDesktop(IStringBuilder.DEFAULT_FLOAT_PRECISION));
+      IFactory.setInstance(new Factory_JavaDesktop());
+      IMathUtils.setInstance(new MathUtils_JavaDesktop());
+
+      final SegmentStorage_JavaDesktopTest test = new SegmentStorage_JavaDesktopTest();
+      test.testStressWithReopens();
+      test.testDroppedEntriesStayDropped();
+      test.testTornTailIsTruncated();
+      test.testSavedForever();
+      test.testRefreshKeepsTheValidators();
+
+      System.out.println("SegmentStorage_JavaDesktopTest: OK");
+   }
+
+}
@@ -13,16 +13,20 @@ public final class ByteBuffer_WebGL
       IByteBuffer {
 
    private JavaScriptObject _buffer;
+   // DataView over _buffer for the little endian bulk reads
+   private JavaScriptObject _dataView;
    private int              _timestamp = 0;
 
 
    public ByteBuffer_WebGL(final JavaScriptObject data) {
       _buffer = jsCreateBuffer(data);
+      _dataView = jsCreateDataView(_buffer);
    }
 
 
    public ByteBuffer_WebGL(final int size) {
       _buffer = jsCreateBuffer(size);
+      _dataView = jsCreateDataView(_buffer);
    }
 
 
@@ -34,12 +38,14 @@ public final class ByteBuffer_WebGL
          array.set(i, data[i]);
       }
       _buffer = jsCreateBuffer(array);
+      _dataView = jsCreateDataView(_buffer);
    }
 
 
    @Override
    public void dispose() {
       _buffer = null;
+      _dataView = null;
       super.dispose();
    }
 
@@ -95,6 +101,106 @@ public final class ByteBuffer_WebGL
    }-*/;
 
 
+   @Override
+   public native String getAsString(final int i,
+                                    final int length) /*-{
+		var buffer = this.@org.glob3.mobile.specific.ByteBuffer_WebGL::_buffer;
+		var array = new Uint8Array(buffer.buffer, buffer.byteOffset + i, length);
+		return this.@org.glob3.mobile.specific.ByteBuffer_WebGL::utf8ArrayToStr(Lcom/google/gwt/core/client/JavaScriptObject;)(array);
+   }-*/;
+
+
+   @Override
+   public native short getInt16(final int i) /*-{
+		return this.@org.glob3.mobile.specific.ByteBuffer_WebGL::_dataView.getInt16(i, true);
+   }-*/;
+
+
+   @Override
+   public native int getInt32(final int i) /*-{
+		return this.@org.glob3.mobile.specific.ByteBuffer_WebGL::_dataView.getInt32(i, true);
+   }-*/;
+
+
+   @Override
+   public long getInt64(final int i) {
+      // JSNI can't return longs
+      final long low = getInt32(i) & 0xFFFFFFFFL;
+      final long high = getInt32(i + 4);
+      return (high << 32) | low;
+   }
+
+
+   @Override
+   public native float getFloat(final int i) /*-{
+		return this.@org.glob3.mobile.specific.ByteBuffer_WebGL::_dataView.getFloat32(i, true);
+   }-*/;
+
+
+   @Override
+   public native double getDouble(final int i) /*-{
+		return this.@org.glob3.mobile.specific.ByteBuffer_WebGL::_dataView.getFloat64(i, true);
+   }-*/;
+
+
+   @Override
+   public native void getUInt8s(final int i,
+                                final int count,
+                                final byte[] dst) /*-{
+		var buffer = this.@org.glob3.mobile.specific.ByteBuffer_WebGL::_buffer;
+		for (var j = 0; j < count; j++) {
+			dst[j] = buffer[i + j];
+		}
+   }-*/;
+
+
+   @Override
+   public native void getInt16s(final int i,
+                                final int count,
+                                final short[] dst) /*-{
+		var dataView = this.@org.glob3.mobile.specific.ByteBuffer_WebGL::_dataView;
+		for (var j = 0; j < count; j++) {
+			dst[j] = dataView.getInt16(i + (j * 2), true);
+		}
+   }-*/;
+
+
+   @Override
+   public native void getInt32s(final int i,
+                                final int count,
+                                final int[] dst) /*-{
+		var dataView = this.@org.glob3.mobile.specific.ByteBuffer_WebGL::_dataView;
+		for (var j = 0; j < count; j++) {
+			dst[j] = dataView.getInt32(i + (j * 4), true);
+		}
+   }-*/;
+
+
+   @Override
+   public native void getFloats(final int i,
+                                final int count,
+                                final float[] dst) /*-{
+		var dataView = this.@org.glob3.mobile.specific.ByteBuffer_WebGL::_dataView;
+		for (var j = 0; j < count; j++) {
+			dst[j] = dataView.getFloat32(i + (j * 4), true);
+		}
+   }-*/;
+
+
+   @Override
+   public native int indexOf(final int i,
+                             final byte value) /*-{
+		var buffer = this.@org.glob3.mobile.specific.ByteBuffer_WebGL::_buffer;
+		var length = buffer.length;
+		for (var j = i; j < length; j++) {
+			if (buffer[j] == value) {
+				return j;
+			}
+		}
+		return -1;
+   }-*/;
+
+
    public JavaScriptObject getBuffer() {
       return _buffer;
    }
@@ -115,6 +221,11 @@ public final class ByteBuffer_WebGL
    }-*/;
 
 
+   private native JavaScriptObject jsCreateDataView(final JavaScriptObject buffer) /*-{
+		return new DataView(buffer.buffer, buffer.byteOffset, buffer.byteLength);
+   }-*/;
+
+
    private native String utf8ArrayToStr(final JavaScriptObject array) /*-{
 		var out, i, len, c;
 		var char2, char3;
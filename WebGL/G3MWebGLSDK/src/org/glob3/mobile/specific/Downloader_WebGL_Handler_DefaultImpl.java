@@ -201,7 +201,7 @@ public class Downloader_WebGL_Handler_DefaultImpl
          }
 
          for (final ListenerEntry listener : _listeners) {
-            listener.onError(_url);
+            listener.onError(_url, statusCode);
          }
       }
    }
@@ -79,27 +79,48 @@ public final class Image_WebGL
    }-*/;
 
 
-   @Override
-   public void getPixel(final int x,
-                        final int y,
-                        final MutableColor255 pixel) {
+   private JsArrayNumber getImageData() {
       if (_imageData == null) {
          final JavaScriptObject domCanvas = createCanvas();
          final JavaScriptObject domCanvasContext = getContext2D(domCanvas);
          _imageData = createImageData(domCanvas, domCanvasContext);
       }
-      final int i = (y * getWidth()) + x;
-      pixel._red = (byte) _imageData.get(i);
-      pixel._green = (byte) _imageData.get(i + 1);
-      pixel._blue = (byte) _imageData.get(i + 2);
-      pixel._alpha = (byte) _imageData.get(i + 3);
+      return _imageData;
+   }
+
+
+   @Override
+   public void getPixel(final int x,
+                        final int y,
+                        final MutableColor255 pixel) {
+      final JsArrayNumber imageData = getImageData();
+      final int i = ((y * getWidth()) + x) * 4;
+      pixel._red = (byte) imageData.get(i);
+      pixel._green = (byte) imageData.get(i + 1);
+      pixel._blue = (byte) imageData.get(i + 2);
+      pixel._alpha = (byte) imageData.get(i + 3);
+   }
+
+
+   @Override
+   public void getPixels(final int[] argb) {
+      final JsArrayNumber imageData = getImageData();
+      final int size = getWidth() * getHeight();
+      int i = 0;
+      for (int index = 0; index < size; index++) {
+         final int red = (int) imageData.get(i++);
+         final int green = (int) imageData.get(i++);
+         final int blue = (int) imageData.get(i++);
+         final int alpha = (int) imageData.get(i++);
+         argb[index] = (alpha << 24) | (red << 16) | (green << 8) | blue;
+      }
    }
 
 
    private native JsArrayNumber createImageData(final JavaScriptObject domCanvas,
                                                 JavaScriptObject domCanvasContext)/*-{
-		var w = this.@org.glob3.mobile.specific.Image_WebGL::getWidth();
-		var h = this.@org.glob3.mobile.specific.Image_WebGL::getHeight();
+		var w = this.@org.glob3.mobile.specific.Image_WebGL::getWidth()();
+		var h = this.@org.glob3.mobile.specific.Image_WebGL::getHeight()();
 		domCanvas.width = w;
 		domCanvas.height = h;
 
@@ -107,7 +128,7 @@ public final class Image_WebGL
 		domCanvasContext.drawImage(imageJS, 0, 0, w, h);
 
 		var imgData = domCanvasContext.getImageData(0, 0, w, h);
-		return imgData;
+		return imgData.data;
    }-*/;
 
 
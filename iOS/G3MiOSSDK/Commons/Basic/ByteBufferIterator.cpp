@@ -10,8 +10,7 @@
 
 #include "IByteBuffer.hpp"
 #include "ILogger.hpp"
-#include "ByteBufferBuilder.hpp"
-#include "IMathUtils.hpp"
+#include "IFactory.hpp"
 #include "ErrorHandling.hpp"
 
 ByteBufferIterator::ByteBufferIterator(const IByteBuffer* buffer) :
@@ -31,134 +30,119 @@ bool ByteBufferIterator::hasNext() const {
   return ( _cursor < _bufferSize );
 }
 
-unsigned char ByteBufferIterator::nextUInt8() {
+void ByteBufferIterator::checkNext(int bytesCount) const {
   if (_bufferTimestamp != _buffer->timestamp()) {
     THROW_EXCEPTION("The buffer was changed after the iteration started");
     //_bufferSize = _buffer->size();
   }
 
-  if (_cursor >= _bufferSize) {
+  if (_cursor + bytesCount > _bufferSize) {
     THROW_EXCEPTION("Iteration overflow");
-    // return 0;
   }
+}
 
+unsigned char ByteBufferIterator::nextUInt8() {
+  checkNext(1);
   return _buffer->get(_cursor++);
 }
 
 void ByteBufferIterator::nextUInt8(int count, unsigned char* dst) {
-  for (int i = 0; i < count; i++) {
-    dst[i] = nextUInt8();
-  }
+  checkNext(count);
+  _buffer->getUInt8s(_cursor, count, dst);
+  _cursor += count;
 }
 
 void ByteBufferIterator::nextInt16(int count, short* dst) {
-  for (int i = 0; i < count; i++) {
-    dst[i] = nextInt16();
-  }
+  checkNext(count * 2);
+  _buffer->getInt16s(_cursor, count, dst);
+  _cursor += count * 2;
 }
 
 void ByteBufferIterator::nextInt32(int count, int* dst) {
-  for (int i = 0; i < count; i++) {
-    dst[i] = nextInt32();
-  }
+  checkNext(count * 4);
+  _buffer->getInt32s(_cursor, count, dst);
+  _cursor += count * 4;
 }
 
+void ByteBufferIterator::nextFloat(int count, float* dst) {
+  checkNext(count * 4);
+  _buffer->getFloats(_cursor, count, dst);
+  _cursor += count * 4;
+}
+
+void ByteBufferIterator::skip(int count) {
+  checkNext(count);
+  _cursor += count;
+}
 
 short ByteBufferIterator::nextInt16() {
   // LittleEndian
-#ifdef C_CODE
-  const unsigned char b1 = nextUInt8();
-  const unsigned char b2 = nextUInt8();
-#endif
-#ifdef JAVA_CODE
-  final short b1 = (short) (nextUInt8() & 0xFF);
-  final short b2 = (short) (nextUInt8() & 0xFF);
-#endif
-
-  const int iResult = (((int) b1) |
-                       ((int) (b2 << 8)));
-  return (short) iResult;
+  checkNext(2);
+  const short result = _buffer->getInt16(_cursor);
+  _cursor += 2;
+  return result;
 }
 
 int ByteBufferIterator::nextInt32() {
   // LittleEndian
-#ifdef C_CODE
-  const unsigned char b1 = nextUInt8();
-  const unsigned char b2 = nextUInt8();
-  const unsigned char b3 = nextUInt8();
-  const unsigned char b4 = nextUInt8();
-#endif
-#ifdef JAVA_CODE
-  final int b1 = nextUInt8() & 0xFF;
-  final int b2 = nextUInt8() & 0xFF;
-  final int b3 = nextUInt8() & 0xFF;
-  final int b4 = nextUInt8() & 0xFF;
-#endif
-
-  return (((int) b1      ) |
-          ((int) b2 <<  8) |
-          ((int) b3 << 16) |
-          ((int) b4 << 24));
+  checkNext(4);
+  const int result = _buffer->getInt32(_cursor);
+  _cursor += 4;
+  return result;
 }
 
 long long ByteBufferIterator::nextInt64() {
   // LittleEndian
+  checkNext(8);
+  const long long result = _buffer->getInt64(_cursor);
+  _cursor += 8;
+  return result;
+}
+
+IByteBuffer* ByteBufferIterator::nextBufferUpTo(unsigned char sentinel) {
+  checkNext(0);
+
+  const int sentinelIndex = _buffer->indexOf(_cursor, sentinel);
+  if (sentinelIndex < 0) {
+    THROW_EXCEPTION("Iteration overflow");
+  }
+
+  const int length = sentinelIndex - _cursor;
 #ifdef C_CODE
-  const unsigned char b1 = nextUInt8();
-  const unsigned char b2 = nextUInt8();
-  const unsigned char b3 = nextUInt8();
-  const unsigned char b4 = nextUInt8();
-  const unsigned char b5 = nextUInt8();
-  const unsigned char b6 = nextUInt8();
-  const unsigned char b7 = nextUInt8();
-  const unsigned char b8 = nextUInt8();
+  unsigned char* data = new unsigned char[length];
 #endif
 #ifdef JAVA_CODE
-  final int b1 = nextUInt8() & 0xFF;
-  final int b2 = nextUInt8() & 0xFF;
-  final int b3 = nextUInt8() & 0xFF;
-  final int b4 = nextUInt8() & 0xFF;
-  final int b5 = nextUInt8() & 0xFF;
-  final int b6 = nextUInt8() & 0xFF;
-  final int b7 = nextUInt8() & 0xFF;
-  final int b8 = nextUInt8() & 0xFF;
+  byte[] data = new byte[length];
 #endif
+  _buffer->getUInt8s(_cursor, length, data);
+  _cursor = sentinelIndex + 1;
 
-  return (((long long) b1      ) |
-          ((long long) b2 <<  8) |
-          ((long long) b3 << 16) |
-          ((long long) b4 << 24) |
-          ((long long) b5 << 32) |
-          ((long long) b6 << 40) |
-          ((long long) b7 << 48) |
-          ((long long) b8 << 56));
+  return IFactory::instance()->createByteBuffer(data, length);
 }
 
-IByteBuffer* ByteBufferIterator::nextBufferUpTo(unsigned char sentinel) {
-  ByteBufferBuilder builder;
-
-  unsigned char c;
+const std::string ByteBufferIterator::nextZeroTerminatedString() {
+  checkNext(0);
 
-  while ( (c = nextUInt8()) != sentinel ) {
-    builder.add(c);
+  const int zeroIndex = _buffer->indexOf(_cursor, (unsigned char) 0);
+  if (zeroIndex < 0) {
+    THROW_EXCEPTION("Iteration overflow");
   }
 
-  return builder.create();
-}
-
-const std::string ByteBufferIterator::nextZeroTerminatedString() {
-  IByteBuffer* buffer = nextBufferUpTo((unsigned char) 0);
-  const std::string result = buffer->getAsString();
-  delete buffer;
+  const std::string result = _buffer->getAsString(_cursor, zeroIndex - _cursor);
+  _cursor = zeroIndex + 1;
   return result;
 }
 
 double ByteBufferIterator::nextDouble() {
-  const long long l = nextInt64();
-  return IMathUtils::instance()->rawLongBitsToDouble( l );
+  checkNext(8);
+  const double result = _buffer->getDouble(_cursor);
+  _cursor += 8;
+  return result;
 }
 
 float ByteBufferIterator::nextFloat() {
-  const int i = nextInt32();
-  return IMathUtils::instance()->rawIntBitsToFloat( i );
+  checkNext(4);
+  const float result = _buffer->getFloat(_cursor);
+  _cursor += 4;
+  return result;
 }
@@ -22,6 +22,9 @@ private:
 
   ByteBufferIterator(const ByteBufferIterator& that);
 
+  // checks the buffer once for a read of bytesCount bytes
+  void checkNext(int bytesCount) const;
+
 public:
   ByteBufferIterator(const IByteBuffer* buffer);
 
@@ -42,6 +45,9 @@ public:
   void nextUInt8(int count, unsigned char* dst);
   void nextInt16(int count, short* dst);
   void nextInt32(int count, int* dst);
+  void nextFloat(int count, float* dst);
+
+  void skip(int count);
 
 };
 
@@ -195,14 +195,23 @@ double ElevationData::getElevationAt(const Angle& latitude,
 
   const int x = (int) dX;
   const int y = (int) dY;
-  const int nextX = x + 1;
-  const int nextY = y + 1;
   const double alphaY = dY - y;
   const double alphaX = dX - x;
 
+  return getInterpolatedElevationAt(x, y, alphaX, alphaY);
+}
+
+double ElevationData::getInterpolatedElevationAt(int x,
+                                                 int y,
+                                                 double alphaX,
+                                                 double alphaY) const {
+  // alpha is zero only when the coordinate is exactly on the grid
+  const int nextX = x + 1;
+  const int nextY = y + 1;
+
   double result;
-  if (x == dX) {
-    if (y == dY) {
+  if (alphaX == 0) {
+    if (alphaY == 0) {
       // exact on grid point
       result = getElevationAt(x, y);
     }
@@ -223,7 +232,7 @@ double ElevationData::getElevationAt(const Angle& latitude,
     }
   }
   else {
-    if (y == dY) {
+    if (alphaY == 0) {
       // linear on X
       const double heightX = getElevationAt(x, y);
       if (ISNAN(heightX)) {
@@ -263,6 +272,55 @@ double ElevationData::getElevationAt(const Angle& latitude,
                                                 alphaY);
     }
   }
-  
+
   return result;
 }
+
+void ElevationData::getElevationsAt(const double rowsLatitudesInRadians[],
+                                    const int    rows,
+                                    const double columnsLongitudesInRadians[],
+                                    const int    columns,
+                                    double       result[]) const {
+  // same u/v computations of Sector::getUVCoordinates() and getElevationAt(latitude, longitude),
+  // x or y is -1 when the column or the row is outside the sector
+  int*    xs      = new int[columns];
+  double* alphaXs = new double[columns];
+  for (int column = 0; column < columns; column++) {
+    const double u = ((columnsLongitudesInRadians[column] - _sector._lower._longitude._radians) /
+                      _sector._deltaLongitude._radians);
+    if (u < 0 || u > 1) {
+      xs[column]      = -1;
+      alphaXs[column] = 0;
+    }
+    else {
+      const double dX = u * (_width - 1);
+      const int x = (int) dX;
+      xs[column]      = x;
+      alphaXs[column] = dX - x;
+    }
+  }
+
+  int index = 0;
+  for (int row = 0; row < rows; row++) {
+    const double v = ((_sector._upper._latitude._radians - rowsLatitudesInRadians[row]) /
+                      _sector._deltaLatitude._radians);
+    if (v < 0 || v > 1) {
+      for (int column = 0; column < columns; column++) {
+        result[index++] = NAND;
+      }
+      continue;
+    }
+
+    const double dY = (1.0 - v) * (_height - 1);
+    const int y = (int) dY;
+    const double alphaY = dY - y;
+
+    for (int column = 0; column < columns; column++) {
+      const int x = xs[column];
+      result[index++] = (x < 0) ? NAND : getInterpolatedElevationAt(x, y, alphaXs[column], alphaY);
+    }
+  }
+
+  delete [] xs;
+  delete [] alphaXs;
+}
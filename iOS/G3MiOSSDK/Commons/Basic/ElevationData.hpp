@@ -24,6 +24,11 @@ private:
   mutable Interpolator* _interpolator;
   Interpolator* getInterpolator() const;
 
+  double getInterpolatedElevationAt(int x,
+                                    int y,
+                                    double alphaX,
+                                    double alphaY) const;
+
 protected:
   const Sector _sector;
   const int _width;
@@ -85,6 +90,19 @@ public:
     return getElevationAt(position._latitude,
                           position._longitude);
   }
+
+  /**
+   Fills result (row-major, rows x columns) with the elevations of a regular grid given the
+   latitude of every row and the longitude of every column.
+
+   The values are the same returned by getElevationAt(latitude, longitude), but the cell and the
+   weights of the bilinear interpolation are computed once per row and once per column.
+   */
+  void getElevationsAt(const double rowsLatitudesInRadians[],
+                       const int    rows,
+                       const double columnsLongitudesInRadians[],
+                       const int    columns,
+                       double       result[]) const;
   
 };
 
@@ -9,6 +9,7 @@
 #include "Geodetic3D.hpp"
 #include "Geodetic2D.hpp"
 #include "Vector3D.hpp"
+#include "Angle.hpp"
 
 
 FloatBufferBuilderFromGeodetic::FloatBufferBuilderFromGeodetic(CenterStrategy centerStrategy,
@@ -109,6 +110,81 @@ void FloatBufferBuilderFromGeodetic::add(const Geodetic2D& position,
       height);
 }
 
+void FloatBufferBuilderFromGeodetic::setFirstVertexAsCenter(const double latitudeInRadians,
+                                                            const double longitudeInRadians,
+                                                            const double height) {
+  if (_centerStrategy == FIRST_VERTEX) {
+    if (_values.size() == 0) {
+      setCenter( _planet->toCartesian(Angle::fromRadians(latitudeInRadians),
+                                      Angle::fromRadians(longitudeInRadians),
+                                      height) );
+    }
+  }
+}
+
+void FloatBufferBuilderFromGeodetic::add(const double latitudesInRadians[],
+                                         const double longitudesInRadians[],
+                                         const double heights[],
+                                         const int    count) {
+  if (count <= 0) {
+    return;
+  }
+
+  setFirstVertexAsCenter(latitudesInRadians[0],
+                         longitudesInRadians[0],
+                         (heights == NULL) ? 0 : heights[0]);
+
+  const int index = (int) _values.size();
+  _values.resize(index + (count * 3));
+#ifdef C_CODE
+  float* values = &_values[0];
+#endif
+#ifdef JAVA_CODE
+  final float[] values = _values.data();
+#endif
+
+  // with NO_CENTER the center is zero, and (x - 0) == x
+  _planet->toCartesian(latitudesInRadians,
+                       longitudesInRadians,
+                       heights,
+                       count,
+                       _cx, _cy, _cz,
+                       values,
+                       index);
+}
+
+void FloatBufferBuilderFromGeodetic::addGrid(const double rowsLatitudesInRadians[],
+                                             const int    rows,
+                                             const double columnsLongitudesInRadians[],
+                                             const int    columns,
+                                             const double heights[]) {
+  if ((rows <= 0) || (columns <= 0)) {
+    return;
+  }
+
+  setFirstVertexAsCenter(rowsLatitudesInRadians[0],
+                         columnsLongitudesInRadians[0],
+                         (heights == NULL) ? 0 : heights[0]);
+
+  const int index = (int) _values.size();
+  _values.resize(index + (rows * columns * 3));
+#ifdef C_CODE
+  float* values = &_values[0];
+#endif
+#ifdef JAVA_CODE
+  final float[] values = _values.data();
+#endif
+
+  _planet->toCartesianGrid(rowsLatitudesInRadians,
+                           rows,
+                           columnsLongitudesInRadians,
+                           columns,
+                           heights,
+                           _cx, _cy, _cz,
+                           values,
+                           index);
+}
+
 Vector3D FloatBufferBuilderFromGeodetic::getCenter() {
   return Vector3D(_cx, _cy, _cz);
 }
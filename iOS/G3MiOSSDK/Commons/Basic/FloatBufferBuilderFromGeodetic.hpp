@@ -28,6 +28,10 @@ private:
 
   void setCenter(const Vector3D& center);
 
+  void setFirstVertexAsCenter(const double latitudeInRadians,
+                              const double longitudeInRadians,
+                              const double height);
+
   const Planet* _planet;
 
   FloatBufferBuilderFromGeodetic(CenterStrategy centerStrategy,
@@ -68,6 +72,25 @@ public:
   void add(const Geodetic2D& position,
            const double height);
 
+  /**
+   Adds count positions (heights can be NULL for zero heights) converting them with a single
+   call to the planet bulk toCartesian().
+   */
+  void add(const double latitudesInRadians[],
+           const double longitudesInRadians[],
+           const double heights[],
+           const int    count);
+
+  /**
+   Adds the rows x columns positions of a regular grid, row by row, converting them with
+   Planet::toCartesianGrid().
+   */
+  void addGrid(const double rowsLatitudesInRadians[],
+               const int    rows,
+               const double columnsLongitudesInRadians[],
+               const int    columns,
+               const double heights[]);
+
   Vector3D getCenter();
   
 };
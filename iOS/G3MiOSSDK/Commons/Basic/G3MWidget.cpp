@@ -697,6 +697,8 @@ void G3MWidget::render(int width, int height) {
   _timer->start();
   _renderCounter++;
 
+  _texturesHandler->startFrame();
+
 
 
   if (_initializationTask != NULL) {
@@ -35,29 +35,39 @@ SubviewElevationData(elevationData,
   }
   else {
 
+    // the buffer rows go from north (y = _height-1) to south (y = 0)
+    double* rowsLatitudesInRadians = new double[_height];
+    for (int y = 0; y < _height; y++) {
+      const double v = 1.0 - ( (double) y / (_height - 1) );
+      rowsLatitudesInRadians[_height-1-y] = _sector.getInnerPointLatitude(v)._radians;
+    }
+
+    double* columnsLongitudesInRadians = new double[_width];
     for (int x = 0; x < _width; x++) {
       const double u = (double) x / (_width - 1);
+      columnsLongitudesInRadians[x] = _sector.getInnerPointLongitude(u)._radians;
+    }
 
-      const Angle longitude = _sector.getInnerPointLongitude(u);
-
-      for (int y = 0; y < _height; y++) {
-        const double v = 1.0 - ( (double) y / (_height - 1) );
-
-        const Angle latitude = _sector.getInnerPointLatitude(v);
-
-        const int index = ((_height-1-y) * _width) + x;
+    const int size = _width * _height;
+    double* heights = new double[size];
+    elevationData->getElevationsAt(rowsLatitudesInRadians, _height,
+                                   columnsLongitudesInRadians, _width,
+                                   heights);
 
-        const double height = elevationData->getElevationAt(latitude,
-                                                            longitude);
+    for (int index = 0; index < size; index++) {
+      const double height = heights[index];
 
-        _buffer[index] = (float) height;
+      _buffer[index] = (float) height;
 
-        if (!_hasNoData) {
-          if ( ISNAN(height) ) {
-            _hasNoData = true;
-          }
+      if (!_hasNoData) {
+        if ( ISNAN(height) ) {
+          _hasNoData = true;
         }
       }
     }
+
+    delete [] rowsLatitudesInRadians;
+    delete [] columnsLongitudesInRadians;
+    delete [] heights;
   }
 }
@@ -304,6 +304,8 @@ _zoomInAppears(true),
 _effectsScheduler(NULL),
 _firstRender(true),
 _effectTarget(NULL),
+_marksRenderer(NULL),
+_orderInMarksRenderer(-1),
 _zoomOutDisappears(false),
 _deleteMarkOnDisappears(false),
 _zoomOutDisappearsStarted(false)
@@ -364,6 +366,8 @@ _zoomInAppears(true),
 _effectsScheduler(NULL),
 _firstRender(true),
 _effectTarget(NULL),
+_marksRenderer(NULL),
+_orderInMarksRenderer(-1),
 _zoomOutDisappears(false),
 _deleteMarkOnDisappears(false),
 _zoomOutDisappearsStarted(false)
@@ -421,6 +425,8 @@ _zoomInAppears(true),
 _effectsScheduler(NULL),
 _firstRender(true),
 _effectTarget(NULL),
+_marksRenderer(NULL),
+_orderInMarksRenderer(-1),
 _zoomOutDisappears(false),
 _deleteMarkOnDisappears(false),
 _zoomOutDisappearsStarted(false)
@@ -478,6 +484,8 @@ _zoomInAppears(true),
 _effectsScheduler(NULL),
 _firstRender(true),
 _effectTarget(NULL),
+_marksRenderer(NULL),
+_orderInMarksRenderer(-1),
 _zoomOutDisappears(false),
 _deleteMarkOnDisappears(false),
 _zoomOutDisappearsStarted(false)
@@ -534,6 +542,8 @@ _zoomInAppears(true),
 _effectsScheduler(NULL),
 _firstRender(true),
 _effectTarget(NULL),
+_marksRenderer(NULL),
+_orderInMarksRenderer(-1),
 _zoomOutDisappears(false),
 _deleteMarkOnDisappears(false),
 _zoomOutDisappearsStarted(false)
@@ -629,6 +639,10 @@ void Mark::onTextureDownload(const IImage* image) {
       _textureWidth  *= _textureWidthProportion;
       _textureHeight *= _textureHeightProportion;
     }
+
+    if (_marksRenderer != NULL) {
+      _marksRenderer->onMarkOnScreenExtentChanged(this);
+    }
   }
 
 }
@@ -909,6 +923,10 @@ void Mark::elevationChanged(const Geodetic2D& position,
   _cartesianPosition = NULL;
 
   clearGLState();
+
+  if (_marksRenderer != NULL) {
+    _marksRenderer->onMarkElevationChanged(this);
+  }
 }
 
 void Mark::clearGLState() {
@@ -923,6 +941,8 @@ void Mark::setPosition(const Geodetic3D& position) {
     THROW_EXCEPTION("Position change with (_altitudeMode == RELATIVE_TO_GROUND) not supported");
   }
 
+  const Geodetic2D previousPosition = _position->asGeodetic2D();
+
   delete _position;
 #ifdef C_CODE
   _position = new Geodetic3D(position);
@@ -935,6 +955,10 @@ void Mark::setPosition(const Geodetic3D& position) {
   _cartesianPosition = NULL;
 
   clearGLState();
+
+  if (_marksRenderer != NULL) {
+    _marksRenderer->onMarkPositionChanged(this, previousPosition);
+  }
 }
 
 void Mark::setOnScreenSizeOnPixels(int width, int height) {
@@ -943,6 +967,10 @@ void Mark::setOnScreenSizeOnPixels(int width, int height) {
   _textureHeight = height;
   _textureSizeSetExternally = true;
 
+  if (_marksRenderer != NULL) {
+    _marksRenderer->onMarkOnScreenExtentChanged(this);
+  }
+
   if (_glState != NULL) {
     BillboardGLFeature* b = (BillboardGLFeature*) _glState->getGLFeature(GLF_BILLBOARD);
     if (b != NULL) {
@@ -1044,6 +1072,10 @@ void Mark::onImageCreated(const IImage* image,
       _textureWidth  *= _textureWidthProportion;
       _textureHeight *= _textureHeightProportion;
     }
+
+    if (_marksRenderer != NULL) {
+      _marksRenderer->onMarkOnScreenExtentChanged(this);
+    }
   }
 }
 
@@ -202,6 +202,10 @@ private:
   EffectTarget* _effectTarget;
   EffectTarget* getEffectTarget();
 
+  // the renderer holding the mark, notified when the mark moves to keep its index updated
+  MarksRenderer* _marksRenderer;
+  long long      _orderInMarksRenderer;
+
   
 public:
 
@@ -322,6 +326,10 @@ public:
     return _renderedMark;
   }
 
+  void resetRendered() {
+    _renderedMark = false;
+  }
+
   void onTextureDownloadError();
 
   void onTextureDownload(const IImage* image);
@@ -415,6 +423,24 @@ public:
 
   void animatedRemove(bool deleteMark);
 
+  bool isAnimatedRemoveStarted() const {
+    return _zoomOutDisappearsStarted;
+  }
+
+  void setMarksRenderer(MarksRenderer* marksRenderer,
+                        long long orderInMarksRenderer) {
+    _marksRenderer        = marksRenderer;
+    _orderInMarksRenderer = orderInMarksRenderer;
+  }
+
+  MarksRenderer* getMarksRenderer() const {
+    return _marksRenderer;
+  }
+
+  long long getOrderInMarksRenderer() const {
+    return _orderInMarksRenderer;
+  }
+
 };
 
 class TextureAtlasMarkAnimationTask: public PeriodicalTask{
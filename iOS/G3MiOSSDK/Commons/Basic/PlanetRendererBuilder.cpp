@@ -48,6 +48,7 @@ _demProvider(NULL),
 _verticalExaggeration(0),
 _renderedSector(NULL),
 _renderTileMeshes(true),
+_maxTessellationsInFlight(0),
 _logTilesPetitions(false),
 _changedInfoListener(NULL),
 _touchEventTypeOfTerrainTouchListener(LongPress),
@@ -353,6 +354,8 @@ PlanetRenderer* PlanetRendererBuilder::create() {
                                                       getTileLODTester(),
                                                       getTileVisibilityTester());
 
+  planetRenderer->setMaxTessellationsInFlight(getMaxTessellationsInFlight());
+
   for (int i = 0; i < getVisibleSectorListeners()->size(); i++) {
     planetRenderer->addVisibleSectorListener(getVisibleSectorListeners()->at(i),
                                              TimeInterval::fromMilliseconds(getStabilizationMilliSeconds()->at(i)));
@@ -392,6 +395,14 @@ bool PlanetRendererBuilder::getRenderTileMeshes() const {
   return _renderTileMeshes;
 }
 
+void PlanetRendererBuilder::setMaxTessellationsInFlight(int maxTessellationsInFlight) {
+  _maxTessellationsInFlight = maxTessellationsInFlight;
+}
+
+int PlanetRendererBuilder::getMaxTessellationsInFlight() const {
+  return _maxTessellationsInFlight;
+}
+
 TileTessellator* PlanetRendererBuilder::createTileTessellator() const {
   //#warning Testing Terrain Normals
   const bool skirted = true;
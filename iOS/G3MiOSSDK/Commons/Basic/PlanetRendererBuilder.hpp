@@ -85,6 +85,9 @@ private:
   bool _renderTileMeshes;
   bool getRenderTileMeshes() const;
 
+  int _maxTessellationsInFlight;
+  int getMaxTessellationsInFlight() const;
+
   bool getLogTilesPetitions() const;
 
   ChangedRendererInfoListener* _changedInfoListener;
@@ -136,6 +139,8 @@ public:
 
   void setRenderTileMeshes(bool renderTileMeshes);
 
+  void setMaxTessellationsInFlight(int maxTessellationsInFlight);
+
   void setLogTilesPetitions(bool logTilesPetitions);
   
   ChangedRendererInfoListener* getChangedRendererInfoListener() const;
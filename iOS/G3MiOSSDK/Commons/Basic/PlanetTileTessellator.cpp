@@ -117,31 +117,39 @@ Mesh* PlanetTileTessellator::createTileMesh(const G3MRenderContext* rc,
                                          );
   }
 
+  TileTessellatorMeshBuilder* builder = createTileMeshBuilder(rc,
+                                                              prc,
+                                                              tile,
+                                                              elevationData,
+                                                              grid);
+  builder->build();
+  Mesh* result = builder->publish(tile, tileTessellatorMeshData);
+  delete builder;
+
+  return result;
+}
+
+TileTessellatorMeshBuilder* PlanetTileTessellator::createTileMeshBuilder(const G3MRenderContext* rc,
+                                                                         const PlanetRenderContext* prc,
+                                                                         const Tile* tile,
+                                                                         const ElevationData* elevationData,
+                                                                         const DEMGrid* grid) const {
+  if (grid != NULL) {
+    // the DEMGrid debug mesh is created in the renderer thread
+    return NULL;
+  }
+
   const Sector tileSector = tile->_sector;
   const Sector meshSector = getRenderedSectorForTile(tile);
   const Vector2S meshResolution = calculateResolution(prc, tile, meshSector);
 
   const Planet* planet = rc->getPlanet();
 
-  FloatBufferBuilderFromGeodetic* vertices = FloatBufferBuilderFromGeodetic::builderWithGivenCenter(planet, meshSector._center);
-  ShortBufferBuilder indices;
-  FloatBufferBuilderFromCartesian2D* textCoords = new FloatBufferBuilderFromCartesian2D();
-
-  const double minElevation = createSurface(tileSector,
-                                            meshSector,
-                                            meshResolution,
-                                            elevationData,
-                                            prc->_verticalExaggeration,
-                                            tile->_mercator,
-                                            vertices,
-                                            indices,
-                                            *textCoords,
-                                            tileTessellatorMeshData);
-
+  double skirtDepth = 0;
+  double absoluteSkirtHeight = 0;
   if (_skirted) {
-    const double relativeSkirtHeight = minElevation - skirtDepthForSector(planet, tileSector);
+    skirtDepth = skirtDepthForSector(planet, tileSector);
 
-    double absoluteSkirtHeight = 0;
     if (_renderedSector != NULL) {
 #ifdef C_CODE
       absoluteSkirtHeight = -skirtDepthForSector(planet, *_renderedSector);
@@ -150,62 +158,22 @@ Mesh* PlanetTileTessellator::createTileMesh(const G3MRenderContext* rc,
       absoluteSkirtHeight = -skirtDepthForSector(planet, _renderedSector);
 #endif
     }
-
-    createEastSkirt(planet,
-                    tileSector,
-                    meshSector,
-                    meshResolution,
-                    needsEastSkirt(tileSector) ? relativeSkirtHeight : absoluteSkirtHeight,
-                    vertices,
-                    indices,
-                    *textCoords);
-
-    createNorthSkirt(planet,
-                     tileSector,
-                     meshSector,
-                     meshResolution,
-                     needsNorthSkirt(tileSector) ? relativeSkirtHeight : absoluteSkirtHeight,
-                     vertices,
-                     indices,
-                     *textCoords);
-
-    createWestSkirt(planet,
-                    tileSector,
-                    meshSector,
-                    meshResolution,
-                    needsWestSkirt(tileSector) ? relativeSkirtHeight : absoluteSkirtHeight,
-                    vertices,
-                    indices,
-                    *textCoords);
-
-    createSouthSkirt(planet,
-                     tileSector,
-                     meshSector,
-                     meshResolution,
-                     needsSouthSkirt(tileSector) ? relativeSkirtHeight : absoluteSkirtHeight,
-                     vertices,
-                     indices,
-                     *textCoords);
   }
 
-  //Storing textCoords in Tile
-  tile->setPlanetTileTessellatorData(new PlanetTileTessellatorData(textCoords));
-
-  IFloatBuffer* verticesB = vertices->create();
-  IShortBuffer* indicesB  = indices.create();
-  IFloatBuffer* normals = NULL;
-  //#warning Testing_Terrain_Normals;
-  //  IFloatBuffer* normals = NormalsUtils::createTriangleStripSmoothNormals(verticesB, indicesB);
-
-  Mesh* result = new IndexedGeometryMesh(GLPrimitive::triangleStrip(),
-                                         vertices->getCenter(),
-                                         verticesB, true,
-                                         normals,   true,
-                                         indicesB,  true);
-
-  delete vertices;
-
-  return result;
+  return new PlanetTileTessellatorMeshBuilder(planet,
+                                              tileSector,
+                                              meshSector,
+                                              meshResolution,
+                                              elevationData,
+                                              prc->_verticalExaggeration,
+                                              tile->_mercator,
+                                              _skirted,
+                                              needsEastSkirt(tileSector),
+                                              needsNorthSkirt(tileSector),
+                                              needsWestSkirt(tileSector),
+                                              needsSouthSkirt(tileSector),
+                                              skirtDepth,
+                                              absoluteSkirtHeight);
 }
 
 const Vector2F PlanetTileTessellator::getTextCoord(const Tile* tile,
@@ -347,41 +315,63 @@ double PlanetTileTessellator::createSurfaceVertices(const Vector2S& meshResoluti
                                                     const ElevationData* elevationData,
                                                     float verticalExaggeration,
                                                     FloatBufferBuilderFromGeodetic* vertices,
-                                                    TileTessellatorMeshData& tileTessellatorMeshData) const {
+                                                    TileTessellatorMeshData& tileTessellatorMeshData) {
 
   const IMathUtils* mu = IMathUtils::instance();
   double minElevation = mu->maxDouble();
   double maxElevation = mu->minDouble();
   double sumElevation = 0;
 
-  for (int j = 0; j < meshResolution._y; j++) {
-    const double v = (double) j / (meshResolution._y - 1);
+  const int rows    = meshResolution._y;
+  const int columns = meshResolution._x;
 
-    for (int i = 0; i < meshResolution._x; i++) {
-      const double u = (double) i / (meshResolution._x - 1);
-      const Geodetic2D position = meshSector.getInnerPoint(u, v);
-      double elevation = 0;
+  double* rowsLatitudesInRadians = new double[rows];
+  for (int j = 0; j < rows; j++) {
+    const double v = (double) j / (rows - 1);
+    rowsLatitudesInRadians[j] = meshSector.getInnerPointLatitude(v)._radians;
+  }
 
-      if (elevationData != NULL) {
-        const double rawElevation = elevationData->getElevationAt(position);
+  double* columnsLongitudesInRadians = new double[columns];
+  for (int i = 0; i < columns; i++) {
+    const double u = (double) i / (columns - 1);
+    columnsLongitudesInRadians[i] = meshSector.getInnerPointLongitude(u)._radians;
+  }
 
-        elevation = ISNAN(rawElevation)? 0 : rawElevation * verticalExaggeration;
+  double* heights = NULL;
+  if (elevationData != NULL) {
+    const int size = rows * columns;
+    heights = new double[size];
+    elevationData->getElevationsAt(rowsLatitudesInRadians, rows,
+                                   columnsLongitudesInRadians, columns,
+                                   heights);
 
-        if (elevation < minElevation) {
-          minElevation = elevation;
-        }
+    for (int k = 0; k < size; k++) {
+      const double rawElevation = heights[k];
 
-        if (elevation > maxElevation) {
-          maxElevation = elevation;
-        }
+      const double elevation = ISNAN(rawElevation)? 0 : rawElevation * verticalExaggeration;
 
-        sumElevation += elevation;
+      if (elevation < minElevation) {
+        minElevation = elevation;
       }
 
-      vertices->add( position, elevation );
+      if (elevation > maxElevation) {
+        maxElevation = elevation;
+      }
+
+      sumElevation += elevation;
+
+      heights[k] = elevation;
     }
   }
 
+  vertices->addGrid(rowsLatitudesInRadians, rows,
+                    columnsLongitudesInRadians, columns,
+                    heights);
+
+  delete [] rowsLatitudesInRadians;
+  delete [] columnsLongitudesInRadians;
+  delete [] heights;
+
   if (minElevation == mu->maxDouble()) {
     minElevation = 0;
   }
@@ -405,7 +395,7 @@ double PlanetTileTessellator::createSurface(const Sector& tileSector,
                                             FloatBufferBuilderFromGeodetic* vertices,
                                             ShortBufferBuilder& indices,
                                             FloatBufferBuilderFromCartesian2D& textCoords,
-                                            TileTessellatorMeshData& tileTessellatorMeshData) const {
+                                            TileTessellatorMeshData& tileTessellatorMeshData) {
 
   //VERTICES
   const double minElevation = createSurfaceVertices(Vector2S(meshResolution._x, meshResolution._y),
@@ -476,7 +466,7 @@ void PlanetTileTessellator::createEastSkirt(const Planet* planet,
                                             double skirtHeight,
                                             FloatBufferBuilderFromGeodetic* vertices,
                                             ShortBufferBuilder& indices,
-                                            FloatBufferBuilderFromCartesian2D& textCoords) const {
+                                            FloatBufferBuilderFromCartesian2D& textCoords) {
 
   //VERTICES
   const short firstSkirtVertex = (short)(vertices->size() / 3);
@@ -517,7 +507,7 @@ void PlanetTileTessellator::createNorthSkirt(const Planet* planet,
                                              double skirtHeight,
                                              FloatBufferBuilderFromGeodetic* vertices,
                                              ShortBufferBuilder& indices,
-                                             FloatBufferBuilderFromCartesian2D& textCoords) const {
+                                             FloatBufferBuilderFromCartesian2D& textCoords) {
 
   //VERTICES
   const short firstSkirtVertex = (short) (vertices->size() / 3);
@@ -557,7 +547,7 @@ void PlanetTileTessellator::createWestSkirt(const Planet* planet,
                                             double skirtHeight,
                                             FloatBufferBuilderFromGeodetic* vertices,
                                             ShortBufferBuilder& indices,
-                                            FloatBufferBuilderFromCartesian2D& textCoords) const {
+                                            FloatBufferBuilderFromCartesian2D& textCoords) {
 
   //VERTICES
   const short firstSkirtVertex = (short) (vertices->size() / 3);
@@ -598,7 +588,7 @@ void PlanetTileTessellator::createSouthSkirt(const Planet* planet,
                                              double skirtHeight,
                                              FloatBufferBuilderFromGeodetic* vertices,
                                              ShortBufferBuilder& indices,
-                                             FloatBufferBuilderFromCartesian2D& textCoords) const {
+                                             FloatBufferBuilderFromCartesian2D& textCoords) {
 
   //VERTICES
   const short firstSkirtVertex = (short) (vertices->size() / 3);
@@ -629,3 +619,130 @@ void PlanetTileTessellator::createSouthSkirt(const Planet* planet,
   indices.add( (short)(surfaceIndex - 1));
   indices.add( (short)(surfaceIndex - 1));
 }
+
+PlanetTileTessellatorMeshBuilder::PlanetTileTessellatorMeshBuilder(const Planet*        planet,
+                                                                   const Sector&        tileSector,
+                                                                   const Sector&        meshSector,
+                                                                   const Vector2S&      meshResolution,
+                                                                   const ElevationData* elevationData,
+                                                                   const float          verticalExaggeration,
+                                                                   const bool           mercator,
+                                                                   const bool           skirted,
+                                                                   const bool           needsEastSkirt,
+                                                                   const bool           needsNorthSkirt,
+                                                                   const bool           needsWestSkirt,
+                                                                   const bool           needsSouthSkirt,
+                                                                   const double         skirtDepth,
+                                                                   const double         absoluteSkirtHeight) :
+_planet(planet),
+_tileSector(tileSector),
+_meshSector(meshSector),
+_meshResolution(meshResolution),
+_elevationData(elevationData),
+_verticalExaggeration(verticalExaggeration),
+_mercator(mercator),
+_skirted(skirted),
+_needsEastSkirt(needsEastSkirt),
+_needsNorthSkirt(needsNorthSkirt),
+_needsWestSkirt(needsWestSkirt),
+_needsSouthSkirt(needsSouthSkirt),
+_skirtDepth(skirtDepth),
+_absoluteSkirtHeight(absoluteSkirtHeight),
+_vertices(NULL),
+_textCoords(NULL),
+_verticesBuffer(NULL),
+_indicesBuffer(NULL)
+{
+}
+
+PlanetTileTessellatorMeshBuilder::~PlanetTileTessellatorMeshBuilder() {
+  delete _vertices;
+  delete _textCoords;
+  delete _verticesBuffer;
+  delete _indicesBuffer;
+}
+
+void PlanetTileTessellatorMeshBuilder::build() {
+  _vertices = FloatBufferBuilderFromGeodetic::builderWithGivenCenter(_planet, _meshSector._center);
+  ShortBufferBuilder indices;
+  _textCoords = new FloatBufferBuilderFromCartesian2D();
+
+  const double minElevation = PlanetTileTessellator::createSurface(_tileSector,
+                                                                   _meshSector,
+                                                                   _meshResolution,
+                                                                   _elevationData,
+                                                                   _verticalExaggeration,
+                                                                   _mercator,
+                                                                   _vertices,
+                                                                   indices,
+                                                                   *_textCoords,
+                                                                   _tileTessellatorMeshData);
+
+  if (_skirted) {
+    const double relativeSkirtHeight = minElevation - _skirtDepth;
+
+    PlanetTileTessellator::createEastSkirt(_planet,
+                                           _tileSector,
+                                           _meshSector,
+                                           _meshResolution,
+                                           _needsEastSkirt ? relativeSkirtHeight : _absoluteSkirtHeight,
+                                           _vertices,
+                                           indices,
+                                           *_textCoords);
+
+    PlanetTileTessellator::createNorthSkirt(_planet,
+                                            _tileSector,
+                                            _meshSector,
+                                            _meshResolution,
+                                            _needsNorthSkirt ? relativeSkirtHeight : _absoluteSkirtHeight,
+                                            _vertices,
+                                            indices,
+                                            *_textCoords);
+
+    PlanetTileTessellator::createWestSkirt(_planet,
+                                           _tileSector,
+                                           _meshSector,
+                                           _meshResolution,
+                                           _needsWestSkirt ? relativeSkirtHeight : _absoluteSkirtHeight,
+                                           _vertices,
+                                           indices,
+                                           *_textCoords);
+
+    PlanetTileTessellator::createSouthSkirt(_planet,
+                                            _tileSector,
+                                            _meshSector,
+                                            _meshResolution,
+                                            _needsSouthSkirt ? relativeSkirtHeight : _absoluteSkirtHeight,
+                                            _vertices,
+                                            indices,
+                                            *_textCoords);
+  }
+
+  _verticesBuffer = _vertices->create();
+  _indicesBuffer  = indices.create();
+}
+
+Mesh* PlanetTileTessellatorMeshBuilder::publish(Tile* tile,
+                                                TileTessellatorMeshData& tileTessellatorMeshData) {
+  tileTessellatorMeshData._minHeight     = _tileTessellatorMeshData._minHeight;
+  tileTessellatorMeshData._maxHeight     = _tileTessellatorMeshData._maxHeight;
+  tileTessellatorMeshData._averageHeight = _tileTessellatorMeshData._averageHeight;
+
+  //Storing textCoords in Tile
+  tile->setPlanetTileTessellatorData(new PlanetTileTessellatorData(_textCoords));
+  _textCoords = NULL; // moved ownership to tile
+
+  IFloatBuffer* normals = NULL;
+  //#warning Testing_Terrain_Normals;
+  //  IFloatBuffer* normals = NormalsUtils::createTriangleStripSmoothNormals(_verticesBuffer, _indicesBuffer);
+
+  Mesh* result = new IndexedGeometryMesh(GLPrimitive::triangleStrip(),
+                                         _vertices->getCenter(),
+                                         _verticesBuffer, true,
+                                         normals,         true,
+                                         _indicesBuffer,  true);
+  _verticesBuffer = NULL; // moved ownership to result
+  _indicesBuffer  = NULL;
+
+  return result;
+}
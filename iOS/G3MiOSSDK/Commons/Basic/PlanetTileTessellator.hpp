@@ -12,13 +12,15 @@
 #include <map>
 #include "Sector.hpp"
 #include "FloatBufferBuilderFromCartesian2D.hpp"
+#include "Vector2S.hpp"
 
 
 class IShortBuffer;
 class Sector;
 class FloatBufferBuilderFromGeodetic;
 class ShortBufferBuilder;
-class Vector2S;
+class IFloatBuffer;
+class Planet;
 
 
 class PlanetTileTessellatorData {
@@ -33,6 +35,55 @@ public:
 };
 
 
+class PlanetTileTessellatorMeshBuilder : public TileTessellatorMeshBuilder {
+private:
+  const Planet*        _planet;
+  const Sector         _tileSector;
+  const Sector         _meshSector;
+  const Vector2S       _meshResolution;
+  const ElevationData* _elevationData;
+  const float          _verticalExaggeration;
+  const bool           _mercator;
+  const bool           _skirted;
+  const bool           _needsEastSkirt;
+  const bool           _needsNorthSkirt;
+  const bool           _needsWestSkirt;
+  const bool           _needsSouthSkirt;
+  const double         _skirtDepth;
+  const double         _absoluteSkirtHeight;
+
+  TileTessellatorMeshData            _tileTessellatorMeshData;
+  FloatBufferBuilderFromGeodetic*    _vertices;
+  FloatBufferBuilderFromCartesian2D* _textCoords;
+  IFloatBuffer*                      _verticesBuffer;
+  IShortBuffer*                      _indicesBuffer;
+
+public:
+  PlanetTileTessellatorMeshBuilder(const Planet*        planet,
+                                   const Sector&        tileSector,
+                                   const Sector&        meshSector,
+                                   const Vector2S&      meshResolution,
+                                   const ElevationData* elevationData,
+                                   const float          verticalExaggeration,
+                                   const bool           mercator,
+                                   const bool           skirted,
+                                   const bool           needsEastSkirt,
+                                   const bool           needsNorthSkirt,
+                                   const bool           needsWestSkirt,
+                                   const bool           needsSouthSkirt,
+                                   const double         skirtDepth,
+                                   const double         absoluteSkirtHeight);
+
+  ~PlanetTileTessellatorMeshBuilder();
+
+  void build();
+
+  Mesh* publish(Tile* tile,
+                TileTessellatorMeshData& tileTessellatorMeshData);
+
+};
+
+
 class PlanetTileTessellator : public TileTessellator {
 private:
   const bool _skirted;
@@ -77,61 +128,6 @@ private:
 
   Sector getRenderedSectorForTile(const Tile* tile) const;
 
-
-  double createSurfaceVertices(const Vector2S& meshResolution, //Mesh resolution
-                               const Sector& meshSector,
-                               const ElevationData* elevationData,
-                               float verticalExaggeration,
-                               FloatBufferBuilderFromGeodetic* vertices,
-                               TileTessellatorMeshData& tileTessellatorMeshData) const;
-
-  double createSurface(const Sector& tileSector,
-                       const Sector& meshSector,
-                       const Vector2S& meshResolution,
-                       const ElevationData* elevationData,
-                       float verticalExaggeration,
-                       bool mercator,
-                       FloatBufferBuilderFromGeodetic* vertices,
-                       ShortBufferBuilder& indices,
-                       FloatBufferBuilderFromCartesian2D& textCoords,
-                       TileTessellatorMeshData& tileTessellatorMeshData) const;
-
-  void createEastSkirt(const Planet* planet,
-                       const Sector& tileSector,
-                       const Sector& meshSector,
-                       const Vector2S& meshResolution,
-                       double skirtHeight,
-                       FloatBufferBuilderFromGeodetic* vertices,
-                       ShortBufferBuilder& indices,
-                       FloatBufferBuilderFromCartesian2D& textCoords) const;
-
-  void createNorthSkirt(const Planet* planet,
-                        const Sector& tileSector,
-                        const Sector& meshSector,
-                        const Vector2S& meshResolution,
-                        double skirtHeight,
-                        FloatBufferBuilderFromGeodetic* vertices,
-                        ShortBufferBuilder& indices,
-                        FloatBufferBuilderFromCartesian2D& textCoords) const;
-
-  void createWestSkirt(const Planet* planet,
-                       const Sector& tileSector,
-                       const Sector& meshSector,
-                       const Vector2S& meshResolution,
-                       double skirtHeight,
-                       FloatBufferBuilderFromGeodetic* vertices,
-                       ShortBufferBuilder& indices,
-                       FloatBufferBuilderFromCartesian2D& textCoords) const;
-
-  void createSouthSkirt(const Planet* planet,
-                        const Sector& tileSector,
-                        const Sector& meshSector,
-                        const Vector2S& meshResolution,
-                        double skirtHeight,
-                        FloatBufferBuilderFromGeodetic* vertices,
-                        ShortBufferBuilder& indices,
-                        FloatBufferBuilderFromCartesian2D& textCoords) const;
-
   static double skirtDepthForSector(const Planet* planet, const Sector& sector);
 
 public:
@@ -140,6 +136,61 @@ public:
 
   ~PlanetTileTessellator();
 
+  // the surface and skirts builders only access their arguments, so they can run in a background thread
+  static double createSurfaceVertices(const Vector2S& meshResolution, //Mesh resolution
+                                      const Sector& meshSector,
+                                      const ElevationData* elevationData,
+                                      float verticalExaggeration,
+                                      FloatBufferBuilderFromGeodetic* vertices,
+                                      TileTessellatorMeshData& tileTessellatorMeshData);
+
+  static double createSurface(const Sector& tileSector,
+                              const Sector& meshSector,
+                              const Vector2S& meshResolution,
+                              const ElevationData* elevationData,
+                              float verticalExaggeration,
+                              bool mercator,
+                              FloatBufferBuilderFromGeodetic* vertices,
+                              ShortBufferBuilder& indices,
+                              FloatBufferBuilderFromCartesian2D& textCoords,
+                              TileTessellatorMeshData& tileTessellatorMeshData);
+
+  static void createEastSkirt(const Planet* planet,
+                              const Sector& tileSector,
+                              const Sector& meshSector,
+                              const Vector2S& meshResolution,
+                              double skirtHeight,
+                              FloatBufferBuilderFromGeodetic* vertices,
+                              ShortBufferBuilder& indices,
+                              FloatBufferBuilderFromCartesian2D& textCoords);
+
+  static void createNorthSkirt(const Planet* planet,
+                               const Sector& tileSector,
+                               const Sector& meshSector,
+                               const Vector2S& meshResolution,
+                               double skirtHeight,
+                               FloatBufferBuilderFromGeodetic* vertices,
+                               ShortBufferBuilder& indices,
+                               FloatBufferBuilderFromCartesian2D& textCoords);
+
+  static void createWestSkirt(const Planet* planet,
+                              const Sector& tileSector,
+                              const Sector& meshSector,
+                              const Vector2S& meshResolution,
+                              double skirtHeight,
+                              FloatBufferBuilderFromGeodetic* vertices,
+                              ShortBufferBuilder& indices,
+                              FloatBufferBuilderFromCartesian2D& textCoords);
+
+  static void createSouthSkirt(const Planet* planet,
+                               const Sector& tileSector,
+                               const Sector& meshSector,
+                               const Vector2S& meshResolution,
+                               double skirtHeight,
+                               FloatBufferBuilderFromGeodetic* vertices,
+                               ShortBufferBuilder& indices,
+                               FloatBufferBuilderFromCartesian2D& textCoords);
+
   Vector2S getTileMeshResolution(const G3MRenderContext* rc,
                                  const PlanetRenderContext* prc,
                                  const Tile* tile) const;
@@ -151,6 +202,12 @@ public:
                        const DEMGrid* grid,
                        TileTessellatorMeshData& tileTessellatorMeshData) const;
 
+  TileTessellatorMeshBuilder* createTileMeshBuilder(const G3MRenderContext* rc,
+                                                    const PlanetRenderContext* prc,
+                                                    const Tile* tile,
+                                                    const ElevationData* elevationData,
+                                                    const DEMGrid* grid) const;
+
   Mesh* createTileDebugMesh(const G3MRenderContext* rc,
                             const PlanetRenderContext* prc,
                             const Tile* tile) const;
@@ -43,10 +43,19 @@ public:
 
   long _referenceCounter;
 
+  const long long _sizeInBytes;
+
+  // links in the list of released textures of the TexturesHandler
+  TextureHolder* _previousUnused;
+  TextureHolder* _nextUnused;
+
   TextureHolder(const TextureSpec& textureSpec) :
   _referenceCounter(1),
   _textureSpec(textureSpec),
-  _glTextureID(NULL)
+  _glTextureID(NULL),
+  _sizeInBytes(textureSpec.getSizeInBytes()),
+  _previousUnused(NULL),
+  _nextUnused(NULL)
   {
 
   }
@@ -84,19 +93,106 @@ public:
 };
 
 const IGLTextureID* TexturesHandler::getGLTextureIDIfAvailable(const TextureSpec& textureSpec) {
-  const size_t _textureHoldersSize = _textureHolders.size();
-  for (size_t i = 0; i < _textureHoldersSize; i++) {
-    TextureHolder* holder = _textureHolders[i];
-    if (holder->hasSpec(textureSpec)) {
-      holder->retain();
+#ifdef C_CODE
+  std::unordered_map<TextureSpec, TextureHolder*, TextureSpecHash>::iterator it = _holdersBySpec.find(textureSpec);
+  if (it == _holdersBySpec.end()) {
+    return NULL;
+  }
+  TextureHolder* holder = it->second;
+#endif
+#ifdef JAVA_CODE
+  final TextureHolder holder = _holdersBySpec.get(textureSpec);
+  if (holder == null) {
+    return null;
+  }
+#endif
+
+  if (!holder->isRetained()) {
+    removeUnused(holder);
+  }
+  holder->retain();
+  _hits++;
+
+  return holder->_glTextureID;
+}
+
+void TexturesHandler::addUnused(TextureHolder* holder) {
+  holder->_previousUnused = _unusedTail;
+  holder->_nextUnused     = NULL;
+  if (_unusedTail == NULL) {
+    _unusedHead = holder;
+  }
+  else {
+    _unusedTail->_nextUnused = holder;
+  }
+  _unusedTail = holder;
+}
 
-      return holder->_glTextureID;
+void TexturesHandler::removeUnused(TextureHolder* holder) {
+  if (holder->_previousUnused == NULL) {
+    _unusedHead = holder->_nextUnused;
+  }
+  else {
+    holder->_previousUnused->_nextUnused = holder->_nextUnused;
+  }
+  if (holder->_nextUnused == NULL) {
+    _unusedTail = holder->_previousUnused;
+  }
+  else {
+    holder->_nextUnused->_previousUnused = holder->_previousUnused;
+  }
+  holder->_previousUnused = NULL;
+  holder->_nextUnused     = NULL;
+}
+
+void TexturesHandler::deleteHolder(TextureHolder* holder) {
+  _holdersBySpec.erase(holder->_textureSpec);
+  _holdersByID.erase(holder->_glTextureID);
+  _texturesSizeInBytes -= holder->_sizeInBytes;
+
+  _gl->deleteTexture(holder->_glTextureID);
+
+  delete holder;
+}
+
+void TexturesHandler::evictUnused() {
+  while ((_texturesSizeInBytes > _texturesMemoryBudget) && (_unusedHead != NULL)) {
+    TextureHolder* holder = _unusedHead;
+    removeUnused(holder);
+
+    if (_verbose) {
+      ILogger::instance()->logInfo("Deleted texture \"%s\" from GPU, texID=%s",
+                                   holder->_textureSpec.description().c_str(),
+                                   holder->_glTextureID->description().c_str() );
     }
+
+    deleteHolder(holder);
+    _evictions++;
   }
+}
 
-  return NULL;
+void TexturesHandler::setTexturesMemoryBudget(long long texturesMemoryBudget) {
+  _texturesMemoryBudget = texturesMemoryBudget;
+  evictUnused();
 }
 
+void TexturesHandler::startFrame() {
+  if (_verbose && ((_hits > 0) || (_uploads > 0) || (_evictions > 0))) {
+    ILogger::instance()->logInfo("Textures: hits=%d, uploads=%d, evictions=%d, size=%dKB",
+                                 _hits,
+                                 _uploads,
+                                 _evictions,
+                                 (int) (_texturesSizeInBytes / 1024));
+  }
+
+  _lastFrameHits      = _hits;
+  _lastFrameUploads   = _uploads;
+  _lastFrameEvictions = _evictions;
+
+  _hits      = 0;
+  _uploads   = 0;
+  _evictions = 0;
+}
 
 const TextureIDReference* TexturesHandler::getTextureIDReference(const IImage* image,
                                                                  int format,
@@ -128,7 +224,13 @@ const TextureIDReference* TexturesHandler::getTextureIDReference(const IImage* i
                                  holder->_glTextureID->description().c_str() );
   }
 
-  _textureHolders.push_back(holder);
+  _holdersBySpec[textureSpec] = holder;
+  _holdersByID[holder->_glTextureID] = holder;
+  _texturesSizeInBytes += holder->_sizeInBytes;
+  _uploads++;
+
+  // the new texture can exceed the budget
+  evictUnused();
 
   return new TextureIDReference(holder->_glTextureID,
                                 image->isPremultiplied(),
@@ -140,17 +242,26 @@ void TexturesHandler::retainGLTextureID(const IGLTextureID* glTextureID) {
     return;
   }
 
-  for (int i = 0; i < _textureHolders.size(); i++) {
-    TextureHolder* holder = _textureHolders[i];
-
-    if (holder->_glTextureID->isEquals(glTextureID)) {
-      holder->retain();
-
-      return;
-    }
+#ifdef C_CODE
+  std::unordered_map<const IGLTextureID*, TextureHolder*>::iterator it = _holdersByID.find(glTextureID);
+  if (it == _holdersByID.end()) {
+    ILogger::instance()->logInfo("break (point) on me 6\n");
+    return;
+  }
+  TextureHolder* holder = it->second;
+#endif
+#ifdef JAVA_CODE
+  final TextureHolder holder = _holdersByID.get(glTextureID);
+  if (holder == null) {
+    ILogger.instance().logInfo("break (point) on me 6\n");
+    return;
   }
+#endif
 
-  ILogger::instance()->logInfo("break (point) on me 6\n");
+  if (!holder->isRetained()) {
+    removeUnused(holder);
+  }
+  holder->retain();
 }
 
 void TexturesHandler::releaseGLTextureID(const IGLTextureID* glTextureID) {
@@ -158,33 +269,54 @@ void TexturesHandler::releaseGLTextureID(const IGLTextureID* glTextureID) {
     return;
   }
 
-  for (int i = 0; i < _textureHolders.size(); i++) {
-    TextureHolder* holder = _textureHolders[i];
-
-    if (holder->_glTextureID->isEquals(glTextureID)) {
-      holder->release();
-
-      if (!holder->isRetained()) {
-        _gl->deleteTexture(holder->_glTextureID);
-
 #ifdef C_CODE
-        _textureHolders.erase(_textureHolders.begin() + i);
+  std::unordered_map<const IGLTextureID*, TextureHolder*>::iterator it = _holdersByID.find(glTextureID);
+  if (it == _holdersByID.end()) {
+    return;
+  }
+  TextureHolder* holder = it->second;
 #endif
 #ifdef JAVA_CODE
-        _textureHolders.remove(i);
+  final TextureHolder holder = _holdersByID.get(glTextureID);
+  if (holder == null) {
+    return;
+  }
 #endif
 
-        delete holder;
-      }
+  holder->release();
 
-      return;
-    }
+  if (!holder->isRetained()) {
+    addUnused(holder);
+    evictUnused();
   }
 }
 
 TexturesHandler::~TexturesHandler() {
-  if (_textureHolders.size() > 0) {
+  // the GL was already deleted, the released textures die with the GL context
+  bool retainedTextures = false;
+#ifdef C_CODE
+  for (std::unordered_map<TextureSpec, TextureHolder*, TextureSpecHash>::iterator it = _holdersBySpec.begin();
+       it != _holdersBySpec.end();
+       it++) {
+    TextureHolder* holder = it->second;
+    if (holder->isRetained()) {
+      retainedTextures = true;
+    }
+    delete holder;
+  }
+#endif
+#ifdef JAVA_CODE
+  for (final TextureHolder holder : _holdersBySpec.values()) {
+    if (holder.isRetained()) {
+      retainedTextures = true;
+    }
+    holder.dispose();
+  }
+#endif
+  _holdersBySpec.clear();
+  _holdersByID.clear();
+
+  if (retainedTextures) {
     ILogger::instance()->logWarning("WARNING: The TexturesHandler is destroyed, but the inner textures were not released.\n");
   }
 }
-
@@ -10,6 +10,7 @@
 
 #include <string>
 #include <vector>
+#include <unordered_map>
 
 #include "INativeGL.hpp"
 
@@ -74,23 +75,34 @@ public:
             );
   }
 
-  //  bool lowerThan(const TextureSpec& that) const {
-  //    if (_id < that._id) {
-  //      return true;
-  //    }
-  //    else if (_id > that._id) {
-  //      return false;
-  //    }
-  //
-  //    if (_width < that._width) {
-  //      return true;
-  //    }
-  //    else if (_width > that._width) {
-  //      return false;
-  //    }
-  //
-  //    return (_height < that._height);
-  //  }
+  bool lowerThan(const TextureSpec& that) const {
+    if (_id < that._id) {
+      return true;
+    }
+    else if (_id > that._id) {
+      return false;
+    }
+
+    if (_width != that._width) {
+      return (_width < that._width);
+    }
+    if (_height != that._height) {
+      return (_height < that._height);
+    }
+    if (_generateMipmap != that._generateMipmap) {
+      return !_generateMipmap;
+    }
+    if (_wrapS != that._wrapS) {
+      return (_wrapS < that._wrapS);
+    }
+    return (_wrapT < that._wrapT);
+  }
+
+  // estimated GPU memory, 4 bytes per texel plus a third for the mipmaps
+  long long getSizeInBytes() const {
+    const long long size = (long long) _width * _height * 4;
+    return _generateMipmap ? (size * 4 / 3) : size;
+  }
 
   const std::string description() const;
 #ifdef JAVA_CODE
@@ -100,11 +112,24 @@ public:
   }
 #endif
 
-  //#ifdef C_CODE
-  //  bool operator<(const TextureSpec& that) const {
-  //    return lowerThan(that);
-  //  }
-  //#endif
+#ifdef C_CODE
+  bool operator==(const TextureSpec& that) const {
+    return equalsTo(that);
+  }
+
+  // the same combination of the fields than the Java hashCode()
+  size_t hash() const {
+    const size_t prime = 31;
+    size_t result = 1;
+    result = prime * result + std::hash<std::string>()(_id);
+    result = prime * result + _width;
+    result = prime * result + _height;
+    result = prime * result + (_generateMipmap ? 1 : 3);
+    result = prime * result + _wrapS;
+    result = prime * result + _wrapT;
+    return result;
+  }
+#endif
 
 #ifdef JAVA_CODE
   @Override
@@ -134,20 +159,60 @@ public:
 #endif
 };
 
+#ifdef C_CODE
+struct TextureSpecHash {
+  size_t operator()(const TextureSpec& textureSpec) const {
+    return textureSpec.hash();
+  }
+};
+#endif
+
 
 class TexturesHandler {
 private:
-  std::vector<TextureHolder*> _textureHolders;
+  std::unordered_map<TextureSpec, TextureHolder*, TextureSpecHash> _holdersBySpec;
+  std::unordered_map<const IGLTextureID*, TextureHolder*>          _holdersByID;
+
+  // the released textures are kept (from the least to the most recently released) until the budget is exceeded
+  TextureHolder* _unusedHead;
+  TextureHolder* _unusedTail;
+
+  long long _texturesMemoryBudget;
+  long long _texturesSizeInBytes;
+
+  int _hits;
+  int _uploads;
+  int _evictions;
+  int _lastFrameHits;
+  int _lastFrameUploads;
+  int _lastFrameEvictions;
 
   GL* const _gl;
   const bool _verbose;
 
   const IGLTextureID* getGLTextureIDIfAvailable(const TextureSpec& textureSpec);
 
+  void addUnused(TextureHolder* holder);
+  void removeUnused(TextureHolder* holder);
+  void deleteHolder(TextureHolder* holder);
+  void evictUnused();
+
 public:
+  static const long long DEFAULT_TEXTURES_MEMORY_BUDGET = 64 * 1024 * 1024;
 
   TexturesHandler(GL* const  gl,
-                  bool verbose):
+                  bool       verbose,
+                  long long  texturesMemoryBudget = DEFAULT_TEXTURES_MEMORY_BUDGET):
+  _unusedHead(NULL),
+  _unusedTail(NULL),
+  _texturesMemoryBudget(texturesMemoryBudget),
+  _texturesSizeInBytes(0),
+  _hits(0),
+  _uploads(0),
+  _evictions(0),
+  _lastFrameHits(0),
+  _lastFrameUploads(0),
+  _lastFrameEvictions(0),
   _gl(gl),
   _verbose(verbose)
   {
@@ -155,6 +220,37 @@ public:
 
   ~TexturesHandler();
 
+  /**
+   Change the GPU memory (in bytes) the textures can use before the released textures are deleted.
+   The retained textures are never deleted, a budget of zero deletes the textures as soon as they are released.
+
+   Default value is 64MB
+   */
+  void setTexturesMemoryBudget(long long texturesMemoryBudget);
+
+  long long getTexturesMemoryBudget() const {
+    return _texturesMemoryBudget;
+  }
+
+  long long getTexturesSizeInBytes() const {
+    return _texturesSizeInBytes;
+  }
+
+  // called by G3MWidget at the beginning of every frame, the counters of the frame just finished are kept
+  void startFrame();
+
+  int getLastFrameHits() const {
+    return _lastFrameHits;
+  }
+
+  int getLastFrameUploads() const {
+    return _lastFrameUploads;
+  }
+
+  int getLastFrameEvictions() const {
+    return _lastFrameEvictions;
+  }
+
   const TextureIDReference* getTextureIDReference(const IImage* image,
                                                   int format,
                                                   const std::string& name,
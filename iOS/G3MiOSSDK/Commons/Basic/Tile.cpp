@@ -32,6 +32,8 @@
 #include "ITimer.hpp"
 #include "Vector2D.hpp"
 #include "DEMGrid.hpp"
+#include "IThreadUtils.hpp"
+#include "G3MRenderContext.hpp"
 
 //#include "BoundingVolume.hpp"
 //#include "Color.hpp"
@@ -92,7 +94,8 @@ _planetRenderer(planetRenderer),
 _planetTileTessellatorData(NULL),
 _id( createTileID(level, row, column) ),
 _data(NULL),
-_dataSize(0)
+_dataSize(0),
+_tessellatorTask(NULL)
 {
 }
 
@@ -107,7 +110,9 @@ Tile::~Tile() {
 
   delete _texturizedMesh;
 
-  delete _elevationData;
+  discardElevationData(_elevationData);
+
+  cancelTessellation();
 
   if (_grid != NULL) {
     _grid->_release();
@@ -191,6 +196,150 @@ void Tile::TerrainListener::onGrid(DEMGrid* grid) {
   _tile->onGrid(grid);
 }
 
+Tile::TessellatorTask::TessellatorTask(Tile* tile,
+                                       TileTessellatorMeshBuilder* builder,
+                                       ElevationData* elevationData,
+                                       const PlanetRenderer* planetRenderer) :
+_tile(tile),
+_builder(builder),
+_elevationData(elevationData),
+_ownsElevationData(false),
+_planetRenderer(planetRenderer),
+_finished(false)
+{
+}
+
+Tile::TessellatorTask::~TessellatorTask() {
+  finish();
+  delete _builder;
+  if (_ownsElevationData) {
+    delete _elevationData;
+  }
+#ifdef JAVA_CODE
+  super.dispose();
+#endif
+}
+
+bool Tile::TessellatorTask::takeElevationData(ElevationData* elevationData) {
+  if ((elevationData == NULL) || (elevationData != _elevationData)) {
+    return false;
+  }
+  _ownsElevationData = true;
+  return true;
+}
+
+void Tile::TessellatorTask::runInBackground(const G3MContext* context) {
+  _builder->build();
+}
+
+void Tile::TessellatorTask::finish() {
+  if (!_finished) {
+    _finished = true;
+    _planetRenderer->onTessellationFinished();
+  }
+}
+
+void Tile::TessellatorTask::onPostExecute(const G3MContext* context) {
+  finish();
+  if (_tile != NULL) {
+    _tile->onTessellationFinished(_builder, _elevationData);
+  }
+}
+
+bool Tile::startAsynchronousTessellation(const G3MRenderContext* rc,
+                                         const PlanetRenderContext* prc) {
+  if (_tessellatorTask != NULL) {
+    // if the elevation data changed meanwhile, a new tessellation will start when the current one finishes
+    return true;
+  }
+
+  if (!_planetRenderer->isAsynchronousTessellation()) {
+    return false;
+  }
+
+  if (!_planetRenderer->canStartTessellation()) {
+    // retry in the next frames
+    return true;
+  }
+
+  TileTessellatorMeshBuilder* builder = prc->_tessellator->createTileMeshBuilder(rc,
+                                                                                 prc,
+                                                                                 this,
+                                                                                 _elevationData,
+                                                                                 _grid);
+  if (builder == NULL) {
+    return false;
+  }
+
+  _mustActualizeMeshDueToNewElevationData = false;
+
+  _tessellatorTask = new TessellatorTask(this, builder, _elevationData, _planetRenderer);
+  _planetRenderer->onTessellationStarted();
+  rc->getThreadUtils()->invokeAsyncTask(_tessellatorTask, true);
+
+  return true;
+}
+
+void Tile::onTessellationFinished(TileTessellatorMeshBuilder* builder,
+                                  ElevationData* elevationData) {
+  _tessellatorTask = NULL;
+
+  _planetRenderer->onTileHasChangedMesh(this);
+
+  if (_debugMesh != NULL) {
+    delete _debugMesh;
+    _debugMesh = NULL;
+  }
+
+  setTessellatorMesh( builder->publish(this, _tileTessellatorMeshData) );
+
+  //Notifying when the tile is first created and every time the elevation data changes.
+  //The elevation data of the mesh, the tile can have a newer one that will be tessellated next
+  _planetRenderer->sectorElevationChanged(elevationData);
+}
+
+void Tile::cancelTessellation() {
+  if (_tessellatorTask != NULL) {
+    // the task keeps counting as in flight until it finishes, it will be deleted by the IThreadUtils
+    _tessellatorTask->cancel();
+    _tessellatorTask = NULL;
+  }
+}
+
+void Tile::setTessellatorMesh(Mesh* tessellatorMesh) {
+  MeshHolder* meshHolder = (MeshHolder*) _tessellatorMesh;
+  if (meshHolder == NULL) {
+    meshHolder = new MeshHolder(tessellatorMesh);
+    _tessellatorMesh = meshHolder;
+  }
+  else {
+    meshHolder->setMesh(tessellatorMesh);
+  }
+}
+
+void Tile::discardElevationData(ElevationData* elevationData) {
+  // the elevation data can be in use by a tessellation running in background
+  if ((_tessellatorTask == NULL) || !_tessellatorTask->takeElevationData(elevationData)) {
+    delete elevationData;
+  }
+}
+
+bool Tile::areSubtilesTessellatorMeshesReady(const G3MRenderContext* rc,
+                                             const PlanetRenderContext* prc) {
+  std::vector<Tile*>* subTiles = getSubTiles();
+
+  bool ready = true;
+  const size_t subTilesSize = subTiles->size();
+  for (size_t i = 0; i < subTilesSize; i++) {
+    Tile* subTile = subTiles->at(i);
+    // getTessellatorMesh() starts the tessellation of the subtile (if needed)
+    if (subTile->getTessellatorMesh(rc, prc) == NULL) {
+      ready = false;
+    }
+  }
+  return ready;
+}
+
 Mesh* Tile::getTessellatorMesh(const G3MRenderContext* rc,
                                const PlanetRenderContext* prc) {
 
@@ -214,7 +363,8 @@ Mesh* Tile::getTessellatorMesh(const G3MRenderContext* rc,
     }
   }
 
-  if ( (_tessellatorMesh == NULL) || _mustActualizeMeshDueToNewElevationData ) {
+  if ( ((_tessellatorMesh == NULL) || _mustActualizeMeshDueToNewElevationData) &&
+       !startAsynchronousTessellation(rc, prc) ) {
     _mustActualizeMeshDueToNewElevationData = false;
 
     _planetRenderer->onTileHasChangedMesh(this);
@@ -240,14 +390,7 @@ Mesh* Tile::getTessellatorMesh(const G3MRenderContext* rc,
                                                               _grid,
                                                               _tileTessellatorMeshData);
 
-    MeshHolder* meshHolder = (MeshHolder*) _tessellatorMesh;
-    if (meshHolder == NULL) {
-      meshHolder = new MeshHolder(tessellatorMesh);
-      _tessellatorMesh = meshHolder;
-    }
-    else {
-      meshHolder->setMesh(tessellatorMesh);
-    }
+    setTessellatorMesh(tessellatorMesh);
 //    }
 
     //Notifying when the tile is first created and every time the elevation data changes
@@ -433,6 +576,14 @@ void Tile::render(const G3MRenderContext*    rc,
                 (prc->_tilesRenderParameters->_incrementalTileQuality && !_textureSolved)
                 );
 
+    // while the subtiles meshes are being created in background, this tile is rendered in their place
+    const bool waitingForSubtilesMeshes = (!rendered &&
+                                           _planetRenderer->isAsynchronousTessellation() &&
+                                           !areSubtilesTessellatorMeshesReady(rc, prc));
+    if (waitingForSubtilesMeshes) {
+      rendered = true;
+    }
+
     if (rendered) {
       if (prc->_renderTileMeshes) {
         rawRender(rc, prc, parentState);
@@ -441,7 +592,9 @@ void Tile::render(const G3MRenderContext*    rc,
         debugRender(rc, prc, parentState);
       }
 
-      prune(prc->_texturizer, prc->_elevationDataProvider);
+      if (!waitingForSubtilesMeshes) {
+        prune(prc->_texturizer, prc->_elevationDataProvider);
+      }
       //TODO: AVISAR CAMBIO DE TERRENO
     }
     else {
@@ -607,7 +760,7 @@ void Tile::setElevationData(ElevationData* ed, int level) {
   if (_elevationDataLevel < level) {
 
     if (_elevationData != NULL) {
-      delete _elevationData;
+      discardElevationData(_elevationData);
     }
 
     _elevationData = ed;
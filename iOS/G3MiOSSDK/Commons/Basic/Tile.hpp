@@ -13,6 +13,7 @@
 #include "TileTessellator.hpp"
 #include "Sector.hpp"
 #include "DEMListener.hpp"
+#include "GAsyncTask.hpp"
 
 class TileTexturizer;
 class Mesh;
@@ -112,6 +113,59 @@ private:
   };
 
 
+  class TessellatorTask : public GAsyncTask {
+  private:
+    Tile*                       _tile;
+    TileTessellatorMeshBuilder* _builder;
+
+    // the elevation data used by the builder, owned by the task if the tile discards it while the task is running
+    ElevationData* _elevationData;
+    bool           _ownsElevationData;
+
+    // the task counts as in flight (even if cancelled) until it finishes or is deleted
+    const PlanetRenderer* _planetRenderer;
+    bool                  _finished;
+
+    void finish();
+
+  public:
+    TessellatorTask(Tile* tile,
+                    TileTessellatorMeshBuilder* builder,
+                    ElevationData* elevationData,
+                    const PlanetRenderer* planetRenderer);
+
+    ~TessellatorTask();
+
+    void cancel() {
+      _tile = NULL;
+    }
+
+    bool takeElevationData(ElevationData* elevationData);
+
+    void runInBackground(const G3MContext* context);
+
+    void onPostExecute(const G3MContext* context);
+
+  };
+
+  TessellatorTask* _tessellatorTask;
+
+  bool startAsynchronousTessellation(const G3MRenderContext* rc,
+                                     const PlanetRenderContext* prc);
+
+  void onTessellationFinished(TileTessellatorMeshBuilder* builder,
+                              ElevationData* elevationData);
+
+  void cancelTessellation();
+
+  void setTessellatorMesh(Mesh* tessellatorMesh);
+
+  void discardElevationData(ElevationData* elevationData);
+
+  bool areSubtilesTessellatorMeshesReady(const G3MRenderContext* rc,
+                                         const PlanetRenderContext* prc);
+
+
 public:
   const Sector      _sector;
   const bool        _mercator;
@@ -40,6 +40,21 @@ public:
 };
 
 
+class TileTessellatorMeshBuilder {
+public:
+  virtual ~TileTessellatorMeshBuilder() {
+  }
+
+  // invoked in a background thread, can't access the tile nor the tessellator
+  virtual void build() = 0;
+
+  // invoked in the renderer thread after build(), the caller owns the returned mesh
+  virtual Mesh* publish(Tile* tile,
+                        TileTessellatorMeshData& tileTessellatorMeshData) = 0;
+
+};
+
+
 class TileTessellator {
 public:
   virtual ~TileTessellator() {
@@ -52,6 +67,20 @@ public:
                                const DEMGrid* grid,
                                TileTessellatorMeshData& tileTessellatorMeshData) const = 0;
 
+  /**
+   Answer a builder to create the mesh of the tile in a background thread, or NULL if the mesh
+   has to be created (with createTileMesh) in the renderer thread.
+
+   The elevationData has to be kept alive until the builder is deleted.
+   */
+  virtual TileTessellatorMeshBuilder* createTileMeshBuilder(const G3MRenderContext* rc,
+                                                            const PlanetRenderContext* prc,
+                                                            const Tile* tile,
+                                                            const ElevationData* elevationData,
+                                                            const DEMGrid* grid) const {
+    return NULL;
+  }
+
   virtual Vector2S getTileMeshResolution(const G3MRenderContext* rc,
                                          const PlanetRenderContext* prc,
                                          const Tile* tile) const = 0;
@@ -20,6 +20,7 @@
 #include "GEORasterProjection.hpp"
 #include "ErrorHandling.hpp"
 #include "ILogger.hpp"
+#include "IStringBuilder.hpp"
 
 
 TiledVectorLayerTileImageProvider::GEOJSONBufferRasterizer::~GEOJSONBufferRasterizer() {
@@ -72,6 +73,8 @@ void TiledVectorLayerTileImageProvider::GEOJSONBufferRasterizer::runInBackground
                       ? GEOJSONParser::parseBSON(_buffer, showStatistics)
                       : GEOJSONParser::parseJSON(_buffer, showStatistics));
         if (_geoObject != NULL) {
+          // counted here to keep the walk over the coordinates out of the rendering thread
+          _geoObjectCoordinatesCount = _geoObject->getCoordinatesCount();
           rasterizeGEOObject(_geoObject);
         }
       }
@@ -137,6 +140,7 @@ void TiledVectorLayerTileImageProvider::GEOJSONBufferRasterizer::onPostExecute(c
 
     _imageAssembler->rasterizedGEOObject(_url,
                                          transferedGEOObject,
+                                         _geoObjectCoordinatesCount,
                                          canvas);
   }
 }
@@ -211,12 +215,22 @@ void TiledVectorLayerTileImageProvider::ImageAssembler::start(const TiledVectorL
     if (logDownloadActivity) {
       ILogger::instance()->logInfo("Downloading %s", requestData->_url._path.c_str());
     }
-    _downloadRequestID = _downloader->requestBuffer(requestData->_url,
-                                                    tileTextureDownloadPriority,
-                                                    requestData->_timeToCache,
-                                                    requestData->_readExpired,
-                                                    _downloadListener,
-                                                    true /* deleteListener */);
+    if (requestData->_staleWhileRevalidate) {
+      _downloadRequestID = _downloader->requestStaleWhileRevalidateBuffer(requestData->_url,
+                                                                          tileTextureDownloadPriority,
+                                                                          requestData->_timeToCache,
+                                                                          _downloadListener,
+                                                                          true, /* deleteListener */
+                                                                          "" /* default tag */);
+    }
+    else {
+      _downloadRequestID = _downloader->requestBuffer(requestData->_url,
+                                                      tileTextureDownloadPriority,
+                                                      requestData->_timeToCache,
+                                                      requestData->_readExpired,
+                                                      _downloadListener,
+                                                      true /* deleteListener */);
+    }
   }
   else {
     const GEORasterSymbolizer* symbolizer = layer->symbolizerCopy();
@@ -327,11 +341,13 @@ void TiledVectorLayerTileImageProvider::ImageAssembler::imageCreated(const IImag
 
 void TiledVectorLayerTileImageProvider::ImageAssembler::rasterizedGEOObject(const URL& url,
                                                                             GEOObject* geoObject,
+                                                                            long long  geoObjectCoordinatesCount,
                                                                             ICanvas* canvas) {
 
   if (geoObject != NULL) {
     _tileImageProvider->takeGEOObjectFor(url,
-                                         geoObject);
+                                         geoObject,
+                                         geoObjectCoordinatesCount);
   }
 
   if (canvas == NULL) {
@@ -421,13 +437,15 @@ TiledVectorLayerTileImageProvider::CacheEntry::~CacheEntry() {
 }
 
 TiledVectorLayerTileImageProvider::~TiledVectorLayerTileImageProvider() {
-
-  for (std::list<CacheEntry*>::iterator it = _geoObjectsCache.begin();
-       it != _geoObjectsCache.end();
-       ++it) {
-    CacheEntry* entry = *it;
+  CacheEntry* entry = _geoObjectsCacheHead;
+  while (entry != NULL) {
+    CacheEntry* next = entry->_next;
     delete entry;
+    entry = next;
   }
+  _geoObjectsCacheHead = NULL;
+  _geoObjectsCacheTail = NULL;
+  _geoObjectsCache.clear();
 
 #ifdef JAVA_CODE
   super.dispose();
@@ -438,42 +456,135 @@ TiledVectorLayerTileImageProvider::GEOObjectHolder::~GEOObjectHolder() {
   delete _geoObject;
 }
 
-void TiledVectorLayerTileImageProvider::takeGEOObjectFor(const URL& url,
-                                                         GEOObject* geoObject) {
-  if (_geoObjectsCache.size() > 48) {
-    CacheEntry* lastEntry = _geoObjectsCache.back();
-    _geoObjectsCache.pop_back();
-    delete lastEntry;
+void TiledVectorLayerTileImageProvider::addCacheEntry(CacheEntry* entry) {
+  entry->_previous = _geoObjectsCacheTail;
+  entry->_next     = NULL;
+  if (_geoObjectsCacheTail == NULL) {
+    _geoObjectsCacheHead = entry;
   }
-  _geoObjectsCache.push_front(new CacheEntry(url._path,
-                                             geoObject));
+  else {
+    _geoObjectsCacheTail->_next = entry;
+  }
+  _geoObjectsCacheTail = entry;
 }
 
-const TiledVectorLayerTileImageProvider::GEOObjectHolder* TiledVectorLayerTileImageProvider::getGEOObjectFor(const URL& url) {
-//  _geoObjectsCacheRequests++;
+void TiledVectorLayerTileImageProvider::removeCacheEntry(CacheEntry* entry) {
+  if (entry->_previous == NULL) {
+    _geoObjectsCacheHead = entry->_next;
+  }
+  else {
+    entry->_previous->_next = entry->_next;
+  }
+  if (entry->_next == NULL) {
+    _geoObjectsCacheTail = entry->_previous;
+  }
+  else {
+    entry->_next->_previous = entry->_previous;
+  }
+  entry->_previous = NULL;
+  entry->_next     = NULL;
+}
+
+void TiledVectorLayerTileImageProvider::deleteCacheEntry(CacheEntry* entry) {
+  removeCacheEntry(entry);
+  _geoObjectsCache.erase(entry->_path);
+  _geoObjectsCacheWeight -= entry->_weight;
+  // the GEOObject is deleted when the rasterizers using it release the holder
+  delete entry;
+}
+
+void TiledVectorLayerTileImageProvider::evictCacheEntries() {
+  while ((_geoObjectsCacheWeight > _geoObjectsCacheBudget) && (_geoObjectsCacheHead != NULL)) {
+    deleteCacheEntry(_geoObjectsCacheHead);
+    _geoObjectsCacheEvictions++;
+  }
+}
+
+void TiledVectorLayerTileImageProvider::setGEOObjectsCacheBudget(long long geoObjectsCacheBudget) {
+  _geoObjectsCacheBudget = geoObjectsCacheBudget;
+  evictCacheEntries();
+}
+
+void TiledVectorLayerTileImageProvider::takeGEOObjectFor(const URL& url,
+                                                         GEOObject* geoObject,
+                                                         long long  geoObjectCoordinatesCount) {
+  // an empty GEOObject still takes some memory
+  const long long weight = (geoObjectCoordinatesCount < 1) ? 1 : geoObjectCoordinatesCount;
+  if (weight > _geoObjectsCacheBudget) {
+    // would evict the whole cache and still not fit
+    delete geoObject;
+    return;
+  }
+
   const std::string path = url._path;
-  for (std::list<CacheEntry*>::iterator it = _geoObjectsCache.begin();
-       it != _geoObjectsCache.end();
-       ++it) {
-    CacheEntry* entry = *it;
-    if (entry->_path == path) {
-//      _geoObjectsCacheHits++;
-
-      // move hit entry to the top of the cache (LRU rules)
 #ifdef C_CODE
-      it = _geoObjectsCache.erase(it);
+  std::map<const std::string, CacheEntry*>::iterator it = _geoObjectsCache.find(path);
+  if (it != _geoObjectsCache.end()) {
+    deleteCacheEntry(it->second);
+  }
 #endif
 #ifdef JAVA_CODE
-      it.remove();
+  final CacheEntry previousEntry = _geoObjectsCache.get(path);
+  if (previousEntry != null) {
+    deleteCacheEntry(previousEntry);
+  }
 #endif
-      _geoObjectsCache.push_front(entry);
 
-      const GEOObjectHolder* geoObjectHolder = entry->_geoObjectHolder;
-      geoObjectHolder->_retain();
-      return geoObjectHolder;
-    }
+  CacheEntry* entry = new CacheEntry(path,
+                                     geoObject,
+                                     weight);
+  _geoObjectsCache[path] = entry;
+  addCacheEntry(entry);
+  _geoObjectsCacheWeight += weight;
+
+  evictCacheEntries();
+}
+
+const TiledVectorLayerTileImageProvider::GEOObjectHolder* TiledVectorLayerTileImageProvider::getGEOObjectFor(const URL& url) {
+#ifdef C_CODE
+  std::map<const std::string, CacheEntry*>::iterator it = _geoObjectsCache.find(url._path);
+  if (it == _geoObjectsCache.end()) {
+    _geoObjectsCacheMisses++;
+    return NULL;
+  }
+  CacheEntry* entry = it->second;
+#endif
+#ifdef JAVA_CODE
+  final CacheEntry entry = _geoObjectsCache.get(url._path);
+  if (entry == null) {
+    _geoObjectsCacheMisses++;
+    return null;
   }
-  return NULL;
+#endif
+  _geoObjectsCacheHits++;
+
+  // move hit entry to the most recently used end of the cache (LRU rules)
+  removeCacheEntry(entry);
+  addCacheEntry(entry);
+
+  const GEOObjectHolder* geoObjectHolder = entry->_geoObjectHolder;
+  geoObjectHolder->_retain();
+  return geoObjectHolder;
+}
+
+const std::string TiledVectorLayerTileImageProvider::statistics() const {
+  IStringBuilder* isb = IStringBuilder::newStringBuilder();
+  isb->addString("TiledVectorLayerTileImageProvider(GEOObjects cache hits=");
+  isb->addLong(_geoObjectsCacheHits);
+  isb->addString(", misses=");
+  isb->addLong(_geoObjectsCacheMisses);
+  isb->addString(", evictions=");
+  isb->addLong(_geoObjectsCacheEvictions);
+  isb->addString(", entries=");
+  isb->addLong(_geoObjectsCache.size());
+  isb->addString(", coordinates=");
+  isb->addLong(_geoObjectsCacheWeight);
+  isb->addString("/");
+  isb->addLong(_geoObjectsCacheBudget);
+  isb->addString(")");
+  const std::string s = isb->getString();
+  delete isb;
+  return s;
 }
 
 void TiledVectorLayerTileImageProvider::layerDeleted(const TiledVectorLayer* layer) {
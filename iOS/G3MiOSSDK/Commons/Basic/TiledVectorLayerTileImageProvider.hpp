@@ -21,7 +21,6 @@ class GEORasterSymbolizer;
 #include "Vector2S.hpp"
 #include "Sector.hpp"
 #include "IImageListener.hpp"
-#include <list>
 #include "GAsyncTask.hpp"
 
 class TiledVectorLayerTileImageProvider : public TileImageProvider {
@@ -53,6 +52,7 @@ private:
     IByteBuffer*           _buffer;
     const GEOObjectHolder* _geoObjectHolder;
     GEOObject*             _geoObject;
+    long long              _geoObjectCoordinatesCount;
     const bool             _geoObjectFromCache;
     ICanvas*               _canvas;
     const int              _imageWidth;
@@ -94,7 +94,8 @@ private:
     _tileIsMercator(tileIsMercator),
     _tileLevel(tileLevel),
     _canvas(NULL),
-    _geoObject(NULL)
+    _geoObject(NULL),
+    _geoObjectCoordinatesCount(0)
     {
     }
 
@@ -207,6 +208,7 @@ private:
 
     void rasterizedGEOObject(const URL& url,
                              GEOObject* geoObject,
+                             long long  geoObjectCoordinatesCount,
                              ICanvas* canvas);
     void deletedRasterizer();
 
@@ -244,18 +246,43 @@ private:
   public:
     const std::string      _path;
     const GEOObjectHolder* _geoObjectHolder;
+    const long long        _weight;
+
+    // links in the LRU list of the cache
+    CacheEntry* _previous;
+    CacheEntry* _next;
 
     CacheEntry(const std::string& path,
-               const GEOObject*   geoObject) :
+               const GEOObject*   geoObject,
+               const long long    weight) :
     _path(path),
-    _geoObjectHolder(new GEOObjectHolder(geoObject))
+    _geoObjectHolder(new GEOObjectHolder(geoObject)),
+    _weight(weight),
+    _previous(NULL),
+    _next(NULL)
     {
     }
 
     ~CacheEntry();
   };
 
-  std::list<CacheEntry*> _geoObjectsCache;
+  std::map<const std::string, CacheEntry*> _geoObjectsCache;
+
+  // the cached GEOObjects are kept (from the least to the most recently used) until the budget is exceeded
+  CacheEntry* _geoObjectsCacheHead;
+  CacheEntry* _geoObjectsCacheTail;
+
+  long long _geoObjectsCacheBudget;
+  long long _geoObjectsCacheWeight;
+
+  long long _geoObjectsCacheHits;
+  long long _geoObjectsCacheMisses;
+  long long _geoObjectsCacheEvictions;
+
+  void addCacheEntry(CacheEntry* entry);
+  void removeCacheEntry(CacheEntry* entry);
+  void deleteCacheEntry(CacheEntry* entry);
+  void evictCacheEntries();
 
 protected:
   ~TiledVectorLayerTileImageProvider();
@@ -264,10 +291,18 @@ public:
 
   TiledVectorLayerTileImageProvider(const TiledVectorLayer* layer,
                                     IDownloader*            downloader,
-                                    const IThreadUtils*     threadUtils) :
+                                    const IThreadUtils*     threadUtils,
+                                    long long               geoObjectsCacheBudget) :
   _layer(layer),
   _downloader(downloader),
-  _threadUtils(threadUtils)
+  _threadUtils(threadUtils),
+  _geoObjectsCacheHead(NULL),
+  _geoObjectsCacheTail(NULL),
+  _geoObjectsCacheBudget(geoObjectsCacheBudget),
+  _geoObjectsCacheWeight(0),
+  _geoObjectsCacheHits(0),
+  _geoObjectsCacheMisses(0),
+  _geoObjectsCacheEvictions(0)
   {
   }
 
@@ -290,7 +325,20 @@ public:
 
   const GEOObjectHolder* getGEOObjectFor(const URL& url);
   void takeGEOObjectFor(const URL& url,
-                        GEOObject* geoObject);
+                        GEOObject* geoObject,
+                        long long  geoObjectCoordinatesCount);
+
+  /**
+   Sets the budget of the GEOObjects cache, measured in coordinates. The least recently used
+   GEOObjects are evicted until the coordinates of the cached GEOObjects fit the budget.
+   */
+  void setGEOObjectsCacheBudget(long long geoObjectsCacheBudget);
+
+  long long getGEOObjectsCacheBudget() const {
+    return _geoObjectsCacheBudget;
+  }
+
+  const std::string statistics() const;
 
 };
 
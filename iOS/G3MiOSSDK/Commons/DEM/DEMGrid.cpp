@@ -35,3 +35,12 @@ const Vector2I DEMGrid::getExtent() const {
 const Geodetic2D DEMGrid::getResolution() const {
   return _resolution;
 }
+
+void DEMGrid::getElevations(double result[]) const {
+  int index = 0;
+  for (int y = 0; y < _extent._y; y++) {
+    for (int x = 0; x < _extent._x; x++) {
+      result[index++] = getElevation(x, y);
+    }
+  }
+}
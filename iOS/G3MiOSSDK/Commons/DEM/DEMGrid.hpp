@@ -44,6 +44,12 @@ public:
   virtual const Projection* getProjection() const = 0;
 
   virtual double getElevation(int x, int y) const = 0;
+
+  /**
+   Fills result with all the elevations of the grid in one pass, result[(y * extent._x) + x] is
+   getElevation(x, y).
+   */
+  virtual void getElevations(double result[]) const;
   
 };
 
@@ -32,9 +32,12 @@ const Vector3D DEMGridUtils::getMinMaxAverageElevations(const DEMGrid* grid) {
   const int width  = grid->getExtent()._x;
   const int height = grid->getExtent()._y;
 
+  double* elevations = new double[width * height];
+  grid->getElevations(elevations);
+
   for (int x = 0; x < width; x++) {
     for (int y = 0; y < height; y++) {
-      const double elevation = grid->getElevation(x, y);
+      const double elevation = elevations[(y * width) + x];
       if (!ISNAN(elevation)) {
         if (elevation < minElevation) {
           minElevation = elevation;
@@ -47,6 +50,8 @@ const Vector3D DEMGridUtils::getMinMaxAverageElevations(const DEMGrid* grid) {
     }
   }
 
+  delete [] elevations;
+
   return Vector3D(minElevation,
                   maxElevation,
                   sumElevation / (width * height));
@@ -68,12 +73,15 @@ Mesh* DEMGridUtils::createDebugMesh(const DEMGrid* grid,
   const Vector2I extent = grid->getExtent();
   const Sector   sector = grid->getSector();
 
+  double* elevations = new double[extent._x * extent._y];
+  grid->getElevations(elevations);
+
   for (int x = 0; x < extent._x; x++) {
     const double u = (double) x / (extent._x  - 1);
     const Angle longitude = projection->getInnerPointLongitude(sector, u).add(offset._longitude);
 
     for (int y = 0; y < extent._y; y++) {
-      const double elevation = grid->getElevation(x, y);
+      const double elevation = elevations[(y * extent._x) + x];
       if (!ISNAN(elevation)) {
         const double v = 1.0 - ( (double) y / (extent._y - 1) );
         const Angle latitude = projection->getInnerPointLatitude(sector, v).add(offset._latitude);
@@ -88,6 +96,8 @@ Mesh* DEMGridUtils::createDebugMesh(const DEMGrid* grid,
     }
   }
 
+  delete [] elevations;
+
   Mesh* result = new DirectMesh(GLPrimitive::points(),
                                 true,
                                 vertices->getCenter(),
@@ -58,6 +58,71 @@ double InterpolatedDEMGrid::getElevation(int x, int y) const {
   return getElevationAt(_grid, u, v);
 }
 
+void InterpolatedDEMGrid::getElevations(double result[]) const {
+  // the same values of getElevation(x, y), with the cell and the weights of the interpolation
+  // computed once per column and once per row
+  const Vector2I gridExtent = _grid->getExtent();
+
+  int*    xs      = new int[_extent._x];
+  double* alphaXs = new double[_extent._x];
+  for (int x = 0; x < _extent._x; x++) {
+    const double u = (double) x / _extent._x;
+    const double dX = u * (gridExtent._x - 1);
+    xs[x]      = (int) dX;
+    alphaXs[x] = dX - xs[x];
+  }
+
+  int index = 0;
+  for (int y = 0; y < _extent._y; y++) {
+    const double v = (double) y / _extent._y;
+    const double dY = v * (gridExtent._y - 1);
+    const int gridY = (int) dY;
+    const int nextGridY = gridY + 1;
+    const double alphaY = dY - gridY;
+
+    for (int x = 0; x < _extent._x; x++) {
+      const int gridX = xs[x];
+      const double alphaX = alphaXs[x];
+
+      double elevation;
+      if (alphaX == 0) {
+        if (alphaY == 0) {
+          // exact on grid point
+          elevation = _grid->getElevation(gridX, gridY);
+        }
+        else {
+          // linear on Y
+          elevation = linearInterpolation(_grid->getElevation(gridX, gridY),
+                                          _grid->getElevation(gridX, nextGridY),
+                                          alphaY);
+        }
+      }
+      else {
+        const int nextGridX = gridX + 1;
+        if (alphaY == 0) {
+          // linear on X
+          elevation = linearInterpolation(_grid->getElevation(    gridX, gridY),
+                                          _grid->getElevation(nextGridX, gridY),
+                                          alphaX);
+        }
+        else {
+          // bilinear
+          elevation = bilinearInterpolation(_grid->getElevation(    gridX, nextGridY), // SW
+                                            _grid->getElevation(nextGridX, nextGridY), // SE
+                                            _grid->getElevation(nextGridX,     gridY), // NE
+                                            _grid->getElevation(    gridX,     gridY), // NW
+                                            alphaX,
+                                            alphaY);
+        }
+      }
+      result[index++] = elevation;
+    }
+  }
+
+  delete [] xs;
+  delete [] alphaXs;
+}
+
 double InterpolatedDEMGrid::getElevationAt(const DEMGrid* grid,
                                            double u,
                                            double v) {
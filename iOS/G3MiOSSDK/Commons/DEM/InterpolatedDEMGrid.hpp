@@ -40,6 +40,8 @@ public:
 
   double getElevation(int x, int y) const;
 
+  void getElevations(double result[]) const;
+
   double getElevation(const Angle& latitude,
                       const Angle& longitude) const;
 
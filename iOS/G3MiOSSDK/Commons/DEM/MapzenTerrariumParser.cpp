@@ -8,7 +8,6 @@
 
 #include "MapzenTerrariumParser.hpp"
 
-#include "MutableColor255.hpp"
 #include "IImage.hpp"
 #include "FloatBufferDEMGrid.hpp"
 #include "G3MContext.hpp"
@@ -57,28 +56,32 @@ void MapzenTerrariumParser::ParserTask::onPostExecute(const G3MContext* context)
 FloatBufferDEMGrid* MapzenTerrariumParser::parse(const IImage* image,
                                                  const Sector& sector,
                                                  double deltaHeight) {
-  MutableColor255 pixel((unsigned char) 0,
-                        (unsigned char) 0,
-                        (unsigned char) 0,
-                        (unsigned char) 0);
-
   const int width  = image->getWidth();
   const int height = image->getHeight();
 
   const int bufferSize = width * height;
 
+  int* pixels = new int[bufferSize];
+  image->getPixels(pixels);
+
+  delete image;
+
   float* buffer = new float[bufferSize];
 
-  for (int x = 0; x < width; x++) {
-    for (int y = 0; y < height; y++) {
-      image->getPixel(x, y, pixel);
-      const float elevation = ((pixel._red * 256.0f) + pixel._green + (pixel._blue / 256.0f)) - 32768.0f;
-      const int index = ((height-1-y) * width) + x;
-      buffer[index] = elevation;
+  // the image rows go from north to south, the grid rows from south to north
+  for (int y = 0; y < height; y++) {
+    const int pixelsOffset = y * width;
+    const int bufferOffset = (height-1-y) * width;
+    for (int x = 0; x < width; x++) {
+      const int argb = pixels[pixelsOffset + x];
+      const int red   = (argb >> 16) & 0xFF;
+      const int green = (argb >> 8) & 0xFF;
+      const int blue  = argb & 0xFF;
+      buffer[bufferOffset + x] = ((red * 256.0f) + green + (blue / 256.0f)) - 32768.0f;
     }
   }
 
-  delete image;
+  delete [] pixels;
 
   return new FloatBufferDEMGrid(WebMercatorProjection::instance(),
                                 sector,
@@ -10,6 +10,7 @@
 
 #include "URL.hpp"
 #include "IByteBuffer.hpp"
+#include <string>
 
 
 class IBufferDownloadListener {
@@ -24,11 +25,40 @@ public:
                           IByteBuffer* buffer,
                           bool expired) = 0;
 
+  /**
+   Callback method invoked on a successful download by the downloaders that read the validators of
+   the response (the ETag and Last-Modified headers, empty if missing). By default it calls onDownload()
+   */
+  virtual void onDownloadWithValidators(const URL& url,
+                                        IByteBuffer* buffer,
+                                        bool expired,
+                                        const std::string& eTag,
+                                        const std::string& lastModified) {
+    onDownload(url, buffer, expired);
+  }
+
+  /**
+   Callback method invoked when the server answers a conditional request (see
+   IDownloader::requestConditionalBuffer()) with 304 Not Modified. By default it calls onError()
+   */
+  virtual void onNotModified(const URL& url) {
+    onError(url);
+  }
+
   /**
    Callback method invoke after an error trying to download url
    */
   virtual void onError(const URL& url) = 0;
 
+  /**
+   Callback method invoked after an error trying to download url, with the HTTP status code of the
+   response (0 if there was no response). By default it calls onError()
+   */
+  virtual void onErrorWithStatusCode(const URL& url,
+                                     int statusCode) {
+    onError(url);
+  }
+
   /**
    Callback method invoke after canceled request
    */
@@ -12,6 +12,8 @@
 class IImage;
 class URL;
 
+#include <string>
+
 class IImageDownloadListener {
 public:
   virtual ~IImageDownloadListener() {
@@ -24,11 +26,40 @@ public:
                           IImage* image,
                           bool expired) = 0;
 
+  /**
+   Callback method invoked on a successful download by the downloaders that read the validators of
+   the response (the ETag and Last-Modified headers, empty if missing). By default it calls onDownload()
+   */
+  virtual void onDownloadWithValidators(const URL& url,
+                                        IImage* image,
+                                        bool expired,
+                                        const std::string& eTag,
+                                        const std::string& lastModified) {
+    onDownload(url, image, expired);
+  }
+
+  /**
+   Callback method invoked when the server answers a conditional request (see
+   IDownloader::requestConditionalImage()) with 304 Not Modified. By default it calls onError()
+   */
+  virtual void onNotModified(const URL& url) {
+    onError(url);
+  }
+
   /**
    Callback method invoke after an error trying to download url
    */
   virtual void onError(const URL& url) = 0;
 
+  /**
+   Callback method invoked after an error trying to download url, with the HTTP status code of the
+   response (0 if there was no response). By default it calls onError()
+   */
+  virtual void onErrorWithStatusCode(const URL& url,
+                                     int statusCode) {
+    onError(url);
+  }
+
   /**
    Callback method invoke after canceled request
    */
@@ -35,6 +35,10 @@ public:
     return _coordinatesData;
   }
 
+  long long getCoordinatesCount() const {
+    return (_coordinatesData == NULL) ? 0 : _coordinatesData->size();
+  }
+
 };
 
 #endif
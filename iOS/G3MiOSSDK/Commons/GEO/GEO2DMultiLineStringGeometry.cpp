@@ -12,6 +12,7 @@
 #include "GEOSymbolizer.hpp"
 #include "GEORasterSymbolizer.hpp"
 #include "GEO2DCoordinatesArrayData.hpp"
+#include "GEO2DCoordinatesData.hpp"
 
 
 GEO2DMultiLineStringGeometry::GEO2DMultiLineStringGeometry(std::vector<std::vector<Geodetic2D*>*>* coordinatesArray)
@@ -36,3 +37,15 @@ std::vector<GEOSymbol*>* GEO2DMultiLineStringGeometry::createSymbols(const GEOSy
 std::vector<GEORasterSymbol*>* GEO2DMultiLineStringGeometry::createRasterSymbols(const GEORasterSymbolizer* symbolizer) const {
   return symbolizer->createSymbols(this);
 }
+
+long long GEO2DMultiLineStringGeometry::getCoordinatesCount() const {
+  if (_coordinatesArrayData == NULL) {
+    return 0;
+  }
+  long long result = 0;
+  const size_t coordinatesArrayDataSize = _coordinatesArrayData->size();
+  for (size_t i = 0; i < coordinatesArrayDataSize; i++) {
+    result += _coordinatesArrayData->get(i)->size();
+  }
+  return result;
+}
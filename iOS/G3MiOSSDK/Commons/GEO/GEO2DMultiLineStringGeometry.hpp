@@ -32,6 +32,8 @@ public:
     return _coordinatesArrayData;
   }
 
+  long long getCoordinatesCount() const;
+
 };
 
 #endif
@@ -52,3 +52,16 @@ bool GEO2DMultiPolygonGeometry::contain(const Geodetic2D& point) const {
 
   return false;
 }
+
+long long GEO2DMultiPolygonGeometry::getCoordinatesCount() const {
+  if (_polygonsData == NULL) {
+    return 0;
+  }
+  long long result = 0;
+  const size_t polygonsDataSize = _polygonsData->size();
+  for (size_t i = 0; i < polygonsDataSize; i++) {
+    const GEO2DPolygonData* polygonData = _polygonsData->at(i);
+    result += polygonData->getCoordinatesCount();
+  }
+  return result;
+}
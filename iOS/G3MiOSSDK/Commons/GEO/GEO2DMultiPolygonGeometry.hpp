@@ -38,6 +38,9 @@ public:
   }
   
   bool contain(const Geodetic2D& point) const;
+
+  long long getCoordinatesCount() const;
+
 };
 
 #endif
@@ -100,3 +100,13 @@ bool GEO2DPolygonData::contains(const Geodetic2D& point) const {
   return false;
 }
 
+long long GEO2DPolygonData::getCoordinatesCount() const {
+  long long result = size();
+  if (_holesCoordinatesArray != NULL) {
+    const size_t holesCoordinatesArraySize = _holesCoordinatesArray->size();
+    for (size_t j = 0; j < holesCoordinatesArraySize; j++) {
+      result += _holesCoordinatesArray->at(j)->size();
+    }
+  }
+  return result;
+}
@@ -35,6 +35,11 @@ public:
 
   bool contains(const Geodetic2D& point) const;
 
+  /**
+   Returns the count of the coordinates of the outer ring plus the coordinates of the holes.
+   */
+  long long getCoordinatesCount() const;
+
 };
 
 #endif
@@ -43,3 +43,7 @@ bool GEO2DPolygonGeometry::contain(const Geodetic2D& point) const {
   }
   return false;
 }
+
+long long GEO2DPolygonGeometry::getCoordinatesCount() const {
+  return (_polygonData == NULL) ? 0 : _polygonData->getCoordinatesCount();
+}
@@ -42,6 +42,8 @@ public:
 
   bool contain(const Geodetic2D& point) const;
 
+  long long getCoordinatesCount() const;
+
 };
 
 #endif
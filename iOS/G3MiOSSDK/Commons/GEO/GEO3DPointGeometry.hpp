@@ -35,7 +35,11 @@ public:
   
   int symbolize(const VectorStreamingRenderer::VectorSet* vectorSet,
                 const VectorStreamingRenderer::Node*      node) const;
-  
+
+  long long getCoordinatesCount() const {
+    return 1;
+  }
+
 };
 
 #endif
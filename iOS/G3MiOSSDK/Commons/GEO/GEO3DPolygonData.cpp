@@ -96,3 +96,14 @@ bool GEO3DPolygonData::contains(const Geodetic3D& point) const {
 
   return false;
 }
+
+long long GEO3DPolygonData::getCoordinatesCount() const {
+  long long result = size();
+  if (_holesCoordinatesArray != NULL) {
+    const size_t holesCoordinatesArraySize = _holesCoordinatesArray->size();
+    for (size_t j = 0; j < holesCoordinatesArraySize; j++) {
+      result += _holesCoordinatesArray->at(j)->size();
+    }
+  }
+  return result;
+}
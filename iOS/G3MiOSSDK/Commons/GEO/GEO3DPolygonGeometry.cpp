@@ -43,3 +43,7 @@ bool GEO3DPolygonGeometry::contain(const Geodetic3D& point) const {
   }
   return false;
 }
+
+long long GEO3DPolygonGeometry::getCoordinatesCount() const {
+  return (_polygonData == NULL) ? 0 : _polygonData->getCoordinatesCount();
+}
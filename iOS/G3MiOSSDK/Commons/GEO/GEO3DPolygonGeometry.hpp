@@ -41,6 +41,8 @@ public:
 
   bool contain(const Geodetic3D& point) const;
 
+  long long getCoordinatesCount() const;
+
 };
 
 #endif
@@ -65,3 +65,7 @@ int GEOFeature::symbolize(const VectorStreamingRenderer::VectorSet* vectorSet,
                           const VectorStreamingRenderer::Node*      node) const {
   return (_geometry == NULL) ? 0 : _geometry->symbolize(vectorSet, node);
 }
+
+long long GEOFeature::getCoordinatesCount() const {
+  return (_geometry == NULL) ? 0 : _geometry->getCoordinatesCount();
+}
@@ -70,3 +70,15 @@ int GEOFeatureCollection::symbolize(const VectorStreamingRenderer::VectorSet* ve
   }
   return result;
 }
+
+long long GEOFeatureCollection::getCoordinatesCount() const {
+  long long result = 0;
+  const size_t featuresCount = _features.size();
+  for (size_t i = 0; i < featuresCount; i++) {
+    GEOFeature* feature = _features[i];
+    if (feature != NULL) {
+      result += feature->getCoordinatesCount();
+    }
+  }
+  return result;
+}
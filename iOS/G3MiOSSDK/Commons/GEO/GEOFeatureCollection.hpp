@@ -53,7 +53,9 @@ public:
       
   int symbolize(const VectorStreamingRenderer::VectorSet* vectorSet,
                 const VectorStreamingRenderer::Node*      node) const;
-  
+
+  long long getCoordinatesCount() const;
+
 };
 
 #endif
@@ -9,7 +9,6 @@
 #include "GEOJSONParser.hpp"
 
 #include "IByteBuffer.hpp"
-#include "IJSONParser.hpp"
 #include "JSONObject.hpp"
 #include "JSONArray.hpp"
 #include "JSONNumber.hpp"
@@ -30,6 +29,14 @@
 #include "BSONParser.hpp"
 #include "IStringBuilder.hpp"
 #include "ILogger.hpp"
+#include "JSONString.hpp"
+#include "JSONBoolean.hpp"
+#include "JSONInteger.hpp"
+#include "JSONLong.hpp"
+#include "JSONFloat.hpp"
+#include "JSONDouble.hpp"
+#include "ByteBufferIterator.hpp"
+#include "IStringUtils.hpp"
 
 
 GEOObject* GEOJSONParser::parseJSON(const IByteBuffer* json,
@@ -39,19 +46,41 @@ GEOObject* GEOJSONParser::parseJSON(const IByteBuffer* json,
 
 GEOObject* GEOJSONParser::parseJSON(const std::string& json,
                                     bool showStatistics) {
-  GEOJSONParser parser(json, NULL);
+  GEOJSONParser parser(json, NULL, NULL);
   return parser.pvtParse(showStatistics);
 }
 
 GEOObject* GEOJSONParser::parseBSON(const IByteBuffer* bson,
                                     bool showStatistics) {
-  GEOJSONParser parser("", bson);
+  GEOJSONParser parser("", bson, NULL);
   return parser.pvtParse(showStatistics);
 }
 
+bool GEOJSONParser::parseJSON(const IByteBuffer* json,
+                              GEOFeatureVisitor* visitor,
+                              bool showStatistics) {
+  return parseJSON(json->getAsString(), visitor, showStatistics);
+}
+
+bool GEOJSONParser::parseJSON(const std::string& json,
+                              GEOFeatureVisitor* visitor,
+                              bool showStatistics) {
+  GEOJSONParser parser(json, NULL, visitor);
+  parser.pvtParse(showStatistics);
+  return !parser._parseError;
+}
+
+bool GEOJSONParser::parseBSON(const IByteBuffer* bson,
+                              GEOFeatureVisitor* visitor,
+                              bool showStatistics) {
+  GEOJSONParser parser("", bson, visitor);
+  parser.pvtParse(showStatistics);
+  return !parser._parseError;
+}
+
 GEOObject* GEOJSONParser::parse(const JSONObject* jsonObject,
                                 bool showStatistics) {
-  GEOJSONParser parser("", NULL);
+  GEOJSONParser parser("", NULL, NULL);
   GEOObject* result = parser.toGEO(jsonObject);
   if (showStatistics) {
     parser.showStatisticsToLogger();
@@ -139,25 +168,12 @@ void GEOJSONParser::showStatisticsToLogger() const {
   delete sb;
 }
 
-GEOObject* GEOJSONParser::pvtParse(bool showStatistics) const {
-  GEOObject* result = NULL;
-
-  const JSONBaseObject* jsonBaseObject = (_bson == NULL) ? IJSONParser::instance()->parse(_json) : BSONParser::parse(_bson);
-
-  if (jsonBaseObject != NULL) {
-    const JSONObject* jsonObject = jsonBaseObject->asObject();
-    if (jsonObject != NULL) {
-      result = toGEO(jsonObject);
-    }
-    else {
-      ILogger::instance()->logError("Root object for GEOJSON has to be a JSONObject");
-    }
-
-    delete jsonBaseObject;
+GEOObject* GEOJSONParser::pvtParse(bool showStatistics) {
+  // single pass, straight from the document to the GEOObjects without a JSONObject tree
+  GEOObject* result = (_bson == NULL) ? jsonParseRoot() : bsonParseRoot();
 
-    if (showStatistics) {
-      showStatisticsToLogger();
-    }
+  if (showStatistics && !_parseError) {
+    showStatisticsToLogger();
   }
 
   return result;
@@ -610,3 +626,1270 @@ GEOObject* GEOJSONParser::toGEO(const JSONObject* jsonObject) const {
     return NULL;
   }
 }
+
+// exact powers of ten, see jsonParseNumber()
+static const double POWERS_OF_TEN[] = {
+  1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10, 1e11,
+  1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+};
+
+
+GEOJSONParser::Coordinates::~Coordinates() {
+#ifdef C_CODE
+  delete _positions;
+#endif
+  if (_children != NULL) {
+    const size_t childrenSize = _children->size();
+    for (size_t i = 0; i < childrenSize; i++) {
+      delete _children->at(i);
+    }
+    delete _children;
+  }
+}
+
+void GEOJSONParser::parseError(const std::string& message) {
+  if (!_parseError) {
+    _parseError = true;
+    if (_bson == NULL) {
+      ILogger::instance()->logError("GEOJSON: %s at position %d", message.c_str(), _jsonCursor);
+    }
+    else {
+      ILogger::instance()->logError("GEOJSON: %s", message.c_str());
+    }
+  }
+}
+
+void GEOJSONParser::addFeature(std::vector<GEOFeature*>& features,
+                               GEOFeature* feature) const {
+  if (_visitor == NULL) {
+    features.push_back(feature);
+  }
+  else {
+    _visitor->visitFeature(feature);
+  }
+}
+
+GEOFeature* GEOJSONParser::createFeature(JSONBaseObject* id,
+                                         GEOGeometry* geometry,
+                                         JSONBaseObject* properties) const {
+  const JSONObject* jsProperties = NULL;
+  if (properties != NULL) {
+    jsProperties = properties->asObject();
+    if (jsProperties == NULL) {
+      delete properties;
+    }
+  }
+
+  _featuresCount++;
+  return new GEOFeature(id, geometry, jsProperties);
+}
+
+GEOObject* GEOJSONParser::createRoot(const std::string& type,
+                                     std::vector<GEOFeature*>& features,
+                                     JSONBaseObject* id,
+                                     GEOGeometry* geometry,
+                                     JSONBaseObject* properties) {
+  if (!_parseError) {
+    if (type.compare("FeatureCollection") == 0) {
+      delete id;
+      delete geometry;
+      delete properties;
+      _featuresCollectionCount++;
+      // with a visitor the features were already given away
+      return (_visitor == NULL) ? new GEOFeatureCollection(features) : NULL;
+    }
+    else if (type.compare("Feature") == 0) {
+#ifdef C_CODE
+      const size_t featuresSize = features.size();
+      for (size_t i = 0; i < featuresSize; i++) {
+        delete features[i];
+      }
+#endif
+      GEOFeature* feature = createFeature(id, geometry, properties);
+      if (_visitor == NULL) {
+        return feature;
+      }
+      _visitor->visitFeature(feature);
+      return NULL;
+    }
+
+    ILogger::instance()->logError("GEOJSON: Unkown type \"%s\"", type.c_str());
+    _parseError = true;
+  }
+
+  delete id;
+  delete geometry;
+  delete properties;
+#ifdef C_CODE
+  const size_t featuresSize = features.size();
+  for (size_t i = 0; i < featuresSize; i++) {
+    delete features[i];
+  }
+#endif
+  return NULL;
+}
+
+GEOGeometry* GEOJSONParser::createGeometry(const std::string& type,
+                                           Coordinates* coordinates) const {
+  if (type.compare("Point") == 0) {
+    return createPointGeometry(coordinates);
+  }
+  else if (type.compare("LineString") == 0) {
+    return createLineStringGeometry(coordinates);
+  }
+  else if (type.compare("MultiLineString") == 0) {
+    return createMultiLineStringGeometry(coordinates);
+  }
+  else if (type.compare("Polygon") == 0) {
+    return createPolygonGeometry(coordinates);
+  }
+  else if (type.compare("MultiPolygon") == 0) {
+    return createMultiPolygonGeometry(coordinates);
+  }
+
+  ILogger::instance()->logError("Unknown geometry type \"%s\"", type.c_str());
+  return NULL;
+}
+
+std::vector<Geodetic2D*>* GEOJSONParser::create2DCoordinates(const Coordinates* coordinates) const {
+  if (coordinates == NULL) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is not present");
+    return NULL;
+  }
+  if (coordinates->_positions == NULL) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is empty");
+    return NULL;
+  }
+
+  const int stride = coordinates->positionStride();
+  const size_t valuesCount = coordinates->_positions->size();
+  std::vector<Geodetic2D*>* result = new std::vector<Geodetic2D*>();
+  for (size_t i = 0; i < valuesCount; i += stride) {
+    result->push_back( new Geodetic2D(Angle::fromDegrees(coordinates->_positions->at(i)),
+                                      Angle::fromDegrees(coordinates->_positions->at(i + 1))) );
+  }
+
+  _coordinates2DCount += result->size();
+  return result;
+}
+
+std::vector<Geodetic3D*>* GEOJSONParser::create3DCoordinates(const Coordinates* coordinates) const {
+  if (coordinates == NULL) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is not present");
+    return NULL;
+  }
+  if (coordinates->_positions == NULL) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is empty");
+    return NULL;
+  }
+
+  const int stride = coordinates->positionStride();
+  const size_t valuesCount = coordinates->_positions->size();
+  std::vector<Geodetic3D*>* result = new std::vector<Geodetic3D*>();
+  for (size_t i = 0; i < valuesCount; i += stride) {
+    const double height = (stride == 3) ? coordinates->_positions->at(i + 2) : 0;
+    result->push_back( new Geodetic3D(Angle::fromDegrees(coordinates->_positions->at(i)),
+                                      Angle::fromDegrees(coordinates->_positions->at(i + 1)),
+                                      height) );
+  }
+
+  _coordinates3DCount += result->size();
+  return result;
+}
+
+GEOGeometry* GEOJSONParser::createPointGeometry(Coordinates* coordinates) const {
+  if (coordinates == NULL) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is not present");
+    return NULL;
+  }
+
+  const int dimensions = coordinates->_dimensions;
+  if ((coordinates->_positions != NULL) ||
+      (coordinates->_children != NULL)) {
+    ILogger::instance()->logError("Invalid format for \"coordinates\" of Point");
+  }
+  else if (dimensions == 2) {
+    _points2DCount++;
+    return new GEO2DPointGeometry(Geodetic2D::fromDegrees(coordinates->_latitude,
+                                                          coordinates->_longitude));
+  }
+  else if (dimensions == 3) {
+    _points3DCount++;
+    return new GEO3DPointGeometry(Geodetic3D::fromDegrees(coordinates->_latitude,
+                                                          coordinates->_longitude,
+                                                          coordinates->_height));
+  }
+  else {
+    ILogger::instance()->logError("Mandatory \"coordinates\" dimensions not supported %d", dimensions);
+  }
+  return NULL;
+}
+
+GEOGeometry* GEOJSONParser::createLineStringGeometry(Coordinates* coordinates) const {
+  if (coordinates == NULL) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is not present");
+    return NULL;
+  }
+  if (coordinates->isEmpty()) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is empty");
+    return NULL;
+  }
+
+  const int dimensions = coordinates->_dimensions;
+  if (dimensions == 2) {
+    std::vector<Geodetic2D*>* lineCoordinates = create2DCoordinates(coordinates);
+    if (lineCoordinates != NULL) {
+      _lineStrings2DCount++;
+      return new GEO2DLineStringGeometry(lineCoordinates);
+    }
+  }
+  else {
+    ILogger::instance()->logError("Invalid coordinates dimensions=%d", dimensions);
+  }
+  return NULL;
+}
+
+GEOGeometry* GEOJSONParser::createMultiLineStringGeometry(Coordinates* coordinates) const {
+  if (coordinates == NULL) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is not present");
+    return NULL;
+  }
+
+  const size_t linesCount = coordinates->childrenCount();
+  if (linesCount == 0) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is empty");
+    return NULL;
+  }
+
+  Coordinates* firstLine = coordinates->getChild(0);
+  if (firstLine->isEmpty()) {
+    ILogger::instance()->logError("Invalid format for first \"coordinates\" element");
+    return NULL;
+  }
+
+  const int dimensions = firstLine->_dimensions;
+  if (dimensions == 2) {
+    std::vector<std::vector<Geodetic2D*>*>* coordinatesArray = new std::vector<std::vector<Geodetic2D*>*>();
+    for (size_t i = 0; i < linesCount; i++) {
+      std::vector<Geodetic2D*>* lineCoordinates = create2DCoordinates(coordinates->getChild(i));
+      if (lineCoordinates != NULL) {
+        coordinatesArray->push_back( lineCoordinates );
+        _lineStringsInMultiLineString2DCount++;
+      }
+    }
+
+    _multiLineStrings2DCount++;
+    return new GEO2DMultiLineStringGeometry(coordinatesArray);
+  }
+
+  ILogger::instance()->logError("Invalid coordinates dimensions=%d", dimensions);
+  return NULL;
+}
+
+GEO2DPolygonData* GEOJSONParser::createPolygon2DData(Coordinates* coordinates) const {
+  const size_t ringsCount = coordinates->childrenCount();
+  if (ringsCount == 0) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is empty");
+    return NULL;
+  }
+
+  Coordinates* outerRing = coordinates->getChild(0);
+  if (outerRing->isEmpty()) {
+    ILogger::instance()->logError("Invalid format for first \"coordinates\" element");
+    return NULL;
+  }
+
+  const int dimensions = outerRing->_dimensions;
+  if (dimensions == 2) {
+    std::vector<Geodetic2D*>* ringCoordinates = create2DCoordinates(outerRing);
+
+    std::vector<std::vector<Geodetic2D*>*>* holesCoordinatesArray = new std::vector<std::vector<Geodetic2D*>*>();
+    for (size_t i = 1; i < ringsCount; i++) {
+      std::vector<Geodetic2D*>* holeCoordinates = create2DCoordinates(coordinates->getChild(i));
+      if (holeCoordinates != NULL) {
+        holesCoordinatesArray->push_back( holeCoordinates );
+        _holesLineStringsInPolygon2DCount++;
+      }
+    }
+
+    if (holesCoordinatesArray->size() == 0) {
+      delete holesCoordinatesArray;
+      holesCoordinatesArray = NULL;
+    }
+
+    _polygon2DCount++;
+    return new GEO2DPolygonData(ringCoordinates, holesCoordinatesArray);
+  }
+
+  ILogger::instance()->logError("Invalid coordinates dimensions=%d", dimensions);
+  return NULL;
+}
+
+GEO3DPolygonData* GEOJSONParser::createPolygon3DData(Coordinates* coordinates) const {
+  const size_t ringsCount = coordinates->childrenCount();
+  if (ringsCount == 0) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is empty");
+    return NULL;
+  }
+
+  Coordinates* outerRing = coordinates->getChild(0);
+  if (outerRing->isEmpty()) {
+    ILogger::instance()->logError("Invalid format for first \"coordinates\" element");
+    return NULL;
+  }
+
+  const int dimensions = outerRing->_dimensions;
+  if (dimensions == 3) {
+    std::vector<Geodetic3D*>* ringCoordinates = create3DCoordinates(outerRing);
+
+    std::vector<std::vector<Geodetic3D*>*>* holesCoordinatesArray = new std::vector<std::vector<Geodetic3D*>*>();
+    for (size_t i = 1; i < ringsCount; i++) {
+      std::vector<Geodetic3D*>* holeCoordinates = create3DCoordinates(coordinates->getChild(i));
+      if (holeCoordinates != NULL) {
+        holesCoordinatesArray->push_back( holeCoordinates );
+        _holesLineStringsInPolygon3DCount++;
+      }
+    }
+
+    if (holesCoordinatesArray->size() == 0) {
+      delete holesCoordinatesArray;
+      holesCoordinatesArray = NULL;
+    }
+
+    _polygon3DCount++;
+    return new GEO3DPolygonData(ringCoordinates, holesCoordinatesArray);
+  }
+
+  ILogger::instance()->logError("Invalid coordinates dimensions=%d", dimensions);
+  return NULL;
+}
+
+GEOGeometry* GEOJSONParser::createPolygonGeometry(Coordinates* coordinates) const {
+  if ((coordinates == NULL) ||
+      (coordinates->childrenCount() == 0)) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is not present");
+    return NULL;
+  }
+
+  Coordinates* outerRing = coordinates->getChild(0);
+  if (outerRing->isEmpty()) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" first ring is not present");
+    return NULL;
+  }
+
+  const int dimensions = outerRing->_dimensions;
+  if (dimensions == 2) {
+    GEO2DPolygonData* polygonData = createPolygon2DData(coordinates);
+    return (polygonData == NULL) ? NULL : new GEO2DPolygonGeometry(polygonData);
+  }
+  else if (dimensions == 3) {
+    GEO3DPolygonData* polygonData = createPolygon3DData(coordinates);
+    return (polygonData == NULL) ? NULL : new GEO3DPolygonGeometry(polygonData);
+  }
+
+  ILogger::instance()->logError("Invalid coordinates dimensions=%d", dimensions);
+  return NULL;
+}
+
+GEOGeometry* GEOJSONParser::createMultiPolygonGeometry(Coordinates* coordinates) const {
+  if (coordinates == NULL) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is not present");
+    return NULL;
+  }
+
+  const size_t polygonsCount = coordinates->childrenCount();
+  if (polygonsCount == 0) {
+    ILogger::instance()->logError("Mandatory \"coordinates\" attribute is empty");
+    return NULL;
+  }
+
+  std::vector<GEO2DPolygonData*>* polygonsData = new std::vector<GEO2DPolygonData*>();
+  for (size_t i = 0; i < polygonsCount; i++) {
+    polygonsData->push_back( createPolygon2DData(coordinates->getChild(i)) );
+  }
+
+  _multiPolygon2DCount++;
+
+  return new GEO2DMultiPolygonGeometry(polygonsData);
+}
+
+void GEOJSONParser::addPosition(Coordinates* coordinates) {
+  if (coordinates->_dimensions == 0) {
+    // the first position decides the dimensions of the array
+    coordinates->_dimensions = _positionDimensions;
+#ifdef C_CODE
+    coordinates->_positions = new std::vector<double>();
+#endif
+#ifdef JAVA_CODE
+    coordinates._positions = new DoubleArrayList();
+#endif
+  }
+
+  // primitive values, the Geodetic2D/Geodetic3D are created once the geometry is known
+  coordinates->_positions->push_back(_positionLatitude);
+  coordinates->_positions->push_back(_positionLongitude);
+  if (coordinates->positionStride() == 3) {
+    coordinates->_positions->push_back(_positionHeight);
+  }
+}
+
+char GEOJSONParser::jsonPeek() {
+  while (_jsonCursor < _jsonLength) {
+    const char c = _jsonChars[_jsonCursor];
+    if ((c != ' ') && (c != '\n') && (c != '\r') && (c != '\t')) {
+      return c;
+    }
+    _jsonCursor++;
+  }
+  return 0;
+}
+
+bool GEOJSONParser::jsonConsume(const char c) {
+  if (jsonPeek() == c) {
+    _jsonCursor++;
+    return true;
+  }
+  return false;
+}
+
+void GEOJSONParser::jsonExpect(const char c) {
+  if (!jsonConsume(c)) {
+#ifdef C_CODE
+    parseError(std::string("Expected '") + c + "'");
+#endif
+#ifdef JAVA_CODE
+    parseError("Expected '" + c + "'");
+#endif
+  }
+}
+
+const std::string GEOJSONParser::jsonParseString() {
+  if (!jsonConsume('"')) {
+    parseError("Expected string");
+    return "";
+  }
+
+  const int start = _jsonCursor;
+  while (_jsonCursor < _jsonLength) {
+    const char c = _jsonChars[_jsonCursor];
+    if (c == '"') {
+#ifdef C_CODE
+      const std::string result = _json.substr(start, _jsonCursor - start);
+#endif
+#ifdef JAVA_CODE
+      final String result = _json.substring(start, _jsonCursor);
+#endif
+      _jsonCursor++;
+      return result;
+    }
+    if (c == '\\') {
+      break;
+    }
+    _jsonCursor++;
+  }
+
+  // slow path, the string has escapes
+#ifdef C_CODE
+  std::string result = _json.substr(start, _jsonCursor - start);
+#endif
+#ifdef JAVA_CODE
+  final StringBuilder result = new StringBuilder(_json.substring(start, _jsonCursor));
+#endif
+  while (_jsonCursor < _jsonLength) {
+    const char c = _jsonChars[_jsonCursor++];
+    if (c == '"') {
+#ifdef C_CODE
+      return result;
+#endif
+#ifdef JAVA_CODE
+      return result.toString();
+#endif
+    }
+    if (c != '\\') {
+#ifdef C_CODE
+      result.push_back(c);
+#endif
+#ifdef JAVA_CODE
+      result.append(c);
+#endif
+      continue;
+    }
+    if (_jsonCursor >= _jsonLength) {
+      break;
+    }
+
+    const char escaped = _jsonChars[_jsonCursor++];
+    switch (escaped) {
+      case 'b': {
+#ifdef C_CODE
+        result.push_back('\b');
+#endif
+#ifdef JAVA_CODE
+        result.append('\b');
+#endif
+        break;
+      }
+      case 'f': {
+#ifdef C_CODE
+        result.push_back('\f');
+#endif
+#ifdef JAVA_CODE
+        result.append('\f');
+#endif
+        break;
+      }
+      case 'n': {
+#ifdef C_CODE
+        result.push_back('\n');
+#endif
+#ifdef JAVA_CODE
+        result.append('\n');
+#endif
+        break;
+      }
+      case 'r': {
+#ifdef C_CODE
+        result.push_back('\r');
+#endif
+#ifdef JAVA_CODE
+        result.append('\r');
+#endif
+        break;
+      }
+      case 't': {
+#ifdef C_CODE
+        result.push_back('\t');
+#endif
+#ifdef JAVA_CODE
+        result.append('\t');
+#endif
+        break;
+      }
+      case 'u': {
+        if (_jsonCursor + 4 > _jsonLength) {
+          parseError("Invalid unicode escape");
+          return "";
+        }
+        int code = 0;
+        for (int i = 0; i < 4; i++) {
+          const char h = _jsonChars[_jsonCursor++];
+          int digit;
+          if ((h >= '0') && (h <= '9')) {
+            digit = h - '0';
+          }
+          else if ((h >= 'a') && (h <= 'f')) {
+            digit = h - 'a' + 10;
+          }
+          else if ((h >= 'A') && (h <= 'F')) {
+            digit = h - 'A' + 10;
+          }
+          else {
+            parseError("Invalid unicode escape");
+            return "";
+          }
+          code = (code * 16) + digit;
+        }
+#ifdef C_CODE
+        // a high surrogate followed by an escaped low surrogate encodes a supplementary character
+        if ((code >= 0xD800) && (code <= 0xDBFF) &&
+            (_jsonCursor + 6 <= _jsonLength) &&
+            (_jsonChars[_jsonCursor] == '\\') &&
+            (_jsonChars[_jsonCursor + 1] == 'u')) {
+          const std::string low = _json.substr(_jsonCursor + 2, 4);
+          const int lowCode = (int) strtol(low.c_str(), NULL, 16);
+          if ((lowCode >= 0xDC00) && (lowCode <= 0xDFFF)) {
+            code = 0x10000 + ((code - 0xD800) << 10) + (lowCode - 0xDC00);
+            _jsonCursor += 6;
+          }
+        }
+        // UTF-8 encoding
+        if (code < 0x80) {
+          result.push_back((char) code);
+        }
+        else if (code < 0x800) {
+          result.push_back((char) (0xC0 | (code >> 6)));
+          result.push_back((char) (0x80 | (code & 0x3F)));
+        }
+        else if (code < 0x10000) {
+          result.push_back((char) (0xE0 | (code >> 12)));
+          result.push_back((char) (0x80 | ((code >> 6) & 0x3F)));
+          result.push_back((char) (0x80 | (code & 0x3F)));
+        }
+        else {
+          result.push_back((char) (0xF0 | (code >> 18)));
+          result.push_back((char) (0x80 | ((code >> 12) & 0x3F)));
+          result.push_back((char) (0x80 | ((code >> 6) & 0x3F)));
+          result.push_back((char) (0x80 | (code & 0x3F)));
+        }
+#endif
+#ifdef JAVA_CODE
+        result.append((char) code);
+#endif
+        break;
+      }
+      default: {
+        // '"', '\\' and '/'
+#ifdef C_CODE
+        result.push_back(escaped);
+#endif
+#ifdef JAVA_CODE
+        result.append(escaped);
+#endif
+        break;
+      }
+    }
+  }
+
+  parseError("Unterminated string");
+  return "";
+}
+
+double GEOJSONParser::jsonParseNumber() {
+  jsonPeek();
+  const int start = _jsonCursor;
+
+  bool negative = false;
+  if ((_jsonCursor < _jsonLength) && (_jsonChars[_jsonCursor] == '-')) {
+    negative = true;
+    _jsonCursor++;
+  }
+
+  // accumulates up to 15 significant digits, that fit exactly in the 53 bits of a double mantissa
+  long long mantissa = 0;
+  int significantDigits = 0;
+  int exponent = 0;
+  bool exact = true;
+  int digits = 0;
+
+  while ((_jsonCursor < _jsonLength) && (_jsonChars[_jsonCursor] >= '0') && (_jsonChars[_jsonCursor] <= '9')) {
+    const int digit = _jsonChars[_jsonCursor++] - '0';
+    digits++;
+    if (significantDigits < 15) {
+      mantissa = (mantissa * 10) + digit;
+      if (mantissa != 0) {
+        significantDigits++;
+      }
+    }
+    else {
+      exact = false;
+    }
+  }
+  if ((_jsonCursor < _jsonLength) && (_jsonChars[_jsonCursor] == '.')) {
+    _jsonCursor++;
+    while ((_jsonCursor < _jsonLength) && (_jsonChars[_jsonCursor] >= '0') && (_jsonChars[_jsonCursor] <= '9')) {
+      const int digit = _jsonChars[_jsonCursor++] - '0';
+      digits++;
+      if (significantDigits < 15) {
+        mantissa = (mantissa * 10) + digit;
+        if (mantissa != 0) {
+          significantDigits++;
+        }
+        exponent--;
+      }
+      else {
+        exact = false;
+      }
+    }
+  }
+  if (digits == 0) {
+    parseError("Invalid number");
+    return 0;
+  }
+  if ((_jsonCursor < _jsonLength) && ((_jsonChars[_jsonCursor] == 'e') || (_jsonChars[_jsonCursor] == 'E'))) {
+    _jsonCursor++;
+    bool negativeExponent = false;
+    if ((_jsonCursor < _jsonLength) && ((_jsonChars[_jsonCursor] == '-') || (_jsonChars[_jsonCursor] == '+'))) {
+      negativeExponent = (_jsonChars[_jsonCursor] == '-');
+      _jsonCursor++;
+    }
+    int explicitExponent = 0;
+    while ((_jsonCursor < _jsonLength) && (_jsonChars[_jsonCursor] >= '0') && (_jsonChars[_jsonCursor] <= '9')) {
+      if (explicitExponent < 10000) {
+        explicitExponent = (explicitExponent * 10) + (_jsonChars[_jsonCursor] - '0');
+      }
+      _jsonCursor++;
+    }
+    exponent += negativeExponent ? -explicitExponent : explicitExponent;
+  }
+
+  // An exact mantissa scaled by an exact power of ten is correctly rounded, the same double
+  // that the full conversion gives. Any other case is handed to the platform conversion.
+  if (exact && (exponent >= -22) && (exponent <= 22)) {
+    const double value = (exponent < 0) ? (mantissa / POWERS_OF_TEN[-exponent]) : (mantissa * POWERS_OF_TEN[exponent]);
+    return negative ? -value : value;
+  }
+
+#ifdef C_CODE
+  return IStringUtils::instance()->parseDouble(_json.substr(start, _jsonCursor - start));
+#endif
+#ifdef JAVA_CODE
+  return IStringUtils.instance().parseDouble(_json.substring(start, _jsonCursor));
+#endif
+}
+
+void GEOJSONParser::jsonParseLiteral(const std::string& literal) {
+  jsonPeek();
+  const int literalLength = literal.size();
+  if (_jsonCursor + literalLength > _jsonLength) {
+    parseError("Invalid literal");
+    return;
+  }
+  for (int i = 0; i < literalLength; i++) {
+    if (_jsonChars[_jsonCursor + i] != literal[i]) {
+      parseError("Invalid literal");
+      return;
+    }
+  }
+  _jsonCursor += literalLength;
+}
+
+const std::string GEOJSONParser::jsonParseKey() {
+  const std::string key = jsonParseString();
+  jsonExpect(':');
+  return key;
+}
+
+JSONBaseObject* GEOJSONParser::jsonParseValue() {
+  const char c = jsonPeek();
+  if (c == '{') {
+    _jsonCursor++;
+    JSONObject* object = new JSONObject();
+    if (!jsonConsume('}')) {
+      while (!_parseError) {
+        const std::string key = jsonParseKey();
+        // null values are kept, as the platform JSON parsers do
+        object->put(key, jsonParseValue());
+        if (!jsonConsume(',')) {
+          jsonExpect('}');
+          break;
+        }
+      }
+    }
+    return object;
+  }
+  else if (c == '[') {
+    _jsonCursor++;
+    JSONArray* array = new JSONArray();
+    if (!jsonConsume(']')) {
+      while (!_parseError) {
+        array->add(jsonParseValue());
+        if (!jsonConsume(',')) {
+          jsonExpect(']');
+          break;
+        }
+      }
+    }
+    return array;
+  }
+  else if (c == '"') {
+    return new JSONString(jsonParseString());
+  }
+  else if (c == 't') {
+    jsonParseLiteral("true");
+    return new JSONBoolean(true);
+  }
+  else if (c == 'f') {
+    jsonParseLiteral("false");
+    return new JSONBoolean(false);
+  }
+  else if (c == 'n') {
+    jsonParseLiteral("null");
+    return NULL;
+  }
+  else if ((c == '-') || ((c >= '0') && (c <= '9'))) {
+    // the same types the platform JSON parsers create
+    const double doubleValue = jsonParseNumber();
+    const long long longValue = (long long) doubleValue;
+    if (doubleValue == longValue) {
+      const int intValue = (int) longValue;
+      if (intValue == longValue) {
+        return new JSONInteger(intValue);
+      }
+      return new JSONLong(longValue);
+    }
+    const float floatValue = (float) doubleValue;
+    if (floatValue == doubleValue) {
+      return new JSONFloat(floatValue);
+    }
+    return new JSONDouble(doubleValue);
+  }
+
+  parseError("Unexpected character");
+  return NULL;
+}
+
+GEOJSONParser::Coordinates* GEOJSONParser::jsonParseCoordinates() {
+  if (!jsonConsume('[')) {
+    parseError("Expected array of coordinates");
+    return NULL;
+  }
+
+  const char first = jsonPeek();
+  if ((first == '-') || ((first >= '0') && (first <= '9'))) {
+    // a position, parsed into _position* to save the allocation of a Coordinates for each one
+    _positionDimensions = 0;
+    _positionHeight = 0;
+    while (!_parseError) {
+      const double value = jsonParseNumber();
+      if (_positionDimensions == 0) {
+        _positionLongitude = value;
+      }
+      else if (_positionDimensions == 1) {
+        _positionLatitude = value;
+      }
+      else if (_positionDimensions == 2) {
+        _positionHeight = value;
+      }
+      _positionDimensions++;
+      if (!jsonConsume(',')) {
+        jsonExpect(']');
+        break;
+      }
+    }
+    if (_positionDimensions < 2) {
+      parseError("Invalid position");
+    }
+    return NULL;
+  }
+
+  Coordinates* result = new Coordinates();
+  if (!jsonConsume(']')) {
+    while (!_parseError) {
+      Coordinates* child = jsonParseCoordinates();
+      if (_parseError) {
+        delete child;
+        break;
+      }
+      if (child == NULL) {
+        if (result->_children != NULL) {
+          parseError("Invalid coordinates, positions and arrays mixed");
+          break;
+        }
+        addPosition(result);
+      }
+      else {
+        if (result->_dimensions != 0) {
+          delete child;
+          parseError("Invalid coordinates, positions and arrays mixed");
+          break;
+        }
+        if (result->_children == NULL) {
+          result->_children = new std::vector<Coordinates*>();
+        }
+        result->_children->push_back(child);
+      }
+      if (!jsonConsume(',')) {
+        jsonExpect(']');
+        break;
+      }
+    }
+  }
+  return result;
+}
+
+GEOGeometry* GEOJSONParser::jsonParseGeometry() {
+  if (jsonPeek() != '{') {
+    // null, or not a geometry
+    delete jsonParseValue();
+    return NULL;
+  }
+  _jsonCursor++;
+
+  std::string type = "";
+  Coordinates* coordinates = NULL;
+
+  if (!jsonConsume('}')) {
+    while (!_parseError) {
+      const std::string key = jsonParseKey();
+      if ((key.compare("type") == 0) && (jsonPeek() == '"')) {
+        type = jsonParseString();
+      }
+      else if ((key.compare("coordinates") == 0) && (jsonPeek() == '[')) {
+        delete coordinates;
+        coordinates = jsonParseCoordinates();
+        if ((coordinates == NULL) && !_parseError) {
+          // the coordinates of a Point
+          coordinates = new Coordinates();
+          coordinates->_dimensions = _positionDimensions;
+          coordinates->_longitude  = _positionLongitude;
+          coordinates->_latitude   = _positionLatitude;
+          coordinates->_height     = _positionHeight;
+        }
+      }
+      else {
+        delete jsonParseValue();
+      }
+      if (!jsonConsume(',')) {
+        jsonExpect('}');
+        break;
+      }
+    }
+  }
+
+  GEOGeometry* geometry = _parseError ? NULL : createGeometry(type, coordinates);
+  delete coordinates;
+  return geometry;
+}
+
+GEOFeature* GEOJSONParser::jsonParseFeature() {
+  _jsonCursor++; // consumes the '{'
+
+  JSONBaseObject* id         = NULL;
+  GEOGeometry*    geometry   = NULL;
+  JSONBaseObject* properties = NULL;
+
+  if (!jsonConsume('}')) {
+    while (!_parseError) {
+      const std::string key = jsonParseKey();
+      if (key.compare("geometry") == 0) {
+        delete geometry;
+        geometry = jsonParseGeometry();
+      }
+      else if (key.compare("properties") == 0) {
+        delete properties;
+        properties = jsonParseValue();
+      }
+      else if (key.compare("id") == 0) {
+        delete id;
+        id = jsonParseValue();
+      }
+      else {
+        delete jsonParseValue();
+      }
+      if (!jsonConsume(',')) {
+        jsonExpect('}');
+        break;
+      }
+    }
+  }
+
+  if (_parseError) {
+    delete id;
+    delete geometry;
+    delete properties;
+    return NULL;
+  }
+  return createFeature(id, geometry, properties);
+}
+
+void GEOJSONParser::jsonParseFeatures(std::vector<GEOFeature*>& features) {
+  if (!jsonConsume('[')) {
+    delete jsonParseValue();
+    return;
+  }
+  if (jsonConsume(']')) {
+    return;
+  }
+  while (!_parseError) {
+    if (jsonPeek() == '{') {
+      GEOFeature* feature = jsonParseFeature();
+      if (feature != NULL) {
+        addFeature(features, feature);
+      }
+    }
+    else {
+      delete jsonParseValue();
+    }
+    if (!jsonConsume(',')) {
+      jsonExpect(']');
+      break;
+    }
+  }
+}
+
+GEOObject* GEOJSONParser::jsonParseRoot() {
+  if (!jsonConsume('{')) {
+    ILogger::instance()->logError("Root object for GEOJSON has to be a JSONObject");
+    _parseError = true;
+    return NULL;
+  }
+
+  std::string              type = "";
+  std::vector<GEOFeature*> features;
+  JSONBaseObject*          id         = NULL;
+  GEOGeometry*             geometry   = NULL;
+  JSONBaseObject*          properties = NULL;
+
+  if (!jsonConsume('}')) {
+    while (!_parseError) {
+      const std::string key = jsonParseKey();
+      if ((key.compare("type") == 0) && (jsonPeek() == '"')) {
+        type = jsonParseString();
+      }
+      else if (key.compare("features") == 0) {
+        jsonParseFeatures(features);
+      }
+      else if (key.compare("geometry") == 0) {
+        delete geometry;
+        geometry = jsonParseGeometry();
+      }
+      else if (key.compare("properties") == 0) {
+        delete properties;
+        properties = jsonParseValue();
+      }
+      else if (key.compare("id") == 0) {
+        delete id;
+        id = jsonParseValue();
+      }
+      else {
+        delete jsonParseValue();
+      }
+      if (!jsonConsume(',')) {
+        jsonExpect('}');
+        break;
+      }
+    }
+  }
+
+  return createRoot(type, features, id, geometry, properties);
+}
+
+const std::string GEOJSONParser::bsonParseString() {
+  _bsonIterator->nextInt32(); // consumes the size
+  return _bsonIterator->nextZeroTerminatedString();
+}
+
+GEOJSONParser::Coordinates* GEOJSONParser::bsonParseCoordinates(const unsigned char arrayType) {
+  _bsonIterator->nextInt32(); // consumes the size
+
+  Coordinates* result = NULL;
+  bool isPosition = false;
+  while (!_parseError && _bsonIterator->hasNext()) {
+    const unsigned char type = _bsonIterator->nextUInt8();
+    if (type == 0) {
+      break;
+    }
+    if (arrayType == 0x04) {
+      _bsonIterator->nextZeroTerminatedString(); // consumes the key
+    }
+
+    if ((type == 0x01) || (type == 0x10) || (type == 0x12)) {
+      if (result != NULL) {
+        parseError("Invalid coordinates, positions and arrays mixed");
+        break;
+      }
+      if (!isPosition) {
+        // a position, parsed into _position* to save the allocation of a Coordinates for each one
+        isPosition = true;
+        _positionDimensions = 0;
+        _positionHeight = 0;
+      }
+      double value;
+      if (type == 0x01) {
+        value = _bsonIterator->nextDouble();
+      }
+      else if (type == 0x10) {
+        value = _bsonIterator->nextInt32();
+      }
+      else {
+        value = (double) _bsonIterator->nextInt64();
+      }
+      if (_positionDimensions == 0) {
+        _positionLongitude = value;
+      }
+      else if (_positionDimensions == 1) {
+        _positionLatitude = value;
+      }
+      else if (_positionDimensions == 2) {
+        _positionHeight = value;
+      }
+      _positionDimensions++;
+    }
+    else if ((type == 0x04) || (type == 0x44)) {
+      if (isPosition) {
+        parseError("Invalid coordinates, positions and arrays mixed");
+        break;
+      }
+      if (result == NULL) {
+        result = new Coordinates();
+      }
+      Coordinates* child = bsonParseCoordinates(type);
+      if (_parseError) {
+        delete child;
+        break;
+      }
+      if (child == NULL) {
+        if (result->_children != NULL) {
+          parseError("Invalid coordinates, positions and arrays mixed");
+          break;
+        }
+        addPosition(result);
+      }
+      else {
+        if (result->_dimensions != 0) {
+          delete child;
+          parseError("Invalid coordinates, positions and arrays mixed");
+          break;
+        }
+        if (result->_children == NULL) {
+          result->_children = new std::vector<Coordinates*>();
+        }
+        result->_children->push_back(child);
+      }
+    }
+    else {
+      parseError("Invalid type in coordinates");
+      break;
+    }
+  }
+
+  if (isPosition) {
+    if (_positionDimensions < 2) {
+      parseError("Invalid position");
+    }
+    return NULL;
+  }
+  // an empty array
+  return (result == NULL) ? new Coordinates() : result;
+}
+
+GEOGeometry* GEOJSONParser::bsonParseGeometry() {
+  _bsonIterator->nextInt32(); // consumes the size
+
+  std::string type = "";
+  Coordinates* coordinates = NULL;
+
+  while (!_parseError && _bsonIterator->hasNext()) {
+    const unsigned char valueType = _bsonIterator->nextUInt8();
+    if (valueType == 0) {
+      break;
+    }
+    const std::string key = _bsonIterator->nextZeroTerminatedString();
+    if ((key.compare("type") == 0) && (valueType == 0x02)) {
+      type = bsonParseString();
+    }
+    else if ((key.compare("coordinates") == 0) && ((valueType == 0x04) || (valueType == 0x44))) {
+      delete coordinates;
+      coordinates = bsonParseCoordinates(valueType);
+      if ((coordinates == NULL) && !_parseError) {
+        // the coordinates of a Point
+        coordinates = new Coordinates();
+        coordinates->_dimensions = _positionDimensions;
+        coordinates->_longitude  = _positionLongitude;
+        coordinates->_latitude   = _positionLatitude;
+        coordinates->_height     = _positionHeight;
+      }
+    }
+    else {
+      delete BSONParser::parseValue(valueType, _bsonIterator, false);
+    }
+  }
+
+  GEOGeometry* geometry = _parseError ? NULL : createGeometry(type, coordinates);
+  delete coordinates;
+  return geometry;
+}
+
+GEOFeature* GEOJSONParser::bsonParseFeature() {
+  _bsonIterator->nextInt32(); // consumes the size
+
+  JSONBaseObject* id         = NULL;
+  GEOGeometry*    geometry   = NULL;
+  JSONBaseObject* properties = NULL;
+
+  while (!_parseError && _bsonIterator->hasNext()) {
+    const unsigned char valueType = _bsonIterator->nextUInt8();
+    if (valueType == 0) {
+      break;
+    }
+    const std::string key = _bsonIterator->nextZeroTerminatedString();
+    if ((key.compare("geometry") == 0) && (valueType == 0x03)) {
+      delete geometry;
+      geometry = bsonParseGeometry();
+    }
+    else if (key.compare("properties") == 0) {
+      delete properties;
+      properties = BSONParser::parseValue(valueType, _bsonIterator, false);
+    }
+    else if (key.compare("id") == 0) {
+      delete id;
+      id = BSONParser::parseValue(valueType, _bsonIterator, false);
+    }
+    else {
+      delete BSONParser::parseValue(valueType, _bsonIterator, false);
+    }
+  }
+
+  if (_parseError) {
+    delete id;
+    delete geometry;
+    delete properties;
+    return NULL;
+  }
+  return createFeature(id, geometry, properties);
+}
+
+void GEOJSONParser::bsonParseFeatures(const unsigned char arrayType,
+                                      std::vector<GEOFeature*>& features) {
+  _bsonIterator->nextInt32(); // consumes the size
+
+  while (!_parseError && _bsonIterator->hasNext()) {
+    const unsigned char type = _bsonIterator->nextUInt8();
+    if (type == 0) {
+      break;
+    }
+    if (arrayType == 0x04) {
+      _bsonIterator->nextZeroTerminatedString(); // consumes the key
+    }
+    if (type == 0x03) {
+      GEOFeature* feature = bsonParseFeature();
+      if (feature != NULL) {
+        addFeature(features, feature);
+      }
+    }
+    else {
+      delete BSONParser::parseValue(type, _bsonIterator, false);
+    }
+  }
+}
+
+GEOObject* GEOJSONParser::bsonParseRoot() {
+  _bsonIterator = new ByteBufferIterator(_bson);
+
+  const int bufferSize = _bsonIterator->nextInt32();
+  if (_bson->size() != bufferSize) {
+    ILogger::instance()->logError("Invalid bufferSize, expected %d but got %d",
+                                  bufferSize,
+                                  _bson->size());
+  }
+
+  std::string              type = "";
+  std::vector<GEOFeature*> features;
+  JSONBaseObject*          id         = NULL;
+  GEOGeometry*             geometry   = NULL;
+  JSONBaseObject*          properties = NULL;
+
+  while (!_parseError && _bsonIterator->hasNext()) {
+    const unsigned char valueType = _bsonIterator->nextUInt8();
+    if (valueType == 0) {
+      break;
+    }
+    const std::string key = _bsonIterator->nextZeroTerminatedString();
+    if ((key.compare("type") == 0) && (valueType == 0x02)) {
+      type = bsonParseString();
+    }
+    else if ((key.compare("features") == 0) && ((valueType == 0x04) || (valueType == 0x44))) {
+      bsonParseFeatures(valueType, features);
+    }
+    else if ((key.compare("geometry") == 0) && (valueType == 0x03)) {
+      delete geometry;
+      geometry = bsonParseGeometry();
+    }
+    else if (key.compare("properties") == 0) {
+      delete properties;
+      properties = BSONParser::parseValue(valueType, _bsonIterator, false);
+    }
+    else if (key.compare("id") == 0) {
+      delete id;
+      id = BSONParser::parseValue(valueType, _bsonIterator, false);
+    }
+    else {
+      delete BSONParser::parseValue(valueType, _bsonIterator, false);
+    }
+  }
+
+  delete _bsonIterator;
+  _bsonIterator = NULL;
+
+  return createRoot(type, features, id, geometry, properties);
+}
@@ -23,12 +23,121 @@ class Geodetic2D;
 class Geodetic3D;
 class GEO2DPolygonData;
 class GEO3DPolygonData;
+class JSONBaseObject;
+class ByteBufferIterator;
+
+
+class GEOFeatureVisitor {
+public:
+  virtual ~GEOFeatureVisitor() {
+  }
+
+  /**
+   Called for each feature as soon as it's parsed, in the order of the document.
+   The visitor takes the ownership of the feature.
+   */
+  virtual void visitFeature(GEOFeature* feature) = 0;
+
+};
 
 
 class GEOJSONParser {
 private:
   const std::string  _json;
   const IByteBuffer* _bson;
+  GEOFeatureVisitor* _visitor;
+
+#ifdef JAVA_CODE
+  private static final class DoubleArrayList {
+    private double[] _array = new double[64];
+    private int      _size  = 0;
+
+    public int size() {
+      return _size;
+    }
+
+    public double get(final int index) {
+      return _array[index];
+    }
+
+    public void push_back(final double element) {
+      if (_size == _array.length) {
+        _array = java.util.Arrays.copyOf(_array, ((_array.length * 3) >> 1) + 1);
+      }
+      _array[_size++] = element;
+    }
+  }
+#endif
+
+  // the "coordinates" of a geometry, kept until the "type" of the geometry is known
+  class Coordinates {
+  public:
+    // a position, when the array holds numbers
+    int    _dimensions;
+    double _longitude;
+    double _latitude;
+    double _height;
+
+    // when the array holds positions, of the dimensions of the first one: their latitudes and
+    // longitudes in degrees, and their heights unless the dimensions are 2, one after the other
+#ifdef C_CODE
+    std::vector<double>* _positions;
+#endif
+#ifdef JAVA_CODE
+    public DoubleArrayList _positions;
+#endif
+
+    // when the array holds arrays of positions (or deeper)
+    std::vector<Coordinates*>* _children;
+
+    Coordinates() :
+    _dimensions(0),
+    _longitude(0),
+    _latitude(0),
+    _height(0),
+    _positions(NULL),
+    _children(NULL)
+    {
+    }
+
+    ~Coordinates();
+
+    bool isEmpty() const {
+      return ((_dimensions == 0) &&
+              (_positions == NULL) &&
+              (_children == NULL));
+    }
+
+    int positionStride() const {
+      return (_dimensions == 2) ? 2 : 3;
+    }
+
+    size_t childrenCount() const {
+      return (_children == NULL) ? 0 : _children->size();
+    }
+
+    Coordinates* getChild(size_t i) const {
+      return _children->at(i);
+    }
+  };
+
+  // streaming state
+#ifdef C_CODE
+  const char* _jsonChars;
+#endif
+#ifdef JAVA_CODE
+  private final char[] _jsonChars;
+#endif
+  const int           _jsonLength;
+  int                 _jsonCursor;
+  ByteBufferIterator* _bsonIterator;
+  bool                _parseError;
+
+  // the last position parsed by jsonParseCoordinates() or bsonParseCoordinates()
+  int    _positionDimensions;
+  double _positionLongitude;
+  double _positionLatitude;
+  double _positionHeight;
 
   // statistics
   mutable int _points2DCount;
@@ -47,9 +156,25 @@ private:
   mutable int _multiPolygon2DCount;
 
   GEOJSONParser(const std::string& json,
-                const IByteBuffer* bson) :
+                const IByteBuffer* bson,
+                GEOFeatureVisitor* visitor) :
   _json(json),
   _bson(bson),
+  _visitor(visitor),
+#ifdef C_CODE
+  _jsonChars(_json.c_str()),
+#endif
+#ifdef JAVA_CODE
+  _jsonChars(_json.toCharArray()),
+#endif
+  _jsonLength(_json.size()),
+  _jsonCursor(0),
+  _bsonIterator(NULL),
+  _parseError(false),
+  _positionDimensions(0),
+  _positionLongitude(0),
+  _positionLatitude(0),
+  _positionHeight(0),
   _points2DCount(0),
   _points3DCount(0),
   _coordinates2DCount(0),
@@ -68,7 +193,7 @@ private:
 
   }
 
-  GEOObject* pvtParse(bool showStatistics) const;
+  GEOObject* pvtParse(bool showStatistics);
 
   GEOObject* toGEO(const JSONObject* jsonObject) const;
 
@@ -88,6 +213,59 @@ private:
   std::vector<Geodetic2D*>* create2DCoordinates(const JSONArray* jsCoordinates) const;
   std::vector<Geodetic3D*>* create3DCoordinates(const JSONArray* jsCoordinates) const;
 
+  // builders of the streaming parsers
+  void addFeature(std::vector<GEOFeature*>& features,
+                  GEOFeature* feature) const;
+  GEOObject* createRoot(const std::string& type,
+                        std::vector<GEOFeature*>& features,
+                        JSONBaseObject* id,
+                        GEOGeometry* geometry,
+                        JSONBaseObject* properties);
+  GEOFeature* createFeature(JSONBaseObject* id,
+                            GEOGeometry* geometry,
+                            JSONBaseObject* properties) const;
+
+  GEOGeometry* createGeometry(const std::string& type,
+                              Coordinates* coordinates) const;
+  GEOGeometry* createPointGeometry(Coordinates* coordinates) const;
+  GEOGeometry* createLineStringGeometry(Coordinates* coordinates) const;
+  GEOGeometry* createMultiLineStringGeometry(Coordinates* coordinates) const;
+  GEOGeometry* createPolygonGeometry(Coordinates* coordinates) const;
+  GEOGeometry* createMultiPolygonGeometry(Coordinates* coordinates) const;
+
+  GEO2DPolygonData* createPolygon2DData(Coordinates* coordinates) const;
+  GEO3DPolygonData* createPolygon3DData(Coordinates* coordinates) const;
+
+  std::vector<Geodetic2D*>* create2DCoordinates(const Coordinates* coordinates) const;
+  std::vector<Geodetic3D*>* create3DCoordinates(const Coordinates* coordinates) const;
+
+  void addPosition(Coordinates* coordinates);
+  void parseError(const std::string& message);
+
+  // JSON text streaming parser
+  GEOObject*      jsonParseRoot();
+  void            jsonParseFeatures(std::vector<GEOFeature*>& features);
+  GEOFeature*     jsonParseFeature();
+  GEOGeometry*    jsonParseGeometry();
+  Coordinates*    jsonParseCoordinates();
+  JSONBaseObject* jsonParseValue();
+  const std::string jsonParseString();
+  double          jsonParseNumber();
+  void            jsonParseLiteral(const std::string& literal);
+  const std::string jsonParseKey();
+  char            jsonPeek();
+  bool            jsonConsume(const char c);
+  void            jsonExpect(const char c);
+
+  // BSON streaming parser
+  GEOObject*      bsonParseRoot();
+  void            bsonParseFeatures(const unsigned char arrayType,
+                                    std::vector<GEOFeature*>& features);
+  GEOFeature*     bsonParseFeature();
+  GEOGeometry*    bsonParseGeometry();
+  Coordinates*    bsonParseCoordinates(const unsigned char arrayType);
+  const std::string bsonParseString();
+
   void showStatisticsToLogger() const;
 
 public:
@@ -103,6 +281,22 @@ public:
   static GEOObject* parse(const JSONObject* jsonObject,
                           bool showStatistics = true);
 
+  /**
+   Parses the GEOJSON without building the GEOFeatureCollection, the features are given to the
+   visitor one by one as soon as they are parsed.
+   Returns false if the document can't be parsed.
+   */
+  static bool parseJSON(const std::string& json,
+                        GEOFeatureVisitor* visitor,
+                        bool showStatistics = true);
+  static bool parseJSON(const IByteBuffer* json,
+                        GEOFeatureVisitor* visitor,
+                        bool showStatistics = true);
+
+  static bool parseBSON(const IByteBuffer* bson,
+                        GEOFeatureVisitor* visitor,
+                        bool showStatistics = true);
+
 };
 
 #endif
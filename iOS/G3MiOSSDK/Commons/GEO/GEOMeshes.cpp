@@ -44,3 +44,12 @@ int GEOMeshes::symbolize(const VectorStreamingRenderer::VectorSet* vectorSet,
   _meshes.clear(); // moved meshes ownership to vectorSet
   return result;
 }
+
+long long GEOMeshes::getCoordinatesCount() const {
+  long long result = 0;
+  const size_t meshesSize = _meshes.size();
+  for (size_t i = 0; i < meshesSize; i++) {
+    result += _meshes[i]->getVertexCount();
+  }
+  return result;
+}
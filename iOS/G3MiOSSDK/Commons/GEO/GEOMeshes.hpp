@@ -38,6 +38,8 @@ public:
   int symbolize(const VectorStreamingRenderer::VectorSet* vectorSet,
                 const VectorStreamingRenderer::Node*      node) const;
 
+  long long getCoordinatesCount() const;
+
 };
 
 #endif
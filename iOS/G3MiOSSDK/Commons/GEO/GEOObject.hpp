@@ -42,6 +42,12 @@ public:
   
   virtual int symbolize(const VectorStreamingRenderer::VectorSet* vectorSet,
                         const VectorStreamingRenderer::Node*      node) const = 0;
+
+  /**
+   Returns the number of coordinates (points and vertices of lines and rings) of the object,
+   a measure of its memory footprint.
+   */
+  virtual long long getCoordinatesCount() const = 0;
   
 };
 
@@ -138,6 +138,101 @@ void EllipsoidalPlanet::toCartesian(const Angle& latitude,
              rSurfaceZ + (nZ * height));
 }
 
+void EllipsoidalPlanet::putCartesian(const double nX,
+                                     const double nY,
+                                     const double nZ,
+                                     const double height,
+                                     const double centerX,
+                                     const double centerY,
+                                     const double centerZ,
+                                     float        result[],
+                                     const int    index) const {
+  // same operations (in the same order) than toCartesian(latitude, longitude, height, result)
+  const double kX = nX * _ellipsoid._radiiSquared._x;
+  const double kY = nY * _ellipsoid._radiiSquared._y;
+  const double kZ = nZ * _ellipsoid._radiiSquared._z;
+
+  const double gamma = IMathUtils::instance()->sqrt((kX * nX) +
+                                                    (kY * nY) +
+                                                    (kZ * nZ));
+
+  const double rSurfaceX = kX / gamma;
+  const double rSurfaceY = kY / gamma;
+  const double rSurfaceZ = kZ / gamma;
+
+  result[index    ] = (float) ((rSurfaceX + (nX * height)) - centerX);
+  result[index + 1] = (float) ((rSurfaceY + (nY * height)) - centerY);
+  result[index + 2] = (float) ((rSurfaceZ + (nZ * height)) - centerZ);
+}
+
+void EllipsoidalPlanet::toCartesian(const double latitudesInRadians[],
+                                    const double longitudesInRadians[],
+                                    const double heights[],
+                                    const int    count,
+                                    const double centerX,
+                                    const double centerY,
+                                    const double centerZ,
+                                    float        result[],
+                                    const int    resultIndex) const {
+  int index = resultIndex;
+  for (int i = 0; i < count; i++) {
+    const double latitude  = latitudesInRadians[i];
+    const double longitude = longitudesInRadians[i];
+    const double cosLatitude = COS(latitude);
+
+    putCartesian(cosLatitude * COS(longitude),
+                 cosLatitude * SIN(longitude),
+                 SIN(latitude),
+                 (heights == NULL) ? 0 : heights[i],
+                 centerX, centerY, centerZ,
+                 result,
+                 index);
+    index += 3;
+  }
+}
+
+void EllipsoidalPlanet::toCartesianGrid(const double rowsLatitudesInRadians[],
+                                        const int    rows,
+                                        const double columnsLongitudesInRadians[],
+                                        const int    columns,
+                                        const double heights[],
+                                        const double centerX,
+                                        const double centerY,
+                                        const double centerZ,
+                                        float        result[],
+                                        const int    resultIndex) const {
+  double* cosLongitudes = new double[columns];
+  double* sinLongitudes = new double[columns];
+  for (int column = 0; column < columns; column++) {
+    const double longitude = columnsLongitudesInRadians[column];
+    cosLongitudes[column] = COS(longitude);
+    sinLongitudes[column] = SIN(longitude);
+  }
+
+  int index = resultIndex;
+  int heightIndex = 0;
+  for (int row = 0; row < rows; row++) {
+    const double latitude = rowsLatitudesInRadians[row];
+    const double cosLatitude = COS(latitude);
+    const double sinLatitude = SIN(latitude);
+
+    for (int column = 0; column < columns; column++) {
+      putCartesian(cosLatitude * cosLongitudes[column],
+                   cosLatitude * sinLongitudes[column],
+                   sinLatitude,
+                   (heights == NULL) ? 0 : heights[heightIndex],
+                   centerX, centerY, centerZ,
+                   result,
+                   index);
+      heightIndex++;
+      index += 3;
+    }
+  }
+
+  delete [] cosLongitudes;
+  delete [] sinLongitudes;
+}
+
 Geodetic2D EllipsoidalPlanet::toGeodetic2D(const Vector3D& positionOnEllipsoidalPlanet) const {
   const Vector3D n = geodeticSurfaceNormal(positionOnEllipsoidalPlanet);
 
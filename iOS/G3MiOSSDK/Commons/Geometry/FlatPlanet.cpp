@@ -283,6 +283,62 @@ void FlatPlanet::toCartesian(const Angle& latitude,
   result.set(x, y, height);
 }
 
+void FlatPlanet::toCartesian(const double latitudesInRadians[],
+                             const double longitudesInRadians[],
+                             const double heights[],
+                             const int    count,
+                             const double centerX,
+                             const double centerY,
+                             const double centerZ,
+                             float        result[],
+                             const int    resultIndex) const {
+  int index = resultIndex;
+  for (int i = 0; i < count; i++) {
+    const double x = TO_DEGREES(longitudesInRadians[i]) * _size._x / 360.0;
+    const double y = TO_DEGREES(latitudesInRadians[i])  * _size._y / 180.0;
+    const double z = (heights == NULL) ? 0 : heights[i];
+
+    result[index    ] = (float) (x - centerX);
+    result[index + 1] = (float) (y - centerY);
+    result[index + 2] = (float) (z - centerZ);
+    index += 3;
+  }
+}
+
+void FlatPlanet::toCartesianGrid(const double rowsLatitudesInRadians[],
+                                 const int    rows,
+                                 const double columnsLongitudesInRadians[],
+                                 const int    columns,
+                                 const double heights[],
+                                 const double centerX,
+                                 const double centerY,
+                                 const double centerZ,
+                                 float        result[],
+                                 const int    resultIndex) const {
+  double* xs = new double[columns];
+  for (int column = 0; column < columns; column++) {
+    xs[column] = TO_DEGREES(columnsLongitudesInRadians[column]) * _size._x / 360.0;
+  }
+
+  int index = resultIndex;
+  int heightIndex = 0;
+  for (int row = 0; row < rows; row++) {
+    const double y = TO_DEGREES(rowsLatitudesInRadians[row]) * _size._y / 180.0;
+
+    for (int column = 0; column < columns; column++) {
+      const double z = (heights == NULL) ? 0 : heights[heightIndex];
+
+      result[index    ] = (float) (xs[column] - centerX);
+      result[index + 1] = (float) (y          - centerY);
+      result[index + 2] = (float) (z          - centerZ);
+      heightIndex++;
+      index += 3;
+    }
+  }
+
+  delete [] xs;
+}
+
 void FlatPlanet::toCartesian(const Geodetic3D& geodetic,
                              MutableVector3D& result) const {
   toCartesian(geodetic._latitude,
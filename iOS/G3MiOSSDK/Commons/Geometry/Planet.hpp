@@ -77,6 +77,40 @@ public:
                            const double height,
                            MutableVector3D& result) const = 0;
 
+  /**
+   Converts count positions (latitudes and longitudes in radians, heights can be NULL for
+   zero heights) to cartesian, relative to the given center.
+
+   The (x, y, z) floats of every position are stored in result, starting at resultIndex.
+   */
+  virtual void toCartesian(const double latitudesInRadians[],
+                           const double longitudesInRadians[],
+                           const double heights[],
+                           const int    count,
+                           const double centerX,
+                           const double centerY,
+                           const double centerZ,
+                           float        result[],
+                           const int    resultIndex) const = 0;
+
+  /**
+   Like the bulk toCartesian(), for a regular grid of rows x columns positions given the latitude
+   of every row and the longitude of every column.  The heights (if not NULL) and the result are
+   in row-major order.
+
+   The sines and cosines are computed once per row and once per column, not once per position.
+   */
+  virtual void toCartesianGrid(const double rowsLatitudesInRadians[],
+                               const int    rows,
+                               const double columnsLongitudesInRadians[],
+                               const int    columns,
+                               const double heights[],
+                               const double centerX,
+                               const double centerY,
+                               const double centerZ,
+                               float        result[],
+                               const int    resultIndex) const = 0;
+
 
   virtual Geodetic2D toGeodetic2D(const Vector3D& positionOnEllipsoid) const = 0;
 
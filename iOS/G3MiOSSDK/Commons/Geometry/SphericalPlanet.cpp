@@ -113,6 +113,89 @@ void SphericalPlanet::toCartesian(const Angle& latitude,
              nZ * K);
 }
 
+void SphericalPlanet::putCartesian(const double nX,
+                                   const double nY,
+                                   const double nZ,
+                                   const double height,
+                                   const double centerX,
+                                   const double centerY,
+                                   const double centerZ,
+                                   float        result[],
+                                   const int    index) const {
+  const double K = _sphere._radius + height;
+  result[index    ] = (float) ((nX * K) - centerX);
+  result[index + 1] = (float) ((nY * K) - centerY);
+  result[index + 2] = (float) ((nZ * K) - centerZ);
+}
+
+void SphericalPlanet::toCartesian(const double latitudesInRadians[],
+                                  const double longitudesInRadians[],
+                                  const double heights[],
+                                  const int    count,
+                                  const double centerX,
+                                  const double centerY,
+                                  const double centerZ,
+                                  float        result[],
+                                  const int    resultIndex) const {
+  int index = resultIndex;
+  for (int i = 0; i < count; i++) {
+    const double latitude  = latitudesInRadians[i];
+    const double longitude = longitudesInRadians[i];
+    const double cosLatitude = COS(latitude);
+
+    putCartesian(cosLatitude * COS(longitude),
+                 cosLatitude * SIN(longitude),
+                 SIN(latitude),
+                 (heights == NULL) ? 0 : heights[i],
+                 centerX, centerY, centerZ,
+                 result,
+                 index);
+    index += 3;
+  }
+}
+
+void SphericalPlanet::toCartesianGrid(const double rowsLatitudesInRadians[],
+                                      const int    rows,
+                                      const double columnsLongitudesInRadians[],
+                                      const int    columns,
+                                      const double heights[],
+                                      const double centerX,
+                                      const double centerY,
+                                      const double centerZ,
+                                      float        result[],
+                                      const int    resultIndex) const {
+  double* cosLongitudes = new double[columns];
+  double* sinLongitudes = new double[columns];
+  for (int column = 0; column < columns; column++) {
+    const double longitude = columnsLongitudesInRadians[column];
+    cosLongitudes[column] = COS(longitude);
+    sinLongitudes[column] = SIN(longitude);
+  }
+
+  int index = resultIndex;
+  int heightIndex = 0;
+  for (int row = 0; row < rows; row++) {
+    const double latitude = rowsLatitudesInRadians[row];
+    const double cosLatitude = COS(latitude);
+    const double sinLatitude = SIN(latitude);
+
+    for (int column = 0; column < columns; column++) {
+      putCartesian(cosLatitude * cosLongitudes[column],
+                   cosLatitude * sinLongitudes[column],
+                   sinLatitude,
+                   (heights == NULL) ? 0 : heights[heightIndex],
+                   centerX, centerY, centerZ,
+                   result,
+                   index);
+      heightIndex++;
+      index += 3;
+    }
+  }
+
+  delete [] cosLongitudes;
+  delete [] sinLongitudes;
+}
+
 Geodetic2D SphericalPlanet::toGeodetic2D(const Vector3D& position) const {
   const Vector3D n = geodeticSurfaceNormal(position);
 
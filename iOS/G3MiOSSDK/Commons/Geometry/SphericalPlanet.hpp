@@ -38,6 +38,16 @@ private:
   mutable double          _angleBetweenInitialPoints;
   mutable bool            _validSingleDrag;
 
+  void putCartesian(const double nX,
+                    const double nY,
+                    const double nZ,
+                    const double height,
+                    const double centerX,
+                    const double centerY,
+                    const double centerZ,
+                    float        result[],
+                    const int    index) const;
+
 
 public:
   static const Planet* createEarth();
@@ -108,6 +118,27 @@ public:
                    const double height,
                    MutableVector3D& result) const;
 
+  void toCartesian(const double latitudesInRadians[],
+                   const double longitudesInRadians[],
+                   const double heights[],
+                   const int    count,
+                   const double centerX,
+                   const double centerY,
+                   const double centerZ,
+                   float        result[],
+                   const int    resultIndex) const;
+
+  void toCartesianGrid(const double rowsLatitudesInRadians[],
+                       const int    rows,
+                       const double columnsLongitudesInRadians[],
+                       const int    columns,
+                       const double heights[],
+                       const double centerX,
+                       const double centerY,
+                       const double centerZ,
+                       float        result[],
+                       const int    resultIndex) const;
+
   Geodetic2D toGeodetic2D(const Vector3D& position) const;
 
   Geodetic3D toGeodetic3D(const Vector3D& position) const;
@@ -14,6 +14,10 @@
 #include "IStorage.hpp"
 #include "TimeInterval.hpp"
 #include "IImage.hpp"
+#include "IFactory.hpp"
+#include "ITimer.hpp"
+#include "DownloadPriority.hpp"
+#include "IMathUtils.hpp"
 
 class BufferSaverDownloadListener : public IBufferDownloadListener {
 private:
@@ -62,13 +66,15 @@ public:
   }
 
   void saveBuffer(const URL& url,
-                  const IByteBuffer* buffer) {
+                  const IByteBuffer* buffer,
+                  const std::string& eTag,
+                  const std::string& lastModified) {
     if (!url.isFileProtocol()) {
       if (buffer != NULL) {
         if (_storage->isAvailable()) {
           _downloader->countSave();
 
-          _storage->saveBuffer(url, buffer, _timeToCache, _downloader->saveInBackground());
+          _storage->saveBufferWithValidators(url, buffer, _timeToCache, _downloader->saveInBackground(), eTag, lastModified);
         }
         else {
           ILogger::instance()->logWarning("The cacheStorage is not available, skipping buffer save.");
@@ -80,8 +86,17 @@ public:
   void onDownload(const URL& url,
                   IByteBuffer* data,
                   bool expired) {
+    onDownloadWithValidators(url, data, expired, "", "");
+  }
+
+  void onDownloadWithValidators(const URL& url,
+                                IByteBuffer* data,
+                                bool expired,
+                                const std::string& eTag,
+                                const std::string& lastModified) {
     if (!expired) {
-      saveBuffer(url, data);
+      saveBuffer(url, data, eTag, lastModified);
+      _downloader->onBufferDownloaded(url, data, _timeToCache);
     }
 
     _listener->onDownload(url, data, expired);
@@ -89,7 +104,39 @@ public:
     deleteListener();
   }
 
+  void onNotModified(const URL& url) {
+    _downloader->onNotModified(url);
+
+    // the server still has the expired buffer, so it's fresh again
+    IByteBuffer* buffer = _expiredBuffer;
+    _expiredBuffer = NULL;
+    if (_storage->isAvailable()) {
+      _storage->refreshBuffer(url, _timeToCache, _downloader->saveInBackground());
+      if (buffer == NULL) {
+        // requested without readExpired, the expired buffer wasn't read
+        buffer = _storage->readBuffer(url, true).getBuffer();
+      }
+    }
+
+    if (buffer == NULL) {
+      _listener->onError(url);
+    }
+    else {
+      _downloader->onBufferDownloaded(url, buffer, _timeToCache);
+      _listener->onDownload(url, buffer, false);
+    }
+
+    deleteListener();
+  }
+
   void onError(const URL& url) {
+    onErrorWithStatusCode(url, 0);
+  }
+
+  void onErrorWithStatusCode(const URL& url,
+                             int statusCode) {
+    _downloader->onDownloadError(url, statusCode);
+
     if (_expiredBuffer == NULL) {
       _listener->onError(url);
     }
@@ -105,7 +152,8 @@ public:
                           IByteBuffer* buffer,
                           bool expired) {
     if (!expired) {
-      saveBuffer(url, buffer);
+      saveBuffer(url, buffer, "", "");
+      _downloader->onBufferDownloaded(url, buffer, _timeToCache);
     }
 
     _listener->onCanceledDownload(url, buffer, expired);
@@ -168,13 +216,15 @@ public:
   }
 
   void saveImage(const URL& url,
-                 const IImage* image) {
+                 const IImage* image,
+                 const std::string& eTag,
+                 const std::string& lastModified) {
     if (!url.isFileProtocol()) {
       if (image != NULL) {
         if (_storage->isAvailable()) {
           _downloader->countSave();
 
-          _storage->saveImage(url, image, _timeToCache, _downloader->saveInBackground());
+          _storage->saveImageWithValidators(url, image, _timeToCache, _downloader->saveInBackground(), eTag, lastModified);
         }
         else {
           ILogger::instance()->logWarning("The cacheStorage is not available, skipping image save.");
@@ -186,8 +236,17 @@ public:
   void onDownload(const URL& url,
                   IImage* image,
                   bool expired) {
+    onDownloadWithValidators(url, image, expired, "", "");
+  }
+
+  void onDownloadWithValidators(const URL& url,
+                                IImage* image,
+                                bool expired,
+                                const std::string& eTag,
+                                const std::string& lastModified) {
     if (!expired) {
-      saveImage(url, image);
+      saveImage(url, image, eTag, lastModified);
+      _downloader->onImageDownloaded(url, image, _timeToCache);
     }
 
     _listener->onDownload(url, image, expired);
@@ -195,7 +254,39 @@ public:
     deleteListener();
   }
 
+  void onNotModified(const URL& url) {
+    _downloader->onNotModified(url);
+
+    // the server still has the expired image, so it's fresh again
+    IImage* image = _expiredImage;
+    _expiredImage = NULL;
+    if (_storage->isAvailable()) {
+      _storage->refreshImage(url, _timeToCache, _downloader->saveInBackground());
+      if (image == NULL) {
+        // requested without readExpired, the expired image wasn't read
+        image = _storage->readImage(url, true)._image;
+      }
+    }
+
+    if (image == NULL) {
+      _listener->onError(url);
+    }
+    else {
+      _downloader->onImageDownloaded(url, image, _timeToCache);
+      _listener->onDownload(url, image, false);
+    }
+
+    deleteListener();
+  }
+
   void onError(const URL& url) {
+    onErrorWithStatusCode(url, 0);
+  }
+
+  void onErrorWithStatusCode(const URL& url,
+                             int statusCode) {
+    _downloader->onDownloadError(url, statusCode);
+
     if (_expiredImage == NULL) {
       _listener->onError(url);
     }
@@ -211,7 +302,8 @@ public:
                           IImage* image,
                           bool expired) {
     if (!expired) {
-      saveImage(url, image);
+      saveImage(url, image, "", "");
+      _downloader->onImageDownloaded(url, image, _timeToCache);
     }
 
     _listener->onCanceledDownload(url, image, expired);
@@ -227,14 +319,176 @@ public:
 
 };
 
+class BufferRevalidationDownloadListener : public IBufferDownloadListener {
+private:
+  CachedDownloader* _downloader;
+
+  IStorage* _storage;
+
+  const TimeInterval _timeToCache;
+
+public:
+  BufferRevalidationDownloadListener(CachedDownloader* downloader,
+                                     IStorage* storage,
+                                     const TimeInterval& timeToCache) :
+  _downloader(downloader),
+  _storage(storage),
+  _timeToCache(timeToCache)
+  {
+
+  }
+
+  void onDownload(const URL& url,
+                  IByteBuffer* data,
+                  bool expired) {
+    onDownloadWithValidators(url, data, expired, "", "");
+  }
+
+  void onDownloadWithValidators(const URL& url,
+                                IByteBuffer* data,
+                                bool expired,
+                                const std::string& eTag,
+                                const std::string& lastModified) {
+    if (_storage->isAvailable()) {
+      _downloader->countSave();
+
+      _storage->saveBufferWithValidators(url, data, _timeToCache, _downloader->saveInBackground(), eTag, lastModified);
+    }
+    _downloader->onBufferDownloaded(url, data, _timeToCache);
+    _downloader->onRevalidationFinished(url);
+
+    delete data;
+  }
+
+  void onNotModified(const URL& url) {
+    if (_storage->isAvailable()) {
+      _storage->refreshBuffer(url, _timeToCache, _downloader->saveInBackground());
+    }
+    _downloader->onNotModified(url);
+    _downloader->onRevalidationFinished(url);
+  }
+
+  void onError(const URL& url) {
+    onErrorWithStatusCode(url, 0);
+  }
+
+  void onErrorWithStatusCode(const URL& url,
+                             int statusCode) {
+    _downloader->onDownloadError(url, statusCode);
+    _downloader->onRevalidationFinished(url);
+  }
+
+  void onCanceledDownload(const URL& url,
+                          IByteBuffer* buffer,
+                          bool expired) {
+    // do nothing, onCancel() follows
+  }
+
+  void onCancel(const URL& url) {
+    _downloader->onRevalidationFinished(url);
+  }
+
+};
+
+class ImageRevalidationDownloadListener : public IImageDownloadListener {
+private:
+  CachedDownloader* _downloader;
+
+  IStorage* _storage;
+
+  const TimeInterval _timeToCache;
+
+public:
+  ImageRevalidationDownloadListener(CachedDownloader* downloader,
+                                    IStorage* storage,
+                                    const TimeInterval& timeToCache) :
+  _downloader(downloader),
+  _storage(storage),
+  _timeToCache(timeToCache)
+  {
+
+  }
+
+  void onDownload(const URL& url,
+                  IImage* image,
+                  bool expired) {
+    onDownloadWithValidators(url, image, expired, "", "");
+  }
+
+  void onDownloadWithValidators(const URL& url,
+                                IImage* image,
+                                bool expired,
+                                const std::string& eTag,
+                                const std::string& lastModified) {
+    if (_storage->isAvailable()) {
+      _downloader->countSave();
+
+      _storage->saveImageWithValidators(url, image, _timeToCache, _downloader->saveInBackground(), eTag, lastModified);
+    }
+    _downloader->onImageDownloaded(url, image, _timeToCache);
+    _downloader->onRevalidationFinished(url);
+
+    delete image;
+  }
+
+  void onNotModified(const URL& url) {
+    if (_storage->isAvailable()) {
+      _storage->refreshImage(url, _timeToCache, _downloader->saveInBackground());
+    }
+    _downloader->onNotModified(url);
+    _downloader->onRevalidationFinished(url);
+  }
+
+  void onError(const URL& url) {
+    onErrorWithStatusCode(url, 0);
+  }
+
+  void onErrorWithStatusCode(const URL& url,
+                             int statusCode) {
+    _downloader->onDownloadError(url, statusCode);
+    _downloader->onRevalidationFinished(url);
+  }
+
+  void onCanceledDownload(const URL& url,
+                          IImage* image,
+                          bool expired) {
+    // do nothing, onCancel() follows
+  }
+
+  void onCancel(const URL& url) {
+    _downloader->onRevalidationFinished(url);
+  }
+
+};
+
+CachedDownloader::MemoryCacheEntry::~MemoryCacheEntry() {
+  delete _image;
+  delete _buffer;
+}
+
 CachedDownloader::~CachedDownloader() {
   delete _downloader;
 
-  if (_lastImageResult != NULL) {
-    delete _lastImageResult->_image;
-    delete _lastImageResult;
+  MemoryCacheEntry* entry = _memoryCacheHead;
+  while (entry != NULL) {
+    MemoryCacheEntry* next = entry->_next;
+    delete entry;
+    entry = next;
+  }
+  _memoryCacheHead = NULL;
+  _memoryCacheTail = NULL;
+  _memoryCache.clear();
+
+#ifdef C_CODE
+  for (std::map<const std::string, NegativeCacheEntry*>::iterator it = _negativeCache.begin();
+       it != _negativeCache.end();
+       it++) {
+    delete it->second;
   }
-  delete _lastImageURL;
+#endif
+  _negativeCache.clear();
+
+  delete _timer;
 
 #ifdef JAVA_CODE
   super.dispose();
@@ -250,6 +504,26 @@ void CachedDownloader::stop() {
   _downloader->stop();
 }
 
+long long CachedDownloader::requestConditionalBuffer(const URL& url,
+                                                     long long priority,
+                                                     const std::string& eTag,
+                                                     const std::string& lastModified,
+                                                     IBufferDownloadListener* listener,
+                                                     bool deleteListener,
+                                                     const std::string& tag) {
+  return _downloader->requestConditionalBuffer(url, priority, eTag, lastModified, listener, deleteListener, tag);
+}
+
+long long CachedDownloader::requestConditionalImage(const URL& url,
+                                                    long long priority,
+                                                    const std::string& eTag,
+                                                    const std::string& lastModified,
+                                                    IImageDownloadListener* listener,
+                                                    bool deleteListener,
+                                                    const std::string& tag) {
+  return _downloader->requestConditionalImage(url, priority, eTag, lastModified, listener, deleteListener, tag);
+}
+
 bool CachedDownloader::cancelRequest(long long requestID) {
   return _downloader->cancelRequest(requestID);
 }
@@ -259,20 +533,50 @@ void CachedDownloader::cancelRequestsTagged(const std::string& tag) {
 }
 
 const std::string CachedDownloader::statistics() {
+  const std::string downloaderStatistics = _downloader->statistics();
+
+  _lock.lock();
   IStringBuilder* isb = IStringBuilder::newStringBuilder();
   isb->addString("CachedDownloader(cache hits=");
   isb->addLong(_cacheHitsCounter);
   isb->addString("/");
   isb->addLong(_requestsCounter);
+  isb->addString(", memory hits=");
+  isb->addLong(_memoryCacheHitsCounter);
+  isb->addString(", memory cache=");
+  isb->addLong(_memoryCache.size());
+  isb->addString(" entries, ");
+  isb->addLong(_memoryCacheWeight);
+  isb->addString("/");
+  isb->addLong(_memoryCacheBudget);
+  isb->addString(" bytes, negative hits=");
+  isb->addLong(_negativeCacheHitsCounter);
+  isb->addString(", download errors=");
+  isb->addLong(_downloadErrorsCounter);
+  isb->addString(", stale hits=");
+  isb->addLong(_staleHitsCounter);
+  isb->addString(", revalidations=");
+  isb->addLong(_revalidationsCounter);
+  isb->addString(", conditional revalidations=");
+  isb->addLong(_conditionalRevalidationsCounter);
+  isb->addString(", not modified=");
+  isb->addLong(_notModifiedCounter);
   isb->addString(", saves=");
   isb->addLong(_savesCounter);
   isb->addString(", downloader=");
-  isb->addString(_downloader->statistics());
+  isb->addString(downloaderStatistics);
   const std::string s = isb->getString();
   delete isb;
+  _lock.unlock();
   return s;
 }
 
+void CachedDownloader::countSave() {
+  _lock.lock();
+  _savesCounter++;
+  _lock.unlock();
+}
+
 void CachedDownloader::onResume(const G3MContext* context) {
   _downloader->onResume(context);
 }
@@ -290,38 +594,339 @@ void CachedDownloader::initialize(const G3MContext* context,
   _downloader->initialize(context, frameTasksExecutor);
 }
 
-IImageResult CachedDownloader::getCachedImageResult(const URL& url,
-                                                    const TimeInterval& timeToCache,
-                                                    bool readExpired) {
-  if ( (_lastImageResult != NULL) && (_lastImageURL != NULL) ) {
-    if (_lastImageURL->isEquals(url)) {
-      // ILogger::instance()->logInfo("Used chached image for %s", url.description().c_str());
-      return IImageResult(_lastImageResult->_image->shallowCopy(),
-                          _lastImageResult->_expired);
+long long CachedDownloader::nowInMilliseconds() {
+  if (_timer == NULL) {
+    _timer = IFactory::instance()->createTimer();
+  }
+  return _timer->nowInMilliseconds();
+}
+
+void CachedDownloader::addMemoryCacheEntry(MemoryCacheEntry* entry) {
+  entry->_previous = _memoryCacheTail;
+  entry->_next     = NULL;
+  if (_memoryCacheTail == NULL) {
+    _memoryCacheHead = entry;
+  }
+  else {
+    _memoryCacheTail->_next = entry;
+  }
+  _memoryCacheTail = entry;
+}
+
+void CachedDownloader::removeMemoryCacheEntry(MemoryCacheEntry* entry) {
+  if (entry->_previous == NULL) {
+    _memoryCacheHead = entry->_next;
+  }
+  else {
+    entry->_previous->_next = entry->_next;
+  }
+  if (entry->_next == NULL) {
+    _memoryCacheTail = entry->_previous;
+  }
+  else {
+    entry->_next->_previous = entry->_previous;
+  }
+  entry->_previous = NULL;
+  entry->_next     = NULL;
+}
+
+void CachedDownloader::deleteMemoryCacheEntry(MemoryCacheEntry* entry) {
+  removeMemoryCacheEntry(entry);
+  _memoryCache.erase(entry->_key);
+  _memoryCacheWeight -= entry->_weight;
+  delete entry;
+}
+
+void CachedDownloader::evictMemoryCacheEntries() {
+  while ((_memoryCacheWeight > _memoryCacheBudget) && (_memoryCacheHead != NULL)) {
+    deleteMemoryCacheEntry(_memoryCacheHead);
+  }
+}
+
+void CachedDownloader::setMemoryCacheBudget(long long memoryCacheBudget) {
+  _lock.lock();
+  _memoryCacheBudget = memoryCacheBudget;
+  evictMemoryCacheEntries();
+  _lock.unlock();
+}
+
+long long CachedDownloader::getMemoryCacheBudget() {
+  _lock.lock();
+  const long long memoryCacheBudget = _memoryCacheBudget;
+  _lock.unlock();
+  return memoryCacheBudget;
+}
+
+CachedDownloader::MemoryCacheEntry* CachedDownloader::getMemoryCacheEntry(const std::string& key) {
+#ifdef C_CODE
+  std::map<const std::string, MemoryCacheEntry*>::iterator it = _memoryCache.find(key);
+  if (it == _memoryCache.end()) {
+    return NULL;
+  }
+  MemoryCacheEntry* entry = it->second;
+#endif
+#ifdef JAVA_CODE
+  final MemoryCacheEntry entry = _memoryCache.get(key);
+  if (entry == null) {
+    return null;
+  }
+#endif
+
+  if (entry->_expiration <= nowInMilliseconds()) {
+    deleteMemoryCacheEntry(entry);
+    return NULL;
+  }
+
+  // move hit entry to the most recently used end of the cache (LRU rules)
+  removeMemoryCacheEntry(entry);
+  addMemoryCacheEntry(entry);
+
+  return entry;
+}
+
+void CachedDownloader::putMemoryCacheEntry(const std::string& key,
+                                           IImage*            image,
+                                           IByteBuffer*       buffer,
+                                           const long long    weight,
+                                           const TimeInterval& timeToCache) {
+  if (weight > _memoryCacheBudget) {
+    // would evict the whole cache and still not fit
+    delete image;
+    delete buffer;
+    return;
+  }
+
+#ifdef C_CODE
+  std::map<const std::string, MemoryCacheEntry*>::iterator it = _memoryCache.find(key);
+  if (it != _memoryCache.end()) {
+    deleteMemoryCacheEntry(it->second);
+  }
+#endif
+#ifdef JAVA_CODE
+  final MemoryCacheEntry previousEntry = _memoryCache.get(key);
+  if (previousEntry != null) {
+    deleteMemoryCacheEntry(previousEntry);
+  }
+#endif
+
+  // saturated, TimeInterval::forever() would overflow the sum
+  const long long now = nowInMilliseconds();
+  const long long maxInt64 = IMathUtils::instance()->maxInt64();
+  const long long timeToCacheInMS = timeToCache.milliseconds();
+  const long long expiration = (timeToCacheInMS >= maxInt64 - now) ? maxInt64 : now + timeToCacheInMS;
+
+  MemoryCacheEntry* entry = new MemoryCacheEntry(key,
+                                                 image,
+                                                 buffer,
+                                                 weight,
+                                                 expiration);
+  _memoryCache[key] = entry;
+  addMemoryCacheEntry(entry);
+  _memoryCacheWeight += weight;
+
+  evictMemoryCacheEntries();
+}
+
+IImage* CachedDownloader::getMemoryCachedImage(const URL& url) {
+  const MemoryCacheEntry* entry = getMemoryCacheEntry("I" + url._path);
+  return (entry == NULL) ? NULL : entry->_image->shallowCopy();
+}
+
+IByteBuffer* CachedDownloader::getMemoryCachedBuffer(const URL& url) {
+  const MemoryCacheEntry* entry = getMemoryCacheEntry("B" + url._path);
+  if (entry == NULL) {
+    return NULL;
+  }
+
+  // the listener owns the buffer it gets, so every hit gets its own copy
+  const IByteBuffer* buffer = entry->_buffer;
+  const size_t size = buffer->size();
+  unsigned char* data = new unsigned char[size];
+  buffer->getUInt8s(0, size, data);
+  return IFactory::instance()->createByteBuffer(data, size);
+}
+
+TimeInterval CachedDownloader::getStorageHitTimeToCache(const TimeInterval& timeToCache,
+                                                       long long timeToExpire) const {
+  // a storage hit can't outlive, in memory, the expiration it has in the storage
+  const long long maxTimeToCache = (timeToExpire < 0) ? STORAGE_HIT_MAX_MEMORY_TIME_TO_CACHE : timeToExpire;
+  if (timeToCache.milliseconds() <= maxTimeToCache) {
+    return timeToCache;
+  }
+  return TimeInterval::fromMilliseconds(maxTimeToCache);
+}
+
+void CachedDownloader::onImageDownloaded(const URL& url,
+                                         const IImage* image,
+                                         const TimeInterval& timeToCache) {
+  _lock.lock();
+  removeNegativeCacheEntry(url);
+
+  if (image != NULL) {
+    const long long weight = (long long) image->getWidth() * image->getHeight() * 4;
+    putMemoryCacheEntry("I" + url._path,
+                        image->shallowCopy(),
+                        NULL,
+                        weight,
+                        timeToCache);
+  }
+  _lock.unlock();
+}
+
+void CachedDownloader::onBufferDownloaded(const URL& url,
+                                          const IByteBuffer* buffer,
+                                          const TimeInterval& timeToCache) {
+  _lock.lock();
+  removeNegativeCacheEntry(url);
+
+  if ((buffer != NULL) && (buffer->size() <= _memoryCacheBudget)) {
+    const size_t size = buffer->size();
+    unsigned char* data = new unsigned char[size];
+    buffer->getUInt8s(0, size, data);
+    putMemoryCacheEntry("B" + url._path,
+                        NULL,
+                        IFactory::instance()->createByteBuffer(data, size),
+                        size,
+                        timeToCache);
+  }
+  _lock.unlock();
+}
+
+void CachedDownloader::removeNegativeCacheEntry(const URL& url) {
+#ifdef C_CODE
+  std::map<const std::string, NegativeCacheEntry*>::iterator it = _negativeCache.find(url._path);
+  if (it != _negativeCache.end()) {
+    delete it->second;
+    _negativeCache.erase(it);
+  }
+#endif
+#ifdef JAVA_CODE
+  _negativeCache.remove(url._path);
+#endif
+}
+
+void CachedDownloader::pruneNegativeCache(long long now) {
+#ifdef C_CODE
+  std::map<const std::string, NegativeCacheEntry*>::iterator it = _negativeCache.begin();
+  while (it != _negativeCache.end()) {
+    if (it->second->_retryTime <= now) {
+      delete it->second;
+      _negativeCache.erase(it++);
+    }
+    else {
+      it++;
     }
   }
+#endif
+#ifdef JAVA_CODE
+  final java.util.Iterator<NegativeCacheEntry> iterator = _negativeCache.values().iterator();
+  while (iterator.hasNext()) {
+    if (iterator.next()._retryTime <= now) {
+      iterator.remove();
+    }
+  }
+#endif
+}
 
-  if (!_storage->isAvailable() || url.isFileProtocol() || timeToCache.isZero()) {
-    return IImageResult(NULL, false);
+void CachedDownloader::onDownloadError(const URL& url,
+                                       int statusCode) {
+  _lock.lock();
+  _downloadErrorsCounter++;
+
+  if ((statusCode < 400) || (statusCode > 599)) {
+    // no answer from the server (or not an HTTP error), the next request can try again
+    _lock.unlock();
+    return;
   }
 
-  IImageResult cachedImageResult = _storage->readImage(url, readExpired);
-  IImage* cachedImage = cachedImageResult._image;
+  const long long now = nowInMilliseconds();
 
-  if (cachedImage != NULL) {
-    if (_lastImageResult != NULL) {
-      delete _lastImageResult->_image;
-      delete _lastImageResult;
+#ifdef C_CODE
+  NegativeCacheEntry* entry;
+  std::map<const std::string, NegativeCacheEntry*>::iterator it = _negativeCache.find(url._path);
+  if (it == _negativeCache.end()) {
+    if (_negativeCache.size() >= 1024) {
+      pruneNegativeCache(now);
+    }
+    entry = new NegativeCacheEntry();
+    _negativeCache[url._path] = entry;
+  }
+  else {
+    entry = it->second;
+  }
+#endif
+#ifdef JAVA_CODE
+  NegativeCacheEntry entry = _negativeCache.get(url._path);
+  if (entry == null) {
+    if (_negativeCache.size() >= 1024) {
+      pruneNegativeCache(now);
     }
-    _lastImageResult = new IImageResult(cachedImage->shallowCopy(),
-                                        cachedImageResult._expired);
+    entry = new NegativeCacheEntry();
+    _negativeCache.put(url._path, entry);
+  }
+#endif
 
-    delete _lastImageURL;
-    _lastImageURL = new URL(url);
+  // the back-off doubles on every consecutive failure
+  entry->_failures++;
+  long long backoff = NEGATIVE_CACHE_INITIAL_BACKOFF;
+  for (int i = 1; (i < entry->_failures) && (backoff < NEGATIVE_CACHE_MAX_BACKOFF); i++) {
+    backoff *= 2;
   }
+  if (backoff > NEGATIVE_CACHE_MAX_BACKOFF) {
+    backoff = NEGATIVE_CACHE_MAX_BACKOFF;
+  }
+  entry->_retryTime = now + backoff;
+  _lock.unlock();
+}
 
-  return IImageResult(cachedImage,
-                      cachedImageResult._expired);
+bool CachedDownloader::isNegativeCached(const URL& url) {
+#ifdef C_CODE
+  std::map<const std::string, NegativeCacheEntry*>::iterator it = _negativeCache.find(url._path);
+  if (it == _negativeCache.end()) {
+    return false;
+  }
+  const NegativeCacheEntry* entry = it->second;
+#endif
+#ifdef JAVA_CODE
+  final NegativeCacheEntry entry = _negativeCache.get(url._path);
+  if (entry == null) {
+    return false;
+  }
+#endif
+  // once the retry time is reached the entry stays, so a new failure keeps doubling the back-off
+  return (entry->_retryTime > nowInMilliseconds());
+}
+
+bool CachedDownloader::startRevalidation(const URL& url) {
+  if (isNegativeCached(url)) {
+    return false;
+  }
+#ifdef C_CODE
+  if (_revalidations.find(url._path) != _revalidations.end()) {
+    return false;
+  }
+#endif
+#ifdef JAVA_CODE
+  if (_revalidations.containsKey(url._path)) {
+    return false;
+  }
+#endif
+  _revalidations[url._path] = true;
+  _revalidationsCounter++;
+  return true;
+}
+
+void CachedDownloader::onNotModified(const URL& url) {
+  _lock.lock();
+  _notModifiedCounter++;
+  removeNegativeCacheEntry(url);
+  _lock.unlock();
+}
+
+void CachedDownloader::onRevalidationFinished(const URL& url) {
+  _lock.lock();
+  _revalidations.erase(url._path);
+  _lock.unlock();
 }
 
 long long CachedDownloader::requestImage(const URL& url,
@@ -331,14 +936,76 @@ long long CachedDownloader::requestImage(const URL& url,
                                          IImageDownloadListener* listener,
                                          bool deleteListener,
                                          const std::string& tag) {
+  return cachedRequestImage(url,
+                            priority,
+                            timeToCache,
+                            readExpired,
+                            false,
+                            listener,
+                            deleteListener,
+                            tag);
+}
+
+long long CachedDownloader::requestStaleWhileRevalidateImage(const URL& url,
+                                                             long long priority,
+                                                             const TimeInterval& timeToCache,
+                                                             IImageDownloadListener* listener,
+                                                             bool deleteListener,
+                                                             const std::string& tag) {
+  return cachedRequestImage(url,
+                            priority,
+                            timeToCache,
+                            true,
+                            true,
+                            listener,
+                            deleteListener,
+                            tag);
+}
+
+long long CachedDownloader::cachedRequestImage(const URL& url,
+                                               long long priority,
+                                               const TimeInterval& timeToCache,
+                                               bool readExpired,
+                                               bool staleWhileRevalidate,
+                                               IImageDownloadListener* listener,
+                                               bool deleteListener,
+                                               const std::string& tag) {
+  const bool useCache = _storage->isAvailable() && !url.isFileProtocol() && !timeToCache.isZero();
+
+  _lock.lock();
   _requestsCounter++;
+  IImage* memoryCachedImage = useCache ? getMemoryCachedImage(url) : NULL;
+  if (memoryCachedImage != NULL) {
+    _cacheHitsCounter++;
+    _memoryCacheHitsCounter++;
+  }
+  _lock.unlock();
+
+  if (memoryCachedImage != NULL) {
+    // memory cache hit
+    listener->onDownload(url, memoryCachedImage, false);
+
+    if (deleteListener) {
+      delete listener;
+    }
 
-  IImageResult cached = getCachedImageResult(url, timeToCache, readExpired);
+    return -1;
+  }
+
+  IImageResult cached = useCache ? _storage->readImage(url, readExpired) : IImageResult(NULL, false);
   IImage* cachedImage = cached._image;
 
   if (cachedImage != NULL && !cached._expired) {
     // cache hit
+    _lock.lock();
     _cacheHitsCounter++;
+    const long long weight = (long long) cachedImage->getWidth() * cachedImage->getHeight() * 4;
+    putMemoryCacheEntry("I" + url._path,
+                        cachedImage->shallowCopy(),
+                        NULL,
+                        weight,
+                        getStorageHitTimeToCache(timeToCache, cached._timeToExpire));
+    _lock.unlock();
 
     listener->onDownload(url, cachedImage, false);
 
@@ -349,9 +1016,97 @@ long long CachedDownloader::requestImage(const URL& url,
     return -1;
   }
 
-  // cache miss
-  const bool useCache = _storage->isAvailable() && !url.isFileProtocol() && !timeToCache.isZero();
+  if (cachedImage != NULL && staleWhileRevalidate) {
+    // stale hit, serve the expired image and refresh it in background
+    // with the validators saved with the image the server can answer 304 Not Modified, without sending it again
+    const bool conditional = !cached._eTag.empty() || !cached._lastModified.empty();
+
+    _lock.lock();
+    _staleHitsCounter++;
+    const bool revalidate = startRevalidation(url);
+    if (revalidate && conditional) {
+      _conditionalRevalidationsCounter++;
+    }
+    _lock.unlock();
+
+    if (revalidate) {
+      if (conditional) {
+        _downloader->requestConditionalImage(url,
+                                             DownloadPriority::LOWEST,
+                                             cached._eTag,
+                                             cached._lastModified,
+                                             new ImageRevalidationDownloadListener(this,
+                                                                                   _storage,
+                                                                                   timeToCache),
+                                             true,
+                                             "");
+      }
+      else {
+        _downloader->requestImage(url,
+                                  DownloadPriority::LOWEST,
+                                  TimeInterval::zero(),
+                                  false,
+                                  new ImageRevalidationDownloadListener(this,
+                                                                        _storage,
+                                                                        timeToCache),
+                                  true);
+      }
+    }
+
+    listener->onDownload(url, cachedImage, true);
+
+    if (deleteListener) {
+      delete listener;
+    }
+
+    return -1;
+  }
+
+  // cache miss, or an expired entry
   if (useCache) {
+    _lock.lock();
+    const bool negativeCached = isNegativeCached(url);
+    if (negativeCached) {
+      _negativeCacheHitsCounter++;
+    }
+    _lock.unlock();
+
+    if (negativeCached) {
+      // the last download failed not so long ago, don't retry yet
+      if (cachedImage == NULL) {
+        listener->onError(url);
+      }
+      else {
+        listener->onDownload(url, cachedImage, true);
+      }
+
+      if (deleteListener) {
+        delete listener;
+      }
+
+      return -1;
+    }
+
+    // with the validators saved with the expired image the server can answer 304 Not Modified, without sending it again
+    if (!cached._eTag.empty() || !cached._lastModified.empty()) {
+      _lock.lock();
+      _conditionalRevalidationsCounter++;
+      _lock.unlock();
+
+      return _downloader->requestConditionalImage(url,
+                                                  priority,
+                                                  cached._eTag,
+                                                  cached._lastModified,
+                                                  new ImageSaverDownloadListener(this,
+                                                                                 cachedImage,
+                                                                                 listener,
+                                                                                 deleteListener,
+                                                                                 _storage,
+                                                                                 timeToCache),
+                                                  true,
+                                                  tag);
+    }
+
     return _downloader->requestImage(url,
                                      priority,
                                      TimeInterval::zero(),
@@ -381,17 +1136,73 @@ long long CachedDownloader::requestBuffer(const URL& url,
                                           IBufferDownloadListener* listener,
                                           bool deleteListener,
                                           const std::string& tag) {
+  return cachedRequestBuffer(url,
+                             priority,
+                             timeToCache,
+                             readExpired,
+                             false,
+                             listener,
+                             deleteListener,
+                             tag);
+}
 
-  _requestsCounter++;
+long long CachedDownloader::requestStaleWhileRevalidateBuffer(const URL& url,
+                                                              long long priority,
+                                                              const TimeInterval& timeToCache,
+                                                              IBufferDownloadListener* listener,
+                                                              bool deleteListener,
+                                                              const std::string& tag) {
+  return cachedRequestBuffer(url,
+                             priority,
+                             timeToCache,
+                             true,
+                             true,
+                             listener,
+                             deleteListener,
+                             tag);
+}
 
+long long CachedDownloader::cachedRequestBuffer(const URL& url,
+                                                long long priority,
+                                                const TimeInterval& timeToCache,
+                                                bool readExpired,
+                                                bool staleWhileRevalidate,
+                                                IBufferDownloadListener* listener,
+                                                bool deleteListener,
+                                                const std::string& tag) {
   const bool useCache = _storage->isAvailable() && !url.isFileProtocol() && !timeToCache.isZero();
+
+  _lock.lock();
+  _requestsCounter++;
+  IByteBuffer* memoryCachedBuffer = useCache ? getMemoryCachedBuffer(url) : NULL;
+  if (memoryCachedBuffer != NULL) {
+    _cacheHitsCounter++;
+    _memoryCacheHitsCounter++;
+  }
+  _lock.unlock();
+
+  if (memoryCachedBuffer != NULL) {
+    // memory cache hit
+    listener->onDownload(url, memoryCachedBuffer, false);
+
+    if (deleteListener) {
+      delete listener;
+    }
+
+    return -1;
+  }
+
   IByteBufferResult cached = useCache ? _storage->readBuffer(url, readExpired) : IByteBufferResult(NULL, false);
 
   IByteBuffer* cachedBuffer = cached.getBuffer();
 
   if (cachedBuffer != NULL && !cached.isExpired()) {
     // cache hit
+    _lock.lock();
     _cacheHitsCounter++;
+    _lock.unlock();
+
+    onBufferDownloaded(url, cachedBuffer, getStorageHitTimeToCache(timeToCache, cached.getTimeToExpire()));
 
     listener->onDownload(url, cachedBuffer, false);
 
@@ -402,8 +1213,101 @@ long long CachedDownloader::requestBuffer(const URL& url,
     return -1;
   }
 
-  // cache miss
+  if (cachedBuffer != NULL && staleWhileRevalidate) {
+    // stale hit, serve the expired buffer and refresh it in background
+    // with the validators saved with the buffer the server can answer 304 Not Modified, without sending it again
+    const std::string eTag         = cached.getETag();
+    const std::string lastModified = cached.getLastModified();
+    const bool conditional = !eTag.empty() || !lastModified.empty();
+
+    _lock.lock();
+    _staleHitsCounter++;
+    const bool revalidate = startRevalidation(url);
+    if (revalidate && conditional) {
+      _conditionalRevalidationsCounter++;
+    }
+    _lock.unlock();
+
+    if (revalidate) {
+      if (conditional) {
+        _downloader->requestConditionalBuffer(url,
+                                              DownloadPriority::LOWEST,
+                                              eTag,
+                                              lastModified,
+                                              new BufferRevalidationDownloadListener(this,
+                                                                                     _storage,
+                                                                                     timeToCache),
+                                              true,
+                                              "");
+      }
+      else {
+        _downloader->requestBuffer(url,
+                                   DownloadPriority::LOWEST,
+                                   TimeInterval::zero(),
+                                   false,
+                                   new BufferRevalidationDownloadListener(this,
+                                                                          _storage,
+                                                                          timeToCache),
+                                   true);
+      }
+    }
+
+    listener->onDownload(url, cachedBuffer, true);
+
+    if (deleteListener) {
+      delete listener;
+    }
+
+    return -1;
+  }
+
+  // cache miss, or an expired entry
   if (useCache) {
+    _lock.lock();
+    const bool negativeCached = isNegativeCached(url);
+    if (negativeCached) {
+      _negativeCacheHitsCounter++;
+    }
+    _lock.unlock();
+
+    if (negativeCached) {
+      // the last download failed not so long ago, don't retry yet
+      if (cachedBuffer == NULL) {
+        listener->onError(url);
+      }
+      else {
+        listener->onDownload(url, cachedBuffer, true);
+      }
+
+      if (deleteListener) {
+        delete listener;
+      }
+
+      return -1;
+    }
+
+    // with the validators saved with the expired buffer the server can answer 304 Not Modified, without sending it again
+    const std::string eTag         = cached.getETag();
+    const std::string lastModified = cached.getLastModified();
+    if (!eTag.empty() || !lastModified.empty()) {
+      _lock.lock();
+      _conditionalRevalidationsCounter++;
+      _lock.unlock();
+
+      return _downloader->requestConditionalBuffer(url,
+                                                   priority,
+                                                   eTag,
+                                                   lastModified,
+                                                   new BufferSaverDownloadListener(this,
+                                                                                   cachedBuffer,
+                                                                                   listener,
+                                                                                   deleteListener,
+                                                                                   _storage,
+                                                                                   timeToCache),
+                                                   true,
+                                                   tag);
+    }
+
     return _downloader->requestBuffer(url,
                                       priority,
                                       TimeInterval::zero(),
@@ -12,8 +12,13 @@
 
 #include "IDownloader.hpp"
 
+#include <map>
+#include <mutex>
+
 class IStorage;
-class IImageResult;
+class IImage;
+class IByteBuffer;
+class ITimer;
 
 
 class CachedDownloader : public IDownloader {
@@ -27,14 +32,137 @@ private:
 
   const bool _saveInBackground;
 
-  IImageResult getCachedImageResult(const URL& url,
-                                    const TimeInterval& timeToCache,
-                                    bool readExpired);
+  class MemoryCacheEntry {
+  public:
+    const std::string _key;
+    IImage*           _image;  // image or
+    IByteBuffer*      _buffer; // buffer, never both
+    const long long   _weight;
+    const long long   _expiration;
+
+    // links in the LRU list of the memory cache
+    MemoryCacheEntry* _previous;
+    MemoryCacheEntry* _next;
+
+    MemoryCacheEntry(const std::string& key,
+                     IImage*            image,
+                     IByteBuffer*       buffer,
+                     const long long    weight,
+                     const long long    expiration) :
+    _key(key),
+    _image(image),
+    _buffer(buffer),
+    _weight(weight),
+    _expiration(expiration),
+    _previous(NULL),
+    _next(NULL)
+    {
+    }
+
+    ~MemoryCacheEntry();
+  };
+
+  std::map<const std::string, MemoryCacheEntry*> _memoryCache;
+
+  // the decoded images and buffers are kept (from the least to the most recently used) until the budget is exceeded
+  MemoryCacheEntry* _memoryCacheHead;
+  MemoryCacheEntry* _memoryCacheTail;
+
+  long long _memoryCacheBudget;
+  long long _memoryCacheWeight;
+
+  long long _memoryCacheHitsCounter;
+
+  void addMemoryCacheEntry(MemoryCacheEntry* entry);
+  void removeMemoryCacheEntry(MemoryCacheEntry* entry);
+  void deleteMemoryCacheEntry(MemoryCacheEntry* entry);
+  void evictMemoryCacheEntries();
+
+  MemoryCacheEntry* getMemoryCacheEntry(const std::string& key);
+  void putMemoryCacheEntry(const std::string& key,
+                           IImage*            image,
+                           IByteBuffer*       buffer,
+                           const long long    weight,
+                           const TimeInterval& timeToCache);
+
+  IImage*      getMemoryCachedImage(const URL& url);
+  IByteBuffer* getMemoryCachedBuffer(const URL& url);
+
+  TimeInterval getStorageHitTimeToCache(const TimeInterval& timeToCache,
+                                        long long timeToExpire) const;
+
+  class NegativeCacheEntry {
+  public:
+    int       _failures;
+    long long _retryTime;
+
+    NegativeCacheEntry() :
+    _failures(0),
+    _retryTime(0)
+    {
+    }
+  };
+
+  // the URLs whose download failed, they aren't requested again until their retry time
+  std::map<const std::string, NegativeCacheEntry*> _negativeCache;
+
+  long long _negativeCacheHitsCounter;
+  long long _downloadErrorsCounter;
+
+  bool isNegativeCached(const URL& url);
+  void removeNegativeCacheEntry(const URL& url);
+  void pruneNegativeCache(long long now);
+
+  // the paths with a revalidation in flight, to request each one once
+  std::map<const std::string, bool> _revalidations;
+
+  long long _staleHitsCounter;
+  long long _revalidationsCounter;
+  long long _conditionalRevalidationsCounter;
+  long long _notModifiedCounter;
+
+  bool startRevalidation(const URL& url);
 
-  IImageResult* _lastImageResult;
-  URL*          _lastImageURL;
+  long long cachedRequestBuffer(const URL& url,
+                                long long priority,
+                                const TimeInterval& timeToCache,
+                                bool readExpired,
+                                bool staleWhileRevalidate,
+                                IBufferDownloadListener* listener,
+                                bool deleteListener,
+                                const std::string& tag);
+
+  long long cachedRequestImage(const URL& url,
+                               long long priority,
+                               const TimeInterval& timeToCache,
+                               bool readExpired,
+                               bool staleWhileRevalidate,
+                               IImageDownloadListener* listener,
+                               bool deleteListener,
+                               const std::string& tag);
+
+  ITimer* _timer;
+  long long nowInMilliseconds();
+
+  // guards the memory cache, the negative cache, the revalidations and the counters. The private
+  // methods above expect it to be held, and it's never held while calling a listener, the storage
+  // or the wrapped downloader.
+#ifdef C_CODE
+  std::recursive_mutex _lock;
+#endif
+#ifdef JAVA_CODE
+  private final java.util.concurrent.locks.ReentrantLock _lock = new java.util.concurrent.locks.ReentrantLock();
+#endif
 
 public:
+  static const long long DEFAULT_MEMORY_CACHE_BUDGET = 16 * 1024 * 1024;
+
+  static const long long NEGATIVE_CACHE_INITIAL_BACKOFF = 2 * 1000;
+  static const long long NEGATIVE_CACHE_MAX_BACKOFF     = 5 * 60 * 1000;
+
+  // the longest a storage hit is kept in the memory cache when the storage doesn't know its expiration
+  static const long long STORAGE_HIT_MAX_MEMORY_TIME_TO_CACHE = 5 * 60 * 1000;
+
   CachedDownloader(IDownloader* downloader,
                    IStorage*    storage,
                    bool         saveInBackground) :
@@ -44,8 +172,18 @@ public:
   _cacheHitsCounter(0),
   _savesCounter(0),
   _saveInBackground(saveInBackground),
-  _lastImageResult(NULL),
-  _lastImageURL(NULL)
+  _memoryCacheHead(NULL),
+  _memoryCacheTail(NULL),
+  _memoryCacheBudget(DEFAULT_MEMORY_CACHE_BUDGET),
+  _memoryCacheWeight(0),
+  _memoryCacheHitsCounter(0),
+  _negativeCacheHitsCounter(0),
+  _downloadErrorsCounter(0),
+  _staleHitsCounter(0),
+  _revalidationsCounter(0),
+  _conditionalRevalidationsCounter(0),
+  _notModifiedCounter(0),
+  _timer(NULL)
   {
 
   }
@@ -74,6 +212,36 @@ public:
                          bool deleteListener,
                          const std::string& tag);
 
+  long long requestStaleWhileRevalidateBuffer(const URL& url,
+                                              long long priority,
+                                              const TimeInterval& timeToCache,
+                                              IBufferDownloadListener* listener,
+                                              bool deleteListener,
+                                              const std::string& tag);
+
+  long long requestStaleWhileRevalidateImage(const URL& url,
+                                             long long priority,
+                                             const TimeInterval& timeToCache,
+                                             IImageDownloadListener* listener,
+                                             bool deleteListener,
+                                             const std::string& tag);
+
+  long long requestConditionalBuffer(const URL& url,
+                                     long long priority,
+                                     const std::string& eTag,
+                                     const std::string& lastModified,
+                                     IBufferDownloadListener* listener,
+                                     bool deleteListener,
+                                     const std::string& tag);
+
+  long long requestConditionalImage(const URL& url,
+                                    long long priority,
+                                    const std::string& eTag,
+                                    const std::string& lastModified,
+                                    IImageDownloadListener* listener,
+                                    bool deleteListener,
+                                    const std::string& tag);
+
   bool cancelRequest(long long requestID);
 
   void cancelRequestsTagged(const std::string& tag);
@@ -82,9 +250,35 @@ public:
 
   const std::string statistics();
 
-  void countSave() {
-    _savesCounter++;
-  }
+  void countSave();
+
+  /**
+   Sets the budget, in bytes, of the in-memory cache of decoded images and buffers placed in front
+   of the storage. Images weight 4 bytes per pixel. Zero disables the in-memory cache.
+   */
+  void setMemoryCacheBudget(long long memoryCacheBudget);
+
+  long long getMemoryCacheBudget();
+
+  void onImageDownloaded(const URL& url,
+                         const IImage* image,
+                         const TimeInterval& timeToCache);
+
+  void onBufferDownloaded(const URL& url,
+                          const IByteBuffer* buffer,
+                          const TimeInterval& timeToCache);
+
+  /**
+   Counts a failed download. If the server answered with an HTTP error (4xx or 5xx) the URL isn't
+   requested again until its back-off expires, the back-off doubles on every consecutive error. A
+   download that got no answer (statusCode 0) can be retried right away.
+   */
+  void onDownloadError(const URL& url,
+                       int statusCode);
+
+  void onNotModified(const URL& url);
+
+  void onRevalidationFinished(const URL& url);
 
   void onResume(const G3MContext* context);
 
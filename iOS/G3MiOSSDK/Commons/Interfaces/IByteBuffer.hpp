@@ -37,6 +37,31 @@ public:
 
   virtual const std::string getAsString() const = 0;
 
+  /**
+   Bulk reads of little endian values starting at the byte i.
+   The bounds are checked once for the whole read, not once per byte.
+   */
+  virtual short     getInt16(size_t i) const = 0;
+  virtual int       getInt32(size_t i) const = 0;
+  virtual long long getInt64(size_t i) const = 0;
+  virtual float     getFloat(size_t i) const = 0;
+  virtual double    getDouble(size_t i) const = 0;
+
+  virtual void getUInt8s(size_t i, int count, unsigned char* dst) const = 0;
+  virtual void getInt16s(size_t i, int count, short* dst) const = 0;
+  virtual void getInt32s(size_t i, int count, int* dst) const = 0;
+  virtual void getFloats(size_t i, int count, float* dst) const = 0;
+
+  /**
+   Answer the index of the first byte equals to value at or after the byte i, or -1 if there is none.
+   */
+  virtual int indexOf(size_t i, unsigned char value) const = 0;
+
+  /**
+   Answer the length bytes starting at the byte i as a string.
+   */
+  virtual const std::string getAsString(size_t i, size_t length) const = 0;
+
 };
 
 #endif
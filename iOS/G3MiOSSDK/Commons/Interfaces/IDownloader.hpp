@@ -12,10 +12,10 @@ class URL;
 class G3MContext;
 class IBufferDownloadListener;
 class IImageDownloadListener;
-class TimeInterval;
 class FrameTasksExecutor;
 
 #include <string>
+#include "TimeInterval.hpp"
 
 class IDownloader {
 public:
@@ -81,6 +81,79 @@ public:
                         "" /* default tag */ );
   }
 
+  /**
+   Requests the URL serving stale content while revalidating it: if the cache has an expired copy,
+   the listener gets it at once (as expired) and the URL is downloaded again in background to
+   refresh the cache. Otherwise it works as a request with readExpired. The downloaders without a
+   cache just make that request.
+   */
+  virtual long long requestStaleWhileRevalidateBuffer(const URL& url,
+                                                      long long priority,
+                                                      const TimeInterval& timeToCache,
+                                                      IBufferDownloadListener* listener,
+                                                      bool deleteListener,
+                                                      const std::string& tag) {
+    return requestBuffer(url,
+                         priority,
+                         timeToCache,
+                         true,
+                         listener,
+                         deleteListener,
+                         tag);
+  }
+
+  virtual long long requestStaleWhileRevalidateImage(const URL& url,
+                                                     long long priority,
+                                                     const TimeInterval& timeToCache,
+                                                     IImageDownloadListener* listener,
+                                                     bool deleteListener,
+                                                     const std::string& tag) {
+    return requestImage(url,
+                        priority,
+                        timeToCache,
+                        true,
+                        listener,
+                        deleteListener,
+                        tag);
+  }
+
+  /**
+   Requests the URL only if it changed since the response with the given validators (the ETag and
+   Last-Modified headers, the empty ones aren't sent). If it didn't, the listener gets
+   onNotModified(). The downloaders that can't make conditional requests make a plain one.
+   */
+  virtual long long requestConditionalBuffer(const URL& url,
+                                             long long priority,
+                                             const std::string& eTag,
+                                             const std::string& lastModified,
+                                             IBufferDownloadListener* listener,
+                                             bool deleteListener,
+                                             const std::string& tag) {
+    return requestBuffer(url,
+                         priority,
+                         TimeInterval::zero(),
+                         false,
+                         listener,
+                         deleteListener,
+                         tag);
+  }
+
+  virtual long long requestConditionalImage(const URL& url,
+                                            long long priority,
+                                            const std::string& eTag,
+                                            const std::string& lastModified,
+                                            IImageDownloadListener* listener,
+                                            bool deleteListener,
+                                            const std::string& tag) {
+    return requestImage(url,
+                        priority,
+                        TimeInterval::zero(),
+                        false,
+                        listener,
+                        deleteListener,
+                        tag);
+  }
+
 
   virtual bool cancelRequest(long long requestID) = 0;
 
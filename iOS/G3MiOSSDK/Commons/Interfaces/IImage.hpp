@@ -36,6 +36,12 @@ public:
 
   virtual void getPixel(int x, int y,
                         MutableColor255& pixel) const = 0;
+
+  /**
+   Fills argb (getWidth() * getHeight() values) with all the pixels of the image in one pass,
+   packed as 0xAARRGGBB. argb[(y * getWidth()) + x] is the same pixel that getPixel(x, y) returns.
+   */
+  virtual void getPixels(int argb[]) const = 0;
 };
 
 #endif
@@ -20,14 +20,46 @@ class TimeInterval;
 
 class IImageResult {
 public:
-  IImage*    _image;
-  const bool _expired;
+  IImage*           _image;
+  const bool        _expired;
+  // milliseconds until the stored image expires, or -1 if the storage doesn't know it
+  const long long   _timeToExpire;
+  // the validators saved with the image, empty if the storage doesn't keep them
+  const std::string _eTag;
+  const std::string _lastModified;
 
 
   IImageResult(IImage* image,
                bool expired) :
   _image(image),
-  _expired(expired)
+  _expired(expired),
+  _timeToExpire(-1),
+  _eTag(""),
+  _lastModified("")
+  {
+  }
+
+  IImageResult(IImage* image,
+               bool expired,
+               long long timeToExpire) :
+  _image(image),
+  _expired(expired),
+  _timeToExpire(timeToExpire),
+  _eTag(""),
+  _lastModified("")
+  {
+  }
+
+  IImageResult(IImage* image,
+               bool expired,
+               long long timeToExpire,
+               const std::string& eTag,
+               const std::string& lastModified) :
+  _image(image),
+  _expired(expired),
+  _timeToExpire(timeToExpire),
+  _eTag(eTag),
+  _lastModified(lastModified)
   {
   }
 
@@ -38,14 +70,44 @@ public:
 
 class IByteBufferResult {
 private:
-  IByteBuffer* _buffer;
-  const bool   _expired;
+  IByteBuffer*      _buffer;
+  const bool        _expired;
+  const long long   _timeToExpire;
+  const std::string _eTag;
+  const std::string _lastModified;
 
 public:
   IByteBufferResult(IByteBuffer* buffer,
                     bool expired) :
   _buffer(buffer),
-  _expired(expired)
+  _expired(expired),
+  _timeToExpire(-1),
+  _eTag(""),
+  _lastModified("")
+  {
+  }
+
+  IByteBufferResult(IByteBuffer* buffer,
+                    bool expired,
+                    long long timeToExpire) :
+  _buffer(buffer),
+  _expired(expired),
+  _timeToExpire(timeToExpire),
+  _eTag(""),
+  _lastModified("")
+  {
+  }
+
+  IByteBufferResult(IByteBuffer* buffer,
+                    bool expired,
+                    long long timeToExpire,
+                    const std::string& eTag,
+                    const std::string& lastModified) :
+  _buffer(buffer),
+  _expired(expired),
+  _timeToExpire(timeToExpire),
+  _eTag(eTag),
+  _lastModified(lastModified)
   {
   }
 
@@ -59,6 +121,24 @@ public:
   bool isExpired() const {
     return _expired;
   }
+
+  /**
+   Milliseconds until the stored buffer expires, or -1 if the storage doesn't know it.
+   */
+  long long getTimeToExpire() const {
+    return _timeToExpire;
+  }
+
+  /**
+   The validators saved with the buffer, empty if the storage doesn't keep them.
+   */
+  const std::string getETag() const {
+    return _eTag;
+  }
+
+  const std::string getLastModified() const {
+    return _lastModified;
+  }
 };
 
 
@@ -99,6 +179,43 @@ public:
                          const TimeInterval& timeToExpires,
                          bool saveInBackground) = 0;
 
+  /**
+   Saves the buffer with the validators of its response (the ETag and Last-Modified headers, empty
+   if missing), readBuffer() gives them back to revalidate the buffer once expired, even when it
+   doesn't read the expired buffer. The storages that don't keep the validators just save the buffer.
+   */
+  virtual void saveBufferWithValidators(const URL& url,
+                                        const IByteBuffer* buffer,
+                                        const TimeInterval& timeToExpires,
+                                        bool saveInBackground,
+                                        const std::string& eTag,
+                                        const std::string& lastModified) {
+    saveBuffer(url, buffer, timeToExpires, saveInBackground);
+  }
+
+  virtual void saveImageWithValidators(const URL& url,
+                                       const IImage* image,
+                                       const TimeInterval& timeToExpires,
+                                       bool saveInBackground,
+                                       const std::string& eTag,
+                                       const std::string& lastModified) {
+    saveImage(url, image, timeToExpires, saveInBackground);
+  }
+
+  /**
+   Sets a new expiration to the stored buffer, kept with its validators, once the server answered
+   that it wasn't modified. The storages that don't keep the validators do nothing.
+   */
+  virtual void refreshBuffer(const URL& url,
+                             const TimeInterval& timeToExpires,
+                             bool saveInBackground) {
+  }
+
+  virtual void refreshImage(const URL& url,
+                            const TimeInterval& timeToExpires,
+                            bool saveInBackground) {
+  }
+
 
   virtual void onResume(const G3MContext* context) = 0;
 
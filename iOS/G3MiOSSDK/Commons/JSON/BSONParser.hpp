@@ -27,11 +27,6 @@ private:
 
   }
 
-  static JSONBaseObject* parseValue(const unsigned char type,
-                                    ByteBufferIterator* iterator,
-                                    bool nullAsObject);
-
-
   static JSONString*  parseString(ByteBufferIterator* iterator);
   static JSONArray*   parseArray(ByteBufferIterator* iterator,
                                  bool nullAsObject);
@@ -46,6 +41,10 @@ private:
 
 public:
 
+  static JSONBaseObject* parseValue(const unsigned char type,
+                                    ByteBufferIterator* iterator,
+                                    bool nullAsObject);
+
   static JSONBaseObject* parse(const IByteBuffer* buffer,
                                bool nullAsObject = false);
 
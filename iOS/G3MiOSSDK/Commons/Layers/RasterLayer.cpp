@@ -40,7 +40,8 @@ Layer(transparency, condition, layerInfo),
 _timeToCache(timeToCache),
 _readExpired(readExpired),
 _parameters(parameters),
-_tileImageProvider(NULL)
+_tileImageProvider(NULL),
+_staleWhileRevalidate(false)
 {
 }
 
@@ -60,7 +61,8 @@ bool RasterLayer::isEquals(const Layer* that) const {
   RasterLayer* rasterThat = (RasterLayer*) that;
 
   return ((_timeToCache.milliseconds() == rasterThat->_timeToCache.milliseconds()) &&
-          (_readExpired                == rasterThat->_readExpired));
+          (_readExpired                == rasterThat->_readExpired) &&
+          (_staleWhileRevalidate       == rasterThat->_staleWhileRevalidate));
 }
 
 TileImageProvider* RasterLayer::createTileImageProvider(const G3MRenderContext* rc,
@@ -91,6 +93,14 @@ long long RasterLayer::requestImage(const Tile* tile,
   if (logDownloadActivity) {
     ILogger::instance()->logInfo("Downloading %s", url._path.c_str());
   }
+  if (_staleWhileRevalidate) {
+    return downloader->requestStaleWhileRevalidateImage(url,
+                                                        tileTextureDownloadPriority,
+                                                        _timeToCache,
+                                                        listener,
+                                                        deleteListener,
+                                                        "" /* default tag */);
+  }
   return downloader->requestImage(url,
                                   tileTextureDownloadPriority,
                                   _timeToCache,
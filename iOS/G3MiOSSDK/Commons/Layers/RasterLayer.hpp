@@ -21,6 +21,8 @@ class RasterLayer : public Layer {
 private:
   mutable RasterLayerTileImageProvider* _tileImageProvider;
 
+  bool _staleWhileRevalidate;
+
 protected:
 #ifdef C_CODE
   const LayerTilesRenderParameters* _parameters;
@@ -76,6 +78,18 @@ public:
                          IImageDownloadListener* listener,
                          bool deleteListener) const;
 
+  /**
+   When enabled, the expired images in the cache are shown at once while they are downloaded again
+   in background (see IDownloader::requestStaleWhileRevalidateImage), instead of honoring readExpired.
+   */
+  void setStaleWhileRevalidate(bool staleWhileRevalidate) {
+    _staleWhileRevalidate = staleWhileRevalidate;
+  }
+
+  bool isStaleWhileRevalidate() const {
+    return _staleWhileRevalidate;
+  }
+
   const std::vector<URL*> getDownloadURLs(const Tile* tile) const;
 
 };
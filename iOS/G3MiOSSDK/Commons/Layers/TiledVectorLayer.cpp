@@ -29,13 +29,16 @@ TiledVectorLayer::TiledVectorLayer(const GEORasterSymbolizer*
                                    const bool                                            readExpired,
                                    const float                                           transparency,
                                    const LayerCondition*                                 condition,
-                                   std::vector<const Info*>*                             layerInfo) :
+                                   std::vector<const Info*>*                             layerInfo,
+                                   const long long                                       geoObjectsCacheBudget) :
 VectorLayer(parametersVector, transparency, condition, layerInfo),
 _symbolizer(symbolizer),
 _urlTemplate(urlTemplate),
 _dataSector(dataSector),
 _timeToCache(timeToCache),
 _readExpired(readExpired),
+_geoObjectsCacheBudget(geoObjectsCacheBudget),
+_staleWhileRevalidate(false),
 _tileImageProvider(NULL),
 _su(NULL),
 _mu(NULL)
@@ -84,7 +87,8 @@ TiledVectorLayer* TiledVectorLayer::newMercator(const GEORasterSymbolizer* symbo
                               readExpired,
                               transparency,
                               condition,
-                              layerInfo);
+                              layerInfo,
+                              DEFAULT_GEO_OBJECTS_CACHE_BUDGET);
 }
 
 URL TiledVectorLayer::getFeatureInfoURL(const Geodetic2D& position,
@@ -120,7 +124,8 @@ TiledVectorLayer* TiledVectorLayer::copy() const {
                               _readExpired,
                               _transparency,
                               (_condition == NULL) ? NULL : _condition->copy(),
-                              _layerInfo);
+                              _layerInfo,
+                              _geoObjectsCacheBudget);
 }
 
 TileImageProvider* TiledVectorLayer::createTileImageProvider(const G3MRenderContext* rc,
@@ -128,7 +133,8 @@ TileImageProvider* TiledVectorLayer::createTileImageProvider(const G3MRenderCont
   if (_tileImageProvider == NULL) {
     _tileImageProvider = new TiledVectorLayerTileImageProvider(this,
                                                                rc->getDownloader(),
-                                                               rc->getThreadUtils());
+                                                               rc->getThreadUtils(),
+                                                               _geoObjectsCacheBudget);
   }
   _tileImageProvider->_retain();
   return _tileImageProvider;
@@ -205,7 +211,8 @@ TiledVectorLayer::RequestGEOJSONBufferData* TiledVectorLayer::getRequestGEOJSONB
 
   return new RequestGEOJSONBufferData(createURL(tile),
                                       _timeToCache,
-                                      _readExpired);
+                                      _readExpired,
+                                      _staleWhileRevalidate);
 }
 
 const std::vector<URL*> TiledVectorLayer::getDownloadURLs(const Tile* tile) const {
@@ -213,3 +220,14 @@ const std::vector<URL*> TiledVectorLayer::getDownloadURLs(const Tile* tile) cons
   result.push_back( new URL(createURL(tile)) );
   return result;
 }
+
+void TiledVectorLayer::setGEOObjectsCacheBudget(long long geoObjectsCacheBudget) {
+  _geoObjectsCacheBudget = geoObjectsCacheBudget;
+  if (_tileImageProvider != NULL) {
+    _tileImageProvider->setGEOObjectsCacheBudget(geoObjectsCacheBudget);
+  }
+}
+
+const std::string TiledVectorLayer::geoObjectsCacheStatistics() const {
+  return (_tileImageProvider == NULL) ? "" : _tileImageProvider->statistics();
+}
@@ -34,6 +34,8 @@ private:
   const Sector       _dataSector;
   const TimeInterval _timeToCache;
   const bool         _readExpired;
+  long long          _geoObjectsCacheBudget;
+  bool               _staleWhileRevalidate;
 
 #ifdef C_CODE
   mutable const IMathUtils*   _mu;
@@ -53,7 +55,8 @@ private:
                    const bool                                            readExpired,
                    const float                                           transparency,
                    const LayerCondition*                                 condition,
-                   std::vector<const Info*>*                             layerInfo);
+                   std::vector<const Info*>*                             layerInfo,
+                   const long long                                       geoObjectsCacheBudget);
 
   const URL createURL(const Tile* tile) const;
 
@@ -67,6 +70,9 @@ protected:
 
 public:
 
+  // measured in coordinates of the cached GEOObjects
+  static const long long DEFAULT_GEO_OBJECTS_CACHE_BUDGET = 256 * 1024;
+
   static TiledVectorLayer* newMercator(const GEORasterSymbolizer* symbolizer,
                                        const std::string&         urlTemplate,
                                        const Sector&              dataSector,
@@ -99,13 +105,16 @@ public:
     const URL          _url;
     const TimeInterval _timeToCache;
     const bool         _readExpired;
+    const bool         _staleWhileRevalidate;
 
     RequestGEOJSONBufferData(const URL&          url,
                              const TimeInterval& timeToCache,
-                             const bool          readExpired) :
+                             const bool          readExpired,
+                             const bool          staleWhileRevalidate) :
     _url(url),
     _timeToCache(timeToCache),
-    _readExpired(readExpired)
+    _readExpired(readExpired),
+    _staleWhileRevalidate(staleWhileRevalidate)
     {
     }
   };
@@ -123,6 +132,31 @@ public:
 
   const std::vector<URL*> getDownloadURLs(const Tile* tile) const;
 
+  /**
+   Sets the budget, measured in coordinates, of the cache of parsed GEOObjects shared by the
+   tiles of the layer. The least recently used GEOObjects are evicted when it is exceeded.
+   */
+  void setGEOObjectsCacheBudget(long long geoObjectsCacheBudget);
+
+  long long getGEOObjectsCacheBudget() const {
+    return _geoObjectsCacheBudget;
+  }
+
+  /**
+   When enabled, the expired tiles in the cache are rasterized at once while they are downloaded
+   again in background (see IDownloader::requestStaleWhileRevalidateBuffer), instead of honoring
+   readExpired.
+   */
+  void setStaleWhileRevalidate(bool staleWhileRevalidate) {
+    _staleWhileRevalidate = staleWhileRevalidate;
+  }
+
+  bool isStaleWhileRevalidate() const {
+    return _staleWhileRevalidate;
+  }
+
+  const std::string geoObjectsCacheStatistics() const;
+
 };
 
 #endif
@@ -24,6 +24,8 @@
 #include "Geodetic3D.hpp"
 #include "GLConstants.hpp"
 #include "ILogger.hpp"
+#include "IByteBuffer.hpp"
+#include "ByteBufferIterator.hpp"
 
 
 Color* G3MMeshParser::parseColor(const JSONArray* jsonColor) {
@@ -232,13 +234,35 @@ Mesh* G3MMeshParser::parseMesh(std::map<std::string, G3MMeshMaterial*>& material
 
   IShortBuffer* indices   = parseShortBuffer( jsonMesh->getAsArray("indices") );
 
+  return createMesh(material,
+                    primitive,
+                    pointSize,
+                    lineWidth,
+                    depthTest,
+                    Vector3D(centerX, centerY, centerZ),
+                    vertices,
+                    normals,
+                    colors,
+                    indices);
+}
+
+Mesh* G3MMeshParser::createMesh(const G3MMeshMaterial* material,
+                                int primitive,
+                                float pointSize,
+                                float lineWidth,
+                                bool depthTest,
+                                const Vector3D& center,
+                                IFloatBuffer* vertices,
+                                IFloatBuffer* normals,
+                                IFloatBuffer* colors,
+                                IShortBuffer* indices) {
   const Color* flatColor = (material == NULL) ? NULL : new Color(material->_color);
 
   Mesh* mesh;
   if (indices == NULL) {
     mesh = new DirectMesh(primitive,
                           true, // owner
-                          Vector3D(centerX, centerY, centerZ),
+                          center,
                           vertices,
                           lineWidth,
                           pointSize,
@@ -249,7 +273,7 @@ Mesh* G3MMeshParser::parseMesh(std::map<std::string, G3MMeshMaterial*>& material
   }
   else {
     mesh = new IndexedMesh(primitive,
-                           Vector3D(centerX, centerY, centerZ),
+                           center,
                            vertices,
                            true,
                            indices,
@@ -310,3 +334,225 @@ std::vector<Mesh*> G3MMeshParser::parse(const JSONObject* jsonObject,
 
   return meshes;
 }
+
+int G3MMeshParser::binaryToGLPrimitive(unsigned char primitive) {
+  // same order of G3Mesh.Primitive in the extruder
+  switch (primitive) {
+    case 0:
+      return GLPrimitive::triangles();
+    case 1:
+      return GLPrimitive::triangleStrip();
+    case 2:
+      return GLPrimitive::triangleFan();
+    case 3:
+      return GLPrimitive::lines();
+    case 4:
+      return GLPrimitive::lineStrip();
+    case 5:
+      return GLPrimitive::lineLoop();
+    case 6:
+      return GLPrimitive::points();
+    default: {
+      ILogger::instance()->logError("Invalid primitive code %d", primitive);
+      return GLPrimitive::triangles();
+    }
+  }
+}
+
+IFloatBuffer* G3MMeshParser::readFloatBuffer(ByteBufferIterator* iterator) {
+  const int size = iterator->nextInt32();
+  IFloatBuffer* result = IFactory::instance()->createFloatBuffer(size);
+  for (int i = 0; i < size; i++) {
+    result->rawPut(i, iterator->nextFloat());
+  }
+  return result;
+}
+
+IShortBuffer* G3MMeshParser::readShortBuffer(ByteBufferIterator* iterator) {
+  const int size = iterator->nextInt32();
+  IShortBuffer* result = IFactory::instance()->createShortBuffer(size);
+  for (int i = 0; i < size; i++) {
+    result->rawPut(i, iterator->nextInt16());
+  }
+  return result;
+}
+
+void G3MMeshParser::geodeticToCartesian(IFloatBuffer* vertices,
+                                        const Geodetic3D& geodeticCenter,
+                                        const Vector3D& center,
+                                        const Planet* planet) {
+  const size_t size = vertices->size();
+  for (size_t i = 0; i < size; i += 3) {
+    const double longitudeInDegrees = vertices->get(i  ) + geodeticCenter._longitude._degrees;
+    const double latitudeInDegrees  = vertices->get(i+1) + geodeticCenter._latitude._degrees;
+    const double height             = vertices->get(i+2) + geodeticCenter._height;
+
+    const Vector3D cartesian = planet->toCartesian(Angle::fromDegrees(latitudeInDegrees),
+                                                   Angle::fromDegrees(longitudeInDegrees),
+                                                   height);
+
+    vertices->rawPut(i  , (float) (cartesian._x - center._x));
+    vertices->rawPut(i+1, (float) (cartesian._y - center._y));
+    vertices->rawPut(i+2, (float) (cartesian._z - center._z));
+  }
+}
+
+G3MMeshMaterial* G3MMeshParser::readMaterial(ByteBufferIterator* iterator) {
+  const std::string id = iterator->nextZeroTerminatedString();
+  const unsigned char flags = iterator->nextUInt8();
+
+  Color* color = NULL;
+  if ((flags & MATERIAL_FLAG_COLOR) != 0) {
+    const float r = iterator->nextFloat();
+    const float g = iterator->nextFloat();
+    const float b = iterator->nextFloat();
+    const float a = iterator->nextFloat();
+    color = Color::newFromRGBA(r, g, b, a);
+  }
+
+  URL* textureURL = NULL;
+  if ((flags & MATERIAL_FLAG_TEXTURE_URL) != 0) {
+    textureURL = new URL( iterator->nextZeroTerminatedString() );
+  }
+
+  return new G3MMeshMaterial(id, color, textureURL);
+}
+
+Mesh* G3MMeshParser::readMesh(std::map<std::string, G3MMeshMaterial*>& materials,
+                              ByteBufferIterator* iterator,
+                              const Planet* planet) {
+  const std::string materialID = iterator->nextZeroTerminatedString();
+  G3MMeshMaterial* material = NULL;
+  if (materialID.size() > 0) {
+    material = materials[materialID];
+    if (material == NULL) {
+      ILogger::instance()->logError("Can't find material \"%s\"", materialID.c_str());
+    }
+  }
+
+  const int           primitive = binaryToGLPrimitive( iterator->nextUInt8() );
+  const float         pointSize = iterator->nextFloat();
+  const float         lineWidth = iterator->nextFloat();
+  const unsigned char flags     = iterator->nextUInt8();
+
+  const bool depthTest  = ((flags & MESH_FLAG_DEPTH_TEST) != 0);
+  const bool isGeodetic = ((flags & MESH_FLAG_GEODETIC)   != 0);
+
+  const double centerX = iterator->nextDouble();
+  const double centerY = iterator->nextDouble();
+  const double centerZ = iterator->nextDouble();
+
+  IFloatBuffer* vertices = readFloatBuffer(iterator);
+
+  IFloatBuffer* normals = ((flags & MESH_FLAG_NORMALS) != 0) ? readFloatBuffer(iterator) : NULL;
+  IFloatBuffer* colors  = ((flags & MESH_FLAG_COLORS)  != 0) ? readFloatBuffer(iterator) : NULL;
+  const bool hasTexCoords = ((flags & MESH_FLAG_TEX_COORDS) != 0);
+  if (hasTexCoords) {
+    // the record is read anyway, to keep the iterator on the next one
+    IFloatBuffer* texCoords = readFloatBuffer(iterator);
+    delete texCoords;
+  }
+  IShortBuffer* indices = ((flags & MESH_FLAG_INDICES) != 0) ? readShortBuffer(iterator) : NULL;
+
+  if (hasTexCoords) {
+    ILogger::instance()->logError("Textured meshes are not supported, mesh ignored");
+    delete vertices;
+    delete normals;
+    delete colors;
+    delete indices;
+    return NULL;
+  }
+
+  if (isGeodetic) {
+    // center is [longitude, latitude, height] in degrees, the same as in the JSON format
+    const Geodetic3D geodeticCenter = Geodetic3D::fromDegrees(centerY, centerX, centerZ);
+    const Vector3D center = planet->toCartesian(geodeticCenter);
+
+    geodeticToCartesian(vertices, geodeticCenter, center, planet);
+
+    return createMesh(material,
+                      primitive,
+                      pointSize,
+                      lineWidth,
+                      depthTest,
+                      center,
+                      vertices,
+                      normals,
+                      colors,
+                      indices);
+  }
+
+  return createMesh(material,
+                    primitive,
+                    pointSize,
+                    lineWidth,
+                    depthTest,
+                    Vector3D(centerX, centerY, centerZ),
+                    vertices,
+                    normals,
+                    colors,
+                    indices);
+}
+
+std::vector<Mesh*> G3MMeshParser::parseBinary(const IByteBuffer* buffer,
+                                              const Planet* planet) {
+  std::vector<Mesh*> meshes;
+  if (buffer == NULL) {
+    return meshes;
+  }
+
+  ByteBufferIterator iterator(buffer);
+
+  if ((buffer->size() < 5) ||
+      (iterator.nextUInt8() != 'G') ||
+      (iterator.nextUInt8() != '3') ||
+      (iterator.nextUInt8() != 'M') ||
+      (iterator.nextUInt8() != 'B')) {
+    ILogger::instance()->logError("Invalid binary mesh format");
+    return meshes;
+  }
+  const unsigned char version = iterator.nextUInt8();
+  if (version != BINARY_VERSION) {
+    ILogger::instance()->logError("Unsupported binary mesh format version %d", version);
+    return meshes;
+  }
+
+  std::map<std::string, G3MMeshMaterial*> materials;
+
+  while (iterator.hasNext()) {
+    const unsigned char type = iterator.nextUInt8();
+    if (type == RECORD_END) {
+      break;
+    }
+    else if (type == RECORD_MATERIAL) {
+      // every material is written only once, before the first mesh using it
+      G3MMeshMaterial* material = readMaterial(&iterator);
+      materials[material->_id] = material;
+    }
+    else if (type == RECORD_MESH) {
+      Mesh* mesh = readMesh(materials, &iterator, planet);
+      if (mesh != NULL) {
+        meshes.push_back(mesh);
+      }
+    }
+    else {
+      ILogger::instance()->logError("Invalid binary mesh record type %d", type);
+      break;
+    }
+  }
+
+#ifdef C_CODE
+  for (std::map<std::string, G3MMeshMaterial*>::iterator it = materials.begin();
+       it != materials.end();
+       ++it) {
+    delete it->second;
+  }
+#endif
+#ifdef JAVA_CODE
+  for (final G3MMeshMaterial material : materials.values()) {
+    material.dispose();
+  }
+#endif
+
+  return meshes;
+}
@@ -25,6 +25,8 @@ class Geodetic3D;
 class IFloatBuffer;
 class IShortBuffer;
 class Vector3D;
+class IByteBuffer;
+class ByteBufferIterator;
 
 
 class G3MMeshParser {
@@ -53,7 +55,51 @@ private:
 
   static int toGLPrimitive(const std::string& primitive);
 
+  static Mesh* createMesh(const G3MMeshMaterial* material,
+                          int primitive,
+                          float pointSize,
+                          float lineWidth,
+                          bool depthTest,
+                          const Vector3D& center,
+                          IFloatBuffer* vertices,
+                          IFloatBuffer* normals,
+                          IFloatBuffer* colors,
+                          IShortBuffer* indices);
+
+  static int binaryToGLPrimitive(unsigned char primitive);
+
+  static IFloatBuffer* readFloatBuffer(ByteBufferIterator* iterator);
+  static IShortBuffer* readShortBuffer(ByteBufferIterator* iterator);
+
+  static void geodeticToCartesian(IFloatBuffer* vertices,
+                                  const Geodetic3D& geodeticCenter,
+                                  const Vector3D& center,
+                                  const Planet* planet);
+
+  static G3MMeshMaterial* readMaterial(ByteBufferIterator* iterator);
+
+  static Mesh* readMesh(std::map<std::string, G3MMeshMaterial*>& materials,
+                        ByteBufferIterator* iterator,
+                        const Planet* planet);
+
 public:
+  // record types and flags of the binary format, shared with the extruder's G3MeshCollectionBinaryWriter
+  static const int BINARY_VERSION = 1;
+
+  static const int RECORD_END      = 0x00;
+  static const int RECORD_MATERIAL = 0x01;
+  static const int RECORD_MESH     = 0x02;
+
+  static const int MATERIAL_FLAG_COLOR       = 0x01;
+  static const int MATERIAL_FLAG_TEXTURE_URL = 0x02;
+
+  static const int MESH_FLAG_DEPTH_TEST = 0x01;
+  static const int MESH_FLAG_GEODETIC   = 0x02;
+  static const int MESH_FLAG_NORMALS    = 0x04;
+  static const int MESH_FLAG_COLORS     = 0x08;
+  static const int MESH_FLAG_TEX_COORDS = 0x10;
+  static const int MESH_FLAG_INDICES    = 0x20;
+
   static std::vector<Mesh*> parse(const JSONObject* jsonObject,
                                   const Planet* planet);
 
@@ -64,6 +110,22 @@ public:
   static Mesh* parseMesh(const JSONObject* jsonMesh,
                          const Planet* planet);
 
+  /*
+   Parses the binary format written by the extruder's G3MeshCollectionBinaryWriter (little endian):
+
+     header:   "G3MB" version:uint8
+     material: 0x01 id:string flags:uint8 [color:4*float32] [textureURL:string]
+     mesh:     0x02 materialID:string primitive:uint8 pointSize:float32 lineWidth:float32 flags:uint8
+               center:3*float64 vertices:floats [normals:floats] [colors:floats] [texCoords:floats] [indices:shorts]
+     end:      0x00
+
+   strings are zero terminated, floats/shorts are an int32 count followed by the values.
+   The materials are written before the first mesh using them, so the meshes can be created while reading.
+   Textured meshes are not supported yet, the meshes with texCoords are skipped with an error.
+   */
+  static std::vector<Mesh*> parseBinary(const IByteBuffer* buffer,
+                                        const Planet* planet);
+
 };
 
 #endif
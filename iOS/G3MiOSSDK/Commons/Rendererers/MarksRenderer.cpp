@@ -10,7 +10,6 @@
 #include "Camera.hpp"
 #include "GL.hpp"
 #include "TouchEvent.hpp"
-#include "RectangleF.hpp"
 #include "Mark.hpp"
 #include "MarkTouchListener.hpp"
 #include "DownloadPriority.hpp"
@@ -21,6 +20,260 @@
 #include "G3MEventContext.hpp"
 #include "MarkFilter.hpp"
 #include "G3MRenderContext.hpp"
+#include "Box.hpp"
+#include "Frustum.hpp"
+#include "IMathUtils.hpp"
+
+#include <algorithm>
+
+
+MarksQuadTree::MarksQuadTree() :
+_sector(Sector::fullSphere()),
+_depth(0),
+_children(NULL),
+_marksCount(0),
+_bounds(NULL)
+{
+}
+
+MarksQuadTree::MarksQuadTree(const Sector& sector,
+                             int depth) :
+_sector(sector),
+_depth(depth),
+_children(NULL),
+_marksCount(0),
+_bounds(NULL)
+{
+}
+
+MarksQuadTree::~MarksQuadTree() {
+  if (_children != NULL) {
+    for (int i = 0; i < 4; i++) {
+      delete _children[i];
+    }
+    delete [] _children;
+  }
+
+  delete _bounds;
+}
+
+int MarksQuadTree::getChildIndex(const Geodetic2D& position) const {
+  // the split angles are the lower angles of the upper children
+  int index = 0;
+  if (position._latitude._radians >= _children[2]->_sector._lower._latitude._radians) {
+    index += 2;
+  }
+  if (position._longitude._radians >= _children[1]->_sector._lower._longitude._radians) {
+    index += 1;
+  }
+  return index;
+}
+
+void MarksQuadTree::split() {
+  const Geodetic2D lower = _sector._lower;
+  const Geodetic2D upper = _sector._upper;
+
+  const Angle splitLongitude = Angle::midAngle(lower._longitude, upper._longitude);
+  const Angle splitLatitude  = Angle::midAngle(lower._latitude,  upper._latitude);
+
+  const Sector sector0(lower,
+                       Geodetic2D(splitLatitude, splitLongitude));
+
+  const Sector sector1(Geodetic2D(lower._latitude, splitLongitude),
+                       Geodetic2D(splitLatitude, upper._longitude));
+
+  const Sector sector2(Geodetic2D(splitLatitude, lower._longitude),
+                       Geodetic2D(upper._latitude, splitLongitude));
+
+  const Sector sector3(Geodetic2D(splitLatitude, splitLongitude),
+                       upper);
+
+  _children = new MarksQuadTree*[4];
+  _children[0] = new MarksQuadTree(sector0, _depth + 1);
+  _children[1] = new MarksQuadTree(sector1, _depth + 1);
+  _children[2] = new MarksQuadTree(sector2, _depth + 1);
+  _children[3] = new MarksQuadTree(sector3, _depth + 1);
+
+  const size_t marksSize = _marks.size();
+  for (size_t i = 0; i < marksSize; i++) {
+    Mark* mark = _marks[i];
+    const Geodetic2D position = mark->getPosition().asGeodetic2D();
+    _children[getChildIndex(position)]->add(mark, position);
+  }
+  _marks.clear();
+}
+
+void MarksQuadTree::invalidateBounds() {
+  delete _bounds;
+  _bounds = NULL;
+}
+
+const Box* MarksQuadTree::getBounds(const Planet* planet) {
+  if (_bounds == NULL) {
+    const IMathUtils* mu = IMathUtils::instance();
+
+    double minX = mu->maxDouble();
+    double minY = mu->maxDouble();
+    double minZ = mu->maxDouble();
+
+    double maxX = mu->minDouble();
+    double maxY = mu->minDouble();
+    double maxZ = mu->minDouble();
+
+    if (_children == NULL) {
+      const size_t marksSize = _marks.size();
+      for (size_t i = 0; i < marksSize; i++) {
+        const Vector3D* position = _marks[i]->getCartesianPosition(planet);
+
+        if (position->_x < minX) { minX = position->_x; }
+        if (position->_y < minY) { minY = position->_y; }
+        if (position->_z < minZ) { minZ = position->_z; }
+
+        if (position->_x > maxX) { maxX = position->_x; }
+        if (position->_y > maxY) { maxY = position->_y; }
+        if (position->_z > maxZ) { maxZ = position->_z; }
+      }
+    }
+    else {
+      for (int i = 0; i < 4; i++) {
+        MarksQuadTree* child = _children[i];
+        if (child->_marksCount > 0) {
+          const Box* childBounds = child->getBounds(planet);
+          const Vector3D lower = childBounds->_lower;
+          const Vector3D upper = childBounds->_upper;
+
+          if (lower._x < minX) { minX = lower._x; }
+          if (lower._y < minY) { minY = lower._y; }
+          if (lower._z < minZ) { minZ = lower._z; }
+
+          if (upper._x > maxX) { maxX = upper._x; }
+          if (upper._y > maxY) { maxY = upper._y; }
+          if (upper._z > maxZ) { maxZ = upper._z; }
+        }
+      }
+    }
+
+    _bounds = new Box(Vector3D(minX, minY, minZ),
+                      Vector3D(maxX, maxY, maxZ));
+  }
+  return _bounds;
+}
+
+void MarksQuadTree::add(Mark* mark,
+                        const Geodetic2D& position) {
+  invalidateBounds();
+  _marksCount++;
+
+  if (_children == NULL) {
+    _marks.push_back(mark);
+    if ((_marks.size() > MAX_MARKS_PER_NODE) && (_depth < MAX_DEPTH)) {
+      split();
+    }
+  }
+  else {
+    _children[getChildIndex(position)]->add(mark, position);
+  }
+}
+
+bool MarksQuadTree::remove(Mark* mark,
+                           const Geodetic2D& position) {
+  bool removed = false;
+  if (_children == NULL) {
+    const size_t marksSize = _marks.size();
+    for (size_t i = 0; i < marksSize; i++) {
+      if (_marks[i] == mark) {
+#ifdef C_CODE
+        _marks.erase(_marks.begin() + i);
+#endif
+#ifdef JAVA_CODE
+        _marks.remove(i);
+#endif
+        removed = true;
+        break;
+      }
+    }
+  }
+  else {
+    removed = _children[getChildIndex(position)]->remove(mark, position);
+  }
+
+  if (removed) {
+    invalidateBounds();
+    _marksCount--;
+    if ((_marksCount == 0) && (_children != NULL)) {
+      for (int i = 0; i < 4; i++) {
+        delete _children[i];
+      }
+      delete [] _children;
+      _children = NULL;
+    }
+  }
+  return removed;
+}
+
+void MarksQuadTree::elevationChanged(const Geodetic2D& position) {
+  invalidateBounds();
+  if (_children != NULL) {
+    _children[getChildIndex(position)]->elevationChanged(position);
+  }
+}
+
+void MarksQuadTree::clear() {
+  if (_children != NULL) {
+    for (int i = 0; i < 4; i++) {
+      delete _children[i];
+    }
+    delete [] _children;
+    _children = NULL;
+  }
+  _marks.clear();
+  _marksCount = 0;
+  invalidateBounds();
+}
+
+void MarksQuadTree::selectVisibleMarks(const Planet* planet,
+                                       const Frustum* frustum,
+                                       const Vector3D& cameraPosition,
+                                       double marginPerDistance,
+                                       std::vector<Mark*>& visibleMarks) {
+  if (_marksCount == 0) {
+    return;
+  }
+
+  const Box* bounds = getBounds(planet);
+  if (marginPerDistance > 0) {
+    const Vector3D lower = bounds->_lower;
+    const Vector3D upper = bounds->_upper;
+
+    // the farthest point of the bounds takes the widest margin
+    const Vector3D center((lower._x + upper._x) / 2,
+                          (lower._y + upper._y) / 2,
+                          (lower._z + upper._z) / 2);
+    const double distance = center.distanceTo(cameraPosition) + (lower.distanceTo(upper) / 2);
+    const double margin = distance * marginPerDistance;
+
+    const Box grownBounds(Vector3D(lower._x - margin, lower._y - margin, lower._z - margin),
+                          Vector3D(upper._x + margin, upper._y + margin, upper._z + margin));
+    if (!grownBounds.touchesFrustum(frustum)) {
+      return;
+    }
+  }
+  else if (!bounds->touchesFrustum(frustum)) {
+    return;
+  }
+
+  if (_children == NULL) {
+    const size_t marksSize = _marks.size();
+    for (size_t i = 0; i < marksSize; i++) {
+      visibleMarks.push_back(_marks[i]);
+    }
+  }
+  else {
+    for (int i = 0; i < 4; i++) {
+      _children[i]->selectVisibleMarks(planet, frustum, cameraPosition, marginPerDistance, visibleMarks);
+    }
+  }
+}
 
 
 void MarksRenderer::setMarkTouchListener(MarkTouchListener* markTouchListener,
@@ -37,6 +290,9 @@ MarksRenderer::MarksRenderer(bool readyWhenMarksReady,
                              bool renderInReverse,
                              bool progressiveInitialization) :
 _readyWhenMarksReady(readyWhenMarksReady),
+_marksQuadTree(new MarksQuadTree()),
+_nextMarkOrder(0),
+_maxMarkOnScreenExtent(0),
 _renderInReverse(renderInReverse),
 _progressiveInitialization(progressiveInitialization),
 _lastCamera(NULL),
@@ -59,6 +315,8 @@ MarksRenderer::~MarksRenderer() {
     delete _marks[i];
   }
 
+  delete _marksQuadTree;
+
   if ( _autoDeleteMarkTouchListener ) {
     delete _markTouchListener;
   }
@@ -79,42 +337,112 @@ void MarksRenderer::onChangedContext() {
     Mark* mark = _marks[i];
     mark->initialize(_context, _downloadPriority);
   }
+  _marksToInitialize.clear();
 }
 
 const bool MarksRenderer::hasMarks() const {
   return !_marks.empty();
 }
 
-void MarksRenderer::addMark(Mark* mark) {
-  _marks.push_back(mark);
-  if ((_context != NULL) && !_progressiveInitialization) {
-    mark->initialize(_context, _downloadPriority);
+size_t MarksRenderer::findMark(const std::vector<Mark*>& marks,
+                               const Mark* mark) {
+  const long long order = mark->getOrderInMarksRenderer();
+  const size_t marksSize = marks.size();
+
+  size_t low  = 0;
+  size_t high = marksSize;
+  while (low < high) {
+    const size_t middle = (low + high) / 2;
+    if (marks[middle]->getOrderInMarksRenderer() < order) {
+      low = middle + 1;
+    }
+    else {
+      high = middle;
+    }
+  }
+
+  if ((low < marksSize) && (marks[low] == mark)) {
+    return low;
   }
+  return marksSize;
 }
 
-void MarksRenderer::removeMark(Mark* mark) {
-  const size_t marksSize = _marks.size();
-  for (size_t i = 0; i < marksSize; i++) {
-    if (_marks[i] == mark) {
+bool MarksRenderer::eraseMark(std::vector<Mark*>& marks,
+                              const Mark* mark) {
+  const size_t i = findMark(marks, mark);
+  if (i == marks.size()) {
+    return false;
+  }
 #ifdef C_CODE
-      _marks.erase(_marks.begin() + i);
+  marks.erase(marks.begin() + i);
 #endif
 #ifdef JAVA_CODE
-      _marks.remove(i);
+  marks.remove(i);
 #endif
-      break;
-    }
+  return true;
+}
+
+void MarksRenderer::addMark(Mark* mark) {
+  mark->setMarksRenderer(this, _nextMarkOrder++);
+  _marks.push_back(mark);
+  _marksQuadTree->add(mark, mark->getPosition().asGeodetic2D());
+  onMarkOnScreenExtentChanged(mark);
+  if (_progressiveInitialization) {
+    _marksToInitialize.push_back(mark);
+  }
+  else if (_context != NULL) {
+    mark->initialize(_context, _downloadPriority);
+  }
+}
+
+void MarksRenderer::removeMark(Mark* mark) {
+  if (mark->getMarksRenderer() != this) {
+    return;
+  }
+
+  if (eraseMark(_marks, mark)) {
+    _marksQuadTree->remove(mark, mark->getPosition().asGeodetic2D());
+    eraseMark(_marksToInitialize, mark);
+    eraseMark(_visibleMarks, mark);
+    mark->setMarksRenderer(NULL, -1);
   }
 }
 
 void MarksRenderer::removeAllMarks(bool deleteMarks) {
-  if (deleteMarks) {
-    const size_t marksSize = _marks.size();
-    for (size_t i = 0; i < marksSize; i++) {
-      delete _marks[i];
+  const size_t marksSize = _marks.size();
+  for (size_t i = 0; i < marksSize; i++) {
+    Mark* mark = _marks[i];
+    if (deleteMarks) {
+      delete mark;
+    }
+    else {
+      mark->setMarksRenderer(NULL, -1);
     }
   }
   _marks.clear();
+  _marksQuadTree->clear();
+  _marksToInitialize.clear();
+  _visibleMarks.clear();
+}
+
+void MarksRenderer::onMarkPositionChanged(Mark* mark,
+                                          const Geodetic2D& previousPosition) {
+  if (_marksQuadTree->remove(mark, previousPosition)) {
+    _marksQuadTree->add(mark, mark->getPosition().asGeodetic2D());
+  }
+}
+
+void MarksRenderer::onMarkElevationChanged(Mark* mark) {
+  _marksQuadTree->elevationChanged(mark->getPosition().asGeodetic2D());
+}
+
+void MarksRenderer::onMarkOnScreenExtentChanged(Mark* mark) {
+  const float width  = mark->getTextureWidth();
+  const float height = mark->getTextureHeight();
+  const float extent = IMathUtils::instance()->sqrt((width * width) + (height * height));
+  if (extent > _maxMarkOnScreenExtent) {
+    _maxMarkOnScreenExtent = extent;
+  }
 }
 
 bool MarksRenderer::onTouchEvent(const G3MEventContext* ec,
@@ -129,9 +457,10 @@ bool MarksRenderer::onTouchEvent(const G3MEventContext* ec,
       double minSqDistance = IMathUtils::instance()->maxDouble();
       Mark* nearestMark = NULL;
 
-      const size_t marksSize = _marks.size();
-      for (size_t i = 0; i < marksSize; i++) {
-        Mark* mark = _marks[i];
+      // only the marks inside the frustum on the last render can be touched
+      const size_t visibleMarksSize = _visibleMarks.size();
+      for (size_t i = 0; i < visibleMarksSize; i++) {
+        Mark* mark = _visibleMarks[i];
 
         if (!mark->isReady()) {
           continue;
@@ -153,12 +482,13 @@ bool MarksRenderer::onTouchEvent(const G3MEventContext* ec,
         const Vector3D* cartesianMarkPosition = mark->getCartesianPosition(planet);
         const Vector2F markPixel = _lastCamera->point2Pixel(*cartesianMarkPosition);
 
-        const RectangleF markPixelBounds(markPixel._x - (markWidth  / 2),
-                                         markPixel._y - (markHeight / 2),
-                                         markWidth,
-                                         markHeight);
+        const float halfMarkWidth  = markWidth  / 2;
+        const float halfMarkHeight = markHeight / 2;
 
-        if (markPixelBounds.contains(touchedPixel._x, touchedPixel._y)) {
+        if ((touchedPixel._x >= (markPixel._x - halfMarkWidth )) &&
+            (touchedPixel._x <= (markPixel._x + halfMarkWidth )) &&
+            (touchedPixel._y >= (markPixel._y - halfMarkHeight)) &&
+            (touchedPixel._y <= (markPixel._y + halfMarkHeight))) {
           const double sqDistance = markPixel.squaredDistanceTo(touchedPixel);
           if (sqDistance < minSqDistance) {
             nearestMark   = mark;
@@ -206,6 +536,33 @@ IFloatBuffer* MarksRenderer::getBillboardTexCoords() {
   return _billboardTexCoords;
 }
 
+#ifdef C_CODE
+class SortMarksByOrderClass {
+public:
+  bool operator() (Mark* i, Mark* j) {
+    return ( i->getOrderInMarksRenderer() < j->getOrderInMarksRenderer() );
+  }
+} sortMarksByOrderObject;
+#endif
+
+void MarksRenderer::sortVisibleMarks() {
+#ifdef C_CODE
+  std::sort(_visibleMarks.begin(),
+            _visibleMarks.end(),
+            sortMarksByOrderObject);
+#endif
+#ifdef JAVA_CODE
+  java.util.Collections.sort(_visibleMarks,
+                             new java.util.Comparator<Mark>() {
+                               @Override
+                               public int compare(final Mark i,
+                                                  final Mark j) {
+                                 return Long.compare(i.getOrderInMarksRenderer(), j.getOrderInMarksRenderer());
+                               }
+                             });
+#endif
+}
+
 void MarksRenderer::render(const G3MRenderContext* rc, GLState* glState) {
   const size_t marksSize = _marks.size();
 
@@ -225,7 +582,7 @@ void MarksRenderer::render(const G3MRenderContext* rc, GLState* glState) {
 
     IFloatBuffer* billboardTexCoord = getBillboardTexCoords();
 
-    if (_progressiveInitialization) {
+    if (_progressiveInitialization && !_marksToInitialize.empty()) {
       if (_initializationTimer == NULL) {
         _initializationTimer = rc->getFactory()->createTimer();
       }
@@ -233,22 +590,59 @@ void MarksRenderer::render(const G3MRenderContext* rc, GLState* glState) {
         _initializationTimer->start();
       }
 
-      for (size_t i = 0; i < marksSize; i++) {
-        if (_initializationTimer->elapsedTimeInMilliseconds() > 5) {
-          break;
+      if (_renderInReverse) {
+        // the older marks are rendered on top, initialize them first
+        const size_t marksToInitializeSize = _marksToInitialize.size();
+        size_t processed = 0;
+        while ((processed < marksToInitializeSize) &&
+               (_initializationTimer->elapsedTimeInMilliseconds() <= 5)) {
+          Mark* mark = _marksToInitialize[processed++];
+          if (!mark->isInitialized()) {
+            mark->initialize(_context, _downloadPriority);
+          }
         }
-
-        const size_t ii = _renderInReverse ? i : (marksSize-1-i);
-        Mark* mark = _marks[ii];
-        if (!mark->isInitialized()) {
-          mark->initialize(_context, _downloadPriority);
+#ifdef C_CODE
+        _marksToInitialize.erase(_marksToInitialize.begin(),
+                                 _marksToInitialize.begin() + processed);
+#endif
+#ifdef JAVA_CODE
+        _marksToInitialize.subList(0, processed).clear();
+#endif
+      }
+      else {
+        while (!_marksToInitialize.empty() &&
+               (_initializationTimer->elapsedTimeInMilliseconds() <= 5)) {
+          Mark* mark = _marksToInitialize.back();
+          _marksToInitialize.pop_back();
+          if (!mark->isInitialized()) {
+            mark->initialize(_context, _downloadPriority);
+          }
         }
       }
     }
 
-    for (size_t i = 0; i < marksSize; i++) {
-      const size_t ii = _renderInReverse ? (marksSize-1-i) : i;
-      Mark* mark = _marks[ii];
+    // the marks culled in this render are not rendered anymore
+    const size_t previousVisibleMarksSize = _visibleMarks.size();
+    for (size_t i = 0; i < previousVisibleMarksSize; i++) {
+      _visibleMarks[i]->resetRendered();
+    }
+    _visibleMarks.clear();
+
+    // a billboard of _maxMarkOnScreenExtent pixels, converted to world units at a distance of one
+    const double tanHalfVerticalFOV = IMathUtils::instance()->tan(camera->getVerticalFOV()._radians / 2);
+    const double marginPerDistance  = _maxMarkOnScreenExtent * 2 * tanHalfVerticalFOV / camera->getViewPortHeight();
+
+    _marksQuadTree->selectVisibleMarks(planet,
+                                       camera->getFrustumInModelCoordinates(),
+                                       cameraPosition.asVector3D(),
+                                       marginPerDistance,
+                                       _visibleMarks);
+    sortVisibleMarks();
+
+    const size_t visibleMarksSize = _visibleMarks.size();
+    for (size_t i = 0; i < visibleMarksSize; i++) {
+      const size_t ii = _renderInReverse ? (visibleMarksSize-1-i) : i;
+      Mark* mark = _visibleMarks[ii];
       if (mark->isReady()) {
         mark->render(rc,
                      this,
@@ -298,34 +692,58 @@ void MarksRenderer::onResizeViewportEvent(const G3MEventContext* ec,
 size_t MarksRenderer::removeAllMarks(const MarkFilter& filter,
                                      bool animated,
                                      bool deleteMarks) {
-  size_t removed = 0;
-  const size_t marksSize = _marks.size();
+  std::vector<Mark*> removedMarks;
+  std::vector<Mark*> survivingMarks;
 
-  if (animated) {
-    for (size_t i = 0; i < marksSize; i++) {
-      Mark* mark = _marks[i];
-      if (filter.test(mark)) {
+  const size_t marksSize = _marks.size();
+  for (size_t i = 0; i < marksSize; i++) {
+    Mark* mark = _marks[i];
+    if (filter.test(mark)) {
+      if (animated && (mark->isRendered() || mark->isAnimatedRemoveStarted())) {
+        // the effect removes the mark when it finishes
         mark->animatedRemove(deleteMarks);
+        survivingMarks.push_back(mark);
+      }
+      else {
+        // a not rendered mark would never start its effect, remove it now
+        _marksQuadTree->remove(mark, mark->getPosition().asGeodetic2D());
+        mark->setMarksRenderer(NULL, -1);
+        removedMarks.push_back(mark);
       }
     }
+    else {
+      survivingMarks.push_back(mark);
+    }
   }
-  else {
-    std::vector<Mark*> survivingMarks;
-    for (size_t i = 0; i < marksSize; i++) {
-      Mark* mark = _marks[i];
-      if (filter.test(mark)) {
-        if (deleteMarks) {
-          delete mark;
-        }
-        removed++;
+
+  const size_t removed = removedMarks.size();
+  if (removed > 0) {
+    _marks = survivingMarks;
+
+    std::vector<Mark*> survivingMarksToInitialize;
+    const size_t marksToInitializeSize = _marksToInitialize.size();
+    for (size_t i = 0; i < marksToInitializeSize; i++) {
+      Mark* mark = _marksToInitialize[i];
+      if (mark->getMarksRenderer() == this) {
+        survivingMarksToInitialize.push_back(mark);
       }
-      else {
-        survivingMarks.push_back(mark);
+    }
+    _marksToInitialize = survivingMarksToInitialize;
+
+    std::vector<Mark*> survivingVisibleMarks;
+    const size_t visibleMarksSize = _visibleMarks.size();
+    for (size_t i = 0; i < visibleMarksSize; i++) {
+      Mark* mark = _visibleMarks[i];
+      if (mark->getMarksRenderer() == this) {
+        survivingVisibleMarks.push_back(mark);
       }
     }
+    _visibleMarks = survivingVisibleMarks;
 
-    if (removed > 0) {
-      _marks = survivingMarks;
+    if (deleteMarks) {
+      for (size_t i = 0; i < removed; i++) {
+        delete removedMarks[i];
+      }
     }
   }
   return removed;
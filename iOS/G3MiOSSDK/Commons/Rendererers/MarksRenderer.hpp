@@ -10,6 +10,7 @@
 
 #include <vector>
 #include "DefaultRenderer.hpp"
+#include "Sector.hpp"
 
 class Mark;
 class Camera;
@@ -17,6 +18,71 @@ class MarkTouchListener;
 class IFloatBuffer;
 class ITimer;
 class MarkFilter;
+class Box;
+class Frustum;
+class Vector3D;
+
+
+/*
+ Geodetic quadtree of the marks of a MarksRenderer.
+
+ Every node keeps the cartesian bounds of its marks (computed lazily, and invalidated when a mark of the node is added,
+ removed or changes its elevation), so the nodes out of the frustum can be skipped without visiting their marks.
+ */
+class MarksQuadTree {
+private:
+  static const int MAX_MARKS_PER_NODE = 64;
+  static const int MAX_DEPTH          = 20;
+
+  const Sector       _sector;
+  const int          _depth;
+  std::vector<Mark*> _marks;
+  MarksQuadTree**    _children;
+  size_t             _marksCount;
+  Box*               _bounds;
+
+  MarksQuadTree(const Sector& sector,
+                int depth);
+
+  int getChildIndex(const Geodetic2D& position) const;
+
+  void split();
+
+  void invalidateBounds();
+
+  const Box* getBounds(const Planet* planet);
+
+public:
+  MarksQuadTree();
+
+  ~MarksQuadTree();
+
+  size_t size() const {
+    return _marksCount;
+  }
+
+  void add(Mark* mark,
+           const Geodetic2D& position);
+
+  bool remove(Mark* mark,
+              const Geodetic2D& position);
+
+  void elevationChanged(const Geodetic2D& position);
+
+  void clear();
+
+  /*
+   The billboards are drawn around the marks positions, so the bounds of the nodes are grown by the margin a billboard
+   can take at the node distance (marginPerDistance is the margin at a distance of one, zero to test the bare bounds).
+   */
+  void selectVisibleMarks(const Planet* planet,
+                          const Frustum* frustum,
+                          const Vector3D& cameraPosition,
+                          double marginPerDistance,
+                          std::vector<Mark*>& visibleMarks);
+
+};
+
 
 
 class MarksRenderer : public DefaultRenderer {
@@ -24,6 +90,20 @@ private:
   const bool         _readyWhenMarksReady;
   std::vector<Mark*> _marks;
 
+  MarksQuadTree*     _marksQuadTree;
+  long long          _nextMarkOrder;
+  float              _maxMarkOnScreenExtent; // the largest billboard diagonal in pixels, it never shrinks
+  std::vector<Mark*> _marksToInitialize;
+  std::vector<Mark*> _visibleMarks; // the marks inside the frustum on the last render, sorted by order
+
+  // the marks are sorted by their order in the renderer
+  static size_t findMark(const std::vector<Mark*>& marks,
+                         const Mark* mark);
+  static bool eraseMark(std::vector<Mark*>& marks,
+                        const Mark* mark);
+
+  void sortVisibleMarks();
+
 #ifdef C_CODE
   const Camera*     _lastCamera;
 #endif
@@ -117,6 +197,13 @@ public:
 
   const std::vector<Mark*> getAllMarks(const MarkFilter& filter) const;
 
+  void onMarkPositionChanged(Mark* mark,
+                             const Geodetic2D& previousPosition);
+
+  void onMarkElevationChanged(Mark* mark);
+
+  void onMarkOnScreenExtentChanged(Mark* mark);
+
 };
 
 #endif
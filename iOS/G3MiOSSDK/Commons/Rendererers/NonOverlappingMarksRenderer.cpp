@@ -430,10 +430,264 @@ bool NonOverlappingMark::onTouchEvent(const Vector2F& touchedPixel) {
   return false;
 }
 
+ScreenChargesQuadTree::ScreenChargesQuadTree() :
+_chargesCount(0),
+_chargesCapacity(0),
+_xs(NULL),
+_ys(NULL),
+_charges(NULL),
+_indices(NULL),
+_positions(NULL),
+_nodesCount(0),
+_nodesCapacity(0),
+_nodesFloats(NULL),
+_nodesInts(NULL),
+_forceX(0),
+_forceY(0)
+{
+}
+
+ScreenChargesQuadTree::~ScreenChargesQuadTree() {
+  delete [] _xs;
+  delete [] _ys;
+  delete [] _charges;
+  delete [] _indices;
+  delete [] _positions;
+
+  delete [] _nodesFloats;
+  delete [] _nodesInts;
+}
+
+void ScreenChargesQuadTree::reset(int chargesCount) {
+  if (chargesCount > _chargesCapacity) {
+    delete [] _xs;
+    delete [] _ys;
+    delete [] _charges;
+    delete [] _indices;
+    delete [] _positions;
+
+    _chargesCapacity = chargesCount * 2;
+    _xs        = new float[_chargesCapacity];
+    _ys        = new float[_chargesCapacity];
+    _charges   = new float[_chargesCapacity];
+    _indices   = new int[_chargesCapacity];
+    _positions = new int[_chargesCapacity];
+  }
+  _chargesCount = chargesCount;
+  _nodesCount = 0;
+}
+
+void ScreenChargesQuadTree::setCharge(int index,
+                                      float x,
+                                      float y,
+                                      float charge) {
+  _xs[index]      = x;
+  _ys[index]      = y;
+  _charges[index] = charge;
+}
+
+int ScreenChargesQuadTree::addNodes(int count) {
+  const int first = _nodesCount;
+  _nodesCount += count;
+  if (_nodesCount > _nodesCapacity) {
+    const int newCapacity = _nodesCount * 2;
+
+    float* newNodesFloats = new float[newCapacity * 4];
+    int*   newNodesInts   = new int[newCapacity * 3];
+    for (int i = 0; i < first * 4; i++) {
+      newNodesFloats[i] = _nodesFloats[i];
+    }
+    for (int i = 0; i < first * 3; i++) {
+      newNodesInts[i] = _nodesInts[i];
+    }
+    delete [] _nodesFloats;
+    delete [] _nodesInts;
+
+    _nodesFloats   = newNodesFloats;
+    _nodesInts     = newNodesInts;
+    _nodesCapacity = newCapacity;
+  }
+  return first;
+}
+
+int ScreenChargesQuadTree::partition(int from,
+                                     int to,
+                                     bool byX,
+                                     float value) {
+  // moves the charges with coordinate < value to the start of the range, answer the first index of the rest
+  const float* coordinates = byX ? _xs : _ys;
+  int i = from;
+  int j = to - 1;
+  while (i <= j) {
+    if (coordinates[_indices[i]] < value) {
+      i++;
+    }
+    else {
+      const int swap = _indices[i];
+      _indices[i] = _indices[j];
+      _indices[j] = swap;
+      j--;
+    }
+  }
+  return i;
+}
+
+void ScreenChargesQuadTree::buildNode(int node,
+                                      int from,
+                                      int to,
+                                      float minX,
+                                      float minY,
+                                      float size,
+                                      int depth) {
+  float totalCharge = 0;
+  float sumX = 0;
+  float sumY = 0;
+  for (int i = from; i < to; i++) {
+    const int index = _indices[i];
+    const float charge = _charges[index];
+    totalCharge += charge;
+    sumX += _xs[index] * charge;
+    sumY += _ys[index] * charge;
+  }
+
+  const int floatsCursor = node * 4;
+  if (totalCharge != 0) {
+    _nodesFloats[floatsCursor    ] = sumX / totalCharge;
+    _nodesFloats[floatsCursor + 1] = sumY / totalCharge;
+  }
+  else {
+    _nodesFloats[floatsCursor    ] = minX + (size / 2);
+    _nodesFloats[floatsCursor + 1] = minY + (size / 2);
+  }
+  _nodesFloats[floatsCursor + 2] = totalCharge;
+  _nodesFloats[floatsCursor + 3] = size;
+
+  const int intsCursor = node * 3;
+  _nodesInts[intsCursor + 1] = from;
+  _nodesInts[intsCursor + 2] = to;
+
+  if (((to - from) <= LEAF_CAPACITY) || (depth >= MAX_DEPTH)) {
+    _nodesInts[intsCursor] = -1;
+    return;
+  }
+
+  const int firstChild = addNodes(4);
+  _nodesInts[intsCursor] = firstChild;
+
+  const float halfSize = size / 2;
+  const float midX = minX + halfSize;
+  const float midY = minY + halfSize;
+
+  const int splitY  = partition(from,   to,     false, midY);
+  const int splitX1 = partition(from,   splitY, true,  midX);
+  const int splitX2 = partition(splitY, to,     true,  midX);
+
+  buildNode(firstChild,     from,    splitX1, minX, minY, halfSize, depth + 1);
+  buildNode(firstChild + 1, splitX1, splitY,  midX, minY, halfSize, depth + 1);
+  buildNode(firstChild + 2, splitY,  splitX2, minX, midY, halfSize, depth + 1);
+  buildNode(firstChild + 3, splitX2, to,      midX, midY, halfSize, depth + 1);
+}
+
+void ScreenChargesQuadTree::build() {
+  _nodesCount = 0;
+  if (_chargesCount == 0) {
+    return;
+  }
+
+  float minX = _xs[0];
+  float minY = _ys[0];
+  float maxX = minX;
+  float maxY = minY;
+  for (int i = 0; i < _chargesCount; i++) {
+    const float x = _xs[i];
+    const float y = _ys[i];
+    if (x < minX) { minX = x; }
+    if (y < minY) { minY = y; }
+    if (x > maxX) { maxX = x; }
+    if (y > maxY) { maxY = y; }
+    _indices[i] = i;
+  }
+
+  const float width  = maxX - minX;
+  const float height = maxY - minY;
+  const float size   = (width > height) ? width : height;
+
+  buildNode(addNodes(1), 0, _chargesCount, minX, minY, size, 0);
+
+  for (int i = 0; i < _chargesCount; i++) {
+    _positions[_indices[i]] = i;
+  }
+}
+
+void ScreenChargesQuadTree::accumulateForce(int node,
+                                            float x,
+                                            float y,
+                                            int excludedPosition,
+                                            float squaredThreshold) {
+  const int intsCursor = node * 3;
+  const int firstChild = _nodesInts[intsCursor];
+  const int from       = _nodesInts[intsCursor + 1];
+  const int to         = _nodesInts[intsCursor + 2];
+  if (from == to) {
+    return;
+  }
+
+  if (firstChild < 0) {
+    for (int i = from; i < to; i++) {
+      if (i != excludedPosition) {
+        const int index = _indices[i];
+        const float dx = x - _xs[index];
+        const float dy = y - _ys[index];
+        const float distance = IMathUtils::instance()->sqrt(dx*dx + dy*dy) + 0.001f;
+        const float strength = _charges[index] / (distance * distance * distance);
+        _forceX += dx * strength;
+        _forceY += dy * strength;
+      }
+    }
+    return;
+  }
+
+  // the excluded charge is part of the node total charge, so the nodes containing it are always opened
+  if ((excludedPosition < from) || (excludedPosition >= to)) {
+    const int floatsCursor = node * 4;
+    const float dx = x - _nodesFloats[floatsCursor];
+    const float dy = y - _nodesFloats[floatsCursor + 1];
+    const float squaredDistance = dx*dx + dy*dy;
+    const float size = _nodesFloats[floatsCursor + 3];
+    if ((size * size) < (squaredThreshold * squaredDistance)) {
+      const float distance = IMathUtils::instance()->sqrt(squaredDistance) + 0.001f;
+      const float strength = _nodesFloats[floatsCursor + 2] / (distance * distance * distance);
+      _forceX += dx * strength;
+      _forceY += dy * strength;
+      return;
+    }
+  }
+
+  for (int i = 0; i < 4; i++) {
+    accumulateForce(firstChild + i, x, y, excludedPosition, squaredThreshold);
+  }
+}
+
+void ScreenChargesQuadTree::computeForce(float x,
+                                         float y,
+                                         int excludedIndex,
+                                         float threshold) {
+  _forceX = 0;
+  _forceY = 0;
+  if (_nodesCount > 0) {
+    const int excludedPosition = (excludedIndex < 0) ? -1 : _positions[excludedIndex];
+    accumulateForce(0, x, y, excludedPosition, threshold * threshold);
+  }
+}
+
 NonOverlappingMarksRenderer::NonOverlappingMarksRenderer(size_t maxVisibleMarks,
-                                                         float viewportMargin):
+                                                         float viewportMargin,
+                                                         float forcesApproximationThreshold):
 _maxVisibleMarks(maxVisibleMarks),
 _viewportMargin(viewportMargin),
+_forcesApproximationThreshold(forcesApproximationThreshold),
+_marksCharges(NULL),
+_anchorsCharges(NULL),
 _lastPositionsUpdatedTime(0),
 _visibleMarksIDsBuilder( IStringBuilder::newStringBuilder() ),
 _visibleMarksIDs(""),
@@ -453,6 +707,9 @@ NonOverlappingMarksRenderer::~NonOverlappingMarksRenderer() {
   }
 
   delete _visibleMarksIDsBuilder;
+
+  delete _marksCharges;
+  delete _anchorsCharges;
 }
 
 void NonOverlappingMarksRenderer::removeAllListeners() {
@@ -518,6 +775,16 @@ void NonOverlappingMarksRenderer::computeForces(const Camera* camera, const Plan
   }
 
   //Compute Mark Forces
+  if (_forcesApproximationThreshold > 0) {
+    computeApproximatedForces();
+  }
+  else {
+    computeExactForces();
+  }
+}
+
+void NonOverlappingMarksRenderer::computeExactForces() {
+  const size_t visibleMarksSize = _visibleMarks.size();
   for (size_t i = 0; i < visibleMarksSize; i++) {
     NonOverlappingMark* mark = _visibleMarks[i];
     mark->applyHookesLaw();
@@ -534,6 +801,48 @@ void NonOverlappingMarksRenderer::computeForces(const Camera* camera, const Plan
   }
 }
 
+void NonOverlappingMarksRenderer::computeApproximatedForces() {
+  if (_marksCharges == NULL) {
+    _marksCharges   = new ScreenChargesQuadTree();
+    _anchorsCharges = new ScreenChargesQuadTree();
+  }
+
+  const int visibleMarksSize = (int) _visibleMarks.size();
+  _marksCharges->reset(visibleMarksSize);
+  _anchorsCharges->reset(visibleMarksSize);
+  for (int i = 0; i < visibleMarksSize; i++) {
+    const NonOverlappingMark* mark = _visibleMarks[i];
+    _marksCharges->setCharge(i,
+                             mark->getScreenX(),
+                             mark->getScreenY(),
+                             mark->getElectricCharge());
+    _anchorsCharges->setCharge(i,
+                               mark->getAnchorScreenX(),
+                               mark->getAnchorScreenY(),
+                               mark->getAnchorElectricCharge());
+  }
+  _marksCharges->build();
+  _anchorsCharges->build();
+
+  // same forces of applyCoulombsLaw() and applyCoulombsLawFromAnchor(), without the mark's own charge and anchor
+  for (int i = 0; i < visibleMarksSize; i++) {
+    NonOverlappingMark* mark = _visibleMarks[i];
+    mark->applyHookesLaw();
+
+    const float x = mark->getScreenX();
+    const float y = mark->getScreenY();
+    const float charge = mark->getElectricCharge();
+
+    _marksCharges->computeForce(x, y, i, _forcesApproximationThreshold);
+    mark->applyForce(_marksCharges->getForceX() * charge,
+                     _marksCharges->getForceY() * charge);
+
+    _anchorsCharges->computeForce(x, y, i, _forcesApproximationThreshold);
+    mark->applyForce(_anchorsCharges->getForceX() * charge,
+                     _anchorsCharges->getForceY() * charge);
+  }
+}
+
 void NonOverlappingMarksRenderer::renderMarks(const G3MRenderContext *rc,
                                               GLState *glState) {
   const size_t visibleMarksSize = _visibleMarks.size();
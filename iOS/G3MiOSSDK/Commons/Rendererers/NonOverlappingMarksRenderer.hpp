@@ -112,6 +112,9 @@ public:
     result.set(_x, _y);
   }
 
+  float getScreenX() const { return _x; }
+  float getScreenY() const { return _y; }
+
   void resetPosition();
 
   void onResizeViewportEvent(const G3MEventContext* ec,
@@ -187,6 +190,14 @@ public:
   Vector2F getScreenPos() const       { return _widget->getScreenPos(); }
   Vector2F getAnchorScreenPos() const { return _anchorWidget->getScreenPos(); }
 
+  float getScreenX() const       { return _widget->getScreenX(); }
+  float getScreenY() const       { return _widget->getScreenY(); }
+  float getAnchorScreenX() const { return _anchorWidget->getScreenX(); }
+  float getAnchorScreenY() const { return _anchorWidget->getScreenY(); }
+
+  float getElectricCharge() const       { return _electricCharge; }
+  float getAnchorElectricCharge() const { return _anchorElectricCharge; }
+
   void renderWidget(const G3MRenderContext* rc,
                     GLState* glState);
 
@@ -236,11 +247,90 @@ public:
 };
 
 
+/*
+ Barnes-Hut quadtree of electric charges in screen coordinates (primitive arrays, reused between frames).
+
+ The charges of a node far enough from the given position (node size / distance < threshold) are replaced by the
+ total charge of the node placed at its center of charge, so the forces over n charges cost O(n log n) instead of
+ O(n^2). A threshold of 0 visits every charge.
+ */
+class ScreenChargesQuadTree {
+private:
+  static const int LEAF_CAPACITY = 4;
+  static const int MAX_DEPTH     = 16;
+
+  int    _chargesCount;
+  int    _chargesCapacity;
+  float* _xs;
+  float* _ys;
+  float* _charges;
+  int*   _indices;   // charges indices, grouped by node
+  int*   _positions; // position of every charge in _indices
+
+  int    _nodesCount;
+  int    _nodesCapacity;
+  float* _nodesFloats; // 4 per node: center of charge x & y, total charge, size
+  int*   _nodesInts;   // 3 per node: first child (-1 for leaves), from & to (in _indices)
+
+  float _forceX;
+  float _forceY;
+
+  int addNodes(int count);
+
+  int partition(int from,
+                int to,
+                bool byX,
+                float value);
+
+  void buildNode(int node,
+                 int from,
+                 int to,
+                 float minX,
+                 float minY,
+                 float size,
+                 int depth);
+
+  void accumulateForce(int node,
+                       float x,
+                       float y,
+                       int excludedPosition,
+                       float squaredThreshold);
+
+public:
+  ScreenChargesQuadTree();
+
+  ~ScreenChargesQuadTree();
+
+  void reset(int chargesCount);
+
+  void setCharge(int index,
+                 float x,
+                 float y,
+                 float charge);
+
+  void build();
+
+  // the force (for an unit charge) at the given position, ignoring the charge excludedIndex (-1 for none)
+  void computeForce(float x,
+                    float y,
+                    int excludedIndex,
+                    float threshold);
+
+  float getForceX() const { return _forceX; }
+  float getForceY() const { return _forceY; }
+
+};
+
+
 class NonOverlappingMarksRenderer: public DefaultRenderer {
 private:
   const size_t _maxVisibleMarks;
   const float  _viewportMargin;
 
+  float _forcesApproximationThreshold;
+  ScreenChargesQuadTree* _marksCharges;
+  ScreenChargesQuadTree* _anchorsCharges;
+
   std::vector<NonOverlappingMark*> _marks;
 
   std::vector<NonOverlappingMark*> _visibleMarks;
@@ -257,13 +347,20 @@ private:
   long long _lastPositionsUpdatedTime;
 
   void computeForces(const Camera* camera, const Planet* planet);
+  void computeExactForces();
+  void computeApproximatedForces();
   void renderMarks(const G3MRenderContext* rc,
                    GLState* glState);
   void applyForces(long long now, const Camera* camera, ViewMode viewMode);
 
 public:
+  /*
+   forcesApproximationThreshold is the Barnes-Hut threshold (node size / distance) for the repulsion forces between
+   marks, bigger values are faster and less accurate. 0 computes the exact forces between all the pairs of marks.
+   */
   NonOverlappingMarksRenderer(size_t maxVisibleMarks,
-                              float viewportMargin = 5);
+                              float viewportMargin = 5,
+                              float forcesApproximationThreshold = 0.5f);
 
   ~NonOverlappingMarksRenderer();
 
@@ -292,6 +389,10 @@ public:
                              int height);
   
   void setTouchListener(NonOverlappingMarkTouchListener* touchListener);
+
+  void setForcesApproximationThreshold(float forcesApproximationThreshold) {
+    _forcesApproximationThreshold = forcesApproximationThreshold;
+  }
   
 };
 
@@ -241,7 +241,9 @@ _renderTileMeshes(renderTileMeshes),
 _logTilesPetitions(logTilesPetitions),
 _touchEventTypeOfTerrainTouchListener(touchEventTypeOfTerrainTouchListener),
 _tileLODTester(tileLODTester),
-_tileVisibilityTester(tileVisibilityTester)
+_tileVisibilityTester(tileVisibilityTester),
+_maxTessellationsInFlight(0),
+_tessellationsInFlight(0)
 {
   _context = NULL;
   _changedInfoListener = changedInfoListener;
@@ -236,6 +236,9 @@ private:
   std::vector<Tile*> _toVisit;
   std::vector<Tile*> _toVisitInNextIteration;
 
+  int         _maxTessellationsInFlight;
+  mutable int _tessellationsInFlight;
+
 public:
   PlanetRenderer(TileTessellator*             tessellator,
                  ElevationDataProvider*       elevationDataProvider,
@@ -415,6 +418,36 @@ public:
     return _renderTileMeshes;
   }
 
+  /**
+   Set the maximum number of tiles meshes created at the same time in background threads.
+
+   While the mesh of a tile is being created, its parent tile is rendered in its place.
+   Zero (the default) creates the meshes synchronously in the renderer thread.
+   */
+  void setMaxTessellationsInFlight(int maxTessellationsInFlight) {
+    _maxTessellationsInFlight = maxTessellationsInFlight;
+  }
+
+  int getMaxTessellationsInFlight() const {
+    return _maxTessellationsInFlight;
+  }
+
+  bool isAsynchronousTessellation() const {
+    return (_maxTessellationsInFlight > 0);
+  }
+
+  bool canStartTessellation() const {
+    return (_tessellationsInFlight < _maxTessellationsInFlight);
+  }
+
+  void onTessellationStarted() const {
+    _tessellationsInFlight++;
+  }
+
+  void onTessellationFinished() const {
+    _tessellationsInFlight--;
+  }
+
   void changedInfo(const std::vector<const Info*>& info) {
     if (_changedInfoListener != NULL) {
       _changedInfoListener->changedRendererInfo(_rendererID, info);
@@ -86,6 +86,11 @@ PointCloudsRenderer::PointCloud::~PointCloud() {
     _rootNode->_release();
   }
   delete _sector;
+
+  const size_t pendingCount = _pendingLevelRequestsNodes.size();
+  for (size_t i = 0; i < pendingCount; i++) {
+    _pendingLevelRequestsNodes[i]->_release();
+  }
 }
 
 void PointCloudsRenderer::PointCloud::errorDownloadingMetadata() {
@@ -430,10 +435,12 @@ void PointCloudsRenderer::PointCloud::render(const G3MRenderContext* rc,
       }
       _lastRenderedCount = renderedCount;
     }
+
+    flushLevelRequests(rc);
   }
 }
 
-long long PointCloudsRenderer::PointCloudNode::render(const PointCloud* pointCloud,
+long long PointCloudsRenderer::PointCloudNode::render(PointCloud* pointCloud,
                                                       const G3MRenderContext* rc,
                                                       GLState* glState,
                                                       const Frustum* frustum,
@@ -483,7 +490,7 @@ long long PointCloudsRenderer::PointCloudNode::render(const PointCloud* pointClo
   return 0;
 }
 
-long long PointCloudsRenderer::PointCloudInnerNode::rawRender(const PointCloud* pointCloud,
+long long PointCloudsRenderer::PointCloudInnerNode::rawRender(PointCloud* pointCloud,
                                                               const G3MRenderContext* rc,
                                                               GLState* glState,
                                                               const Frustum* frustum,
@@ -585,47 +592,144 @@ int PointCloudsRenderer::PointCloudLeafNode::calculateCurrentLoadedLevel() const
 }
 
 
-long long PointCloudsRenderer::PointCloud::requestBufferForLevel(const G3MRenderContext* rc,
-                                                                 const std::string& nodeID,
-                                                                 int level,
-                                                                 IBufferDownloadListener *listener,
-                                                                 bool deleteListener) const {
+void PointCloudsRenderer::PointCloud::requestBufferForLevel(PointCloudLeafNode* leafNode,
+                                                           int level) {
+  leafNode->_retain();
+  _pendingLevelRequestsNodes.push_back(leafNode);
+  _pendingLevelRequestsLevels.push_back(level);
+}
+
+void PointCloudsRenderer::PointCloud::flushLevelRequests(const G3MRenderContext* rc) {
+  const size_t pendingCount = _pendingLevelRequestsNodes.size();
+  if (pendingCount == 0) {
+    return;
+  }
+
+  IDownloader* downloader = rc->getDownloader();
 
   const std::string planetType = rc->getPlanet()->getType();
+  const std::string parameters = ("?planet=" + planetType +
+                                  "&verticalExaggeration=" + IStringUtils::instance()->toString(_verticalExaggeration) +
+                                  "&deltaHeight=" + IStringUtils::instance()->toString(_deltaHeight) +
+                                  "&format=quantized");
+
+  if (pendingCount == 1) {
+    // a lonely level is requested by its own url, so the downloader can cache it
+    PointCloudLeafNode* leafNode = _pendingLevelRequestsNodes[0];
+    const int level = _pendingLevelRequestsLevels[0];
+
+    const URL url(_serverURL,
+                  _cloudName +
+                  "/" + leafNode->_id +
+                  "/" + IStringUtils::instance()->toString(level) +
+                  parameters);
+
+    const long long requestID = downloader->requestBuffer(url,
+                                                          _downloadPriority - level,
+                                                          _timeToCache,
+                                                          _readExpired,
+                                                          new PointCloudLeafNodeLevelListener(leafNode,
+                                                                                              level,
+                                                                                              rc->getThreadUtils()),
+                                                          true);
+    leafNode->setLoadingLevelRequestID(requestID);
+  }
+  else {
+    const size_t maxBatchSize = 32;
+    for (size_t from = 0; from < pendingCount; from += maxBatchSize) {
+      const size_t to = (from + maxBatchSize < pendingCount) ? (from + maxBatchSize) : pendingCount;
+
+      PointCloudLeafNodesLevelsBatchListener* listener = new PointCloudLeafNodesLevelsBatchListener(rc->getThreadUtils());
+
+      IStringBuilder* isb = IStringBuilder::newStringBuilder();
+      int minLevel = _pendingLevelRequestsLevels[from];
+      for (size_t i = from; i < to; i++) {
+        PointCloudLeafNode* leafNode = _pendingLevelRequestsNodes[i];
+        const int level = _pendingLevelRequestsLevels[i];
+        if (i > from) {
+          isb->addString(",");
+        }
+        isb->addString(leafNode->_id);
+        isb->addString(":");
+        isb->addInt(level);
+        if (level < minLevel) {
+          minLevel = level;
+        }
+        listener->add(leafNode, level);
+        leafNode->setLoadingLevelBatch(listener);
+      }
+      const std::string levels = isb->getString();
+      delete isb;
+
+      const URL url(_serverURL,
+                    _cloudName +
+                    "/_batch" +
+                    parameters +
+                    "&levels=" + levels);
+
+      // a batch url is a one-off combination of levels, caching it would only fill the storage
+      const long long requestID = downloader->requestBuffer(url,
+                                                            _downloadPriority - minLevel,
+                                                            TimeInterval::zero(),
+                                                            false,
+                                                            listener,
+                                                            true);
+
+      for (size_t i = from; i < to; i++) {
+        _pendingLevelRequestsNodes[i]->setLoadingLevelRequestID(requestID);
+      }
+    }
+  }
 
-  const URL url(_serverURL,
-                _cloudName +
-                "/" + nodeID +
-                "/" + IStringUtils::instance()->toString(level) +
-                "?planet=" + planetType +
-                "&verticalExaggeration=" + IStringUtils::instance()->toString(_verticalExaggeration) +
-                "&deltaHeight=" + IStringUtils::instance()->toString(_deltaHeight) +
-                "&format=binary");
-
-  //  ILogger::instance()->logInfo("Downloading metadata for \"%s\"", _cloudName.c_str());
-
-  return rc->getDownloader()->requestBuffer(url,
-                                            _downloadPriority - level,
-                                            _timeToCache,
-                                            _readExpired,
-                                            listener,
-                                            deleteListener);
+  for (size_t i = 0; i < pendingCount; i++) {
+    _pendingLevelRequestsNodes[i]->_release();
+  }
+  _pendingLevelRequestsNodes.clear();
+  _pendingLevelRequestsLevels.clear();
 }
 
 
+int PointCloudsRenderer::PointCloudLeafNodeLevelParserTask::nextZigZagVarInt(ByteBufferIterator* it) {
+  int value = 0;
+  int shift = 0;
+  while (true) {
+    const int b = it->nextUInt8() & 0xFF;
+    value |= (b & 0x7F) << shift;
+    if ((b & 0x80) == 0) {
+      break;
+    }
+    shift += 7;
+  }
+  return ((value >> 1) & 0x7FFFFFFF) ^ -(value & 1);
+}
+
 void PointCloudsRenderer::PointCloudLeafNodeLevelParserTask::runInBackground(const G3MContext* context) {
+  // quantized format, see the server's QuantizedUtils
   ByteBufferIterator it(_buffer);
 
   const int pointsCount = it.nextInt32();
 
+  const float minX = it.nextFloat();
+  const float minY = it.nextFloat();
+  const float minZ = it.nextFloat();
+  const float scaleX = it.nextFloat();
+  const float scaleY = it.nextFloat();
+  const float scaleZ = it.nextFloat();
+
   _verticesBuffer = IFactory::instance()->createFloatBuffer( pointsCount * 3 );
-  for (int i = 0; i < pointsCount * 3; i++) {
-    _verticesBuffer->rawPut(i, it.nextFloat());
+  for (int i = 0; i < pointsCount; i++) {
+    const int i3 = i * 3;
+    _verticesBuffer->rawPut(i3    , minX + ((it.nextInt16() & 0xFFFF) * scaleX));
+    _verticesBuffer->rawPut(i3 + 1, minY + ((it.nextInt16() & 0xFFFF) * scaleY));
+    _verticesBuffer->rawPut(i3 + 2, minZ + ((it.nextInt16() & 0xFFFF) * scaleZ));
   }
 
+  const float heightsQuantum = it.nextFloat();
   _heightsBuffer = IFactory::instance()->createFloatBuffer( pointsCount );
+  int quantizedHeight = 0;
   for (int i = 0; i < pointsCount; i++) {
-    _heightsBuffer->rawPut(i, it.nextFloat());
+    quantizedHeight += nextZigZagVarInt(&it);
+    _heightsBuffer->rawPut(i, quantizedHeight * heightsQuantum);
   }
 
   if (it.hasNext()) {
@@ -660,6 +764,103 @@ void PointCloudsRenderer::PointCloudLeafNodeLevelListener::onCancel(const URL& u
   _leafNode->onLevelBufferCancel(_level);
 }
 
+PointCloudsRenderer::PointCloudLeafNodesLevelsBatchListener::~PointCloudLeafNodesLevelsBatchListener() {
+  const size_t size = _leafNodes.size();
+  for (size_t i = 0; i < size; i++) {
+    PointCloudLeafNode* leafNode = _leafNodes[i];
+    if (leafNode->isLoadingLevelBatch(this)) {
+      leafNode->setLoadingLevelBatch(NULL);
+    }
+    leafNode->_release();
+  }
+}
+
+void PointCloudsRenderer::PointCloudLeafNodesLevelsBatchListener::add(PointCloudLeafNode* leafNode,
+                                                                     int level) {
+  leafNode->_retain();
+  _leafNodes.push_back(leafNode);
+  _levels.push_back(level);
+  _canceled.push_back(false);
+}
+
+void PointCloudsRenderer::PointCloudLeafNodesLevelsBatchListener::cancel(PointCloudLeafNode* leafNode,
+                                                                        IDownloader* downloader,
+                                                                        long long requestID) {
+  const size_t size = _leafNodes.size();
+  for (size_t i = 0; i < size; i++) {
+    if ((_leafNodes[i] == leafNode) && !_canceled[i]) {
+      _canceled[i] = true;
+      _canceledCount++;
+      if ((_canceledCount == size) && (requestID >= 0)) {
+        downloader->cancelRequest(requestID);
+      }
+      return;
+    }
+  }
+}
+
+void PointCloudsRenderer::PointCloudLeafNodesLevelsBatchListener::onDownload(const URL& url,
+                                                                            IByteBuffer* buffer,
+                                                                            bool expired) {
+  // every level comes framed by its size in bytes, -1 for the levels not found by the server
+  ByteBufferIterator it(buffer);
+
+  const size_t size = _leafNodes.size();
+  for (size_t i = 0; i < size; i++) {
+    PointCloudLeafNode* leafNode = _leafNodes[i];
+    const int level = _levels[i];
+
+    // a node that canceled its level doesn't belong to the batch anymore, and can be loading a newer request
+    const bool loading = leafNode->isLoadingLevelBatch(this);
+
+    const int levelBufferSize = it.hasNext() ? it.nextInt32() : -1;
+    if (levelBufferSize < 0) {
+      if (loading) {
+        leafNode->onLevelBufferError(level);
+      }
+    }
+    else if (_canceled[i] || !loading) {
+      it.skip(levelBufferSize);
+    }
+    else {
+#ifdef C_CODE
+      unsigned char* data = new unsigned char[levelBufferSize];
+#endif
+#ifdef JAVA_CODE
+      byte[] data = new byte[levelBufferSize];
+#endif
+      it.nextUInt8(levelBufferSize, data);
+      leafNode->setLoadingLevelBatch(NULL);
+      _threadUtils->invokeAsyncTask(new PointCloudLeafNodeLevelParserTask(leafNode,
+                                                                          level,
+                                                                          IFactory::instance()->createByteBuffer(data, levelBufferSize)),
+                                    true);
+    }
+  }
+
+  delete buffer;
+}
+
+void PointCloudsRenderer::PointCloudLeafNodesLevelsBatchListener::onError(const URL& url) {
+  const size_t size = _leafNodes.size();
+  for (size_t i = 0; i < size; i++) {
+    PointCloudLeafNode* leafNode = _leafNodes[i];
+    if (leafNode->isLoadingLevelBatch(this)) {
+      leafNode->onLevelBufferError(_levels[i]);
+    }
+  }
+}
+
+void PointCloudsRenderer::PointCloudLeafNodesLevelsBatchListener::onCancel(const URL& url) {
+  const size_t size = _leafNodes.size();
+  for (size_t i = 0; i < size; i++) {
+    PointCloudLeafNode* leafNode = _leafNodes[i];
+    if (leafNode->isLoadingLevelBatch(this)) {
+      leafNode->onLevelBufferCancel(_levels[i]);
+    }
+  }
+}
+
 void PointCloudsRenderer::PointCloudLeafNode::onLevelBuffersDownload(int level,
                                                                      IFloatBuffer* verticesBuffer,
                                                                      IFloatBuffer* heightsBuffer) {
@@ -708,11 +909,26 @@ void PointCloudsRenderer::PointCloudLeafNode::onLevelBuffersDownload(int level,
 void PointCloudsRenderer::PointCloudLeafNode::onLevelBufferError(int level) {
   _loadingLevel = -1;
   _loadingLevelRequestID = -1;
+  _loadingLevelBatch = NULL;
 }
 
 void PointCloudsRenderer::PointCloudLeafNode::onLevelBufferCancel(int level) {
   _loadingLevel = -1;
   _loadingLevelRequestID = -1;
+  _loadingLevelBatch = NULL;
+}
+
+void PointCloudsRenderer::PointCloudLeafNode::cancelLoadingLevel(IDownloader* downloader) {
+  if (_loadingLevelBatch == NULL) {
+    downloader->cancelRequest(_loadingLevelRequestID);
+  }
+  else {
+    _loadingLevelBatch->cancel(this, downloader, _loadingLevelRequestID);
+    _loadingLevelBatch = NULL;
+    // the batch doesn't report to the nodes that left it
+    _loadingLevel = -1;
+  }
+  _loadingLevelRequestID = -1;
 }
 
 DirectMesh* PointCloudsRenderer::PointCloudLeafNode::createMesh(double minHeight,
@@ -832,7 +1048,7 @@ DirectMesh* PointCloudsRenderer::PointCloudLeafNode::createMesh(double minHeight
 }
 
 
-long long PointCloudsRenderer::PointCloudLeafNode::rawRender(const PointCloud* pointCloud,
+long long PointCloudsRenderer::PointCloudLeafNode::rawRender(PointCloud* pointCloud,
                                                              const G3MRenderContext* rc,
                                                              GLState* glState,
                                                              const Frustum* frustum,
@@ -878,21 +1094,14 @@ long long PointCloudsRenderer::PointCloudLeafNode::rawRender(const PointCloud* p
   if ((_loadingLevel >= 0) &&
       (_neededLevel < _loadingLevel) &&
       (_loadingLevelRequestID >= 0)) {
-    rc->getDownloader()->cancelRequest(_loadingLevelRequestID);
-    _loadingLevelRequestID = -1;
+    cancelLoadingLevel(rc->getDownloader());
   }
   else {
     if (_neededLevel > _currentLoadedLevel) {
       if (_loadingLevel < 0) {
         _loadingLevel = _currentLoadedLevel + 1;
 
-        _loadingLevelRequestID = pointCloud->requestBufferForLevel(rc,
-                                                                   _id,
-                                                                   _loadingLevel,
-                                                                   new PointCloudLeafNodeLevelListener(this,
-                                                                                                       _loadingLevel,
-                                                                                                       rc->getThreadUtils()),
-                                                                   true);
+        pointCloud->requestBufferForLevel(this, _loadingLevel);
       }
     }
     if ((_neededLevel < _currentLoadedLevel) &&
@@ -924,8 +1133,7 @@ long long PointCloudsRenderer::PointCloudLeafNode::rawRender(const PointCloud* p
 void PointCloudsRenderer::PointCloudLeafNode::stoppedRendering(const G3MRenderContext* rc) {
   if (_loadingLevelRequestID >= 0) {
 //    ILogger::instance()->logInfo("Canceling level request");
-    rc->getDownloader()->cancelRequest(_loadingLevelRequestID);
-    _loadingLevelRequestID = -1;
+    cancelLoadingLevel(rc->getDownloader());
   }
 
   delete _mesh;
@@ -937,8 +1145,7 @@ void PointCloudsRenderer::PointCloudLeafNode::stoppedRendering(const G3MRenderCo
   if (_currentLoadedLevel > _preloadedLevel) {
     _loadingLevel = -1;
     if (_loadingLevelRequestID >= 0) {
-      rc->getDownloader()->cancelRequest(_loadingLevelRequestID);
-      _loadingLevelRequestID = -1;
+      cancelLoadingLevel(rc->getDownloader());
     }
 
     for (int i = 0; i < _levelsCount; i++) {
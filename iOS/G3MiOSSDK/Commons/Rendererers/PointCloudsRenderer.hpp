@@ -67,7 +67,7 @@ private:
     {
     }
 
-    virtual long long rawRender(const PointCloud* pointCloud,
+    virtual long long rawRender(PointCloud* pointCloud,
                                 const G3MRenderContext* rc,
                                 GLState* glState,
                                 const Frustum* frustum,
@@ -92,7 +92,7 @@ private:
     virtual long long getPointsCount() = 0;
     virtual const Vector3D getAverage() = 0;
 
-    long long render(const PointCloud* pointCloud,
+    long long render(PointCloud* pointCloud,
                      const G3MRenderContext* rc,
                      GLState* glState,
                      const Frustum* frustum,
@@ -125,7 +125,7 @@ private:
     Mesh* _mesh;
 
   protected:
-    long long rawRender(const PointCloud* pointCloud,
+    long long rawRender(PointCloud* pointCloud,
                         const G3MRenderContext* rc,
                         GLState* glState,
                         const Frustum* frustum,
@@ -196,6 +196,8 @@ private:
     IFloatBuffer* _verticesBuffer;
     IFloatBuffer* _heightsBuffer;
 
+    static int nextZigZagVarInt(ByteBufferIterator* it);
+
   public:
     PointCloudLeafNodeLevelParserTask(PointCloudLeafNode* leafNode,
                                       int level,
@@ -264,6 +266,49 @@ private:
   };
   
   
+  class PointCloudLeafNodesLevelsBatchListener : public IBufferDownloadListener {
+  private:
+    std::vector<PointCloudLeafNode*> _leafNodes;
+    std::vector<int>                 _levels;
+    std::vector<bool>                _canceled;
+    size_t                           _canceledCount;
+
+    const IThreadUtils* _threadUtils;
+
+  public:
+    PointCloudLeafNodesLevelsBatchListener(const IThreadUtils* threadUtils) :
+    _threadUtils(threadUtils),
+    _canceledCount(0)
+    {
+    }
+
+    ~PointCloudLeafNodesLevelsBatchListener();
+
+    void add(PointCloudLeafNode* leafNode,
+             int level);
+
+    // the download is shared by all the nodes of the batch, it's canceled only when every node has canceled its level
+    void cancel(PointCloudLeafNode* leafNode,
+                IDownloader* downloader,
+                long long requestID);
+
+    void onDownload(const URL& url,
+                    IByteBuffer* buffer,
+                    bool expired);
+
+    void onError(const URL& url);
+
+    void onCancel(const URL& url);
+
+    void onCanceledDownload(const URL& url,
+                            IByteBuffer* buffer,
+                            bool expired) {
+      // do nothing
+    }
+
+  };
+
+
   class PointCloudLeafNode : public PointCloudNode {
   private:
     const int  _levelsCount;
@@ -291,6 +336,9 @@ private:
     int calculateCurrentLoadedLevel() const;
 
     long long _loadingLevelRequestID;
+    PointCloudLeafNodesLevelsBatchListener* _loadingLevelBatch;
+
+    void cancelLoadingLevel(IDownloader* downloader);
 
     IFloatBuffer** _levelsVerticesBuffers;
     IFloatBuffer** _levelsHeightsBuffers;
@@ -300,7 +348,7 @@ private:
                            float pointSize);
 
   protected:
-    long long rawRender(const PointCloud* pointCloud,
+    long long rawRender(PointCloud* pointCloud,
                         const G3MRenderContext* rc,
                         GLState* glState,
                         const Frustum* frustum,
@@ -335,7 +383,8 @@ private:
     _neededPoints(0),
     _firstPointsColorsBuffer(NULL),
     _loadingLevel(-1),
-    _loadingLevelRequestID(-1)
+    _loadingLevelRequestID(-1),
+    _loadingLevelBatch(NULL)
     {
       _currentLoadedLevel = calculateCurrentLoadedLevel();
       _preloadedLevel = _currentLoadedLevel;
@@ -367,6 +416,7 @@ private:
       _firstPointsColorsBuffer = null;
       _loadingLevel = -1;
       _loadingLevelRequestID = -1;
+      _loadingLevelBatch = null;
       _currentLoadedLevel = calculateCurrentLoadedLevel();
       _preloadedLevel = _currentLoadedLevel;
       _levelsVerticesBuffers = new IFloatBuffer[_levelsCount];
@@ -405,6 +455,18 @@ private:
     void onLevelBufferError(int level);
     void onLevelBufferCancel(int level);
 
+    void setLoadingLevelRequestID(long long requestID) {
+      _loadingLevelRequestID = requestID;
+    }
+
+    void setLoadingLevelBatch(PointCloudLeafNodesLevelsBatchListener* batch) {
+      _loadingLevelBatch = batch;
+    }
+
+    bool isLoadingLevelBatch(const PointCloudLeafNodesLevelsBatchListener* batch) const {
+      return (_loadingLevelBatch == batch);
+    }
+
   };
 
 
@@ -507,6 +569,12 @@ private:
 
     long long _lastRenderedCount;
 
+    // level requests issued while rendering a frame, sent together by flushLevelRequests()
+    std::vector<PointCloudLeafNode*> _pendingLevelRequestsNodes;
+    std::vector<int>                 _pendingLevelRequestsLevels;
+
+    void flushLevelRequests(const G3MRenderContext* rc);
+
   public:
     PointCloud(const URL& serverURL,
                const std::string& cloudName,
@@ -569,11 +637,8 @@ private:
                 const Frustum* frustum,
                 long long nowInMS);
 
-    long long requestBufferForLevel(const G3MRenderContext* rc,
-                                    const std::string& nodeID,
-                                    int level,
-                                    IBufferDownloadListener *listener,
-                                    bool deleteListener) const;
+    void requestBufferForLevel(PointCloudLeafNode* leafNode,
+                               int level);
 
   };
 
@@ -10,6 +10,8 @@
 
 #include "IStringBuilder.hpp"
 
+#include <string.h>
+
 const std::string ByteBuffer_iOS::description() const {
   IStringBuilder* isb = IStringBuilder::newStringBuilder();
   isb->addString("(ByteBuffer_iOS: size=");
@@ -33,3 +35,114 @@ const std::string ByteBuffer_iOS::description() const {
 const std::string ByteBuffer_iOS::getAsString() const {
   return std::string(_values, _values + _size);
 }
+
+const std::string ByteBuffer_iOS::getAsString(size_t i,
+                                              size_t length) const {
+  if (i + length > _size) {
+    THROW_EXCEPTION("Buffer Overflow");
+  }
+
+  return std::string(_values + i, _values + i + length);
+}
+
+// iOS devices are little endian, the values are copied straight from the memory
+
+short ByteBuffer_iOS::getInt16(size_t i) const {
+  if (i + 2 > _size) {
+    THROW_EXCEPTION("Buffer Overflow");
+  }
+
+  short result;
+  memcpy(&result, _values + i, 2);
+  return result;
+}
+
+int ByteBuffer_iOS::getInt32(size_t i) const {
+  if (i + 4 > _size) {
+    THROW_EXCEPTION("Buffer Overflow");
+  }
+
+  int result;
+  memcpy(&result, _values + i, 4);
+  return result;
+}
+
+long long ByteBuffer_iOS::getInt64(size_t i) const {
+  if (i + 8 > _size) {
+    THROW_EXCEPTION("Buffer Overflow");
+  }
+
+  long long result;
+  memcpy(&result, _values + i, 8);
+  return result;
+}
+
+float ByteBuffer_iOS::getFloat(size_t i) const {
+  if (i + 4 > _size) {
+    THROW_EXCEPTION("Buffer Overflow");
+  }
+
+  float result;
+  memcpy(&result, _values + i, 4);
+  return result;
+}
+
+double ByteBuffer_iOS::getDouble(size_t i) const {
+  if (i + 8 > _size) {
+    THROW_EXCEPTION("Buffer Overflow");
+  }
+
+  double result;
+  memcpy(&result, _values + i, 8);
+  return result;
+}
+
+void ByteBuffer_iOS::getUInt8s(size_t i,
+                               int count,
+                               unsigned char* dst) const {
+  if (i + count > _size) {
+    THROW_EXCEPTION("Buffer Overflow");
+  }
+
+  memcpy(dst, _values + i, count);
+}
+
+void ByteBuffer_iOS::getInt16s(size_t i,
+                               int count,
+                               short* dst) const {
+  if (i + (count * 2) > _size) {
+    THROW_EXCEPTION("Buffer Overflow");
+  }
+
+  memcpy(dst, _values + i, count * 2);
+}
+
+void ByteBuffer_iOS::getInt32s(size_t i,
+                               int count,
+                               int* dst) const {
+  if (i + (count * 4) > _size) {
+    THROW_EXCEPTION("Buffer Overflow");
+  }
+
+  memcpy(dst, _values + i, count * 4);
+}
+
+void ByteBuffer_iOS::getFloats(size_t i,
+                               int count,
+                               float* dst) const {
+  if (i + (count * 4) > _size) {
+    THROW_EXCEPTION("Buffer Overflow");
+  }
+
+  memcpy(dst, _values + i, count * 4);
+}
+
+int ByteBuffer_iOS::indexOf(size_t i,
+                            unsigned char value) const {
+  if (i >= _size) {
+    return -1;
+  }
+
+  const unsigned char* found = (const unsigned char*) memchr(_values + i, value, _size - i);
+  return (found == NULL) ? -1 : (int) (found - _values);
+}
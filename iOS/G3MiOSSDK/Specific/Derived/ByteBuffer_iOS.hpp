@@ -92,7 +92,22 @@ public:
 #endif
 
   const std::string getAsString() const;
-  
+
+  short     getInt16(size_t i) const;
+  int       getInt32(size_t i) const;
+  long long getInt64(size_t i) const;
+  float     getFloat(size_t i) const;
+  double    getDouble(size_t i) const;
+
+  void getUInt8s(size_t i, int count, unsigned char* dst) const;
+  void getInt16s(size_t i, int count, short* dst) const;
+  void getInt32s(size_t i, int count, int* dst) const;
+  void getFloats(size_t i, int count, float* dst) const;
+
+  int indexOf(size_t i, unsigned char value) const;
+
+  const std::string getAsString(size_t i, size_t length) const;
+
 };
 
 #endif
@@ -231,7 +231,8 @@ long long Downloader_iOS::request(const URL &url,
                                                                                                             withString:@"+"]];
 
   if (!nsURL) {
-    [iosListener onErrorURL:url];
+    [iosListener onErrorURL:url
+                 statusCode:0];
     return -1;
   }
 
@@ -293,7 +293,8 @@
         for (int i = 0; i < listenersCount; i++) {
           ListenerEntry* entry = [self->_listeners objectAtIndex: i];
 
-          [entry.listener onErrorURL: url];
+          [entry.listener onErrorURL: url
+                      statusCode: (int) statusCode];
         }
       }
       
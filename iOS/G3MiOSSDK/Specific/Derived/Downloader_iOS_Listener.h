@@ -30,7 +30,8 @@
 -(void) onDownloadURL:(const URL&) url
                  data:(NSData*) data;
 
--(void) onErrorURL:(const URL&) url;
+-(void) onErrorURL:(const URL&) url
+        statusCode:(int) statusCode;
 
 -(void) onCancel:(const URL&) url;
 
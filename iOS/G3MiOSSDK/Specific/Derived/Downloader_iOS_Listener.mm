@@ -67,13 +67,14 @@
 }
 
 -(void) onErrorURL:(const URL&)url
+        statusCode:(int)statusCode
 {
   if (_cppBufferListener) {
-    _cppBufferListener->onError(url);
+    _cppBufferListener->onErrorWithStatusCode(url, statusCode);
   }
 
   if (_cppImageListener) {
-    _cppImageListener->onError(url);
+    _cppImageListener->onErrorWithStatusCode(url, statusCode);
   }
 }
 
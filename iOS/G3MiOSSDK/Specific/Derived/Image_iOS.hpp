@@ -79,6 +79,8 @@ public:
   void getPixel(int x, int y,
                 MutableColor255& pixel) const;
 
+  void getPixels(int argb[]) const;
+
 
 };
 
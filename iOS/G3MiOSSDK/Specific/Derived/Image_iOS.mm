@@ -82,3 +82,32 @@ void Image_iOS::getPixel(int x, int y,
   pixel._blue  = _rawData[byteIndex + 2];
   pixel._alpha = _rawData[byteIndex + 3];
 }
+
+void Image_iOS::getPixels(int argb[]) const {
+  if (_image == NULL) {
+    return;
+  }
+
+  if (_rawData == NULL) {
+    _rawData = createByteArrayRGBA8888();
+  }
+
+  const int width  = getWidth();
+  const int height = getHeight();
+
+  const int bytesPerPixel = 4;
+  const int bytesPerRow   = bytesPerPixel * width;
+
+  // rows in the same order than getPixel()
+  int index = 0;
+  for (int y = 0; y < height; y++) {
+    const unsigned char* rawPixel = _rawData + (bytesPerRow * (height-1-y));
+    for (int x = 0; x < width; x++) {
+      argb[index++] = (int) (((unsigned int) rawPixel[3] << 24) |
+                             ((unsigned int) rawPixel[0] << 16) |
+                             ((unsigned int) rawPixel[1] <<  8) |
+                             ((unsigned int) rawPixel[2]      ));
+      rawPixel += bytesPerPixel;
+    }
+  }
+}
@@ -235,6 +235,7 @@ IImageResult SQLiteStorage_iOS::readImage(const URL& url,
 
   IImage* image = NULL;
   bool expired = false;
+  long long timeToExpire = -1;
 
   //  double parsedTime = 0;
 
@@ -246,6 +247,7 @@ IImageResult SQLiteStorage_iOS::readImage(const URL& url,
     NSDate* expiration = [NSDate dateWithTimeIntervalSince1970:expirationInterval];
 
     expired = ( [expiration compare:[NSDate date]] != NSOrderedDescending );
+    timeToExpire = expired ? 0 : (long long) ([expiration timeIntervalSinceNow] * 1000);
 
     if (readExpired || !expired) {
       //      NSDate* startParse = [NSDate date];
@@ -268,7 +270,7 @@ IImageResult SQLiteStorage_iOS::readImage(const URL& url,
   //        ([startAll timeIntervalSinceNow] * -1000.0),
   //        parsedTime);
 
-  return IImageResult(image, expired);
+  return IImageResult(image, expired, timeToExpire);
   //  }
 }
 
@@ -278,6 +280,7 @@ IByteBufferResult SQLiteStorage_iOS::readBuffer(const URL& url,
   //  @autoreleasepool {
   IByteBuffer* buffer = NULL;
   bool expired = false;
+  long long timeToExpire = -1;
 
   NSString* name = [NSString stringWithCppString: url._path];
   SQResultSet* rs = [_readDB executeQuery:@"SELECT contents, expiration FROM buffer2 WHERE (name = ?)", name];
@@ -287,6 +290,7 @@ IByteBufferResult SQLiteStorage_iOS::readBuffer(const URL& url,
     NSDate* expiration = [NSDate dateWithTimeIntervalSince1970:expirationInterval];
 
     expired = [expiration compare:[NSDate date]] != NSOrderedDescending;
+    timeToExpire = expired ? 0 : (long long) ([expiration timeIntervalSinceNow] * 1000);
 
     if (readExpired || !expired) {
       NSUInteger length = [nsData length];
@@ -300,7 +304,7 @@ IByteBufferResult SQLiteStorage_iOS::readBuffer(const URL& url,
 
   [rs close];
 
-  return IByteBufferResult(buffer, expired);
+  return IByteBufferResult(buffer, expired, timeToExpire);
   //  }
 }
 
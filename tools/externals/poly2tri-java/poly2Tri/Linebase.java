@@ -46,12 +46,13 @@ public class Linebase
    }
 
 
-   public Linebase(final Pointbase ep1,
+   public Linebase(final int id,
+                   final Pointbase ep1,
                    final Pointbase ep2,
                    final int iType) {
       _endp[0] = ep1;
       _endp[1] = ep2;
-      _id = ++Poly2TriUtils.l_id;
+      _id = id;
       _type = iType;
    }
 
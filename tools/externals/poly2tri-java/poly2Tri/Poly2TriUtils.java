@@ -78,13 +78,4 @@ public class Poly2TriUtils {
       return detleft - detright;
    }
 
-   public static int l_id = 0; // changed to INT ... because of hash maps
-   public static int p_id = 0; // changed to INT ... because of hash maps
-
-
-   public static void initPoly2TriUtils() {
-      l_id = 0;
-      p_id = 0;
-   }
-
 }
@@ -111,6 +111,11 @@ public class Polygon {
     */
    private String                           _debugFileName   = "polygon_triangulation_log.txt";
 
+   /**
+    * Ids of the lines (edges and diagonals), per polygon so polygons can be triangulated concurrently.
+    */
+   private int                              _linesCounter    = 0;
+
 
    public HashMap<Integer, Pointbase> points() {
       return _points;
@@ -157,17 +162,16 @@ public class Polygon {
 
       while (i < _ncontours) {
          for (; (j + 1) <= _nVertices[i]; ++j) {
-            edge = new Linebase(_points.get(j), _points.get(j + 1), Poly2TriUtils.INPUT);
-            _edges.put(Poly2TriUtils.l_id, edge);
+            edge = new Linebase(++_linesCounter, _points.get(j), _points.get(j + 1), Poly2TriUtils.INPUT);
+            _edges.put(edge.id(), edge);
          }
-         edge = new Linebase(_points.get(j), _points.get(first), Poly2TriUtils.INPUT);
-         _edges.put(Poly2TriUtils.l_id, edge);
+         edge = new Linebase(++_linesCounter, _points.get(j), _points.get(first), Poly2TriUtils.INPUT);
+         _edges.put(edge.id(), edge);
 
          j = _nVertices[i] + 1;
          first = _nVertices[i] + 1;
          ++i;
       }
-      Poly2TriUtils.p_id = _nVertices[_ncontours - 1];
    }
 
 
@@ -189,7 +193,6 @@ public class Polygon {
    Polygon(final int numContures,
            final int[] numVerticesInContures,
            final double[][] vertices) {
-      Poly2TriUtils.initPoly2TriUtils();
       initPolygon(numContures, numVerticesInContures, vertices);
       initializate();
       _debug = false;
@@ -397,7 +400,7 @@ public class Polygon {
                             final int j) {
       final int type = Poly2TriUtils.INSERT;
 
-      final Linebase diag = new Linebase(getPoint(i), getPoint(j), type);
+      final Linebase diag = new Linebase(++_linesCounter, getPoint(i), getPoint(j), type);
       _edges.put(diag.id(), diag);
 
       getSetFromStartAdjEdgeMap(i).add(diag.id());
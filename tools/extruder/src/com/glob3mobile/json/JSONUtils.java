@@ -56,24 +56,28 @@ public class JSONUtils {
    }
 
 
-   private static final DecimalFormat DF = new DecimalFormat("0");
+   // DecimalFormat is not thread-safe, one per thread avoids serializing the threads generating JSON
+   private static final ThreadLocal<DecimalFormat> DF = new ThreadLocal<DecimalFormat>() {
+                                                          @Override
+                                                          protected DecimalFormat initialValue() {
+                                                             return new DecimalFormat("0");
+                                                          }
+                                                       };
 
 
    public static String toJSON(final float value,
                                final int floatPrecision) {
-      synchronized (DF) {
-         DF.setMaximumFractionDigits(floatPrecision);
-         return DF.format(value);
-      }
+      final DecimalFormat df = DF.get();
+      df.setMaximumFractionDigits(floatPrecision);
+      return df.format(value);
    }
 
 
    public static String toJSON(final double value,
                                final int floatPrecision) {
-      synchronized (DF) {
-         DF.setMaximumFractionDigits(floatPrecision);
-         return DF.format(value);
-      }
+      final DecimalFormat df = DF.get();
+      df.setMaximumFractionDigits(floatPrecision);
+      return df.format(value);
    }
 
 
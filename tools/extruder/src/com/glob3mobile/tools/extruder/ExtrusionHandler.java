@@ -4,7 +4,7 @@ package com.glob3mobile.tools.extruder;
 
 import java.util.List;
 
-import com.glob3mobile.tools.mesh.G3MeshCollection;
+import com.glob3mobile.tools.mesh.G3Mesh;
 import com.glob3mobile.tools.mesh.G3MeshMaterial;
 
 
@@ -26,13 +26,15 @@ public interface ExtrusionHandler<T1, T2> {
                          T2 source2);
 
 
-   void onBuildings(List<Building> buildings);
+   // the buildings and meshes are informed one by one, in the order of their polygons and always from the same thread
+
+   void onBuilding(Building building);
 
 
    void onPolygons(List<ExtruderPolygon> polygons);
 
 
-   void onMeshCollection(G3MeshCollection meshes);
+   void onMesh(G3Mesh mesh);
 
 
 }
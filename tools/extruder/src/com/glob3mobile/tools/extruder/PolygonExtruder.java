@@ -3,7 +3,6 @@
 package com.glob3mobile.tools.extruder;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
@@ -15,6 +14,11 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.glob3.mobile.generated.Angle;
 import org.glob3.mobile.generated.GEO2DMultiPolygonGeometry;
@@ -31,9 +35,10 @@ import org.glob3.mobile.generated.Geodetic2D;
 import org.glob3.mobile.generated.Geodetic3D;
 import org.glob3.mobile.generated.Planet;
 
-import com.glob3mobile.json.JSONUtils;
 import com.glob3mobile.tools.mesh.G3Mesh;
-import com.glob3mobile.tools.mesh.G3MeshCollection;
+import com.glob3mobile.tools.mesh.G3MeshCollectionBinaryWriter;
+import com.glob3mobile.tools.mesh.G3MeshCollectionJSONWriter;
+import com.glob3mobile.tools.mesh.G3MeshCollectionWriter;
 import com.glob3mobile.tools.mesh.G3MeshMaterial;
 
 
@@ -50,6 +55,7 @@ public class PolygonExtruder {
    }
 
 
+   // thread-safe, the polygons are triangulated concurrently
    public static class Statistics {
       private long                       _triangulatedCounter;
       private long                       _allTrianglesCounter;
@@ -64,20 +70,20 @@ public class PolygonExtruder {
       }
 
 
-      public void countTriangulation(final int trianglesCount) {
+      public synchronized void countTriangulation(final int trianglesCount) {
          _triangulatedCounter++;
          _allTrianglesCounter += trianglesCount;
       }
 
 
-      public void countTriangulationError(final ErrorType errorType) {
+      public synchronized void countTriangulationError(final ErrorType errorType) {
          _errorsCounter++;
 
          _errorsCounterByType.put(errorType, _errorsCounterByType.get(errorType) + 1L);
       }
 
 
-      public void printStatistics() {
+      public synchronized void printStatistics() {
          logInfo("=========================================================================");
 
          final long processedCounter = _triangulatedCounter + _errorsCounter;
@@ -101,9 +107,6 @@ public class PolygonExtruder {
    }
 
 
-   private static int _polygonsCounter = 0;
-
-
    private static void logInfo(final String str) {
       System.out.println("- " + str);
    }
@@ -458,17 +461,6 @@ public class PolygonExtruder {
    }
 
 
-   private static List<Building> getBuildings(final List<ExtruderPolygon> polygons,
-                                              final boolean verbose) {
-      final Statistics statistics = new Statistics();
-      final List<Building> buildings = getBuildings(polygons, statistics);
-      if (verbose) {
-         statistics.printStatistics();
-      }
-      return buildings;
-   }
-
-
    private static List<ExtruderPolygon> getPolygons(final GEOObject geoObject,
                                                     final ExtrusionHandler<GEOFeature, Void> handler,
                                                     final boolean verbose) {
@@ -481,71 +473,134 @@ public class PolygonExtruder {
    }
 
 
-   private static List<Building> getBuildings(final Collection<ExtruderPolygon> extruderPolygons,
-                                              final Statistics statistics) {
-      final List<Building> result = new ArrayList<>(extruderPolygons.size());
-      for (final ExtruderPolygon extruderPolygon : extruderPolygons) {
-         _polygonsCounter++;
-         final Building building = extruderPolygon.createBuilding(statistics, _polygonsCounter);
-         if (building != null) {
-            result.add(building);
-         }
+   private static class ExtrudedPolygon<EncodedT> {
+      private final Building _building;
+      private final G3Mesh   _mesh;
+      private final EncodedT _encodedMesh;
+
+
+      private ExtrudedPolygon(final Building building,
+                              final G3Mesh mesh,
+                              final EncodedT encodedMesh) {
+         _building = building;
+         _mesh = mesh;
+         _encodedMesh = encodedMesh;
       }
-      return result;
    }
 
 
-   private static void writeMeshCollectionJSON(final String fileName,
-                                               final G3MeshCollection meshes,
-                                               final int floatPrecision) throws IOException {
-      logInfo("Saving meshes...");
-      final long now = System.currentTimeMillis();
-
-      //final String json = JSONGenerator.generate(meshes.toJSON(), floatPrecision);
-      final String json = JSONUtils.toJSON(meshes.toJSON(), floatPrecision);
+   private static interface ExtrudedPolygonConsumer<EncodedT> {
+      void consume(ExtrudedPolygon<EncodedT> extruded) throws IOException;
+   }
 
-      try (final PrintWriter out = new PrintWriter(fileName)) {
-         out.println(json);
-      }
 
-      final long elapsed = System.currentTimeMillis() - now;
-      logInfo("done! (" + elapsed + "ms)");
-   }
+   private static class Meshing<EncodedT> {
+      private final boolean                          _createNormals;
+      private final Planet                           _planet;
+      private final float                            _verticalExaggeration;
+      private final double                           _deltaHeight;
+      private final int                              _floatPrecision;
+      private final G3MeshCollectionWriter<EncodedT> _writer;
 
 
-   private static G3MeshCollection getMeshCollection(final boolean createNormals,
-                                                     final Planet planet,
-                                                     final float verticalExaggeration,
-                                                     final double deltaHeight,
-                                                     final int floatPrecision,
-                                                     final List<Building> buildings) {
-      logInfo("Starting meshing...");
-      final long now = System.currentTimeMillis();
+      private Meshing(final boolean createNormals,
+                      final Planet planet,
+                      final float verticalExaggeration,
+                      final double deltaHeight,
+                      final int floatPrecision,
+                      final G3MeshCollectionWriter<EncodedT> writer) {
+         _createNormals = createNormals;
+         _planet = planet;
+         _verticalExaggeration = verticalExaggeration;
+         _deltaHeight = deltaHeight;
+         _floatPrecision = floatPrecision;
+         _writer = writer;
+      }
+   }
 
-      final List<G3Mesh> meshes = getMeshes(createNormals, planet, verticalExaggeration, deltaHeight, floatPrecision, buildings);
-      final G3MeshCollection result = new G3MeshCollection(meshes);
 
-      final long elapsed = System.currentTimeMillis() - now;
-      logInfo("done! (" + elapsed + "ms)");
+   private static <EncodedT> ExtrudedPolygon<EncodedT> extrude(final ExtruderPolygon polygon,
+                                                               final long id,
+                                                               final Statistics statistics,
+                                                               final Meshing<EncodedT> meshing) {
+      final Building building = polygon.createBuilding(statistics, id);
+      if (building == null) {
+         return null;
+      }
+      if (meshing == null) {
+         return new ExtrudedPolygon<>(building, null, null);
+      }
+
+      final G3Mesh mesh = building.createMesh(meshing._createNormals, meshing._planet, meshing._verticalExaggeration,
+               meshing._deltaHeight, meshing._floatPrecision);
+      if (mesh == null) {
+         return new ExtrudedPolygon<>(building, null, null);
+      }
+      // the mesh is encoded (JSON or binary) by the workers too, the consumer just writes it
+      final EncodedT encodedMesh = meshing._writer.encode(mesh);
+      return new ExtrudedPolygon<>(building, mesh, encodedMesh);
+   }
+
+
+   /*
+    * Triangulates (and meshes, if meshing is not null) the polygons in a pool of threadsCount threads.
+    *
+    * The results are given to the consumer (always from the calling thread) in the order of the polygons, and just a few
+    * of them are pending at any time, so they don't need to be kept in memory.
+    */
+   private static <EncodedT> void extrude(final Collection<ExtruderPolygon> polygons,
+                                          final Statistics statistics,
+                                          final Meshing<EncodedT> meshing,
+                                          final int threadsCount,
+                                          final ExtrudedPolygonConsumer<EncodedT> consumer) throws IOException {
+      final int maxPending = threadsCount * 16;
+
+      final ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+      try {
+         final LinkedList<Future<ExtrudedPolygon<EncodedT>>> pending = new LinkedList<>();
+         long polygonsCounter = 0;
+         for (final ExtruderPolygon polygon : polygons) {
+            polygonsCounter++;
+            final long id = polygonsCounter;
+            pending.addLast(executor.submit(new Callable<ExtrudedPolygon<EncodedT>>() {
+               @Override
+               public ExtrudedPolygon<EncodedT> call() {
+                  return extrude(polygon, id, statistics, meshing);
+               }
+            }));
+
+            if (pending.size() >= maxPending) {
+               consume(pending.removeFirst(), consumer);
+            }
+         }
 
-      return result;
+         while (!pending.isEmpty()) {
+            consume(pending.removeFirst(), consumer);
+         }
+      }
+      finally {
+         executor.shutdownNow();
+      }
    }
 
 
-   private static List<G3Mesh> getMeshes(final boolean createNormals,
-                                         final Planet planet,
-                                         final float verticalExaggeration,
-                                         final double deltaHeight,
-                                         final int floatPrecision,
-                                         final List<Building> buildings) {
-      final List<G3Mesh> result = new ArrayList<>(buildings.size());
-      for (final Building building : buildings) {
-         final G3Mesh mesh = building.createMesh(createNormals, planet, verticalExaggeration, deltaHeight, floatPrecision);
-         if (mesh != null) {
-            result.add(mesh);
-         }
+   private static <EncodedT> void consume(final Future<ExtrudedPolygon<EncodedT>> future,
+                                          final ExtrudedPolygonConsumer<EncodedT> consumer) throws IOException {
+      final ExtrudedPolygon<EncodedT> extruded;
+      try {
+         extruded = future.get();
+      }
+      catch (final InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      }
+      catch (final ExecutionException e) {
+         throw new RuntimeException(e.getCause());
+      }
+
+      if (extruded != null) {
+         consumer.consume(extruded);
       }
-      return result;
    }
 
 
@@ -680,6 +735,14 @@ public class PolygonExtruder {
    public static List<Building> getBuildings(final String inputFileName,
                                              final ExtrusionHandler<GEOFeature, Void> handler,
                                              final boolean verbose) throws IOException {
+      return getBuildings(inputFileName, handler, Runtime.getRuntime().availableProcessors(), verbose);
+   }
+
+
+   public static List<Building> getBuildings(final String inputFileName,
+                                             final ExtrusionHandler<GEOFeature, Void> handler,
+                                             final int threadsCount,
+                                             final boolean verbose) throws IOException {
       if (verbose) {
          logInfo("Building...");
       }
@@ -687,11 +750,20 @@ public class PolygonExtruder {
 
       final List<ExtruderPolygon> polygons = getPolygons(inputFileName, handler, verbose);
 
-      final List<Building> buildings = getBuildings(polygons, verbose);
-      handler.onBuildings(buildings);
+      final Statistics statistics = new Statistics();
+      final List<Building> buildings = new ArrayList<>(polygons.size());
+      final Meshing<Void> noMeshing = null;
+      extrude(polygons, statistics, noMeshing, threadsCount, new ExtrudedPolygonConsumer<Void>() {
+         @Override
+         public void consume(final ExtrudedPolygon<Void> extruded) {
+            buildings.add(extruded._building);
+            handler.onBuilding(extruded._building);
+         }
+      });
 
       final long elapsed = System.currentTimeMillis() - now;
       if (verbose) {
+         statistics.printStatistics();
          logInfo("done! (" + elapsed + "ms)");
       }
 
@@ -720,10 +792,76 @@ public class PolygonExtruder {
                               final double deltaHeight,
                               final int floatPrecision,
                               final boolean verbose) throws IOException {
-      final List<Building> buildings = getBuildings(inputFileName, handler, verbose);
-      final G3MeshCollection meshCollection = getMeshCollection(createNormals, planet, verticalExaggeration, deltaHeight, floatPrecision, buildings);
-      handler.onMeshCollection(meshCollection);
-      writeMeshCollectionJSON(outputFileName, meshCollection, floatPrecision);
+      process(inputFileName, outputFileName, handler, createNormals, planet, verticalExaggeration, deltaHeight, floatPrecision,
+               Runtime.getRuntime().availableProcessors(), verbose);
+   }
+
+
+   /*
+    * The meshes are saved in the binary format of G3MeshCollectionBinaryWriter (read by G3MMeshParser::parseBinary())
+    * if the outputFileName ends with G3MeshCollectionBinaryWriter.EXTENSION, or as JSON otherwise.
+    */
+   public static void process(final String inputFileName,
+                              final String outputFileName,
+                              final ExtrusionHandler<GEOFeature, Void> handler,
+                              final boolean createNormals,
+                              final Planet planet,
+                              final float verticalExaggeration,
+                              final double deltaHeight,
+                              final int floatPrecision,
+                              final int threadsCount,
+                              final boolean verbose) throws IOException {
+      final List<ExtruderPolygon> polygons = getPolygons(inputFileName, handler, verbose);
+
+      if (verbose) {
+         logInfo("Building and meshing (" + threadsCount + " threads)...");
+      }
+      final long now = System.currentTimeMillis();
+
+      final Statistics statistics = new Statistics();
+      final int meshesCount;
+      if (outputFileName.endsWith(G3MeshCollectionBinaryWriter.EXTENSION)) {
+         try (final G3MeshCollectionBinaryWriter writer = new G3MeshCollectionBinaryWriter(outputFileName)) {
+            meshesCount = process(polygons, handler, statistics,
+                     new Meshing<>(createNormals, planet, verticalExaggeration, deltaHeight, floatPrecision, writer), threadsCount);
+         }
+      }
+      else {
+         try (final G3MeshCollectionJSONWriter writer = new G3MeshCollectionJSONWriter(outputFileName, floatPrecision)) {
+            meshesCount = process(polygons, handler, statistics,
+                     new Meshing<>(createNormals, planet, verticalExaggeration, deltaHeight, floatPrecision, writer), threadsCount);
+         }
+      }
+      if (verbose) {
+         statistics.printStatistics();
+         logInfo("Saved " + meshesCount + " meshes");
+      }
+
+      final long elapsed = System.currentTimeMillis() - now;
+      if (verbose) {
+         logInfo("done! (" + elapsed + "ms)");
+      }
+   }
+
+
+   // answer the number of written meshes
+   private static <EncodedT> int process(final List<ExtruderPolygon> polygons,
+                                         final ExtrusionHandler<GEOFeature, Void> handler,
+                                         final Statistics statistics,
+                                         final Meshing<EncodedT> meshing,
+                                         final int threadsCount) throws IOException {
+      final G3MeshCollectionWriter<EncodedT> writer = meshing._writer;
+      extrude(polygons, statistics, meshing, threadsCount, new ExtrudedPolygonConsumer<EncodedT>() {
+         @Override
+         public void consume(final ExtrudedPolygon<EncodedT> extruded) throws IOException {
+            handler.onBuilding(extruded._building);
+            if (extruded._mesh != null) {
+               handler.onMesh(extruded._mesh);
+               writer.add(extruded._mesh, extruded._encodedMesh);
+            }
+         }
+      });
+      return writer.getMeshesCount();
    }
 
 
@@ -15,7 +15,7 @@ import com.glob3mobile.tools.extruder.ExtruderPolygon;
 import com.glob3mobile.tools.extruder.ExtrusionHandler;
 import com.glob3mobile.tools.extruder.Heigths;
 import com.glob3mobile.tools.extruder.PolygonExtruder;
-import com.glob3mobile.tools.mesh.G3MeshCollection;
+import com.glob3mobile.tools.mesh.G3Mesh;
 import com.glob3mobile.tools.mesh.G3MeshMaterial;
 
 
@@ -96,7 +96,7 @@ public class AirspaceExtrusion {
 
 
       @Override
-      public void onBuildings(final List<Building> buildings) {
+      public void onBuilding(final Building building) {
       }
 
 
@@ -106,7 +106,7 @@ public class AirspaceExtrusion {
 
 
       @Override
-      public void onMeshCollection(final G3MeshCollection meshes) {
+      public void onMesh(final G3Mesh mesh) {
       }
    }
 
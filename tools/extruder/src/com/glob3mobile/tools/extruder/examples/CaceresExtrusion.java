@@ -17,7 +17,7 @@ import com.glob3mobile.tools.extruder.ExtruderPolygon;
 import com.glob3mobile.tools.extruder.ExtrusionHandler;
 import com.glob3mobile.tools.extruder.Heigths;
 import com.glob3mobile.tools.extruder.PolygonExtruder;
-import com.glob3mobile.tools.mesh.G3MeshCollection;
+import com.glob3mobile.tools.mesh.G3Mesh;
 import com.glob3mobile.tools.mesh.G3MeshMaterial;
 
 
@@ -49,7 +49,7 @@ public class CaceresExtrusion {
 
 
       @Override
-      public void onBuildings(final List<Building> buildings) {
+      public void onBuilding(final Building building) {
       }
 
 
@@ -66,7 +66,7 @@ public class CaceresExtrusion {
 
 
       @Override
-      public void onMeshCollection(final G3MeshCollection meshes) {
+      public void onMesh(final G3Mesh mesh) {
       }
 
 
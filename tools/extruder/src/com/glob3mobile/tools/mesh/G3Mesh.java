@@ -2,6 +2,7 @@
 
 package com.glob3mobile.tools.mesh;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -440,6 +441,102 @@ public class G3Mesh {
    }
 
 
+   private static int floatsSize(final int count) {
+      return 4 + (4 * count);
+   }
+
+
+   private static void putVector3Fs(final ByteBuffer buffer,
+                                    final List<Vector3F> vectors) {
+      buffer.putInt(vectors.size() * 3);
+      for (final Vector3F vector : vectors) {
+         buffer.putFloat(vector._x);
+         buffer.putFloat(vector._y);
+         buffer.putFloat(vector._z);
+      }
+   }
+
+
+   // the mesh record of G3MeshCollectionBinaryWriter, the material is written by the writer
+   public byte[] toBinary() {
+      final byte[] materialID = G3MeshCollectionBinaryWriter.toBytes((_material == null) ? "" : _material.getID());
+
+      byte flags = 0;
+      if (_depthTest) {
+         flags |= G3MeshCollectionBinaryWriter.FLAG_DEPTH_TEST;
+      }
+      if (_verticesFormat == G3Mesh.VerticesFormat.GEODETIC) {
+         flags |= G3MeshCollectionBinaryWriter.FLAG_GEODETIC;
+      }
+
+      int size = 1 + G3MeshCollectionBinaryWriter.stringSize(materialID) + 1 + 4 + 4 + 1 + (3 * 8);
+      size += floatsSize(_vertices.size() * 3);
+      if (_normals != null) {
+         flags |= G3MeshCollectionBinaryWriter.FLAG_NORMALS;
+         size += floatsSize(_normals.size() * 3);
+      }
+      if (_colors != null) {
+         flags |= G3MeshCollectionBinaryWriter.FLAG_COLORS;
+         size += floatsSize(_colors.size() * 4);
+      }
+      if (_texCoords != null) {
+         flags |= G3MeshCollectionBinaryWriter.FLAG_TEX_COORDS;
+         size += floatsSize(_texCoords.size() * 2);
+      }
+      if (_indices != null) {
+         flags |= G3MeshCollectionBinaryWriter.FLAG_INDICES;
+         size += 4 + (2 * _indices.size());
+      }
+
+      final ByteBuffer buffer = G3MeshCollectionBinaryWriter.allocate(size);
+      buffer.put(G3MeshCollectionBinaryWriter.MESH_RECORD);
+      G3MeshCollectionBinaryWriter.putString(buffer, materialID);
+      buffer.put((byte) _primitive.ordinal());
+      buffer.putFloat(_pointSize);
+      buffer.putFloat(_lineWidth);
+      buffer.put(flags);
+      if (_center == null) {
+         buffer.putDouble(0);
+         buffer.putDouble(0);
+         buffer.putDouble(0);
+      }
+      else {
+         buffer.putDouble(_center._x);
+         buffer.putDouble(_center._y);
+         buffer.putDouble(_center._z);
+      }
+
+      putVector3Fs(buffer, _vertices);
+      if (_normals != null) {
+         putVector3Fs(buffer, _normals);
+      }
+      if (_colors != null) {
+         buffer.putInt(_colors.size() * 4);
+         for (final Color color : _colors) {
+            buffer.putFloat(color._red);
+            buffer.putFloat(color._green);
+            buffer.putFloat(color._blue);
+            buffer.putFloat(color._alpha);
+         }
+      }
+      if (_texCoords != null) {
+         buffer.putInt(_texCoords.size() * 2);
+         for (final Vector2F texCoord : _texCoords) {
+            buffer.putFloat(texCoord._x);
+            buffer.putFloat(texCoord._y);
+         }
+      }
+      if (_indices != null) {
+         buffer.putInt(_indices.size());
+         for (final short index : _indices) {
+            buffer.putShort(index);
+         }
+      }
+
+      return buffer.array();
+   }
+
+
    public boolean isHomomorphic(final G3Mesh that) {
       if (this == that) {
          return true;
@@ -0,0 +1,137 @@
+
+
+package com.glob3mobile.tools.mesh;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.glob3.mobile.generated.G3MMeshParser;
+
+
+/*
+ * Writes a G3MeshCollection in the binary format read by G3MMeshParser::parseBinary(), the floats and shorts are
+ * written packed (little endian) instead of as JSON text:
+ *
+ *    header:   "G3MB" version:uint8
+ *    material: 0x01 id:string flags:uint8 [color:4*float32] [textureURL:string]
+ *    mesh:     0x02 materialID:string primitive:uint8 pointSize:float32 lineWidth:float32 flags:uint8
+ *              center:3*float64 vertices:floats [normals:floats] [colors:floats] [texCoords:floats] [indices:shorts]
+ *    end:      0x00
+ *
+ * strings are zero terminated (UTF-8), floats/shorts are an int32 count followed by the values.
+ *
+ * Every material is written once, just before the first mesh using it, so a reader can create the meshes while reading.
+ */
+public class G3MeshCollectionBinaryWriter
+   implements
+      G3MeshCollectionWriter<byte[]> {
+
+   public static final String   EXTENSION        = ".g3mb";
+
+   // the record types and flags are the ones G3MMeshParser reads
+   static final byte            VERSION          = G3MMeshParser.BINARY_VERSION;
+
+   static final byte            MATERIAL_RECORD  = G3MMeshParser.RECORD_MATERIAL;
+   static final byte            MESH_RECORD      = G3MMeshParser.RECORD_MESH;
+   static final byte            END_RECORD       = G3MMeshParser.RECORD_END;
+
+   static final byte            FLAG_DEPTH_TEST  = G3MMeshParser.MESH_FLAG_DEPTH_TEST;
+   static final byte            FLAG_GEODETIC    = G3MMeshParser.MESH_FLAG_GEODETIC;
+   static final byte            FLAG_NORMALS     = G3MMeshParser.MESH_FLAG_NORMALS;
+   static final byte            FLAG_COLORS      = G3MMeshParser.MESH_FLAG_COLORS;
+   static final byte            FLAG_TEX_COORDS  = G3MMeshParser.MESH_FLAG_TEX_COORDS;
+   static final byte            FLAG_INDICES     = G3MMeshParser.MESH_FLAG_INDICES;
+
+   static final byte            FLAG_COLOR       = G3MMeshParser.MATERIAL_FLAG_COLOR;
+   static final byte            FLAG_TEXTURE_URL = G3MMeshParser.MATERIAL_FLAG_TEXTURE_URL;
+
+   private static final Charset UTF8             = Charset.forName("UTF-8");
+
+
+   static byte[] toBytes(final String str) {
+      return str.getBytes(UTF8);
+   }
+
+
+   // size of a zero terminated string
+   static int stringSize(final byte[] str) {
+      return str.length + 1;
+   }
+
+
+   static void putString(final ByteBuffer buffer,
+                         final byte[] str) {
+      buffer.put(str);
+      buffer.put((byte) 0);
+   }
+
+
+   static ByteBuffer allocate(final int size) {
+      return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+   }
+
+
+   private final OutputStream _output;
+   private final Set<String>  _writtenMaterials = new HashSet<>();
+   private int                _meshesCount;
+
+
+   public G3MeshCollectionBinaryWriter(final String fileName) throws IOException {
+      _output = new BufferedOutputStream(new FileOutputStream(fileName), 64 * 1024);
+      _meshesCount = 0;
+
+      _output.write(new byte[] { 'G', '3', 'M', 'B', VERSION });
+   }
+
+
+   @Override
+   public int getMeshesCount() {
+      return _meshesCount;
+   }
+
+
+   @Override
+   public byte[] encode(final G3Mesh mesh) {
+      return mesh.toBinary();
+   }
+
+
+   @Override
+   public void add(final G3Mesh mesh) throws IOException {
+      add(mesh, encode(mesh));
+   }
+
+
+   // meshBinary is mesh.toBinary(), it can be created in other thread
+   @Override
+   public void add(final G3Mesh mesh,
+                   final byte[] meshBinary) throws IOException {
+      final G3MeshMaterial material = mesh.getMaterial();
+      if ((material != null) && _writtenMaterials.add(material.getID())) {
+         _output.write(material.toBinary());
+      }
+
+      _output.write(meshBinary);
+      _meshesCount++;
+   }
+
+
+   @Override
+   public void close() throws IOException {
+      try {
+         _output.write(END_RECORD);
+      }
+      finally {
+         _output.close();
+      }
+   }
+
+
+}
@@ -0,0 +1,102 @@
+
+
+package com.glob3mobile.tools.mesh;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.glob3mobile.json.JSONUtils;
+
+
+/*
+ * Writes the JSON of a G3MeshCollection one mesh at a time, so the meshes don't need to be kept in memory.
+ *
+ * The materials are known once all the meshes were added, so they are written after the meshes:
+ *    {"meshes":[...],"materials":[...]}
+ */
+public class G3MeshCollectionJSONWriter
+   implements
+      G3MeshCollectionWriter<String> {
+
+   private final Writer                      _writer;
+   private final int                         _floatPrecision;
+   private final Map<String, G3MeshMaterial> _materials = new LinkedHashMap<>();
+   private int                               _meshesCount;
+
+
+   public G3MeshCollectionJSONWriter(final String fileName,
+                                     final int floatPrecision) throws IOException {
+      _writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), Charset.forName("UTF-8")));
+      _floatPrecision = floatPrecision;
+      _meshesCount = 0;
+
+      _writer.write("{\"meshes\":[");
+   }
+
+
+   @Override
+   public int getMeshesCount() {
+      return _meshesCount;
+   }
+
+
+   @Override
+   public String encode(final G3Mesh mesh) {
+      return JSONUtils.toJSON(mesh.toJSON(), _floatPrecision);
+   }
+
+
+   @Override
+   public void add(final G3Mesh mesh) throws IOException {
+      add(mesh, encode(mesh));
+   }
+
+
+   // meshJSON is JSONUtils.toJSON(mesh.toJSON(), floatPrecision), it can be created in other thread
+   @Override
+   public void add(final G3Mesh mesh,
+                   final String meshJSON) throws IOException {
+      final G3MeshMaterial material = mesh.getMaterial();
+      final String materialID = material.getID();
+      if (!_materials.containsKey(materialID)) {
+         _materials.put(materialID, material);
+      }
+
+      if (_meshesCount > 0) {
+         _writer.write(',');
+      }
+      _writer.write(meshJSON);
+      _meshesCount++;
+   }
+
+
+   @Override
+   public void close() throws IOException {
+      try {
+         _writer.write("],\"materials\":[");
+         boolean first = true;
+         for (final G3MeshMaterial material : _materials.values()) {
+            if (first) {
+               first = false;
+            }
+            else {
+               _writer.write(',');
+            }
+            _writer.write(JSONUtils.toJSON(material.toJSON(), _floatPrecision));
+         }
+         _writer.write("]}");
+         _writer.write(System.lineSeparator());
+      }
+      finally {
+         _writer.close();
+      }
+   }
+
+
+}
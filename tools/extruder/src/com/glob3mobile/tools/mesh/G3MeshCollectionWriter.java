@@ -0,0 +1,36 @@
+
+
+package com.glob3mobile.tools.mesh;
+
+import java.io.IOException;
+
+
+/*
+ * Writes the meshes of a G3MeshCollection one at a time, so the meshes don't need to be kept in memory.
+ *
+ * encode() doesn't touch the writer state, so the meshes can be encoded in other threads and then added (in order) with
+ * add(mesh, encodedMesh).
+ */
+public interface G3MeshCollectionWriter<EncodedT>
+   extends
+      AutoCloseable {
+
+
+   EncodedT encode(G3Mesh mesh);
+
+
+   void add(G3Mesh mesh,
+            EncodedT encodedMesh) throws IOException;
+
+
+   void add(G3Mesh mesh) throws IOException;
+
+
+   int getMeshesCount();
+
+
+   @Override
+   void close() throws IOException;
+
+
+}
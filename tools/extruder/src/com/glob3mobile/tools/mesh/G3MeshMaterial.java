@@ -2,6 +2,7 @@
 
 package com.glob3mobile.tools.mesh;
 
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -127,6 +128,40 @@ public class G3MeshMaterial {
    }
 
 
+   // the material record of G3MeshCollectionBinaryWriter
+   public byte[] toBinary() {
+      final byte[] id = G3MeshCollectionBinaryWriter.toBytes(getID());
+      final boolean hasTextureURL = (_textureURL != null) && !_textureURL.isNull();
+      final byte[] textureURL = hasTextureURL ? G3MeshCollectionBinaryWriter.toBytes(_textureURL._path) : null;
+
+      byte flags = 0;
+      int size = 1 + G3MeshCollectionBinaryWriter.stringSize(id) + 1;
+      if (_color != null) {
+         flags |= G3MeshCollectionBinaryWriter.FLAG_COLOR;
+         size += 4 * 4;
+      }
+      if (hasTextureURL) {
+         flags |= G3MeshCollectionBinaryWriter.FLAG_TEXTURE_URL;
+         size += G3MeshCollectionBinaryWriter.stringSize(textureURL);
+      }
+
+      final ByteBuffer buffer = G3MeshCollectionBinaryWriter.allocate(size);
+      buffer.put(G3MeshCollectionBinaryWriter.MATERIAL_RECORD);
+      G3MeshCollectionBinaryWriter.putString(buffer, id);
+      buffer.put(flags);
+      if (_color != null) {
+         buffer.putFloat(_color._red);
+         buffer.putFloat(_color._green);
+         buffer.putFloat(_color._blue);
+         buffer.putFloat(_color._alpha);
+      }
+      if (hasTextureURL) {
+         G3MeshCollectionBinaryWriter.putString(buffer, textureURL);
+      }
+      return buffer.array();
+   }
+
+
    private static List<Float> toJSON(final Color color) {
       final List<Float> result = new ArrayList<>();
       result.add(color._red);
@@ -0,0 +1,233 @@
+
+
+package com.glob3mobile.pointcloud.kdtree;
+
+import java.util.List;
+
+import com.glob3mobile.utils.FlatPlanet;
+import com.glob3mobile.utils.Geodetic3D;
+
+import es.igosoftware.euclid.vector.GVector3D;
+import es.igosoftware.util.GCollections;
+import es.igosoftware.util.IComparatorInt;
+
+
+/*
+ * Sorts the points in the breadth-first order of the KDTree built with them (the same order of
+ * KDTree.breadthFirstAcceptVisitor()), without creating the tree nodes.
+ *
+ * The tree is built in place over primitive arrays that are reused between calls, so an instance
+ * is meant to be used by only one thread.
+ */
+public class KDTreeSorter {
+
+   private final int            _arity;
+
+   private double[]             _xs                   = new double[0];
+   private double[]             _ys                   = new double[0];
+   private double[]             _zs                   = new double[0];
+   private int[]                _indexes              = new int[0];
+   private int[]                _queueFroms           = new int[0];
+   private int[]                _queueTos             = new int[0];
+
+   private int[]                _sortedIndices        = new int[0];
+   private int                  _sortedIndicesCount;
+   private int[]                _levelsLastIndices    = new int[0];
+   private int                  _levelsCount;
+
+   private final IComparatorInt _xyzComparator;
+   private final IComparatorInt _yzxComparator;
+   private final IComparatorInt _zxyComparator;
+
+
+   public KDTreeSorter(final int arity) {
+      if (arity < 2) {
+         throw new RuntimeException("Invalid arity: " + arity);
+      }
+      _arity = arity;
+
+      _xyzComparator = new IComparatorInt() {
+         @Override
+         public int compare(final int index1,
+                            final int index2) {
+            return compare3(_xs, _ys, _zs, index1, index2);
+         }
+      };
+      _yzxComparator = new IComparatorInt() {
+         @Override
+         public int compare(final int index1,
+                            final int index2) {
+            return compare3(_ys, _zs, _xs, index1, index2);
+         }
+      };
+      _zxyComparator = new IComparatorInt() {
+         @Override
+         public int compare(final int index1,
+                            final int index2) {
+            return compare3(_zs, _xs, _ys, index1, index2);
+         }
+      };
+   }
+
+
+   private static int compare3(final double[] first,
+                               final double[] second,
+                               final double[] third,
+                               final int index1,
+                               final int index2) {
+      final int compare1 = Double.compare(first[index1], first[index2]);
+      if (compare1 != 0) {
+         return compare1;
+      }
+      final int compare2 = Double.compare(second[index1], second[index2]);
+      if (compare2 != 0) {
+         return compare2;
+      }
+      return Double.compare(third[index1], third[index2]);
+   }
+
+
+   private void ensureCapacity(final int size) {
+      if (_xs.length < size) {
+         _xs = new double[size];
+         _ys = new double[size];
+         _zs = new double[size];
+         _indexes = new int[size];
+         _queueFroms = new int[size];
+         _queueTos = new int[size];
+         _sortedIndices = new int[size];
+         _levelsLastIndices = new int[size];
+      }
+   }
+
+
+   public void sort(final List<Geodetic3D> positions) {
+      final int size = positions.size();
+      ensureCapacity(size);
+
+      for (int i = 0; i < size; i++) {
+         final GVector3D point = FlatPlanet.EARTH.toCartesian(positions.get(i), 1);
+         _xs[i] = point._x;
+         _ys[i] = point._y;
+         _zs[i] = point._z;
+         _indexes[i] = i;
+      }
+
+      _sortedIndicesCount = 0;
+      _levelsCount = 0;
+      if (size == 0) {
+         return;
+      }
+
+      // every queued range is not empty and disjoint with the others, so the queue never holds more than size ranges
+      int queueHead = 0;
+      int queueTail = 0;
+      _queueFroms[queueTail] = 0;
+      _queueTos[queueTail] = size;
+      queueTail++;
+
+      while (queueHead < queueTail) {
+         // all the ranges queued so far are in the same depth
+         final int depthTail = queueTail;
+         while (queueHead < depthTail) {
+            final int from = _queueFroms[queueHead];
+            final int to = _queueTos[queueHead];
+            queueHead++;
+
+            final int rangeSize = to - from;
+            if (rangeSize <= _arity) {
+               // leaf node
+               for (int i = from; i < to; i++) {
+                  _sortedIndices[_sortedIndicesCount++] = _indexes[i];
+               }
+               continue;
+            }
+
+            GCollections.quickSort(_indexes, from, to - 1, getSplitComparator(from, to));
+
+            int childFrom = from;
+            for (int i = 1; i <= _arity; i++) {
+               final int childTo;
+               if (i == _arity) {
+                  childTo = to;
+               }
+               else {
+                  childTo = from + ((rangeSize / _arity) * i);
+                  _sortedIndices[_sortedIndicesCount++] = _indexes[childTo];
+               }
+               if (childTo > childFrom) {
+                  _queueFroms[queueTail] = childFrom;
+                  _queueTos[queueTail] = childTo;
+                  queueTail++;
+               }
+               childFrom = childTo + 1;
+            }
+         }
+
+         _levelsLastIndices[_levelsCount++] = _sortedIndicesCount - 1;
+      }
+   }
+
+
+   private IComparatorInt getSplitComparator(final int from,
+                                             final int to) {
+      double minX = Double.POSITIVE_INFINITY;
+      double minY = Double.POSITIVE_INFINITY;
+      double minZ = Double.POSITIVE_INFINITY;
+
+      double maxX = Double.NEGATIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+      double maxZ = Double.NEGATIVE_INFINITY;
+
+      for (int i = from; i < to; i++) {
+         final int index = _indexes[i];
+
+         final double x = _xs[index];
+         final double y = _ys[index];
+         final double z = _zs[index];
+
+         minX = Math.min(minX, x);
+         minY = Math.min(minY, y);
+         minZ = Math.min(minZ, z);
+
+         maxX = Math.max(maxX, x);
+         maxY = Math.max(maxY, y);
+         maxZ = Math.max(maxZ, z);
+      }
+
+      // same criteria of Axis.largestAxis()
+      final double extentX = maxX - minX;
+      final double extentY = maxY - minY;
+      final double extentZ = maxZ - minZ;
+      if ((extentX > extentY) && (extentX > extentZ)) {
+         return _xyzComparator;
+      }
+      if ((extentY > extentX) && (extentY > extentZ)) {
+         return _yzxComparator;
+      }
+      return _zxyComparator;
+   }
+
+
+   public int getSortedIndicesCount() {
+      return _sortedIndicesCount;
+   }
+
+
+   public int getSortedIndex(final int i) {
+      return _sortedIndices[i];
+   }
+
+
+   public int getLevelsCount() {
+      return _levelsCount;
+   }
+
+
+   // index (in the sorted indices) of the last point of the given level
+   public int getLevelLastIndex(final int level) {
+      return _levelsLastIndices[level];
+   }
+
+
+}
@@ -8,14 +8,21 @@ import java.io.FileInputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
 
 import com.glob3mobile.pointcloud.octree.berkeleydb.BerkeleyDBOctree;
-import com.glob3mobile.utils.Geodetic3D;
 
 import es.igosoftware.euclid.projection.GProjection;
 import es.igosoftware.euclid.vector.GVector2D;
 import es.igosoftware.euclid.vector.IVector2;
+import es.igosoftware.util.GStringUtils;
 import es.igosoftware.util.GUndeterminateProgress;
 import es.igosoftware.util.XStringTokenizer;
 
@@ -57,6 +64,7 @@ public class CreateOT {
 
       final boolean deleteOT = true;
       final boolean loadOT = true;
+      final boolean bulkLoad = true;
       final boolean renameDone = false;
       final boolean visitOT = false;
       final boolean showStatisticsOT = true;
@@ -66,7 +74,13 @@ public class CreateOT {
       }
 
       if (loadOT) {
-         loadOT(cloudDirectory, cloudName, renameDone, sourceProjection, getFilesToLoad(sourceTXTDirectory));
+         if (bulkLoad) {
+            final int threadsCount = Runtime.getRuntime().availableProcessors();
+            bulkLoadOT(cloudDirectory, cloudName, renameDone, sourceProjection, threadsCount, getFilesToLoad(sourceTXTDirectory));
+         }
+         else {
+            loadOT(cloudDirectory, cloudName, renameDone, sourceProjection, getFilesToLoad(sourceTXTDirectory));
+         }
       }
 
       System.out.println();
@@ -116,20 +130,14 @@ public class CreateOT {
 
       final GProjection targetProjection = GProjection.EPSG_4326;
 
+      final PointsBuffer point = new PointsBuffer(1);
       try (final BufferedReader reader = open(fileName)) {
          String line;
          while ((line = reader.readLine()) != null) {
-            final String[] tokens = XStringTokenizer.getAllTokens(line, ",");
-
-            final double x = Double.valueOf(tokens[0]);
-            final double y = Double.valueOf(tokens[1]);
-            final double z = Double.valueOf(tokens[2]);
-            // final double intensity = Double.valueOf(tokens[2]);
-
-            final IVector2 sourcePoint = new GVector2D(x, y);
-            final IVector2 projectedPointInRadians = projection.transformPoint(targetProjection, sourcePoint);
+            parsePoint(line, projection, targetProjection, point);
 
-            octree.addPoint(Geodetic3D.fromRadians(projectedPointInRadians.y(), projectedPointInRadians.x(), z));
+            octree.addPoint(point.getLatitudeInRadians(0), point.getLongitudeInRadians(0), point.getHeight(0));
+            point.clear();
 
             progress.stepDone();
          }
@@ -142,6 +150,150 @@ public class CreateOT {
    }
 
 
+   private static void parsePoint(final String line,
+                                  final GProjection projection,
+                                  final GProjection targetProjection,
+                                  final PointsBuffer buffer) {
+      final String[] tokens = XStringTokenizer.getAllTokens(line, ",");
+
+      final double x = Double.valueOf(tokens[0]);
+      final double y = Double.valueOf(tokens[1]);
+      final double z = Double.valueOf(tokens[2]);
+      // final double intensity = Double.valueOf(tokens[2]);
+
+      final IVector2 sourcePoint = new GVector2D(x, y);
+      final IVector2 projectedPointInRadians = projection.transformPoint(targetProjection, sourcePoint);
+
+      buffer.add(projectedPointInRadians.y(), projectedPointInRadians.x(), z);
+   }
+
+
+   private static class BulkLoadTask
+   implements
+   Runnable {
+
+      private final PersistentOctree _octree;
+      private final GProjection      _projection;
+      private final String           _fileName;
+      private final String           _extraMsg;
+      private final int              _bufferSize;
+      private final boolean          _renameDone;
+      private final AtomicLong       _loadedPointsCounter;
+
+
+      private BulkLoadTask(final PersistentOctree octree,
+                           final GProjection projection,
+                           final String fileName,
+                           final String extraMsg,
+                           final int bufferSize,
+                           final boolean renameDone,
+                           final AtomicLong loadedPointsCounter) {
+         _octree = octree;
+         _projection = projection;
+         _fileName = fileName;
+         _extraMsg = extraMsg;
+         _bufferSize = bufferSize;
+         _renameDone = renameDone;
+         _loadedPointsCounter = loadedPointsCounter;
+      }
+
+
+      @Override
+      public void run() {
+         final long started = System.currentTimeMillis();
+         final GProjection targetProjection = GProjection.EPSG_4326;
+
+         long pointsCount = 0;
+         final PointsBuffer buffer = new PointsBuffer(_bufferSize);
+         try (final BufferedReader reader = open(_fileName)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+               parsePoint(line, _projection, targetProjection, buffer);
+
+               if (buffer.size() == _bufferSize) {
+                  _octree.addPoints(buffer);
+                  pointsCount += buffer.size();
+                  _loadedPointsCounter.addAndGet(buffer.size());
+                  buffer.clear();
+               }
+            }
+         }
+         catch (final IOException e) {
+            throw new RuntimeException(e);
+         }
+
+         if (!buffer.isEmpty()) {
+            _octree.addPoints(buffer);
+            pointsCount += buffer.size();
+            _loadedPointsCounter.addAndGet(buffer.size());
+         }
+
+         if (_renameDone) {
+            new File(_fileName).renameTo(new File(_fileName + ".DONE"));
+         }
+
+         final long elapsed = System.currentTimeMillis() - started;
+         System.out.println("- loaded \"" + _fileName + "\" " + _extraMsg + " " + pointsCount + " points in "
+                            + GStringUtils.getTimeMessage(elapsed) + " (total=" + _loadedPointsCounter.get() + ")");
+      }
+   }
+
+
+   private static void bulkLoadOT(final File cloudDirectory,
+                                  final String cloudName,
+                                  final boolean renameDone,
+                                  final GProjection projection,
+                                  final int threadsCount,
+                                  final String... filesNames) {
+
+      final int bufferSize = 192 * 1024;
+      final int maxPointsPerTitle = 192 * 1024;
+
+      final boolean createIfNotExists = true;
+      final int cacheSizeInBytes = 1024 * 1024 * 1024;
+
+      System.out.println("- bulk loading " + filesNames.length + " files with " + threadsCount + " threads");
+
+      final long started = System.currentTimeMillis();
+      final AtomicLong loadedPointsCounter = new AtomicLong(0);
+
+      try (final PersistentOctree octree = BerkeleyDBOctree.open(cloudDirectory, cloudName, createIfNotExists, maxPointsPerTitle,
+               bufferSize, cacheSizeInBytes)) {
+
+         final ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+         try {
+            final List<Future<?>> futures = new ArrayList<>(filesNames.length);
+            final int filesNamesLength = filesNames.length;
+            for (int i = 0; i < filesNamesLength; i++) {
+               final String extraMsg = (i + 1) + "/" + filesNamesLength;
+               futures.add(executor.submit(new BulkLoadTask(octree, projection, filesNames[i], extraMsg, bufferSize, renameDone,
+                        loadedPointsCounter)));
+            }
+
+            for (final Future<?> future : futures) {
+               future.get();
+            }
+         }
+         catch (final InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+         }
+         finally {
+            executor.shutdownNow();
+         }
+
+         octree.optimize();
+
+         final long elapsed = System.currentTimeMillis() - started;
+         final long loadedPoints = loadedPointsCounter.get();
+         final double pointsPerSecond = (elapsed == 0) ? 0 : ((double) loadedPoints / elapsed) * 1000;
+         System.out.println("** Bulk loaded " + loadedPoints + " points in " + GStringUtils.getTimeMessage(elapsed) + " ("
+                            + Math.round(pointsPerSecond) + " points/second)");
+
+         octree.getStatistics(false).show();
+      }
+   }
+
+
    private static BufferedReader open(final String fileName) throws IOException {
       if (fileName.toLowerCase().endsWith(".gz")) {
          return new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(fileName))));
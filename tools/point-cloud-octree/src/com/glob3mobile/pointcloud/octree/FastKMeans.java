@@ -0,0 +1,541 @@
+
+
+package com.glob3mobile.pointcloud.octree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.glob3mobile.utils.FlatPlanet;
+import com.glob3mobile.utils.Geodetic3D;
+
+import es.igosoftware.euclid.vector.GVector3D;
+
+
+/*
+ * Lloyd's k-means over primitive arrays of cartesian coordinates, run locally in compact blocks of the points.
+ *
+ * - Blocks: the points are counting-sorted by the cell of a grid with about (k / CLUSTERS_PER_BLOCK) cells over the
+ *   bounds, walking the cells in boustrophedon order so consecutive cells are neighbors. Every block gets the clusters
+ *   of its share of the points; the blocks too sparse to get one are merged with the next ones.
+ * - Seeding: k-means++ on the points of the block, with a fixed random seed so the result is repeatable. It leaves
+ *   every point assigned to its closest seed, so one iteration only has to move the centroids to the means.
+ * - Assignment: against the few centroids of the block, a point can't move to other blocks. The next iterations keep
+ *   Hamerly's bounds for every point (of the distances to its centroid and to the second closest one), and only
+ *   compare it with all the centroids when the bounds can't prove that it keeps its cluster.
+ * - Termination: when no point changes its cluster or after maxIterations.
+ *
+ * Sorting by cell is linear and every point is compared with about CLUSTERS_PER_BLOCK centroids, so it's cheaper than
+ * sorting the points (KMeans.cluster()) and much cheaper than a global k-means, at the price of clusters not crossing
+ * the borders of the blocks.
+ *
+ * The result has, for every non empty cluster, the position closest to its centroid, so the simplified cloud only
+ * contains measured points.
+ */
+public class FastKMeans {
+
+   // k-means++ seeds the blocks close enough for one iteration to take most of the gain (see KMeansBenchmark)
+   public static final int   DEFAULT_MAX_ITERATIONS = 1;
+
+   private static final int  CLUSTERS_PER_BLOCK     = 4;
+   private static final int  MAX_GRID_PASSES        = 3;
+   private static final long RANDOM_SEED            = 0;
+
+
+   // the arrays shared by all the groups of points, indexed by point (in block order) or by cluster
+   private static final class Workspace {
+      private final double[] _points;
+      private final double[] _centroids;
+      private final int[]    _assignments;
+
+      private final double[] _sums;
+      private final int[]    _counts;
+
+      // Hamerly's bounds of every point
+      private final double[] _upperBounds;
+      private final double[] _lowerBounds;
+      // how much every centroid moved in its last update, and half its distance to the closest other one
+      private final double[] _shifts;
+      private final double[] _halfSeparations;
+
+      private final Random   _random = new Random(RANDOM_SEED);
+
+
+      private Workspace(final double[] points,
+                        final int k) {
+         final int pointsCount = points.length / 3;
+         _points = points;
+         _centroids = new double[k * 3];
+         _assignments = new int[pointsCount];
+         _sums = new double[k * 3];
+         _counts = new int[k];
+         _upperBounds = new double[pointsCount];
+         _lowerBounds = new double[pointsCount];
+         _shifts = new double[k];
+         _halfSeparations = new double[k];
+      }
+   }
+
+
+   private FastKMeans() {
+   }
+
+
+   public static List<Geodetic3D> cluster(final List<Geodetic3D> positions,
+                                          final int k,
+                                          final float verticalExaggeration) {
+      return cluster(positions, k, verticalExaggeration, DEFAULT_MAX_ITERATIONS);
+   }
+
+
+   public static List<Geodetic3D> cluster(final List<Geodetic3D> positions,
+                                          final int k,
+                                          final float verticalExaggeration,
+                                          final int maxIterations) {
+      final int positionsSize = positions.size();
+      if ((k <= 0) || (k > positionsSize)) {
+         throw new RuntimeException("Invalid K");
+      }
+
+      final double[] points = toCartesian(positions, verticalExaggeration);
+
+      final int[] sorted = new int[positionsSize];
+      final int[] blocksStarts = sortByBlock(points, positionsSize, Math.max(1, k / CLUSTERS_PER_BLOCK), sorted);
+
+      // the points in block order, so the blocks are iterated sequentially
+      final double[] sortedPoints = new double[positionsSize * 3];
+      for (int r = 0; r < positionsSize; r++) {
+         final int i = sorted[r];
+         sortedPoints[(r * 3)] = points[(i * 3)];
+         sortedPoints[(r * 3) + 1] = points[(i * 3) + 1];
+         sortedPoints[(r * 3) + 2] = points[(i * 3) + 2];
+      }
+
+      final Workspace workspace = new Workspace(sortedPoints, k);
+
+      final List<Geodetic3D> result = new ArrayList<>(k);
+
+      // the dense blocks are split, so the cost of the brute force assignment is bounded
+      final int maxGroupSize = (int) Math.max(1, ((long) 2 * CLUSTERS_PER_BLOCK * positionsSize) / k);
+
+      final int blocksCount = blocksStarts.length - 1;
+      int groupFrom = 0;
+      for (int block = 0; block < blocksCount; block++) {
+         final int blockTo = blocksStarts[block + 1];
+         while (groupFrom < blockTo) {
+            final int groupTo = Math.min(blockTo, groupFrom + maxGroupSize);
+            final int fromCluster = (int) (((long) groupFrom * k) / positionsSize);
+            final int toCluster = (int) (((long) groupTo * k) / positionsSize);
+            if (toCluster == fromCluster) {
+               break;
+            }
+            clusterGroup(workspace, groupFrom, groupTo, fromCluster, toCluster, maxIterations);
+            addClosestPositions(positions, workspace, sorted, groupFrom, groupTo, fromCluster, toCluster, result);
+            groupFrom = groupTo;
+         }
+      }
+
+      return result;
+   }
+
+
+   static double[] toCartesian(final List<Geodetic3D> positions,
+                               final float verticalExaggeration) {
+      final int positionsSize = positions.size();
+      final double[] points = new double[positionsSize * 3];
+      for (int i = 0; i < positionsSize; i++) {
+         final Geodetic3D position = positions.get(i);
+         final GVector3D point = FlatPlanet.EARTH.toCartesian(position._latitude, position._longitude, position._height,
+                  verticalExaggeration);
+         points[(i * 3)] = point._x;
+         points[(i * 3) + 1] = point._y;
+         points[(i * 3) + 2] = point._z;
+      }
+      return points;
+   }
+
+
+   private static double squaredDistance(final double[] points,
+                                         final int i,
+                                         final double[] centroids,
+                                         final int c) {
+      final double dx = points[(i * 3)] - centroids[(c * 3)];
+      final double dy = points[(i * 3) + 1] - centroids[(c * 3) + 1];
+      final double dz = points[(i * 3) + 2] - centroids[(c * 3) + 2];
+      return (dx * dx) + (dy * dy) + (dz * dz);
+   }
+
+
+   /*
+    * Fills sorted with the indexes of the points sorted by block, and returns the index in sorted where every block
+    * starts (plus the end of the last one).
+    */
+   private static int[] sortByBlock(final double[] points,
+                                    final int positionsSize,
+                                    final int targetBlocksCount,
+                                    final int[] sorted) {
+      final double[] lower = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+      final double[] upper = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+      for (int i = 0; i < positionsSize; i++) {
+         for (int axis = 0; axis < 3; axis++) {
+            final double value = points[(i * 3) + axis];
+            if (value < lower[axis]) {
+               lower[axis] = value;
+            }
+            if (value > upper[axis]) {
+               upper[axis] = value;
+            }
+         }
+      }
+
+      // cubic cells, the axes thinner than a cell (the height of a flat tile) get only one
+      final double[] extent = new double[3];
+      for (int axis = 0; axis < 3; axis++) {
+         extent[axis] = upper[axis] - lower[axis];
+      }
+      final boolean[] flat = new boolean[3];
+      double cellSize = 0;
+      for (int pass = 0; pass < 3; pass++) {
+         double volume = 1;
+         int dimensions = 0;
+         for (int axis = 0; axis < 3; axis++) {
+            if (!flat[axis]) {
+               volume *= extent[axis];
+               dimensions++;
+            }
+         }
+         cellSize = (dimensions == 0) ? 0 : Math.pow(volume / targetBlocksCount, 1.0 / dimensions);
+
+         boolean changed = false;
+         for (int axis = 0; axis < 3; axis++) {
+            if (!flat[axis] && (extent[axis] < cellSize)) {
+               flat[axis] = true;
+               changed = true;
+            }
+         }
+         if (!changed) {
+            break;
+         }
+      }
+
+      final int[] pointsCells = new int[positionsSize];
+      final int[] cells = new int[3];
+      int cellsCount;
+      int[] starts;
+      for (int pass = 0;; pass++) {
+         for (int axis = 0; axis < 3; axis++) {
+            cells[axis] = (flat[axis] || (cellSize <= 0)) ? 1 : Math.max(1, (int) Math.ceil(extent[axis] / cellSize));
+         }
+         cellsCount = cells[0] * cells[1] * cells[2];
+         final double inverseCellSize = (cellSize <= 0) ? 0 : (1 / cellSize);
+
+         // boustrophedon order, consecutive cells are always neighbors
+         starts = new int[cellsCount + 1];
+         for (int i = 0; i < positionsSize; i++) {
+            final int x = cellIndex(points[(i * 3)], lower[0], inverseCellSize, cells[0]);
+            int y = cellIndex(points[(i * 3) + 1], lower[1], inverseCellSize, cells[1]);
+            int z = cellIndex(points[(i * 3) + 2], lower[2], inverseCellSize, cells[2]);
+            if ((x % 2) == 1) {
+               z = cells[2] - 1 - z;
+            }
+            final int column = (x * cells[2]) + z;
+            if ((column % 2) == 1) {
+               y = cells[1] - 1 - y;
+            }
+            final int cell = (column * cells[1]) + y;
+            pointsCells[i] = cell;
+            starts[cell + 1]++;
+         }
+
+         int occupiedCells = 0;
+         for (int cell = 1; cell <= cellsCount; cell++) {
+            if (starts[cell] > 0) {
+               occupiedCells++;
+            }
+         }
+         // LIDAR points lie on a surface and leave most of the cells empty, the cells get smaller as for a surface
+         if ((pass == MAX_GRID_PASSES) || ((occupiedCells * 3) >= (targetBlocksCount * 2)) || (cellSize <= 0)) {
+            break;
+         }
+         cellSize *= Math.sqrt((double) occupiedCells / targetBlocksCount);
+      }
+      for (int cell = 0; cell < cellsCount; cell++) {
+         starts[cell + 1] += starts[cell];
+      }
+
+      final int[] cursors = new int[cellsCount];
+      System.arraycopy(starts, 0, cursors, 0, cellsCount);
+      for (int i = 0; i < positionsSize; i++) {
+         sorted[cursors[pointsCells[i]]++] = i;
+      }
+
+      return starts;
+   }
+
+
+   private static int cellIndex(final double value,
+                                final double lower,
+                                final double inverseCellSize,
+                                final int cells) {
+      if (cells == 1) {
+         return 0;
+      }
+      final int index = (int) ((value - lower) * inverseCellSize);
+      return (index >= cells) ? (cells - 1) : index;
+   }
+
+
+   // k-means of the points [from, to) with the clusters [fromCluster, toCluster)
+   private static void clusterGroup(final Workspace workspace,
+                                    final int from,
+                                    final int to,
+                                    final int fromCluster,
+                                    final int toCluster,
+                                    final int maxIterations) {
+      seed(workspace, from, to, fromCluster, toCluster);
+      for (int iteration = 1;; iteration++) {
+         updateCentroids(workspace, from, to, fromCluster, toCluster);
+         if (iteration >= maxIterations) {
+            break;
+         }
+         if (!assign(workspace, from, to, fromCluster, toCluster)) {
+            break;
+         }
+      }
+   }
+
+
+   /*
+    * k-means++: the first centroid is a random point, and every next one is a point chosen with a probability
+    * proportional to its squared distance to the closest centroid chosen before. Leaves every point assigned to its
+    * closest centroid, with the bounds of its distances to it and to the second closest one.
+    */
+   private static void seed(final Workspace workspace,
+                            final int from,
+                            final int to,
+                            final int fromCluster,
+                            final int toCluster) {
+      final double[] points = workspace._points;
+      final double[] centroids = workspace._centroids;
+      final int[] assignments = workspace._assignments;
+      // squared distances while seeding
+      final double[] upperBounds = workspace._upperBounds;
+      final double[] lowerBounds = workspace._lowerBounds;
+      final Random random = workspace._random;
+
+      setCentroid(points, from + random.nextInt(to - from), centroids, fromCluster);
+      double total = 0;
+      for (int r = from; r < to; r++) {
+         assignments[r] = fromCluster;
+         upperBounds[r] = squaredDistance(points, r, centroids, fromCluster);
+         lowerBounds[r] = Double.POSITIVE_INFINITY;
+         total += upperBounds[r];
+      }
+
+      for (int c = fromCluster + 1; c < toCluster; c++) {
+         // the last point if rounding (or only duplicated points) leaves nothing to choose
+         int chosen = to - 1;
+         double target = random.nextDouble() * total;
+         for (int r = from; r < to; r++) {
+            target -= upperBounds[r];
+            if (target < 0) {
+               chosen = r;
+               break;
+            }
+         }
+         setCentroid(points, chosen, centroids, c);
+
+         total = 0;
+         for (int r = from; r < to; r++) {
+            final double squaredDistance = squaredDistance(points, r, centroids, c);
+            if (squaredDistance < upperBounds[r]) {
+               lowerBounds[r] = upperBounds[r];
+               upperBounds[r] = squaredDistance;
+               assignments[r] = c;
+            }
+            else if (squaredDistance < lowerBounds[r]) {
+               lowerBounds[r] = squaredDistance;
+            }
+            total += upperBounds[r];
+         }
+      }
+
+      for (int r = from; r < to; r++) {
+         upperBounds[r] = Math.sqrt(upperBounds[r]);
+         lowerBounds[r] = Math.sqrt(lowerBounds[r]);
+      }
+   }
+
+
+   private static void setCentroid(final double[] points,
+                                   final int i,
+                                   final double[] centroids,
+                                   final int c) {
+      centroids[(c * 3)] = points[(i * 3)];
+      centroids[(c * 3) + 1] = points[(i * 3) + 1];
+      centroids[(c * 3) + 2] = points[(i * 3) + 2];
+   }
+
+
+   // moves the centroids to the means of their points, and keeps how much they moved
+   private static void updateCentroids(final Workspace workspace,
+                                       final int from,
+                                       final int to,
+                                       final int fromCluster,
+                                       final int toCluster) {
+      final double[] points = workspace._points;
+      final double[] centroids = workspace._centroids;
+      final int[] assignments = workspace._assignments;
+      final double[] sums = workspace._sums;
+      final int[] counts = workspace._counts;
+      final double[] shifts = workspace._shifts;
+
+      for (int c = fromCluster; c < toCluster; c++) {
+         sums[(c * 3)] = 0;
+         sums[(c * 3) + 1] = 0;
+         sums[(c * 3) + 2] = 0;
+         counts[c] = 0;
+      }
+      for (int r = from; r < to; r++) {
+         final int c = assignments[r];
+         sums[(c * 3)] += points[(r * 3)];
+         sums[(c * 3) + 1] += points[(r * 3) + 1];
+         sums[(c * 3) + 2] += points[(r * 3) + 2];
+         counts[c]++;
+      }
+      for (int c = fromCluster; c < toCluster; c++) {
+         final int count = counts[c];
+         // empty clusters keep their centroid
+         if (count > 0) {
+            final double x = sums[(c * 3)] / count;
+            final double y = sums[(c * 3) + 1] / count;
+            final double z = sums[(c * 3) + 2] / count;
+            final double dx = x - centroids[(c * 3)];
+            final double dy = y - centroids[(c * 3) + 1];
+            final double dz = z - centroids[(c * 3) + 2];
+            shifts[c] = Math.sqrt((dx * dx) + (dy * dy) + (dz * dz));
+            centroids[(c * 3)] = x;
+            centroids[(c * 3) + 1] = y;
+            centroids[(c * 3) + 2] = z;
+         }
+         else {
+            shifts[c] = 0;
+         }
+      }
+   }
+
+
+   /*
+    * Assigns every point to its closest centroid, skipping the points that Hamerly's bounds prove can't change their
+    * cluster. Returns true if any point changed its cluster.
+    */
+   private static boolean assign(final Workspace workspace,
+                                 final int from,
+                                 final int to,
+                                 final int fromCluster,
+                                 final int toCluster) {
+      final double[] points = workspace._points;
+      final double[] centroids = workspace._centroids;
+      final int[] assignments = workspace._assignments;
+      final double[] upperBounds = workspace._upperBounds;
+      final double[] lowerBounds = workspace._lowerBounds;
+      final double[] shifts = workspace._shifts;
+      final double[] halfSeparations = workspace._halfSeparations;
+
+      double maxShift = 0;
+      for (int c = fromCluster; c < toCluster; c++) {
+         halfSeparations[c] = Double.POSITIVE_INFINITY;
+         if (shifts[c] > maxShift) {
+            maxShift = shifts[c];
+         }
+      }
+      for (int c = fromCluster; c < toCluster; c++) {
+         for (int other = c + 1; other < toCluster; other++) {
+            final double halfSeparation = Math.sqrt(squaredDistance(centroids, c, centroids, other)) / 2;
+            if (halfSeparation < halfSeparations[c]) {
+               halfSeparations[c] = halfSeparation;
+            }
+            if (halfSeparation < halfSeparations[other]) {
+               halfSeparations[other] = halfSeparation;
+            }
+         }
+      }
+
+      boolean changed = false;
+      for (int r = from; r < to; r++) {
+         final int assigned = assignments[r];
+         upperBounds[r] += shifts[assigned];
+         lowerBounds[r] -= maxShift;
+
+         // no other centroid can be closer than half the distance to the closest one, nor than the lower bound
+         final double bound = Math.max(halfSeparations[assigned], lowerBounds[r]);
+         if (upperBounds[r] <= bound) {
+            continue;
+         }
+         upperBounds[r] = Math.sqrt(squaredDistance(points, r, centroids, assigned));
+         if (upperBounds[r] <= bound) {
+            continue;
+         }
+
+         int nearest = -1;
+         double nearestSquaredDistance = Double.POSITIVE_INFINITY;
+         double secondSquaredDistance = Double.POSITIVE_INFINITY;
+         for (int c = fromCluster; c < toCluster; c++) {
+            final double squaredDistance = squaredDistance(points, r, centroids, c);
+            if (squaredDistance < nearestSquaredDistance) {
+               secondSquaredDistance = nearestSquaredDistance;
+               nearest = c;
+               nearestSquaredDistance = squaredDistance;
+            }
+            else if (squaredDistance < secondSquaredDistance) {
+               secondSquaredDistance = squaredDistance;
+            }
+         }
+         upperBounds[r] = Math.sqrt(nearestSquaredDistance);
+         lowerBounds[r] = Math.sqrt(secondSquaredDistance);
+         if (nearest != assigned) {
+            assignments[r] = nearest;
+            changed = true;
+         }
+      }
+      return changed;
+   }
+
+
+   private static void addClosestPositions(final List<Geodetic3D> positions,
+                                           final Workspace workspace,
+                                           final int[] sorted,
+                                           final int from,
+                                           final int to,
+                                           final int fromCluster,
+                                           final int toCluster,
+                                           final List<Geodetic3D> result) {
+      final int clustersCount = toCluster - fromCluster;
+      final int[] closest = new int[clustersCount];
+      final double[] closestSquaredDistances = new double[clustersCount];
+      for (int c = 0; c < clustersCount; c++) {
+         closest[c] = -1;
+         closestSquaredDistances[c] = Double.POSITIVE_INFINITY;
+      }
+
+      final double[] points = workspace._points;
+      final double[] centroids = workspace._centroids;
+      final int[] assignments = workspace._assignments;
+      for (int r = from; r < to; r++) {
+         final int c = assignments[r] - fromCluster;
+         final double squaredDistance = squaredDistance(points, r, centroids, assignments[r]);
+         if (squaredDistance < closestSquaredDistances[c]) {
+            closestSquaredDistances[c] = squaredDistance;
+            closest[c] = sorted[r];
+         }
+      }
+
+      for (int c = 0; c < clustersCount; c++) {
+         if (closest[c] != -1) {
+            result.add(positions.get(closest[c]));
+         }
+      }
+   }
+
+
+}
@@ -0,0 +1,315 @@
+
+
+package com.glob3mobile.pointcloud.octree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.glob3mobile.utils.Geodetic3D;
+
+
+/*
+ * Compares KMeans and FastKMeans simplifying synthetic LIDAR tiles (scan lines over a terrain with buildings and
+ * vegetation), with the same result size factor used by SimplifyOctreeTask. FastKMeans5 runs FastKMeans up to 5
+ * iterations, where its assignments are pruned with Hamerly's bounds.
+ *
+ * Reports the median time of several runs (after some warm-up runs) and the simplification error: the RMS distance
+ * (in meters) from every point of the tile to the closest simplified point.
+ */
+public class KMeansBenchmark {
+
+   // enough runs for the JIT to settle on a single core
+   private static final int   WARMUP_RUNS        = 10;
+   private static final int   MEASURED_RUNS      = 9;
+   private static final float RESULT_SIZE_FACTOR = 1.0f / 8;
+
+
+   private interface Clusterer {
+      List<Geodetic3D> cluster(List<Geodetic3D> points,
+                               int k);
+   }
+
+
+   private static List<Geodetic3D> createTile(final int pointsCount,
+                                              final Random random) {
+      // about 500x500 meters
+      final double lowerLatitude = 40.5;
+      final double lowerLongitude = 6.0;
+      final double deltaDegrees = 0.0045;
+
+      final int scanLines = (int) Math.sqrt(pointsCount);
+      final int pointsPerLine = (pointsCount + scanLines - 1) / scanLines;
+
+      final List<Geodetic3D> points = new ArrayList<>(pointsCount);
+      for (int i = 0; i < pointsCount; i++) {
+         final int line = i / pointsPerLine;
+         final double u = ((i % pointsPerLine) + (random.nextDouble() * 0.5)) / pointsPerLine;
+         final double v = (line + (random.nextGaussian() * 0.1)) / scanLines;
+
+         double height = 300 + (25 * Math.sin(u * 5)) + (15 * Math.cos(v * 7));
+         final boolean building = (((int) (u * 20) % 3) == 0) && (((int) (v * 20) % 4) == 1);
+         if (building) {
+            height += 12;
+         }
+         else if (random.nextDouble() < 0.2) {
+            // vegetation
+            height += random.nextDouble() * 8;
+         }
+         height += random.nextGaussian() * 0.05;
+
+         points.add(Geodetic3D.fromRadians( //
+                  Math.toRadians(lowerLatitude + (v * deltaDegrees)), //
+                  Math.toRadians(lowerLongitude + (u * deltaDegrees)), //
+                  height));
+      }
+      return points;
+   }
+
+
+   /*
+    * KD-tree over the simplified points, stored implicitly: the node of the range [from, to) is the point at the middle
+    * of the range, and the children are the ranges at both sides.
+    */
+   private static class NearestPointTree {
+      private final int[]    _order;
+      private final byte[]   _axes;
+      private final double[] _points;
+
+      // result of the last query
+      private double         _nearestSquaredDistance;
+
+      private double         _x;
+      private double         _y;
+      private double         _z;
+
+
+      private NearestPointTree(final double[] points) {
+         final int size = points.length / 3;
+         _order = new int[size];
+         _axes = new byte[size];
+         _points = points;
+         for (int i = 0; i < size; i++) {
+            _order[i] = i;
+         }
+         build(0, size);
+      }
+
+
+      private void build(final int from,
+                         final int to) {
+         if ((to - from) <= 1) {
+            return;
+         }
+
+         double minX = Double.POSITIVE_INFINITY;
+         double minY = Double.POSITIVE_INFINITY;
+         double minZ = Double.POSITIVE_INFINITY;
+         double maxX = Double.NEGATIVE_INFINITY;
+         double maxY = Double.NEGATIVE_INFINITY;
+         double maxZ = Double.NEGATIVE_INFINITY;
+         for (int i = from; i < to; i++) {
+            final int c = _order[i] * 3;
+            minX = Math.min(minX, _points[c]);
+            minY = Math.min(minY, _points[c + 1]);
+            minZ = Math.min(minZ, _points[c + 2]);
+            maxX = Math.max(maxX, _points[c]);
+            maxY = Math.max(maxY, _points[c + 1]);
+            maxZ = Math.max(maxZ, _points[c + 2]);
+         }
+         final double extentX = maxX - minX;
+         final double extentY = maxY - minY;
+         final double extentZ = maxZ - minZ;
+         final int axis = ((extentX >= extentY) && (extentX >= extentZ)) ? 0 : ((extentY >= extentZ) ? 1 : 2);
+
+         final int middle = (from + to) >>> 1;
+         select(from, to - 1, middle, axis);
+         _axes[middle] = (byte) axis;
+
+         build(from, middle);
+         build(middle + 1, to);
+      }
+
+
+      // quickselect, leaves in middle the point that would be there if the range were sorted by the given axis
+      private void select(final int fromIndex,
+                          final int toIndex,
+                          final int middle,
+                          final int axis) {
+         int left = fromIndex;
+         int right = toIndex;
+         while (right > left) {
+            final double pivot = _points[(_order[(left + right) >>> 1] * 3) + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+               while (_points[(_order[i] * 3) + axis] < pivot) {
+                  i++;
+               }
+               while (_points[(_order[j] * 3) + axis] > pivot) {
+                  j--;
+               }
+               if (i <= j) {
+                  final int swap = _order[i];
+                  _order[i] = _order[j];
+                  _order[j] = swap;
+                  i++;
+                  j--;
+               }
+            }
+            if (middle <= j) {
+               right = j;
+            }
+            else if (middle >= i) {
+               left = i;
+            }
+            else {
+               return;
+            }
+         }
+      }
+
+
+      private void findNearest(final double[] points,
+                               final int i) {
+         _x = points[(i * 3)];
+         _y = points[(i * 3) + 1];
+         _z = points[(i * 3) + 2];
+         _nearestSquaredDistance = Double.POSITIVE_INFINITY;
+
+         search(0, _order.length);
+      }
+
+
+      private void search(final int from,
+                          final int to) {
+         if (from >= to) {
+            return;
+         }
+
+         final int middle = (from + to) >>> 1;
+         final int c = _order[middle] * 3;
+
+         final double dx = _x - _points[c];
+         final double dy = _y - _points[c + 1];
+         final double dz = _z - _points[c + 2];
+         final double squaredDistance = (dx * dx) + (dy * dy) + (dz * dz);
+         if (squaredDistance < _nearestSquaredDistance) {
+            _nearestSquaredDistance = squaredDistance;
+         }
+
+         if ((to - from) == 1) {
+            return;
+         }
+
+         final double delta;
+         switch (_axes[middle]) {
+            case 0:
+               delta = dx;
+               break;
+            case 1:
+               delta = dy;
+               break;
+            default:
+               delta = dz;
+               break;
+         }
+
+         if (delta < 0) {
+            search(from, middle);
+            if ((delta * delta) < _nearestSquaredDistance) {
+               search(middle + 1, to);
+            }
+         }
+         else {
+            search(middle + 1, to);
+            if ((delta * delta) < _nearestSquaredDistance) {
+               search(from, middle);
+            }
+         }
+      }
+   }
+
+
+   private static double rmsError(final List<Geodetic3D> points,
+                                  final List<Geodetic3D> simplified) {
+      final double[] cartesianPoints = FastKMeans.toCartesian(points, 1);
+      final double[] cartesianSimplified = FastKMeans.toCartesian(simplified, 1);
+
+      final NearestPointTree tree = new NearestPointTree(cartesianSimplified);
+
+      double sum = 0;
+      final int pointsSize = points.size();
+      for (int i = 0; i < pointsSize; i++) {
+         tree.findNearest(cartesianPoints, i);
+         sum += tree._nearestSquaredDistance;
+      }
+      return Math.sqrt(sum / pointsSize);
+   }
+
+
+   private static void run(final String name,
+                           final Clusterer clusterer,
+                           final List<Geodetic3D> points) {
+      final int k = Math.round(points.size() * RESULT_SIZE_FACTOR);
+
+      List<Geodetic3D> simplified = null;
+      for (int i = 0; i < WARMUP_RUNS; i++) {
+         simplified = clusterer.cluster(points, k);
+      }
+
+      final long[] times = new long[MEASURED_RUNS];
+      for (int i = 0; i < MEASURED_RUNS; i++) {
+         final long started = System.nanoTime();
+         simplified = clusterer.cluster(points, k);
+         times[i] = System.nanoTime() - started;
+      }
+      Arrays.sort(times);
+      final double medianMs = times[MEASURED_RUNS / 2] / 1e6;
+
+      System.out.println(String.format("  %-12s points=%-7d k=%-6d result=%-6d time=%9.2fms  rmsError=%.3fm", name,
+               points.size(), k, simplified.size(), medianMs, rmsError(points, simplified)));
+   }
+
+
+   public static void main(final String[] args) {
+      System.out.println("KMeansBenchmark 0.1");
+      System.out.println("-------------------\n");
+
+      final Clusterer kMeans = new Clusterer() {
+         @Override
+         public List<Geodetic3D> cluster(final List<Geodetic3D> points,
+                                         final int k) {
+            return KMeans.cluster(points, k, 1);
+         }
+      };
+      final Clusterer fastKMeans = new Clusterer() {
+         @Override
+         public List<Geodetic3D> cluster(final List<Geodetic3D> points,
+                                         final int k) {
+            return FastKMeans.cluster(points, k, 1);
+         }
+      };
+      final Clusterer fastKMeans5 = new Clusterer() {
+         @Override
+         public List<Geodetic3D> cluster(final List<Geodetic3D> points,
+                                         final int k) {
+            return FastKMeans.cluster(points, k, 1, 5);
+         }
+      };
+
+      final int[] tilesSizes = { 4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024 };
+      for (final int tileSize : tilesSizes) {
+         final List<Geodetic3D> points = createTile(tileSize, new Random(tileSize));
+
+         System.out.println("Tile of " + tileSize + " points:");
+         run("KMeans", kMeans, points);
+         run("FastKMeans", fastKMeans, points);
+         run("FastKMeans5", fastKMeans5, points);
+         System.out.println();
+      }
+   }
+
+
+}
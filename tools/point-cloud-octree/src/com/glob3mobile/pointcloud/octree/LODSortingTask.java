@@ -5,13 +5,16 @@ package com.glob3mobile.pointcloud.octree;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-
-import com.glob3mobile.pointcloud.kdtree.KDInnerNode;
-import com.glob3mobile.pointcloud.kdtree.KDLeafNode;
-import com.glob3mobile.pointcloud.kdtree.KDTree;
-import com.glob3mobile.pointcloud.kdtree.KDTreeVisitor;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.glob3mobile.pointcloud.kdtree.KDTreeSorter;
 import com.glob3mobile.pointcloud.octree.berkeleydb.BerkeleyDBLOD;
 import com.glob3mobile.pointcloud.octree.berkeleydb.TileHeader;
 import com.glob3mobile.utils.Geodetic3D;
@@ -19,27 +22,163 @@ import com.glob3mobile.utils.Sector;
 import com.glob3mobile.utils.Utils;
 
 import es.igosoftware.util.GProgress;
+import es.igosoftware.util.GStringUtils;
 
 
+/*
+ * The octree is read (depth-first) by the visiting thread, while the nodes are sorted in parallel by a fork-join pool.
+ * Every worker accumulates its sorted nodes in a batch that is written to the LOD DB in one transaction.
+ */
 class LODSortingTask
    implements
       PersistentOctree.Visitor {
-   private final GProgress _progress;
-   private final String    _lodCloudName;
-   private PersistentLOD   _lodDB;
-   private final long      _pointsCount;
-   private final int       _maxPointsPerLeaf;
-   private long            _sumLevelsCount;
 
-   private long            _processedPointsCount;
-   private final File      _cloudDirectory;
+   private static final int                        MAX_BATCH_NODES      = 64;
+   private static final int                        MAX_BATCH_POINTS     = 256 * 1024;
+
+   private final GProgress                         _progress;
+   private final String                            _lodCloudName;
+   private PersistentLOD                           _lodDB;
+   private final long                              _pointsCount;
+   private final int                               _maxPointsPerLeaf;
+   private final int                               _workersCount;
+   private final AtomicLong                        _sumLevelsCount       = new AtomicLong();
+   private final AtomicLong                        _processedPointsCount = new AtomicLong();
+   private final AtomicLong                        _processedNodesCount  = new AtomicLong();
+   private final File                              _cloudDirectory;
+
+   private ForkJoinPool                            _pool;
+   // bounds the nodes read but not yet sorted, to keep their points out of the memory
+   private final Semaphore                         _pendingNodes;
+   private final int                               _maxPendingNodes;
+   private final AtomicReference<Throwable>        _failure              = new AtomicReference<>();
+   private long                                    _started;
+
+   private final ConcurrentLinkedQueue<WriteBatch> _batches              = new ConcurrentLinkedQueue<>();
+   private final ThreadLocal<WriteBatch>           _workerBatch;
+   private final ThreadLocal<KDTreeSorter>         _workerSorter;
+
+
+   private class WriteBatch {
+      private final List<String>                 _nodesIDs     = new ArrayList<>();
+      private final List<List<List<Geodetic3D>>> _levelsPoints = new ArrayList<>();
+      private int                                _pointsCount  = 0;
+
+
+      private void add(final String nodeID,
+                       final List<List<Geodetic3D>> levelsPoints,
+                       final int pointsCount) {
+         _nodesIDs.add(nodeID);
+         _levelsPoints.add(levelsPoints);
+         _pointsCount += pointsCount;
+
+         if ((_nodesIDs.size() >= MAX_BATCH_NODES) || (_pointsCount >= MAX_BATCH_POINTS)) {
+            flush();
+         }
+      }
+
+
+      private void flush() {
+         if (_nodesIDs.isEmpty()) {
+            return;
+         }
+
+         // the batches are committed one at a time, concurrent transactions just fight for the DB locks
+         synchronized (_lodDB) {
+            final PersistentLOD.Transaction transaction = _lodDB.createTransaction();
+            final int size = _nodesIDs.size();
+            for (int i = 0; i < size; i++) {
+               _lodDB.put(transaction, _nodesIDs.get(i), _levelsPoints.get(i));
+            }
+            transaction.commit();
+         }
+
+         _nodesIDs.clear();
+         _levelsPoints.clear();
+         _pointsCount = 0;
+      }
+   }
+
+
+   private class NodeTask
+      extends
+         RecursiveAction {
+      private static final long      serialVersionUID = 1L;
+
+      private final byte[]           _binaryID;
+      private final Sector           _sector;
+      private final List<Geodetic3D> _points;
+      private final boolean          _octreeNode;
+
+
+      private NodeTask(final byte[] binaryID,
+                       final Sector sector,
+                       final List<Geodetic3D> points,
+                       final boolean octreeNode) {
+         _binaryID = binaryID;
+         _sector = sector;
+         _points = points;
+         _octreeNode = octreeNode;
+      }
+
+
+      @Override
+      protected void compute() {
+         if (!_octreeNode) {
+            sort();
+            return;
+         }
+
+         try {
+            if (_failure.get() == null) {
+               sort();
+
+               final int pointsSize = _points.size();
+               _processedPointsCount.addAndGet(pointsSize);
+               _processedNodesCount.incrementAndGet();
+               _progress.stepsDone(pointsSize);
+            }
+         }
+         catch (final Throwable e) {
+            _failure.compareAndSet(null, e);
+         }
+         finally {
+            _pendingNodes.release();
+         }
+      }
+
+
+      private void sort() {
+         if (_points.size() <= _maxPointsPerLeaf) {
+            process(Utils.toIDString(_binaryID), _points);
+            return;
+         }
+
+         final List<Geodetic3D> points = new ArrayList<>(_points);
+         final List<NodeTask> children = new ArrayList<>();
+         final TileHeader header = new TileHeader(_binaryID, _sector);
+         for (final TileHeader child : header.createChildren()) {
+            final List<Geodetic3D> childPoints = extractPoints(child._sector, points);
+            if (childPoints != null) {
+               children.add(new NodeTask(child._id, child._sector, childPoints, false));
+            }
+         }
+
+         if (!points.isEmpty()) {
+            throw new RuntimeException("Logic error!");
+         }
+
+         invokeAll(children);
+      }
+   }
 
 
    LODSortingTask(final File cloudDirectory,
                   final String lodCloudName,
                   final String sourceCloudName,
                   final long pointsCount,
-                  final int maxPointsPerLeaf) {
+                  final int maxPointsPerLeaf,
+                  final int workersCount) {
       _cloudDirectory = cloudDirectory;
       _lodCloudName = lodCloudName;
       _pointsCount = pointsCount;
@@ -54,29 +193,41 @@ class LODSortingTask
          }
       };
       _maxPointsPerLeaf = maxPointsPerLeaf;
+      _workersCount = workersCount;
+      _maxPendingNodes = workersCount * 4;
+      _pendingNodes = new Semaphore(_maxPendingNodes);
+
+      _workerBatch = new ThreadLocal<WriteBatch>() {
+         @Override
+         protected WriteBatch initialValue() {
+            final WriteBatch batch = new WriteBatch();
+            _batches.add(batch);
+            return batch;
+         }
+      };
+      _workerSorter = new ThreadLocal<KDTreeSorter>() {
+         @Override
+         protected KDTreeSorter initialValue() {
+            return new KDTreeSorter(2);
+         }
+      };
    }
 
 
    @Override
    public boolean visit(final PersistentOctree.Node node) {
-      final List<Geodetic3D> points = node.getPoints();
-      final int pointsSize = points.size();
-
-      if (pointsSize > 0) {
-         final PersistentLOD.Transaction transaction = _lodDB.createTransaction();
-         if (pointsSize > _maxPointsPerLeaf) {
-            final byte[] binaryID = Utils.toBinaryID(node.getID());
-            final Sector sector = TileHeader.sectorFor(binaryID);
-            splitPoints(transaction, _lodDB, binaryID, sector, new ArrayList<>(points), _maxPointsPerLeaf);
-         }
-         else {
-            process(transaction, _lodDB, node.getID(), points);
-         }
-         transaction.commit();
+      if (_failure.get() != null) {
+         final boolean keepWorking = false;
+         return keepWorking;
+      }
 
-         _processedPointsCount += pointsSize;
+      final List<Geodetic3D> points = node.getPoints();
+      if (!points.isEmpty()) {
+         final byte[] binaryID = Utils.toBinaryID(node.getID());
+         final Sector sector = (points.size() > _maxPointsPerLeaf) ? TileHeader.sectorFor(binaryID) : null;
 
-         _progress.stepsDone(pointsSize);
+         _pendingNodes.acquireUninterruptibly();
+         _pool.execute(new NodeTask(binaryID, sector, points, true));
       }
 
       final boolean keepWorking = true;
@@ -108,81 +259,36 @@ class LODSortingTask
    }
 
 
-   private void splitPoints(final PersistentLOD.Transaction transaction,
-                            final PersistentLOD lodDB,
-                            final byte[] nodeID,
-                            final Sector nodeSector,
-                            final List<Geodetic3D> points,
-                            final int maxPointsPerLeaf) {
-
-      final TileHeader header = new TileHeader(nodeID, nodeSector);
-      for (final TileHeader child : header.createChildren()) {
-         final List<Geodetic3D> childPoints = extractPoints(child._sector, points);
-         if (childPoints != null) {
-            if (childPoints.size() > maxPointsPerLeaf) {
-               splitPoints(transaction, lodDB, child._id, child._sector, childPoints, maxPointsPerLeaf);
-            }
-            else {
-               process(transaction, lodDB, Utils.toIDString(child._id), childPoints);
-            }
-         }
-      }
-
-      if (!points.isEmpty()) {
-         throw new RuntimeException("Logic error!");
-      }
-   }
-
-
-   private void process(final PersistentLOD.Transaction transaction,
-                        final PersistentLOD lodDB,
-                        final String nodeID,
+   private void process(final String nodeID,
                         final List<Geodetic3D> points) {
       final int pointsSize = points.size();
 
-      final List<Integer> sortedIndices = new ArrayList<>(pointsSize);
-      final LinkedList<Integer> lodIndices = new LinkedList<>();
-
-      if (pointsSize == 1) {
-         // just one vertex, no need to sort
-         lodIndices.add(0);
-         sortedIndices.add(0);
-      }
-      else {
-         sortPoints(points, sortedIndices, lodIndices);
-      }
+      final KDTreeSorter sorter = _workerSorter.get();
+      sorter.sort(points);
 
       //      System.out.println(nodeID + //
-      //               " lodLevels=" + lodIndices.size() + //
-      //               ", points=" + pointsSize + //
-      //               ", lodIndices=" + lodIndices);
+      //               " lodLevels=" + sorter.getLevelsCount() + //
+      //               ", points=" + pointsSize);
 
 
-      final int lodLevels = lodIndices.size();
-      _sumLevelsCount += lodLevels;
+      final int lodLevels = sorter.getLevelsCount();
+      _sumLevelsCount.addAndGet(lodLevels);
 
       final List<List<Geodetic3D>> levelsPoints = new ArrayList<>(lodLevels);
       int pointsCounter = 0;
       int fromIndexI = 0;
       for (int level = 0; level < lodLevels; level++) {
-         final int toIndexI = lodIndices.get(level);
+         final int toIndexI = sorter.getLevelLastIndex(level);
 
          final int levelPointsSize = (toIndexI - fromIndexI) + 1;
          final List<Geodetic3D> levelPoints = new ArrayList<>(levelPointsSize);
-         //         System.out.println("Extracting point for level " + level + " range=" + fromIndexI + "->" + toIndexI + " (size="
-         //                            + levelPointsSize + ")");
          for (int indexI = fromIndexI; indexI <= toIndexI; indexI++) {
-            final int index = sortedIndices.get(indexI);
+            final int index = sorter.getSortedIndex(indexI);
             final Geodetic3D point = points.get(index);
             levelPoints.add(point);
          }
          pointsCounter += levelPoints.size();
 
-         if (levelPointsSize != levelPoints.size()) {
-            throw new RuntimeException("Logic error!");
-         }
-
-         //lodDB.put(transaction, nodeID, level, levelPoints);
          levelsPoints.add(levelPoints);
 
          fromIndexI = toIndexI + 1;
@@ -192,7 +298,7 @@ class LODSortingTask
          throw new RuntimeException("Logic error!");
       }
 
-      lodDB.put(transaction, nodeID, levelsPoints);
+      _workerBatch.get().add(nodeID, levelsPoints, pointsSize);
    }
 
 
@@ -294,83 +400,62 @@ class LODSortingTask
    //   }
 
 
-   private static void sortPoints(final List<Geodetic3D> points,
-                                  final List<Integer> sortedIndices,
-                                  final List<Integer> lodIndices) {
-
-      final KDTree tree = new KDTree(points, 2);
-
-      final KDTreeVisitor visitor = new KDTreeVisitor() {
-         private int _lastDepth = 0;
-
-
-         @Override
-         public void startVisiting(final KDTree tree1) {
-         }
-
-
-         @Override
-         public void visitInnerNode(final KDInnerNode innerNode) {
-            pushVertexIndex(innerNode.getVertexIndexes(), innerNode.getDepth());
-         }
-
-
-         @Override
-         public void visitLeafNode(final KDLeafNode leafNode) {
-            pushVertexIndex(leafNode.getVertexIndexes(), leafNode.getDepth());
-         }
-
-
-         private void pushVertexIndex(final int[] vertexIndexes,
-                                      final int depth) {
-            if (_lastDepth != depth) {
-               _lastDepth = depth;
-
-               final int sortedIndicesCount = sortedIndices.size();
-               if (sortedIndicesCount > 0) {
-                  lodIndices.add(sortedIndicesCount - 1);
-               }
-            }
-
-            for (final int vertexIndex : vertexIndexes) {
-               sortedIndices.add(vertexIndex);
-            }
-         }
-
-
-         @Override
-         public void endVisiting(final KDTree tree1) {
-         }
-      };
-      tree.breadthFirstAcceptVisitor(visitor);
-
-      final int sortedIndicesCount = sortedIndices.size();
-      if (sortedIndicesCount > 0) {
-         lodIndices.add(sortedIndicesCount - 1);
-      }
-   }
-
-
    @Override
    public void start() {
       final int cacheSizeInBytes = 1024 * 1024 * 1024;
       _lodDB = BerkeleyDBLOD.open(_cloudDirectory, _lodCloudName, true, cacheSizeInBytes);
 
-      _processedPointsCount = 0;
-      _sumLevelsCount = 0;
+      _pool = new ForkJoinPool(_workersCount);
+      _processedPointsCount.set(0);
+      _processedNodesCount.set(0);
+      _sumLevelsCount.set(0);
+      _started = System.currentTimeMillis();
    }
 
 
    @Override
    public void stop() {
-      _lodDB.close();
-      _lodDB = null;
+      // all the permits are back once every node was sorted
+      _pendingNodes.acquireUninterruptibly(_maxPendingNodes);
+      _pendingNodes.release(_maxPendingNodes);
+
+      _pool.shutdown();
+      try {
+         _pool.awaitTermination(1, TimeUnit.MINUTES);
+      }
+      catch (final InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+      _pool = null;
+
+      try {
+         if (_failure.get() == null) {
+            for (final WriteBatch batch : _batches) {
+               batch.flush();
+            }
+         }
+         _batches.clear();
+      }
+      finally {
+         _lodDB.close();
+         _lodDB = null;
+      }
+
+      final Throwable failure = _failure.get();
+      if (failure != null) {
+         throw new RuntimeException("Error building the LOD", failure);
+      }
 
       _progress.finish();
 
-      System.out.println("levels count=" + _sumLevelsCount);
+      final long elapsed = Math.max(System.currentTimeMillis() - _started, 1);
+      final long processedPointsCount = _processedPointsCount.get();
+      System.out.println("levels count=" + _sumLevelsCount.get());
+      System.out.println("sorted " + _processedNodesCount.get() + " nodes, " + processedPointsCount + " points in "
+                         + GStringUtils.getTimeMessage(elapsed) + " with " + _workersCount + " workers ("
+                         + ((processedPointsCount * 1000) / elapsed) + " points/sec)");
 
-      if (_processedPointsCount != _pointsCount) {
+      if (processedPointsCount != _pointsCount) {
          throw new RuntimeException("Logic error");
       }
    }
@@ -79,6 +79,14 @@ AutoCloseable {
    void addPoint(Geodetic3D point);
 
 
+   void addPoint(double latitudeInRadians,
+                 double longitudeInRadians,
+                 double height);
+
+
+   void addPoints(PointsBuffer points);
+
+
    void optimize();
 
 
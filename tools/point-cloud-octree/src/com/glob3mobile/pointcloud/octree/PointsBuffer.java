@@ -0,0 +1,237 @@
+
+
+package com.glob3mobile.pointcloud.octree;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.glob3mobile.utils.Geodetic3D;
+import com.glob3mobile.utils.Sector;
+
+
+public class PointsBuffer {
+
+
+   private static final int DEFAULT_CAPACITY = 16;
+
+
+   private double[]         _latitudesInRadians;
+   private double[]         _longitudesInRadians;
+   private double[]         _heights;
+   private int              _size;
+
+
+   public PointsBuffer() {
+      this(DEFAULT_CAPACITY);
+   }
+
+
+   public PointsBuffer(final int initialCapacity) {
+      final int capacity = Math.max(initialCapacity, 1);
+      _latitudesInRadians = new double[capacity];
+      _longitudesInRadians = new double[capacity];
+      _heights = new double[capacity];
+      _size = 0;
+   }
+
+
+   public PointsBuffer(final PointsBuffer that) {
+      final int capacity = Math.max(that._size, 1);
+      _latitudesInRadians = Arrays.copyOf(that._latitudesInRadians, capacity);
+      _longitudesInRadians = Arrays.copyOf(that._longitudesInRadians, capacity);
+      _heights = Arrays.copyOf(that._heights, capacity);
+      _size = that._size;
+   }
+
+
+   public int size() {
+      return _size;
+   }
+
+
+   public boolean isEmpty() {
+      return _size == 0;
+   }
+
+
+   public void clear() {
+      _size = 0;
+   }
+
+
+   private void ensureCapacity(final int minCapacity) {
+      final int capacity = _latitudesInRadians.length;
+      if (minCapacity > capacity) {
+         final int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1));
+         _latitudesInRadians = Arrays.copyOf(_latitudesInRadians, newCapacity);
+         _longitudesInRadians = Arrays.copyOf(_longitudesInRadians, newCapacity);
+         _heights = Arrays.copyOf(_heights, newCapacity);
+      }
+   }
+
+
+   public void add(final double latitudeInRadians,
+                   final double longitudeInRadians,
+                   final double height) {
+      ensureCapacity(_size + 1);
+      _latitudesInRadians[_size] = latitudeInRadians;
+      _longitudesInRadians[_size] = longitudeInRadians;
+      _heights[_size] = height;
+      _size++;
+   }
+
+
+   public void add(final Geodetic3D point) {
+      add(point._latitude._radians, point._longitude._radians, point._height);
+   }
+
+
+   public void addAll(final PointsBuffer that) {
+      final int thatSize = that._size;
+      ensureCapacity(_size + thatSize);
+      System.arraycopy(that._latitudesInRadians, 0, _latitudesInRadians, _size, thatSize);
+      System.arraycopy(that._longitudesInRadians, 0, _longitudesInRadians, _size, thatSize);
+      System.arraycopy(that._heights, 0, _heights, _size, thatSize);
+      _size += thatSize;
+   }
+
+
+   public double getLatitudeInRadians(final int i) {
+      return _latitudesInRadians[i];
+   }
+
+
+   public double getLongitudeInRadians(final int i) {
+      return _longitudesInRadians[i];
+   }
+
+
+   public double getHeight(final int i) {
+      return _heights[i];
+   }
+
+
+   public Geodetic3D get(final int i) {
+      if ((i < 0) || (i >= _size)) {
+         throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + _size);
+      }
+      return Geodetic3D.fromRadians(_latitudesInRadians[i], _longitudesInRadians[i], _heights[i]);
+   }
+
+
+   public Sector getBounds() {
+      if (_size == 0) {
+         return null;
+      }
+
+      double minLatitudeInRadians = _latitudesInRadians[0];
+      double minLongitudeInRadians = _longitudesInRadians[0];
+      double maxLatitudeInRadians = minLatitudeInRadians;
+      double maxLongitudeInRadians = minLongitudeInRadians;
+
+      for (int i = 1; i < _size; i++) {
+         final double latitudeInRadians = _latitudesInRadians[i];
+         final double longitudeInRadians = _longitudesInRadians[i];
+
+         if (latitudeInRadians < minLatitudeInRadians) {
+            minLatitudeInRadians = latitudeInRadians;
+         }
+         if (latitudeInRadians > maxLatitudeInRadians) {
+            maxLatitudeInRadians = latitudeInRadians;
+         }
+
+         if (longitudeInRadians < minLongitudeInRadians) {
+            minLongitudeInRadians = longitudeInRadians;
+         }
+         if (longitudeInRadians > maxLongitudeInRadians) {
+            maxLongitudeInRadians = longitudeInRadians;
+         }
+      }
+
+      return Sector.fromRadians( //
+               minLatitudeInRadians, minLongitudeInRadians, //
+               maxLatitudeInRadians, maxLongitudeInRadians);
+   }
+
+
+   public Geodetic3D getAverage() {
+      double sumLatitudeInRadians = 0;
+      double sumLongitudeInRadians = 0;
+      double sumHeight = 0;
+      for (int i = 0; i < _size; i++) {
+         sumLatitudeInRadians += _latitudesInRadians[i];
+         sumLongitudeInRadians += _longitudesInRadians[i];
+         sumHeight += _heights[i];
+      }
+      return Geodetic3D.fromRadians(sumLatitudeInRadians / _size, sumLongitudeInRadians / _size, sumHeight / _size);
+   }
+
+
+   // moves the points contained in the given sector into a new buffer (or null if none), compacting the remaining points in place
+   public PointsBuffer extract(final Sector sector) {
+      final double lowerLatitudeInRadians = sector._lower._latitude._radians;
+      final double lowerLongitudeInRadians = sector._lower._longitude._radians;
+      final double upperLatitudeInRadians = sector._upper._latitude._radians;
+      final double upperLongitudeInRadians = sector._upper._longitude._radians;
+
+      PointsBuffer extracted = null;
+      int remaining = 0;
+      for (int i = 0; i < _size; i++) {
+         final double latitudeInRadians = _latitudesInRadians[i];
+         final double longitudeInRadians = _longitudesInRadians[i];
+         if ((latitudeInRadians >= lowerLatitudeInRadians) && (latitudeInRadians <= upperLatitudeInRadians)
+             && (longitudeInRadians >= lowerLongitudeInRadians) && (longitudeInRadians <= upperLongitudeInRadians)) {
+            if (extracted == null) {
+               extracted = new PointsBuffer(_size - i);
+            }
+            extracted.add(latitudeInRadians, longitudeInRadians, _heights[i]);
+         }
+         else {
+            if (remaining != i) {
+               _latitudesInRadians[remaining] = latitudeInRadians;
+               _longitudesInRadians[remaining] = longitudeInRadians;
+               _heights[remaining] = _heights[i];
+            }
+            remaining++;
+         }
+      }
+      _size = remaining;
+
+      return extracted;
+   }
+
+
+   // read-only view, the Geodetic3D instances are created on demand
+   public List<Geodetic3D> asList() {
+      return new PointsBufferList();
+   }
+
+
+   private class PointsBufferList
+   extends
+   AbstractList<Geodetic3D>
+   implements
+   RandomAccess {
+
+      @Override
+      public Geodetic3D get(final int index) {
+         return PointsBuffer.this.get(index);
+      }
+
+
+      @Override
+      public int size() {
+         return _size;
+      }
+   }
+
+
+   @Override
+   public String toString() {
+      return "[PointsBuffer size=" + _size + "]";
+   }
+
+
+}
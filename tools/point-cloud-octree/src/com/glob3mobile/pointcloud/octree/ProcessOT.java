@@ -173,8 +173,9 @@ public class ProcessOT {
             BerkeleyDBLOD.delete(cloudDirectory, lodCloudName);
             //final int maxPointsPerLeaf = 4 * 1024;
             final int maxPointsPerLeaf = Integer.MAX_VALUE;
+            final int workersCount = Runtime.getRuntime().availableProcessors();
             sourceOctree.acceptDepthFirstVisitor(new LODSortingTask(cloudDirectory, lodCloudName, sourceCloudName, pointsCount,
-                     maxPointsPerLeaf));
+                     maxPointsPerLeaf, workersCount));
          }
          System.out.println();
       }
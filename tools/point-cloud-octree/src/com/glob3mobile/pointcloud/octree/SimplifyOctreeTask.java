@@ -3,6 +3,7 @@
 package com.glob3mobile.pointcloud.octree;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.List;
 
 import com.glob3mobile.pointcloud.octree.berkeleydb.BerkeleyDBOctree;
@@ -16,6 +17,14 @@ public class SimplifyOctreeTask
          implements
             PersistentOctree.Visitor {
 
+   public static enum Clustering {
+      // KMeans.cluster(), evenly spaced samples of the points sorted by distance to the bounds' lower corner
+      SORTED_SAMPLES,
+      // FastKMeans.cluster()
+      KMEANS;
+   }
+
+
    private final String     _sourceCloudName;
    private final File       _cloudDirectory;
    private final String     _simplifiedCloudName;
@@ -25,6 +34,7 @@ public class SimplifyOctreeTask
    private PersistentOctree _targetOctree;
    private GProgress        _progress;
    private final int        _maxPointsPerTitle;
+   private final Clustering _clustering;
 
 
    public SimplifyOctreeTask(final String sourceCloudName,
@@ -34,6 +44,19 @@ public class SimplifyOctreeTask
                              final long sourcePointsCount,
                              final float resultSizeFactor,
                              final int maxPointsPerTitle) {
+      this(sourceCloudName, cloudDirectory, simplifiedCloudName, cacheSizeInBytes, sourcePointsCount, resultSizeFactor,
+           maxPointsPerTitle, Clustering.KMEANS);
+   }
+
+
+   public SimplifyOctreeTask(final String sourceCloudName,
+                             final File cloudDirectory,
+                             final String simplifiedCloudName,
+                             final long cacheSizeInBytes,
+                             final long sourcePointsCount,
+                             final float resultSizeFactor,
+                             final int maxPointsPerTitle,
+                             final Clustering clustering) {
       _sourceCloudName = sourceCloudName;
       _cloudDirectory = cloudDirectory;
       _simplifiedCloudName = simplifiedCloudName;
@@ -41,6 +64,7 @@ public class SimplifyOctreeTask
       _sourcePointsCount = sourcePointsCount;
       _resultSizeFactor = resultSizeFactor;
       _maxPointsPerTitle = maxPointsPerTitle;
+      _clustering = clustering;
    }
 
 
@@ -126,7 +150,7 @@ public class SimplifyOctreeTask
 
       final List<Geodetic3D> points = sourceNode.getPoints();
       final int targetPointsCount = Math.round(sourcePointsSize * _resultSizeFactor);
-      final List<Geodetic3D> simplifiedPoints = KMeans.cluster(points, targetPointsCount, 1);
+      final List<Geodetic3D> simplifiedPoints = cluster(points, targetPointsCount);
 
       for (final Geodetic3D point : simplifiedPoints) {
          _targetOctree.addPoint(point);
@@ -140,6 +164,21 @@ public class SimplifyOctreeTask
    }
 
 
+   private List<Geodetic3D> cluster(final List<Geodetic3D> points,
+                                    final int targetPointsCount) {
+      switch (_clustering) {
+         case SORTED_SAMPLES:
+            return KMeans.cluster(points, targetPointsCount, 1);
+         case KMEANS:
+            if (targetPointsCount == 0) {
+               return Collections.emptyList();
+            }
+            return FastKMeans.cluster(points, targetPointsCount, 1);
+      }
+      throw new RuntimeException("Clustering not supported: " + _clustering);
+   }
+
+
    //   private static void sortPoints(final List<Geodetic3D> points,
    //                                  final List<Integer> sortedVertices,
    //                                  final List<Integer> lodIndices) {
@@ -266,6 +305,7 @@ public class SimplifyOctreeTask
 
          final int maxPointsPerTitle = 256 * 1024;
          final float resultSizeFactor = 1.0f / 8;
+         final Clustering clustering = Clustering.KMEANS;
 
          final SimplifyOctreeTask visitor = new SimplifyOctreeTask( //
                   completeSourceCloudName, //
@@ -274,7 +314,8 @@ public class SimplifyOctreeTask
                   cacheSizeInBytes, //
                   sourcePointsCount, //
                   resultSizeFactor, //
-                  maxPointsPerTitle);
+                  maxPointsPerTitle, //
+                  clustering);
          sourceOctree.acceptDepthFirstVisitor(visitor);
       }
 
@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.glob3mobile.pointcloud.octree.PersistentOctree;
+import com.glob3mobile.pointcloud.octree.PointsBuffer;
 import com.glob3mobile.utils.Geodetic3D;
 import com.glob3mobile.utils.Sector;
 import com.glob3mobile.utils.Utils;
@@ -94,7 +95,7 @@ public class BerkeleyDBOctree
 
    private final String           _cloudName;
 
-   private final List<Geodetic3D> _buffer;
+   private final PointsBuffer     _buffer;
    private final int              _maxBufferSize;
    private final int              _maxPointsPerTitle;
    private double                 _minLatitudeInRadians;
@@ -135,7 +136,7 @@ public class BerkeleyDBOctree
       _cloudName = cloudName;
 
       _maxBufferSize = maxBufferSize;
-      _buffer = new ArrayList<>(maxBufferSize);
+      _buffer = new PointsBuffer(maxBufferSize);
       resetBufferBounds();
 
       _maxPointsPerTitle = maxPointsPerTitle;
@@ -195,16 +196,20 @@ public class BerkeleyDBOctree
 
 
    @Override
-   synchronized public void addPoint(final Geodetic3D point) {
+   public void addPoint(final Geodetic3D point) {
+      addPoint(point._latitude._radians, point._longitude._radians, point._height);
+   }
+
+
+   @Override
+   synchronized public void addPoint(final double latitudeInRadians,
+                                     final double longitudeInRadians,
+                                     final double height) {
       if (_readOnly) {
          throw new RuntimeException("Can't add points to readonly OT");
       }
 
-      _buffer.add(point);
-
-      final double latitudeInRadians = point._latitude._radians;
-      final double longitudeInRadians = point._longitude._radians;
-      final double height = point._height;
+      _buffer.add(latitudeInRadians, longitudeInRadians, height);
 
       _sumLatitudeInRadians += latitudeInRadians;
       _sumLongitudeInRadians += longitudeInRadians;
@@ -249,7 +254,7 @@ public class BerkeleyDBOctree
                   _minLatitudeInRadians, _minLongitudeInRadians, //
                   _maxLatitudeInRadians, _maxLongitudeInRadians);
 
-         final Sector boundsSector = Sector.getBounds(_buffer);
+         final Sector boundsSector = _buffer.getBounds();
          if (!targetSector.equals(boundsSector)) {
             throw new RuntimeException("LOGIC ERROR");
          }
@@ -278,7 +283,8 @@ public class BerkeleyDBOctree
          final TransactionConfig txnConfig = new TransactionConfig();
          final Transaction txn = _env.beginTransaction(null, txnConfig);
 
-         final PointsSet pointsSet = new PointsSet(new ArrayList<>(_buffer), averagePoint);
+         // the insertion doesn't keep references to the points, so the buffer can be reused after the commit
+         final PointsSet pointsSet = new PointsSet(_buffer, averagePoint);
          BerkeleyDBOctreeNode.insertPoints(txn, this, header, pointsSet);
 
          txn.commit();
@@ -289,6 +295,69 @@ public class BerkeleyDBOctree
    }
 
 
+   // thread-safe: the partitioning runs in the caller thread, only the commit is serialized
+   @Override
+   public void addPoints(final PointsBuffer points) {
+      if (_readOnly) {
+         throw new RuntimeException("Can't add points to readonly OT");
+      }
+
+      if ((points == null) || points.isEmpty()) {
+         return;
+      }
+
+      deleteCachedStatistics();
+
+      final List<PointsBuffer> partitions = new ArrayList<>();
+      final TileHeader header = TileHeader.deepestEnclosingTileHeader(points.getBounds());
+      partitionPoints(header, new PointsBuffer(points), _maxPointsPerTitle, partitions);
+
+      insertPartitions(partitions);
+   }
+
+
+   private static void partitionPoints(final TileHeader header,
+                                       final PointsBuffer points,
+                                       final int maxPartitionSize,
+                                       final List<PointsBuffer> result) {
+      if (points.size() <= maxPartitionSize) {
+         result.add(points);
+         return;
+      }
+
+      final TileHeader[] children = header.createChildren();
+      for (final TileHeader child : children) {
+         final PointsBuffer childPoints = points.extract(child._sector);
+         if (childPoints != null) {
+            partitionPoints(child, childPoints, maxPartitionSize, result);
+         }
+      }
+
+      if (!points.isEmpty()) {
+         throw new RuntimeException("Logic error!");
+      }
+   }
+
+
+   // the partitions of a batch are committed in one transaction; the writes are serialized with flush()
+   synchronized private void insertPartitions(final List<PointsBuffer> partitions) {
+      final TransactionConfig txnConfig = new TransactionConfig();
+      final Transaction txn = _env.beginTransaction(null, txnConfig);
+      try {
+         for (final PointsBuffer partition : partitions) {
+            final TileHeader header = TileHeader.deepestEnclosingTileHeader(partition.getBounds());
+            final PointsSet pointsSet = new PointsSet(partition, partition.getAverage());
+            BerkeleyDBOctreeNode.insertPoints(txn, this, header, pointsSet);
+         }
+         txn.commit();
+      }
+      catch (final RuntimeException e) {
+         txn.abort();
+         throw e;
+      }
+   }
+
+
    @Override
    synchronized public void optimize() {
       // LOGGER.logInfo("Optimizing...");
@@ -6,10 +6,10 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 
 import com.glob3mobile.pointcloud.octree.PersistentOctree;
+import com.glob3mobile.pointcloud.octree.PointsBuffer;
 import com.glob3mobile.utils.Angle;
 import com.glob3mobile.utils.Geodetic3D;
 import com.glob3mobile.utils.Sector;
@@ -67,7 +67,7 @@ public class BerkeleyDBOctreeNode
    private Geodetic3D             _averagePoint;
    private final Format           _format;
    private int                    _pointsCount;
-   private List<Geodetic3D>       _points = null;
+   private PointsBuffer           _points = null;
 
 
    private BerkeleyDBOctreeNode(final BerkeleyDBOctree octree,
@@ -273,7 +273,7 @@ public class BerkeleyDBOctreeNode
                                                   final TileHeader header,
                                                   final PointsSet pointsSet,
                                                   final List<BerkeleyDBOctreeNode> descendants) {
-      final List<Geodetic3D> points = new ArrayList<>(pointsSet._points);
+      final PointsBuffer points = new PointsBuffer(pointsSet._points);
       for (final BerkeleyDBOctreeNode descendant : descendants) {
          final PointsSet descendantPointsSet = extractPoints(descendant._sector, points);
          if (descendantPointsSet != null) {
@@ -337,7 +337,7 @@ public class BerkeleyDBOctreeNode
       //         }
       //      }
 
-      if (getPoints().size() > _octree.getMaxPointsPerTile()) {
+      if (getPoints(txn).size() > _octree.getMaxPointsPerTile()) {
          split(txn);
          return;
       }
@@ -414,40 +414,12 @@ public class BerkeleyDBOctreeNode
 
 
    private static PointsSet extractPoints(final Sector sector,
-                                          final List<Geodetic3D> points) {
-      double sumLatitudeInRadians = 0;
-      double sumLongitudeInRadians = 0;
-      double sumHeight = 0;
-
-      final List<Geodetic3D> extracted = new ArrayList<>();
-
-      final Iterator<Geodetic3D> iterator = points.iterator();
-      while (iterator.hasNext()) {
-         final Geodetic3D point = iterator.next();
-         if (sector.contains(point._latitude, point._longitude)) {
-            extracted.add(point);
-
-            sumLatitudeInRadians += point._latitude._radians;
-            sumLongitudeInRadians += point._longitude._radians;
-            sumHeight += point._height;
-
-            iterator.remove();
-         }
-      }
-
-
-      final int extractedSize = extracted.size();
-      if (extractedSize == 0) {
+                                          final PointsBuffer points) {
+      final PointsBuffer extracted = points.extract(sector);
+      if (extracted == null) {
          return null;
       }
-
-      final double averageLatitudeInRadians = sumLatitudeInRadians / extractedSize;
-      final double averageLongitudeInRadians = sumLongitudeInRadians / extractedSize;
-      final double averageHeight = sumHeight / extractedSize;
-
-      final Geodetic3D averagePoint = Geodetic3D.fromRadians(averageLatitudeInRadians, averageLongitudeInRadians, averageHeight);
-
-      return new PointsSet(extracted, averagePoint);
+      return new PointsSet(extracted, extracted.getAverage());
    }
 
 
@@ -460,7 +432,7 @@ public class BerkeleyDBOctreeNode
       final int newPointsSize = newPointsSet.size();
       final int mergedPointsSize = oldPointsCount + newPointsSize;
 
-      final List<Geodetic3D> mergedPoints = new ArrayList<>(mergedPointsSize);
+      final PointsBuffer mergedPoints = new PointsBuffer(mergedPointsSize);
       mergedPoints.addAll(getPoints(txn));
       mergedPoints.addAll(newPointsSet._points);
 
@@ -485,7 +457,7 @@ public class BerkeleyDBOctreeNode
 
       remove(txn);
 
-      final List<Geodetic3D> points = new ArrayList<>(getPoints(txn));
+      final PointsBuffer points = new PointsBuffer(getPoints(txn));
 
       final TileHeader header = new TileHeader(_id, _sector);
       final TileHeader[] children = header.createChildren();
@@ -560,7 +532,7 @@ public class BerkeleyDBOctreeNode
       final int newPointsSize = newPointsSet.size();
       final int mergedPointsSize = oldPointsCount + newPointsSize;
 
-      final List<Geodetic3D> mergedPoints = new ArrayList<>(mergedPointsSize);
+      final PointsBuffer mergedPoints = new PointsBuffer(mergedPointsSize);
       mergedPoints.addAll(getPoints(txn));
       mergedPoints.addAll(newPointsSet._points);
 
@@ -612,11 +584,11 @@ public class BerkeleyDBOctreeNode
 
    @Override
    public List<Geodetic3D> getPoints() {
-      return getPoints(null);
+      return Collections.unmodifiableList(getPoints(null).asList());
    }
 
 
-   private List<Geodetic3D> getPoints(final Transaction txn) {
+   private PointsBuffer getPoints(final Transaction txn) {
       if (_points == null) {
          _points = loadPoints(txn);
       }
@@ -630,7 +602,7 @@ public class BerkeleyDBOctreeNode
    }
 
 
-   private List<Geodetic3D> loadPoints(final Transaction txn) {
+   private PointsBuffer loadPoints(final Transaction txn) {
       final Database nodeDataDB = _octree.getNodeDataDB();
 
       final DatabaseEntry dataEntry = new DatabaseEntry();
@@ -642,13 +614,13 @@ public class BerkeleyDBOctreeNode
       final ByteBuffer byteBuffer = ByteBuffer.wrap(dataEntry.getData());
 
 
-      final List<Geodetic3D> points = ByteBufferUtils.getPoints(byteBuffer, _format, _pointsCount);
+      final PointsBuffer points = ByteBufferUtils.getPointsBuffer(byteBuffer, _format, _pointsCount);
 
       if (_pointsCount != points.size()) {
          throw new RuntimeException("Inconsistency in pointsCount");
       }
 
-      return Collections.unmodifiableList(points);
+      return points;
    }
 
 
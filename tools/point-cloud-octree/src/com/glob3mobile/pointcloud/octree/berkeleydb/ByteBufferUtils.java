@@ -6,6 +6,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.glob3mobile.pointcloud.octree.PointsBuffer;
 import com.glob3mobile.utils.Geodetic3D;
 import com.glob3mobile.utils.Planet;
 import com.glob3mobile.utils.Sector;
@@ -138,6 +139,18 @@ public class ByteBufferUtils {
    }
 
 
+   public static int sizeOf(final Format format,
+                            final PointsBuffer points) {
+      switch (format) {
+         case LatLonHeight:
+            return points.size() * 3 * 8; // 3 doubles
+
+         default:
+            throw new RuntimeException("Unsupported format: " + format);
+      }
+   }
+
+
    public static int sizeOf(final Format format,
                             final List<Geodetic3D> points,
                             final Geodetic3D averagePoint) {
@@ -217,6 +230,45 @@ public class ByteBufferUtils {
    }
 
 
+   public static PointsBuffer getPointsBuffer(final ByteBuffer buffer,
+                                              final Format format,
+                                              final int pointsCount) {
+      switch (format) {
+         case LatLonHeight:
+            final PointsBuffer points = new PointsBuffer(pointsCount);
+            for (int i = 0; i < pointsCount; i++) {
+               final double latitude = buffer.getDouble();
+               final double longitude = buffer.getDouble();
+               final double height = buffer.getDouble();
+               points.add(latitude, longitude, height);
+            }
+            return points;
+
+         default:
+            throw new RuntimeException("Unsupported format: " + format);
+      }
+   }
+
+
+   public static void put(final ByteBuffer buffer,
+                          final Format format,
+                          final PointsBuffer points) {
+      switch (format) {
+         case LatLonHeight:
+            final int size = points.size();
+            for (int i = 0; i < size; i++) {
+               buffer.putDouble(points.getLatitudeInRadians(i));
+               buffer.putDouble(points.getLongitudeInRadians(i));
+               buffer.putDouble(points.getHeight(i));
+            }
+            break;
+
+         default:
+            throw new RuntimeException("Unsupported format: " + format);
+      }
+   }
+
+
    public static void put(final ByteBuffer buffer,
                           final Format format,
                           final List<Geodetic3D> points) {
@@ -0,0 +1,175 @@
+
+
+package com.glob3mobile.pointcloud.server;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import es.igosoftware.io.GIOUtils;
+
+
+/*
+ * Persistent cache of the binary encoded node levels. Every entry is stored in its own file (next to the cloud's DB) and
+ * served from a read-only memory-mapped buffer.
+ */
+class EncodedLevelsCache {
+
+   private static final Charset UTF8            = Charset.forName("UTF-8");
+   private static final String  STAMP_FILE_NAME = "_stamp";
+
+
+   static class Entry {
+      private final ByteBuffer _buffer;
+      final long               _lastModified;
+      final String             _eTag;
+
+
+      private Entry(final ByteBuffer buffer,
+                    final long lastModified) {
+         _buffer = buffer;
+         // HTTP dates have a resolution of seconds
+         _lastModified = (lastModified / 1000) * 1000;
+         _eTag = "\"" + Long.toHexString(_lastModified) + "-" + Integer.toHexString(buffer.capacity()) + "\"";
+      }
+
+
+      ByteBuffer getBuffer() {
+         // the mapped buffer is shared between requests, each one needs its own position
+         return _buffer.duplicate();
+      }
+
+
+      int getSize() {
+         return _buffer.capacity();
+      }
+   }
+
+
+   private final File               _directory;
+   private final Map<String, Entry> _mappedEntries;
+
+
+   EncodedLevelsCache(final File cloudDirectory,
+                      final String cloudName,
+                      final int maxMappedEntries) {
+      _directory = new File(cloudDirectory, "_encoded_" + cloudName);
+      _mappedEntries = new LinkedHashMap<String, Entry>(maxMappedEntries, 0.75f, true) {
+         private static final long serialVersionUID = 1L;
+
+
+         @Override
+         protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+            return size() > maxMappedEntries;
+         }
+      };
+
+      validate(new File(cloudDirectory, cloudName));
+   }
+
+
+   private static String getDBStamp(final File dbDirectory) {
+      long lastModified = 0;
+      final File[] files = dbDirectory.listFiles();
+      if (files != null) {
+         for (final File file : files) {
+            if (file.getName().endsWith(".jdb")) {
+               lastModified = Math.max(lastModified, file.lastModified());
+            }
+         }
+      }
+      return Long.toString(lastModified);
+   }
+
+
+   // the cached levels are discarded when the cloud's DB was modified after they were encoded
+   private void validate(final File dbDirectory) {
+      final String dbStamp = getDBStamp(dbDirectory);
+      final File stampFile = new File(_directory, STAMP_FILE_NAME);
+      try {
+         if (stampFile.exists()) {
+            final String cachedStamp = new String(Files.readAllBytes(stampFile.toPath()), UTF8);
+            if (cachedStamp.equals(dbStamp)) {
+               return;
+            }
+            GIOUtils.cleanDirectory(_directory, false);
+         }
+         if (!_directory.exists()) {
+            _directory.mkdirs();
+         }
+         Files.write(stampFile.toPath(), dbStamp.getBytes(UTF8));
+      }
+      catch (final IOException e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+
+   private File getFile(final String key) {
+      return new File(_directory, key + ".bin");
+   }
+
+
+   private static Entry map(final File file) throws IOException {
+      try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+         final FileChannel channel = raf.getChannel();
+         final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         return new Entry(buffer, file.lastModified());
+      }
+   }
+
+
+   Entry get(final String key) throws IOException {
+      synchronized (_mappedEntries) {
+         final Entry entry = _mappedEntries.get(key);
+         if (entry != null) {
+            return entry;
+         }
+      }
+
+      final File file = getFile(key);
+      if (!file.exists()) {
+         return null;
+      }
+
+      final Entry entry = map(file);
+      synchronized (_mappedEntries) {
+         _mappedEntries.put(key, entry);
+      }
+      return entry;
+   }
+
+
+   Entry put(final String key,
+             final byte[] data) throws IOException {
+      final File file = getFile(key);
+      final File parent = file.getParentFile();
+      if (!parent.exists()) {
+         parent.mkdirs();
+      }
+
+      // write to a temporary file and rename it, so concurrent readers never see a partial entry
+      final File tempFile = File.createTempFile("_encoding_", ".tmp", parent);
+      try (final FileOutputStream os = new FileOutputStream(tempFile)) {
+         os.write(data);
+      }
+      Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+      final Entry entry = map(file);
+      synchronized (_mappedEntries) {
+         _mappedEntries.put(key, entry);
+      }
+      return entry;
+   }
+
+
+}
@@ -8,11 +8,19 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -21,6 +29,8 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.eclipse.jetty.server.HttpOutput;
+
 import com.glob3mobile.pointcloud.octree.PersistentLOD;
 import com.glob3mobile.pointcloud.octree.berkeleydb.BerkeleyDBLOD;
 import com.glob3mobile.pointcloud.octree.berkeleydb.ByteBufferUtils;
@@ -177,7 +187,8 @@ public class PCSSServlet
 
    private static enum ResponseFormat {
       JSON,
-      BINARY;
+      BINARY,
+      QUANTIZED;
 
       private static ResponseFormat get(final String name) {
          for (final ResponseFormat candidate : ResponseFormat.values()) {
@@ -190,8 +201,15 @@ public class PCSSServlet
    }
 
 
-   private final Map<String, PersistentLOD> _openedDBs = new HashMap<>();
-   private File                             _cloudDirectory;
+   private static final int    MAX_MAPPED_ENCODED_LEVELS = 8192;
+   private static final int    MAX_METADATA_ENTRIES      = 32;
+   private static final String METADATA_KEY_NAME         = "metadata";
+
+
+   private final Map<String, PersistentLOD>      _openedDBs     = new HashMap<>();
+   private final Map<String, EncodedLevelsCache> _encodedLevels = new HashMap<>();
+   private File                                  _cloudDirectory;
+   private ExecutorService                       _precomputeExecutor;
 
 
    @Override
@@ -202,6 +220,74 @@ public class PCSSServlet
       // _cloudDirectory = new File("/Volumes/My Passport/_minnesota_lidar_/db");
 
       log("initialization of " + getClass() + " at " + _cloudDirectory);
+
+      final String precomputeClouds = config.getInitParameter("precomputeClouds");
+      if (precomputeClouds != null) {
+         precomputeMetadata( //
+                  XStringTokenizer.getAllTokens(precomputeClouds, ","), //
+                  XStringTokenizer.getAllTokens(getInitParameter(config, "precomputePlanets", "ellipsoidal"), ","), //
+                  XStringTokenizer.getAllTokens(getInitParameter(config, "precomputeVerticalExaggerations", "1"), ","), //
+                  XStringTokenizer.getAllTokens(getInitParameter(config, "precomputeDeltaHeights", "0"), ","));
+      }
+   }
+
+
+   private static String getInitParameter(final ServletConfig config,
+                                          final String name,
+                                          final String defaultValue) {
+      final String value = config.getInitParameter(name);
+      return (value == null) ? defaultValue : value;
+   }
+
+
+   // computes (and persists) the binary metadata of every combination in background, so the first requests don't pay for it
+   private void precomputeMetadata(final String[] cloudNames,
+                                   final String[] planetNames,
+                                   final String[] verticalExaggerations,
+                                   final String[] deltaHeights) {
+      _precomputeExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+      for (final String cloudName : cloudNames) {
+         for (final String planetName : planetNames) {
+            final Planet planet = getPlanet(planetName);
+            if (planet == null) {
+               log("can't precompute metadata, invalid planet: " + planetName);
+               continue;
+            }
+            for (final String verticalExaggerationStr : verticalExaggerations) {
+               final float verticalExaggeration = getFloat(verticalExaggerationStr, Float.NaN);
+               for (final String deltaHeightStr : deltaHeights) {
+                  final double deltaHeight = getDouble(deltaHeightStr, Double.NaN);
+                  if (Float.isNaN(verticalExaggeration) || Double.isNaN(deltaHeight)) {
+                     log("can't precompute metadata, invalid verticalExaggeration/deltaHeight: " + verticalExaggerationStr + "/"
+                         + deltaHeightStr);
+                     continue;
+                  }
+
+                  _precomputeExecutor.execute(new Runnable() {
+                     @Override
+                     public void run() {
+                        final PersistentLOD db = getDB(cloudName);
+                        if (db == null) {
+                           return;
+                        }
+                        try {
+                           final long start = System.currentTimeMillis();
+                           getEncodedMetadata(db, planetName, planet, verticalExaggeration, deltaHeight);
+                           log("precomputed metadata for " + cloudName + "/" + planetName + "/" + verticalExaggeration + "/"
+                               + deltaHeight + " in " + (System.currentTimeMillis() - start) + "ms");
+                        }
+                        catch (final IOException | RuntimeException e) {
+                           log("error precomputing metadata for " + cloudName, e);
+                        }
+                     }
+                  });
+               }
+            }
+         }
+      }
+
+      _precomputeExecutor.shutdown();
    }
 
 
@@ -230,6 +316,10 @@ public class PCSSServlet
       super.destroy();
       log("destroying " + getClass());
 
+      if (_precomputeExecutor != null) {
+         _precomputeExecutor.shutdownNow();
+      }
+
       synchronized (_openedDBs) {
          for (final Map.Entry<String, PersistentLOD> entry : _openedDBs.entrySet()) {
             try {
@@ -241,6 +331,22 @@ public class PCSSServlet
          }
          _openedDBs.clear();
       }
+
+      synchronized (_encodedLevels) {
+         _encodedLevels.clear();
+      }
+   }
+
+
+   private EncodedLevelsCache getEncodedLevelsCache(final String cloudName) {
+      synchronized (_encodedLevels) {
+         EncodedLevelsCache result = _encodedLevels.get(cloudName);
+         if (result == null) {
+            result = new EncodedLevelsCache(_cloudDirectory, cloudName, MAX_MAPPED_ENCODED_LEVELS);
+            _encodedLevels.put(cloudName, result);
+         }
+         return result;
+      }
    }
 
 
@@ -469,39 +575,84 @@ public class PCSSServlet
       }
    }
 
-   private static Map<String, MetadataEntry> _metadataCache = new HashMap<>();
+   // access ordered and bounded. Every entry is computed once by the first requester, outside the lock, while concurrent
+   // requesters of the same key wait for its future
+   private final Map<String, FutureTask<MetadataEntry>> _metadataCache;
+   {
+      _metadataCache = new LinkedHashMap<String, FutureTask<MetadataEntry>>(MAX_METADATA_ENTRIES, 0.75f, true) {
+         private static final long serialVersionUID = 1L;
 
 
-   private static MetadataEntry getMetadataEntry(final PersistentLOD db,
-                                                 final Planet planet,
-                                                 final float verticalExaggeration,
-                                                 final double deltaHeight) {
-      synchronized (_metadataCache) {
-         final String key = db.getCloudName() + "/" + planet + "/" + verticalExaggeration + "/" + deltaHeight;
-         MetadataEntry entry = _metadataCache.get(key);
-         if (entry == null) {
-            entry = new MetadataEntry( //
-                     planet, //
-                     db.getStatistics(false), //
-                     getNodesMetadata(db, planet, verticalExaggeration, deltaHeight), //
-                     verticalExaggeration, //
-                     deltaHeight);
-            _metadataCache.put(key, entry);
+         @Override
+         protected boolean removeEldestEntry(final Map.Entry<String, FutureTask<MetadataEntry>> eldest) {
+            return size() > MAX_METADATA_ENTRIES;
          }
-         return entry;
-      }
+      };
    }
 
 
-   private static void sendBinaryMetadata(final HttpServletResponse response,
-                                          final MetadataEntry metadata) throws IOException {
+   private MetadataEntry getMetadataEntry(final PersistentLOD db,
+                                          final Planet planet,
+                                          final float verticalExaggeration,
+                                          final double deltaHeight) {
+      final String key = db.getCloudName() + "/" + planet + "/" + verticalExaggeration + "/" + deltaHeight;
 
+      FutureTask<MetadataEntry> future;
+      boolean compute = false;
+      synchronized (_metadataCache) {
+         future = _metadataCache.get(key);
+         if (future == null) {
+            future = new FutureTask<>(new Callable<MetadataEntry>() {
+               @Override
+               public MetadataEntry call() {
+                  return new MetadataEntry( //
+                           planet, //
+                           db.getStatistics(false), //
+                           getNodesMetadata(db, planet, verticalExaggeration, deltaHeight), //
+                           verticalExaggeration, //
+                           deltaHeight);
+               }
+            });
+            _metadataCache.put(key, future);
+            compute = true;
+         }
+      }
 
-      response.setStatus(HttpServletResponse.SC_OK);
-      response.setContentType("application/octet-stream");
+      if (compute) {
+         future.run();
+      }
 
-      final ServletOutputStream os = response.getOutputStream();
-      os.write(metadata.getBuffer());
+      try {
+         return future.get();
+      }
+      catch (final InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      }
+      catch (final ExecutionException e) {
+         // don't keep the failure, the next request will retry
+         synchronized (_metadataCache) {
+            if (_metadataCache.get(key) == future) {
+               _metadataCache.remove(key);
+            }
+         }
+         throw new RuntimeException(e.getCause());
+      }
+   }
+
+
+   private EncodedLevelsCache.Entry getEncodedMetadata(final PersistentLOD db,
+                                                       final String planetName,
+                                                       final Planet planet,
+                                                       final float verticalExaggeration,
+                                                       final double deltaHeight) throws IOException {
+      final EncodedLevelsCache cache = getEncodedLevelsCache(db.getCloudName());
+      final String key = planetName.toLowerCase() + "_" + verticalExaggeration + "_" + deltaHeight + "/" + METADATA_KEY_NAME;
+      final EncodedLevelsCache.Entry entry = cache.get(key);
+      if (entry != null) {
+         return entry;
+      }
+      return cache.put(key, getMetadataEntry(db, planet, verticalExaggeration, deltaHeight).getBuffer());
    }
 
 
@@ -643,12 +794,14 @@ public class PCSSServlet
    }
 
 
-   private static void sendMetadata(final PersistentLOD db,
-                                    final Planet planet,
-                                    final ResponseFormat format,
-                                    final float verticalExaggeration,
-                                    final double deltaHeight,
-                                    final HttpServletResponse response) throws IOException {
+   private void sendMetadata(final HttpServletRequest request,
+                             final PersistentLOD db,
+                             final String planetName,
+                             final Planet planet,
+                             final ResponseFormat format,
+                             final float verticalExaggeration,
+                             final double deltaHeight,
+                             final HttpServletResponse response) throws IOException {
       switch (format) {
          case JSON: {
             response.addHeader("Access-Control-Allow-Origin", "*");
@@ -658,7 +811,7 @@ public class PCSSServlet
          }
          case BINARY: {
             response.addHeader("Access-Control-Allow-Origin", "*");
-            sendBinaryMetadata(response, getMetadataEntry(db, planet, verticalExaggeration, deltaHeight));
+            sendEncoded(request, response, getEncodedMetadata(db, planetName, planet, verticalExaggeration, deltaHeight));
             break;
          }
          default: {
@@ -669,7 +822,9 @@ public class PCSSServlet
    }
 
 
-   private void sendNodeLevelPoints(final PersistentLOD db,
+   private void sendNodeLevelPoints(final HttpServletRequest request,
+                                    final PersistentLOD db,
+                                    final String planetName,
                                     final Planet planet,
                                     final ResponseFormat format,
                                     final String nodeID,
@@ -677,21 +832,61 @@ public class PCSSServlet
                                     final float verticalExaggeration,
                                     final double deltaHeight,
                                     final HttpServletResponse response) throws IOException {
-      final PersistentLOD.NodeLevel nodeLevel = db.getNodeLevel(nodeID, level, false);
-      if (nodeLevel == null) {
-         error(response, "node/level not found: " + nodeID + "/" + level);
-         return;
-      }
-
       switch (format) {
          case JSON: {
+            final PersistentLOD.NodeLevel nodeLevel = db.getNodeLevel(nodeID, level, false);
+            if (nodeLevel == null) {
+               error(response, "node/level not found: " + nodeID + "/" + level);
+               return;
+            }
             response.addHeader("Access-Control-Allow-Origin", "*");
             sendJSONNodeLevelPoints(response, db, planet, nodeID, verticalExaggeration, deltaHeight, nodeLevel);
             break;
          }
-         case BINARY: {
+         case BINARY:
+         case QUANTIZED: {
+            // the encoded levels cache is checked before touching the DB
+            final EncodedLevelsCache cache = getEncodedLevelsCache(db.getCloudName());
+            final String key = planetName.toLowerCase() + "_" + verticalExaggeration + "_" + deltaHeight + "/" + nodeID + "_" + level
+                               + getKeySuffix(format);
+
+            EncodedLevelsCache.Entry entry = null;
+            boolean gzipped = false;
+            if ((format == ResponseFormat.QUANTIZED) && acceptsGzip(request)) {
+               // an empty gzipped entry marks the levels that don't shrink when compressed
+               final String gzippedKey = key + "z";
+               EncodedLevelsCache.Entry gzippedEntry = cache.get(gzippedKey);
+               if (gzippedEntry == null) {
+                  entry = getEncodedNodeLevel(cache, key, format, db, planet, nodeID, level, verticalExaggeration, deltaHeight);
+                  if (entry == null) {
+                     error(response, "node/level not found: " + nodeID + "/" + level);
+                     return;
+                  }
+                  final byte[] compressed = QuantizedUtils.gzip(entry.getBuffer());
+                  gzippedEntry = cache.put(gzippedKey, (compressed.length < entry.getSize()) ? compressed : new byte[0]);
+               }
+               if (gzippedEntry.getSize() > 0) {
+                  entry = gzippedEntry;
+                  gzipped = true;
+               }
+            }
+
+            if (entry == null) {
+               entry = getEncodedNodeLevel(cache, key, format, db, planet, nodeID, level, verticalExaggeration, deltaHeight);
+               if (entry == null) {
+                  error(response, "node/level not found: " + nodeID + "/" + level);
+                  return;
+               }
+            }
+
             response.addHeader("Access-Control-Allow-Origin", "*");
-            sendBinaryNodeLevelPoints(response, db, planet, nodeID, verticalExaggeration, deltaHeight, nodeLevel);
+            if (format == ResponseFormat.QUANTIZED) {
+               response.addHeader("Vary", "Accept-Encoding");
+            }
+            if (gzipped) {
+               response.addHeader("Content-Encoding", "gzip");
+            }
+            sendEncoded(request, response, entry);
             break;
          }
          default: {
@@ -702,17 +897,166 @@ public class PCSSServlet
    }
 
 
-   private void sendBinaryNodeLevelPoints(final HttpServletResponse response,
-                                          final PersistentLOD db,
-                                          final Planet planet,
-                                          final String nodeID,
-                                          final float verticalExaggeration,
-                                          final double deltaHeight,
-                                          final PersistentLOD.NodeLevel nodeLevel) throws IOException {
-      final GVector3F average = getNodeAverage(db, planet, nodeID, verticalExaggeration, deltaHeight);
+   private static String getKeySuffix(final ResponseFormat format) {
+      switch (format) {
+         case BINARY:
+            return "";
+         case QUANTIZED:
+            return "_q";
+         default:
+            throw new RuntimeException("format not supported: " + format);
+      }
+   }
+
+
+   private EncodedLevelsCache.Entry getEncodedNodeLevel(final EncodedLevelsCache cache,
+                                                        final String key,
+                                                        final ResponseFormat format,
+                                                        final PersistentLOD db,
+                                                        final Planet planet,
+                                                        final String nodeID,
+                                                        final int level,
+                                                        final float verticalExaggeration,
+                                                        final double deltaHeight) throws IOException {
+      final EncodedLevelsCache.Entry entry = cache.get(key);
+      if (entry != null) {
+         return entry;
+      }
+
+      final PersistentLOD.NodeLevel nodeLevel = db.getNodeLevel(nodeID, level, false);
+      if (nodeLevel == null) {
+         return null;
+      }
+
+      final byte[] encoded;
+      if (format == ResponseFormat.QUANTIZED) {
+         encoded = encodeQuantizedNodeLevelPoints(db, planet, nodeID, verticalExaggeration, deltaHeight, nodeLevel);
+      }
+      else {
+         encoded = encodeBinaryNodeLevelPoints(db, planet, nodeID, verticalExaggeration, deltaHeight, nodeLevel);
+      }
+      return cache.put(key, encoded);
+   }
+
+
+   private static boolean acceptsGzip(final HttpServletRequest request) {
+      final String acceptEncoding = request.getHeader("Accept-Encoding");
+      return (acceptEncoding != null) && acceptEncoding.toLowerCase().contains("gzip");
+   }
+
+
+   private static boolean isNotModified(final HttpServletRequest request,
+                                        final EncodedLevelsCache.Entry entry) {
+      final String ifNoneMatch = request.getHeader("If-None-Match");
+      if (ifNoneMatch != null) {
+         return ifNoneMatch.equals("*") || ifNoneMatch.contains(entry._eTag);
+      }
+
+      try {
+         final long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+         return (ifModifiedSince != -1) && (ifModifiedSince >= entry._lastModified);
+      }
+      catch (final IllegalArgumentException e) {
+         return false;
+      }
+   }
+
+
+   private static void sendEncoded(final HttpServletRequest request,
+                                   final HttpServletResponse response,
+                                   final EncodedLevelsCache.Entry entry) throws IOException {
+      response.setHeader("ETag", entry._eTag);
+      response.setDateHeader("Last-Modified", entry._lastModified);
+
+      if (isNotModified(request, entry)) {
+         response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+         return;
+      }
+
+      response.setStatus(HttpServletResponse.SC_OK);
+      response.setContentType("application/octet-stream");
+      response.setContentLength(entry.getSize());
+
+      final ServletOutputStream os = response.getOutputStream();
+      if (os instanceof HttpOutput) {
+         // jetty writes the mapped buffer straight to the connection
+         ((HttpOutput) os).sendContent(entry.getBuffer());
+      }
+      else {
+         write(os, entry.getBuffer());
+      }
+   }
+
+
+   private static void write(final ServletOutputStream os,
+                             final ByteBuffer buffer) throws IOException {
+      if (os instanceof HttpOutput) {
+         ((HttpOutput) os).write(buffer);
+      }
+      else {
+         final WritableByteChannel channel = Channels.newChannel(os);
+         while (buffer.hasRemaining()) {
+            channel.write(buffer);
+         }
+      }
+   }
+
+
+   // every level is framed by its size in bytes (int32, little endian), -1 for the levels not found
+   private void sendNodesLevelsPoints(final PersistentLOD db,
+                                      final String planetName,
+                                      final Planet planet,
+                                      final ResponseFormat format,
+                                      final String[] nodesIDs,
+                                      final int[] levels,
+                                      final float verticalExaggeration,
+                                      final double deltaHeight,
+                                      final HttpServletResponse response) throws IOException {
+      if ((format != ResponseFormat.BINARY) && (format != ResponseFormat.QUANTIZED)) {
+         error(response, "format not supported for batches: " + format);
+         return;
+      }
+
+      final EncodedLevelsCache cache = getEncodedLevelsCache(db.getCloudName());
+      final String keyPrefix = planetName.toLowerCase() + "_" + verticalExaggeration + "_" + deltaHeight + "/";
+
+      final EncodedLevelsCache.Entry[] entries = new EncodedLevelsCache.Entry[nodesIDs.length];
+      for (int i = 0; i < nodesIDs.length; i++) {
+         final String key = keyPrefix + nodesIDs[i] + "_" + levels[i] + getKeySuffix(format);
+         entries[i] = getEncodedNodeLevel(cache, key, format, db, planet, nodesIDs[i], levels[i], verticalExaggeration, deltaHeight);
+      }
+
+      int contentLength = 0;
+      for (final EncodedLevelsCache.Entry entry : entries) {
+         contentLength += 4 + ((entry == null) ? 0 : entry.getSize());
+      }
 
+      response.addHeader("Access-Control-Allow-Origin", "*");
       response.setStatus(HttpServletResponse.SC_OK);
       response.setContentType("application/octet-stream");
+      response.setContentLength(contentLength);
+
+      final ServletOutputStream os = response.getOutputStream();
+      final ByteBuffer frameHeader = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+      for (final EncodedLevelsCache.Entry entry : entries) {
+         frameHeader.clear();
+         frameHeader.putInt((entry == null) ? -1 : entry.getSize());
+         frameHeader.flip();
+         write(os, frameHeader);
+         if (entry != null) {
+            write(os, entry.getBuffer());
+         }
+      }
+   }
+
+
+   private byte[] encodeBinaryNodeLevelPoints(final PersistentLOD db,
+                                              final Planet planet,
+                                              final String nodeID,
+                                              final float verticalExaggeration,
+                                              final double deltaHeight,
+                                              final PersistentLOD.NodeLevel nodeLevel) {
+      final GVector3F average = getNodeAverage(db, planet, nodeID, verticalExaggeration, deltaHeight);
 
       final List<Geodetic3D> points = nodeLevel.getPoints(null);
 
@@ -725,8 +1069,18 @@ public class PCSSServlet
          buffer.putFloat((float) point._height);
       }
 
-      final ServletOutputStream os = response.getOutputStream();
-      os.write(buffer.array());
+      return buffer.array();
+   }
+
+
+   private byte[] encodeQuantizedNodeLevelPoints(final PersistentLOD db,
+                                                 final Planet planet,
+                                                 final String nodeID,
+                                                 final float verticalExaggeration,
+                                                 final double deltaHeight,
+                                                 final PersistentLOD.NodeLevel nodeLevel) {
+      final GVector3F average = getNodeAverage(db, planet, nodeID, verticalExaggeration, deltaHeight);
+      return QuantizedUtils.encode(planet, nodeLevel.getPoints(null), average, verticalExaggeration, deltaHeight);
    }
 
 
@@ -819,7 +1173,7 @@ public class PCSSServlet
             error(response, "deltaHeight parameter invalid or missing: " + deltaHeightStr);
          }
          else {
-            sendMetadata(db, planet, format, verticalExaggeration, deltaHeight, response);
+            sendMetadata(request, db, planetName, planet, format, verticalExaggeration, deltaHeight, response);
          }
       }
       else if (path.length == 3) {
@@ -850,13 +1204,63 @@ public class PCSSServlet
                error(response, "deltaHeight parameter invalid or missing: " + deltaHeightStr);
             }
             else {
-               sendNodeLevelPoints(db, planet, format, nodeID, level, verticalExaggeration, deltaHeight, response);
+               sendNodeLevelPoints(request, db, planetName, planet, format, nodeID, level, verticalExaggeration, deltaHeight,
+                        response);
             }
          }
          catch (final NumberFormatException e) {
             error(response, "invalid level format: " + levelStr);
          }
       }
+      else if ((path.length == 2) && path[1].equals("_batch")) {
+         // levels=<nodeID>:<level>,<nodeID>:<level>,...
+         final String levelsStr = request.getParameter("levels");
+         final String[] nodesLevels = (levelsStr == null) ? new String[0] : XStringTokenizer.getAllTokens(levelsStr, ",");
+         final String[] nodesIDs = new String[nodesLevels.length];
+         final int[] levels = new int[nodesLevels.length];
+         try {
+            for (int i = 0; i < nodesLevels.length; i++) {
+               final String[] nodeLevel = XStringTokenizer.getAllTokens(nodesLevels[i], ":");
+               if (nodeLevel.length != 2) {
+                  throw new NumberFormatException(nodesLevels[i]);
+               }
+               nodesIDs[i] = nodeLevel[0];
+               levels[i] = Integer.parseInt(nodeLevel[1]);
+            }
+         }
+         catch (final NumberFormatException e) {
+            error(response, "levels parameter invalid or missing: " + levelsStr);
+            return;
+         }
+
+         final String planetName = request.getParameter("planet");
+         final String formatName = request.getParameter("format");
+         final String verticalExaggerationStr = request.getParameter("verticalExaggeration");
+         final float verticalExaggeration = getFloat(verticalExaggerationStr, 1);
+         final String deltaHeightStr = request.getParameter("deltaHeight");
+         final double deltaHeight = getDouble(deltaHeightStr, 0);
+
+         final Planet planet = getPlanet(planetName);
+         final ResponseFormat format = ResponseFormat.get(formatName);
+         if (nodesLevels.length == 0) {
+            error(response, "levels parameter invalid or missing: " + levelsStr);
+         }
+         else if (planet == null) {
+            error(response, "planet parameter invalid or missing: " + planetName);
+         }
+         else if (format == null) {
+            error(response, "format parameter invalid or missing: " + formatName);
+         }
+         else if (Float.isNaN(verticalExaggeration)) {
+            error(response, "verticalExaggeration parameter invalid or missing: " + verticalExaggerationStr);
+         }
+         else if (Double.isNaN(deltaHeight)) {
+            error(response, "deltaHeight parameter invalid or missing: " + deltaHeightStr);
+         }
+         else {
+            sendNodesLevelsPoints(db, planetName, planet, format, nodesIDs, levels, verticalExaggeration, deltaHeight, response);
+         }
+      }
       else {
          error(response, "Invalid request");
       }
@@ -0,0 +1,153 @@
+
+
+package com.glob3mobile.pointcloud.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import com.glob3mobile.utils.Geodetic3D;
+import com.glob3mobile.utils.Planet;
+
+import es.igosoftware.euclid.vector.GVector3D;
+import es.igosoftware.euclid.vector.GVector3F;
+
+
+/*
+ * Quantized points format (little endian):
+ *
+ *    int32     pointsCount
+ *    float32   minX, minY, minZ           (relative to the node average)
+ *    float32   scaleX, scaleY, scaleZ     (x = minX + (qx * scaleX))
+ *    uint16    qx, qy, qz                 (pointsCount times)
+ *    float32   heightsQuantum
+ *    varint    zigzag encoded deltas of the quantized heights (pointsCount times)
+ */
+public class QuantizedUtils {
+
+   private static final int   MAX_QUANTIZED   = 0xFFFF;
+   private static final float HEIGHTS_QUANTUM = 0.01f;
+
+
+   private QuantizedUtils() {
+   }
+
+
+   public static byte[] encode(final Planet planet,
+                               final List<Geodetic3D> points,
+                               final GVector3F average,
+                               final float verticalExaggeration,
+                               final double deltaHeight) {
+      final int pointsCount = points.size();
+
+      final float[] offsets = new float[pointsCount * 3];
+      float minX = Float.POSITIVE_INFINITY;
+      float minY = Float.POSITIVE_INFINITY;
+      float minZ = Float.POSITIVE_INFINITY;
+      float maxX = Float.NEGATIVE_INFINITY;
+      float maxY = Float.NEGATIVE_INFINITY;
+      float maxZ = Float.NEGATIVE_INFINITY;
+      for (int i = 0; i < pointsCount; i++) {
+         final Geodetic3D point = points.get(i);
+         final GVector3D cartesian = planet.toCartesian(point._latitude, point._longitude, point._height + deltaHeight,
+                  verticalExaggeration);
+         final float x = (float) (cartesian._x - average._x);
+         final float y = (float) (cartesian._y - average._y);
+         final float z = (float) (cartesian._z - average._z);
+         offsets[(i * 3)] = x;
+         offsets[(i * 3) + 1] = y;
+         offsets[(i * 3) + 2] = z;
+
+         minX = Math.min(minX, x);
+         minY = Math.min(minY, y);
+         minZ = Math.min(minZ, z);
+         maxX = Math.max(maxX, x);
+         maxY = Math.max(maxY, y);
+         maxZ = Math.max(maxZ, z);
+      }
+      if (pointsCount == 0) {
+         minX = minY = minZ = 0;
+         maxX = maxY = maxZ = 0;
+      }
+
+      final float scaleX = (maxX - minX) / MAX_QUANTIZED;
+      final float scaleY = (maxY - minY) / MAX_QUANTIZED;
+      final float scaleZ = (maxZ - minZ) / MAX_QUANTIZED;
+
+      // a varint takes 5 bytes at most
+      final ByteBuffer buffer = ByteBuffer.allocate(4 + (6 * 4) + (pointsCount * 3 * 2) + 4 + (pointsCount * 5)).order(
+               ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(pointsCount);
+      buffer.putFloat(minX);
+      buffer.putFloat(minY);
+      buffer.putFloat(minZ);
+      buffer.putFloat(scaleX);
+      buffer.putFloat(scaleY);
+      buffer.putFloat(scaleZ);
+      for (int i = 0; i < pointsCount; i++) {
+         buffer.putShort(quantize(offsets[(i * 3)], minX, scaleX));
+         buffer.putShort(quantize(offsets[(i * 3) + 1], minY, scaleY));
+         buffer.putShort(quantize(offsets[(i * 3) + 2], minZ, scaleZ));
+      }
+
+      buffer.putFloat(HEIGHTS_QUANTUM);
+      int previous = 0;
+      for (int i = 0; i < pointsCount; i++) {
+         final int current = (int) Math.round(points.get(i)._height / HEIGHTS_QUANTUM);
+         putVarInt(buffer, zigZag(current - previous));
+         previous = current;
+      }
+
+      final byte[] result = new byte[buffer.position()];
+      System.arraycopy(buffer.array(), 0, result, 0, result.length);
+      return result;
+   }
+
+
+   private static short quantize(final float value,
+                                 final float min,
+                                 final float scale) {
+      if (scale == 0) {
+         return 0;
+      }
+      final int quantized = Math.round((value - min) / scale);
+      return (short) Math.max(0, Math.min(quantized, MAX_QUANTIZED));
+   }
+
+
+   private static int zigZag(final int value) {
+      return (value << 1) ^ (value >> 31);
+   }
+
+
+   private static void putVarInt(final ByteBuffer buffer,
+                                 final int value) {
+      int remaining = value;
+      while ((remaining & ~0x7F) != 0) {
+         buffer.put((byte) ((remaining & 0x7F) | 0x80));
+         remaining >>>= 7;
+      }
+      buffer.put((byte) remaining);
+   }
+
+
+   public static byte[] gzip(final ByteBuffer data) {
+      final ByteArrayOutputStream os = new ByteArrayOutputStream(data.remaining());
+      try (final WritableByteChannel gzip = Channels.newChannel(new GZIPOutputStream(os))) {
+         while (data.hasRemaining()) {
+            gzip.write(data);
+         }
+      }
+      catch (final IOException e) {
+         throw new RuntimeException(e);
+      }
+      return os.toByteArray();
+   }
+
+
+}
@@ -4,6 +4,7 @@ package com.glob3mobile.pointcloud.server;
 
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.servlet.ServletHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
 
 
 public class RunPCSS {
@@ -20,7 +21,24 @@ public class RunPCSS {
       final ServletHandler handler = new ServletHandler();
       server.setHandler(handler);
 
-      handler.addServletWithMapping(PCSSServlet.class, "/*");
+      final ServletHolder holder = handler.addServletWithMapping(PCSSServlet.class, "/*");
+
+      // opt-in metadata precomputation, ie: -DprecomputeClouds=cloud1,cloud2 -DprecomputePlanets=ellipsoidal,flat
+      for (final String name : new String[] {
+         "precomputeClouds",
+         "precomputePlanets",
+         "precomputeVerticalExaggerations",
+         "precomputeDeltaHeights"
+      }) {
+         final String value = System.getProperty(name);
+         if (value != null) {
+            holder.setInitParameter(name, value);
+         }
+      }
+      if (holder.getInitParameter("precomputeClouds") != null) {
+         // init the servlet at startup, so precomputation starts before the first request
+         holder.setInitOrder(0);
+      }
 
 
       server.start();